@@ -273,6 +273,22 @@ public interface APIConsumer extends APIManager {
     Set<SubscribedAPI> getPaginatedSubscribedAPIs(Subscriber subscriber, String applicationName, int startSubIndex,
                                                   int endSubIndex, String groupingId) throws APIManagementException;
 
+    /**
+     * Returns a set of SubscribedAPIs of the given application which come after the given subscription, in the order
+     * of their subscription ids.
+     *
+     * @param subscriber Subscriber
+     * @param applicationName Application needed to find subscriptions
+     * @param afterSubscriptionId Id of the last subscription of the previous page
+     * @param limit Maximum number of subscriptions to be listed
+     * @param groupingId the group id of the application
+     * @return the subscriptions
+     * @throws APIManagementException
+     */
+    Set<SubscribedAPI> getPaginatedSubscribedAPIsAfter(Subscriber subscriber, String applicationName,
+                                                       int afterSubscriptionId, int limit, String groupingId)
+            throws APIManagementException;
+
     /**
      * Returns a set of SubscribedAPIs filtered by the given application name and in between starting and ending indexes.
      *
@@ -626,6 +642,23 @@ public interface APIConsumer extends APIManager {
                                                 String search, String sortColumn, String sortOrder)
             throws APIManagementException;
 
+    /**
+     * Returns the applications of a given subscriber sorted by name, which come after the given application.
+     *
+     * @param subscriber Subscriber
+     * @param groupingId the groupId to which the applications must belong.
+     * @param afterName name of the last application of the previous page
+     * @param afterApplicationId id of the last application of the previous page
+     * @param limit maximum number of applications to return
+     * @param search search string
+     * @param sortOrder sort order of the application names
+     * @return Applications
+     * @throws APIManagementException if failed to applications for given subscriber
+     */
+    Application[] getApplicationsAfter(Subscriber subscriber, String groupingId, String afterName,
+                                       int afterApplicationId, int limit, String search, String sortOrder)
+            throws APIManagementException;
+
 
     /**
      * This will return APIM application by giving name and subscriber
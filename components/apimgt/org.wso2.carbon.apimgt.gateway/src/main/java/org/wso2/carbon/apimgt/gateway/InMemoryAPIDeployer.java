@@ -31,6 +31,7 @@ import org.wso2.carbon.apimgt.api.gateway.GatewayContentDTO;
 import org.wso2.carbon.apimgt.api.model.API;
 import org.wso2.carbon.apimgt.api.model.APIIdentifier;
 import org.wso2.carbon.apimgt.api.model.APIStatus;
+import org.wso2.carbon.apimgt.gateway.handlers.security.OpenAPIValidatorRegistry;
 import org.wso2.carbon.apimgt.gateway.internal.DataHolder;
 import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
 import org.wso2.carbon.apimgt.gateway.service.APIGatewayAdmin;
@@ -93,6 +94,7 @@ public class InMemoryAPIDeployer {
                     MessageContext.setCurrentMessageContext(org.wso2.carbon.apimgt.gateway.utils.GatewayUtils.createAxis2MessageContext());
                     apiGatewayAdmin.deployAPI(gatewayAPIDTO);
                     addDeployedCertificatesToAPIAssociation(gatewayAPIDTO);
+                    OpenAPIValidatorRegistry.getInstance().invalidate(apiId);
                     if (debugEnabled) {
                         log.debug(
                                 "API with " + apiId + " is deployed in gateway with the labels " + String.join(","
@@ -296,6 +298,7 @@ public class InMemoryAPIDeployer {
                                 .addStringToList(gatewayEvent.getUuid(), gatewayAPIDTO.getLocalEntriesToBeRemove()));
                 apiGatewayAdmin.unDeployAPI(gatewayAPIDTO);
                 DataHolder.getInstance().getApiToCertificatesMap().remove(gatewayEvent.getUuid());
+                OpenAPIValidatorRegistry.getInstance().invalidate(gatewayEvent.getUuid());
             }
         } catch (AxisFault axisFault) {
             throw new ArtifactSynchronizerException("Error while unDeploying api ", axisFault);
@@ -49,6 +49,7 @@ import org.apache.synapse.rest.RESTConstants;
 import org.apache.synapse.transport.nhttp.NhttpConstants;
 import org.wso2.carbon.apimgt.api.APIManagementException;
 import org.wso2.carbon.apimgt.gateway.APIMgtGatewayConstants;
+import org.wso2.carbon.apimgt.gateway.handlers.security.GatewayNearCache;
 import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
 import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.wso2.carbon.apimgt.impl.APIManagerConfiguration;
@@ -280,6 +281,7 @@ public class Utils {
      * @param cachedTenantDomain - Tenant domain from which the token should be removed.
      */
     public static void removeTokenFromTenantTokenCache(String accessToken, String cachedTenantDomain) {
+        GatewayNearCache.getInstance().invalidateToken(accessToken);
         //If the token is cached in the tenant cache
         if (cachedTenantDomain != null && !MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equals(cachedTenantDomain)) {
 
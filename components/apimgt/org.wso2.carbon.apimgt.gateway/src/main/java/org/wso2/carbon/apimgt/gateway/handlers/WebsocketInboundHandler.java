@@ -35,7 +35,6 @@ import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.WebSocketFrame;
 import io.netty.util.AttributeKey;
 import io.netty.util.CharsetUtil;
-import org.apache.axiom.util.UIDGenerator;
 import org.apache.axis2.AxisFault;
 import org.apache.axis2.Constants;
 import org.apache.commons.lang3.StringUtils;
@@ -49,7 +48,6 @@ import org.apache.synapse.api.Resource;
 import org.apache.synapse.api.dispatch.RESTDispatcher;
 import org.apache.synapse.core.axis2.Axis2MessageContext;
 import org.apache.synapse.rest.RESTConstants;
-import org.json.JSONObject;
 import org.wso2.carbon.apimgt.api.APIManagementException;
 import org.wso2.carbon.apimgt.gateway.APIMgtGatewayConstants;
 import org.wso2.carbon.apimgt.gateway.handlers.security.APIKeyValidator;
@@ -59,12 +57,14 @@ import org.wso2.carbon.apimgt.gateway.handlers.security.APISecurityUtils;
 import org.wso2.carbon.apimgt.gateway.handlers.security.AuthenticationContext;
 import org.wso2.carbon.apimgt.gateway.handlers.security.jwt.JWTValidator;
 import org.wso2.carbon.apimgt.gateway.handlers.streaming.websocket.WebSocketApiException;
-import org.wso2.carbon.apimgt.gateway.handlers.throttling.APIThrottleConstants;
 import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
+import org.wso2.carbon.apimgt.gateway.throttling.publisher.ThrottleDataPublisher;
+import org.wso2.carbon.apimgt.gateway.throttling.publisher.ThrottleEventAggregator;
 import org.wso2.carbon.apimgt.gateway.utils.APIMgtGoogleAnalyticsUtils;
 import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.wso2.carbon.apimgt.impl.caching.CacheProvider;
 import org.wso2.carbon.apimgt.impl.dto.APIKeyValidationInfoDTO;
+import org.wso2.carbon.apimgt.impl.dto.ThrottleProperties;
 import org.wso2.carbon.apimgt.impl.jwt.SignedJWTInfo;
 import org.wso2.carbon.apimgt.impl.utils.APIUtil;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
@@ -72,13 +72,9 @@ import org.wso2.carbon.ganalytics.publisher.GoogleAnalyticsData;
 import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
 import org.wso2.carbon.utils.multitenancy.MultitenantUtils;
 
-import java.net.Inet4Address;
-import java.net.Inet6Address;
-import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.net.UnknownHostException;
 import java.text.ParseException;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -111,6 +107,7 @@ public class WebsocketInboundHandler extends ChannelInboundHandlerAdapter {
     private String apiName;
     private String keyType;
     private API api;
+    private WebsocketThrottleContext throttleContext;
     private static final AttributeKey<Map<String, Object>> WSO2_PROPERTIES = AttributeKey.valueOf("WSO2_PROPERTIES");
 
     public WebsocketInboundHandler() {
@@ -182,10 +179,9 @@ public class WebsocketInboundHandler extends ChannelInboundHandlerAdapter {
 
             if (isAllowed) {
                 ctx.fireChannelRead(msg);
-                String clientIp = getRemoteIP(ctx);
                 // publish analytics events if analytics is enabled
                 if (APIUtil.isAnalyticsEnabled()) {
-                    publishRequestEvent(clientIp, true);
+                    publishRequestEvent(getRemoteIP(ctx), true);
                 }
             } else {
                 ctx.writeAndFlush(new TextWebSocketFrame("Websocket frame throttled out"));
@@ -384,78 +380,57 @@ public class WebsocketInboundHandler extends ChannelInboundHandlerAdapter {
      */
     public boolean doThrottle(ChannelHandlerContext ctx, WebSocketFrame msg) {
 
-        String applicationLevelTier = infoDTO.getApplicationTier();
-        String apiLevelTier = infoDTO.getApiTier();
-        String subscriptionLevelTier = infoDTO.getTier();
-        String resourceLevelTier = apiLevelTier;
-        String authorizedUser;
-        if (MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equalsIgnoreCase(infoDTO.getSubscriberTenantDomain())) {
-            authorizedUser = infoDTO.getSubscriber() + "@" + infoDTO.getSubscriberTenantDomain();
-        } else {
-            authorizedUser = infoDTO.getSubscriber();
-        }
-        String apiName = infoDTO.getApiName();
-        String apiVersion = version;
-        String appTenant = infoDTO.getSubscriberTenantDomain();
-        String apiTenant = tenantDomain;
-        String appId = infoDTO.getApplicationId();
-        String applicationLevelThrottleKey = appId + ":" + authorizedUser;
-        String apiLevelThrottleKey = apiContext + ":" + apiVersion;
-        String resourceLevelThrottleKey = apiLevelThrottleKey;
-        String subscriptionLevelThrottleKey = appId + ":" + apiContext + ":" + apiVersion;
-        String messageId = UIDGenerator.generateURNString();
-        String remoteIP = getRemoteIP(ctx);
-        if (log.isDebugEnabled()) {
-            log.debug("Remote IP address : " + remoteIP);
-        }
-        if (remoteIP.indexOf(":") > 0) {
-            remoteIP = remoteIP.substring(1, remoteIP.indexOf(":"));
-        }
-        JSONObject jsonObMap = new JSONObject();
-        if (remoteIP != null && remoteIP.length() > 0) {
-            try {
-                InetAddress address = APIUtil.getAddress(remoteIP);
-                if (address instanceof Inet4Address) {
-                    jsonObMap.put(APIThrottleConstants.IP, APIUtil.ipToLong(remoteIP));
-                } else if (address instanceof Inet6Address) {
-                    jsonObMap.put(APIThrottleConstants.IPv6, APIUtil.ipToBigInteger(remoteIP));
-                }
-            } catch (UnknownHostException e) {
-                //ignore the error and log it
-                log.error("Error while parsing host IP " + remoteIP, e);
-            }
-        }
-        jsonObMap.put(APIThrottleConstants.MESSAGE_SIZE, msg.content().capacity());
-        try {
-            PrivilegedCarbonContext.startTenantFlow();
-            PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(tenantDomain, true);
-            boolean isThrottled = WebsocketUtil.isThrottled(resourceLevelThrottleKey, subscriptionLevelThrottleKey,
-                                                            applicationLevelThrottleKey);
-            if (isThrottled) {
-                if (APIUtil.isAnalyticsEnabled()) {
-                    // Ignore data publishing
-                }
-                return false;
+        WebsocketThrottleContext throttleContext = getThrottleContext(ctx);
+        // The throttle data holder is shared by all tenants, so no tenant flow is needed to read it
+        if (throttleContext.isThrottled()) {
+            if (APIUtil.isAnalyticsEnabled()) {
+                // Ignore data publishing
             }
-        } finally {
-            PrivilegedCarbonContext.endTenantFlow();
+            return false;
         }
-        Object[] objects =
-                new Object[] { messageId, applicationLevelThrottleKey, applicationLevelTier, apiLevelThrottleKey,
-                        apiLevelTier, subscriptionLevelThrottleKey, subscriptionLevelTier, resourceLevelThrottleKey,
-                        resourceLevelTier, authorizedUser, apiContext, apiVersion, appTenant, apiTenant, appId, apiName,
-                        jsonObMap.toString() };
-        org.wso2.carbon.databridge.commons.Event event = new org.wso2.carbon.databridge.commons.Event(
-                "org.wso2.throttle.request.stream:1.0.0", System.currentTimeMillis(), null, null, objects);
-        if (ServiceReferenceHolder.getInstance().getThrottleDataPublisher() == null) {
+        ThrottleDataPublisher throttleDataPublisher = ServiceReferenceHolder.getInstance().getThrottleDataPublisher();
+        if (throttleDataPublisher == null) {
             log.error("Cannot publish events to traffic manager because ThrottleDataPublisher "
                               + "has not been initialised");
             return true;
         }
-        ServiceReferenceHolder.getInstance().getThrottleDataPublisher().getDataPublisher().tryPublish(event);
+        long messageSize = msg.content().capacity();
+        ThrottleEventAggregator eventAggregator = throttleDataPublisher.getEventAggregator();
+        if (eventAggregator != null
+                && !ServiceReferenceHolder.getInstance().getThrottleDataHolder().isKeyTemplatesPresent()) {
+            // Frames of the connection are counted and published once per aggregation window. The aggregation key
+            // carries the client IP, the only property of a frame event besides its size, so the conditional
+            // policies see the same properties as they would for each frame.
+            if (eventAggregator.add(throttleContext.getAggregationKey(), messageSize)) {
+                return true;
+            }
+            // The event aggregator is full, so the event of the frame is published on its own
+            if (log.isDebugEnabled()) {
+                log.debug("Throttle event of websocket frame of " + apiContext
+                                  + " is published without aggregation as the event aggregator is full");
+            }
+        }
+        ThrottleDataPublisher.getDataPublisher().tryPublish(throttleContext.newEvent(messageSize));
         return true;
     }
 
+    /**
+     * Returns the throttle context of the connection, building it on the first frame.
+     */
+    private WebsocketThrottleContext getThrottleContext(ChannelHandlerContext ctx) {
+
+        if (throttleContext == null) {
+            String remoteIP = getRemoteIP(ctx);
+            if (log.isDebugEnabled()) {
+                log.debug("Remote IP address : " + remoteIP);
+            }
+            ThrottleProperties throttleProperties = ServiceReferenceHolder.getInstance().getThrottleProperties();
+            throttleContext = new WebsocketThrottleContext(infoDTO, apiContext, version, tenantDomain, remoteIP,
+                    throttleProperties != null && throttleProperties.isEnableCompactEventEncoding());
+        }
+        return throttleContext;
+    }
+
     protected String getRemoteIP(ChannelHandlerContext ctx) {
         return ((InetSocketAddress) ctx.channel().remoteAddress()).getAddress().getHostAddress();
     }
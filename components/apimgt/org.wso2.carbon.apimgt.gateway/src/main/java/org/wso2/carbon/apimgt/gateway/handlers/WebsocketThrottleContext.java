@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.handlers;
+
+import org.apache.axiom.util.UIDGenerator;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.json.JSONObject;
+import org.wso2.carbon.apimgt.gateway.handlers.throttling.APIThrottleConstants;
+import org.wso2.carbon.apimgt.gateway.throttling.publisher.ThrottleEventAggregator;
+import org.wso2.carbon.apimgt.gateway.throttling.publisher.ThrottlePropertiesEncoder;
+import org.wso2.carbon.apimgt.impl.dto.APIKeyValidationInfoDTO;
+import org.wso2.carbon.apimgt.impl.utils.APIUtil;
+import org.wso2.carbon.databridge.commons.Event;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
+
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Throttle keys, tiers and client address of a websocket connection, computed once after the handshake so that the
+ * frames of the connection are throttled without rebuilding them.
+ * <p>
+ * A context belongs to the channel it was built for and is only used from the event loop of that channel.
+ */
+public class WebsocketThrottleContext {
+
+    private static final Log log = LogFactory.getLog(WebsocketThrottleContext.class);
+    private static final String STREAM_ID = "org.wso2.throttle.request.stream:1.0.0";
+
+    private final String applicationLevelThrottleKey;
+    private final String subscriptionLevelThrottleKey;
+    private final String resourceLevelThrottleKey;
+    private final Object[] attributes;
+    private final ThrottleEventAggregator.AggregationKey aggregationKey;
+    private final String ipProperty;
+    private final Object ipValue;
+    private final ThrottlePropertiesEncoder encoder;
+    private final String jsonPropertiesPrefix;
+    private final String messageIdPrefix = UIDGenerator.generateURNString() + ':';
+    private long messageCount;
+
+    /**
+     * @param infoDTO         validation info of the connection
+     * @param apiContext      context of the API
+     * @param apiVersion      version of the API
+     * @param apiTenant       tenant domain of the API
+     * @param remoteIP        address of the client
+     * @param compactEncoding whether the event properties are written in the compact encoding
+     */
+    public WebsocketThrottleContext(APIKeyValidationInfoDTO infoDTO, String apiContext, String apiVersion,
+                                    String apiTenant, String remoteIP, boolean compactEncoding) {
+
+        String authorizedUser;
+        if (MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equalsIgnoreCase(infoDTO.getSubscriberTenantDomain())) {
+            authorizedUser = infoDTO.getSubscriber() + "@" + infoDTO.getSubscriberTenantDomain();
+        } else {
+            authorizedUser = infoDTO.getSubscriber();
+        }
+        String appId = infoDTO.getApplicationId();
+        String apiLevelThrottleKey = apiContext + ":" + apiVersion;
+        applicationLevelThrottleKey = appId + ":" + authorizedUser;
+        subscriptionLevelThrottleKey = appId + ":" + apiContext + ":" + apiVersion;
+        resourceLevelThrottleKey = apiLevelThrottleKey;
+        String apiLevelTier = infoDTO.getApiTier();
+        attributes = new Object[]{applicationLevelThrottleKey, infoDTO.getApplicationTier(), apiLevelThrottleKey,
+                apiLevelTier, subscriptionLevelThrottleKey, infoDTO.getTier(), resourceLevelThrottleKey, apiLevelTier,
+                authorizedUser, apiContext, apiVersion, infoDTO.getSubscriberTenantDomain(), apiTenant, appId,
+                infoDTO.getApiName()};
+        ThrottleEventAggregator.AggregationKey aggregationKey = new ThrottleEventAggregator.AggregationKey(
+                applicationLevelThrottleKey, infoDTO.getApplicationTier(), apiLevelThrottleKey, apiLevelTier,
+                subscriptionLevelThrottleKey, infoDTO.getTier(), resourceLevelThrottleKey, apiLevelTier,
+                authorizedUser, apiContext, apiVersion, infoDTO.getSubscriberTenantDomain(), apiTenant, appId,
+                infoDTO.getApiName());
+
+        String ipProperty = null;
+        Object ipValue = null;
+        if (remoteIP.indexOf(":") > 0) {
+            remoteIP = remoteIP.substring(1, remoteIP.indexOf(":"));
+        }
+        if (remoteIP.length() > 0) {
+            try {
+                InetAddress address = APIUtil.getAddress(remoteIP);
+                if (address instanceof Inet4Address) {
+                    ipProperty = APIThrottleConstants.IP;
+                    ipValue = APIUtil.ipToLong(remoteIP);
+                } else if (address instanceof Inet6Address) {
+                    ipProperty = APIThrottleConstants.IPv6;
+                    ipValue = APIUtil.ipToBigInteger(remoteIP);
+                }
+            } catch (UnknownHostException e) {
+                //ignore the error and log it
+                log.error("Error while parsing host IP " + remoteIP, e);
+            }
+        }
+        this.ipProperty = ipProperty;
+        this.ipValue = ipValue;
+        // The client IP is the only property of the frame events besides the size, so the aggregated events carry it
+        // for the IP conditions of the policies
+        this.aggregationKey = ipProperty != null ? aggregationKey.withProperty(ipProperty, ipValue) : aggregationKey;
+        if (compactEncoding) {
+            encoder = new ThrottlePropertiesEncoder();
+            jsonPropertiesPrefix = null;
+        } else {
+            encoder = null;
+            // Only the message size changes between frames, so the rest of the JSON object is written once
+            JSONObject jsonObMap = new JSONObject();
+            if (ipProperty != null) {
+                jsonObMap.put(ipProperty, ipValue);
+            }
+            String json = jsonObMap.toString();
+            jsonPropertiesPrefix = json.substring(0, json.length() - 1) + (ipProperty != null ? "," : "") + '"'
+                    + APIThrottleConstants.MESSAGE_SIZE + "\":";
+        }
+    }
+
+    /**
+     * @return true if any of the throttle keys of the connection is throttled out
+     */
+    public boolean isThrottled() {
+
+        return WebsocketUtil.isThrottled(resourceLevelThrottleKey, subscriptionLevelThrottleKey,
+                applicationLevelThrottleKey);
+    }
+
+    /**
+     * @return the key of the connection in the throttle event aggregator
+     */
+    public ThrottleEventAggregator.AggregationKey getAggregationKey() {
+
+        return aggregationKey;
+    }
+
+    /**
+     * Builds the throttle event of a frame.
+     *
+     * @param messageSize size of the frame
+     * @return the event to publish to the traffic manager
+     */
+    public Event newEvent(long messageSize) {
+
+        String properties;
+        if (encoder != null) {
+            encoder.reset();
+            if (ipProperty != null) {
+                encoder.put(ipProperty, ipValue);
+            }
+            properties = encoder.putLong(APIThrottleConstants.MESSAGE_SIZE, messageSize).encode();
+        } else {
+            properties = jsonPropertiesPrefix + messageSize + '}';
+        }
+        Object[] objects = new Object[attributes.length + 2];
+        objects[0] = messageIdPrefix + (++messageCount);
+        System.arraycopy(attributes, 0, objects, 1, attributes.length);
+        objects[objects.length - 1] = properties;
+        return new Event(STREAM_ID, System.currentTimeMillis(), null, null, objects);
+    }
+}
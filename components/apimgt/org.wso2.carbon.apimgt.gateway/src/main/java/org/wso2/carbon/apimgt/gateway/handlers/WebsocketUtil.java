@@ -27,6 +27,7 @@ import org.apache.synapse.MessageContext;
 import org.apache.synapse.core.axis2.MessageContextCreatorForAxis2;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wso2.carbon.apimgt.gateway.handlers.security.GatewayNearCache;
 import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
 import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.wso2.carbon.apimgt.impl.APIManagerConfiguration;
@@ -92,6 +93,7 @@ public class WebsocketUtil {
 					getGatewayKeyCache().remove(cacheKey);
 					//Remove from the first level token cache as well.
 					getGatewayTokenCache().remove(apiKey);
+					GatewayNearCache.getInstance().invalidateToken(apiKey);
 				}
 				return info;
 			}
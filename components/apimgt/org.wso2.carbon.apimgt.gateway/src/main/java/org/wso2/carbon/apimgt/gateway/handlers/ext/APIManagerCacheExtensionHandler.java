@@ -10,6 +10,7 @@ import org.apache.synapse.rest.RESTConstants;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.wso2.carbon.apimgt.gateway.APIMgtGatewayConstants;
+import org.wso2.carbon.apimgt.gateway.handlers.security.GatewayNearCache;
 import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.wso2.carbon.apimgt.impl.caching.CacheProvider;
 import org.wso2.carbon.apimgt.impl.utils.APIUtil;
@@ -164,6 +165,7 @@ public class APIManagerCacheExtensionHandler extends AbstractHandler {
 
     protected void removeCacheEntryFromGatewayCache(String key) {
         CacheProvider.getGatewayTokenCache().remove(key);
+        GatewayNearCache.getInstance().invalidateToken(key);
     }
 
     protected void putInvalidTokenEntryIntoInvalidTokenCache(String cachedToken, String tenantDomain) {
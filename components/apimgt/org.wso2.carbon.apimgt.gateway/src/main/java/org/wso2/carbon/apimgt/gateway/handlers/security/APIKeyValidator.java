@@ -85,6 +85,8 @@ public class APIKeyValidator {
 
     private ArrayList<URITemplate> uriTemplates = null;
 
+    private volatile APIResourceMatcher resourceMatcher;
+
     public APIKeyValidator() {
 
         this.dataStore = new WSAPIKeyDataStore();
@@ -119,6 +121,10 @@ public class APIKeyValidator {
         return CacheProvider.getInvalidTokenCache();
     }
 
+    protected GatewayNearCache getGatewayNearCache() {
+        return GatewayNearCache.getInstance();
+    }
+
     @MethodStats
     protected Cache getResourceCache() {
         return CacheProvider.getResourceCache();
@@ -151,14 +157,19 @@ public class APIKeyValidator {
 
         String cacheKey = APIUtil.getAccessTokenCacheKey(apiKey, context, prefixedVersion, matchingResource,
                 httpVerb, authenticationScheme);
+        //Get the tenant domain of the API that is being invoked.
+        String tenantDomain = getTenantDomain();
         //If Gateway key caching is enabled.
         if (gatewayKeyCacheEnabled) {
+            GatewayNearCache nearCache = getGatewayNearCache();
             //Get the access token from the first level cache.
-            String cachedToken = (String) getGatewayTokenCache().get(apiKey);
+            String cachedToken = (String) nearCache.get(GatewayNearCache.Tier.GATEWAY_TOKEN, tenantDomain, apiKey,
+                    this::getGatewayTokenCache);
 
             //If the access token exists in the first level cache.
             if (cachedToken != null) {
-                APIKeyValidationInfoDTO info = (APIKeyValidationInfoDTO) getGatewayKeyCache().get(cacheKey);
+                APIKeyValidationInfoDTO info = (APIKeyValidationInfoDTO) nearCache.get(
+                        GatewayNearCache.Tier.GATEWAY_KEY, tenantDomain, apiKey, cacheKey, this::getGatewayKeyCache);
 
                 if (info != null) {
                     if (APIUtil.isAccessTokenExpired(info)) {
@@ -167,17 +178,21 @@ public class APIKeyValidator {
                         info.setAuthorized(false);
                         // in cache, if token is expired  remove cache entry.
                         getGatewayKeyCache().remove(cacheKey);
+                        nearCache.remove(GatewayNearCache.Tier.GATEWAY_KEY, tenantDomain, apiKey, cacheKey);
 
                         //Remove from the first level token cache as well.
                         getGatewayTokenCache().remove(apiKey);
+                        nearCache.remove(GatewayNearCache.Tier.GATEWAY_TOKEN, tenantDomain, apiKey);
                         // Put into invalid token cache
                         getInvalidTokenCache().put(apiKey, cachedToken);
+                        nearCache.put(GatewayNearCache.Tier.INVALID_TOKEN, tenantDomain, apiKey, cachedToken);
                     }
                     return info;
                 }
             } else {
                 // Check token available in invalidToken Cache
-                String revokedCachedToken = (String) getInvalidTokenCache().get(apiKey);
+                String revokedCachedToken = (String) nearCache.get(GatewayNearCache.Tier.INVALID_TOKEN,
+                        tenantDomain, apiKey, this::getInvalidTokenCache);
                 if (revokedCachedToken != null) {
                     // Token is revoked/invalid or expired
                     APIKeyValidationInfoDTO apiKeyValidationInfoDTO = new APIKeyValidationInfoDTO();
@@ -189,20 +204,21 @@ public class APIKeyValidator {
             }
         }
 
-        String tenantDomain = getTenantDomain();
         APIKeyValidationInfoDTO info = doGetKeyValidationInfo(context, prefixedVersion, apiKey, authenticationScheme, clientDomain,
                 matchingResource, httpVerb, tenantDomain, keyManagers);
         if (info != null) {
             if (gatewayKeyCacheEnabled) {
-                //Get the tenant domain of the API that is being invoked.
-
+                GatewayNearCache nearCache = getGatewayNearCache();
                 if (info.getValidationStatus() == APIConstants.KeyValidationStatus.API_AUTH_INVALID_CREDENTIALS) {
                     // if Token is not valid token (expired,invalid,revoked) put into invalid token cache
                     getInvalidTokenCache().put(apiKey, tenantDomain);
+                    nearCache.put(GatewayNearCache.Tier.INVALID_TOKEN, tenantDomain, apiKey, tenantDomain);
                 } else {
                     // Add into 1st level cache and Key cache
                     getGatewayTokenCache().put(apiKey, tenantDomain);
                     getGatewayKeyCache().put(cacheKey, info);
+                    nearCache.put(GatewayNearCache.Tier.GATEWAY_TOKEN, tenantDomain, apiKey, tenantDomain);
+                    nearCache.put(GatewayNearCache.Tier.GATEWAY_KEY, tenantDomain, apiKey, cacheKey, info);
                 }
 
                 //If this is NOT a super-tenant API that is being invoked
@@ -395,17 +411,10 @@ public class APIKeyValidator {
             String resourceString;
 
             if (selectedApi != null) {
-                Resource[] selectedAPIResources = selectedApi.getResources();
-
-                Set<Resource> acceptableResources = new LinkedHashSet<Resource>();
-
-                for (Resource resource : selectedAPIResources) {
-                    //If the requesting method is OPTIONS or if the Resource contains the requesting method
-                    if (RESTConstants.METHOD_OPTIONS.equals(httpMethod) ||
-                            (resource.getMethods() != null && Arrays.asList(resource.getMethods()).contains(httpMethod))) {
-                        acceptableResources.add(resource);
-                    }
-                }
+                //Only the resources which may match the path and which allow the requesting method (or any
+                //resource if the requesting method is OPTIONS) are handed to the dispatchers
+                Set<Resource> acceptableResources = getResourceMatcher(selectedApi)
+                        .getAcceptableResources(requestPath, httpMethod);
 
                 if (acceptableResources.size() > 0) {
                     for (RESTDispatcher dispatcher : RESTUtils.getDispatchers()) {
@@ -516,6 +525,19 @@ public class APIKeyValidator {
         return verbInfoList;
     }
 
+    /**
+     * Returns the resource matcher of the API, building it the first time the API is used after it was deployed.
+     */
+    private APIResourceMatcher getResourceMatcher(API api) {
+
+        APIResourceMatcher matcher = resourceMatcher;
+        if (matcher == null || matcher.getApi() != api) {
+            matcher = new APIResourceMatcher(api);
+            resourceMatcher = matcher;
+        }
+        return matcher;
+    }
+
     private String getRequestPath(MessageContext synCtx, String apiContext, String apiVersion, String fullRequestPath) {
         String requestPath;
         String versionStrategy = (String) synCtx.getProperty(RESTConstants.SYNAPSE_REST_API_VERSION_STRATEGY);
@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.handlers.security;
+
+import org.apache.synapse.api.API;
+import org.apache.synapse.api.Resource;
+import org.apache.synapse.api.dispatch.DispatcherHelper;
+import org.apache.synapse.rest.RESTConstants;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable routing trie over the resources of a deployed API, used to narrow down the resources which can match a
+ * request before handing them to the Synapse REST dispatchers.
+ * <p>
+ * Resources are indexed by the path segments of their URI template or URL mapping. Literal segments are trie edges,
+ * a segment which is a single simple template expression such as {@code {id}} matches any one segment, and
+ * anything else (wildcards, reserved or query expressions, mixed segments) makes the resource a candidate for every
+ * path below the point it was reached. The candidates are therefore always a superset of the resources the
+ * dispatchers can match, returned in the order of the API definition, so the dispatchers elect the same resource as
+ * they would from the full list. Requests whose path can not be compared segment by segment (encoded, with matrix
+ * parameters or with empty segments) get the full list of resources.
+ */
+public class APIResourceMatcher {
+
+    private static final int OTHER_METHOD = 1 << 7;
+
+    private final API api;
+    private final Resource[] resources;
+    private final int[] methodMasks;
+    private final Node root;
+
+    public APIResourceMatcher(API api) {
+
+        this.api = api;
+        this.resources = api.getResources();
+        this.methodMasks = new int[resources.length];
+        NodeBuilder rootBuilder = new NodeBuilder();
+        for (int i = 0; i < resources.length; i++) {
+            methodMasks[i] = toMethodMask(resources[i].getMethods());
+            DispatcherHelper dispatcherHelper = resources[i].getDispatcherHelper();
+            if (dispatcherHelper == null || dispatcherHelper.getString() == null) {
+                // Matched by the default dispatcher
+                rootBuilder.tails.add(i);
+            } else {
+                index(rootBuilder, dispatcherHelper.getString(), i);
+            }
+        }
+        this.root = rootBuilder.build();
+    }
+
+    private static void index(NodeBuilder rootBuilder, String template, int resourceIndex) {
+
+        int queryStart = template.indexOf('?');
+        String path = queryStart >= 0 ? template.substring(0, queryStart) : template;
+        // A wildcard may also match the remainder of the preceding literal segment, e.g. /menu/* matching /menus
+        boolean wildcard = path.indexOf('*') >= 0;
+        NodeBuilder parent = null;
+        NodeBuilder node = rootBuilder;
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (isSimpleExpression(segment)) {
+                if (node.variableChild == null) {
+                    node.variableChild = new NodeBuilder();
+                }
+                parent = node;
+                node = node.variableChild;
+            } else if (segment.indexOf('{') < 0 && segment.indexOf('*') < 0) {
+                parent = node;
+                node = node.children.computeIfAbsent(segment, key -> new NodeBuilder());
+            } else {
+                (wildcard && parent != null ? parent : node).tails.add(resourceIndex);
+                return;
+            }
+        }
+        if (wildcard || node == rootBuilder) {
+            // A URL mapping of / is the default mapping, so the root resource is tried for every path
+            (parent != null ? parent : node).tails.add(resourceIndex);
+        } else {
+            node.exacts.add(resourceIndex);
+        }
+    }
+
+    private static boolean isSimpleExpression(String segment) {
+
+        if (segment.length() < 3 || segment.charAt(0) != '{' || segment.charAt(segment.length() - 1) != '}') {
+            return false;
+        }
+        for (int i = 1; i < segment.length() - 1; i++) {
+            char c = segment.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '_' && c != '.') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the API the resources were indexed from
+     */
+    public API getApi() {
+
+        return api;
+    }
+
+    /**
+     * Returns the resources which may match a request, in the order they are defined in the API. A resource is
+     * acceptable if it allows the HTTP method, or for any method in the case of an OPTIONS request.
+     *
+     * @param requestPath sub request path, relative to the API context and version
+     * @param httpMethod  HTTP method of the request
+     * @return acceptable resources which may match the path
+     */
+    public Set<Resource> getAcceptableResources(String requestPath, String httpMethod) {
+
+        boolean anyMethod = RESTConstants.METHOD_OPTIONS.equals(httpMethod);
+        int methodBit = toMethodBit(httpMethod);
+        Set<Resource> acceptableResources = new LinkedHashSet<>();
+        if (!isIndexable(requestPath)) {
+            for (int i = 0; i < resources.length; i++) {
+                if (anyMethod || allowsMethod(i, methodBit, httpMethod)) {
+                    acceptableResources.add(resources[i]);
+                }
+            }
+            return acceptableResources;
+        }
+        BitSet candidates = new BitSet(resources.length);
+        int pathEnd = requestPath.indexOf('?');
+        collect(root, requestPath, 0, pathEnd >= 0 ? pathEnd : requestPath.length(), candidates);
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            if (anyMethod || allowsMethod(i, methodBit, httpMethod)) {
+                acceptableResources.add(resources[i]);
+            }
+        }
+        return acceptableResources;
+    }
+
+    private static void collect(Node node, String path, int from, int pathEnd, BitSet candidates) {
+
+        for (int resourceIndex : node.tails) {
+            candidates.set(resourceIndex);
+        }
+        int segmentStart = from;
+        while (segmentStart < pathEnd && path.charAt(segmentStart) == '/') {
+            segmentStart++;
+        }
+        if (segmentStart >= pathEnd) {
+            for (int resourceIndex : node.exacts) {
+                candidates.set(resourceIndex);
+            }
+            return;
+        }
+        int segmentEnd = path.indexOf('/', segmentStart);
+        if (segmentEnd < 0 || segmentEnd > pathEnd) {
+            segmentEnd = pathEnd;
+        }
+        if (!node.children.isEmpty()) {
+            Node child = node.children.get(path.substring(segmentStart, segmentEnd));
+            if (child != null) {
+                collect(child, path, segmentEnd, pathEnd, candidates);
+            }
+        }
+        if (node.variableChild != null) {
+            collect(node.variableChild, path, segmentEnd, pathEnd, candidates);
+        }
+    }
+
+    private static boolean isIndexable(String requestPath) {
+
+        int pathEnd = requestPath.indexOf('?');
+        if (pathEnd < 0) {
+            pathEnd = requestPath.length();
+        }
+        for (int i = 0; i < pathEnd; i++) {
+            char c = requestPath.charAt(i);
+            if (c == '%' || c == ';') {
+                return false;
+            }
+            if (c == '/' && ((i + 1 < pathEnd && requestPath.charAt(i + 1) == '/') || (i > 0 && i + 1 == pathEnd))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean allowsMethod(int resourceIndex, int methodBit, String httpMethod) {
+
+        if (methodBit != OTHER_METHOD) {
+            return (methodMasks[resourceIndex] & methodBit) != 0;
+        }
+        String[] methods = resources[resourceIndex].getMethods();
+        return methods != null && Arrays.asList(methods).contains(httpMethod);
+    }
+
+    private static int toMethodMask(String[] methods) {
+
+        int mask = 0;
+        if (methods != null) {
+            for (String method : methods) {
+                mask |= toMethodBit(method);
+            }
+        }
+        return mask;
+    }
+
+    private static int toMethodBit(String method) {
+
+        if (method == null) {
+            return OTHER_METHOD;
+        }
+        switch (method) {
+            case "GET":
+                return 1;
+            case "POST":
+                return 1 << 1;
+            case "PUT":
+                return 1 << 2;
+            case "DELETE":
+                return 1 << 3;
+            case "HEAD":
+                return 1 << 4;
+            case "OPTIONS":
+                return 1 << 5;
+            case "PATCH":
+                return 1 << 6;
+            default:
+                return OTHER_METHOD;
+        }
+    }
+
+    private static final class Node {
+
+        private static final int[] NONE = new int[0];
+
+        private final Map<String, Node> children;
+        private final Node variableChild;
+        private final int[] tails;
+        private final int[] exacts;
+
+        private Node(Map<String, Node> children, Node variableChild, int[] tails, int[] exacts) {
+
+            this.children = children;
+            this.variableChild = variableChild;
+            this.tails = tails;
+            this.exacts = exacts;
+        }
+    }
+
+    private static final class NodeBuilder {
+
+        private final Map<String, NodeBuilder> children = new HashMap<>();
+        private NodeBuilder variableChild;
+        private final List<Integer> tails = new ArrayList<>();
+        private final List<Integer> exacts = new ArrayList<>();
+
+        private Node build() {
+
+            Map<String, Node> builtChildren = new HashMap<>();
+            for (Map.Entry<String, NodeBuilder> entry : children.entrySet()) {
+                builtChildren.put(entry.getKey(), entry.getValue().build());
+            }
+            return new Node(builtChildren, variableChild != null ? variableChild.build() : null, toArray(tails),
+                    toArray(exacts));
+        }
+
+        private static int[] toArray(List<Integer> values) {
+
+            if (values.isEmpty()) {
+                return Node.NONE;
+            }
+            int[] array = new int[values.size()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = values.get(i);
+            }
+            return array;
+        }
+    }
+}
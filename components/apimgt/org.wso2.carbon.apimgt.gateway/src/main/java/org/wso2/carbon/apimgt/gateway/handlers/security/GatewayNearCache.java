@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.handlers.security;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nimbusds.jwt.SignedJWT;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
+import org.wso2.carbon.apimgt.impl.APIConstants;
+
+import java.text.ParseException;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import javax.cache.Cache;
+
+/**
+ * Per node cache in front of the gateway token, key and invalid token caches, so that repeated validations of the
+ * same token do not go through the Carbon cache and tenant flow on every request.
+ * <p>
+ * Entries are bounded in number and kept for a short time, and are invalidated together with the backing cache
+ * entries of a revoked token. The backing caches are tenant caches, so every entry is kept under the tenant domain of
+ * the API it was validated for, and a token validated for an API of one tenant is never served to another tenant.
+ * When the near cache is disabled every lookup goes straight to the backing cache. Hits and misses are counted per
+ * cache so that the hit ratio of each tier can be monitored.
+ */
+public class GatewayNearCache {
+
+    private static final Log log = LogFactory.getLog(GatewayNearCache.class);
+    public static final long DEFAULT_MAX_SIZE = 10000;
+    public static final long DEFAULT_EXPIRY_TIME_IN_SECONDS = 60;
+    private static final GatewayNearCache DISABLED = new GatewayNearCache(false, 0, 0);
+
+    /**
+     * The gateway caches which can be fronted by the near cache.
+     */
+    public enum Tier {
+        GATEWAY_TOKEN, GATEWAY_KEY, INVALID_TOKEN
+    }
+
+    private final boolean enabled;
+    private final Map<Tier, com.github.benmanes.caffeine.cache.Cache<Key, Object>> caches =
+            new EnumMap<>(Tier.class);
+    private final Map<Tier, Statistics> statistics = new EnumMap<>(Tier.class);
+
+    public GatewayNearCache(boolean enabled, long maxSize, long expiryTimeInSeconds) {
+
+        this.enabled = enabled;
+        for (Tier tier : Tier.values()) {
+            if (enabled) {
+                caches.put(tier, Caffeine.newBuilder()
+                        .maximumSize(maxSize)
+                        .expireAfterWrite(expiryTimeInSeconds, TimeUnit.SECONDS)
+                        .build());
+            }
+            statistics.put(tier, new Statistics());
+        }
+    }
+
+    /**
+     * Returns the disabled near cache, which passes every lookup to the backing cache.
+     */
+    public static GatewayNearCache disabled() {
+
+        return DISABLED;
+    }
+
+    /**
+     * @return the near cache of this node, or the disabled near cache if none is configured
+     */
+    public static GatewayNearCache getInstance() {
+
+        GatewayNearCache nearCache = ServiceReferenceHolder.getInstance().getGatewayNearCache();
+        return nearCache != null ? nearCache : DISABLED;
+    }
+
+    public boolean isEnabled() {
+
+        return enabled;
+    }
+
+    /**
+     * Looks up a token in the near cache and then in the backing cache, keeping a backing cache hit in the near cache.
+     *
+     * @param tier         the cache to look up
+     * @param tenantDomain tenant domain of the invoked API
+     * @param token        access token or JWT identifier, which is also the cache key
+     * @param backingCache supplies the backing cache of the tenant, only called on a near cache miss
+     * @return the cached value, or null if neither cache has the key
+     */
+    public Object get(Tier tier, String tenantDomain, String token, Supplier<Cache> backingCache) {
+
+        return get(tier, tenantDomain, token, token, backingCache);
+    }
+
+    /**
+     * Looks up a key in the near cache and then in the backing cache, keeping a backing cache hit in the near cache.
+     *
+     * @param tier         the cache to look up
+     * @param tenantDomain tenant domain of the invoked API
+     * @param token        access token or JWT identifier the entry belongs to
+     * @param cacheKey     key of the entry in the backing cache
+     * @param backingCache supplies the backing cache of the tenant, only called on a near cache miss
+     * @return the cached value, or null if neither cache has the key
+     */
+    public Object get(Tier tier, String tenantDomain, String token, String cacheKey, Supplier<Cache> backingCache) {
+
+        Statistics tierStatistics = statistics.get(tier);
+        Key key = null;
+        if (enabled) {
+            key = new Key(tenantDomain, token, cacheKey);
+            Object value = caches.get(tier).getIfPresent(key);
+            if (value != null) {
+                tierStatistics.nearHits.increment();
+                return value;
+            }
+        }
+        Object value = backingCache.get().get(cacheKey);
+        if (value != null) {
+            tierStatistics.backingHits.increment();
+            if (enabled) {
+                caches.get(tier).put(key, value);
+            }
+        } else {
+            tierStatistics.misses.increment();
+        }
+        return value;
+    }
+
+    /**
+     * Keeps a value which was just put into the backing cache under the token.
+     */
+    public void put(Tier tier, String tenantDomain, String token, Object value) {
+
+        put(tier, tenantDomain, token, token, value);
+    }
+
+    /**
+     * Keeps a value which was just put into the backing cache.
+     */
+    public void put(Tier tier, String tenantDomain, String token, String cacheKey, Object value) {
+
+        if (enabled) {
+            caches.get(tier).put(new Key(tenantDomain, token, cacheKey), value);
+        }
+    }
+
+    public void remove(Tier tier, String tenantDomain, String token) {
+
+        remove(tier, tenantDomain, token, token);
+    }
+
+    public void remove(Tier tier, String tenantDomain, String token, String cacheKey) {
+
+        if (enabled) {
+            caches.get(tier).invalidate(new Key(tenantDomain, token, cacheKey));
+        }
+    }
+
+    /**
+     * Removes every entry of a revoked or invalidated token, in all tenants, including the key cache entries of an
+     * opaque token for each API and resource. When the token is a JWT, the entries kept under its signature and its
+     * JWT identifier are removed as well. The entries are found by a scan of the near cache, which is bounded in size,
+     * so that revocations, which do not always know the tenant of the token, do not need an index of their own.
+     *
+     * @param token access token, JWT, JWT signature or JWT identifier
+     */
+    public void invalidateToken(String token) {
+
+        if (!enabled || StringUtils.isEmpty(token)) {
+            return;
+        }
+        Set<String> tokens = new HashSet<>();
+        tokens.add(token);
+        if (StringUtils.countMatches(token, APIConstants.DOT) == 2) {
+            tokens.add(token.substring(token.lastIndexOf(APIConstants.DOT) + 1));
+            try {
+                String jwtId = SignedJWT.parse(token).getJWTClaimsSet().getJWTID();
+                if (jwtId != null) {
+                    tokens.add(jwtId);
+                }
+            } catch (ParseException e) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Revoked token is not a JWT, only its own entries are removed", e);
+                }
+            }
+        }
+        for (com.github.benmanes.caffeine.cache.Cache<Key, Object> cache : caches.values()) {
+            cache.asMap().keySet().removeIf(key -> tokens.contains(key.token));
+        }
+    }
+
+    public void invalidateAll() {
+
+        if (enabled) {
+            for (com.github.benmanes.caffeine.cache.Cache<Key, Object> cache : caches.values()) {
+                cache.invalidateAll();
+            }
+        }
+    }
+
+    /**
+     * @return ratio of the lookups of a cache which were served by the near cache
+     */
+    public double getNearHitRatio(Tier tier) {
+
+        Statistics tierStatistics = statistics.get(tier);
+        return ratio(tierStatistics.nearHits.sum(), tierStatistics.nearHits.sum() + tierStatistics.backingHits.sum()
+                + tierStatistics.misses.sum());
+    }
+
+    /**
+     * @return ratio of the lookups of a cache which missed the near cache and were served by the backing cache
+     */
+    public double getBackingHitRatio(Tier tier) {
+
+        Statistics tierStatistics = statistics.get(tier);
+        return ratio(tierStatistics.backingHits.sum(), tierStatistics.backingHits.sum()
+                + tierStatistics.misses.sum());
+    }
+
+    public long getEstimatedSize(Tier tier) {
+
+        return enabled ? caches.get(tier).estimatedSize() : 0;
+    }
+
+    private static double ratio(long hits, long lookups) {
+
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * Key of a near cache entry: the key of the backing cache, in the tenant of the backing cache, and the token the
+     * entry belongs to.
+     */
+    private static final class Key {
+
+        private final String tenantDomain;
+        private final String token;
+        private final String cacheKey;
+        private final int hash;
+
+        private Key(String tenantDomain, String token, String cacheKey) {
+
+            this.tenantDomain = tenantDomain;
+            this.token = token;
+            this.cacheKey = cacheKey;
+            this.hash = Objects.hash(tenantDomain, cacheKey);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return Objects.equals(tenantDomain, key.tenantDomain) && cacheKey.equals(key.cacheKey);
+        }
+
+        @Override
+        public int hashCode() {
+
+            return hash;
+        }
+    }
+
+    private static final class Statistics {
+
+        private final LongAdder nearHits = new LongAdder();
+        private final LongAdder backingHits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.handlers.security;
+
+import com.atlassian.oai.validator.OpenApiInteractionValidator;
+import com.atlassian.oai.validator.report.LevelResolver;
+import com.atlassian.oai.validator.report.ValidationReport;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.swagger.v3.oas.models.OpenAPI;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds the compiled OpenApiInteractionValidator of each deployed API so that a validator is built once per API
+ * deployment instead of once per message. Validators are built from the OpenAPI object which
+ * APIMgtLatencyStatsHandler parses once per deployment and sets on the message context, so the definition is not
+ * parsed again. Entries are keyed by the API UUID and are reused while the message context carries the same OpenAPI
+ * instance, which is a reference check. Entries are bounded, evicted by Caffeine once the registry is full and
+ * invalidated when the API is redeployed or undeployed from the gateway. Messages without an API UUID fall back to
+ * validators keyed by the identity of the OpenAPI instance, which are dropped once they are idle.
+ */
+public class OpenAPIValidatorRegistry {
+
+    private static final Log log = LogFactory.getLog(OpenAPIValidatorRegistry.class);
+    private static final String MAX_SIZE_PROPERTY = "apim.gateway.schemaValidator.cacheSize";
+    private static final int DEFAULT_MAX_SIZE = 200;
+    private static final long IDLE_VALIDATOR_EXPIRY_MINUTES = 30;
+    private static final OpenAPIValidatorRegistry instance =
+            new OpenAPIValidatorRegistry(Integer.getInteger(MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE));
+
+    private final Cache<String, ValidatorHolder> validators;
+    private final Cache<OpenAPI, ValidatorHolder> validatorsWithoutUUID;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong totalBuildTime = new AtomicLong();
+
+    OpenAPIValidatorRegistry(int maxSize) {
+
+        this.validators = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                // Evictions are counted on the calling thread so that the counters are up to date
+                .executor(Runnable::run)
+                .removalListener((String key, ValidatorHolder holder, RemovalCause cause) -> {
+                    if (cause.wasEvicted()) {
+                        evictionCount.incrementAndGet();
+                    }
+                })
+                .build();
+        // Weak keys are compared by identity, so the definition is not hashed or compared for every message
+        this.validatorsWithoutUUID = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .weakKeys()
+                .expireAfterAccess(IDLE_VALIDATOR_EXPIRY_MINUTES, TimeUnit.MINUTES)
+                .build();
+    }
+
+    public static OpenAPIValidatorRegistry getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Returns the validator for the given API, building it only if the API has been deployed again since the last
+     * call, i.e. the OpenAPI object of the API is not the one the validator was built from.
+     *
+     * @param apiUUID UUID of the API, can be null
+     * @param openAPI OpenAPI definition of the API, as parsed when the API was deployed
+     * @return OpenApiInteractionValidator for the provided definition
+     */
+    public OpenApiInteractionValidator getValidator(String apiUUID, OpenAPI openAPI) {
+
+        ValidatorHolder holder;
+        if (apiUUID == null) {
+            holder = validatorsWithoutUUID.get(openAPI, ValidatorHolder::new);
+        } else {
+            holder = validators.getIfPresent(apiUUID);
+            if (holder == null || holder.openAPI != openAPI) {
+                // Only the holder is swapped under the lock of the entry, the validator is built outside of it
+                holder = validators.asMap().compute(apiUUID, (key, current) ->
+                        current != null && current.openAPI == openAPI ? current : new ValidatorHolder(openAPI));
+            }
+        }
+        return holder.getValidator();
+    }
+
+    /**
+     * Removes the validator of the given API. Called when the API is redeployed or undeployed.
+     *
+     * @param apiUUID UUID of the API
+     */
+    public void invalidate(String apiUUID) {
+
+        if (apiUUID == null) {
+            return;
+        }
+        if (validators.asMap().remove(apiUUID) != null && log.isDebugEnabled()) {
+            log.debug("Removed the cached schema validator of API " + apiUUID);
+        }
+    }
+
+    public void clear() {
+
+        validators.invalidateAll();
+        validatorsWithoutUUID.invalidateAll();
+    }
+
+    public long size() {
+
+        return validators.estimatedSize();
+    }
+
+    public long getHitCount() {
+
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+
+        return evictionCount.get();
+    }
+
+    /**
+     * @return total time spent building validators, in milliseconds
+     */
+    public long getTotalBuildTime() {
+
+        return totalBuildTime.get();
+    }
+
+    /**
+     * Method to generate OpenApiInteractionValidator when the OpenAPI definition is provided.
+     *
+     * @param openAPI OpenAPI definition.
+     * @return OpenApiInteractionValidator object for the provided definition.
+     */
+    static OpenApiInteractionValidator buildValidator(OpenAPI openAPI) {
+
+        return OpenApiInteractionValidator
+                .createFor(openAPI)
+                .withLevelResolver(
+                        LevelResolver.create()
+                                .withLevel("validation.schema.required", ValidationReport.Level.INFO)
+                                .withLevel("validation.response.body.missing", ValidationReport.Level.INFO)
+                                .build())
+                .build();
+    }
+
+    /**
+     * Lazily builds the validator of a single definition so that concurrent requests for the same API wait for one
+     * build instead of each building a validator.
+     */
+    private class ValidatorHolder {
+
+        private final OpenAPI openAPI;
+        private volatile OpenApiInteractionValidator validator;
+
+        ValidatorHolder(OpenAPI openAPI) {
+
+            this.openAPI = openAPI;
+        }
+
+        OpenApiInteractionValidator getValidator() {
+
+            OpenApiInteractionValidator current = validator;
+            if (current != null) {
+                hitCount.incrementAndGet();
+                return current;
+            }
+            synchronized (this) {
+                if (validator == null) {
+                    missCount.incrementAndGet();
+                    long startTime = System.currentTimeMillis();
+                    validator = buildValidator(openAPI);
+                    long buildTime = System.currentTimeMillis() - startTime;
+                    totalBuildTime.addAndGet(buildTime);
+                    if (log.isDebugEnabled()) {
+                        log.debug("Time to build the schema validator(ms) : " + buildTime);
+                    }
+                } else {
+                    hitCount.incrementAndGet();
+                }
+                return validator;
+            }
+        }
+    }
+}
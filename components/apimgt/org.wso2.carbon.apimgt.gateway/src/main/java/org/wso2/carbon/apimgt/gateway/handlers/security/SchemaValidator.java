@@ -18,12 +18,8 @@ package org.wso2.carbon.apimgt.gateway.handlers.security;
 
 import com.atlassian.oai.validator.OpenApiInteractionValidator;
 import com.atlassian.oai.validator.model.Request;
-import com.atlassian.oai.validator.report.LevelResolver;
 import com.atlassian.oai.validator.report.ValidationReport;
-import io.swagger.parser.OpenAPIParser;
 import io.swagger.v3.oas.models.OpenAPI;
-import io.swagger.v3.parser.core.models.ParseOptions;
-import io.swagger.v3.parser.core.models.SwaggerParseResult;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.synapse.MessageContext;
@@ -33,8 +29,6 @@ import org.wso2.carbon.apimgt.gateway.handlers.security.model.OpenAPIRequest;
 import org.wso2.carbon.apimgt.gateway.handlers.security.model.OpenAPIResponse;
 import org.wso2.carbon.apimgt.gateway.utils.GatewayUtils;
 
-import java.util.ArrayList;
-
 /**
  * This SchemaValidator handler validates the request/response messages against schema defined in the swagger.
  */
@@ -45,36 +39,30 @@ public class SchemaValidator extends AbstractHandler {
     private static final String HTTP_SC_CODE = "400";
 
     /**
-     * Method to generate OpenApiInteractionValidator when the swagger is provided.
+     * Method to get the OpenApiInteractionValidator of the API the message belongs to.
      *
-     * @param swagger Swagger definition.
-     * @return OpenApiInteractionValidator object for the provided swagger.
+     * @param messageContext Message context of the request or response.
+     * @return OpenApiInteractionValidator object for the OpenAPI definition of the API, or null if the message
+     * context has no OpenAPI definition.
      */
-    private static OpenApiInteractionValidator getOpenAPIValidator(String swagger) {
+    private static OpenApiInteractionValidator getOpenAPIValidator(MessageContext messageContext) {
 
-        OpenAPIParser openAPIParser = new OpenAPIParser();
-        SwaggerParseResult swaggerParseResult =
-                openAPIParser.readContents(swagger, new ArrayList<>(), new ParseOptions());
-        OpenAPI openAPI = swaggerParseResult.getOpenAPI();
-        return OpenApiInteractionValidator
-                .createFor(openAPI)
-                .withLevelResolver(
-                        LevelResolver.create()
-                                .withLevel("validation.schema.required", ValidationReport.Level.INFO)
-                                .withLevel("validation.response.body.missing", ValidationReport.Level.INFO)
-                                .build())
-                .build();
+        OpenAPI openAPI = (OpenAPI) messageContext.getProperty(APIMgtGatewayConstants.OPEN_API_OBJECT);
+        if (openAPI == null) {
+            return null;
+        }
+        String apiUUID = (String) messageContext.getProperty(APIMgtGatewayConstants.API_UUID_PROPERTY);
+        return OpenAPIValidatorRegistry.getInstance().getValidator(apiUUID, openAPI);
     }
 
     @Override
     public boolean handleRequest(MessageContext messageContext) {
 
         logger.debug("Validating the API request Body content..");
-        String swagger = messageContext.getProperty(APIMgtGatewayConstants.OPEN_API_STRING).toString();
-        if (swagger == null) {
+        OpenApiInteractionValidator validator = getOpenAPIValidator(messageContext);
+        if (validator == null) {
             return true;
         }
-        OpenApiInteractionValidator validator = getOpenAPIValidator(swagger);
         Request request;
         request = OpenAPIRequest.from(messageContext);
 
@@ -94,8 +82,10 @@ public class SchemaValidator extends AbstractHandler {
     @Override
     public boolean handleResponse(MessageContext messageContext) {
 
-        String swagger = messageContext.getProperty("OPEN_API_STRING").toString();
-        OpenApiInteractionValidator validator = getOpenAPIValidator(swagger);
+        OpenApiInteractionValidator validator = getOpenAPIValidator(messageContext);
+        if (validator == null) {
+            return true;
+        }
         OpenAPIResponse response;
         response = OpenAPIResponse.from(messageContext);
 
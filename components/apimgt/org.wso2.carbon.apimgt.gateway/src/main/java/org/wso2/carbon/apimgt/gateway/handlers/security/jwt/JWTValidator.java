@@ -38,6 +38,7 @@ import org.wso2.carbon.apimgt.gateway.handlers.security.APIKeyValidator;
 import org.wso2.carbon.apimgt.gateway.handlers.security.APISecurityConstants;
 import org.wso2.carbon.apimgt.gateway.handlers.security.APISecurityException;
 import org.wso2.carbon.apimgt.gateway.handlers.security.AuthenticationContext;
+import org.wso2.carbon.apimgt.gateway.handlers.security.GatewayNearCache;
 import org.wso2.carbon.apimgt.gateway.handlers.streaming.websocket.WebSocketApiConstants;
 import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
 import org.wso2.carbon.apimgt.gateway.jwt.RevokedJWTDataHolder;
@@ -468,6 +469,10 @@ public class JWTValidator {
                 getGatewayTokenCache().remove(tokenIdentifier);
                 getGatewayJWTTokenCache().remove(tokenIdentifier);
                 getInvalidTokenCache().put(tokenIdentifier, tenantDomain);
+                GatewayNearCache nearCache = getGatewayNearCache();
+                nearCache.remove(GatewayNearCache.Tier.GATEWAY_TOKEN, tenantDomain, tokenIdentifier);
+                nearCache.remove(GatewayNearCache.Tier.GATEWAY_KEY, tenantDomain, tokenIdentifier);
+                nearCache.put(GatewayNearCache.Tier.INVALID_TOKEN, tenantDomain, tokenIdentifier, tenantDomain);
             }
             payload.setValid(false);
             payload.setValidationCode(APISecurityConstants.API_AUTH_INVALID_CREDENTIALS);
@@ -489,16 +494,20 @@ public class JWTValidator {
         JWTValidationInfo jwtValidationInfo = null;
         if (isGatewayTokenCacheEnabled &&
                 !SignedJWTInfo.ValidationStatus.NOT_VALIDATED.equals(signedJWTInfo.getValidationStatus())) {
-            String cacheToken = (String) getGatewayTokenCache().get(jti);
+            GatewayNearCache nearCache = getGatewayNearCache();
+            String cacheToken = (String) nearCache.get(GatewayNearCache.Tier.GATEWAY_TOKEN, tenantDomain, jti,
+                    this::getGatewayTokenCache);
             if (SignedJWTInfo.ValidationStatus.VALID.equals(signedJWTInfo.getValidationStatus())
                     && cacheToken != null) {
-                if (getGatewayKeyCache().get(jti) != null) {
-                    JWTValidationInfo tempJWTValidationInfo = (JWTValidationInfo) getGatewayKeyCache().get(jti);
+                JWTValidationInfo tempJWTValidationInfo = (JWTValidationInfo) nearCache.get(
+                        GatewayNearCache.Tier.GATEWAY_KEY, tenantDomain, jti, this::getGatewayKeyCache);
+                if (tempJWTValidationInfo != null) {
                     checkTokenExpiration(jti, tempJWTValidationInfo, tenantDomain);
                     jwtValidationInfo = tempJWTValidationInfo;
                 }
             } else if (SignedJWTInfo.ValidationStatus.INVALID.equals(signedJWTInfo.getValidationStatus())
-                    && getInvalidTokenCache().get(jti) != null) {
+                    && nearCache.get(GatewayNearCache.Tier.INVALID_TOKEN, tenantDomain, jti,
+                    this::getInvalidTokenCache) != null) {
                 if (log.isDebugEnabled()) {
                     log.debug("Token retrieved from the invalid token cache. Token: " + GatewayUtils
                             .getMaskedToken(jwtHeader));
@@ -519,11 +528,15 @@ public class JWTValidator {
 
                 if (isGatewayTokenCacheEnabled) {
                     // Add token to tenant token cache
+                    GatewayNearCache nearCache = getGatewayNearCache();
                     if (jwtValidationInfo.isValid()) {
                         getGatewayTokenCache().put(jti, tenantDomain);
                         getGatewayKeyCache().put(jti, jwtValidationInfo);
+                        nearCache.put(GatewayNearCache.Tier.GATEWAY_TOKEN, tenantDomain, jti, tenantDomain);
+                        nearCache.put(GatewayNearCache.Tier.GATEWAY_KEY, tenantDomain, jti, jwtValidationInfo);
                     } else {
                         getInvalidTokenCache().put(jti, tenantDomain);
+                        nearCache.put(GatewayNearCache.Tier.INVALID_TOKEN, tenantDomain, jti, tenantDomain);
                     }
 
                     if (!MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equals(tenantDomain)) {
@@ -585,4 +598,9 @@ public class JWTValidator {
         return CacheProvider.getGatewayJWTTokenCache();
     }
 
+    protected GatewayNearCache getGatewayNearCache() {
+
+        return GatewayNearCache.getInstance();
+    }
+
 }
@@ -22,9 +22,15 @@ package org.wso2.carbon.apimgt.gateway.handlers.streaming.sse;
 import org.apache.axis2.Constants;
 import org.apache.synapse.MessageContext;
 import org.apache.synapse.core.axis2.Axis2MessageContext;
+import org.apache.synapse.rest.RESTConstants;
 import org.wso2.carbon.apimgt.gateway.handlers.security.APIAuthenticationHandler;
+import org.wso2.carbon.apimgt.gateway.handlers.security.APISecurityUtils;
 import org.wso2.carbon.apimgt.gateway.handlers.security.AuthenticationContext;
+import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
+import org.wso2.carbon.apimgt.gateway.throttling.publisher.ThrottleDataPublisher;
+import org.wso2.carbon.apimgt.gateway.utils.GatewayUtils;
 import org.wso2.carbon.apimgt.impl.APIConstants;
+import org.wso2.carbon.apimgt.impl.dto.ThrottleProperties;
 
 import static org.apache.axis2.Constants.Configuration.HTTP_METHOD;
 import static org.wso2.carbon.apimgt.gateway.handlers.streaming.sse.SseApiConstants.SSE_THROTTLE_DTO;
@@ -51,11 +57,26 @@ public class SseApiHandler extends APIAuthenticationHandler {
         return isAuthenticated;
     }
 
+    /**
+     * Builds the throttle data of the stream once, for the stream interceptor to throttle the events of the response.
+     * The interceptor reads it from the Axis2 message context.
+     */
     private void prepareThrottleData(MessageContext synCtx) {
 
-        AuthenticationContext authenticationContext = (AuthenticationContext) synCtx.getProperty("xxxxx");
-        ThrottleDTO throttleDTO = new ThrottleDTO(authenticationContext);
-        synCtx.setProperty(SSE_THROTTLE_DTO, throttleDTO);
+        AuthenticationContext authenticationContext = APISecurityUtils.getAuthenticationContext(synCtx);
+        if (authenticationContext == null) {
+            return;
+        }
+        String apiContext = (String) synCtx.getProperty(RESTConstants.REST_API_CONTEXT);
+        String apiVersion = (String) synCtx.getProperty(RESTConstants.SYNAPSE_REST_API_VERSION);
+        ThrottleProperties throttleProperties = ServiceReferenceHolder.getInstance().getThrottleProperties();
+        // The size of the events is measured by the stream interceptor, so only the conditions of the policies can
+        // keep the events from being aggregated
+        ThrottleDTO throttleDTO = new ThrottleDTO(authenticationContext, apiContext != null ? apiContext : "",
+                apiVersion != null ? apiVersion : "", GatewayUtils.getTenantDomain(),
+                throttleProperties != null && throttleProperties.isEnableCompactEventEncoding(),
+                !ThrottleDataPublisher.hasConditionalGroups(synCtx));
+        ((Axis2MessageContext) synCtx).getAxis2MessageContext().setProperty(SSE_THROTTLE_DTO, throttleDTO);
     }
 
     private void publishSubscriptionEvent(MessageContext synCtx) {
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.handlers.streaming.sse;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Counts the events of a server sent events stream as its chunks pass through the gateway. The bytes of a chunk are
+ * read in place, without moving the position of the buffer, and the state of a partly received line or event is kept
+ * until the next chunk of the stream.
+ * <p>
+ * As in the event stream interpretation of the HTML specification, an event is dispatched by an empty line and only
+ * counted when it has at least one {@code data} field. Lines end with CRLF, LF or CR. Comments and other fields are
+ * skipped. A scanner belongs to a single stream and is not thread safe.
+ */
+public class SseEventScanner {
+
+    private static final byte[] DATA_FIELD = {'d', 'a', 't', 'a'};
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+    private static final byte COLON = ':';
+
+    // Number of characters of the current line matched against the data field name, or one of the states below
+    private static final int LINE_START = 0;
+    private static final int DATA_LINE = -1;
+    private static final int OTHER_LINE = -2;
+
+    private int lineState = LINE_START;
+    private boolean eventHasData;
+    private boolean afterCR;
+    private long eventCount;
+
+    /**
+     * Scans the remaining bytes of a chunk.
+     *
+     * @param buffer chunk of the stream, left unchanged
+     * @return number of events completed in the chunk
+     */
+    public int scan(ByteBuffer buffer) {
+
+        int completed = 0;
+        for (int i = buffer.position(), limit = buffer.limit(); i < limit; i++) {
+            byte b = buffer.get(i);
+            if (b == LF && afterCR) {
+                // Second half of a CRLF line ending
+                afterCR = false;
+                continue;
+            }
+            afterCR = b == CR;
+            if (b == CR || b == LF) {
+                if (lineState == LINE_START) {
+                    if (eventHasData) {
+                        completed++;
+                        eventHasData = false;
+                    }
+                } else if (lineState == DATA_LINE || lineState == DATA_FIELD.length) {
+                    // A line of "data" alone is a data field with an empty value
+                    eventHasData = true;
+                }
+                lineState = LINE_START;
+            } else if (lineState >= 0) {
+                if (lineState < DATA_FIELD.length && b == DATA_FIELD[lineState]) {
+                    lineState++;
+                } else if (lineState == DATA_FIELD.length && b == COLON) {
+                    lineState = DATA_LINE;
+                } else {
+                    lineState = OTHER_LINE;
+                }
+            }
+        }
+        eventCount += completed;
+        return completed;
+    }
+
+    /**
+     * @return number of events counted since the scanner was created
+     */
+    public long getEventCount() {
+
+        return eventCount;
+    }
+}
@@ -23,13 +23,12 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.synapse.transport.passthru.DefaultStreamInterceptor;
 import org.apache.synapse.transport.passthru.PassThroughConstants;
-import org.wso2.carbon.apimgt.gateway.handlers.WebsocketUtil;
 import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
 import org.wso2.carbon.apimgt.gateway.throttling.publisher.ThrottleDataPublisher;
+import org.wso2.carbon.apimgt.gateway.throttling.publisher.ThrottleEventAggregator;
 import org.wso2.carbon.apimgt.impl.APIConstants;
-import org.wso2.carbon.apimgt.impl.dto.APIKeyValidationInfoDTO;
 import org.wso2.carbon.apimgt.impl.utils.APIUtil;
-import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.databridge.agent.DataPublisher;
 
 import java.nio.ByteBuffer;
 
@@ -50,58 +49,61 @@ public class SseStreamInterceptor extends DefaultStreamInterceptor {
 
     @Override
     public boolean targetResponse(ByteBuffer buffer, MessageContext axis2Ctx) {
-        int eventCount = getEventCount(buffer);
-        return handleThrottlingAndAnalytics(eventCount, axis2Ctx);
-    }
 
-    private int getEventCount(ByteBuffer buffer) {
-        int count = 0;
-        // do process
-        return count;
+        Object throttleObject = axis2Ctx.getProperty(SSE_THROTTLE_DTO);
+        if (throttleObject == null) {
+            log.error("Throttle object cannot be null.");
+            return false;
+        }
+        ThrottleDTO throttleDTO = (ThrottleDTO) throttleObject;
+        throttleDTO.addPendingBytes(buffer.remaining());
+        int eventCount = throttleDTO.getEventScanner().scan(buffer);
+        return handleThrottlingAndAnalytics(throttleDTO, eventCount);
     }
 
-    private boolean handleThrottlingAndAnalytics(int eventCount, MessageContext axi2Ctx) {
-
-        boolean throttleResult = false;
-        Object throttleObject = axi2Ctx.getProperty(SSE_THROTTLE_DTO);
-        if (throttleObject != null) {
+    /**
+     * Throttles the stream and publishes a throttle event per server sent event completed in the chunk. The bytes
+     * received since the previous event are shared by the completed events.
+     */
+    private boolean handleThrottlingAndAnalytics(ThrottleDTO throttleDTO, int eventCount) {
 
-            ThrottleDTO throttleDTO = (ThrottleDTO) throttleObject;
-            APIKeyValidationInfoDTO infoDTO = new APIKeyValidationInfoDTO();
-
-            String tenantDomain = infoDTO.getSubscriberTenantDomain();
-            try {
-                PrivilegedCarbonContext.startTenantFlow();
-                PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(tenantDomain, true);
-                boolean isThrottled = WebsocketUtil.isThrottled(null, null, null);
-                if (isThrottled) {
-                    if (APIUtil.isAnalyticsEnabled()) {
-                        //  dataCollector.collectData();
-                    }
-                    return false;
-                }
-            } finally {
-                PrivilegedCarbonContext.endTenantFlow();
-            }
-            Object[] objects =
-                    new Object[] { null, null, null, null, null, null, null, null, null, null, null, null, null, null,
-                            null, null, null };
-            org.wso2.carbon.databridge.commons.Event event = new org.wso2.carbon.databridge.commons.Event(
-                    "org.wso2.throttle.request.stream:1.0.0", System.currentTimeMillis(), null, null, objects);
-
-            ThrottleDataPublisher throttleDataPublisher =
-                    ServiceReferenceHolder.getInstance().getThrottleDataPublisher();
-            if (throttleDataPublisher != null) {
-                // todo need to publish per number of events
-                throttleDataPublisher.getDataPublisher().tryPublish(event);
-            } else {
-                log.error("Cannot publish events to traffic manager because ThrottleDataPublisher "
-                                  + "has not been initialised");
+        // The rest of the stream is dropped once the traffic manager throttles out one of its keys
+        if (throttleDTO.isThrottled()) {
+            if (APIUtil.isAnalyticsEnabled()) {
+                //  dataCollector.collectData();
             }
+            return false;
+        }
+        if (eventCount == 0) {
             return true;
-        } else {
-            log.error("Throttle object cannot be null.");
         }
-        return throttleResult;
+        long messageSize = throttleDTO.drainPendingBytes();
+        ThrottleDataPublisher throttleDataPublisher = ServiceReferenceHolder.getInstance().getThrottleDataPublisher();
+        if (throttleDataPublisher == null) {
+            log.error("Cannot publish events to traffic manager because ThrottleDataPublisher "
+                              + "has not been initialised");
+            return true;
+        }
+        ThrottleEventAggregator eventAggregator = throttleDataPublisher.getEventAggregator();
+        if (eventAggregator != null && throttleDTO.isAggregatable()
+                && !ServiceReferenceHolder.getInstance().getThrottleDataHolder().isKeyTemplatesPresent()) {
+            // The events are counted in a single aggregated throttle event per window. Streams of resources with
+            // conditional groups are published event by event, as ThrottleDataPublisher does for such requests.
+            if (eventAggregator.add(throttleDTO.getAggregationKey(), eventCount, messageSize)) {
+                return true;
+            }
+            // The event aggregator is full, so the events are published one by one
+            if (log.isDebugEnabled()) {
+                log.debug("Throttle events of " + eventCount + " server sent events are published without "
+                                  + "aggregation as the event aggregator is full");
+            }
+        }
+        // The traffic manager counts throttle events, so one is published per server sent event
+        DataPublisher dataPublisher = ThrottleDataPublisher.getDataPublisher();
+        for (int i = 0; i < eventCount; i++) {
+            long eventSize = messageSize / eventCount + (i < messageSize % eventCount ? 1 : 0);
+            dataPublisher.tryPublish(throttleDTO.newEvent(eventSize));
+        }
+        return true;
     }
 }
@@ -18,17 +18,137 @@
 
 package org.wso2.carbon.apimgt.gateway.handlers.streaming.sse;
 
+import org.apache.axiom.util.UIDGenerator;
+import org.wso2.carbon.apimgt.gateway.handlers.WebsocketUtil;
 import org.wso2.carbon.apimgt.gateway.handlers.security.AuthenticationContext;
+import org.wso2.carbon.apimgt.gateway.handlers.throttling.APIThrottleConstants;
+import org.wso2.carbon.apimgt.gateway.handlers.throttling.ThrottleKeys;
+import org.wso2.carbon.apimgt.gateway.throttling.publisher.ThrottleEventAggregator;
+import org.wso2.carbon.apimgt.gateway.throttling.publisher.ThrottlePropertiesEncoder;
+import org.wso2.carbon.databridge.commons.Event;
 
 /**
- * Holder for throttling data.
+ * Holder for throttling data of a server sent events stream. The throttle keys and event attributes are built once,
+ * when the stream is opened, and the events of the stream are counted by its {@link SseEventScanner}.
  */
 public class ThrottleDTO {
 
-    private AuthenticationContext authenticationContext;
+    private static final String STREAM_ID = "org.wso2.throttle.request.stream:1.0.0";
 
-    public ThrottleDTO(AuthenticationContext context) {
+    private final AuthenticationContext authenticationContext;
+    private final String applicationLevelThrottleKey;
+    private final String subscriptionLevelThrottleKey;
+    private final String resourceLevelThrottleKey;
+    private final String[] attributes;
+    private final ThrottleEventAggregator.AggregationKey aggregationKey;
+    private final boolean aggregatable;
+    private final ThrottlePropertiesEncoder encoder;
+    private final SseEventScanner eventScanner = new SseEventScanner();
+    private final String messageIdPrefix = UIDGenerator.generateURNString() + ':';
+    private long messageCount;
+    private long pendingBytes;
+
+    /**
+     * @param context         authentication context of the stream
+     * @param apiContext      context of the API
+     * @param apiVersion      version of the API
+     * @param apiTenantDomain tenant domain of the API
+     * @param compactEncoding whether the event properties are written in the compact encoding
+     * @param aggregatable    whether the events of the stream may be aggregated, i.e. the policies of the stream
+     *                        have no conditions on the properties of the events
+     */
+    public ThrottleDTO(AuthenticationContext context, String apiContext, String apiVersion, String apiTenantDomain,
+                       boolean compactEncoding, boolean aggregatable) {
 
         this.authenticationContext = context;
+        ThrottleKeys throttleKeys = ThrottleKeys.of(context, apiContext, apiVersion, apiTenantDomain);
+        applicationLevelThrottleKey = throttleKeys.getApplicationLevelThrottleKey();
+        subscriptionLevelThrottleKey = throttleKeys.getSubscriptionLevelThrottleKey();
+        // Events are throttled per API, as a stream has a single resource
+        resourceLevelThrottleKey = throttleKeys.getApiLevelThrottleKey();
+        attributes = new String[]{applicationLevelThrottleKey, context.getApplicationTier(),
+                throttleKeys.getApiLevelThrottleKey(), context.getApiTier(), subscriptionLevelThrottleKey,
+                context.getTier(), resourceLevelThrottleKey, context.getApiTier(), throttleKeys.getAuthorizedUser(),
+                apiContext, apiVersion, context.getSubscriberTenantDomain(), apiTenantDomain,
+                context.getApplicationId(), context.getApiName()};
+        aggregationKey = new ThrottleEventAggregator.AggregationKey(attributes[0], attributes[1], attributes[2],
+                attributes[3], attributes[4], attributes[5], attributes[6], attributes[7], attributes[8],
+                attributes[9], attributes[10], attributes[11], attributes[12], attributes[13], attributes[14]);
+        encoder = compactEncoding ? new ThrottlePropertiesEncoder() : null;
+        this.aggregatable = aggregatable;
+    }
+
+    public AuthenticationContext getAuthenticationContext() {
+
+        return authenticationContext;
+    }
+
+    public SseEventScanner getEventScanner() {
+
+        return eventScanner;
+    }
+
+    /**
+     * Adds the size of a chunk of the stream, to be accounted to the events completed by the chunk or later ones.
+     */
+    public void addPendingBytes(long bytes) {
+
+        pendingBytes += bytes;
+    }
+
+    /**
+     * @return the bytes received since the last drain
+     */
+    public long drainPendingBytes() {
+
+        long bytes = pendingBytes;
+        pendingBytes = 0;
+        return bytes;
+    }
+
+    /**
+     * @return the key of the stream in the throttle event aggregator
+     */
+    public ThrottleEventAggregator.AggregationKey getAggregationKey() {
+
+        return aggregationKey;
+    }
+
+    /**
+     * @return true if the events of the stream may be published as aggregated throttle events
+     */
+    public boolean isAggregatable() {
+
+        return aggregatable;
+    }
+
+    /**
+     * @return true if any of the throttle keys of the stream is throttled out
+     */
+    public boolean isThrottled() {
+
+        return WebsocketUtil.isThrottled(resourceLevelThrottleKey, subscriptionLevelThrottleKey,
+                applicationLevelThrottleKey);
+    }
+
+    /**
+     * Builds the throttle event of a server sent event.
+     *
+     * @param messageSize size of the event
+     * @return the event to publish to the traffic manager
+     */
+    public Event newEvent(long messageSize) {
+
+        String properties;
+        if (encoder != null) {
+            properties = encoder.reset().putLong(APIThrottleConstants.MESSAGE_SIZE, messageSize).encode();
+        } else {
+            properties = "{\"" + APIThrottleConstants.MESSAGE_SIZE + "\":" + messageSize + '}';
+        }
+        Object[] objects = new Object[attributes.length + 2];
+        objects[0] = messageIdPrefix + (++messageCount);
+        System.arraycopy(attributes, 0, objects, 1, attributes.length);
+        objects[objects.length - 1] = properties;
+        return new Event(STREAM_ID, System.currentTimeMillis(), null, null, objects);
     }
 }
@@ -59,6 +59,8 @@ import org.wso2.carbon.apimgt.gateway.handlers.security.APISecurityUtils;
 import org.wso2.carbon.apimgt.gateway.handlers.security.AuthenticationContext;
 import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
 import org.wso2.carbon.apimgt.gateway.throttling.ThrottleDataHolder;
+import org.wso2.carbon.apimgt.gateway.throttling.local.LocalThrottleEngine;
+import org.wso2.carbon.apimgt.gateway.throttling.local.LocalThrottleLimit;
 import org.wso2.carbon.apimgt.gateway.utils.GatewayUtils;
 import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.wso2.carbon.apimgt.impl.dto.ConditionDto;
@@ -74,6 +76,7 @@ import org.wso2.carbon.metrics.manager.Timer;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -99,6 +102,8 @@ public class ThrottleHandler extends AbstractHandler implements ManagedLifecycle
     private static final String HANDLE_THROTTLE_OUT = "HANDLE_THROTTLE_OUT";
     private static final String RESOURCE_THROTTLE = "RESOURCE_THROTTLE";
     private static final String BLOCKED_TEST = "BLOCKED_TEST";
+    private static final ThreadLocal<LocalThrottleKeys> LOCAL_THROTTLE_KEYS =
+            ThreadLocal.withInitial(LocalThrottleKeys::new);
     private final String type = ExtensionType.THROTTLING.toString();
 
     /**
@@ -194,21 +199,17 @@ public class ThrottleHandler extends AbstractHandler implements ManagedLifecycle
         String applicationId = authContext.getApplicationId();
         //If Authz context is not null only we can proceed with throttling
         if (authContext != null) {
-            authorizedUser = authContext.getUsername();
-
-            //Check if the tenant domain is appended with authorizedUser and append if it is not there
-            if (!StringUtils.contains(authorizedUser, apiTenantDomain)) {
-                authorizedUser = authContext.getUsername() + "@" + apiTenantDomain;
-            }
+            //Throttle keys are built once per API and caller, and reused by the following requests
+            ThrottleKeys throttleKeys = ThrottleKeys.of(authContext, apiContext, apiVersion, apiTenantDomain);
+            authorizedUser = throttleKeys.getAuthorizedUser();
 
             //Check if request is blocked. If request is blocked then will not proceed further and
             //inform to client.
 
             //Do blocking if there are blocking conditions present
             if (getThrottleDataHolder().isBlockingConditionsPresent()) {
-                appLevelBlockingKey = authContext.getSubscriber() + ":" + authContext.getApplicationName();
-                subscriptionLevelBlockingKey = apiContext + ":" + apiVersion + ":" + authContext.getSubscriber()
-                        + "-" + authContext.getApplicationName() + ":" + authContext.getKeyType();
+                appLevelBlockingKey = throttleKeys.getApplicationLevelBlockingKey();
+                subscriptionLevelBlockingKey = throttleKeys.getSubscriptionLevelBlockingKey();
                 Timer timer = getTimer(MetricManager.name(
                         APIConstants.METRICS_PREFIX, this.getClass().getSimpleName(), BLOCKED_TEST));
                 Timer.Context context = timer.start();
@@ -229,13 +230,13 @@ public class ThrottleHandler extends AbstractHandler implements ManagedLifecycle
                 isThrottled = true;
             } else {
                 subscriberTenantDomain = authContext.getSubscriberTenantDomain();
-                applicationLevelThrottleKey = applicationId + ":" + authorizedUser;
-                apiLevelThrottleKey = apiContext + ":" + apiVersion;
+                applicationLevelThrottleKey = throttleKeys.getApplicationLevelThrottleKey();
+                apiLevelThrottleKey = throttleKeys.getApiLevelThrottleKey();
                 stopOnQuotaReach = authContext.isStopOnQuotaReach();
                 applicationLevelTier = authContext.getApplicationTier();
                 subscriptionLevelTier = authContext.getTier();
                 apiLevelTier = authContext.getApiTier();
-                VerbInfoDTO throttledResource = new VerbInfoDTO();
+                VerbInfoDTO throttledResource = null;
                 //If request is not blocked then only we perform throttling.
                 List<VerbInfoDTO> verbInfoDTOList = (List<VerbInfoDTO>) synCtx.getProperty(APIConstants.VERB_INFO_DTO);
                 //If API level tier is not present only we should move to resource level tiers.
@@ -319,9 +320,17 @@ public class ThrottleHandler extends AbstractHandler implements ManagedLifecycle
                                     //Then we will apply resource level throttling
                                     List<ConditionGroupDTO> applicableConditions = getThrottleConditionEvaluator()
                                             .getApplicableConditions(synCtx, authContext, conditionGroupDTOs);
+                                    //Keys of user level policies vary per user, so they are not kept on the resource
+                                    Map<String, String> conditionGroupThrottleKeys = policyLevelUserTriggered ?
+                                            null : verbInfoDTO.getConditionGroupThrottleKeys(resourceLevelThrottleKey);
                                     for (ConditionGroupDTO conditionGroup : applicableConditions) {
-                                        String combinedResourceLevelThrottleKey = resourceLevelThrottleKey +
-                                                conditionGroup.getConditionGroupId();
+                                        String combinedResourceLevelThrottleKey = conditionGroupThrottleKeys != null ?
+                                                conditionGroupThrottleKeys.get(conditionGroup.getConditionGroupId()) :
+                                                null;
+                                        if (combinedResourceLevelThrottleKey == null) {
+                                            combinedResourceLevelThrottleKey = resourceLevelThrottleKey +
+                                                    conditionGroup.getConditionGroupId();
+                                        }
                                         if (log.isDebugEnabled()) {
                                             log.debug("Checking condition : " + combinedResourceLevelThrottleKey);
                                         }
@@ -365,13 +374,7 @@ public class ThrottleHandler extends AbstractHandler implements ManagedLifecycle
                     //if resource level not throttled then move to subscription level
                     if (!isResourceLevelThrottled) {
                         //Subscription Level Throttling
-                        if (authContext.getProductName() != null && authContext.getProductProvider() != null) {
-                            subscriptionLevelThrottleKey =
-                                    authContext.getApplicationId() + ":" + authContext.getProductName() + ":"
-                                            + authContext.getProductProvider();
-                        } else {
-                            subscriptionLevelThrottleKey = authContext.getApplicationId() + ":" + apiContext + ":" + apiVersion;
-                        }
+                        subscriptionLevelThrottleKey = throttleKeys.getSubscriptionLevelThrottleKey();
                         isSubscriptionLevelThrottled = getThrottleDataHolder().
                                 isThrottled(subscriptionLevelThrottleKey);
                         if (!isSubscriptionLevelThrottled && authContext.getSpikeArrestLimit() > 0) {
@@ -402,6 +405,12 @@ public class ThrottleHandler extends AbstractHandler implements ManagedLifecycle
                                         if (isHardLimitThrottled(synCtx, authContext, apiContext, apiVersion)) {
                                             isThrottled = true;
 
+                                        } else if (isLocallyThrottled(synCtx, verbInfo, authorizedUser,
+                                                apiLevelThrottleKey, apiLevelTier, subscriptionLevelThrottleKey,
+                                                subscriptionLevelTier, applicationLevelThrottleKey,
+                                                applicationLevelTier, subscriberTenantDomain, apiTenantDomain)) {
+                                            isThrottled = true;
+
                                         } else {
                                             ServiceReferenceHolder.getInstance().getThrottleDataPublisher().
                                                     publishNonThrottledEvent(applicationLevelThrottleKey,
@@ -1105,6 +1114,138 @@ public class ThrottleHandler extends AbstractHandler implements ManagedLifecycle
         return status;
     }
 
+    /**
+     * Evaluates the resource or API, subscription and application policies against the buckets of the local
+     * throttle engine, if local throttling is enabled. Subscription and API policies are those of the tenant of the
+     * API, while application policies are those of the tenant of the subscriber.
+     */
+    private boolean isLocallyThrottled(MessageContext synCtx, VerbInfoDTO verbInfo, String authorizedUser,
+                                       String apiLevelThrottleKey, String apiLevelTier,
+                                       String subscriptionLevelThrottleKey, String subscriptionLevelTier,
+                                       String applicationLevelThrottleKey, String applicationLevelTier,
+                                       String subscriberTenantDomain, String apiTenantDomain) {
+        LocalThrottleEngine localThrottleEngine = getLocalThrottleEngine();
+        if (localThrottleEngine == null) {
+            return false;
+        }
+        String resourceLevelThrottleKey = verbInfo.getRequestKey();
+        String resourceLevelTier = verbInfo.getThrottling();
+        String resourceThrottledOutReason = APIThrottleConstants.RESOURCE_LIMIT_EXCEEDED;
+        if (!StringUtils.isEmpty(apiLevelTier) && !APIConstants.UNLIMITED_TIER.equalsIgnoreCase(apiLevelTier)) {
+            resourceLevelThrottleKey = apiLevelThrottleKey;
+            resourceLevelTier = apiLevelTier;
+            resourceThrottledOutReason = APIThrottleConstants.API_LIMIT_EXCEEDED;
+        }
+        LocalThrottleLimit resourceLimit = getLocalThrottleLimit(localThrottleEngine, APIConstants.PolicyType.API,
+                apiTenantDomain, resourceLevelTier);
+        String resourceDefaultThrottleKey = null;
+        if (resourceLimit != null) {
+            if (APIConstants.API_POLICY_USER_LEVEL.equalsIgnoreCase(verbInfo.getApplicableLevel())) {
+                resourceDefaultThrottleKey = resourceLevelThrottleKey + "_" + authorizedUser
+                        + APIConstants.THROTTLE_POLICY_DEFAULT;
+            } else {
+                // The key of the default condition group is kept on the cached resource
+                resourceDefaultThrottleKey = verbInfo.getConditionGroupThrottleKeys(resourceLevelThrottleKey)
+                        .get(APIConstants.THROTTLE_POLICY_DEFAULT);
+                if (resourceDefaultThrottleKey == null) {
+                    resourceDefaultThrottleKey = resourceLevelThrottleKey + APIConstants.THROTTLE_POLICY_DEFAULT;
+                }
+            }
+        }
+
+        // Requests are taken from the buckets of the policies stopping on quota reach only if none of them rejects
+        // the request, so that a rejected request is not counted against the other policies
+        LocalThrottleKeys localThrottleKeys = LOCAL_THROTTLE_KEYS.get();
+        try {
+            localThrottleKeys.add(subscriptionLevelThrottleKey, getLocalThrottleLimit(localThrottleEngine,
+                    APIConstants.PolicyType.SUBSCRIPTION, apiTenantDomain, subscriptionLevelTier),
+                    APIThrottleConstants.SUBSCRIPTION_LIMIT_EXCEEDED);
+            localThrottleKeys.add(applicationLevelThrottleKey, getLocalThrottleLimit(localThrottleEngine,
+                    APIConstants.PolicyType.APPLICATION, subscriberTenantDomain, applicationLevelTier),
+                    APIThrottleConstants.APPLICATION_LIMIT_EXCEEDED);
+            localThrottleKeys.add(resourceDefaultThrottleKey, resourceLimit, resourceThrottledOutReason);
+            if (localThrottleKeys.hardCount > 0) {
+                int throttled = localThrottleEngine.tryAcquireAll(localThrottleKeys.hardKeys,
+                        localThrottleKeys.hardLimits, localThrottleKeys.hardCount);
+                if (throttled >= 0) {
+                    String throttleKey = localThrottleKeys.hardKeys[throttled];
+                    if (log.isDebugEnabled()) {
+                        log.debug("Request throttled locally for throttle key " + throttleKey);
+                    }
+                    synCtx.setProperty(APIThrottleConstants.THROTTLED_OUT_REASON,
+                            localThrottleKeys.hardReasons[throttled]);
+                    synCtx.setProperty(APIThrottleConstants.THROTTLED_NEXT_ACCESS_TIMESTAMP,
+                            localThrottleEngine.getNextAccessTimestamp(throttleKey));
+                    return true;
+                }
+            }
+            for (int i = 0; i < localThrottleKeys.softCount; i++) {
+                if (!localThrottleEngine.tryAcquire(localThrottleKeys.softKeys[i], localThrottleKeys.softLimits[i])
+                        && synCtx.getProperty(APIConstants.API_USAGE_THROTTLE_OUT_PROPERTY_KEY) == null) {
+                    synCtx.setProperty(APIConstants.API_USAGE_THROTTLE_OUT_PROPERTY_KEY, Boolean.TRUE);
+                }
+            }
+            return false;
+        } finally {
+            localThrottleKeys.clear();
+        }
+    }
+
+    private LocalThrottleLimit getLocalThrottleLimit(LocalThrottleEngine localThrottleEngine,
+                                                     APIConstants.PolicyType policyType, String tenantDomain,
+                                                     String tier) {
+        if (StringUtils.isEmpty(tier) || APIConstants.UNLIMITED_TIER.equalsIgnoreCase(tier)) {
+            return null;
+        }
+        return localThrottleEngine.getLimit(policyType, tenantDomain, tier);
+    }
+
+    protected LocalThrottleEngine getLocalThrottleEngine() {
+        return ServiceReferenceHolder.getInstance().getLocalThrottleEngine();
+    }
+
+    /**
+     * Throttle keys and limits of a request evaluated by the local throttle engine, reused by the requests of a thread
+     * so that evaluating them does not allocate.
+     */
+    private static final class LocalThrottleKeys {
+
+        private static final int MAX_KEYS = 3;
+
+        private final String[] hardKeys = new String[MAX_KEYS];
+        private final LocalThrottleLimit[] hardLimits = new LocalThrottleLimit[MAX_KEYS];
+        private final String[] hardReasons = new String[MAX_KEYS];
+        private final String[] softKeys = new String[MAX_KEYS];
+        private final LocalThrottleLimit[] softLimits = new LocalThrottleLimit[MAX_KEYS];
+        private int hardCount;
+        private int softCount;
+
+        private void add(String throttleKey, LocalThrottleLimit limit, String throttledOutReason) {
+            if (limit == null) {
+                return;
+            }
+            if (limit.isStopOnQuotaReach()) {
+                hardKeys[hardCount] = throttleKey;
+                hardLimits[hardCount] = limit;
+                hardReasons[hardCount] = throttledOutReason;
+                hardCount++;
+            } else {
+                softKeys[softCount] = throttleKey;
+                softLimits[softCount] = limit;
+                softCount++;
+            }
+        }
+
+        private void clear() {
+            Arrays.fill(hardKeys, null);
+            Arrays.fill(hardLimits, null);
+            Arrays.fill(softKeys, null);
+            Arrays.fill(softLimits, null);
+            hardCount = 0;
+            softCount = 0;
+        }
+    }
+
     protected AccessInformation getAccessInformation(ThrottleContext hardThrottleContext, String throttleKey, String productionHardLimit) throws ThrottleException {
         return roleBasedAccessController.canAccess(hardThrottleContext, throttleKey,
                 productionHardLimit);
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.handlers.throttling;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.apache.commons.lang3.StringUtils;
+import org.wso2.carbon.apimgt.gateway.handlers.security.AuthenticationContext;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throttle and blocking keys of an authenticated caller for an API. The keys only depend on the API and on the
+ * application and user of the caller, so they are built once and kept in a bounded cache shared by all the requests,
+ * instead of being concatenated again for every request.
+ */
+public class ThrottleKeys {
+
+    private static final long MAX_CACHED_KEYS = 10000;
+    private static final long CACHED_KEYS_IDLE_TIME_MINUTES = 15;
+    private static final Cache<Caller, ThrottleKeys> cache = Caffeine.newBuilder()
+            .maximumSize(MAX_CACHED_KEYS)
+            .expireAfterAccess(CACHED_KEYS_IDLE_TIME_MINUTES, TimeUnit.MINUTES)
+            .build();
+
+    private final String authorizedUser;
+    private final String applicationLevelThrottleKey;
+    private final String subscriptionLevelThrottleKey;
+    private final String apiLevelThrottleKey;
+    private final String applicationLevelBlockingKey;
+    private final String subscriptionLevelBlockingKey;
+
+    public ThrottleKeys(AuthenticationContext authContext, String apiContext, String apiVersion,
+                        String apiTenantDomain) {
+
+        //Check if the tenant domain is appended with authorizedUser and append if it is not there
+        if (!StringUtils.contains(authContext.getUsername(), apiTenantDomain)) {
+            authorizedUser = authContext.getUsername() + "@" + apiTenantDomain;
+        } else {
+            authorizedUser = authContext.getUsername();
+        }
+        //applicationLevelThrottleKey key is combination of {applicationId}:{authorizedUser}
+        applicationLevelThrottleKey = authContext.getApplicationId() + ":" + authorizedUser;
+        //apiLevelThrottleKey key is combination of {apiContext}:{apiVersion}
+        apiLevelThrottleKey = apiContext + ":" + apiVersion;
+        //subscriptionLevelThrottleKey key for an api subscription is combination of
+        // {applicationId}:{apiContext}:{apiVersion} or {applicationId}:{productName}:{productProvider}
+        if (authContext.getProductName() != null && authContext.getProductProvider() != null) {
+            subscriptionLevelThrottleKey = authContext.getApplicationId() + ":" + authContext.getProductName() + ":"
+                    + authContext.getProductProvider();
+        } else {
+            subscriptionLevelThrottleKey = authContext.getApplicationId() + ":" + apiLevelThrottleKey;
+        }
+        applicationLevelBlockingKey = authContext.getSubscriber() + ":" + authContext.getApplicationName();
+        subscriptionLevelBlockingKey = apiLevelThrottleKey + ":" + authContext.getSubscriber() + "-"
+                + authContext.getApplicationName() + ":" + authContext.getKeyType();
+    }
+
+    /**
+     * Returns the cached keys of the caller of the given API, building and caching them if they are not cached.
+     */
+    public static ThrottleKeys of(AuthenticationContext authContext, String apiContext, String apiVersion,
+                                  String apiTenantDomain) {
+
+        Caller caller = new Caller(authContext, apiContext, apiVersion, apiTenantDomain);
+        ThrottleKeys throttleKeys = cache.getIfPresent(caller);
+        if (throttleKeys == null) {
+            // Concurrent requests may build the same keys, which are equal, so either of them can be cached
+            throttleKeys = new ThrottleKeys(authContext, apiContext, apiVersion, apiTenantDomain);
+            cache.put(caller, throttleKeys);
+        }
+        return throttleKeys;
+    }
+
+    public String getAuthorizedUser() {
+
+        return authorizedUser;
+    }
+
+    public String getApplicationLevelThrottleKey() {
+
+        return applicationLevelThrottleKey;
+    }
+
+    public String getSubscriptionLevelThrottleKey() {
+
+        return subscriptionLevelThrottleKey;
+    }
+
+    public String getApiLevelThrottleKey() {
+
+        return apiLevelThrottleKey;
+    }
+
+    public String getApplicationLevelBlockingKey() {
+
+        return applicationLevelBlockingKey;
+    }
+
+    public String getSubscriptionLevelBlockingKey() {
+
+        return subscriptionLevelBlockingKey;
+    }
+
+    /**
+     * Everything the keys are built from. The fields are taken from the authentication context as they are, so
+     * looking up the keys does not concatenate or allocate anything but this object.
+     */
+    private static final class Caller {
+
+        private final String apiContext;
+        private final String apiVersion;
+        private final String apiTenantDomain;
+        private final String username;
+        private final String applicationId;
+        private final String applicationName;
+        private final String subscriber;
+        private final String keyType;
+        private final String productName;
+        private final String productProvider;
+        private final int hashCode;
+
+        Caller(AuthenticationContext authContext, String apiContext, String apiVersion, String apiTenantDomain) {
+
+            this.apiContext = apiContext;
+            this.apiVersion = apiVersion;
+            this.apiTenantDomain = apiTenantDomain;
+            this.username = authContext.getUsername();
+            this.applicationId = authContext.getApplicationId();
+            this.applicationName = authContext.getApplicationName();
+            this.subscriber = authContext.getSubscriber();
+            this.keyType = authContext.getKeyType();
+            this.productName = authContext.getProductName();
+            this.productProvider = authContext.getProductProvider();
+            int hash = Objects.hashCode(apiContext);
+            hash = 31 * hash + Objects.hashCode(apiVersion);
+            hash = 31 * hash + Objects.hashCode(apiTenantDomain);
+            hash = 31 * hash + Objects.hashCode(username);
+            hash = 31 * hash + Objects.hashCode(applicationId);
+            hash = 31 * hash + Objects.hashCode(applicationName);
+            hash = 31 * hash + Objects.hashCode(subscriber);
+            hash = 31 * hash + Objects.hashCode(keyType);
+            hash = 31 * hash + Objects.hashCode(productName);
+            this.hashCode = 31 * hash + Objects.hashCode(productProvider);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Caller)) {
+                return false;
+            }
+            Caller caller = (Caller) o;
+            return hashCode == caller.hashCode && Objects.equals(apiContext, caller.apiContext)
+                    && Objects.equals(apiVersion, caller.apiVersion)
+                    && Objects.equals(apiTenantDomain, caller.apiTenantDomain)
+                    && Objects.equals(username, caller.username)
+                    && Objects.equals(applicationId, caller.applicationId)
+                    && Objects.equals(applicationName, caller.applicationName)
+                    && Objects.equals(subscriber, caller.subscriber)
+                    && Objects.equals(keyType, caller.keyType)
+                    && Objects.equals(productName, caller.productName)
+                    && Objects.equals(productProvider, caller.productProvider);
+        }
+
+        @Override
+        public int hashCode() {
+
+            return hashCode;
+        }
+    }
+}
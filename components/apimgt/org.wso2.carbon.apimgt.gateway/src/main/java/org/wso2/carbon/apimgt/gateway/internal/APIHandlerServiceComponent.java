@@ -38,6 +38,11 @@ import org.wso2.carbon.apimgt.gateway.handlers.security.keys.APIKeyValidatorClie
 import org.wso2.carbon.apimgt.gateway.jwt.RevokedJWTMapCleaner;
 import org.wso2.carbon.apimgt.gateway.listeners.GatewayStartupListener;
 import org.wso2.carbon.apimgt.gateway.listeners.ServerStartupListener;
+import org.wso2.carbon.apimgt.gateway.mediators.webhooks.DeliveryStatusPublisher;
+import org.wso2.carbon.apimgt.gateway.throttling.ThrottleDataHolder;
+import org.wso2.carbon.apimgt.gateway.throttling.local.LocalThrottleEngine;
+import org.wso2.carbon.apimgt.gateway.throttling.local.LocalThrottlePolicyLoader;
+import org.wso2.carbon.apimgt.gateway.webhooks.WebhooksDataHolder;
 import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.wso2.carbon.apimgt.impl.APIManagerConfiguration;
 import org.wso2.carbon.apimgt.impl.APIManagerConfigurationService;
@@ -152,6 +157,21 @@ public class APIHandlerServiceComponent {
             log.debug("Unregistering ThrottleDataService...");
             registration.unregister();
         }
+        WebhooksDataHolder.getInstance().shutdownDispatcher();
+        DeliveryStatusPublisher.getInstance().stop();
+        ThrottleDataHolder throttleDataHolder = ServiceReferenceHolder.getInstance().getThrottleDataHolder();
+        if (throttleDataHolder != null) {
+            throttleDataHolder.stopDecisionSweeper();
+        }
+        LocalThrottlePolicyLoader localThrottlePolicyLoader =
+                ServiceReferenceHolder.getInstance().getLocalThrottlePolicyLoader();
+        if (localThrottlePolicyLoader != null) {
+            localThrottlePolicyLoader.stop();
+        }
+        LocalThrottleEngine localThrottleEngine = ServiceReferenceHolder.getInstance().getLocalThrottleEngine();
+        if (localThrottleEngine != null) {
+            localThrottleEngine.stop();
+        }
     }
 
     @Reference(
@@ -20,7 +20,10 @@ import org.apache.axis2.context.ConfigurationContext;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.apimgt.common.gateway.jwtgenerator.AbstractAPIMgtGatewayJWTGenerator;
+import org.wso2.carbon.apimgt.gateway.handlers.security.GatewayNearCache;
 import org.wso2.carbon.apimgt.gateway.throttling.ThrottleDataHolder;
+import org.wso2.carbon.apimgt.gateway.throttling.local.LocalThrottleEngine;
+import org.wso2.carbon.apimgt.gateway.throttling.local.LocalThrottlePolicyLoader;
 import org.wso2.carbon.apimgt.gateway.throttling.publisher.ThrottleDataPublisher;
 import org.wso2.carbon.apimgt.gateway.webhooks.WebhooksDataHolder;
 import org.wso2.carbon.apimgt.impl.APIManagerConfiguration;
@@ -71,6 +74,9 @@ public class ServiceReferenceHolder {
     private EndpointAdmin endpointAdmin;
     private MediationSecurityAdminService mediationSecurityAdminService;
     private ThrottleDataPublisher throttleDataPublisher;
+    private LocalThrottleEngine localThrottleEngine;
+    private LocalThrottlePolicyLoader localThrottlePolicyLoader;
+    private GatewayNearCache gatewayNearCache = GatewayNearCache.disabled();
     private Map<String,AbstractAPIMgtGatewayJWTGenerator> apiMgtGatewayJWTGenerators  = new HashMap<>();
     private TracingTracer tracer;
     private CacheInvalidationService cacheInvalidationService;
@@ -227,6 +233,36 @@ public class ServiceReferenceHolder {
         this.throttleDataPublisher = throttleDataPublisher;
     }
 
+    public LocalThrottleEngine getLocalThrottleEngine() {
+
+        return localThrottleEngine;
+    }
+
+    public void setLocalThrottleEngine(LocalThrottleEngine localThrottleEngine) {
+
+        this.localThrottleEngine = localThrottleEngine;
+    }
+
+    public LocalThrottlePolicyLoader getLocalThrottlePolicyLoader() {
+
+        return localThrottlePolicyLoader;
+    }
+
+    public void setLocalThrottlePolicyLoader(LocalThrottlePolicyLoader localThrottlePolicyLoader) {
+
+        this.localThrottlePolicyLoader = localThrottlePolicyLoader;
+    }
+
+    public GatewayNearCache getGatewayNearCache() {
+
+        return gatewayNearCache;
+    }
+
+    public void setGatewayNearCache(GatewayNearCache gatewayNearCache) {
+
+        this.gatewayNearCache = gatewayNearCache;
+    }
+
 
 
     public Map<String,AbstractAPIMgtGatewayJWTGenerator> getApiMgtGatewayJWTGenerator() {
@@ -31,6 +31,9 @@ public class RevokedJWTDataHolder {
     private static final Log log = LogFactory.getLog(RevokedJWTDataHolder.class);
     private static Map<String, Long> revokedJWTMap = new ConcurrentHashMap<>();
     private static RevokedJWTDataHolder instance = new RevokedJWTDataHolder();
+    private static volatile RevokedJWTFilter revokedJWTFilter = new RevokedJWTFilter(RevokedJWTFilter.MIN_CAPACITY);
+    // Filter being rebuilt, which also receives the keys added while the map is copied into it
+    private static volatile RevokedJWTFilter pendingRevokedJWTFilter;
 
     /**
      * Adds a given key,value pair to the revoke map.
@@ -41,6 +44,42 @@ public class RevokedJWTDataHolder {
         if (key != null && value != null) {
             log.debug("Adding revoked JWT key, value pair to the revoked map :" + key + " , " + value);
             revokedJWTMap.put(key, value);
+            RevokedJWTFilter pendingFilter = pendingRevokedJWTFilter;
+            if (pendingFilter != null) {
+                pendingFilter.add(key);
+            }
+            RevokedJWTFilter filter = revokedJWTFilter;
+            filter.add(key);
+            if (filter.isOverCapacity()) {
+                rebuildOverCapacityFilter(filter);
+            }
+        }
+    }
+
+    private synchronized void rebuildOverCapacityFilter(RevokedJWTFilter filter) {
+
+        // Another thread may have rebuilt the filter already
+        if (revokedJWTFilter == filter) {
+            rebuildRevokedJWTFilter();
+        }
+    }
+
+    /**
+     * Rebuilds the revoked JWT filter from the keys currently in the map, so that removed keys are forgotten and the
+     * filter is sized for the number of keys.
+     */
+    synchronized void rebuildRevokedJWTFilter() {
+
+        RevokedJWTFilter filter = new RevokedJWTFilter(revokedJWTMap.size() * 2);
+        pendingRevokedJWTFilter = filter;
+        for (String key : revokedJWTMap.keySet()) {
+            filter.add(key);
+        }
+        revokedJWTFilter = filter;
+        pendingRevokedJWTFilter = null;
+        if (log.isDebugEnabled()) {
+            log.debug("Rebuilt the revoked JWT filter for " + revokedJWTMap.size() + " revoked JWTs with a capacity of "
+                    + filter.getCapacity());
         }
     }
 
@@ -50,7 +89,8 @@ public class RevokedJWTDataHolder {
      * @return true if it exists and false otherwise.
      */
     public static boolean isJWTTokenSignatureExistsInRevokedMap(String jwtSignature) {
-        return revokedJWTMap.containsKey(jwtSignature);
+        // Only signatures which may have been revoked are looked up in the map
+        return revokedJWTFilter.mightContain(jwtSignature) && revokedJWTMap.containsKey(jwtSignature);
     }
 
     private RevokedJWTDataHolder() {
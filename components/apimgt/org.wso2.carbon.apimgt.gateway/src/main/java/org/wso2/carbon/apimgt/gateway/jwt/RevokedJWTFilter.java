@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.jwt;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Blocked Bloom filter over revoked JWT identifiers, used to answer most revocation checks without looking up the
+ * revoked JWT map.
+ * <p>
+ * Each identifier sets {@value #PROBES} bits within a single block of 512 bits, so a check reads at most one cache
+ * line. Bits are set with compare and set operations, so identifiers can be added while other threads check. A
+ * filter never reports an added identifier as absent, and reports an identifier which was not added as present with
+ * a probability below one percent while it holds no more identifiers than its capacity. Bits can not be cleared,
+ * so the filter is rebuilt from the revoked JWT map to forget removed identifiers.
+ */
+class RevokedJWTFilter {
+
+    static final int MIN_CAPACITY = 1024;
+    private static final int BITS_PER_ENTRY = 12;
+    private static final int WORDS_PER_BLOCK = 8;
+    private static final int BITS_PER_BLOCK = WORDS_PER_BLOCK * Long.SIZE;
+    private static final int PROBES = 7;
+
+    private final AtomicLongArray words;
+    private final int blockCount;
+    private final int capacity;
+    private final LongAdder size = new LongAdder();
+
+    RevokedJWTFilter(int capacity) {
+
+        this.capacity = Math.max(capacity, MIN_CAPACITY);
+        long bits = (long) this.capacity * BITS_PER_ENTRY;
+        this.blockCount = (int) Math.min(Integer.MAX_VALUE / WORDS_PER_BLOCK,
+                (bits + BITS_PER_BLOCK - 1) / BITS_PER_BLOCK);
+        this.words = new AtomicLongArray(blockCount * WORDS_PER_BLOCK);
+    }
+
+    void add(String identifier) {
+
+        long hash = hash(identifier);
+        int blockStart = blockStart(hash);
+        long probes = mix(hash);
+        for (int i = 0; i < PROBES; i++) {
+            int bit = (int) (probes >>> (i * 9)) & (BITS_PER_BLOCK - 1);
+            int index = blockStart + (bit >>> 6);
+            long mask = 1L << bit;
+            long word;
+            do {
+                word = words.get(index);
+                if ((word & mask) != 0) {
+                    break;
+                }
+            } while (!words.compareAndSet(index, word, word | mask));
+        }
+        size.increment();
+    }
+
+    /**
+     * @return false if the identifier was never added, true if it may have been added
+     */
+    boolean mightContain(String identifier) {
+
+        long hash = hash(identifier);
+        int blockStart = blockStart(hash);
+        long probes = mix(hash);
+        for (int i = 0; i < PROBES; i++) {
+            int bit = (int) (probes >>> (i * 9)) & (BITS_PER_BLOCK - 1);
+            if ((words.get(blockStart + (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if more identifiers were added than the filter was sized for
+     */
+    boolean isOverCapacity() {
+
+        return size.sum() > capacity;
+    }
+
+    int getCapacity() {
+
+        return capacity;
+    }
+
+    private int blockStart(long hash) {
+
+        return (int) (((hash >>> 32) * blockCount) >>> 32) * WORDS_PER_BLOCK;
+    }
+
+    private static long hash(String identifier) {
+
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < identifier.length(); i++) {
+            hash = (hash ^ identifier.charAt(i)) * 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
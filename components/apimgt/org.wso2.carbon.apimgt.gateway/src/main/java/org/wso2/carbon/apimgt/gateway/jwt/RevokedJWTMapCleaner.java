@@ -59,6 +59,8 @@ public class RevokedJWTMapCleaner extends TimerTask {
         if (log.isDebugEnabled()) {
             log.debug("Number of removed JWT tokens from the map : " + count);
         }
+        // Forget the removed tokens in the revoked JWT filter as well
+        RevokedJWTDataHolder.getInstance().rebuildRevokedJWTFilter();
     }
 
     /**
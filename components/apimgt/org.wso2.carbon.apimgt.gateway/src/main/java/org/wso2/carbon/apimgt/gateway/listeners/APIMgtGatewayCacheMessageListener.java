@@ -28,6 +28,7 @@ import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
 import org.wso2.carbon.apimgt.api.dto.ResourceCacheInvalidationDto;
+import org.wso2.carbon.apimgt.gateway.handlers.security.GatewayNearCache;
 import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
 import org.wso2.carbon.apimgt.impl.APIConstants;
 
@@ -88,8 +89,12 @@ public class APIMgtGatewayCacheMessageListener implements MessageListener {
     }
 
     private void handleKeyCacheInvalidationMessage(JSONArray jsonValue) throws ParseException {
-        ServiceReferenceHolder.getInstance().getCacheInvalidationService()
-                .invalidateCachedTokens((String[]) jsonValue.toArray(new String[0]));
+        String[] tokens = (String[]) jsonValue.toArray(new String[0]);
+        ServiceReferenceHolder.getInstance().getCacheInvalidationService().invalidateCachedTokens(tokens);
+        GatewayNearCache nearCache = GatewayNearCache.getInstance();
+        for (String token : tokens) {
+            nearCache.invalidateToken(token);
+        }
     }
 
     private void handleResourceCacheInvalidationMessage(JSONObject jsonValue) throws ParseException {
@@ -31,6 +31,7 @@ import org.wso2.carbon.apimgt.gateway.EndpointCertificateDeployer;
 import org.wso2.carbon.apimgt.gateway.GoogleAnalyticsConfigDeployer;
 import org.wso2.carbon.apimgt.gateway.InMemoryAPIDeployer;
 import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
+import org.wso2.carbon.apimgt.gateway.throttling.local.LocalThrottlePolicyLoader;
 import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.wso2.carbon.apimgt.impl.APIConstants.EventType;
 import org.wso2.carbon.apimgt.impl.APIConstants.PolicyType;
@@ -49,6 +50,8 @@ import org.wso2.carbon.apimgt.impl.notifier.events.PolicyEvent;
 import org.wso2.carbon.apimgt.impl.notifier.events.ScopeEvent;
 import org.wso2.carbon.apimgt.impl.notifier.events.SubscriptionEvent;
 import org.wso2.carbon.apimgt.impl.notifier.events.SubscriptionPolicyEvent;
+import org.wso2.carbon.apimgt.jms.listener.utils.JMSReconnectionListener;
+import org.wso2.carbon.apimgt.keymgt.SubscriptionDataHolder;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
 
 import javax.jms.JMSException;
@@ -57,7 +60,7 @@ import javax.jms.MessageListener;
 import javax.jms.TextMessage;
 import javax.jms.Topic;
 
-public class GatewayJMSMessageListener implements MessageListener {
+public class GatewayJMSMessageListener implements MessageListener, JMSReconnectionListener {
 
     private static final Log log = LogFactory.getLog(GatewayJMSMessageListener.class);
     private boolean debugEnabled = log.isDebugEnabled();
@@ -114,6 +117,13 @@ public class GatewayJMSMessageListener implements MessageListener {
         }
     }
 
+    @Override
+    public void onReconnect() {
+
+        // Subscription changes published while the connection was down were missed, fetch them from the internal API
+        SubscriptionDataHolder.getInstance().synchronizeTenantSubscriptionStores();
+    }
+
     private void handleNotificationMessage(String eventType, long timestamp, String encodedEvent) {
 
         byte[] eventDecoded = Base64.decodeBase64(encodedEvent);
@@ -206,6 +216,7 @@ public class GatewayJMSMessageListener implements MessageListener {
             ScopeEvent event = new Gson().fromJson(eventJson, ScopeEvent.class);
             ServiceReferenceHolder.getInstance().getKeyManagerDataService().deleteScope(event);
         } else if (EventType.POLICY_CREATE.toString().equals(eventType) ||
+                EventType.POLICY_UPDATE.toString().equals(eventType) ||
                 EventType.POLICY_DELETE.toString().equals(eventType)) {
             PolicyEvent event = new Gson().fromJson(eventJson, PolicyEvent.class);
             boolean updatePolicy = false;
@@ -225,6 +236,8 @@ public class GatewayJMSMessageListener implements MessageListener {
                     ServiceReferenceHolder.getInstance().getKeyManagerDataService()
                             .removeAPIPolicy(policyEvent);
                 }
+                updateLocalThrottlePolicy(event.getPolicyType(), policyEvent.getPolicyName(),
+                        policyEvent.getTenantDomain(), deletePolicy);
             } else if (event.getPolicyType() == PolicyType.SUBSCRIPTION) {
                 SubscriptionPolicyEvent policyEvent = new Gson().fromJson(eventJson, SubscriptionPolicyEvent.class);
                 if (updatePolicy) {
@@ -234,6 +247,8 @@ public class GatewayJMSMessageListener implements MessageListener {
                     ServiceReferenceHolder.getInstance().getKeyManagerDataService()
                             .removeSubscriptionPolicy(policyEvent);
                 }
+                updateLocalThrottlePolicy(event.getPolicyType(), policyEvent.getPolicyName(),
+                        policyEvent.getTenantDomain(), deletePolicy);
             } else if (event.getPolicyType() == PolicyType.APPLICATION) {
                 ApplicationPolicyEvent policyEvent = new Gson().fromJson(eventJson, ApplicationPolicyEvent.class);
                 if (updatePolicy) {
@@ -243,6 +258,8 @@ public class GatewayJMSMessageListener implements MessageListener {
                     ServiceReferenceHolder.getInstance().getKeyManagerDataService()
                             .removeApplicationPolicy(policyEvent);
                 }
+                updateLocalThrottlePolicy(event.getPolicyType(), policyEvent.getPolicyName(),
+                        policyEvent.getTenantDomain(), deletePolicy);
             }
         } else if (EventType.ENDPOINT_CERTIFICATE_ADD.toString().equals(eventType) ||
                 EventType.ENDPOINT_CERTIFICATE_REMOVE.toString().equals(eventType)) {
@@ -321,4 +338,19 @@ public class GatewayJMSMessageListener implements MessageListener {
         ServiceReferenceHolder.getInstance().getSubscriptionsDataService()
                 .removeSubscription(apiKey, applicationID, tenantDomain, callback, secret, topicName);
     }
+
+    private void updateLocalThrottlePolicy(PolicyType policyType, String policyName, String tenantDomain,
+                                           boolean deletePolicy) {
+
+        LocalThrottlePolicyLoader localThrottlePolicyLoader =
+                ServiceReferenceHolder.getInstance().getLocalThrottlePolicyLoader();
+        if (localThrottlePolicyLoader == null) {
+            return;
+        }
+        if (deletePolicy) {
+            localThrottlePolicyLoader.removePolicy(policyType, policyName, tenantDomain);
+        } else {
+            localThrottlePolicyLoader.reloadPolicy(policyType, policyName, tenantDomain);
+        }
+    }
 }
@@ -26,6 +26,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
 import org.wso2.carbon.apimgt.impl.APIConstants;
+import org.wso2.carbon.apimgt.impl.jwt.VerifiedJWTSignatureCache;
 
 import javax.jms.*;
 
@@ -82,6 +83,7 @@ public class GatewayTokenRevocationMessageListener implements MessageListener {
                     .addRevokedJWTIntoMap(revokedToken, expiryTime);
             // Add revoked token to revoked JWT map
             isJwtToken = true;
+            VerifiedJWTSignatureCache.getInstance().invalidate(revokedToken);
         }
         if (APIConstants.API_KEY_AUTH_TYPE.equals(tokenType)) {
             ServiceReferenceHolder.getInstance().getRevokedTokenService()
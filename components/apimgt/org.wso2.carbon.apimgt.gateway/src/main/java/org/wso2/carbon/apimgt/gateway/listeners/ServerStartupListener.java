@@ -18,16 +18,23 @@
 
 package org.wso2.carbon.apimgt.gateway.listeners;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.apimgt.gateway.handlers.security.GatewayNearCache;
 import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
 import org.wso2.carbon.apimgt.gateway.service.APIThrottleDataServiceImpl;
 import org.wso2.carbon.apimgt.impl.caching.CacheInvalidationServiceImpl;
 import org.wso2.carbon.apimgt.gateway.service.RevokedTokenDataImpl;
 import org.wso2.carbon.apimgt.gateway.throttling.ThrottleDataHolder;
+import org.wso2.carbon.apimgt.gateway.throttling.local.LocalThrottleEngine;
+import org.wso2.carbon.apimgt.gateway.throttling.local.LocalThrottlePolicyLoader;
 import org.wso2.carbon.apimgt.gateway.throttling.publisher.ThrottleDataPublisher;
 import org.wso2.carbon.apimgt.gateway.webhooks.SubscriptionsDataServiceImpl;
+import org.wso2.carbon.apimgt.impl.APIConstants;
+import org.wso2.carbon.apimgt.impl.APIManagerConfiguration;
 import org.wso2.carbon.apimgt.impl.caching.CacheInvalidationService;
+import org.wso2.carbon.apimgt.impl.dto.ThrottleProperties;
 import org.wso2.carbon.apimgt.impl.webhooks.SubscriptionsDataService;
 import org.wso2.carbon.core.ServerStartupObserver;
 
@@ -45,6 +52,7 @@ public class ServerStartupListener implements ServerStartupObserver {
         // event receiver, before the event receiver has been started on completion of server startup.
         ServiceReferenceHolder.getInstance().setThrottleDataPublisher(new ThrottleDataPublisher());
         ThrottleDataHolder throttleDataHolder = new ThrottleDataHolder();
+        startThrottleDecisionSweeper(throttleDataHolder);
         APIThrottleDataServiceImpl throttleDataServiceImpl =
                 new APIThrottleDataServiceImpl(throttleDataHolder);
         CacheInvalidationService cacheInvalidationService = new CacheInvalidationServiceImpl();
@@ -56,6 +64,55 @@ public class ServerStartupListener implements ServerStartupObserver {
         SubscriptionsDataService subscriptionsDataService = new SubscriptionsDataServiceImpl();
         ServiceReferenceHolder.getInstance().setSubscriptionsDataService(subscriptionsDataService);
         log.debug("APIThrottleDataService Registered...");
+        startLocalThrottling();
+        initGatewayNearCache();
+    }
+
+    private void initGatewayNearCache() {
+
+        APIManagerConfiguration configuration = ServiceReferenceHolder.getInstance().getAPIManagerConfiguration();
+        if (configuration == null || !Boolean.parseBoolean(configuration.getFirstProperty(APIConstants
+                .GATEWAY_NEAR_CACHE_ENABLED))) {
+            return;
+        }
+        long maxSize = GatewayNearCache.DEFAULT_MAX_SIZE;
+        String maxSizeProperty = configuration.getFirstProperty(APIConstants.GATEWAY_NEAR_CACHE_MAX_SIZE);
+        if (StringUtils.isNotEmpty(maxSizeProperty)) {
+            maxSize = Long.parseLong(maxSizeProperty);
+        }
+        long expiryTime = GatewayNearCache.DEFAULT_EXPIRY_TIME_IN_SECONDS;
+        String expiryTimeProperty = configuration.getFirstProperty(APIConstants.GATEWAY_NEAR_CACHE_EXPIRY);
+        if (StringUtils.isNotEmpty(expiryTimeProperty)) {
+            expiryTime = Long.parseLong(expiryTimeProperty);
+        }
+        ServiceReferenceHolder.getInstance().setGatewayNearCache(new GatewayNearCache(true, maxSize, expiryTime));
+        log.debug("Gateway near cache initialized...");
+    }
+
+    private void startThrottleDecisionSweeper(ThrottleDataHolder throttleDataHolder) {
+
+        ThrottleProperties throttleProperties = ServiceReferenceHolder.getInstance().getThrottleProperties();
+        ThrottleProperties.ThrottleDecisionStore throttleDecisionStore = throttleProperties != null ?
+                throttleProperties.getThrottleDecisionStore() : new ThrottleProperties.ThrottleDecisionStore();
+        throttleDataHolder.setThrottleDecisionMaxSize(throttleDecisionStore.getMaxSize());
+        throttleDataHolder.startDecisionSweeper(throttleDecisionStore.getSweepIntervalInMillis());
+    }
+
+    private void startLocalThrottling() {
+
+        ThrottleProperties throttleProperties = ServiceReferenceHolder.getInstance().getThrottleProperties();
+        if (throttleProperties == null || !throttleProperties.getLocalThrottling().isEnabled()) {
+            return;
+        }
+        ThrottleProperties.LocalThrottling localThrottling = throttleProperties.getLocalThrottling();
+        LocalThrottleEngine localThrottleEngine =
+                new LocalThrottleEngine(localThrottling.getBurstTolerancePercentage());
+        localThrottleEngine.start(localThrottling.getReconcileIntervalInMillis());
+        LocalThrottlePolicyLoader localThrottlePolicyLoader = new LocalThrottlePolicyLoader(localThrottleEngine);
+        localThrottlePolicyLoader.loadAllPolicies();
+        ServiceReferenceHolder.getInstance().setLocalThrottleEngine(localThrottleEngine);
+        ServiceReferenceHolder.getInstance().setLocalThrottlePolicyLoader(localThrottlePolicyLoader);
+        log.debug("Local throttling engine started...");
     }
 }
 
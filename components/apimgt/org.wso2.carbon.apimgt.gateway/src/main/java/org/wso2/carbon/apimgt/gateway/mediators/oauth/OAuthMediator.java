@@ -41,7 +41,6 @@ import org.wso2.carbon.core.util.CryptoException;
 import org.wso2.carbon.core.util.CryptoUtil;
 
 import java.util.Map;
-import java.util.concurrent.CountDownLatch;
 
 /**
  * OAuth Mediator for generating OAuth tokens for invoking service endpoints secured with OAuth
@@ -52,7 +51,6 @@ public class OAuthMediator extends AbstractMediator implements ManagedLifecycle
     private static RedisConfig redisConfig;
     public static RedisCacheUtils redisCacheUtils;
     public static boolean isRedisEnabled = false;
-    public static OAuthEndpoint oAuthEndpoint;
 
     // Interface methods are being implemented here
     @Override
@@ -74,7 +72,6 @@ public class OAuthMediator extends AbstractMediator implements ManagedLifecycle
         }
 
         CryptoUtil cryptoUtil = CryptoUtil.getDefaultCryptoUtil();
-        CountDownLatch latch = new CountDownLatch(1);
         try {
             String username = null;
             String password = null;
@@ -107,33 +104,23 @@ public class OAuthMediator extends AbstractMediator implements ManagedLifecycle
 
             String decryptedClientSecret = new String(cryptoUtil.base64DecodeAndDecrypt(clientSecret));
 
-            oAuthEndpoint = new OAuthEndpoint();
-            oAuthEndpoint.setId(uniqueIdentifier);
-            oAuthEndpoint.setTokenApiUrl(tokenApiUrl);
-            oAuthEndpoint.setClientId(clientId);
-            oAuthEndpoint.setClientSecret(decryptedClientSecret);
-            oAuthEndpoint.setUsername(username);
+            OAuthEndpoint endpoint = new OAuthEndpoint();
+            endpoint.setId(uniqueIdentifier);
+            endpoint.setTokenApiUrl(tokenApiUrl);
+            endpoint.setClientId(clientId);
+            endpoint.setClientSecret(decryptedClientSecret);
+            endpoint.setUsername(username);
             if (password != null) {
-                oAuthEndpoint.setPassword(password.toCharArray());
+                endpoint.setPassword(password.toCharArray());
             }
-            oAuthEndpoint.setGrantType(grantType);
-            oAuthEndpoint.setCustomParameters(customParameters);
-
-            if (oAuthEndpoint != null) {
-                try {
-                    OAuthTokenGenerator.generateToken(oAuthEndpoint, latch);
-                    latch.await();
-                } catch(InterruptedException | APISecurityException e) {
-                    log.error("Could not generate access token...", e);
-                }
-            }
-
-            TokenResponse tokenResponse;
-            if (isRedisEnabled) {
-                assert oAuthEndpoint != null;
-                tokenResponse = (TokenResponse) redisCacheUtils.getObject(oAuthEndpoint.getId(), TokenResponse.class);
-            } else {
-                tokenResponse = TokenCache.getInstance().getTokenMap().get(oAuthEndpoint.getId());
+            endpoint.setGrantType(grantType);
+            endpoint.setCustomParameters(customParameters);
+
+            TokenResponse tokenResponse = null;
+            try {
+                tokenResponse = OAuthTokenManager.getInstance().getToken(endpoint);
+            } catch (APISecurityException e) {
+                log.error("Could not generate access token...", e);
             }
             if (tokenResponse != null) {
                 String accessToken = tokenResponse.getAccessToken();
@@ -31,7 +31,7 @@ import org.apache.synapse.mediators.AbstractMediator;
 import org.apache.synapse.transport.passthru.TargetResponse;
 import org.wso2.carbon.apimgt.gateway.handlers.Utils;
 import org.wso2.carbon.apimgt.gateway.handlers.security.APISecurityConstants;
-import org.wso2.carbon.apimgt.gateway.handlers.security.APISecurityException;
+import org.wso2.carbon.apimgt.impl.APIConstants.OAuthConstants;
 
 /**
  * OAuthResponseMediator to handle error responses from OAuth 2.0 protected backends
@@ -55,14 +55,16 @@ public class OAuthResponseMediator extends AbstractMediator implements ManagedLi
                     .getAxis2MessageContext().getProperty("pass-through.Target-Response");
             int statusCode = targetResponse.getStatus();
             if (statusCode == 401) {
-                try {
-                    OAuthTokenGenerator.generateToken(OAuthMediator.oAuthEndpoint, null);
-                    log.error("OAuth 2.0 access token has been rejected by the backend...");
-                    handleFailure(APISecurityConstants.OAUTH_TEMPORARY_SERVER_ERROR, messageContext,
-                            APISecurityConstants.OAUTH_TEMPORARY_SERVER_ERROR_MESSAGE, "Please try again");
-                } catch (APISecurityException e) {
-                    log.error("Error when generating oauth 2.0 access token...", e);
+                // APIs may use different OAuth endpoints, so the endpoint is read from the message like OAuthMediator
+                String endpointId = (String) messageContext.getProperty(OAuthConstants.UNIQUE_IDENTIFIER);
+                if (endpointId != null) {
+                    OAuthTokenManager.getInstance().invalidate(endpointId);
+                } else if (log.isDebugEnabled()) {
+                    log.debug("No OAuth 2.0 endpoint is set in the message, so no access token is invalidated");
                 }
+                log.error("OAuth 2.0 access token has been rejected by the backend...");
+                handleFailure(APISecurityConstants.OAUTH_TEMPORARY_SERVER_ERROR, messageContext,
+                        APISecurityConstants.OAUTH_TEMPORARY_SERVER_ERROR_MESSAGE, "Please try again");
             }
         }
         return true;
@@ -0,0 +1,532 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.mediators.oauth;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.json.simple.parser.ParseException;
+import org.wso2.carbon.apimgt.api.APIManagementException;
+import org.wso2.carbon.apimgt.gateway.handlers.security.APISecurityConstants;
+import org.wso2.carbon.apimgt.gateway.handlers.security.APISecurityException;
+import org.wso2.carbon.apimgt.gateway.mediators.oauth.client.OAuthClient;
+import org.wso2.carbon.apimgt.gateway.mediators.oauth.client.TokenResponse;
+import org.wso2.carbon.apimgt.gateway.mediators.oauth.conf.OAuthEndpoint;
+import org.wso2.carbon.apimgt.gateway.utils.redis.RedisCacheUtils;
+import org.wso2.carbon.apimgt.impl.APIConstants;
+import org.wso2.carbon.metrics.manager.Level;
+import org.wso2.carbon.metrics.manager.MetricManager;
+import org.wso2.carbon.metrics.manager.Timer;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the access tokens of the OAuth protected backends invoked through the {@link OAuthMediator}.
+ * <p>
+ * Requests are served from the current token of their endpoint without waiting. A token is refreshed in the
+ * background ahead of its expiry if its endpoint was used while it was current. Only requests finding no valid token
+ * wait, and all the concurrent requests of an endpoint wait for the same fetch. After a failed fetch, the token
+ * endpoint is not called again until a backoff has elapsed. When Redis is enabled it is shared by the gateways: a
+ * valid token found there is used instead of fetching a new one, and fetched tokens are stored there. Without Redis,
+ * fetched tokens are also kept in the {@link TokenCache}. The latency and failures of the fetches are recorded per
+ * endpoint and in the carbon metrics.
+ * <p>
+ * Each fetch runs on its own thread, so a slow token endpoint does not delay the fetches of the other endpoints. A
+ * fetch still running after the fetch timeout is interrupted and counted as a failure, so that the endpoint can be
+ * retried after the backoff.
+ */
+public class OAuthTokenManager {
+    private static final Log log = LogFactory.getLog(OAuthTokenManager.class);
+    private static final long MIN_REFRESH_AHEAD_MILLIS = 2000;
+    private static final long MAX_REFRESH_AHEAD_MILLIS = 60000;
+    private static final long EXPIRY_MARGIN_MILLIS = 1000;
+    private static final long INITIAL_RETRY_BACKOFF_MILLIS = 1000;
+    private static final long MAX_RETRY_BACKOFF_MILLIS = 30000;
+    private static final long DEFAULT_FETCH_TIMEOUT_MILLIS = 30000;
+    private static final long DEFAULT_MIN_FORCED_REFRESH_INTERVAL_MILLIS = 10000;
+    private static final int MAX_FETCH_THREADS = 64;
+    private static final long FETCH_THREAD_KEEP_ALIVE_SECONDS = 60;
+    private static final OAuthTokenManager instance = new OAuthTokenManager(DEFAULT_FETCH_TIMEOUT_MILLIS,
+            DEFAULT_MIN_FORCED_REFRESH_INTERVAL_MILLIS);
+
+    private final ConcurrentHashMap<String, ManagedToken> tokens = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService fetchExecutor;
+    private final long fetchTimeoutMillis;
+    private final long minForcedRefreshIntervalMillis;
+
+    /**
+     * @param fetchTimeoutMillis             time a request waits for a token when its endpoint has none, and time
+     *                                       allowed for a fetch of the token
+     * @param minForcedRefreshIntervalMillis minimum age of a token before a rejection by the backend replaces it
+     */
+    OAuthTokenManager(long fetchTimeoutMillis, long minForcedRefreshIntervalMillis) {
+        this.fetchTimeoutMillis = fetchTimeoutMillis;
+        this.minForcedRefreshIntervalMillis = minForcedRefreshIntervalMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(newThreadFactory("OAuthTokenScheduler"));
+        // A thread per fetch in progress, and at most one fetch per endpoint
+        this.fetchExecutor = new ThreadPoolExecutor(0, MAX_FETCH_THREADS, FETCH_THREAD_KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS, new SynchronousQueue<>(), newThreadFactory("OAuthTokenRefresher"));
+    }
+
+    private static ThreadFactory newThreadFactory(String name) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public static OAuthTokenManager getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns a valid access token of an endpoint. The call only waits when the endpoint has no valid token.
+     * @param oAuthEndpoint OAuthEndpoint object for token endpoint properties
+     * @return the token response
+     * @throws APISecurityException if no token could be retrieved
+     */
+    public TokenResponse getToken(OAuthEndpoint oAuthEndpoint) throws APISecurityException {
+        ManagedToken managedToken = tokens.computeIfAbsent(oAuthEndpoint.getId(), id -> new ManagedToken());
+        long now = System.currentTimeMillis();
+        OAuthEndpoint endpoint = managedToken.use(oAuthEndpoint, now);
+        Token current = managedToken.current;
+        if (current != null && current.endpoint == endpoint && current.isValid(now)) {
+            if (current.refreshAt <= now && managedToken.nextAttemptAt <= now) {
+                // The scheduled refresh was skipped or failed
+                refresh(managedToken);
+            }
+            return current.response;
+        }
+        CompletableFuture<Token> future;
+        synchronized (managedToken) {
+            future = managedToken.inFlight;
+            if (future == null && managedToken.nextAttemptAt > now) {
+                throw new APISecurityException(APISecurityConstants.API_AUTH_GENERAL_ERROR,
+                        "OAuth token endpoint is not available" + getEndpointId(endpoint), managedToken.lastFailure);
+            }
+        }
+        if (future == null) {
+            future = refresh(managedToken);
+        }
+        try {
+            return future.get(fetchTimeoutMillis, TimeUnit.MILLISECONDS).response;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new APISecurityException(APISecurityConstants.API_AUTH_GENERAL_ERROR,
+                    "Interrupted while retrieving OAuth token", e);
+        } catch (ExecutionException e) {
+            throw new APISecurityException(APISecurityConstants.API_AUTH_GENERAL_ERROR,
+                    "Error while retrieving OAuth token" + getEndpointId(endpoint), e.getCause());
+        } catch (TimeoutException e) {
+            throw new APISecurityException(APISecurityConstants.API_AUTH_GENERAL_ERROR,
+                    "Timed out while retrieving OAuth token" + getEndpointId(endpoint), e);
+        }
+    }
+
+    /**
+     * Replaces the current token of an endpoint after the backend rejected it. Rejections of a token fetched less than
+     * the minimum interval ago are ignored, as they come from requests sent with the previous token.
+     * @param endpointId unique identifier of the endpoint
+     */
+    public void invalidate(String endpointId) {
+        ManagedToken managedToken = tokens.get(endpointId);
+        if (managedToken == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (managedToken) {
+            Token current = managedToken.current;
+            if (current == null || now - current.fetchedAt < minForcedRefreshIntervalMillis) {
+                return;
+            }
+            managedToken.current = null;
+            managedToken.rejectedAccessToken = current.response.getAccessToken();
+        }
+        refresh(managedToken);
+    }
+
+    /**
+     * @param endpointId unique identifier of the endpoint
+     * @return the refresh metrics of the endpoint, or null if the endpoint is not known
+     */
+    public RefreshMetrics getRefreshMetrics(String endpointId) {
+        ManagedToken managedToken = tokens.get(endpointId);
+        if (managedToken == null) {
+            return null;
+        }
+        synchronized (managedToken) {
+            return new RefreshMetrics(managedToken.refreshCount, managedToken.failureCount,
+                    managedToken.lastLatencyNanos, managedToken.maxLatencyNanos, managedToken.totalLatencyNanos);
+        }
+    }
+
+    /**
+     * Starts a fetch of the token of an endpoint, unless one is already in flight.
+     */
+    private CompletableFuture<Token> refresh(ManagedToken managedToken) {
+        CompletableFuture<Token> future;
+        synchronized (managedToken) {
+            if (managedToken.inFlight != null) {
+                return managedToken.inFlight;
+            }
+            future = new CompletableFuture<>();
+            managedToken.inFlight = future;
+        }
+        long start = System.nanoTime();
+        try {
+            Future<?> task = fetchExecutor.submit(() -> doRefresh(managedToken, future, start));
+            ScheduledFuture<?> timeout = scheduler.schedule(() -> {
+                TimeoutException e = new TimeoutException("OAuth token was not fetched within " + fetchTimeoutMillis
+                        + " ms");
+                if (fail(managedToken, future, e, start)) {
+                    log.error("Timed out while refreshing OAuth token" + getEndpointId(managedToken.endpoint));
+                    task.cancel(true);
+                }
+            }, fetchTimeoutMillis, TimeUnit.MILLISECONDS);
+            future.whenComplete((token, e) -> timeout.cancel(false));
+        } catch (RejectedExecutionException e) {
+            synchronized (managedToken) {
+                if (managedToken.inFlight == future) {
+                    managedToken.inFlight = null;
+                }
+            }
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private void doRefresh(ManagedToken managedToken, CompletableFuture<Token> future, long start) {
+        OAuthEndpoint endpoint = managedToken.endpoint;
+        Token previous = managedToken.current;
+        Timer.Context timerContext = null;
+        try {
+            Token token = getSharedToken(managedToken, endpoint);
+            if (token == null) {
+                timerContext = startRefreshTimer();
+                TokenResponse tokenResponse = fetch(endpoint, previous);
+                token = new Token(tokenResponse, endpoint, System.currentTimeMillis());
+                storeToken(endpoint.getId(), tokenResponse);
+                if (timerContext != null) {
+                    timerContext.stop();
+                }
+                managedToken.recordRefresh(System.nanoTime() - start, true);
+            }
+            synchronized (managedToken) {
+                if (managedToken.inFlight != future) {
+                    // Timed out, the failure is already recorded
+                    return;
+                }
+                managedToken.current = token;
+                managedToken.inFlight = null;
+                managedToken.failures = 0;
+                managedToken.nextAttemptAt = 0;
+                managedToken.lastFailure = null;
+            }
+            scheduleRefresh(managedToken, token);
+            future.complete(token);
+        } catch (IOException | APIManagementException | ParseException | RuntimeException e) {
+            if (fail(managedToken, future, e, start)) {
+                log.error("Error while refreshing OAuth token" + getEndpointId(endpoint), e);
+            }
+        }
+    }
+
+    /**
+     * Records the failure of a fetch and starts the backoff of its endpoint, unless the fetch already failed.
+     * @return true if the failure was recorded
+     */
+    private boolean fail(ManagedToken managedToken, CompletableFuture<Token> future, Throwable e, long start) {
+        synchronized (managedToken) {
+            if (managedToken.inFlight != future) {
+                return false;
+            }
+            managedToken.inFlight = null;
+            managedToken.failures++;
+            managedToken.nextAttemptAt = System.currentTimeMillis() + Math.min(MAX_RETRY_BACKOFF_MILLIS,
+                    INITIAL_RETRY_BACKOFF_MILLIS << Math.min(managedToken.failures - 1, 16));
+            managedToken.lastFailure = e;
+        }
+        managedToken.recordRefresh(System.nanoTime() - start, false);
+        recordRefreshFailure();
+        future.completeExceptionally(e);
+        return true;
+    }
+
+    /**
+     * Requests a token with the refresh token of the previous one if there is one, falling back to the grant type of
+     * the endpoint when the refresh token is rejected.
+     */
+    private TokenResponse fetch(OAuthEndpoint endpoint, Token previous)
+            throws IOException, APIManagementException, ParseException {
+        String refreshToken = previous != null && previous.endpoint == endpoint
+                ? previous.response.getRefreshToken() : null;
+        if (refreshToken != null) {
+            try {
+                TokenResponse tokenResponse = fetchToken(endpoint, refreshToken);
+                if (tokenResponse != null) {
+                    return tokenResponse;
+                }
+            } catch (IOException | APIManagementException | ParseException e) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Refresh token was not accepted" + getEndpointId(endpoint), e);
+                }
+            }
+        }
+        TokenResponse tokenResponse = fetchToken(endpoint, null);
+        if (tokenResponse == null) {
+            throw new APIManagementException("No access token in the response of the token endpoint");
+        }
+        return tokenResponse;
+    }
+
+    private void scheduleRefresh(ManagedToken managedToken, Token token) {
+        long delay = Math.max(0, token.refreshAt - System.currentTimeMillis());
+        try {
+            scheduler.schedule(() -> {
+                if (managedToken.current != token) {
+                    return;
+                }
+                if (managedToken.lastUsed < token.fetchedAt) {
+                    // Not used during the lifetime of the token, the next request fetches a new one. The endpoint is
+                    // kept for its refresh metrics.
+                    if (log.isDebugEnabled()) {
+                        log.debug("OAuth token is not refreshed as it was not used" + getEndpointId(token.endpoint));
+                    }
+                    synchronized (managedToken) {
+                        if (managedToken.current == token) {
+                            managedToken.current = null;
+                        }
+                    }
+                    return;
+                }
+                refresh(managedToken);
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.warn("Could not schedule the refresh of OAuth token" + getEndpointId(token.endpoint));
+        }
+    }
+
+    /**
+     * Returns the token stored in Redis by another gateway, if it is not the token being replaced and is not due for
+     * refresh.
+     */
+    private Token getSharedToken(ManagedToken managedToken, OAuthEndpoint endpoint) {
+        if (!isSharedTierEnabled()) {
+            return null;
+        }
+        Object sharedResponse = RedisCacheUtils.getInstance().getObject(endpoint.getId(), TokenResponse.class);
+        if (!(sharedResponse instanceof TokenResponse)) {
+            return null;
+        }
+        TokenResponse tokenResponse = (TokenResponse) sharedResponse;
+        Token previous = managedToken.current;
+        String accessToken = tokenResponse.getAccessToken();
+        if (accessToken == null || accessToken.equals(managedToken.rejectedAccessToken)
+                || previous != null && accessToken.equals(previous.response.getAccessToken())) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        Token token = new Token(tokenResponse, endpoint, now);
+        return token.refreshAt > now ? token : null;
+    }
+
+    private void storeToken(String endpointId, TokenResponse tokenResponse) {
+        if (isSharedTierEnabled()) {
+            RedisCacheUtils.getInstance().addObject(endpointId, tokenResponse);
+        } else {
+            TokenCache.getInstance().getTokenMap().put(endpointId, tokenResponse);
+        }
+    }
+
+    /**
+     * Method to request a token from the token endpoint
+     * @param oAuthEndpoint OAuthEndpoint object for token endpoint properties
+     * @param refreshToken Refresh token if exists
+     * @return the token response, or null if it has no access token
+     */
+    protected TokenResponse fetchToken(OAuthEndpoint oAuthEndpoint, String refreshToken)
+            throws IOException, APIManagementException, ParseException {
+        return OAuthClient.generateToken(oAuthEndpoint.getTokenApiUrl(), oAuthEndpoint.getClientId(),
+                oAuthEndpoint.getClientSecret(), oAuthEndpoint.getUsername(), oAuthEndpoint.getPassword(),
+                oAuthEndpoint.getGrantType(), oAuthEndpoint.getCustomParameters(), refreshToken);
+    }
+
+    protected boolean isSharedTierEnabled() {
+        return OAuthMediator.isRedisEnabled;
+    }
+
+    protected Timer.Context startRefreshTimer() {
+        return MetricManager.timer(Level.INFO, MetricManager.name(APIConstants.METRICS_PREFIX,
+                OAuthTokenManager.class.getSimpleName(), "refresh")).start();
+    }
+
+    protected void recordRefreshFailure() {
+        MetricManager.counter(Level.INFO, MetricManager.name(APIConstants.METRICS_PREFIX,
+                OAuthTokenManager.class.getSimpleName(), "refreshFailures")).inc();
+    }
+
+    private static String getEndpointId(OAuthEndpoint oAuthEndpoint) {
+        return " [url] " + oAuthEndpoint.getTokenApiUrl();
+    }
+
+    /**
+     * Fetch counts and latencies of the token of an endpoint.
+     */
+    public static final class RefreshMetrics {
+        private final long refreshCount;
+        private final long failureCount;
+        private final long lastLatencyNanos;
+        private final long maxLatencyNanos;
+        private final long totalLatencyNanos;
+
+        private RefreshMetrics(long refreshCount, long failureCount, long lastLatencyNanos, long maxLatencyNanos,
+                               long totalLatencyNanos) {
+            this.refreshCount = refreshCount;
+            this.failureCount = failureCount;
+            this.lastLatencyNanos = lastLatencyNanos;
+            this.maxLatencyNanos = maxLatencyNanos;
+            this.totalLatencyNanos = totalLatencyNanos;
+        }
+
+        /**
+         * @return number of calls to the token endpoint, including the failed ones
+         */
+        public long getRefreshCount() {
+            return refreshCount;
+        }
+
+        public long getFailureCount() {
+            return failureCount;
+        }
+
+        public long getLastLatencyMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(lastLatencyNanos);
+        }
+
+        public long getMaxLatencyMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos);
+        }
+
+        public long getAverageLatencyMillis() {
+            return refreshCount == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalLatencyNanos / refreshCount);
+        }
+    }
+
+    /**
+     * A token with the endpoint configuration it was issued for.
+     */
+    private static final class Token {
+        private final TokenResponse response;
+        private final OAuthEndpoint endpoint;
+        private final long fetchedAt;
+        private final long expiresAt;
+        private final long refreshAt;
+
+        private Token(TokenResponse response, OAuthEndpoint endpoint, long now) {
+            this.response = response;
+            this.endpoint = endpoint;
+            this.fetchedAt = now;
+            this.expiresAt = response.getValidTill() != null ? response.getValidTill() * 1000 : now;
+            long lifetime = Math.max(0, expiresAt - now);
+            this.refreshAt = expiresAt - Math.max(MIN_REFRESH_AHEAD_MILLIS,
+                    Math.min(MAX_REFRESH_AHEAD_MILLIS, lifetime / 5));
+        }
+
+        private boolean isValid(long now) {
+            return now < expiresAt - EXPIRY_MARGIN_MILLIS;
+        }
+    }
+
+    /**
+     * State of the token of an endpoint. Fields changed together are guarded by the object itself.
+     */
+    private static final class ManagedToken {
+        private volatile OAuthEndpoint endpoint;
+        private volatile Token current;
+        private volatile long lastUsed;
+        private volatile long nextAttemptAt;
+        private CompletableFuture<Token> inFlight;
+        private String rejectedAccessToken;
+        private Throwable lastFailure;
+        private int failures;
+        private long refreshCount;
+        private long failureCount;
+        private long lastLatencyNanos;
+        private long maxLatencyNanos;
+        private long totalLatencyNanos;
+
+        /**
+         * Records a use of the endpoint. The configuration of the endpoint is replaced when it changed, which makes
+         * the tokens issued for the previous configuration invalid.
+         * @return the current configuration
+         */
+        private OAuthEndpoint use(OAuthEndpoint requested, long now) {
+            lastUsed = now;
+            OAuthEndpoint configured = endpoint;
+            if (configured != null && isSameConfiguration(configured, requested)) {
+                return configured;
+            }
+            synchronized (this) {
+                if (endpoint == null || !isSameConfiguration(endpoint, requested)) {
+                    endpoint = requested;
+                }
+                return endpoint;
+            }
+        }
+
+        private synchronized void recordRefresh(long latencyNanos, boolean success) {
+            refreshCount++;
+            if (!success) {
+                failureCount++;
+            }
+            lastLatencyNanos = latencyNanos;
+            maxLatencyNanos = Math.max(maxLatencyNanos, latencyNanos);
+            totalLatencyNanos += latencyNanos;
+        }
+
+        private static boolean isSameConfiguration(OAuthEndpoint a, OAuthEndpoint b) {
+            return Objects.equals(a.getTokenApiUrl(), b.getTokenApiUrl())
+                    && Objects.equals(a.getClientId(), b.getClientId())
+                    && Objects.equals(a.getClientSecret(), b.getClientSecret())
+                    && Objects.equals(a.getGrantType(), b.getGrantType())
+                    && Objects.equals(a.getUsername(), b.getUsername())
+                    && Arrays.equals(a.getPassword(), b.getPassword())
+                    && Objects.equals(a.getCustomParameters(), b.getCustomParameters());
+        }
+    }
+}
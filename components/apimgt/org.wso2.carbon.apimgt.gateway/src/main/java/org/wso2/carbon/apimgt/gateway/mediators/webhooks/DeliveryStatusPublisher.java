@@ -0,0 +1,336 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.apimgt.gateway.mediators.webhooks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.util.EntityUtils;
+import org.wso2.carbon.apimgt.gateway.utils.WebhooksUtl;
+import org.wso2.carbon.apimgt.impl.APIConstants;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Persists the delivery status of webhooks callbacks in the background, so that the mediation of a delivery never
+ * waits for the event hub.
+ * <p>
+ * Only the latest status of each subscription, identified by its API, application, tenant, callback and topic, is
+ * kept until it is sent. Pending statuses are sent in batches to the event hub, which stores each batch with a single
+ * JDBC batch update, every flush interval or as soon as a batch is full. The number of pending subscriptions is
+ * bounded; statuses of new subscriptions are dropped and counted while the buffer is full. A batch that cannot be
+ * sent is kept for the next flush, unless newer statuses arrived for its subscriptions.
+ * <p>
+ * An event hub which does not handle the bulk delivery status event type acknowledges it without the
+ * {@value APIConstants.Webhooks#EVENT_HANDLED_HEADER} header. The statuses are then sent one by one with the single
+ * delivery status event type.
+ */
+public class DeliveryStatusPublisher {
+
+    private static final Log log = LogFactory.getLog(DeliveryStatusPublisher.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String TIMESTAMP_PROPERTY = "timeStamp";
+    private static final int DEFAULT_MAX_PENDING = 100000;
+    private static final int DEFAULT_BATCH_SIZE = 500;
+    private static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 1000;
+    private static final int PERSIST_RETRIES = 3;
+    private static final DeliveryStatusPublisher instance =
+            new DeliveryStatusPublisher(DEFAULT_MAX_PENDING, DEFAULT_BATCH_SIZE, DEFAULT_FLUSH_INTERVAL_MILLIS);
+
+    private final ConcurrentHashMap<DeliveryKey, DeliveryStatus> pending = new ConcurrentHashMap<>();
+    private final int maxPending;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private volatile ScheduledExecutorService scheduler;
+    private volatile boolean bulkEventsUnsupported;
+
+    /**
+     * @param maxPending          maximum number of subscriptions with a pending status
+     * @param batchSize           maximum number of statuses sent at once
+     * @param flushIntervalMillis interval of the background flush, no background flush is done if not positive
+     */
+    DeliveryStatusPublisher(int maxPending, int batchSize, long flushIntervalMillis) {
+
+        this.maxPending = maxPending;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    public static DeliveryStatusPublisher getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Records the delivery status of a subscription callback, replacing a pending status of the subscription.
+     *
+     * @param apiKey        the api key to uniquely identify the API.
+     * @param applicationID the application ID of the subscriber.
+     * @param tenantDomain  the tenant domain.
+     * @param callback      the subscriber's callback url.
+     * @param topicName     the subscriber's topic name.
+     * @param status        the status of the message delivery to the callback url. 1 if success: 0 if failed.
+     * @return false if the status was dropped because the buffer is full
+     */
+    public boolean update(String apiKey, String applicationID, String tenantDomain, String callback,
+                          String topicName, int status) {
+
+        startIfNeeded();
+        DeliveryKey key = new DeliveryKey(apiKey, applicationID, tenantDomain, callback, topicName);
+        DeliveryStatus deliveryStatus = new DeliveryStatus(status, System.currentTimeMillis());
+        if (pending.replace(key, deliveryStatus) == null) {
+            if (pending.size() >= maxPending) {
+                droppedCount.incrementAndGet();
+                if (log.isDebugEnabled()) {
+                    log.debug("Delivery status of callback " + callback + " was dropped as too many statuses are "
+                            + "pending");
+                }
+                return false;
+            }
+            pending.put(key, deliveryStatus);
+        }
+        ScheduledExecutorService currentScheduler = scheduler;
+        if (pending.size() >= batchSize && currentScheduler != null && flushRequested.compareAndSet(false, true)) {
+            try {
+                currentScheduler.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                // Stopped meanwhile, the statuses are sent once the publisher is started again
+                flushRequested.set(false);
+            }
+        }
+        return true;
+    }
+
+    private void startIfNeeded() {
+
+        if (flushIntervalMillis <= 0 || started.get() || !started.compareAndSet(false, true)) {
+            return;
+        }
+        ScheduledExecutorService newScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "WebhooksDeliveryStatusPublisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        newScheduler.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+        scheduler = newScheduler;
+    }
+
+    /**
+     * Stops the background flush and sends the pending statuses. The publisher starts again on the next update.
+     */
+    public void stop() {
+
+        ScheduledExecutorService currentScheduler = scheduler;
+        if (currentScheduler != null) {
+            currentScheduler.shutdown();
+            scheduler = null;
+        }
+        started.set(false);
+        flush();
+    }
+
+    /**
+     * Sends the pending statuses in batches.
+     */
+    synchronized void flush() {
+
+        flushRequested.set(false);
+        List<Map.Entry<DeliveryKey, DeliveryStatus>> batch = new ArrayList<>();
+        Iterator<Map.Entry<DeliveryKey, DeliveryStatus>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<DeliveryKey, DeliveryStatus> entry = iterator.next();
+            DeliveryKey key = entry.getKey();
+            DeliveryStatus deliveryStatus = entry.getValue();
+            if (pending.remove(key, deliveryStatus)) {
+                batch.add(new AbstractMap.SimpleImmutableEntry<>(key, deliveryStatus));
+            }
+            if (batch.size() >= batchSize || (!iterator.hasNext() && !batch.isEmpty())) {
+                if (!send(batch)) {
+                    requeue(batch);
+                    // The event hub is not reachable, the rest is tried on the next flush
+                    return;
+                }
+                batch = new ArrayList<>();
+            }
+        }
+    }
+
+    private boolean send(List<Map.Entry<DeliveryKey, DeliveryStatus>> batch) {
+
+        ArrayNode events = MAPPER.createArrayNode();
+        for (Map.Entry<DeliveryKey, DeliveryStatus> entry : batch) {
+            String[] attributes = entry.getKey().attributes;
+            ObjectNode node = events.addObject();
+            node.put(APIConstants.Webhooks.API_KEY_PROPERTY, attributes[0]);
+            node.put(APIConstants.Webhooks.APP_ID_PROPERTY, attributes[1]);
+            node.put(APIConstants.Webhooks.TENANT_DOMAIN_PROPERTY, attributes[2]);
+            node.put(APIConstants.Webhooks.CALLBACK_PROPERTY, attributes[3]);
+            node.put(APIConstants.Webhooks.TOPIC_PROPERTY, attributes[4]);
+            node.put(APIConstants.Webhooks.STATUS_PROPERTY, entry.getValue().status);
+            node.put(TIMESTAMP_PROPERTY, entry.getValue().deliveredAt);
+        }
+        try {
+            if (!bulkEventsUnsupported) {
+                PersistResult result = persist(events.toString(), APIConstants.Webhooks.BULK_DELIVERY_EVENT_TYPE);
+                if (result != PersistResult.IGNORED) {
+                    return result == PersistResult.ACCEPTED;
+                }
+                log.warn("Event hub does not handle bulk delivery statuses of webhooks callbacks, the statuses are "
+                        + "sent one by one");
+                bulkEventsUnsupported = true;
+            }
+            for (JsonNode event : events) {
+                if (persist(event.toString(), APIConstants.Webhooks.DELIVERY_EVENT_TYPE) == PersistResult.FAILED) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            // The batch is kept for the next flush, which would not run if the exception escaped the scheduler
+            log.error("Error while persisting the delivery status of " + batch.size() + " webhooks callbacks", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while persisting the delivery status of webhooks callbacks", e);
+        }
+        return false;
+    }
+
+    /**
+     * Sends statuses to the event hub.
+     *
+     * @param body      JSON array of the statuses, or a single status
+     * @param eventType event type of the body
+     * @return whether the event hub accepted the statuses, and handled their event type
+     */
+    protected PersistResult persist(String body, String eventType) throws IOException, InterruptedException {
+
+        HttpResponse response = WebhooksUtl.persistData(body, PERSIST_RETRIES, eventType);
+        try {
+            int statusCode = response.getStatusLine().getStatusCode();
+            if (statusCode != HttpStatus.SC_OK) {
+                log.error("Event hub responded with " + statusCode + " to the delivery status of webhooks callbacks");
+                return PersistResult.FAILED;
+            }
+            return response.containsHeader(APIConstants.Webhooks.EVENT_HANDLED_HEADER) ? PersistResult.ACCEPTED
+                    : PersistResult.IGNORED;
+        } finally {
+            EntityUtils.consumeQuietly(response.getEntity());
+        }
+    }
+
+    /**
+     * Outcome of sending statuses to the event hub.
+     */
+    protected enum PersistResult {
+        ACCEPTED,
+        /**
+         * Accepted by an event hub without a handler of the event type.
+         */
+        IGNORED,
+        FAILED
+    }
+
+    private void requeue(List<Map.Entry<DeliveryKey, DeliveryStatus>> batch) {
+
+        for (Map.Entry<DeliveryKey, DeliveryStatus> entry : batch) {
+            // A status recorded after the batch was taken is newer and wins
+            pending.putIfAbsent(entry.getKey(), entry.getValue());
+        }
+    }
+
+    public int getPendingCount() {
+
+        return pending.size();
+    }
+
+    /**
+     * @return number of statuses dropped because the buffer was full
+     */
+    public long getDroppedCount() {
+
+        return droppedCount.get();
+    }
+
+    private static final class DeliveryStatus {
+
+        private final int status;
+        private final long deliveredAt;
+
+        DeliveryStatus(int status, long deliveredAt) {
+
+            this.status = status;
+            this.deliveredAt = deliveredAt;
+        }
+    }
+
+    /**
+     * Identifies a subscription callback, with the hash code computed once.
+     */
+    private static final class DeliveryKey {
+
+        private final String[] attributes;
+        private final int hash;
+
+        DeliveryKey(String... attributes) {
+
+            this.attributes = attributes;
+            this.hash = Arrays.hashCode(attributes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof DeliveryKey)) {
+                return false;
+            }
+            DeliveryKey that = (DeliveryKey) o;
+            return hash == that.hash && Arrays.equals(attributes, that.attributes);
+        }
+
+        @Override
+        public int hashCode() {
+
+            return hash;
+        }
+    }
+}
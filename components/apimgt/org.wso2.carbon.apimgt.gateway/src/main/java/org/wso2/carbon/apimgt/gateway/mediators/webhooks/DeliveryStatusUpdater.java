@@ -18,8 +18,6 @@
 
 package org.wso2.carbon.apimgt.gateway.mediators.webhooks;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.apache.synapse.MessageContext;
 import org.apache.synapse.core.axis2.Axis2MessageContext;
 import org.apache.synapse.mediators.AbstractMediator;
@@ -28,67 +26,35 @@ import org.wso2.carbon.apimgt.gateway.utils.WebhooksUtl;
 import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
 
-import java.io.IOException;
-
 /**
- * This mediator would persist delivery status of the callback urls of the subscriptions.
+ * This mediator would persist delivery status of the callback urls of the subscriptions. The status is handed over to
+ * the {@link DeliveryStatusPublisher}, which persists it in the background.
  */
 public class DeliveryStatusUpdater extends AbstractMediator {
 
-    private static final int deliveryDataPersisRetries = 15;
-
     @Override
     public boolean mediate(MessageContext messageContext) {
-        try {
-            org.apache.axis2.context.MessageContext axis2MessageContext = ((Axis2MessageContext) messageContext)
-                    .getAxis2MessageContext();
-            int status = 0;
-            Object statusCode = axis2MessageContext.getProperty(APIMgtGatewayConstants.HTTP_SC);
-            if (statusCode != null) {
-                String responseStatus = statusCode.toString();
-                if (responseStatus.startsWith("2")) {
-                    //handle 2XX response
-                    status = 1;
-                }
-            }
-            String topicName = (String) messageContext.getProperty(APIConstants.Webhooks.SUBSCRIBER_TOPIC_PROPERTY);
-            String callback = (String) messageContext.getProperty(APIConstants.Webhooks.SUBSCRIBER_CALLBACK_PROPERTY);
-            String tenantDomain = (String) messageContext.getProperty(APIConstants.TENANT_DOMAIN_INFO_PROPERTY);
-            if (tenantDomain == null) {
-                tenantDomain = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantDomain(true);
+        org.apache.axis2.context.MessageContext axis2MessageContext = ((Axis2MessageContext) messageContext)
+                .getAxis2MessageContext();
+        int status = 0;
+        Object statusCode = axis2MessageContext.getProperty(APIMgtGatewayConstants.HTTP_SC);
+        if (statusCode != null) {
+            String responseStatus = statusCode.toString();
+            if (responseStatus.startsWith("2")) {
+                //handle 2XX response
+                status = 1;
             }
-            String apiKey = WebhooksUtl.generateAPIKey(messageContext, tenantDomain);
-            String applicationID = (String) messageContext.getProperty(APIConstants.Webhooks.
-                    SUBSCRIBER_APPLICATION_ID_PROPERTY);
-            String requestBody = generateRequestBody(apiKey, applicationID, tenantDomain, callback, topicName, status);
-            WebhooksUtl.persistData(requestBody, deliveryDataPersisRetries, APIConstants.Webhooks.DELIVERY_EVENT_TYPE);
-        } catch (InterruptedException | IOException e) {
-            log.error("Error while persisting delivery status", e);
         }
+        String topicName = (String) messageContext.getProperty(APIConstants.Webhooks.SUBSCRIBER_TOPIC_PROPERTY);
+        String callback = (String) messageContext.getProperty(APIConstants.Webhooks.SUBSCRIBER_CALLBACK_PROPERTY);
+        String tenantDomain = (String) messageContext.getProperty(APIConstants.TENANT_DOMAIN_INFO_PROPERTY);
+        if (tenantDomain == null) {
+            tenantDomain = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantDomain(true);
+        }
+        String apiKey = WebhooksUtl.generateAPIKey(messageContext, tenantDomain);
+        String applicationID = (String) messageContext.getProperty(APIConstants.Webhooks.
+                SUBSCRIBER_APPLICATION_ID_PROPERTY);
+        DeliveryStatusPublisher.getInstance().update(apiKey, applicationID, tenantDomain, callback, topicName, status);
         return true;
     }
-
-    /**
-     * This method is used to generate the request body for the API call.
-     *
-     * @param apiKey            the api key to uniquely identify the API.
-     * @param applicationID     the application ID of the subscriber.
-     * @param tenantDomain      the tenant domain.
-     * @param callback          the subscriber's callback url.
-     * @param topicName         the subscriber's topic name.
-     * @param status            the status of the message delivery to the callback url. 1 if success: 0 if failed.
-     * @return the generated body.
-     */
-    private String generateRequestBody(String apiKey, String applicationID, String tenantDomain, String callback,
-                                       String topicName, int status) {
-        ObjectMapper mapper = new ObjectMapper();
-        ObjectNode node = mapper.createObjectNode();
-        node.put(APIConstants.Webhooks.API_KEY_PROPERTY, apiKey);
-        node.put(APIConstants.Webhooks.APP_ID_PROPERTY,applicationID);
-        node.put(APIConstants.Webhooks.TENANT_DOMAIN_PROPERTY, tenantDomain);
-        node.put(APIConstants.Webhooks.CALLBACK_PROPERTY, callback);
-        node.put(APIConstants.Webhooks.TOPIC_PROPERTY, topicName);
-        node.put(APIConstants.Webhooks.STATUS_PROPERTY, status);
-        return node.toString();
-    }
 }
@@ -20,20 +20,45 @@ package org.wso2.carbon.apimgt.gateway.mediators.webhooks;
 import org.apache.synapse.MessageContext;
 import org.apache.synapse.mediators.AbstractMediator;
 import org.wso2.carbon.apimgt.gateway.utils.WebhooksUtl;
+import org.wso2.carbon.apimgt.gateway.webhooks.WebhooksDataHolder;
+import org.wso2.carbon.apimgt.gateway.webhooks.WebhooksDispatcher;
+import org.wso2.carbon.apimgt.gateway.webhooks.WebhooksSignatureConfig;
 import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.wso2.carbon.apimgt.impl.dto.WebhooksDTO;
 
 import java.net.URISyntaxException;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * This mediator would load the subscriber's list from the in-memory map of the tenant.
+ * <p>
+ * When the {@link WebhooksDispatcher} is enabled with WebhooksDispatcher.Enabled, the event is handed over to it
+ * instead, as done by {@link WebhooksDispatchMediator}, and an empty list is loaded, so that the topic sequence has no
+ * subscriber to clone the message for. The events are then signed as configured with the signingAlgorithm and
+ * signatureHeader properties of the mediator.
  */
 public class SubscribersLoader extends AbstractMediator {
 
+    private String signingAlgorithm;
+    private String signatureHeader;
+    private WebhooksSignatureConfig signatureConfig = WebhooksSignatureConfig.DEFAULT;
+
     @Override
     public boolean mediate(MessageContext messageContext) {
         try {
+            WebhooksDataHolder dataHolder = WebhooksDataHolder.getInstance();
+            WebhooksDispatcher dispatcher = dataHolder.isDispatcherEnabled() ? dataHolder.getDispatcher() : null;
+            if (dispatcher != null) {
+                int count = WebhooksDispatchMediator.dispatch(dispatcher, messageContext, signatureConfig);
+                if (log.isDebugEnabled()) {
+                    log.debug("Event was handed over to the webhooks dispatcher for " + count + " subscribers");
+                }
+                messageContext.setProperty(APIConstants.Webhooks.SUBSCRIBERS_LIST_PROPERTY,
+                        Collections.<WebhooksDTO>emptyList());
+                messageContext.setProperty(APIConstants.Webhooks.SUBSCRIBERS_COUNT_PROPERTY, 0);
+                return true;
+            }
             List<WebhooksDTO> subscribers = WebhooksUtl.getSubscribersListFromInMemoryMap(messageContext);
             messageContext.setProperty(APIConstants.Webhooks.SUBSCRIBERS_LIST_PROPERTY, subscribers);
             if (subscribers != null) {
@@ -48,4 +73,26 @@ public class SubscribersLoader extends AbstractMediator {
 
     }
 
+    public String getSigningAlgorithm() {
+
+        return signingAlgorithm;
+    }
+
+    public void setSigningAlgorithm(String signingAlgorithm) {
+
+        this.signingAlgorithm = signingAlgorithm;
+        this.signatureConfig = WebhooksSignatureConfig.of(signingAlgorithm, signatureHeader);
+    }
+
+    public String getSignatureHeader() {
+
+        return signatureHeader;
+    }
+
+    public void setSignatureHeader(String signatureHeader) {
+
+        this.signatureHeader = signatureHeader;
+        this.signatureConfig = WebhooksSignatureConfig.of(signingAlgorithm, signatureHeader);
+    }
+
 }
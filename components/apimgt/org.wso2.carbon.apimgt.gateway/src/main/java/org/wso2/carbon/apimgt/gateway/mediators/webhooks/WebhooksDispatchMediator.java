@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2021 WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.mediators.webhooks;
+
+import org.apache.axis2.Constants;
+import org.apache.synapse.MessageContext;
+import org.apache.synapse.core.axis2.Axis2MessageContext;
+import org.apache.synapse.mediators.AbstractMediator;
+import org.wso2.carbon.apimgt.gateway.utils.WebhooksUtl;
+import org.wso2.carbon.apimgt.gateway.webhooks.SubscriptionDataStore;
+import org.wso2.carbon.apimgt.gateway.webhooks.TopicSubscribers;
+import org.wso2.carbon.apimgt.gateway.webhooks.WebhooksDataHolder;
+import org.wso2.carbon.apimgt.gateway.webhooks.WebhooksDispatcher;
+import org.wso2.carbon.apimgt.gateway.webhooks.WebhooksSignatureConfig;
+import org.wso2.carbon.apimgt.impl.APIConstants;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+
+import java.net.URISyntaxException;
+
+/**
+ * This mediator would deliver the event received by a WebSub API to the subscribers of its topic through the
+ * {@link WebhooksDispatcher}, in place of cloning the message for each subscriber with {@link SubscribersLoader},
+ * {@link SubscriberInfoLoader} and {@link DeliveryStatusUpdater}. The mediation continues without waiting for the
+ * deliveries, with the number of subscribers the event is delivered to in the SUBSCRIBERS_COUNT property.
+ * <p>
+ * The events are signed with the signing algorithm and signature header of the WebsubSubscriptionConfiguration of the
+ * API, given to the mediator as the signingAlgorithm and signatureHeader properties, which default to SHA-256 and
+ * x-hub-signature. The WebSub topic sequences which still start with {@link SubscribersLoader} are delivered through
+ * the dispatcher as well when it is enabled with WebhooksDispatcher.Enabled.
+ */
+public class WebhooksDispatchMediator extends AbstractMediator {
+
+    private String signingAlgorithm;
+    private String signatureHeader;
+    private WebhooksSignatureConfig signatureConfig = WebhooksSignatureConfig.DEFAULT;
+
+    @Override
+    public boolean mediate(MessageContext messageContext) {
+        WebhooksDispatcher dispatcher = WebhooksDataHolder.getInstance().getDispatcher();
+        if (dispatcher == null) {
+            handleException("Webhooks dispatcher is not available", messageContext);
+        }
+        try {
+            int count = dispatch(dispatcher, messageContext, signatureConfig);
+            messageContext.setProperty(APIConstants.Webhooks.SUBSCRIBERS_COUNT_PROPERTY, count);
+        } catch (URISyntaxException e) {
+            handleException("Error while getting the topic of the event", e, messageContext);
+        }
+        return true;
+    }
+
+    /**
+     * Delivers the event of a message to the subscribers of its topic, without waiting for the deliveries.
+     *
+     * @param dispatcher      the dispatcher
+     * @param messageContext  the message context of the event
+     * @param signatureConfig the signing configuration of the API
+     * @return the number of subscribers the event is delivered to
+     * @throws URISyntaxException if the topic cannot be read from the request url
+     */
+    static int dispatch(WebhooksDispatcher dispatcher, MessageContext messageContext,
+                        WebhooksSignatureConfig signatureConfig) throws URISyntaxException {
+
+        String tenantDomain = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantDomain(true);
+        String apiKey = WebhooksUtl.generateAPIKey(messageContext, tenantDomain);
+        String topicName = WebhooksUtl.getTopicName(messageContext);
+        messageContext.setProperty(APIConstants.Webhooks.SUBSCRIBER_TOPIC_PROPERTY, topicName);
+        SubscriptionDataStore dataStore = WebhooksDataHolder.getInstance().getTenantSubscriptionStore(tenantDomain);
+        TopicSubscribers subscribers = dataStore != null ? dataStore.getTopicSubscribers(apiKey + "_" + topicName)
+                : null;
+        String payload = (String) messageContext.getProperty(APIConstants.Webhooks.PAYLOAD_PROPERTY);
+        String contentType = (String) ((Axis2MessageContext) messageContext).getAxis2MessageContext()
+                .getProperty(Constants.Configuration.CONTENT_TYPE);
+        return dispatcher.dispatch(apiKey, tenantDomain, topicName, subscribers, payload, contentType,
+                signatureConfig);
+    }
+
+    public String getSigningAlgorithm() {
+
+        return signingAlgorithm;
+    }
+
+    public void setSigningAlgorithm(String signingAlgorithm) {
+
+        this.signingAlgorithm = signingAlgorithm;
+        this.signatureConfig = WebhooksSignatureConfig.of(signingAlgorithm, signatureHeader);
+    }
+
+    public String getSignatureHeader() {
+
+        return signatureHeader;
+    }
+
+    public void setSignatureHeader(String signatureHeader) {
+
+        this.signatureHeader = signatureHeader;
+        this.signatureConfig = WebhooksSignatureConfig.of(signingAlgorithm, signatureHeader);
+    }
+}
@@ -19,6 +19,7 @@
 package org.wso2.carbon.apimgt.gateway.service;
 
 import org.wso2.carbon.apimgt.gateway.handlers.Utils;
+import org.wso2.carbon.apimgt.gateway.handlers.security.GatewayNearCache;
 import org.wso2.carbon.apimgt.gateway.jwt.RevokedJWTDataHolder;
 import org.wso2.carbon.apimgt.impl.token.RevokedTokenService;
 import org.wso2.carbon.base.MultitenantConstants;
@@ -33,6 +34,8 @@ public class RevokedTokenDataImpl implements RevokedTokenService {
 
     @Override
     public void removeTokenFromGatewayCache(String accessToken, boolean isJwtToken) {
+        // The near cache may keep the token after the backing cache entry expired
+        GatewayNearCache.getInstance().invalidateToken(accessToken);
         String cachedTenantDomain;
         try {
             PrivilegedCarbonContext.startTenantFlow();
@@ -0,0 +1,335 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.throttling;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.apimgt.gateway.dto.IPRange;
+import org.wso2.carbon.apimgt.impl.APIConstants;
+import org.wso2.carbon.apimgt.impl.utils.APIUtil;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable index of the IP blocking conditions of a tenant, rebuilt whenever a condition is added or removed so
+ * that checking a client IP does not scan every condition.
+ * <p>
+ * Addresses are handled as unsigned 128 bit numbers held in two longs, in the same numeric space as
+ * {@link APIUtil#ipToBigInteger(String)}, so IPv4 and IPv6 conditions share the same structures:
+ * <ul>
+ * <li>Fixed IP conditions are kept in hash sets.</li>
+ * <li>IP range conditions are merged into sorted, disjoint intervals and searched with a binary search.</li>
+ * <li>Inverted IP range conditions block every address outside any of the ranges, so they reduce to the
+ * intersection of the ranges.</li>
+ * </ul>
+ * The range bounds are exclusive, as they have always been for IP range conditions.
+ */
+public class IPBlockingIndex {
+
+    private static final Log log = LogFactory.getLog(IPBlockingIndex.class);
+    private static final long IPV4_MAPPED_PREFIX = 0xFFFFL;
+    private static final ThreadLocal<long[]> ADDRESS_BUFFER = ThreadLocal.withInitial(() -> new long[2]);
+
+    private final Set<String> blockedIps;
+    private final Set<String> invertedIps;
+    private final long[] rangeStarts;
+    private final long[] rangeEnds;
+    private final int rangeCount;
+    private final boolean invertedRangesPresent;
+    private final boolean allBlocked;
+    private final long[] invertedRangeStart = new long[2];
+    private final long[] invertedRangeEnd = new long[2];
+
+    public IPBlockingIndex(Collection<IPRange> ipRanges) {
+
+        Set<String> fixedIps = new HashSet<>();
+        Set<String> invertedFixedIps = new HashSet<>();
+        List<long[]> ranges = new ArrayList<>();
+        boolean invertedRangeFound = false;
+        boolean allBlocked = false;
+        for (IPRange ipRange : ipRanges) {
+            if (APIConstants.BLOCKING_CONDITIONS_IP.equals(ipRange.getType())) {
+                if (ipRange.getFixedIp() == null) {
+                    // An inverted condition without an IP matches every client IP
+                    allBlocked |= ipRange.isInvert();
+                } else if (ipRange.isInvert()) {
+                    invertedFixedIps.add(ipRange.getFixedIp());
+                } else {
+                    fixedIps.add(ipRange.getFixedIp());
+                }
+            } else if (APIConstants.BLOCK_CONDITION_IP_RANGE.equals(ipRange.getType())) {
+                if (ipRange.getStartingIpBigIntValue() == null || ipRange.getEndingIpBigIntValue() == null) {
+                    log.debug("Skipping IP range condition " + ipRange.getId() + " without a start or end IP");
+                    continue;
+                }
+                long[] range = {high(ipRange.getStartingIpBigIntValue()), low(ipRange.getStartingIpBigIntValue()),
+                        high(ipRange.getEndingIpBigIntValue()), low(ipRange.getEndingIpBigIntValue())};
+                if (ipRange.isInvert()) {
+                    if (!invertedRangeFound || compare(range[0], range[1], invertedRangeStart[0],
+                            invertedRangeStart[1]) > 0) {
+                        invertedRangeStart[0] = range[0];
+                        invertedRangeStart[1] = range[1];
+                    }
+                    if (!invertedRangeFound || compare(range[2], range[3], invertedRangeEnd[0],
+                            invertedRangeEnd[1]) < 0) {
+                        invertedRangeEnd[0] = range[2];
+                        invertedRangeEnd[1] = range[3];
+                    }
+                    invertedRangeFound = true;
+                } else if (compare(range[0], range[1], range[2], range[3]) < 0) {
+                    ranges.add(range);
+                }
+            }
+        }
+        this.blockedIps = fixedIps.isEmpty() ? Collections.<String>emptySet() : fixedIps;
+        this.invertedIps = invertedFixedIps.isEmpty() ? Collections.<String>emptySet() : invertedFixedIps;
+        this.invertedRangesPresent = invertedRangeFound;
+        this.allBlocked = allBlocked;
+
+        ranges.sort((first, second) -> compare(first[0], first[1], second[0], second[1]));
+        long[] starts = new long[ranges.size() * 2];
+        long[] ends = new long[ranges.size() * 2];
+        int count = 0;
+        for (long[] range : ranges) {
+            if (count > 0 && compare(range[0], range[1], ends[count * 2 - 2], ends[count * 2 - 1]) < 0) {
+                // Overlaps or touches the previous interval, extend it
+                if (compare(range[2], range[3], ends[count * 2 - 2], ends[count * 2 - 1]) > 0) {
+                    ends[count * 2 - 2] = range[2];
+                    ends[count * 2 - 1] = range[3];
+                }
+            } else {
+                starts[count * 2] = range[0];
+                starts[count * 2 + 1] = range[1];
+                ends[count * 2] = range[2];
+                ends[count * 2 + 1] = range[3];
+                count++;
+            }
+        }
+        this.rangeStarts = starts;
+        this.rangeEnds = ends;
+        this.rangeCount = count;
+    }
+
+    /**
+     * Checks whether a client IP is blocked by any of the conditions.
+     *
+     * @param ip client IP
+     * @return true if the IP is blocked
+     */
+    public boolean isBlocked(String ip) {
+
+        if (allBlocked || blockedIps.contains(ip)) {
+            log.debug("Block IP selected for Blocked");
+            return true;
+        }
+        // An inverted fixed IP condition blocks every other IP, so two different ones block every IP
+        if (invertedIps.size() > 1 || (invertedIps.size() == 1 && !invertedIps.contains(ip))) {
+            log.debug("Block IP selected for Blocked");
+            return true;
+        }
+        if (rangeCount == 0 && !invertedRangesPresent) {
+            return false;
+        }
+        long[] address = ADDRESS_BUFFER.get();
+        toAddress(ip, address);
+        long high = address[0];
+        long low = address[1];
+        if (invertedRangesPresent && !(compare(high, low, invertedRangeStart[0], invertedRangeStart[1]) > 0
+                && compare(high, low, invertedRangeEnd[0], invertedRangeEnd[1]) < 0)) {
+            log.debug("Block IPRange selected for Blocked");
+            return true;
+        }
+        int interval = findLastIntervalStartingBefore(high, low);
+        if (interval >= 0 && compare(high, low, rangeEnds[interval * 2], rangeEnds[interval * 2 + 1]) < 0) {
+            log.debug("Block IPRange selected for Blocked");
+            return true;
+        }
+        return false;
+    }
+
+    private int findLastIntervalStartingBefore(long high, long low) {
+
+        int from = 0;
+        int to = rangeCount - 1;
+        int found = -1;
+        while (from <= to) {
+            int middle = (from + to) >>> 1;
+            if (compare(rangeStarts[middle * 2], rangeStarts[middle * 2 + 1], high, low) < 0) {
+                found = middle;
+                from = middle + 1;
+            } else {
+                to = middle - 1;
+            }
+        }
+        return found;
+    }
+
+    private static int compare(long firstHigh, long firstLow, long secondHigh, long secondLow) {
+
+        int result = Long.compareUnsigned(firstHigh, secondHigh);
+        return result != 0 ? result : Long.compareUnsigned(firstLow, secondLow);
+    }
+
+    private static long high(BigInteger value) {
+
+        return value.shiftRight(64).longValue();
+    }
+
+    private static long low(BigInteger value) {
+
+        return value.longValue();
+    }
+
+    /**
+     * Converts an IP literal to its numeric value without allocating, falling back to
+     * {@link APIUtil#ipToBigInteger(String)} for values which are not plain IPv4 or IPv6 literals.
+     */
+    static void toAddress(String ip, long[] address) {
+
+        address[0] = 0;
+        address[1] = 0;
+        boolean parsed;
+        if (ip.indexOf(':') >= 0) {
+            parsed = parseIPv6(ip, address);
+        } else {
+            address[1] = parseIPv4(ip, 0, ip.length());
+            parsed = address[1] >= 0;
+        }
+        if (!parsed) {
+            BigInteger value = APIUtil.ipToBigInteger(ip);
+            address[0] = high(value);
+            address[1] = low(value);
+        } else if (address[0] == 0 && (address[1] >>> 32) == IPV4_MAPPED_PREFIX) {
+            // IPv4 mapped IPv6 addresses resolve to their IPv4 address
+            address[1] &= 0xFFFFFFFFL;
+        }
+    }
+
+    /**
+     * @return the IPv4 address in the given part of the IP, or -1 if it is not a valid IPv4 address
+     */
+    private static long parseIPv4(String ip, int from, int to) {
+
+        long value = 0;
+        int octets = 0;
+        int octet = -1;
+        for (int i = from; i <= to; i++) {
+            char c = i < to ? ip.charAt(i) : '.';
+            if (c == '.') {
+                if (octet < 0 || ++octets > 4) {
+                    return -1;
+                }
+                value = (value << 8) | octet;
+                octet = -1;
+            } else if (c >= '0' && c <= '9') {
+                octet = (octet < 0 ? 0 : octet * 10) + (c - '0');
+                if (octet > 255) {
+                    return -1;
+                }
+            } else {
+                return -1;
+            }
+        }
+        return octets == 4 ? value : -1;
+    }
+
+    private static boolean parseIPv6(String ip, long[] address) {
+
+        int doubleColon = ip.indexOf("::");
+        if (doubleColon >= 0 && ip.indexOf("::", doubleColon + 1) >= 0) {
+            return false;
+        }
+        int length = ip.length();
+        if (doubleColon < 0) {
+            return countGroups(ip, 0, length) == 8 && setGroups(ip, 0, length, 0, address);
+        }
+        int groupsBefore = countGroups(ip, 0, doubleColon);
+        int groupsAfter = countGroups(ip, doubleColon + 2, length);
+        if (groupsBefore < 0 || groupsAfter < 0 || groupsBefore + groupsAfter > 7) {
+            return false;
+        }
+        return setGroups(ip, 0, doubleColon, 0, address)
+                && setGroups(ip, doubleColon + 2, length, 8 - groupsAfter, address);
+    }
+
+    private static int countGroups(String ip, int from, int to) {
+
+        if (from == to) {
+            return 0;
+        }
+        int groups = 1;
+        for (int i = from; i < to; i++) {
+            char c = ip.charAt(i);
+            if (c == ':') {
+                groups++;
+            } else if (c == '.') {
+                // An embedded IPv4 address takes the last two groups
+                return ip.lastIndexOf(':', to - 1) < i ? groups + 1 : -1;
+            }
+        }
+        return groups;
+    }
+
+    private static boolean setGroups(String ip, int from, int to, int group, long[] address) {
+
+        if (from == to) {
+            return true;
+        }
+        int segmentStart = from;
+        for (int i = from; i <= to; i++) {
+            if (i < to && ip.charAt(i) != ':') {
+                continue;
+            }
+            if (i == to && ip.indexOf('.', segmentStart) >= 0 && ip.indexOf('.', segmentStart) < to) {
+                long ipv4 = group == 6 ? parseIPv4(ip, segmentStart, to) : -1;
+                if (ipv4 < 0) {
+                    return false;
+                }
+                address[1] |= ipv4;
+                return true;
+            }
+            int length = i - segmentStart;
+            if (length == 0 || length > 4 || group > 7) {
+                return false;
+            }
+            long value = 0;
+            for (int j = segmentStart; j < i; j++) {
+                int digit = Character.digit(ip.charAt(j), 16);
+                if (digit < 0) {
+                    return false;
+                }
+                value = (value << 4) | digit;
+            }
+            if (group < 4) {
+                address[0] |= value << (16 * (3 - group));
+            } else {
+                address[1] |= value << (16 * (7 - group));
+            }
+            group++;
+            segmentStart = i + 1;
+        }
+        return true;
+    }
+}
@@ -29,13 +29,19 @@ import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.wso2.carbon.apimgt.impl.dto.ConditionDto;
 import org.wso2.carbon.apimgt.impl.utils.APIUtil;
 
-import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * This class will hold throttle data per given node. All throttle handler objects should refer values from this.
@@ -46,27 +52,34 @@ import java.util.concurrent.ConcurrentHashMap;
 public class ThrottleDataHolder {
 
     private static final Log log = LogFactory.getLog(ThrottleDataHolder.class);
+    private static final Pattern KEY_TEMPLATE_PROPERTY_PATTERN = Pattern.compile("\\$([\\w.-]+)");
+    private static final Set<String> STANDARD_KEY_TEMPLATE_ATTRIBUTES = new HashSet<>(Arrays.asList("resourceKey",
+            "userId", "apiContext", "apiVersion", "appTenant", "apiTenant", "appId", "clientIp"));
     private Map<String, String> blockedAPIConditionsMap = new ConcurrentHashMap<String, String>();
     private Map<String, String> blockedApplicationConditionsMap = new ConcurrentHashMap<String, String>();
     private Map<String, String> blockedUserConditionsMap = new ConcurrentHashMap<String, String>();
     private Map<String, Set<IPRange>> blockedIpConditionsMap = new ConcurrentHashMap<>();
+    private Map<String, IPBlockingIndex> ipBlockingIndexMap = new ConcurrentHashMap<>();
     private Map<String, String> keyTemplateMap = new ConcurrentHashMap<String, String>();
+    private volatile Set<String> keyTemplateProperties = Collections.emptySet();
     private boolean isBlockingConditionsPresent = true;
     private boolean isKeyTemplatesPresent = false;
-    private Map<String, Long> throttleDataMap = new ConcurrentHashMap<String, Long>();
-    private Map<String,Long> throttledAPIKeysMap = new ConcurrentHashMap<String, Long>();
     private Map<String, Map<String, List<ConditionDto>>> conditionDtoMap = new ConcurrentHashMap<>();
+    private ThrottleDecisionStore throttleDataStore = new ThrottleDecisionStore();
+    private ThrottleDecisionStore throttledAPIKeysStore =
+            new ThrottleDecisionStore(ThrottleDecisionStore.DEFAULT_MAX_SIZE, conditionDtoMap::remove);
+    private ScheduledExecutorService decisionSweeper;
     public void addThrottleData(String key, Long value) {
-        throttleDataMap.put(key, value);
+        throttleDataStore.put(key, value);
     }
     private Map<String, String> blockedSubscriptionConditionsMap = new ConcurrentHashMap<String, String>();
 
     public void addThrottleDataFromMap(Map<String, Long> data) {
-        throttleDataMap.putAll(data);
+        throttleDataStore.putAll(data);
     }
 
     public void addThrottledAPIKey(String key, Long value){
-        throttledAPIKeysMap.put(key,value);
+        throttledAPIKeysStore.put(key, value);
     }
 
     public void addThrottledApiConditions(String key, String conditionKey, List<ConditionDto> conditionValue) {
@@ -108,24 +121,12 @@ public class ThrottleDataHolder {
     }
 
     public void removeThrottledAPIKey(String key){
-        throttledAPIKeysMap.remove(key);
+        throttledAPIKeysStore.remove(key);
     }
 
     public boolean isAPIThrottled(String apiKey){
-        boolean isThrottled = this.throttledAPIKeysMap.containsKey(apiKey);
-        if(isThrottled) {
-            long currentTime = System.currentTimeMillis();
-            long timestamp = this.throttledAPIKeysMap.get(apiKey);
-            if(timestamp >= currentTime) {
-                return isThrottled;
-            } else {
-                this.throttledAPIKeysMap.remove(apiKey);
-                this.conditionDtoMap.remove(apiKey);
-                return false;
-            }
-        } else {
-            return isThrottled;
-        }
+        // Conditions of an expired key are removed by the store's expiry listener
+        return throttledAPIKeysStore.isThrottled(apiKey);
     }
 
     public boolean isConditionsAvailable(String key) {
@@ -137,7 +138,7 @@ public class ThrottleDataHolder {
     }
 
     public void removeThrottleData(String key) {
-        throttleDataMap.remove(key);
+        throttleDataStore.remove(key);
     }
 
     public void addAPIBlockingCondition(String name, String value) {
@@ -153,15 +154,18 @@ public class ThrottleDataHolder {
         blockedUserConditionsMap.put(name, value);
     }
 
-    public void addIpBlockingCondition(String tenantDomain, int conditionId, String value, String type) {
+    public synchronized void addIpBlockingCondition(String tenantDomain, int conditionId, String value,
+                                                    String type) {
 
-        Set<IPRange> ipRanges = blockedIpConditionsMap.get(tenantDomain);
-        if (ipRanges == null){
-            ipRanges = new HashSet<>();
+        Set<IPRange> ipRanges = new HashSet<>();
+        Set<IPRange> existingIpRanges = blockedIpConditionsMap.get(tenantDomain);
+        if (existingIpRanges != null) {
+            ipRanges.addAll(existingIpRanges);
         }
 
         ipRanges.add(convertValueToIPRange(tenantDomain, conditionId, value, type));
         blockedIpConditionsMap.put(tenantDomain, ipRanges);
+        ipBlockingIndexMap.put(tenantDomain, new IPBlockingIndex(ipRanges));
     }
 
     private IPRange convertValueToIPRange(String tenantDomain, int conditionId, String value, String type) {
@@ -200,9 +204,12 @@ public class ThrottleDataHolder {
         }
     }
 
-    public void addIplockingConditionsFromMap(Map<String, Set<IPRange>> data) {
+    public synchronized void addIplockingConditionsFromMap(Map<String, Set<IPRange>> data) {
         if(data.size() > 0) {
             blockedIpConditionsMap.putAll(data);
+            for (Map.Entry<String, Set<IPRange>> entry : data.entrySet()) {
+                ipBlockingIndexMap.put(entry.getKey(), new IPBlockingIndex(entry.getValue()));
+            }
         }
     }
 
@@ -231,10 +238,11 @@ public class ThrottleDataHolder {
         blockedUserConditionsMap.remove(name);
     }
 
-    public void removeIpBlockingCondition(String tenantDomain, int conditionId) {
+    public synchronized void removeIpBlockingCondition(String tenantDomain, int conditionId) {
 
-        Set<IPRange> ipRanges = blockedIpConditionsMap.get(tenantDomain);
-        if (ipRanges != null) {
+        Set<IPRange> existingIpRanges = blockedIpConditionsMap.get(tenantDomain);
+        if (existingIpRanges != null) {
+            Set<IPRange> ipRanges = new HashSet<>(existingIpRanges);
             Iterator<IPRange> iterator = ipRanges.iterator();
             while (iterator.hasNext()) {
                 IPRange ipRange = iterator.next();
@@ -243,18 +251,22 @@ public class ThrottleDataHolder {
                     break;
                 }
             }
+            blockedIpConditionsMap.put(tenantDomain, ipRanges);
+            ipBlockingIndexMap.put(tenantDomain, new IPBlockingIndex(ipRanges));
         }
     }
 
     public void addKeyTemplate(String key, String value) {
         keyTemplateMap.put(key, value);
         isKeyTemplatesPresent = true;
+        updateKeyTemplateProperties();
     }
 
     public void addKeyTemplateFromMap(Map<String, String> data) {
         if(data.size() > 0) {
             keyTemplateMap.putAll(data);
             isKeyTemplatesPresent = true;
+            updateKeyTemplateProperties();
         }
     }
 
@@ -265,6 +277,31 @@ public class ThrottleDataHolder {
         } else {
             isKeyTemplatesPresent = false;
         }
+        updateKeyTemplateProperties();
+    }
+
+    /**
+     * Returns the names of the request properties (headers, query parameters or JWT claims) referenced by the
+     * deployed custom policy key templates, i.e. every {@code $name} token which is not one of the standard throttle
+     * stream attributes.
+     *
+     * @return unmodifiable set of property names
+     */
+    public Set<String> getKeyTemplateProperties() {
+        return keyTemplateProperties;
+    }
+
+    private void updateKeyTemplateProperties() {
+        Set<String> properties = new HashSet<>();
+        for (String keyTemplate : keyTemplateMap.keySet()) {
+            Matcher matcher = KEY_TEMPLATE_PROPERTY_PATTERN.matcher(keyTemplate);
+            while (matcher.find()) {
+                if (!STANDARD_KEY_TEMPLATE_ATTRIBUTES.contains(matcher.group(1))) {
+                    properties.add(matcher.group(1));
+                }
+            }
+        }
+        keyTemplateProperties = Collections.unmodifiableSet(properties);
     }
 
     public Map<String, String> getKeyTemplateMap() {
@@ -282,41 +319,9 @@ public class ThrottleDataHolder {
 
     private boolean isIpLevelBlocked(String apiTenantDomain, String ip) {
 
-        Set<IPRange> ipRanges = blockedIpConditionsMap.get(apiTenantDomain);
-        if (ipRanges != null && ipRanges.size() > 0) {
-            log.debug("Tenant " + apiTenantDomain + " contains block conditions");
-            for (IPRange ipRange : ipRanges) {
-                if (APIConstants.BLOCKING_CONDITIONS_IP.equals(ipRange.getType())) {
-                    if (ip.equals(ipRange.getFixedIp())) {
-                        if (!ipRange.isInvert()) {
-                            log.debug("Block IP selected for Blocked");
-                            return true;
-                        }
-                    } else {
-                        if (ipRange.isInvert()) {
-                            log.debug("Block IP selected for Blocked");
-                            return true;
-                        }
-                    }
-                } else if (APIConstants.BLOCK_CONDITION_IP_RANGE.equals(ipRange.getType())) {
-                    BigInteger ipBigIntegerValue = APIUtil.ipToBigInteger(ip);
-
-                    if (((ipBigIntegerValue.compareTo(ipRange.getStartingIpBigIntValue()) > 0) &&
-                            (ipBigIntegerValue.compareTo(ipRange.getEndingIpBigIntValue()) < 0))) {
-                        if (!ipRange.isInvert()) {
-                            log.debug("Block IPRange selected for Blocked");
-                            return true;
-                        }
-                    } else {
-                        if (ipRange.isInvert()) {
-                            log.debug("Block IPRange selected for Blocked");
-                            return true;
-                        }
-                    }
-                }
-            }
-        }
-        return false;
+        // The index of a tenant is replaced as a whole when its conditions change, so no lock is needed here
+        IPBlockingIndex ipBlockingIndex = ipBlockingIndexMap.get(apiTenantDomain);
+        return ipBlockingIndex != null && ipBlockingIndex.isBlocked(ip);
     }
 
     /**
@@ -329,19 +334,7 @@ public class ThrottleDataHolder {
      * false if key is not there in throttle map(that means its not throttled).
      */
     public boolean isThrottled(String key) {
-        boolean isThrottled = this.throttleDataMap.containsKey(key);
-        if(isThrottled) {
-            long currentTime = System.currentTimeMillis();
-            long timestamp = this.throttleDataMap.get(key);
-            if(timestamp >= currentTime) {
-                return isThrottled;
-            } else {
-                this.throttleDataMap.remove(key);
-                return false;
-            }
-        } else {
-            return isThrottled;
-        }
+        return throttleDataStore.isThrottled(key);
     }
 
     /**
@@ -351,7 +344,69 @@ public class ThrottleDataHolder {
      * @return throttle next access timestamp
      */
     public long getThrottleNextAccessTimestamp(String key) {
-        return this.throttleDataMap.get(key);
+        return throttleDataStore.getNextAccessTimestamp(key);
+    }
+
+    /**
+     * Caps the number of throttle decisions kept for throttle keys and for throttled API keys.
+     *
+     * @param maxSize maximum number of decisions kept in each store
+     */
+    public void setThrottleDecisionMaxSize(int maxSize) {
+        throttleDataStore.setMaxSize(maxSize);
+        throttledAPIKeysStore.setMaxSize(maxSize);
+    }
+
+    /**
+     * Starts periodically dropping expired throttle decisions, which are otherwise only dropped when their key is
+     * checked again.
+     *
+     * @param sweepIntervalInMillis interval between two sweeps, the sweeper is not started if it is not positive
+     */
+    public synchronized void startDecisionSweeper(long sweepIntervalInMillis) {
+        if (decisionSweeper != null) {
+            return;
+        }
+        if (sweepIntervalInMillis <= 0) {
+            log.warn("Throttle decision sweeper is not started as the sweep interval " + sweepIntervalInMillis
+                    + " ms is not positive");
+            return;
+        }
+        decisionSweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ThrottleDecisionSweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        decisionSweeper.scheduleWithFixedDelay(this::sweepExpiredDecisions, sweepIntervalInMillis,
+                sweepIntervalInMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopDecisionSweeper() {
+        if (decisionSweeper != null) {
+            decisionSweeper.shutdownNow();
+            decisionSweeper = null;
+        }
+    }
+
+    void sweepExpiredDecisions() {
+        try {
+            throttleDataStore.sweep();
+            throttledAPIKeysStore.sweep();
+        } catch (RuntimeException e) {
+            log.error("Error while removing expired throttle decisions", e);
+        }
+    }
+
+    public int getThrottleDecisionCount() {
+        return throttleDataStore.getSize() + throttledAPIKeysStore.getSize();
+    }
+
+    public long getExpiredThrottleDecisionCount() {
+        return throttleDataStore.getExpiredCount() + throttledAPIKeysStore.getExpiredCount();
+    }
+
+    public long getEvictedThrottleDecisionCount() {
+        return throttleDataStore.getEvictedCount() + throttledAPIKeysStore.getEvictedCount();
     }
 
     public boolean isBlockingConditionsPresent() {
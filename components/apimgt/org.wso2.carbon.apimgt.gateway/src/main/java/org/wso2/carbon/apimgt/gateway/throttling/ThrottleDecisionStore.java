@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.throttling;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Throttle decisions received from the traffic manager, keyed by throttle key, with the time until which the key is
+ * throttled.
+ * <p>
+ * Decisions are dropped when a check finds them expired and by {@link #sweep()}, which is run periodically so that
+ * keys which are never checked again do not stay in memory. The number of decisions is capped: when the cap is
+ * exceeded, expired decisions are swept and, if that is not enough, the decisions which expire soonest are evicted,
+ * so that the keys throttled the longest stay throttled. An evicted decision only means that the key is not throttled
+ * locally for the rest of its decision, until the traffic manager throttles it again.
+ */
+public class ThrottleDecisionStore {
+
+    private static final Log log = LogFactory.getLog(ThrottleDecisionStore.class);
+    public static final int DEFAULT_MAX_SIZE = 100000;
+
+    private final Map<String, Long> decisions = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final AtomicLong expiredCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+    private final Consumer<String> expiryListener;
+    private volatile int maxSize;
+
+    public ThrottleDecisionStore() {
+
+        this(DEFAULT_MAX_SIZE, null);
+    }
+
+    /**
+     * @param maxSize        maximum number of decisions kept
+     * @param expiryListener notified with the key of every decision dropped by expiry or eviction, may be null
+     */
+    public ThrottleDecisionStore(int maxSize, Consumer<String> expiryListener) {
+
+        this.maxSize = maxSize;
+        this.expiryListener = expiryListener;
+    }
+
+    public void put(String key, long nextAccessTimestamp) {
+
+        decisions.put(key, nextAccessTimestamp);
+        if (decisions.size() > maxSize) {
+            evictOverflow();
+        }
+    }
+
+    public void putAll(Map<String, Long> data) {
+
+        decisions.putAll(data);
+        if (decisions.size() > maxSize) {
+            evictOverflow();
+        }
+    }
+
+    public void remove(String key) {
+
+        decisions.remove(key);
+    }
+
+    /**
+     * Checks whether the key is throttled at the current time, dropping its decision if it has expired.
+     */
+    public boolean isThrottled(String key) {
+
+        Long nextAccessTimestamp = decisions.get(key);
+        if (nextAccessTimestamp == null) {
+            return false;
+        }
+        if (nextAccessTimestamp >= System.currentTimeMillis()) {
+            return true;
+        }
+        expire(key, nextAccessTimestamp);
+        return false;
+    }
+
+    /**
+     * @return the time until which the key is throttled, or 0 if there is no decision for the key
+     */
+    public long getNextAccessTimestamp(String key) {
+
+        Long nextAccessTimestamp = decisions.get(key);
+        return nextAccessTimestamp != null ? nextAccessTimestamp : 0;
+    }
+
+    /**
+     * Drops all the expired decisions.
+     */
+    public void sweep() {
+
+        long currentTime = System.currentTimeMillis();
+        for (Map.Entry<String, Long> entry : decisions.entrySet()) {
+            if (entry.getValue() < currentTime) {
+                expire(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private void expire(String key, Long nextAccessTimestamp) {
+
+        // Only drop the decision if it was not renewed in the meantime
+        if (decisions.remove(key, nextAccessTimestamp)) {
+            expiredCount.incrementAndGet();
+            notifyExpiry(key);
+        }
+    }
+
+    private void evictOverflow() {
+
+        // A single thread makes room, the others carry on and are over the cap only until it is done
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            sweep();
+            // Evict down to a tenth below the cap so that a flood of new keys does not sweep on every put
+            int targetSize = maxSize - maxSize / 10;
+            int excess = decisions.size() - targetSize;
+            int evictions = 0;
+            if (excess > 0) {
+                // Keeps the decisions expiring soonest, with the latest of them at the head
+                PriorityQueue<Map.Entry<String, Long>> soonest = new PriorityQueue<>(excess,
+                        (first, second) -> Long.compare(second.getValue(), first.getValue()));
+                for (Map.Entry<String, Long> entry : decisions.entrySet()) {
+                    if (soonest.size() < excess) {
+                        soonest.add(new SimpleImmutableEntry<>(entry.getKey(), entry.getValue()));
+                    } else if (entry.getValue() < soonest.peek().getValue()) {
+                        soonest.poll();
+                        soonest.add(new SimpleImmutableEntry<>(entry.getKey(), entry.getValue()));
+                    }
+                }
+                for (Map.Entry<String, Long> entry : soonest) {
+                    // A decision renewed in the meantime is kept
+                    if (decisions.remove(entry.getKey(), entry.getValue())) {
+                        evictions++;
+                        notifyExpiry(entry.getKey());
+                    }
+                }
+            }
+            evictedCount.addAndGet(evictions);
+            if (evictions > 0) {
+                log.warn("Throttle decision store exceeded the maximum size of " + maxSize + ". Evicted "
+                        + evictions + " throttle decisions which had not expired");
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void notifyExpiry(String key) {
+
+        if (expiryListener != null) {
+            expiryListener.accept(key);
+        }
+    }
+
+    public void setMaxSize(int maxSize) {
+
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return number of decisions currently kept
+     */
+    public int getSize() {
+
+        return decisions.size();
+    }
+
+    /**
+     * @return number of decisions dropped after they expired
+     */
+    public long getExpiredCount() {
+
+        return expiredCount.get();
+    }
+
+    /**
+     * @return number of decisions evicted before they expired because the store was full
+     */
+    public long getEvictedCount() {
+
+        return evictedCount.get();
+    }
+}
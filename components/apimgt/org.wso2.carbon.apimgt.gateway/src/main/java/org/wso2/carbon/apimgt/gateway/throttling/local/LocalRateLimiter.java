@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.throttling.local;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock free token bucket of a single throttle key, implemented as a generic cell rate algorithm so that the whole
+ * bucket state is a single theoretical arrival time updated with compare and set. The bucket refills evenly at the
+ * emission interval of its limit, the window divided by the request count, and holds up to the burst size of requests
+ * sent ahead of that rate. A window of the limit therefore allows at most the request count plus the burst size, where
+ * a bucket holding the whole request count would allow up to twice the request count.
+ */
+class LocalRateLimiter {
+
+    private final LocalThrottleLimit limit;
+    private final long emissionInterval;
+    private final long burstTolerance;
+    private final AtomicLong theoreticalArrivalTime;
+
+    /**
+     * @param limit     limit of the policy
+     * @param burstSize number of requests allowed at once, at least 1
+     * @param now       current {@link System#nanoTime()}
+     */
+    LocalRateLimiter(LocalThrottleLimit limit, long burstSize, long now) {
+
+        this.limit = limit;
+        this.emissionInterval = Math.max(1, limit.getWindowInNanos() / Math.max(1, limit.getRequestCount()));
+        this.burstTolerance = emissionInterval * (Math.max(1, burstSize) - 1);
+        this.theoreticalArrivalTime = new AtomicLong(now);
+    }
+
+    LocalThrottleLimit getLimit() {
+
+        return limit;
+    }
+
+    /**
+     * Takes a token from the bucket.
+     *
+     * @param now current {@link System#nanoTime()}
+     * @return false if the bucket is empty
+     */
+    boolean tryAcquire(long now) {
+
+        while (true) {
+            long current = theoreticalArrivalTime.get();
+            long base = Math.max(current, now);
+            if (base - now > burstTolerance) {
+                return false;
+            }
+            if (theoreticalArrivalTime.compareAndSet(current, base + emissionInterval)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gives back a token taken with {@link #tryAcquire(long)}.
+     */
+    void release() {
+
+        theoreticalArrivalTime.addAndGet(-emissionInterval);
+    }
+
+    /**
+     * @return the {@link System#nanoTime()} at which the next token becomes available
+     */
+    long getNextAvailableTime(long now) {
+
+        return Math.max(now, theoreticalArrivalTime.get() - burstTolerance);
+    }
+
+    /**
+     * Empties the bucket until the given time, used to align the bucket with a throttle decision of the traffic
+     * manager.
+     *
+     * @param until {@link System#nanoTime()} until which no tokens are available
+     */
+    void blockUntil(long until) {
+
+        long target = until + burstTolerance;
+        long current;
+        do {
+            current = theoreticalArrivalTime.get();
+            if (current >= target) {
+                return;
+            }
+        } while (!theoreticalArrivalTime.compareAndSet(current, target));
+    }
+
+    /**
+     * @return true if the bucket is full, in which case it is equivalent to a newly created one
+     */
+    boolean isIdle(long now) {
+
+        return theoreticalArrivalTime.get() <= now;
+    }
+}
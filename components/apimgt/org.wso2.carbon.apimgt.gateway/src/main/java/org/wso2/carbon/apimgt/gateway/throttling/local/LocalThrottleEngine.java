@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.throttling.local;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
+import org.wso2.carbon.apimgt.gateway.throttling.ThrottleDataHolder;
+import org.wso2.carbon.apimgt.impl.APIConstants.PolicyType;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Enforces the request count limits of application, subscription and API policies within the gateway, so that bursts
+ * are rejected before the traffic manager has counted them and sent back a throttle decision. Each throttle key gets
+ * a lock free {@link LocalRateLimiter}, keyed the same way as the decisions in {@link ThrottleDataHolder}.
+ * <p>
+ * Each gateway applies the whole limit of a policy, as the traffic of a key is not necessarily spread evenly among the
+ * gateways. A key may send a burst of the burst tolerance percentage of its limit at once, after which its requests
+ * are spread evenly over the window, so that a window allows at most the limit plus the burst. Requests allowed
+ * locally are still published to the traffic manager, which enforces the limit across the cluster, and buckets are
+ * periodically reconciled with the decisions it sends back: a key throttled by the traffic manager is kept empty until
+ * the decision expires, and buckets of idle keys are released.
+ */
+public class LocalThrottleEngine {
+
+    private static final Log log = LogFactory.getLog(LocalThrottleEngine.class);
+    public static final int DEFAULT_BURST_TOLERANCE_PERCENTAGE = 10;
+
+    private final ConcurrentHashMap<String, LocalThrottleLimit> limits = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LocalRateLimiter> rateLimiters = new ConcurrentHashMap<>();
+    private final AtomicLong allowedCount = new AtomicLong();
+    private final AtomicLong throttledCount = new AtomicLong();
+    private final int burstTolerancePercentage;
+    private ScheduledExecutorService scheduler;
+
+    public LocalThrottleEngine() {
+
+        this(DEFAULT_BURST_TOLERANCE_PERCENTAGE);
+    }
+
+    /**
+     * @param burstTolerancePercentage percentage of the limit of a key which may be sent at once
+     */
+    public LocalThrottleEngine(int burstTolerancePercentage) {
+
+        this.burstTolerancePercentage = burstTolerancePercentage;
+    }
+
+    /**
+     * Starts reconciling the buckets with the traffic manager decisions every interval.
+     *
+     * @param reconcileIntervalInMillis reconciliation interval
+     */
+    public void start(long reconcileIntervalInMillis) {
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "LocalThrottleEngine");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::reconcile, reconcileIntervalInMillis, reconcileIntervalInMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    /**
+     * Adds or replaces the limit of a policy.
+     */
+    public void addLimit(PolicyType policyType, String tenantDomain, String policyName, LocalThrottleLimit limit) {
+
+        limits.put(getPolicyKey(policyType, tenantDomain, policyName), limit);
+        if (log.isDebugEnabled()) {
+            log.debug("Local throttle limit of " + limit.getRequestCount() + " requests added for " + policyType
+                    + " policy " + policyName + " of tenant " + tenantDomain);
+        }
+    }
+
+    public void removeLimit(PolicyType policyType, String tenantDomain, String policyName) {
+
+        limits.remove(getPolicyKey(policyType, tenantDomain, policyName));
+    }
+
+    /**
+     * @return the limit of a policy, or null if the policy is not enforced locally
+     */
+    public LocalThrottleLimit getLimit(PolicyType policyType, String tenantDomain, String policyName) {
+
+        return limits.get(getPolicyKey(policyType, tenantDomain, policyName));
+    }
+
+    /**
+     * Takes a request from the bucket of a throttle key, creating the bucket or replacing it if the limit changed.
+     *
+     * @param throttleKey throttle key, as used for traffic manager decisions
+     * @param limit       limit of the policy applied to the key
+     * @return false if the key is throttled
+     */
+    public boolean tryAcquire(String throttleKey, LocalThrottleLimit limit) {
+
+        long now = System.nanoTime();
+        if (getRateLimiter(throttleKey, limit, now).tryAcquire(now)) {
+            allowedCount.incrementAndGet();
+            return true;
+        }
+        throttledCount.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Takes a request from the buckets of several throttle keys, either from all of them or from none: the requests
+     * taken before reaching an empty bucket are given back.
+     *
+     * @param throttleKeys throttle keys, as used for traffic manager decisions
+     * @param limits       limits of the policies applied to the keys
+     * @return index of the first throttled key, or -1 if the request was taken from all the buckets
+     */
+    public int tryAcquireAll(String[] throttleKeys, LocalThrottleLimit[] limits) {
+
+        return tryAcquireAll(throttleKeys, limits, throttleKeys.length);
+    }
+
+    /**
+     * Takes a request from the buckets of the first count throttle keys, either from all of them or from none, so that
+     * callers can reuse the arrays across requests.
+     *
+     * @param throttleKeys throttle keys, as used for traffic manager decisions
+     * @param limits       limits of the policies applied to the keys
+     * @param count        number of keys to take the request from
+     * @return index of the first throttled key, or -1 if the request was taken from all the buckets
+     */
+    public int tryAcquireAll(String[] throttleKeys, LocalThrottleLimit[] limits, int count) {
+
+        long now = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            if (!getRateLimiter(throttleKeys[i], limits[i], now).tryAcquire(now)) {
+                // Only rejected requests look the buckets up again, so that allowed ones do not allocate
+                for (int j = 0; j < i; j++) {
+                    LocalRateLimiter acquired = rateLimiters.get(throttleKeys[j]);
+                    if (acquired != null && acquired.getLimit() == limits[j]) {
+                        acquired.release();
+                    }
+                }
+                throttledCount.incrementAndGet();
+                return i;
+            }
+        }
+        allowedCount.incrementAndGet();
+        return -1;
+    }
+
+    private LocalRateLimiter getRateLimiter(String throttleKey, LocalThrottleLimit limit, long now) {
+
+        LocalRateLimiter rateLimiter = rateLimiters.get(throttleKey);
+        if (rateLimiter == null || rateLimiter.getLimit() != limit) {
+            rateLimiter = rateLimiters.compute(throttleKey, (key, existing) ->
+                    existing != null && existing.getLimit() == limit ? existing
+                            : new LocalRateLimiter(limit, getBurstSize(limit), now));
+        }
+        return rateLimiter;
+    }
+
+    private long getBurstSize(LocalThrottleLimit limit) {
+
+        return Math.max(1, limit.getRequestCount() * burstTolerancePercentage / 100);
+    }
+
+    /**
+     * @return the time in milliseconds since epoch at which the throttle key accepts requests again
+     */
+    public long getNextAccessTimestamp(String throttleKey) {
+
+        long now = System.nanoTime();
+        LocalRateLimiter rateLimiter = rateLimiters.get(throttleKey);
+        long waitInNanos = rateLimiter == null ? 0 : rateLimiter.getNextAvailableTime(now) - now;
+        return System.currentTimeMillis() + TimeUnit.NANOSECONDS.toMillis(waitInNanos);
+    }
+
+    /**
+     * Aligns the buckets with the decisions of the traffic manager and releases the buckets of idle keys.
+     */
+    void reconcile() {
+
+        ThrottleDataHolder throttleDataHolder = getThrottleDataHolder();
+        long now = System.nanoTime();
+        long currentTime = System.currentTimeMillis();
+        for (Map.Entry<String, LocalRateLimiter> entry : rateLimiters.entrySet()) {
+            LocalRateLimiter rateLimiter = entry.getValue();
+            if (throttleDataHolder != null && throttleDataHolder.isThrottled(entry.getKey())) {
+                long throttledUntil = throttleDataHolder.getThrottleNextAccessTimestamp(entry.getKey());
+                rateLimiter.blockUntil(now + TimeUnit.MILLISECONDS.toNanos(throttledUntil - currentTime));
+            } else if (rateLimiter.isIdle(now)) {
+                rateLimiters.remove(entry.getKey(), rateLimiter);
+            }
+        }
+    }
+
+    protected ThrottleDataHolder getThrottleDataHolder() {
+
+        return ServiceReferenceHolder.getInstance().getThrottleDataHolder();
+    }
+
+    private static String getPolicyKey(PolicyType policyType, String tenantDomain, String policyName) {
+
+        return policyType + ":" + tenantDomain + ":" + policyName;
+    }
+
+    public int getActiveKeyCount() {
+
+        return rateLimiters.size();
+    }
+
+    /**
+     * @return number of requests allowed by the local buckets
+     */
+    public long getAllowedCount() {
+
+        return allowedCount.get();
+    }
+
+    /**
+     * @return number of requests throttled by the local buckets
+     */
+    public long getThrottledCount() {
+
+        return throttledCount.get();
+    }
+}
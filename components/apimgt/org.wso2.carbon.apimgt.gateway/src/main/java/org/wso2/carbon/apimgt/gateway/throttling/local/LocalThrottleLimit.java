@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.throttling.local;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request count limit of a throttle policy as enforced by the {@link LocalThrottleEngine}: at most
+ * {@link #getRequestCount()} requests per {@link #getWindowInNanos()}.
+ */
+public class LocalThrottleLimit {
+
+    private final long requestCount;
+    private final long windowInNanos;
+    private final boolean stopOnQuotaReach;
+
+    public LocalThrottleLimit(long requestCount, long windowInNanos, boolean stopOnQuotaReach) {
+
+        this.requestCount = requestCount;
+        this.windowInNanos = windowInNanos;
+        this.stopOnQuotaReach = stopOnQuotaReach;
+    }
+
+    public long getRequestCount() {
+
+        return requestCount;
+    }
+
+    public long getWindowInNanos() {
+
+        return windowInNanos;
+    }
+
+    public boolean isStopOnQuotaReach() {
+
+        return stopOnQuotaReach;
+    }
+
+    /**
+     * Converts the unit time and time unit of a policy limit, given in the Siddhi time units used by the policy
+     * templates (sec, min, hour, day, month, year and their long forms), to nanoseconds.
+     *
+     * @return window in nanoseconds, or -1 if the unit is not recognised
+     */
+    public static long toNanos(int unitTime, String timeUnit) {
+
+        if (timeUnit == null || unitTime <= 0) {
+            return -1;
+        }
+        String unit = timeUnit.trim().toLowerCase(Locale.ENGLISH);
+        long days;
+        if (unit.startsWith("ms") || unit.startsWith("milli")) {
+            return TimeUnit.MILLISECONDS.toNanos(unitTime);
+        } else if (unit.startsWith("sec")) {
+            return TimeUnit.SECONDS.toNanos(unitTime);
+        } else if (unit.startsWith("min")) {
+            return TimeUnit.MINUTES.toNanos(unitTime);
+        } else if (unit.startsWith("hour")) {
+            return TimeUnit.HOURS.toNanos(unitTime);
+        } else if (unit.startsWith("day")) {
+            days = 1;
+        } else if (unit.startsWith("week")) {
+            days = 7;
+        } else if (unit.startsWith("month")) {
+            days = 30;
+        } else if (unit.startsWith("year")) {
+            days = 365;
+        } else {
+            return -1;
+        }
+        return TimeUnit.DAYS.toNanos(days * unitTime);
+    }
+}
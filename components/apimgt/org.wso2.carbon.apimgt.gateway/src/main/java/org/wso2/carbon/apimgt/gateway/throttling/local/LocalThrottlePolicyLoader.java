@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.throttling.local;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.apimgt.api.model.policy.PolicyConstants;
+import org.wso2.carbon.apimgt.impl.APIConstants.PolicyType;
+import org.wso2.carbon.apimgt.throttle.policy.deployer.PolicyRetriever;
+import org.wso2.carbon.apimgt.throttle.policy.deployer.dto.APIPolicyConditionGroup;
+import org.wso2.carbon.apimgt.throttle.policy.deployer.dto.ApiPolicy;
+import org.wso2.carbon.apimgt.throttle.policy.deployer.dto.ApiPolicyList;
+import org.wso2.carbon.apimgt.throttle.policy.deployer.dto.ApplicationPolicy;
+import org.wso2.carbon.apimgt.throttle.policy.deployer.dto.ApplicationPolicyList;
+import org.wso2.carbon.apimgt.throttle.policy.deployer.dto.QuotaPolicy;
+import org.wso2.carbon.apimgt.throttle.policy.deployer.dto.RequestCountLimit;
+import org.wso2.carbon.apimgt.throttle.policy.deployer.dto.SubscriptionPolicy;
+import org.wso2.carbon.apimgt.throttle.policy.deployer.dto.SubscriptionPolicyList;
+import org.wso2.carbon.apimgt.throttle.policy.deployer.exception.ThrottlePolicyDeployerException;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads the application, subscription and API policies from the event hub into a {@link LocalThrottleEngine} and
+ * keeps them up to date on policy events.
+ * <p>
+ * Only request count limits are enforced locally. Bandwidth limits and API policies with conditional groups are left
+ * to the traffic manager.
+ */
+public class LocalThrottlePolicyLoader {
+
+    private static final Log log = LogFactory.getLog(LocalThrottlePolicyLoader.class);
+    private static final int RETRY_INTERVAL_IN_SECONDS = 15;
+
+    private final LocalThrottleEngine localThrottleEngine;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "LocalThrottlePolicyLoader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private PolicyRetriever policyRetriever;
+
+    public LocalThrottlePolicyLoader(LocalThrottleEngine localThrottleEngine) {
+
+        this.localThrottleEngine = localThrottleEngine;
+    }
+
+    /**
+     * Loads all the policies in the background, retrying until the event hub is reachable.
+     */
+    public void loadAllPolicies() {
+
+        executor.execute(this::retrieveAllPolicies);
+    }
+
+    private void retrieveAllPolicies() {
+
+        try {
+            ApplicationPolicyList applicationPolicies = getPolicyRetriever().getAllApplicationPolicies();
+            if (applicationPolicies != null && applicationPolicies.getList() != null) {
+                for (ApplicationPolicy policy : applicationPolicies.getList()) {
+                    addPolicy(policy);
+                }
+            }
+            SubscriptionPolicyList subscriptionPolicies = getPolicyRetriever().getAllSubscriptionPolicies();
+            if (subscriptionPolicies != null && subscriptionPolicies.getList() != null) {
+                for (SubscriptionPolicy policy : subscriptionPolicies.getList()) {
+                    addPolicy(policy);
+                }
+            }
+            ApiPolicyList apiPolicies = getPolicyRetriever().getAllApiPolicies();
+            if (apiPolicies != null && apiPolicies.getList() != null) {
+                for (ApiPolicy policy : apiPolicies.getList()) {
+                    addPolicy(policy);
+                }
+            }
+            log.info("Throttle policies loaded for local throttling");
+        } catch (ThrottlePolicyDeployerException e) {
+            log.warn("Failed retrieving throttle policies for local throttling. Retrying after "
+                    + RETRY_INTERVAL_IN_SECONDS + " seconds...", e);
+            executor.schedule(this::retrieveAllPolicies, RETRY_INTERVAL_IN_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Retrieves a created or updated policy in the background and replaces its limit.
+     */
+    public void reloadPolicy(PolicyType policyType, String policyName, String tenantDomain) {
+
+        executor.execute(() -> {
+            try {
+                if (policyType == PolicyType.APPLICATION) {
+                    ApplicationPolicy policy = getPolicyRetriever().getApplicationPolicy(policyName, tenantDomain);
+                    if (policy != null) {
+                        addPolicy(policy);
+                    }
+                } else if (policyType == PolicyType.SUBSCRIPTION) {
+                    SubscriptionPolicy policy = getPolicyRetriever().getSubscriptionPolicy(policyName, tenantDomain);
+                    if (policy != null) {
+                        addPolicy(policy);
+                    }
+                } else if (policyType == PolicyType.API) {
+                    ApiPolicy policy = getPolicyRetriever().getApiPolicy(policyName, tenantDomain);
+                    if (policy != null) {
+                        addPolicy(policy);
+                    }
+                }
+            } catch (ThrottlePolicyDeployerException e) {
+                log.error("Error while retrieving " + policyType + " policy " + policyName + " of tenant "
+                        + tenantDomain + " for local throttling", e);
+            }
+        });
+    }
+
+    public void removePolicy(PolicyType policyType, String policyName, String tenantDomain) {
+
+        localThrottleEngine.removeLimit(policyType, tenantDomain, policyName);
+    }
+
+    void addPolicy(ApplicationPolicy policy) {
+
+        updateLimit(PolicyType.APPLICATION, policy.getTenantDomain(), policy.getName(),
+                toLimit(policy.getDefaultLimit(), true));
+    }
+
+    void addPolicy(SubscriptionPolicy policy) {
+
+        updateLimit(PolicyType.SUBSCRIPTION, policy.getTenantDomain(), policy.getName(),
+                toLimit(policy.getDefaultLimit(), policy.isStopOnQuotaReach()));
+    }
+
+    void addPolicy(ApiPolicy policy) {
+
+        LocalThrottleLimit limit = null;
+        if (!hasConditionGroups(policy)) {
+            limit = toLimit(policy.getDefaultLimit(), true);
+        }
+        updateLimit(PolicyType.API, policy.getTenantDomain(), policy.getName(), limit);
+    }
+
+    private void updateLimit(PolicyType policyType, String tenantDomain, String policyName, LocalThrottleLimit limit) {
+
+        if (limit != null) {
+            localThrottleEngine.addLimit(policyType, tenantDomain, policyName, limit);
+        } else {
+            localThrottleEngine.removeLimit(policyType, tenantDomain, policyName);
+        }
+    }
+
+    private static boolean hasConditionGroups(ApiPolicy policy) {
+
+        if (policy.getConditionGroups() == null) {
+            return false;
+        }
+        for (APIPolicyConditionGroup conditionGroup : policy.getConditionGroups()) {
+            if (conditionGroup.getCondition() != null && !conditionGroup.getCondition().isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the request count limit of a quota policy, or null if the quota can not be enforced locally
+     */
+    static LocalThrottleLimit toLimit(QuotaPolicy quotaPolicy, boolean stopOnQuotaReach) {
+
+        if (quotaPolicy == null || PolicyConstants.BANDWIDTH_TYPE.equals(quotaPolicy.getQuotaType())) {
+            return null;
+        }
+        RequestCountLimit requestCountLimit = quotaPolicy.getRequestCount();
+        if (requestCountLimit == null || requestCountLimit.getRequestCount() <= 0) {
+            return null;
+        }
+        long windowInNanos = LocalThrottleLimit.toNanos(requestCountLimit.getUnitTime(),
+                requestCountLimit.getTimeUnit());
+        if (windowInNanos <= 0) {
+            return null;
+        }
+        return new LocalThrottleLimit(requestCountLimit.getRequestCount(), windowInNanos, stopOnQuotaReach);
+    }
+
+    protected PolicyRetriever getPolicyRetriever() {
+
+        if (policyRetriever == null) {
+            policyRetriever = new PolicyRetriever();
+        }
+        return policyRetriever;
+    }
+
+    public void stop() {
+
+        executor.shutdownNow();
+    }
+}
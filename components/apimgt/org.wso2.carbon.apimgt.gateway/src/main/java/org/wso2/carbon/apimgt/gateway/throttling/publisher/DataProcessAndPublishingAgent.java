@@ -11,9 +11,13 @@ import org.apache.synapse.core.axis2.Axis2MessageContext;
 import org.apache.synapse.rest.RESTConstants;
 import org.apache.synapse.transport.passthru.util.RelayUtils;
 import org.json.simple.JSONObject;
+import org.wso2.carbon.apimgt.api.dto.ConditionDTO;
+import org.wso2.carbon.apimgt.api.dto.ConditionGroupDTO;
+import org.wso2.carbon.apimgt.api.model.policy.PolicyConstants;
 import org.wso2.carbon.apimgt.gateway.handlers.security.AuthenticationContext;
 import org.wso2.carbon.apimgt.gateway.handlers.throttling.APIThrottleConstants;
 import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
+import org.wso2.carbon.apimgt.gateway.throttling.ThrottleDataHolder;
 import org.wso2.carbon.apimgt.gateway.utils.GatewayUtils;
 import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.wso2.carbon.apimgt.impl.dto.ThrottleProperties;
@@ -28,7 +32,9 @@ import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
 import javax.xml.stream.XMLStreamException;
 
@@ -64,6 +70,8 @@ public class DataProcessAndPublishingAgent implements Runnable {
     String appId;
     Map<String, String> headersMap;
     private AuthenticationContext authenticationContext;
+    private final ThrottlePropertiesEncoder propertiesEncoder = new ThrottlePropertiesEncoder();
+    private final Map<String, String> selectedHeaders = new HashMap<>();
 
     private long messageSizeInBytes;
 
@@ -95,6 +103,7 @@ public class DataProcessAndPublishingAgent implements Runnable {
         this.appId = null;
         this.apiName = null;
         this.messageSizeInBytes = 0;
+        this.selectedHeaders.clear();
     }
 
     /**
@@ -177,13 +186,23 @@ public class DataProcessAndPublishingAgent implements Runnable {
             // request out, header map is modified by the Synapse layer. It's to avoid this problem a clone of the
             // map is used.
             if (transportHeaderMap != null) {
-                this.headersMap = (Map<String, String>) transportHeaderMap.clone();
+                if (getThrottleProperties().isEnableCompactEventEncoding()) {
+                    // Only the headers referenced by deployed policies are published in the compact encoding, so
+                    // copy those instead of cloning the whole header map.
+                    selectReferencedHeaders(transportHeaderMap, list);
+                } else {
+                    this.headersMap = (Map<String, String>) transportHeaderMap.clone();
+                }
             }
         }
     }
 
     public void run() {
 
+        if (getThrottleProperties().isEnableCompactEventEncoding()) {
+            publishCompactEvent();
+            return;
+        }
         JSONObject jsonObMap = new JSONObject();
 
         org.apache.axis2.context.MessageContext axis2MessageContext = ((Axis2MessageContext) messageContext)
@@ -282,6 +301,174 @@ public class DataProcessAndPublishingAgent implements Runnable {
         dataPublisher.tryPublish(event);
     }
 
+    /**
+     * Publishes the throttle event with the properties attribute written by {@link ThrottlePropertiesEncoder}. Only
+     * the headers, query parameters and JWT claims referenced by the condition groups of the matched resource or by
+     * the custom policy key templates are included.
+     */
+    private void publishCompactEvent() {
+
+        org.apache.axis2.context.MessageContext axis2MessageContext = ((Axis2MessageContext) messageContext)
+                .getAxis2MessageContext();
+        ThrottlePropertiesEncoder encoder = propertiesEncoder.reset();
+
+        String remoteIP = GatewayUtils.getIp(axis2MessageContext);
+        if (remoteIP != null && remoteIP.length() > 0) {
+            int portSeparator = remoteIP.indexOf(':');
+            if (portSeparator > 0 && portSeparator == remoteIP.lastIndexOf(':')) {
+                remoteIP = remoteIP.substring(0, portSeparator);
+            }
+            try {
+                InetAddress address = APIUtil.getAddress(remoteIP);
+                if (address instanceof Inet4Address) {
+                    encoder.putLong(APIThrottleConstants.IP, APIUtil.ipToLong(remoteIP));
+                    encoder.putLong(APIThrottleConstants.IPv6, 0);
+                } else if (address instanceof Inet6Address) {
+                    encoder.putString(APIThrottleConstants.IPv6, APIUtil.ipToBigInteger(remoteIP).toString());
+                    encoder.putLong(APIThrottleConstants.IP, 0);
+                }
+            } catch (UnknownHostException e) {
+                log.error("Error while parsing host IP " + remoteIP, e);
+                encoder.putLong(APIThrottleConstants.IPv6, 0);
+                encoder.putLong(APIThrottleConstants.IP, 0);
+            }
+        }
+
+        for (Map.Entry<String, String> header : selectedHeaders.entrySet()) {
+            encoder.putString(header.getKey(), header.getValue());
+        }
+
+        ArrayList<VerbInfoDTO> list = (ArrayList<VerbInfoDTO>) messageContext.getProperty(APIConstants.VERB_INFO_DTO);
+        ConditionGroupDTO[] conditionGroups = null;
+        boolean isVerbInfoContentAware = false;
+        if (list != null && !list.isEmpty()) {
+            VerbInfoDTO verbInfoDTO = list.get(0);
+            isVerbInfoContentAware = verbInfoDTO.isContentAware();
+            conditionGroups = verbInfoDTO.getConditionGroups();
+        }
+        Set<String> keyTemplateProperties = getThrottleDataHolder().getKeyTemplateProperties();
+
+        if (getThrottleProperties().isEnableQueryParamConditions()
+                && isReferenced(PolicyConstants.QUERY_PARAMETER_TYPE, conditionGroups, keyTemplateProperties)) {
+            Map<String, String> queryParams = GatewayUtils.getQueryParams(axis2MessageContext);
+            if (queryParams != null) {
+                for (Map.Entry<String, String> queryParam : queryParams.entrySet()) {
+                    if (isReferenced(queryParam.getKey(), PolicyConstants.QUERY_PARAMETER_TYPE, conditionGroups,
+                            keyTemplateProperties)) {
+                        encoder.putString(queryParam.getKey(), queryParam.getValue());
+                    }
+                }
+            }
+        }
+
+        if (getThrottleProperties().isEnableJwtConditions() && authenticationContext.getCallerToken() != null
+                && isReferenced(PolicyConstants.JWT_CLAIMS_TYPE, conditionGroups, keyTemplateProperties)) {
+            Map<Object, Object> assertions = GatewayUtils.getJWTClaims(authenticationContext);
+            if (assertions != null) {
+                for (Map.Entry<Object, Object> claim : assertions.entrySet()) {
+                    String claimName = String.valueOf(claim.getKey());
+                    if (isReferenced(claimName, PolicyConstants.JWT_CLAIMS_TYPE, conditionGroups,
+                            keyTemplateProperties)) {
+                        encoder.put(claimName, claim.getValue());
+                    }
+                }
+            }
+        }
+
+        if (authenticationContext.isContentAwareTierPresent() || isVerbInfoContentAware) {
+            encoder.putLong(APIThrottleConstants.MESSAGE_SIZE, messageSizeInBytes);
+            if (!StringUtils.isEmpty(authenticationContext.getApplicationName())) {
+                encoder.putString(APIThrottleConstants.APPLICATION_NAME, authenticationContext.getApplicationName());
+            }
+            if (!StringUtils.isEmpty(authenticationContext.getProductName()) && !StringUtils
+                    .isEmpty(authenticationContext.getProductProvider())) {
+                encoder.putString(APIThrottleConstants.SUBSCRIPTION_TYPE, APIConstants.API_PRODUCT_SUBSCRIPTION_TYPE);
+            } else {
+                encoder.putString(APIThrottleConstants.SUBSCRIPTION_TYPE, APIConstants.API_SUBSCRIPTION_TYPE);
+            }
+        }
+
+        Object[] objects = new Object[]{messageContext.getMessageID(),
+                                        this.applicationLevelThrottleKey, this.applicationLevelTier,
+                                        this.apiLevelThrottleKey, this.apiLevelTier,
+                                        this.subscriptionLevelThrottleKey, this.subscriptionLevelTier,
+                                        this.resourceLevelThrottleKey, this.resourceLevelTier,
+                                        this.authorizedUser, this.apiContext, this.apiVersion,
+                                        this.appTenant, this.apiTenant, this.appId, this.apiName, encoder.encode()};
+        org.wso2.carbon.databridge.commons.Event event = new org.wso2.carbon.databridge.commons.Event(streamID,
+                System.currentTimeMillis(), null, null, objects);
+        dataPublisher.tryPublish(event);
+    }
+
+    /**
+     * Copies the transport headers referenced by the matched resource's condition groups or by the key templates.
+     */
+    private void selectReferencedHeaders(Map<String, String> transportHeaderMap, ArrayList<VerbInfoDTO> list) {
+
+        selectedHeaders.clear();
+        if (list != null && !list.isEmpty() && list.get(0).getConditionGroups() != null) {
+            for (ConditionGroupDTO conditionGroup : list.get(0).getConditionGroups()) {
+                if (conditionGroup.getConditions() == null) {
+                    continue;
+                }
+                for (ConditionDTO condition : conditionGroup.getConditions()) {
+                    if (PolicyConstants.HEADER_TYPE.equals(condition.getConditionType())) {
+                        copyHeader(transportHeaderMap, condition.getConditionName());
+                    }
+                }
+            }
+        }
+        for (String property : getThrottleDataHolder().getKeyTemplateProperties()) {
+            copyHeader(transportHeaderMap, property);
+        }
+    }
+
+    private void copyHeader(Map<String, String> transportHeaderMap, String name) {
+
+        String value = transportHeaderMap.get(name);
+        if (value != null) {
+            selectedHeaders.put(name, value);
+        }
+    }
+
+    private static boolean isReferenced(String conditionType, ConditionGroupDTO[] conditionGroups,
+                                        Set<String> keyTemplateProperties) {
+
+        return !keyTemplateProperties.isEmpty() || isReferenced(null, conditionType, conditionGroups,
+                keyTemplateProperties);
+    }
+
+    /**
+     * Checks whether a condition of the given type (and name, if not null) is present in the condition groups or
+     * whether the name is referenced by a key template.
+     */
+    private static boolean isReferenced(String name, String conditionType, ConditionGroupDTO[] conditionGroups,
+                                        Set<String> keyTemplateProperties) {
+
+        if (name != null && keyTemplateProperties.contains(name)) {
+            return true;
+        }
+        if (conditionGroups == null) {
+            return false;
+        }
+        for (ConditionGroupDTO conditionGroup : conditionGroups) {
+            if (conditionGroup.getConditions() == null) {
+                continue;
+            }
+            for (ConditionDTO condition : conditionGroup.getConditions()) {
+                if (conditionType.equals(condition.getConditionType())
+                        && (name == null || name.equals(condition.getConditionName()))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    protected ThrottleDataHolder getThrottleDataHolder() {
+        return ServiceReferenceHolder.getInstance().getThrottleDataHolder();
+    }
+
     protected void buildMessage(org.apache.axis2.context.MessageContext axis2MessageContext) throws IOException,
             XMLStreamException {
         RelayUtils.buildMessage(axis2MessageContext);
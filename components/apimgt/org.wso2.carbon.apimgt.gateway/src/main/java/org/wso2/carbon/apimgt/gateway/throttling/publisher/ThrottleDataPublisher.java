@@ -22,9 +22,15 @@ package org.wso2.carbon.apimgt.gateway.throttling.publisher;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.synapse.MessageContext;
+import org.apache.synapse.core.axis2.Axis2MessageContext;
+import org.wso2.carbon.apimgt.api.dto.ConditionGroupDTO;
 import org.wso2.carbon.apimgt.gateway.handlers.security.AuthenticationContext;
+import org.wso2.carbon.apimgt.gateway.handlers.throttling.APIThrottleConstants;
 import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
+import org.wso2.carbon.apimgt.gateway.utils.GatewayUtils;
+import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.wso2.carbon.apimgt.impl.dto.ThrottleProperties;
+import org.wso2.carbon.apimgt.impl.dto.VerbInfoDTO;
 import org.wso2.carbon.databridge.agent.DataPublisher;
 import org.wso2.carbon.databridge.agent.exception.DataEndpointAgentConfigurationException;
 import org.wso2.carbon.databridge.agent.exception.DataEndpointAuthenticationException;
@@ -34,10 +40,13 @@ import org.wso2.carbon.databridge.commons.exception.TransportException;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Throttle data publisher class is here to publish throttle data to global policy engine.
@@ -49,6 +58,8 @@ public class ThrottleDataPublisher {
 
     public static final Log log = LogFactory.getLog(ThrottleDataPublisher.class);
 
+    private static final long REJECTED_LOG_INTERVAL = 10000;
+
     public static DataPublisher getDataPublisher() {
         return dataPublisher;
     }
@@ -57,6 +68,10 @@ public class ThrottleDataPublisher {
 
     Executor executor;
 
+    private ThrottleEventAggregator eventAggregator;
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+
     /**
      * This method will initialize throttle data publisher. Inside this we will start executor and initialize data
      * publisher which we used to publish throttle data.
@@ -77,12 +92,17 @@ public class ThrottleDataPublisher {
                             .getKeepAliveTime(),
                             TimeUnit
                                     .SECONDS,
-                            new LinkedBlockingDeque<Runnable>() {
-                            });
+                            new LinkedBlockingDeque<Runnable>(dataPublisherThreadPoolConfiguration.getMaxQueueSize()));
                     dataPublisher = new DataPublisher(dataPublisherConfiguration.getType(), dataPublisherConfiguration
                             .getReceiverUrlGroup(), dataPublisherConfiguration.getAuthUrlGroup(), dataPublisherConfiguration
                             .getUsername(),
                             dataPublisherConfiguration.getPassword());
+                    ThrottleProperties.EventBatching eventBatching = throttleProperties.getEventBatching();
+                    if (eventBatching != null && eventBatching.isEnabled()) {
+                        eventAggregator = new ThrottleEventAggregator(eventBatching.getMaxPendingKeys(),
+                                throttleProperties.isEnableCompactEventEncoding());
+                        eventAggregator.start(eventBatching.getWindowInMillis());
+                    }
 
                 } catch (DataEndpointAgentConfigurationException e) {
                     log.error("Error in initializing binary data-publisher to send requests to global throttling engine " +
@@ -118,6 +138,20 @@ public class ThrottleDataPublisher {
             String appId, MessageContext messageContext,
             AuthenticationContext authenticationContext) {
         try {
+            if (eventAggregator != null && isAggregatable(messageContext, authenticationContext)) {
+                if (eventAggregator.add(applicationLevelThrottleKey, applicationLevelTier, apiLevelThrottleKey,
+                        apiLevelTier, subscriptionLevelThrottleKey, subscriptionLevelTier, resourceLevelThrottleKey,
+                        resourceLevelTier, authorizedUser, apiContext, apiVersion, appTenant, apiTenant, appId,
+                        GatewayUtils.getAPINameFromContextAndVersion(apiContext, apiVersion, apiTenant),
+                        getContentLength(messageContext))) {
+                    return;
+                }
+                // The event aggregator is full, so the event of the request is published on its own
+                if (log.isDebugEnabled()) {
+                    log.debug("Throttle event of " + apiContext + " with ID: " + messageContext.getMessageID()
+                            + " is published without aggregation as the event aggregator is full");
+                }
+            }
             if (dataPublisherPool != null) {
                 DataProcessAndPublishingAgent agent = dataPublisherPool.get();
                 agent.setDataReference(applicationLevelThrottleKey, applicationLevelTier,
@@ -145,22 +179,112 @@ public class ThrottleDataPublisher {
         }
     }
 
+    /**
+     * A request can be aggregated with others when its throttle decision on the traffic manager depends only on its
+     * throttle keys and size, i.e. when no custom policy key templates are deployed, the matched resource has no
+     * conditional groups and, for content aware policies, the size is known from the Content-Length header.
+     */
+    private boolean isAggregatable(MessageContext messageContext, AuthenticationContext authenticationContext) {
+
+        if (ServiceReferenceHolder.getInstance().getThrottleDataHolder().isKeyTemplatesPresent()
+                || hasConditionalGroups(messageContext)) {
+            return false;
+        }
+        List<VerbInfoDTO> verbInfoDTOs = (List<VerbInfoDTO>) messageContext.getProperty(APIConstants.VERB_INFO_DTO);
+        boolean isVerbInfoContentAware = verbInfoDTOs != null && !verbInfoDTOs.isEmpty()
+                && verbInfoDTOs.get(0).isContentAware();
+        if (authenticationContext.isContentAwareTierPresent() || isVerbInfoContentAware) {
+            return getContentLength(messageContext) >= 0;
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether the policy of the resource matched by a request has conditional groups other than the default
+     * one. Their conditions are evaluated against the headers, query parameters, claims and IP in the properties of
+     * each throttle event, so the events of such requests cannot be aggregated.
+     *
+     * @param messageContext message context of the request, after the resource was matched
+     * @return true if the resource has conditional groups
+     */
+    public static boolean hasConditionalGroups(MessageContext messageContext) {
+
+        List<VerbInfoDTO> verbInfoDTOs = (List<VerbInfoDTO>) messageContext.getProperty(APIConstants.VERB_INFO_DTO);
+        if (verbInfoDTOs == null || verbInfoDTOs.isEmpty()) {
+            return false;
+        }
+        ConditionGroupDTO[] conditionGroups = verbInfoDTOs.get(0).getConditionGroups();
+        if (conditionGroups != null) {
+            for (ConditionGroupDTO conditionGroup : conditionGroups) {
+                if (!APIConstants.THROTTLE_POLICY_DEFAULT.equals(conditionGroup.getConditionGroupId())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the Content-Length of the request, or -1 if it is not available.
+     */
+    private long getContentLength(MessageContext messageContext) {
+
+        org.apache.axis2.context.MessageContext axis2MessageContext = ((Axis2MessageContext) messageContext)
+                .getAxis2MessageContext();
+        Map<String, String> transportHeaderMap = (Map<String, String>) axis2MessageContext
+                .getProperty(org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS);
+        if (transportHeaderMap != null) {
+            String contentLength = transportHeaderMap.get(APIThrottleConstants.CONTENT_LENGTH);
+            if (contentLength != null) {
+                try {
+                    return Long.parseLong(contentLength.trim());
+                } catch (NumberFormatException e) {
+                    log.debug("Invalid Content-Length header " + contentLength);
+                }
+            }
+        }
+        return -1;
+    }
+
+    public ThrottleEventAggregator getEventAggregator() {
+        return eventAggregator;
+    }
+
+    /**
+     * @return number of throttle events dropped because the queue of the publishing threads was full
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
     /**
      * This class will act as thread pool executor and after executing each thread it will return runnable
      * object back to pool. This implementation specifically used to minimize number of objectes created during
      * runtime. In this queuing strategy the submitted task will wait in the queue if the corePoolsize theads are
      * busy and the task will be allocated if any of the threads become idle.Thus ThreadPool will always have number
      * of threads running  as mentioned in the corePoolSize.
-     * LinkedBlockingQueue without the capacity can be used for this queuing strategy.If the corePoolsize of the
-     * threadpool is less and there are more number of time consuming task were submitted,there is more possibility
-     * that the task has to wait in the queue for more time before it is run by any of the ideal thread.
-     * So tuning core pool size is something we need to tune properly.
-     * Also no task will be rejected in Threadpool until the threadpool was shutdown.
+     * If the corePoolsize of the threadpool is less and there are more number of time consuming task were submitted,
+     * there is more possibility that the task has to wait in the queue for more time before it is run by any of the
+     * ideal thread. So tuning core pool size is something we need to tune properly.
+     * The queue is bounded by the MaxQueueSize of the thread pool configuration. Once it is full, threads are added up
+     * to the maximumPoolSize, and after that the events are dropped and counted instead of being queued without limit,
+     * as the data publisher drops them once its own buffer is full.
      */
     private class DataPublisherThreadPoolExecutor extends ThreadPoolExecutor {
         public DataPublisherThreadPoolExecutor(int corePoolSize, int maximumPoolSize, long keepAliveTime,
                                                TimeUnit unit, LinkedBlockingDeque<Runnable> workQueue) {
-            super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue);
+            super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, (runnable, executor) -> {
+                long rejected = rejectedCount.incrementAndGet();
+                if (rejected == 1 || rejected % REJECTED_LOG_INTERVAL == 0) {
+                    log.warn("Throttle data publishing queue is full, " + rejected + " throttle events were dropped "
+                            + "so far");
+                }
+                try {
+                    ThrottleDataPublisher.dataPublisherPool.release((DataProcessAndPublishingAgent) runnable);
+                } catch (Exception e) {
+                    log.error("Error while returning Throttle data publishing agent back to pool" + e.getMessage());
+                }
+            });
         }
 
         protected void afterExecute(java.lang.Runnable r, java.lang.Throwable t) {
@@ -0,0 +1,334 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.throttling.publisher;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.json.simple.JSONObject;
+import org.wso2.carbon.apimgt.gateway.handlers.throttling.APIThrottleConstants;
+import org.wso2.carbon.databridge.agent.DataPublisher;
+import org.wso2.carbon.databridge.commons.Event;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Aggregates non throttled requests per throttle key combination over a short window and publishes a single throttle
+ * event per combination carrying the number of requests ({@value #EVENT_COUNT}) and their total message size, instead
+ * of one event per request. The number of combinations pending publishing is bounded; requests of a new combination
+ * which do not fit are rejected and counted, so that the caller publishes them one event per request instead.
+ * <p>
+ * The traffic manager policies sum the {@value #EVENT_COUNT} property, counting events without it as one request.
+ */
+public class ThrottleEventAggregator {
+
+    private static final Log log = LogFactory.getLog(ThrottleEventAggregator.class);
+    private static final String STREAM_ID = "org.wso2.throttle.request.stream:1.0.0";
+    public static final String EVENT_COUNT = "eventCount";
+
+    private final ConcurrentHashMap<AggregationKey, Aggregate> pending = new ConcurrentHashMap<>();
+    private final int maxPendingKeys;
+    private final boolean compactEncoding;
+    private final ThrottlePropertiesEncoder encoder = new ThrottlePropertiesEncoder();
+    private final AtomicLong aggregatedCount = new AtomicLong();
+    private final AtomicLong publishedCount = new AtomicLong();
+    private final AtomicLong overflowCount = new AtomicLong();
+    private ScheduledExecutorService scheduler;
+
+    public ThrottleEventAggregator(int maxPendingKeys, boolean compactEncoding) {
+
+        this.maxPendingKeys = maxPendingKeys;
+        this.compactEncoding = compactEncoding;
+    }
+
+    /**
+     * Starts flushing the aggregated events every window.
+     *
+     * @param windowInMillis length of the aggregation window
+     */
+    public void start(long windowInMillis) {
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ThrottleEventAggregator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flush, windowInMillis, windowInMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        flush();
+    }
+
+    /**
+     * Adds a request to the aggregate of its throttle keys.
+     *
+     * @return false if the request was not aggregated because too many key combinations are pending, in which case
+     * the caller must publish its event itself
+     */
+    public boolean add(String applicationLevelThrottleKey, String applicationLevelTier,
+                       String apiLevelThrottleKey, String apiLevelTier,
+                       String subscriptionLevelThrottleKey, String subscriptionLevelTier,
+                       String resourceLevelThrottleKey, String resourceLevelTier,
+                       String authorizedUser, String apiContext, String apiVersion, String appTenant,
+                       String apiTenant, String appId, String apiName, long messageSize) {
+
+        return add(new AggregationKey(applicationLevelThrottleKey, applicationLevelTier, apiLevelThrottleKey,
+                apiLevelTier, subscriptionLevelThrottleKey, subscriptionLevelTier, resourceLevelThrottleKey,
+                resourceLevelTier, authorizedUser, apiContext, apiVersion, appTenant, apiTenant, appId, apiName),
+                messageSize);
+    }
+
+    /**
+     * Adds a request to the aggregate of a key built beforehand, for callers sending many requests with the same
+     * throttle keys.
+     *
+     * @return false if the request was not aggregated because too many key combinations are pending, in which case
+     * the caller must publish its event itself
+     */
+    public boolean add(AggregationKey key, long messageSize) {
+
+        return add(key, 1, messageSize);
+    }
+
+    /**
+     * Adds a number of requests sharing a message size, such as the events of a server sent events chunk, to the
+     * aggregate of a key.
+     *
+     * @return false if the requests were not aggregated because too many key combinations are pending, in which case
+     * the caller must publish their events itself
+     */
+    public boolean add(AggregationKey key, long count, long messageSize) {
+
+        while (true) {
+            Aggregate aggregate = pending.get(key);
+            if (aggregate == null) {
+                if (pending.size() >= maxPendingKeys) {
+                    overflowCount.addAndGet(count);
+                    return false;
+                }
+                Aggregate created = new Aggregate();
+                aggregate = pending.putIfAbsent(key, created);
+                if (aggregate == null) {
+                    aggregate = created;
+                }
+            }
+            if (aggregate.add(count, messageSize)) {
+                aggregatedCount.addAndGet(count);
+                return true;
+            }
+            // The aggregate was retired by the flusher while idle, remove it and retry with a new one.
+            pending.remove(key, aggregate);
+        }
+    }
+
+    /**
+     * Publishes one event per key combination which received requests since the last flush and retires the
+     * combinations which were idle for a whole window.
+     */
+    synchronized void flush() {
+
+        DataPublisher dataPublisher = getDataPublisher();
+        if (dataPublisher == null && !pending.isEmpty()) {
+            log.debug("Throttle data publisher is not initialized, aggregated throttle events will be discarded");
+        }
+        for (Map.Entry<AggregationKey, Aggregate> entry : pending.entrySet()) {
+            Aggregate aggregate = entry.getValue();
+            long count;
+            long messageSize;
+            // The count and the size are drained together, so that a concurrent request is published with both of
+            // them in the same event.
+            synchronized (aggregate) {
+                count = aggregate.count;
+                messageSize = aggregate.messageSize;
+                aggregate.count = 0;
+                aggregate.messageSize = 0;
+                aggregate.retired = count == 0;
+            }
+            if (count == 0) {
+                pending.remove(entry.getKey(), aggregate);
+                continue;
+            }
+            if (dataPublisher != null) {
+                dataPublisher.tryPublish(toEvent(entry.getKey(), count, messageSize));
+                publishedCount.incrementAndGet();
+            }
+        }
+    }
+
+    private Event toEvent(AggregationKey key, long count, long messageSize) {
+
+        String properties;
+        if (compactEncoding) {
+            encoder.reset();
+            for (Map.Entry<String, Object> property : key.properties.entrySet()) {
+                encoder.put(property.getKey(), property.getValue());
+            }
+            properties = encoder.putLong(EVENT_COUNT, count)
+                    .putLong(APIThrottleConstants.MESSAGE_SIZE, messageSize).encode();
+        } else {
+            JSONObject jsonObMap = new JSONObject();
+            jsonObMap.putAll(key.properties);
+            jsonObMap.put(EVENT_COUNT, count);
+            jsonObMap.put(APIThrottleConstants.MESSAGE_SIZE, messageSize);
+            properties = jsonObMap.toString();
+        }
+        String[] attributes = key.attributes;
+        Object[] objects = new Object[attributes.length + 2];
+        objects[0] = UUID.randomUUID().toString();
+        System.arraycopy(attributes, 0, objects, 1, attributes.length);
+        objects[objects.length - 1] = properties;
+        return new Event(STREAM_ID, System.currentTimeMillis(), null, null, objects);
+    }
+
+    protected DataPublisher getDataPublisher() {
+
+        return ThrottleDataPublisher.getDataPublisher();
+    }
+
+    public int getPendingKeyCount() {
+
+        return pending.size();
+    }
+
+    /**
+     * @return number of requests added to an aggregate
+     */
+    public long getAggregatedCount() {
+
+        return aggregatedCount.get();
+    }
+
+    /**
+     * @return number of aggregated events published
+     */
+    public long getPublishedCount() {
+
+        return publishedCount.get();
+    }
+
+    /**
+     * @return number of requests not aggregated because the pending key limit was reached
+     */
+    public long getOverflowCount() {
+
+        return overflowCount.get();
+    }
+
+    /**
+     * Counters of a single key combination, guarded by the aggregate itself. An aggregate retired by the flusher after
+     * a whole idle window must not be updated any more.
+     */
+    private static class Aggregate {
+
+        private long count;
+        private long messageSize;
+        private boolean retired;
+
+        synchronized boolean add(long requests, long size) {
+
+            if (retired) {
+                return false;
+            }
+            count += requests;
+            if (size > 0) {
+                messageSize += size;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * The throttle stream attributes shared by all requests of an aggregate, with the hash code computed once. A key
+     * may also carry event properties shared by the requests, such as the client IP, which are published with the
+     * aggregated event so that the conditional policies evaluate it as they would evaluate each request.
+     */
+    public static class AggregationKey {
+
+        private final String[] attributes;
+        private final Map<String, Object> properties;
+        private final int hash;
+
+        public AggregationKey(String applicationLevelThrottleKey, String applicationLevelTier,
+                              String apiLevelThrottleKey, String apiLevelTier,
+                              String subscriptionLevelThrottleKey, String subscriptionLevelTier,
+                              String resourceLevelThrottleKey, String resourceLevelTier,
+                              String authorizedUser, String apiContext, String apiVersion, String appTenant,
+                              String apiTenant, String appId, String apiName) {
+
+            this(new String[]{applicationLevelThrottleKey, applicationLevelTier, apiLevelThrottleKey, apiLevelTier,
+                    subscriptionLevelThrottleKey, subscriptionLevelTier, resourceLevelThrottleKey, resourceLevelTier,
+                    authorizedUser, apiContext, apiVersion, appTenant, apiTenant, appId, apiName},
+                    Collections.emptyMap());
+        }
+
+        private AggregationKey(String[] attributes, Map<String, Object> properties) {
+
+            this.attributes = attributes;
+            this.properties = properties;
+            this.hash = 31 * Arrays.hashCode(attributes) + properties.hashCode();
+        }
+
+        /**
+         * Returns a key of the same throttle stream attributes which also carries an event property.
+         *
+         * @param name  name of the property
+         * @param value value of the property
+         * @return the new key
+         */
+        public AggregationKey withProperty(String name, Object value) {
+
+            Map<String, Object> newProperties = new LinkedHashMap<>(properties);
+            newProperties.put(name, value);
+            return new AggregationKey(attributes, Collections.unmodifiableMap(newProperties));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof AggregationKey)) {
+                return false;
+            }
+            AggregationKey that = (AggregationKey) o;
+            return hash == that.hash && Arrays.equals(attributes, that.attributes)
+                    && properties.equals(that.properties);
+        }
+
+        @Override
+        public int hashCode() {
+
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.throttling.publisher;
+
+/**
+ * Writes the properties attribute of a throttle event in the compact encoding understood by the
+ * {@code throttler:decodeProperties} Siddhi function, as an alternative to serializing a JSON object per request.
+ * <p>
+ * The encoded value starts with {@link #MARKER} and is followed by entries of the form
+ * {@code name US type value RS}, where {@code type} is {@link #STRING_TYPE} or {@link #LONG_TYPE}. Occurrences of the
+ * separator characters inside names or values are prefixed with {@link #ESCAPE}.
+ * <p>
+ * An encoder owns a single buffer which is reused across events, so an instance must not be shared between threads.
+ */
+public class ThrottlePropertiesEncoder {
+
+    public static final char MARKER = '\u0001';
+    public static final char ESCAPE = '\u001B';
+    public static final char ENTRY_SEPARATOR = '\u001E';
+    public static final char VALUE_SEPARATOR = '\u001F';
+    public static final char STRING_TYPE = 's';
+    public static final char LONG_TYPE = 'l';
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int MAX_RETAINED_CAPACITY = 8192;
+
+    private StringBuilder buffer = new StringBuilder(INITIAL_CAPACITY);
+
+    /**
+     * Starts a new event, discarding what was written for the previous one.
+     *
+     * @return this encoder
+     */
+    public ThrottlePropertiesEncoder reset() {
+
+        if (buffer.capacity() > MAX_RETAINED_CAPACITY) {
+            buffer = new StringBuilder(INITIAL_CAPACITY);
+        } else {
+            buffer.setLength(0);
+        }
+        buffer.append(MARKER);
+        return this;
+    }
+
+    public ThrottlePropertiesEncoder putLong(String name, long value) {
+
+        appendEscaped(name);
+        buffer.append(VALUE_SEPARATOR).append(LONG_TYPE).append(value).append(ENTRY_SEPARATOR);
+        return this;
+    }
+
+    public ThrottlePropertiesEncoder putString(String name, String value) {
+
+        if (value == null) {
+            return this;
+        }
+        appendEscaped(name);
+        buffer.append(VALUE_SEPARATOR).append(STRING_TYPE);
+        appendEscaped(value);
+        buffer.append(ENTRY_SEPARATOR);
+        return this;
+    }
+
+    /**
+     * Writes a value of unknown type, such as a JWT claim, preserving integral numbers as longs.
+     */
+    public ThrottlePropertiesEncoder put(String name, Object value) {
+
+        if (value instanceof Long || value instanceof Integer || value instanceof Short) {
+            return putLong(name, ((Number) value).longValue());
+        }
+        return value == null ? this : putString(name, value.toString());
+    }
+
+    public String encode() {
+
+        return buffer.toString();
+    }
+
+    private void appendEscaped(String value) {
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ENTRY_SEPARATOR || c == VALUE_SEPARATOR || c == ESCAPE) {
+                buffer.append(ESCAPE);
+            }
+            buffer.append(c);
+        }
+    }
+}
@@ -129,6 +129,20 @@ public class WebhooksUtl {
             throws URISyntaxException {
         String tenantDomain = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantDomain(true);
         String apiKey = WebhooksUtl.generateAPIKey(messageContext, tenantDomain);
+        String topicName = getTopicName(messageContext);
+        String subscriptionKey = apiKey + "_" + topicName;
+        messageContext.setProperty(APIConstants.Webhooks.SUBSCRIBER_TOPIC_PROPERTY, topicName);
+        return ServiceReferenceHolder.getInstance().getSubscriptionsDataService()
+                .getSubscriptionsList(subscriptionKey, tenantDomain);
+    }
+
+    /**
+     * This method is used to get the topic name of an event from the query parameters of the request.
+     *
+     * @param messageContext    the message context.
+     * @return the topic name, or null if the request has no topic.
+     */
+    public static String getTopicName(MessageContext messageContext) throws URISyntaxException {
         String urlQueryParams = (String) ((Axis2MessageContext) messageContext).getAxis2MessageContext().
                 getProperty(APIConstants.TRANSPORT_URL_IN);
         List<NameValuePair> queryParameter = URLEncodedUtils.parse(new URI(urlQueryParams),
@@ -139,9 +153,6 @@ public class WebhooksUtl {
                 topicName = nvPair.getValue();
             }
         }
-        String subscriptionKey = apiKey + "_" + topicName;
-        messageContext.setProperty(APIConstants.Webhooks.SUBSCRIBER_TOPIC_PROPERTY, topicName);
-        return ServiceReferenceHolder.getInstance().getSubscriptionsDataService()
-                .getSubscriptionsList(subscriptionKey, tenantDomain);
+        return topicName;
     }
 }
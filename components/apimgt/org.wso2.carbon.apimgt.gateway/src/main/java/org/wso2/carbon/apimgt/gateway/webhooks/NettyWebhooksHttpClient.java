@@ -0,0 +1,324 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.apimgt.gateway.webhooks;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.pool.AbstractChannelPoolHandler;
+import io.netty.channel.pool.AbstractChannelPoolMap;
+import io.netty.channel.pool.ChannelPool;
+import io.netty.channel.pool.FixedChannelPool;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLParameters;
+
+/**
+ * {@link WebhooksHttpClient} on Netty. Connections are kept alive in a fixed size pool per scheme, host and port, and
+ * requests wait for a connection of the pool without holding a thread. HTTPS connections verify the host name and use
+ * the default trust store of the JVM, which is the client trust store of the server.
+ */
+public class NettyWebhooksHttpClient implements WebhooksHttpClient {
+
+    private static final int DEFAULT_IO_THREADS = 4;
+    private static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 20;
+    private static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 10000;
+    private static final long DEFAULT_RESPONSE_TIMEOUT_MILLIS = 30000;
+
+    private final EventLoopGroup eventLoopGroup;
+    private final SslContext sslContext;
+    private final AbstractChannelPoolMap<Origin, FixedChannelPool> pools;
+    private final long responseTimeoutMillis;
+
+    public NettyWebhooksHttpClient() throws SSLException {
+
+        this(DEFAULT_IO_THREADS, DEFAULT_MAX_CONNECTIONS_PER_HOST, DEFAULT_CONNECT_TIMEOUT_MILLIS,
+                DEFAULT_RESPONSE_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param ioThreads             number of event loop threads
+     * @param maxConnectionsPerHost maximum number of connections to a scheme, host and port
+     * @param connectTimeoutMillis  connection timeout
+     * @param responseTimeoutMillis time allowed for the whole response after the request is sent
+     * @throws SSLException if the SSL context cannot be created
+     */
+    public NettyWebhooksHttpClient(int ioThreads, int maxConnectionsPerHost, int connectTimeoutMillis,
+                                   long responseTimeoutMillis) throws SSLException {
+
+        this.eventLoopGroup = new NioEventLoopGroup(ioThreads, new DefaultThreadFactory("WebhooksHttpClient", true));
+        this.sslContext = SslContextBuilder.forClient().build();
+        this.responseTimeoutMillis = responseTimeoutMillis;
+        Bootstrap bootstrap = new Bootstrap().group(eventLoopGroup).channel(NioSocketChannel.class)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMillis)
+                .option(ChannelOption.TCP_NODELAY, true);
+        this.pools = new AbstractChannelPoolMap<Origin, FixedChannelPool>() {
+            @Override
+            protected FixedChannelPool newPool(Origin origin) {
+
+                return new FixedChannelPool(bootstrap.clone().remoteAddress(origin.host, origin.port),
+                        new PoolHandler(origin), maxConnectionsPerHost);
+            }
+        };
+    }
+
+    @Override
+    public void post(URI uri, byte[] body, Map<String, String> headers, ResponseCallback callback) {
+
+        Origin origin = Origin.of(uri);
+        String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+        if (uri.getRawQuery() != null) {
+            path = path + '?' + uri.getRawQuery();
+        }
+        String target = path;
+        FixedChannelPool pool = pools.get(origin);
+        pool.acquire().addListener((FutureListener<Channel>) future -> {
+            if (!future.isSuccess()) {
+                callback.onFailure(future.cause());
+                return;
+            }
+            Channel channel = future.getNow();
+            // The handler state is only touched on the event loop of the channel
+            if (channel.eventLoop().inEventLoop()) {
+                send(pool, channel, origin, target, body, headers, callback);
+            } else {
+                channel.eventLoop().execute(() -> send(pool, channel, origin, target, body, headers, callback));
+            }
+        });
+    }
+
+    private void send(ChannelPool pool, Channel channel, Origin origin, String target, byte[] body,
+                      Map<String, String> headers, ResponseCallback callback) {
+
+        ResponseHandler handler = channel.pipeline().get(ResponseHandler.class);
+        if (handler == null) {
+            pool.release(channel);
+            callback.onFailure(new IOException("Connection to " + origin.hostHeader + " is not usable"));
+            return;
+        }
+        FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, target,
+                Unpooled.wrappedBuffer(body));
+        HttpHeaders requestHeaders = request.headers();
+        requestHeaders.set(HttpHeaderNames.HOST, origin.hostHeader);
+        requestHeaders.set(HttpHeaderNames.CONTENT_LENGTH, body.length);
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            requestHeaders.set(header.getKey(), header.getValue());
+        }
+        handler.start(pool, channel, callback, responseTimeoutMillis);
+        channel.writeAndFlush(request).addListener((ChannelFutureListener) writeFuture -> {
+            if (!writeFuture.isSuccess()) {
+                handler.fail(channel, writeFuture.cause());
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+
+        pools.close();
+        eventLoopGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS);
+    }
+
+    private final class PoolHandler extends AbstractChannelPoolHandler {
+
+        private final Origin origin;
+
+        private PoolHandler(Origin origin) {
+
+            this.origin = origin;
+        }
+
+        @Override
+        public void channelCreated(Channel channel) {
+
+            ChannelPipeline pipeline = channel.pipeline();
+            if (origin.secure) {
+                SSLEngine engine = sslContext.newEngine(channel.alloc(), origin.host, origin.port);
+                SSLParameters parameters = engine.getSSLParameters();
+                parameters.setEndpointIdentificationAlgorithm("HTTPS");
+                engine.setSSLParameters(parameters);
+                pipeline.addLast(new SslHandler(engine));
+            }
+            pipeline.addLast(new HttpClientCodec());
+            pipeline.addLast(new ResponseHandler());
+        }
+    }
+
+    /**
+     * Completes the request in flight on a pooled connection and returns the connection to its pool.
+     */
+    private static final class ResponseHandler extends SimpleChannelInboundHandler<HttpObject> {
+
+        private ChannelPool pool;
+        private ResponseCallback callback;
+        private ScheduledFuture<?> timeout;
+        private int statusCode;
+        private boolean keepAlive;
+
+        private void start(ChannelPool pool, Channel channel, ResponseCallback callback, long timeoutMillis) {
+
+            this.pool = pool;
+            this.callback = callback;
+            this.statusCode = 0;
+            this.keepAlive = true;
+            this.timeout = channel.eventLoop().schedule(() -> fail(channel,
+                    new IOException("No response within " + timeoutMillis + " ms")), timeoutMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, HttpObject msg) {
+
+            if (msg instanceof HttpResponse) {
+                HttpResponse response = (HttpResponse) msg;
+                statusCode = response.status().code();
+                keepAlive = HttpUtil.isKeepAlive(response);
+            }
+            if (msg instanceof LastHttpContent && callback != null) {
+                ResponseCallback completed = finish(ctx.channel(), !keepAlive);
+                completed.onResponse(statusCode);
+            }
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+
+            fail(ctx.channel(), new IOException("Connection closed before the response was received"));
+            super.channelInactive(ctx);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+
+            if (callback != null) {
+                fail(ctx.channel(), cause);
+            } else {
+                ctx.close();
+            }
+        }
+
+        private void fail(Channel channel, Throwable cause) {
+
+            if (callback != null) {
+                finish(channel, true).onFailure(cause);
+            }
+        }
+
+        private ResponseCallback finish(Channel channel, boolean close) {
+
+            ResponseCallback completed = callback;
+            ChannelPool channelPool = pool;
+            callback = null;
+            pool = null;
+            if (timeout != null) {
+                timeout.cancel(false);
+                timeout = null;
+            }
+            if (close) {
+                channel.close();
+            }
+            channelPool.release(channel);
+            return completed;
+        }
+    }
+
+    /**
+     * Scheme, host and port of the callback urls sharing a connection pool.
+     */
+    private static final class Origin {
+
+        private final boolean secure;
+        private final String host;
+        private final int port;
+        private final String hostHeader;
+
+        private Origin(boolean secure, String host, int port, String hostHeader) {
+
+            this.secure = secure;
+            this.host = host;
+            this.port = port;
+            this.hostHeader = hostHeader;
+        }
+
+        private static Origin of(URI uri) {
+
+            String scheme = uri.getScheme();
+            boolean secure = "https".equalsIgnoreCase(scheme);
+            if (!secure && !"http".equalsIgnoreCase(scheme) || uri.getHost() == null) {
+                throw new IllegalArgumentException("Unsupported callback url " + uri);
+            }
+            String host = uri.getHost();
+            int port = uri.getPort() != -1 ? uri.getPort() : (secure ? 443 : 80);
+            String hostHeader = uri.getPort() != -1 ? host + ':' + port : host;
+            if (host.startsWith("[") && host.endsWith("]")) {
+                host = host.substring(1, host.length() - 1);
+            }
+            return new Origin(secure, host, port, hostHeader);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Origin)) {
+                return false;
+            }
+            Origin origin = (Origin) o;
+            return secure == origin.secure && port == origin.port && host.equals(origin.host);
+        }
+
+        @Override
+        public int hashCode() {
+
+            return Objects.hash(secure, host, port);
+        }
+    }
+}
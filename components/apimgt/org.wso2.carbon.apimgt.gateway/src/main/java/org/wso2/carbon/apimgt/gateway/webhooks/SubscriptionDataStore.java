@@ -37,6 +37,7 @@ import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -52,7 +53,7 @@ public class SubscriptionDataStore {
     private String tenantDomain = MultitenantConstants.SUPER_TENANT_DOMAIN_NAME;
     public static final int retrievalRetries = 15;
     private static final Log log = LogFactory.getLog(SubscriptionDataStore.class);
-    private Map<String, Map<String, WebhooksDTO>> subscribersMap;
+    private Map<String, TopicSubscribers> subscribersMap;
     ExecutorService executor = Executors.newSingleThreadExecutor();
 
     public SubscriptionDataStore(String tenantDomain) {
@@ -72,9 +73,16 @@ public class SubscriptionDataStore {
         this.subscribersMap = new ConcurrentHashMap<>();
         executor.submit(() -> {
             List<WebhooksDTO> subscriptions = loadSubscriptions();
+            Map<String, List<WebhooksDTO>> subscriptionsOfTopics = new HashMap<>();
             for (WebhooksDTO subscriber: subscriptions) {
                 String subscriptionKey = subscriber.getApiKey() + "_" + subscriber.getTopicName();
-                addSubscriber(subscriptionKey, subscriber);
+                subscriptionsOfTopics.computeIfAbsent(subscriptionKey, key -> new ArrayList<>()).add(subscriber);
+            }
+            // Subscriptions received while loading are newer than the loaded ones
+            for (Map.Entry<String, List<WebhooksDTO>> entry : subscriptionsOfTopics.entrySet()) {
+                TopicSubscribers loaded = TopicSubscribers.of(entry.getValue());
+                subscribersMap.merge(entry.getKey(), loaded,
+                        (current, loadedSubscribers) -> loadedSubscribers.with(current.getSubscribers()));
             }
         });
     }
@@ -86,15 +94,9 @@ public class SubscriptionDataStore {
      * @param subscriber        the subscriber.
      */
     public void addSubscriber(String key, WebhooksDTO subscriber) {
-        Map<String, WebhooksDTO> subscribersOfAPIMap = subscribersMap.get(key);
-        if (subscribersOfAPIMap != null) {
-            subscribersOfAPIMap.put(subscriber.getCallbackURL(), subscriber);
-            subscribersMap.replace(key, subscribersOfAPIMap);
-        } else {
-            subscribersOfAPIMap = new HashMap<>();
-            subscribersOfAPIMap.put(subscriber.getCallbackURL(), subscriber);
-            subscribersMap.put(key, subscribersOfAPIMap);
-        }
+        List<WebhooksDTO> added = Collections.singletonList(subscriber);
+        subscribersMap.compute(key, (subscriptionKey, subscribers) ->
+                subscribers == null ? TopicSubscribers.of(added) : subscribers.with(added));
     }
 
     /**
@@ -104,11 +106,8 @@ public class SubscriptionDataStore {
      * @param subscriber        the subscriber.
      */
     public void removeSubscriber(String key, WebhooksDTO subscriber) {
-        List<WebhooksDTO> subscriberList = getSubscribers(key);
-        if (subscriberList != null) {
-            subscriberList.removeIf(existingSubscriber -> existingSubscriber.getCallbackURL().equals(
-                    subscriber.getCallbackURL()));
-        }
+        subscribersMap.computeIfPresent(key, (subscriptionKey, subscribers) ->
+                subscribers.without(subscriber.getCallbackURL()));
     }
 
     /**
@@ -174,17 +173,30 @@ public class SubscriptionDataStore {
      * This method is used to get subscribers lists of a given API key.
      *
      * @param api the api key
-     * @return the subscription list.
+     * @return the unmodifiable subscription list.
      */
     public List<WebhooksDTO> getSubscribers(String api) {
-        Map<String, WebhooksDTO> subscribers = subscribersMap.get(api);
+        TopicSubscribers subscribers = getTopicSubscribers(api);
         if (subscribers != null) {
-            List<WebhooksDTO> subscriberList = new ArrayList<WebhooksDTO>(subscribersMap.get(api).values());
-            long now = Instant.now().toEpochMilli();
-            subscriberList.removeIf(existingSubscriber -> existingSubscriber.getExpiryTime() != 0 &&
-                    existingSubscriber.getExpiryTime() < now);
-            return subscriberList;
+            return subscribers.getActiveSubscribers(Instant.now().toEpochMilli());
         }
         return null;
     }
+
+    /**
+     * This method is used to get the current snapshot of the subscribers of a given subscription key. Expired
+     * subscriptions are removed from the store when they are found.
+     *
+     * @param key the subscription key (api key + topic name).
+     * @return the snapshot, or null if the topic has no subscribers.
+     */
+    public TopicSubscribers getTopicSubscribers(String key) {
+        TopicSubscribers subscribers = subscribersMap.get(key);
+        long now = Instant.now().toEpochMilli();
+        if (subscribers != null && subscribers.hasExpired(now)) {
+            subscribers = subscribersMap.computeIfPresent(key, (subscriptionKey, current) ->
+                    current.withoutExpired(now));
+        }
+        return subscribers;
+    }
 }
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.apimgt.gateway.webhooks;
+
+import org.wso2.carbon.apimgt.impl.dto.WebhooksDTO;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the subscribers of a topic. Subscriptions and unsubscriptions replace the snapshot of the
+ * topic, so events are delivered to a consistent list of subscribers without copying or locking it.
+ */
+public final class TopicSubscribers {
+
+    private final Map<String, WebhooksDTO> subscribersByCallback;
+    private final List<WebhooksDTO> subscribers;
+    private final long nextExpiryTime;
+
+    private TopicSubscribers(Map<String, WebhooksDTO> subscribersByCallback) {
+
+        this.subscribersByCallback = subscribersByCallback;
+        this.subscribers = Collections.unmodifiableList(new ArrayList<>(subscribersByCallback.values()));
+        long nextExpiry = Long.MAX_VALUE;
+        for (WebhooksDTO subscriber : subscribers) {
+            if (subscriber.getExpiryTime() != 0 && subscriber.getExpiryTime() < nextExpiry) {
+                nextExpiry = subscriber.getExpiryTime();
+            }
+        }
+        this.nextExpiryTime = nextExpiry;
+    }
+
+    /**
+     * Creates a snapshot. A later subscriber replaces an earlier one with the same callback url.
+     *
+     * @param subscribers subscribers of the topic
+     * @return the snapshot
+     */
+    public static TopicSubscribers of(Collection<WebhooksDTO> subscribers) {
+
+        return new TopicSubscribers(Collections.<String, WebhooksDTO>emptyMap()).with(subscribers);
+    }
+
+    /**
+     * Returns a snapshot with the given subscribers added, replacing the subscribers with the same callback urls.
+     *
+     * @param added subscribers to add
+     * @return the new snapshot
+     */
+    public TopicSubscribers with(Collection<WebhooksDTO> added) {
+
+        Map<String, WebhooksDTO> copy = new LinkedHashMap<>(subscribersByCallback);
+        for (WebhooksDTO subscriber : added) {
+            copy.put(subscriber.getCallbackURL(), subscriber);
+        }
+        return new TopicSubscribers(copy);
+    }
+
+    /**
+     * Returns a snapshot without the subscriber of a callback url.
+     *
+     * @param callbackURL callback url of the subscriber
+     * @return the new snapshot, or null if no subscriber is left
+     */
+    public TopicSubscribers without(String callbackURL) {
+
+        if (!subscribersByCallback.containsKey(callbackURL)) {
+            return this;
+        }
+        Map<String, WebhooksDTO> copy = new LinkedHashMap<>(subscribersByCallback);
+        copy.remove(callbackURL);
+        return copy.isEmpty() ? null : new TopicSubscribers(copy);
+    }
+
+    /**
+     * Returns a snapshot without the subscriptions expired at the given time.
+     *
+     * @param now time in millis
+     * @return the new snapshot, or null if no subscriber is left
+     */
+    public TopicSubscribers withoutExpired(long now) {
+
+        if (!hasExpired(now)) {
+            return this;
+        }
+        Map<String, WebhooksDTO> copy = new LinkedHashMap<>(subscribersByCallback);
+        copy.values().removeIf(subscriber -> isExpired(subscriber, now));
+        return copy.isEmpty() ? null : new TopicSubscribers(copy);
+    }
+
+    /**
+     * @param now time in millis
+     * @return true if a subscription of the snapshot expired at the given time
+     */
+    public boolean hasExpired(long now) {
+
+        return nextExpiryTime < now;
+    }
+
+    /**
+     * Returns the subscribers whose subscription did not expire at the given time. The shared, unmodifiable list of
+     * the snapshot is returned when no subscription has expired.
+     *
+     * @param now time in millis
+     * @return the active subscribers
+     */
+    public List<WebhooksDTO> getActiveSubscribers(long now) {
+
+        if (!hasExpired(now)) {
+            return subscribers;
+        }
+        List<WebhooksDTO> activeSubscribers = new ArrayList<>(subscribers.size());
+        for (WebhooksDTO subscriber : subscribers) {
+            if (!isExpired(subscriber, now)) {
+                activeSubscribers.add(subscriber);
+            }
+        }
+        return Collections.unmodifiableList(activeSubscribers);
+    }
+
+    /**
+     * @return all the subscribers of the snapshot, including the expired ones
+     */
+    public List<WebhooksDTO> getSubscribers() {
+
+        return subscribers;
+    }
+
+    public int size() {
+
+        return subscribers.size();
+    }
+
+    private static boolean isExpired(WebhooksDTO subscriber, long now) {
+
+        return subscriber.getExpiryTime() != 0 && subscriber.getExpiryTime() < now;
+    }
+}
@@ -17,8 +17,15 @@
  */
 package org.wso2.carbon.apimgt.gateway.webhooks;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
+import org.wso2.carbon.apimgt.impl.APIConstants;
+import org.wso2.carbon.apimgt.impl.APIManagerConfiguration;
+
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import javax.net.ssl.SSLException;
 
 /**
  * This class will hold webhooks per given node. All webhooks objects should refer values from this.
@@ -26,9 +33,12 @@ import java.util.concurrent.ConcurrentHashMap;
 
 public class WebhooksDataHolder {
 
+    private static final Log log = LogFactory.getLog(WebhooksDataHolder.class);
     protected Map<String, SubscriptionDataStore> subscriptionStore =
             new ConcurrentHashMap<>();
     private static WebhooksDataHolder instance = new WebhooksDataHolder();
+    private volatile WebhooksDispatcher dispatcher;
+    private volatile Boolean dispatcherEnabled;
 
     public static WebhooksDataHolder getInstance() {
 
@@ -54,4 +64,48 @@ public class WebhooksDataHolder {
         return subscriptionStore.get(tenantDomain);
     }
 
+    /**
+     * Returns whether the events of the WebSub APIs loading their subscribers with the SubscribersLoader are
+     * delivered through the dispatcher, as configured with WebhooksDispatcher.Enabled. It is disabled by default.
+     *
+     * @return true if the dispatcher is enabled.
+     */
+    public boolean isDispatcherEnabled() {
+
+        if (dispatcherEnabled == null) {
+            APIManagerConfiguration config = ServiceReferenceHolder.getInstance().getAPIManagerConfiguration();
+            dispatcherEnabled = config != null
+                    && Boolean.parseBoolean(config.getFirstProperty(APIConstants.WEBHOOKS_DISPATCHER_ENABLED));
+        }
+        return dispatcherEnabled;
+    }
+
+    /**
+     * Returns the dispatcher delivering the events of the WebSub APIs, which is created on first use.
+     *
+     * @return the dispatcher, or null if it could not be created.
+     */
+    public WebhooksDispatcher getDispatcher() {
+
+        if (dispatcher == null) {
+            synchronized (this) {
+                if (dispatcher == null) {
+                    try {
+                        dispatcher = new WebhooksDispatcher(new NettyWebhooksHttpClient());
+                    } catch (SSLException e) {
+                        log.error("Error while creating the HTTP client of the webhooks dispatcher", e);
+                    }
+                }
+            }
+        }
+        return dispatcher;
+    }
+
+    public synchronized void shutdownDispatcher() {
+
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+            dispatcher = null;
+        }
+    }
 }
@@ -0,0 +1,464 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.apimgt.gateway.webhooks;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.apimgt.gateway.mediators.webhooks.DeliveryStatusPublisher;
+import org.wso2.carbon.apimgt.impl.dto.WebhooksDTO;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Delivers the events received by WebSub APIs to the subscribers of their topics.
+ * <p>
+ * An event goes to the snapshot of the subscribers of the topic taken when it is dispatched. Its body is encoded once
+ * and shared by all the deliveries, and its HMAC signature is computed once per distinct secret, with the signing
+ * algorithm and signature header of the API. Each callback url has a bounded number of deliveries in flight; the
+ * others wait in a bounded queue of the callback url and are dropped when it is full, so a slow subscriber does not
+ * hold up the others. Deliveries failing with a connection error or a
+ * 408, 429 or 5xx response are retried after an exponential backoff with jitter. The outcome of each delivery is
+ * persisted through the {@link DeliveryStatusPublisher}.
+ */
+public class WebhooksDispatcher {
+
+    private static final Log log = LogFactory.getLog(WebhooksDispatcher.class);
+    private static final String CONTENT_TYPE_HEADER = "Content-Type";
+    private static final int DEFAULT_MAX_IN_FLIGHT_PER_SUBSCRIBER = 2;
+    private static final int DEFAULT_MAX_QUEUED_PER_SUBSCRIBER = 1000;
+    private static final int DEFAULT_MAX_RETRIES = 5;
+    private static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 1000;
+    private static final long DEFAULT_MAX_BACKOFF_MILLIS = 60000;
+    private static final int DEFAULT_MAX_PENDING_RETRIES = 100000;
+    private static final int MAX_BACKOFF_SHIFT = 20;
+
+    private final WebhooksHttpClient httpClient;
+    private final int maxInFlightPerSubscriber;
+    private final int maxQueuedPerSubscriber;
+    private final int maxRetries;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final int maxPendingRetries;
+    private final ScheduledExecutorService scheduler;
+    private final ConcurrentHashMap<String, CallbackQueue> callbackQueues = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingRetries = new AtomicInteger();
+    private final LongAdder deliveredCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder retriedCount = new LongAdder();
+
+    public WebhooksDispatcher(WebhooksHttpClient httpClient) {
+
+        this(httpClient, DEFAULT_MAX_IN_FLIGHT_PER_SUBSCRIBER, DEFAULT_MAX_QUEUED_PER_SUBSCRIBER, DEFAULT_MAX_RETRIES,
+                DEFAULT_INITIAL_BACKOFF_MILLIS, DEFAULT_MAX_BACKOFF_MILLIS, DEFAULT_MAX_PENDING_RETRIES);
+    }
+
+    /**
+     * @param httpClient               client used to send the events
+     * @param maxInFlightPerSubscriber maximum number of deliveries in flight to a callback url
+     * @param maxQueuedPerSubscriber   maximum number of deliveries waiting for a callback url
+     * @param maxRetries               maximum number of retries of a delivery
+     * @param initialBackoffMillis     delay before the first retry, doubled for each following retry
+     * @param maxBackoffMillis         maximum delay before a retry
+     * @param maxPendingRetries        maximum number of deliveries waiting to be retried
+     */
+    public WebhooksDispatcher(WebhooksHttpClient httpClient, int maxInFlightPerSubscriber,
+                              int maxQueuedPerSubscriber, int maxRetries, long initialBackoffMillis,
+                              long maxBackoffMillis, int maxPendingRetries) {
+
+        this.httpClient = httpClient;
+        this.maxInFlightPerSubscriber = maxInFlightPerSubscriber;
+        this.maxQueuedPerSubscriber = maxQueuedPerSubscriber;
+        this.maxRetries = maxRetries;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.maxPendingRetries = maxPendingRetries;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "WebhooksDispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Delivers an event to the active subscribers of a topic, signed with the default signing configuration, without
+     * waiting for the deliveries.
+     *
+     * @param apiKey       the api key to uniquely identify the API.
+     * @param tenantDomain the tenant domain.
+     * @param topicName    the topic name.
+     * @param subscribers  the subscribers of the topic.
+     * @param payload      the event.
+     * @param contentType  the content type of the event.
+     * @return the number of deliveries started or queued.
+     */
+    public int dispatch(String apiKey, String tenantDomain, String topicName, TopicSubscribers subscribers,
+                        String payload, String contentType) {
+
+        return dispatch(apiKey, tenantDomain, topicName, subscribers, payload, contentType,
+                WebhooksSignatureConfig.DEFAULT);
+    }
+
+    /**
+     * Delivers an event to the active subscribers of a topic, without waiting for the deliveries.
+     *
+     * @param apiKey          the api key to uniquely identify the API.
+     * @param tenantDomain    the tenant domain.
+     * @param topicName       the topic name.
+     * @param subscribers     the subscribers of the topic.
+     * @param payload         the event.
+     * @param contentType     the content type of the event.
+     * @param signatureConfig the signing configuration of the API.
+     * @return the number of deliveries started or queued.
+     */
+    public int dispatch(String apiKey, String tenantDomain, String topicName, TopicSubscribers subscribers,
+                        String payload, String contentType, WebhooksSignatureConfig signatureConfig) {
+
+        if (subscribers == null) {
+            return 0;
+        }
+        List<WebhooksDTO> activeSubscribers = subscribers.getActiveSubscribers(System.currentTimeMillis());
+        byte[] body = payload != null ? payload.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        Event event = new Event(apiKey, tenantDomain, topicName, body, contentType, signatureConfig);
+        int accepted = 0;
+        for (WebhooksDTO subscriber : activeSubscribers) {
+            if (subscriber.getCallbackURL() != null && enqueue(new Delivery(event, subscriber, 0))) {
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+
+    private boolean enqueue(Delivery delivery) {
+
+        String callback = delivery.subscriber.getCallbackURL();
+        while (true) {
+            CallbackQueue queue = callbackQueues.computeIfAbsent(callback, CallbackQueue::new);
+            int result = queue.offer(delivery);
+            if (result == CallbackQueue.ACCEPTED) {
+                return true;
+            }
+            if (result == CallbackQueue.FULL) {
+                droppedCount.increment();
+                if (log.isDebugEnabled()) {
+                    log.debug("Event of topic " + delivery.event.topicName + " was dropped for callback " + callback
+                            + " as too many deliveries are pending");
+                }
+                onDelivered(delivery.event, delivery.subscriber, false);
+                return false;
+            }
+            // The queue was retired after its last delivery, a new one is created
+        }
+    }
+
+    private void send(CallbackQueue queue, Delivery delivery) {
+
+        if (queue.uri == null) {
+            queue.sendNextLater();
+            fail(delivery, "invalid callback url");
+            return;
+        }
+        Map<String, String> headers = new HashMap<>(4);
+        if (delivery.event.contentType != null) {
+            headers.put(CONTENT_TYPE_HEADER, delivery.event.contentType);
+        }
+        String secret = delivery.subscriber.getSecret();
+        if (StringUtils.isNotEmpty(secret)) {
+            headers.put(delivery.event.signatureConfig.getHeader(), delivery.event.getSignature(secret));
+        }
+        // Set while the request is being sent, so that a callback run before it returns does not send the next
+        // delivery from within this one
+        AtomicBoolean posting = new AtomicBoolean(true);
+        try {
+            httpClient.post(queue.uri, delivery.event.body, headers, new WebhooksHttpClient.ResponseCallback() {
+
+                @Override
+                public void onResponse(int statusCode) {
+
+                    queue.sendNext(posting.get());
+                    if (statusCode >= 200 && statusCode < 300) {
+                        deliveredCount.increment();
+                        onDelivered(delivery.event, delivery.subscriber, true);
+                    } else if (statusCode == 408 || statusCode == 429 || statusCode >= 500) {
+                        retry(delivery, "status code " + statusCode);
+                    } else {
+                        fail(delivery, "status code " + statusCode);
+                    }
+                }
+
+                @Override
+                public void onFailure(Throwable cause) {
+
+                    queue.sendNext(posting.get());
+                    retry(delivery, String.valueOf(cause.getMessage()));
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("Error while sending event of topic " + delivery.event.topicName + " to "
+                    + queue.callback, e);
+            queue.sendNextLater();
+            fail(delivery, e.getMessage());
+        } finally {
+            posting.set(false);
+        }
+    }
+
+    private void retry(Delivery delivery, String reason) {
+
+        if (delivery.attempt >= maxRetries) {
+            fail(delivery, reason);
+            return;
+        }
+        if (pendingRetries.incrementAndGet() > maxPendingRetries) {
+            pendingRetries.decrementAndGet();
+            droppedCount.increment();
+            fail(delivery, reason + ", too many deliveries are waiting to be retried");
+            return;
+        }
+        long backoff = Math.min(maxBackoffMillis,
+                initialBackoffMillis << Math.min(delivery.attempt, MAX_BACKOFF_SHIFT));
+        long delay = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        if (log.isDebugEnabled()) {
+            log.debug("Delivery of event of topic " + delivery.event.topicName + " to "
+                    + delivery.subscriber.getCallbackURL() + " failed with " + reason + ". Retrying in " + delay
+                    + " ms");
+        }
+        try {
+            scheduler.schedule(() -> {
+                pendingRetries.decrementAndGet();
+                retriedCount.increment();
+                enqueue(new Delivery(delivery.event, delivery.subscriber, delivery.attempt + 1));
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            pendingRetries.decrementAndGet();
+            fail(delivery, reason);
+        }
+    }
+
+    private void fail(Delivery delivery, String reason) {
+
+        failedCount.increment();
+        log.warn("Failed to deliver event of topic " + delivery.event.topicName + " to "
+                + delivery.subscriber.getCallbackURL() + ": " + reason);
+        onDelivered(delivery.event, delivery.subscriber, false);
+    }
+
+    /**
+     * Records the outcome of a delivery.
+     *
+     * @param event      the delivered event
+     * @param subscriber the subscriber
+     * @param delivered  true if the subscriber accepted the event
+     */
+    protected void onDelivered(Event event, WebhooksDTO subscriber, boolean delivered) {
+
+        DeliveryStatusPublisher.getInstance().update(event.apiKey, subscriber.getAppID(), event.tenantDomain,
+                subscriber.getCallbackURL(), event.topicName, delivered ? 1 : 0);
+    }
+
+    /**
+     * Stops retrying deliveries and closes the connections.
+     */
+    public void shutdown() {
+
+        scheduler.shutdownNow();
+        httpClient.close();
+    }
+
+    public long getDeliveredCount() {
+
+        return deliveredCount.sum();
+    }
+
+    /**
+     * @return number of deliveries that failed after their retries, including the dropped ones
+     */
+    public long getFailedCount() {
+
+        return failedCount.sum();
+    }
+
+    /**
+     * @return number of deliveries dropped because too many deliveries were pending
+     */
+    public long getDroppedCount() {
+
+        return droppedCount.sum();
+    }
+
+    public long getRetriedCount() {
+
+        return retriedCount.sum();
+    }
+
+    /**
+     * An event dispatched to the subscribers of a topic.
+     */
+    protected static final class Event {
+
+        private final String apiKey;
+        private final String tenantDomain;
+        private final String topicName;
+        private final byte[] body;
+        private final String contentType;
+        private final WebhooksSignatureConfig signatureConfig;
+        private final Map<String, String> signatures = new ConcurrentHashMap<>();
+
+        private Event(String apiKey, String tenantDomain, String topicName, byte[] body, String contentType,
+                      WebhooksSignatureConfig signatureConfig) {
+
+            this.apiKey = apiKey;
+            this.tenantDomain = tenantDomain;
+            this.topicName = topicName;
+            this.body = body;
+            this.contentType = contentType;
+            this.signatureConfig = signatureConfig;
+        }
+
+        private String getSignature(String secret) {
+
+            return signatures.computeIfAbsent(secret, key -> signatureConfig.sign(body, key));
+        }
+
+        public String getTopicName() {
+
+            return topicName;
+        }
+    }
+
+    private static final class Delivery {
+
+        private final Event event;
+        private final WebhooksDTO subscriber;
+        private final int attempt;
+
+        private Delivery(Event event, WebhooksDTO subscriber, int attempt) {
+
+            this.event = event;
+            this.subscriber = subscriber;
+            this.attempt = attempt;
+        }
+    }
+
+    /**
+     * Deliveries of a callback url. The queue is retired and removed once it has no delivery in flight.
+     */
+    private final class CallbackQueue {
+
+        private static final int ACCEPTED = 0;
+        private static final int FULL = 1;
+        private static final int RETIRED = 2;
+
+        private final String callback;
+        private final URI uri;
+        private final ArrayDeque<Delivery> waiting = new ArrayDeque<>();
+        private int inFlight;
+        private boolean retired;
+
+        private CallbackQueue(String callback) {
+
+            this.callback = callback;
+            URI parsed;
+            try {
+                parsed = URI.create(callback);
+            } catch (IllegalArgumentException e) {
+                parsed = null;
+            }
+            this.uri = parsed;
+        }
+
+        private int offer(Delivery delivery) {
+
+            synchronized (this) {
+                if (retired) {
+                    return RETIRED;
+                }
+                if (inFlight >= maxInFlightPerSubscriber) {
+                    if (waiting.size() >= maxQueuedPerSubscriber) {
+                        return FULL;
+                    }
+                    waiting.add(delivery);
+                    return ACCEPTED;
+                }
+                inFlight++;
+            }
+            send(this, delivery);
+            return ACCEPTED;
+        }
+
+        /**
+         * Called when a delivery in flight completes, to send the next waiting delivery.
+         *
+         * @param later whether the delivery completed while it was being sent, in which case the next one is sent
+         *              from the scheduler
+         */
+        private void sendNext(boolean later) {
+
+            if (later) {
+                sendNextLater();
+            } else {
+                sendNext();
+            }
+        }
+
+        /**
+         * Sends the next waiting delivery from the scheduler. Used when a delivery fails while it is being sent, as
+         * sending the next one there would nest the sends of all the deliveries failing the same way.
+         */
+        private void sendNextLater() {
+
+            try {
+                scheduler.execute(this::sendNext);
+            } catch (RejectedExecutionException e) {
+                // The dispatcher is shut down, the waiting deliveries are not sent any more
+                log.debug("Webhooks dispatcher is shut down, the deliveries waiting for " + callback + " are dropped");
+            }
+        }
+
+        private void sendNext() {
+
+            Delivery next;
+            synchronized (this) {
+                next = waiting.poll();
+                if (next == null) {
+                    if (--inFlight == 0) {
+                        retired = true;
+                        callbackQueues.remove(callback, this);
+                    }
+                    return;
+                }
+            }
+            send(this, next);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.apimgt.gateway.webhooks;
+
+import java.net.URI;
+import java.util.Map;
+
+/**
+ * Non-blocking HTTP client used to deliver events to the callback urls of the subscribers.
+ */
+public interface WebhooksHttpClient {
+
+    /**
+     * Sends a POST request without waiting for the response.
+     *
+     * @param uri      callback url
+     * @param body     request body, which is not modified by the client
+     * @param headers  request headers
+     * @param callback notified once with the response or the failure
+     */
+    void post(URI uri, byte[] body, Map<String, String> headers, ResponseCallback callback);
+
+    /**
+     * Closes the connections of the client.
+     */
+    void close();
+
+    /**
+     * Receives the outcome of a request.
+     */
+    interface ResponseCallback {
+
+        void onResponse(int statusCode);
+
+        void onFailure(Throwable cause);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.webhooks;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.lang3.StringUtils;
+import org.wso2.carbon.apimgt.impl.APIConstants;
+
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * The signing configuration of the events delivered to the subscribers of a WebSub API, as given by the
+ * WebsubSubscriptionConfiguration of the API. The signing algorithm is accepted either as configured for the API, such
+ * as SHA-256, or in the form the API template gets it, such as sha-256=. The signature is sent in the signature header
+ * as the lower case algorithm followed by = and the hex encoded HMAC of the event.
+ */
+public final class WebhooksSignatureConfig {
+
+    public static final String DEFAULT_SIGNATURE_HEADER = "x-hub-signature";
+    /**
+     * The defaults of APIUtil.getDefaultWebsubSubscriptionConfiguration.
+     */
+    public static final WebhooksSignatureConfig DEFAULT = of(APIConstants.SHA_256, DEFAULT_SIGNATURE_HEADER);
+    private static final String HMAC = "Hmac";
+    private static final ThreadLocal<Map<String, Mac>> MACS = ThreadLocal.withInitial(HashMap::new);
+
+    private final String header;
+    private final String macAlgorithm;
+    private final String prefix;
+
+    private WebhooksSignatureConfig(String header, String macAlgorithm, String prefix) {
+
+        this.header = header;
+        this.macAlgorithm = macAlgorithm;
+        this.prefix = prefix;
+    }
+
+    /**
+     * @param signingAlgorithm the signing algorithm of the API, or null for the default
+     * @param signatureHeader  the signature header of the API, or null for the default
+     * @return the signing configuration
+     * @throws IllegalArgumentException if the signing algorithm is not supported
+     */
+    public static WebhooksSignatureConfig of(String signingAlgorithm, String signatureHeader) {
+
+        String algorithm = StringUtils.isNotBlank(signingAlgorithm) ? signingAlgorithm.trim() : APIConstants.SHA_256;
+        algorithm = StringUtils.removeEnd(algorithm, "=");
+        algorithm = StringUtils.removeStartIgnoreCase(algorithm, HMAC);
+        String macAlgorithm = HMAC + algorithm.replace("-", "").toUpperCase(Locale.ENGLISH);
+        try {
+            Mac.getInstance(macAlgorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalArgumentException("Unsupported signing algorithm " + signingAlgorithm, e);
+        }
+        String header = StringUtils.isNotBlank(signatureHeader) ? signatureHeader.trim() : DEFAULT_SIGNATURE_HEADER;
+        return new WebhooksSignatureConfig(header, macAlgorithm, algorithm.toLowerCase(Locale.ENGLISH) + "=");
+    }
+
+    public String getHeader() {
+
+        return header;
+    }
+
+    public String getMacAlgorithm() {
+
+        return macAlgorithm;
+    }
+
+    /**
+     * @param body   the event
+     * @param secret the secret of the subscriber
+     * @return the value of the signature header
+     */
+    String sign(byte[] body, String secret) {
+
+        Mac mac = MACS.get().computeIfAbsent(macAlgorithm, algorithm -> {
+            try {
+                return Mac.getInstance(algorithm);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(algorithm + " is not supported", e);
+            }
+        });
+        try {
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), macAlgorithm));
+        } catch (InvalidKeyException e) {
+            throw new IllegalArgumentException("Invalid subscriber secret", e);
+        }
+        return prefix + Hex.encodeHexString(mac.doFinal(body));
+    }
+}
@@ -42,7 +42,9 @@ import org.wso2.carbon.apimgt.gateway.handlers.security.APISecurityException;
 import org.wso2.carbon.apimgt.gateway.handlers.security.APISecurityUtils;
 import org.wso2.carbon.apimgt.gateway.handlers.streaming.websocket.WebSocketApiException;
 import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
+import org.wso2.carbon.apimgt.gateway.throttling.ThrottleDataHolder;
 import org.wso2.carbon.apimgt.gateway.throttling.publisher.ThrottleDataPublisher;
+import org.wso2.carbon.apimgt.gateway.throttling.publisher.ThrottleEventAggregator;
 import org.wso2.carbon.apimgt.gateway.utils.APIMgtGoogleAnalyticsUtils;
 import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.wso2.carbon.apimgt.impl.APIManagerAnalyticsConfiguration;
@@ -53,6 +55,7 @@ import org.wso2.carbon.apimgt.impl.utils.APIUtil;
 import org.wso2.carbon.apimgt.keymgt.service.APIKeyValidationService;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.databridge.agent.DataPublisher;
+import org.wso2.carbon.databridge.commons.Event;
 import org.wso2.carbon.registry.core.Resource;
 import org.wso2.carbon.registry.core.exceptions.RegistryException;
 import org.wso2.carbon.registry.core.service.RegistryService;
@@ -574,6 +577,36 @@ public class WebsocketInboundHandlerTestCase {
     }
 
 
+    /*
+    *  Test for doThrottle() when the event aggregator has no room for the key of the connection
+    *
+    * */
+    @Test
+    public void testDoThrottleWhenEventAggregatorIsFull() {
+        ChannelHandlerContext channelHandlerContext = Mockito.mock(ChannelHandlerContext.class);
+        WebSocketFrame webSocketFrame = Mockito.mock(WebSocketFrame.class);
+        ByteBuf content = Mockito.mock(ByteBuf.class);
+        Mockito.when(content.capacity()).thenReturn(10);
+        Mockito.when(webSocketFrame.content()).thenReturn(content);
+        WebsocketInboundHandler websocketInboundHandler = new WebsocketInboundHandler() {
+            @Override
+            protected String getRemoteIP(ChannelHandlerContext ctx) {
+                return "192.168.0.100";
+            }
+        };
+        ThrottleEventAggregator eventAggregator = new ThrottleEventAggregator(0, false);
+        ThrottleDataPublisher throttleDataPublisher = Mockito.mock(ThrottleDataPublisher.class);
+        Mockito.when(throttleDataPublisher.getEventAggregator()).thenReturn(eventAggregator);
+        ServiceReferenceHolder serviceReferenceHolder = ServiceReferenceHolder.getInstance();
+        Mockito.when(serviceReferenceHolder.getThrottleDataPublisher()).thenReturn(throttleDataPublisher);
+        Mockito.when(serviceReferenceHolder.getThrottleDataHolder()).thenReturn(Mockito.mock(ThrottleDataHolder.class));
+
+        Assert.assertTrue(websocketInboundHandler.doThrottle(channelHandlerContext, webSocketFrame));
+        // The event of the frame is published on its own instead of being dropped
+        Assert.assertEquals(1, eventAggregator.getOverflowCount());
+        Mockito.verify(ThrottleDataPublisher.getDataPublisher()).tryPublish(Mockito.any(Event.class));
+    }
+
     /*
     *  Test for NumberFormatException throws when remoteIP is mis formatted
     *
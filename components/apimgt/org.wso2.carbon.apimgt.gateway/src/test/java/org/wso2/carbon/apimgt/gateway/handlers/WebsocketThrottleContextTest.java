@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.apimgt.gateway.handlers;
+
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+import org.wso2.carbon.apimgt.gateway.handlers.throttling.APIThrottleConstants;
+import org.wso2.carbon.apimgt.gateway.throttling.publisher.ThrottleEventAggregator;
+import org.wso2.carbon.apimgt.gateway.throttling.publisher.ThrottlePropertiesEncoder;
+import org.wso2.carbon.apimgt.impl.dto.APIKeyValidationInfoDTO;
+import org.wso2.carbon.databridge.commons.Event;
+
+public class WebsocketThrottleContextTest {
+
+    private static APIKeyValidationInfoDTO getInfoDTO() {
+
+        APIKeyValidationInfoDTO infoDTO = new APIKeyValidationInfoDTO();
+        infoDTO.setApplicationId("1");
+        infoDTO.setApplicationTier("Unlimited");
+        infoDTO.setTier("Gold");
+        infoDTO.setApiTier("");
+        infoDTO.setSubscriber("admin");
+        infoDTO.setSubscriberTenantDomain("carbon.super");
+        infoDTO.setApiName("chat");
+        return infoDTO;
+    }
+
+    @Test
+    public void testEventsOfFrames() {
+
+        WebsocketThrottleContext context = new WebsocketThrottleContext(getInfoDTO(), "/chat", "1.0.0",
+                "carbon.super", "192.168.0.100", false);
+        Event first = context.newEvent(10);
+        Event second = context.newEvent(20);
+
+        Object[] payload = first.getPayloadData();
+        Assert.assertEquals(17, payload.length);
+        Assert.assertEquals("1:admin@carbon.super", payload[1]);
+        Assert.assertEquals("/chat:1.0.0", payload[3]);
+        Assert.assertEquals("1:/chat:1.0.0", payload[5]);
+        Assert.assertEquals("chat", payload[15]);
+        JSONObject properties = new JSONObject((String) payload[16]);
+        Assert.assertEquals(3232235620L, properties.getLong(APIThrottleConstants.IP));
+        Assert.assertEquals(10, properties.getLong(APIThrottleConstants.MESSAGE_SIZE));
+        Assert.assertEquals(20, new JSONObject((String) second.getPayloadData()[16])
+                .getLong(APIThrottleConstants.MESSAGE_SIZE));
+        Assert.assertNotEquals(payload[0], second.getPayloadData()[0]);
+    }
+
+    @Test
+    public void testCompactEncodedEvents() {
+
+        WebsocketThrottleContext context = new WebsocketThrottleContext(getInfoDTO(), "/chat", "1.0.0",
+                "carbon.super", "192.168.0.100", true);
+        String expected = new ThrottlePropertiesEncoder().reset().putLong(APIThrottleConstants.IP, 3232235620L)
+                .putLong(APIThrottleConstants.MESSAGE_SIZE, 10).encode();
+        Assert.assertEquals(expected, context.newEvent(10).getPayloadData()[16]);
+    }
+
+    @Test
+    public void testAggregationKey() {
+
+        WebsocketThrottleContext context = new WebsocketThrottleContext(getInfoDTO(), "/chat", "1.0.0",
+                "carbon.super", "192.168.0.100", false);
+        Assert.assertEquals(new ThrottleEventAggregator.AggregationKey("1:admin@carbon.super", "Unlimited",
+                "/chat:1.0.0", "", "1:/chat:1.0.0", "Gold", "/chat:1.0.0", "", "admin@carbon.super", "/chat",
+                "1.0.0", "carbon.super", "carbon.super", "1", "chat").withProperty(APIThrottleConstants.IP,
+                3232235620L), context.getAggregationKey());
+        WebsocketThrottleContext otherClient = new WebsocketThrottleContext(getInfoDTO(), "/chat", "1.0.0",
+                "carbon.super", "192.168.0.101", false);
+        Assert.assertNotEquals(context.getAggregationKey(), otherClient.getAggregationKey());
+    }
+}
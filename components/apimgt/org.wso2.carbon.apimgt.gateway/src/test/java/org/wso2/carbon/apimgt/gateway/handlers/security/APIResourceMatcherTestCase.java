@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.handlers.security;
+
+import org.apache.synapse.api.API;
+import org.apache.synapse.api.Resource;
+import org.apache.synapse.api.dispatch.DispatcherHelper;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class APIResourceMatcherTestCase {
+
+    private Resource createResource(String template, String... methods) {
+
+        Resource resource = Mockito.mock(Resource.class);
+        DispatcherHelper helper = Mockito.mock(DispatcherHelper.class);
+        Mockito.when(helper.getString()).thenReturn(template);
+        Mockito.when(resource.getDispatcherHelper()).thenReturn(helper);
+        Mockito.when(resource.getMethods()).thenReturn(methods);
+        return resource;
+    }
+
+    private APIResourceMatcher createMatcher(Resource... resources) {
+
+        API api = Mockito.mock(API.class);
+        Mockito.when(api.getResources()).thenReturn(resources);
+        return new APIResourceMatcher(api);
+    }
+
+    @Test
+    public void testCandidatesAreNarrowedByPathAndMethod() {
+
+        Resource menu = createResource("/menu", "GET");
+        Resource order = createResource("/order/{orderId}", "GET", "PUT");
+        Resource orderItems = createResource("/order/{orderId}/items", "GET");
+        Resource createOrder = createResource("/order", "POST");
+        APIResourceMatcher matcher = createMatcher(menu, order, orderItems, createOrder);
+
+        Assert.assertEquals(Arrays.asList(menu), new ArrayList<>(matcher.getAcceptableResources("/menu", "GET")));
+        Assert.assertEquals(Arrays.asList(order),
+                new ArrayList<>(matcher.getAcceptableResources("/order/123?lang=en", "PUT")));
+        Assert.assertEquals(Arrays.asList(orderItems),
+                new ArrayList<>(matcher.getAcceptableResources("/order/123/items", "GET")));
+        Assert.assertTrue(matcher.getAcceptableResources("/menu", "POST").isEmpty());
+        Assert.assertTrue(matcher.getAcceptableResources("/order/123/other", "GET").isEmpty());
+        // Any resource of the path is acceptable for an OPTIONS request
+        Assert.assertEquals(Arrays.asList(createOrder),
+                new ArrayList<>(matcher.getAcceptableResources("/order", "OPTIONS")));
+    }
+
+    @Test
+    public void testWildcardResourcesKeepDefinitionOrder() {
+
+        Resource all = createResource("/*", "GET");
+        Resource menu = createResource("/menu", "GET");
+        Resource menuWildcard = createResource("/menu/*", "GET");
+        Resource search = createResource("/search{?query}", "GET");
+        APIResourceMatcher matcher = createMatcher(all, menu, menuWildcard, search);
+
+        List<Resource> candidates = new ArrayList<>(matcher.getAcceptableResources("/menu", "GET"));
+        Assert.assertEquals(Arrays.asList(all, menu, menuWildcard, search), candidates);
+        Assert.assertEquals(Arrays.asList(all, menuWildcard, search),
+                new ArrayList<>(matcher.getAcceptableResources("/menus/1", "GET")));
+    }
+
+    @Test
+    public void testPathsWhichCanNotBeIndexedGetAllResources() {
+
+        Resource menu = createResource("/menu", "GET");
+        Resource order = createResource("/order", "GET");
+        APIResourceMatcher matcher = createMatcher(menu, order);
+
+        Assert.assertEquals(2, matcher.getAcceptableResources("/men%75", "GET").size());
+        Assert.assertEquals(2, matcher.getAcceptableResources("/menu/", "GET").size());
+        Assert.assertEquals(2, matcher.getAcceptableResources("//menu", "GET").size());
+        Assert.assertTrue(matcher.getAcceptableResources("/", "GET").isEmpty());
+    }
+}
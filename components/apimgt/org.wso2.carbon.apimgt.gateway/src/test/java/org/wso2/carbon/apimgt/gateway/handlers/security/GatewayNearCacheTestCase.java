@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.handlers.security;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import javax.cache.Cache;
+
+public class GatewayNearCacheTestCase {
+
+    @Test
+    public void testBackingCacheHitIsKeptInNearCache() {
+
+        Cache tokenCache = Mockito.mock(Cache.class);
+        Mockito.when(tokenCache.get("token")).thenReturn("carbon.super");
+        GatewayNearCache nearCache = new GatewayNearCache(true, 100, 60);
+
+        Assert.assertEquals("carbon.super", nearCache.get(GatewayNearCache.Tier.GATEWAY_TOKEN, "carbon.super", "token",
+                () -> tokenCache));
+        Assert.assertEquals("carbon.super", nearCache.get(GatewayNearCache.Tier.GATEWAY_TOKEN, "carbon.super", "token",
+                () -> tokenCache));
+        Mockito.verify(tokenCache, Mockito.times(1)).get("token");
+        Assert.assertEquals(0.5, nearCache.getNearHitRatio(GatewayNearCache.Tier.GATEWAY_TOKEN), 0.0001);
+        Assert.assertEquals(1.0, nearCache.getBackingHitRatio(GatewayNearCache.Tier.GATEWAY_TOKEN), 0.0001);
+        Assert.assertEquals(0, nearCache.getNearHitRatio(GatewayNearCache.Tier.GATEWAY_KEY), 0.0001);
+    }
+
+    @Test
+    public void testMissIsNotCached() {
+
+        Cache invalidTokenCache = Mockito.mock(Cache.class);
+        GatewayNearCache nearCache = new GatewayNearCache(true, 100, 60);
+
+        Assert.assertNull(nearCache.get(GatewayNearCache.Tier.INVALID_TOKEN, "carbon.super", "token",
+                () -> invalidTokenCache));
+        Mockito.when(invalidTokenCache.get("token")).thenReturn("carbon.super");
+        Assert.assertEquals("carbon.super", nearCache.get(GatewayNearCache.Tier.INVALID_TOKEN, "carbon.super", "token",
+                () -> invalidTokenCache));
+        Assert.assertEquals(0.5, nearCache.getBackingHitRatio(GatewayNearCache.Tier.INVALID_TOKEN), 0.0001);
+    }
+
+    @Test
+    public void testInvalidateToken() {
+
+        Cache tokenCache = Mockito.mock(Cache.class);
+        GatewayNearCache nearCache = new GatewayNearCache(true, 100, 60);
+        nearCache.put(GatewayNearCache.Tier.GATEWAY_TOKEN, "carbon.super", "token", "carbon.super");
+        nearCache.put(GatewayNearCache.Tier.GATEWAY_KEY, "carbon.super", "token", "info");
+        nearCache.put(GatewayNearCache.Tier.GATEWAY_TOKEN, "carbon.super", "other", "carbon.super");
+
+        nearCache.invalidateToken("token");
+        Assert.assertNull(nearCache.get(GatewayNearCache.Tier.GATEWAY_TOKEN, "carbon.super", "token",
+                () -> tokenCache));
+        Assert.assertNull(nearCache.get(GatewayNearCache.Tier.GATEWAY_KEY, "carbon.super", "token", () -> tokenCache));
+        Assert.assertEquals("carbon.super", nearCache.get(GatewayNearCache.Tier.GATEWAY_TOKEN, "carbon.super", "other",
+                () -> tokenCache));
+
+        nearCache.invalidateAll();
+        Assert.assertNull(nearCache.get(GatewayNearCache.Tier.GATEWAY_TOKEN, "carbon.super", "other",
+                () -> tokenCache));
+    }
+
+    @Test
+    public void testEntriesAreNotSharedBetweenTenants() {
+
+        Cache tenantTokenCache = Mockito.mock(Cache.class);
+        GatewayNearCache nearCache = new GatewayNearCache(true, 100, 60);
+        nearCache.put(GatewayNearCache.Tier.GATEWAY_TOKEN, "a.com", "jti", "a.com");
+        nearCache.put(GatewayNearCache.Tier.GATEWAY_KEY, "a.com", "jti", "info");
+
+        // The token validated for an API of a.com is looked up in the caches of b.com
+        Assert.assertNull(nearCache.get(GatewayNearCache.Tier.GATEWAY_TOKEN, "b.com", "jti", () -> tenantTokenCache));
+        Assert.assertNull(nearCache.get(GatewayNearCache.Tier.GATEWAY_KEY, "b.com", "jti", () -> tenantTokenCache));
+        Mockito.verify(tenantTokenCache, Mockito.times(2)).get("jti");
+        Assert.assertEquals("info", nearCache.get(GatewayNearCache.Tier.GATEWAY_KEY, "a.com", "jti",
+                () -> tenantTokenCache));
+    }
+
+    @Test
+    public void testInvalidateTokenRemovesEntriesOfAllTenantsAndResources() {
+
+        Cache backingCache = Mockito.mock(Cache.class);
+        GatewayNearCache nearCache = new GatewayNearCache(true, 100, 60);
+        nearCache.put(GatewayNearCache.Tier.GATEWAY_TOKEN, "a.com", "token", "a.com");
+        nearCache.put(GatewayNearCache.Tier.GATEWAY_TOKEN, "b.com", "token", "b.com");
+        nearCache.put(GatewayNearCache.Tier.GATEWAY_KEY, "a.com", "token", "token:/api/1.0/*:GET:Any", "info");
+
+        nearCache.invalidateToken("token");
+        Assert.assertNull(nearCache.get(GatewayNearCache.Tier.GATEWAY_TOKEN, "a.com", "token", () -> backingCache));
+        Assert.assertNull(nearCache.get(GatewayNearCache.Tier.GATEWAY_TOKEN, "b.com", "token", () -> backingCache));
+        Assert.assertNull(nearCache.get(GatewayNearCache.Tier.GATEWAY_KEY, "a.com", "token",
+                "token:/api/1.0/*:GET:Any", () -> backingCache));
+    }
+
+    @Test
+    public void testInvalidateJWTRemovesEntriesOfItsIdentifierAndSignature() {
+
+        Cache backingCache = Mockito.mock(Cache.class);
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String jwt = encoder.encodeToString("{\"alg\":\"RS256\"}".getBytes(StandardCharsets.UTF_8)) + "."
+                + encoder.encodeToString("{\"jti\":\"jti-1\"}".getBytes(StandardCharsets.UTF_8)) + ".signature";
+        GatewayNearCache nearCache = new GatewayNearCache(true, 100, 60);
+        nearCache.put(GatewayNearCache.Tier.GATEWAY_KEY, "carbon.super", "jti-1", "info");
+        nearCache.put(GatewayNearCache.Tier.GATEWAY_TOKEN, "carbon.super", "signature", "carbon.super");
+
+        nearCache.invalidateToken(jwt);
+        Assert.assertNull(nearCache.get(GatewayNearCache.Tier.GATEWAY_KEY, "carbon.super", "jti-1",
+                () -> backingCache));
+        Assert.assertNull(nearCache.get(GatewayNearCache.Tier.GATEWAY_TOKEN, "carbon.super", "signature",
+                () -> backingCache));
+    }
+
+    @Test
+    public void testDisabledNearCacheUsesBackingCache() {
+
+        Cache keyCache = Mockito.mock(Cache.class);
+        Mockito.when(keyCache.get("key")).thenReturn("info");
+        GatewayNearCache nearCache = new GatewayNearCache(false, 100, 60);
+        nearCache.put(GatewayNearCache.Tier.GATEWAY_KEY, "carbon.super", "other", "info");
+
+        Assert.assertFalse(nearCache.isEnabled());
+        Assert.assertEquals("info", nearCache.get(GatewayNearCache.Tier.GATEWAY_KEY, "carbon.super", "key",
+                () -> keyCache));
+        Assert.assertEquals("info", nearCache.get(GatewayNearCache.Tier.GATEWAY_KEY, "carbon.super", "key",
+                () -> keyCache));
+        Assert.assertNull(nearCache.get(GatewayNearCache.Tier.GATEWAY_KEY, "carbon.super", "other", () -> keyCache));
+        Mockito.verify(keyCache, Mockito.times(2)).get("key");
+        Assert.assertEquals(0, nearCache.getEstimatedSize(GatewayNearCache.Tier.GATEWAY_KEY));
+    }
+}
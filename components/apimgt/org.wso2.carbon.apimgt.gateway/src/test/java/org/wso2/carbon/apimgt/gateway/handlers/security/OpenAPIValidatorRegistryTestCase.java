@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.handlers.security;
+
+import com.atlassian.oai.validator.OpenApiInteractionValidator;
+import io.swagger.parser.OpenAPIParser;
+import io.swagger.v3.oas.models.OpenAPI;
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+public class OpenAPIValidatorRegistryTestCase {
+
+    private static String swagger;
+
+    @BeforeClass
+    public static void init() throws IOException {
+
+        File swaggerJsonFile = new File(Thread.currentThread().getContextClassLoader().
+                getResource("swaggerEntry/swagger.json").getFile());
+        swagger = FileUtils.readFileToString(swaggerJsonFile);
+    }
+
+    /**
+     * Parses the definition as APIMgtLatencyStatsHandler does once per deployment of an API.
+     */
+    private static OpenAPI deploy(String definition) {
+
+        return new OpenAPIParser().readContents(definition, null, null).getOpenAPI();
+    }
+
+    @Test
+    public void testValidatorIsReusedForSameDeployment() {
+
+        OpenAPIValidatorRegistry registry = new OpenAPIValidatorRegistry(10);
+        OpenAPI openAPI = deploy(swagger);
+        OpenApiInteractionValidator first = registry.getValidator("api-1", openAPI);
+        OpenApiInteractionValidator second = registry.getValidator("api-1", openAPI);
+        Assert.assertSame(first, second);
+        Assert.assertEquals(1, registry.getMissCount());
+        Assert.assertEquals(1, registry.getHitCount());
+    }
+
+    @Test
+    public void testValidatorIsRebuiltWhenApiIsDeployedAgain() {
+
+        OpenAPIValidatorRegistry registry = new OpenAPIValidatorRegistry(10);
+        OpenApiInteractionValidator first = registry.getValidator("api-1", deploy(swagger));
+        OpenApiInteractionValidator second = registry.getValidator("api-1", deploy(swagger.replace("Petstore",
+                "Store")));
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(1, registry.size());
+    }
+
+    @Test
+    public void testValidatorWithoutApiUUID() {
+
+        OpenAPIValidatorRegistry registry = new OpenAPIValidatorRegistry(10);
+        OpenAPI openAPI = deploy(swagger);
+        OpenApiInteractionValidator first = registry.getValidator(null, openAPI);
+        Assert.assertSame(first, registry.getValidator(null, openAPI));
+        // An equal definition of another deployment is not compared, so it gets its own validator
+        Assert.assertNotSame(first, registry.getValidator(null, deploy(swagger)));
+    }
+
+    @Test
+    public void testInvalidateAndEviction() {
+
+        OpenAPIValidatorRegistry registry = new OpenAPIValidatorRegistry(1);
+        OpenAPI openAPI = deploy(swagger);
+        registry.getValidator("api-1", openAPI);
+        registry.getValidator("api-2", openAPI);
+        Assert.assertEquals(1, registry.size());
+        Assert.assertEquals(1, registry.getEvictionCount());
+        registry.invalidate("api-1");
+        registry.invalidate("api-2");
+        Assert.assertEquals(0, registry.size());
+        Assert.assertEquals(1, registry.getEvictionCount());
+        registry.getValidator("api-1", openAPI);
+        Assert.assertEquals(3, registry.getMissCount());
+    }
+}
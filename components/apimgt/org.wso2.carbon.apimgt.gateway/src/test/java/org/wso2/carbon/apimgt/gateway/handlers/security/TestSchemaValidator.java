@@ -16,6 +16,7 @@
 
 package org.wso2.carbon.apimgt.gateway.handlers.security;
 
+import io.swagger.parser.OpenAPIParser;
 import org.apache.axiom.om.OMAbstractFactory;
 import org.apache.axiom.om.OMElement;
 import org.apache.axiom.om.util.AXIOMUtil;
@@ -215,6 +216,9 @@ public class TestSchemaValidator {
                 thenReturn(httpMethod);
         Mockito.when((String) messageContext.getProperty(APIMgtGatewayConstants.OPEN_API_STRING))
                 .thenReturn(swaggerValue);
+        // The definition is parsed once per deployment by APIMgtLatencyStatsHandler
+        Mockito.when(messageContext.getProperty(APIMgtGatewayConstants.OPEN_API_OBJECT))
+                .thenReturn(new OpenAPIParser().readContents(swaggerValue, null, null).getOpenAPI());
         Map<String, String> headers = new HashMap<>();
         headers.put(CONTENT_TYPE_HEADER, contentType);
         Mockito.when(axis2MsgContext.getProperty(TRANSPORT_HEADERS)).thenReturn(headers);
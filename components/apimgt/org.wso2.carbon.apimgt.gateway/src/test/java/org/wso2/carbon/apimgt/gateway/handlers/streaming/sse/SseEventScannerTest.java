@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.apimgt.gateway.handlers.streaming.sse;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public class SseEventScannerTest {
+
+    private static ByteBuffer chunk(String value) {
+
+        return ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testEventsWithDataAreCounted() {
+
+        SseEventScanner scanner = new SseEventScanner();
+        Assert.assertEquals(2, scanner.scan(chunk("data: first\n\nid: 2\ndata: second\ndata: more\n\n")));
+        // Events without data, comments and fields which only start like data are not counted
+        Assert.assertEquals(0, scanner.scan(chunk(": keep alive\n\nevent: ping\n\ndatabase: x\n\n")));
+        // A data field without a value still makes an event
+        Assert.assertEquals(1, scanner.scan(chunk("data\n\n")));
+        Assert.assertEquals(3, scanner.getEventCount());
+    }
+
+    @Test
+    public void testLineEndings() {
+
+        SseEventScanner scanner = new SseEventScanner();
+        Assert.assertEquals(3, scanner.scan(chunk("data: a\r\n\r\ndata: b\r\rdata: c\n\r\n")));
+    }
+
+    @Test
+    public void testEventsSplitAcrossChunks() {
+
+        SseEventScanner scanner = new SseEventScanner();
+        Assert.assertEquals(0, scanner.scan(chunk("da")));
+        Assert.assertEquals(0, scanner.scan(chunk("ta: value\r")));
+        Assert.assertEquals(0, scanner.scan(chunk("\n")));
+        Assert.assertEquals(1, scanner.scan(chunk("\r")));
+        // The LF of a CRLF split from its CR does not end another line
+        Assert.assertEquals(0, scanner.scan(chunk("\ndata: next\n")));
+        Assert.assertEquals(1, scanner.scan(chunk("\n")));
+        Assert.assertEquals(2, scanner.getEventCount());
+    }
+
+    @Test
+    public void testBufferIsNotConsumed() {
+
+        ByteBuffer buffer = chunk("xxdata: value\n\n");
+        buffer.position(2);
+        SseEventScanner scanner = new SseEventScanner();
+        Assert.assertEquals(1, scanner.scan(buffer));
+        Assert.assertEquals(2, buffer.position());
+        Assert.assertEquals(15, buffer.limit());
+    }
+}
@@ -38,6 +38,8 @@ import org.wso2.carbon.apimgt.gateway.TestUtils;
 import org.wso2.carbon.apimgt.gateway.handlers.security.AuthenticationContext;
 import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
 import org.wso2.carbon.apimgt.gateway.throttling.ThrottleDataHolder;
+import org.wso2.carbon.apimgt.gateway.throttling.local.LocalThrottleEngine;
+import org.wso2.carbon.apimgt.gateway.throttling.local.LocalThrottleLimit;
 import org.wso2.carbon.apimgt.gateway.throttling.publisher.ThrottleDataPublisher;
 import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.wso2.carbon.apimgt.impl.APIManagerConfiguration;
@@ -50,6 +52,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Test cases for for ThrottleHandler.
@@ -610,4 +613,34 @@ public class ThrottleHandlerTest {
         Assert.assertTrue(throttleHandler.handleRequest(messageContext));
     }
 
+    @Test
+    public void testSubscriptionPolicyOfTheAPITenantIsAppliedLocally() {
+        ThrottleDataHolder throttleDataHolder = new ThrottleDataHolder();
+        LocalThrottleEngine localThrottleEngine = new LocalThrottleEngine();
+        localThrottleEngine.addLimit(APIConstants.PolicyType.SUBSCRIPTION, "carbon.super", "Silver",
+                new LocalThrottleLimit(1, TimeUnit.MINUTES.toNanos(1), true));
+        // A subscription policy of the same name in the tenant of the subscriber does not apply
+        localThrottleEngine.addLimit(APIConstants.PolicyType.SUBSCRIPTION, "abc.com", "Silver",
+                new LocalThrottleLimit(1000, TimeUnit.MINUTES.toNanos(1), true));
+        ThrottleHandler throttleHandler = new ThrottlingHandlerWrapper(timer, throttleDataHolder, throttleEvaluator) {
+            @Override
+            protected LocalThrottleEngine getLocalThrottleEngine() {
+                return localThrottleEngine;
+            }
+        };
+        MessageContext messageContext = TestUtils.getMessageContextWithAuthContext(apiContext, apiVersion);
+        messageContext.setProperty(VERB_INFO_DTO, verbInfoDTO);
+        AuthenticationContext authenticationContext = (AuthenticationContext) messageContext.getProperty
+                (API_AUTH_CONTEXT);
+        authenticationContext.setApiTier(throttlingTier);
+        authenticationContext.setSubscriberTenantDomain("abc.com");
+        authenticationContext.setStopOnQuotaReach(true);
+        messageContext.setProperty(API_AUTH_CONTEXT, authenticationContext);
+
+        Assert.assertTrue(throttleHandler.handleRequest(messageContext));
+        Assert.assertFalse(throttleHandler.handleRequest(messageContext));
+        Assert.assertEquals(APIThrottleConstants.SUBSCRIPTION_LIMIT_EXCEEDED,
+                messageContext.getProperty(APIThrottleConstants.THROTTLED_OUT_REASON));
+    }
+
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.handlers.throttling;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.wso2.carbon.apimgt.gateway.handlers.security.AuthenticationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares building the throttle and blocking keys of a request, as ThrottleHandler did for every request, with
+ * looking them up in the cache of {@link ThrottleKeys}. Every request comes with a new {@link AuthenticationContext},
+ * as it does for HTTP requests, and the requests are spread over a number of callers. The GC profiler reports the
+ * bytes allocated per request. It is not a unit test, so it is not run by the build. Run it from the module
+ * directory, with the test classpath, as
+ * <pre>
+ * java -cp target/classes:target/test-classes:&lt;test dependencies&gt; \
+ *     org.wso2.carbon.apimgt.gateway.handlers.throttling.ThrottleKeysBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ThrottleKeysBenchmark {
+
+    private static final String API_CONTEXT = "/t/wso2.com/pizzashack/1.0.0";
+    private static final String API_VERSION = "1.0.0";
+    private static final String API_TENANT_DOMAIN = "wso2.com";
+
+    @Param({"1", "1000"})
+    private int callers;
+
+    private AuthenticationContext[] authContexts;
+    private int next;
+
+    public static void main(String[] args) throws Exception {
+
+        new Runner(new OptionsBuilder()
+                .include(ThrottleKeysBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+    @Setup
+    public void setUp() {
+
+        authContexts = new AuthenticationContext[callers];
+        for (int i = 0; i < callers; i++) {
+            authContexts[i] = createAuthenticationContext(i);
+        }
+    }
+
+    /**
+     * Returns a new context of a caller, which holds new strings as a context read from a token does.
+     */
+    private AuthenticationContext nextAuthenticationContext() {
+
+        AuthenticationContext authContext = authContexts[next];
+        next = (next + 1) % callers;
+        AuthenticationContext requestContext = new AuthenticationContext();
+        requestContext.setUsername(new String(authContext.getUsername()));
+        requestContext.setApplicationId(new String(authContext.getApplicationId()));
+        requestContext.setApplicationName(new String(authContext.getApplicationName()));
+        requestContext.setSubscriber(new String(authContext.getSubscriber()));
+        requestContext.setKeyType(authContext.getKeyType());
+        return requestContext;
+    }
+
+    private static AuthenticationContext createAuthenticationContext(int caller) {
+
+        AuthenticationContext authContext = new AuthenticationContext();
+        authContext.setUsername("user" + caller + "@wso2.com");
+        authContext.setApplicationId(String.valueOf(caller));
+        authContext.setApplicationName("Application" + caller);
+        authContext.setSubscriber("user" + caller + "@wso2.com");
+        authContext.setKeyType("PRODUCTION");
+        return authContext;
+    }
+
+    @Benchmark
+    public AuthenticationContext baseline() {
+
+        return nextAuthenticationContext();
+    }
+
+    @Benchmark
+    public ThrottleKeys buildPerRequest() {
+
+        return new ThrottleKeys(nextAuthenticationContext(), API_CONTEXT, API_VERSION, API_TENANT_DOMAIN);
+    }
+
+    @Benchmark
+    public ThrottleKeys cached() {
+
+        return ThrottleKeys.of(nextAuthenticationContext(), API_CONTEXT, API_VERSION, API_TENANT_DOMAIN);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.handlers.throttling;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.wso2.carbon.apimgt.api.dto.ConditionGroupDTO;
+import org.wso2.carbon.apimgt.gateway.handlers.security.AuthenticationContext;
+import org.wso2.carbon.apimgt.impl.dto.VerbInfoDTO;
+
+import java.util.Map;
+
+public class ThrottleKeysTest {
+
+    private AuthenticationContext createAuthenticationContext() {
+
+        AuthenticationContext authContext = new AuthenticationContext();
+        authContext.setUsername("admin");
+        authContext.setApplicationId("1");
+        authContext.setApplicationName("DefaultApplication");
+        authContext.setSubscriber("admin");
+        authContext.setKeyType("PRODUCTION");
+        return authContext;
+    }
+
+    @Test
+    public void testKeysAreBuiltOncePerApiAndCaller() {
+
+        AuthenticationContext authContext = createAuthenticationContext();
+        ThrottleKeys throttleKeys = ThrottleKeys.of(authContext, "/pizzashack/1.0.0", "1.0.0", "carbon.super");
+        Assert.assertEquals("admin@carbon.super", throttleKeys.getAuthorizedUser());
+        Assert.assertEquals("1:admin@carbon.super", throttleKeys.getApplicationLevelThrottleKey());
+        Assert.assertEquals("/pizzashack/1.0.0:1.0.0", throttleKeys.getApiLevelThrottleKey());
+        Assert.assertEquals("1:/pizzashack/1.0.0:1.0.0", throttleKeys.getSubscriptionLevelThrottleKey());
+        Assert.assertEquals("admin:DefaultApplication", throttleKeys.getApplicationLevelBlockingKey());
+        Assert.assertEquals("/pizzashack/1.0.0:1.0.0:admin-DefaultApplication:PRODUCTION",
+                throttleKeys.getSubscriptionLevelBlockingKey());
+
+        // The keys outlive the request, so a later request of the same caller gets them from the cache
+        Assert.assertSame(throttleKeys, ThrottleKeys.of(createAuthenticationContext(), "/pizzashack/1.0.0", "1.0.0",
+                "carbon.super"));
+        AuthenticationContext otherKeyType = createAuthenticationContext();
+        otherKeyType.setKeyType("SANDBOX");
+        Assert.assertEquals("/pizzashack/1.0.0:1.0.0:admin-DefaultApplication:SANDBOX",
+                ThrottleKeys.of(otherKeyType, "/pizzashack/1.0.0", "1.0.0", "carbon.super")
+                        .getSubscriptionLevelBlockingKey());
+        ThrottleKeys otherApiKeys = ThrottleKeys.of(authContext, "/weather/1.0.0", "1.0.0", "carbon.super");
+        Assert.assertNotSame(throttleKeys, otherApiKeys);
+        Assert.assertEquals("1:/weather/1.0.0:1.0.0", otherApiKeys.getSubscriptionLevelThrottleKey());
+    }
+
+    @Test
+    public void testProductSubscriptionKey() {
+
+        AuthenticationContext authContext = createAuthenticationContext();
+        authContext.setProductName("product");
+        authContext.setProductProvider("admin");
+        ThrottleKeys throttleKeys = ThrottleKeys.of(authContext, "/pizzashack/1.0.0", "1.0.0", "carbon.super");
+        Assert.assertEquals("1:product:admin", throttleKeys.getSubscriptionLevelThrottleKey());
+    }
+
+    @Test
+    public void testConditionGroupKeysAreKeptOnResource() {
+
+        ConditionGroupDTO defaultGroup = new ConditionGroupDTO();
+        defaultGroup.setConditionGroupId("_default");
+        ConditionGroupDTO conditionGroup = new ConditionGroupDTO();
+        conditionGroup.setConditionGroupId("_condition_1");
+        VerbInfoDTO verbInfoDTO = new VerbInfoDTO();
+        verbInfoDTO.setConditionGroups(new ConditionGroupDTO[]{defaultGroup, conditionGroup});
+
+        Map<String, String> keys = verbInfoDTO.getConditionGroupThrottleKeys("/pizzashack/1.0.0/1.0.0/menu:GET");
+        Assert.assertEquals("/pizzashack/1.0.0/1.0.0/menu:GET_default", keys.get("_default"));
+        Assert.assertEquals("/pizzashack/1.0.0/1.0.0/menu:GET_condition_1", keys.get("_condition_1"));
+        Assert.assertSame(keys, verbInfoDTO.getConditionGroupThrottleKeys("/pizzashack/1.0.0/1.0.0/menu:GET"));
+        Assert.assertEquals("/pizzashack/1.0.0:1.0.0_default",
+                verbInfoDTO.getConditionGroupThrottleKeys("/pizzashack/1.0.0:1.0.0").get("_default"));
+    }
+}
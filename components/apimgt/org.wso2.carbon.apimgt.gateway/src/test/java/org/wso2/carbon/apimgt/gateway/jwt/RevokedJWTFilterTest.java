@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.jwt;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.UUID;
+
+public class RevokedJWTFilterTest {
+
+    @Test
+    public void testAddedIdentifiersAreReported() {
+
+        RevokedJWTFilter filter = new RevokedJWTFilter(10000);
+        String[] identifiers = new String[10000];
+        for (int i = 0; i < identifiers.length; i++) {
+            identifiers[i] = UUID.randomUUID().toString();
+            filter.add(identifiers[i]);
+        }
+        for (String identifier : identifiers) {
+            Assert.assertTrue(filter.mightContain(identifier));
+        }
+        Assert.assertFalse(filter.isOverCapacity());
+        filter.add("");
+        Assert.assertTrue(filter.isOverCapacity());
+    }
+
+    @Test
+    public void testFalsePositiveRate() {
+
+        RevokedJWTFilter filter = new RevokedJWTFilter(10000);
+        for (int i = 0; i < 10000; i++) {
+            filter.add(UUID.randomUUID().toString());
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100000; i++) {
+            if (filter.mightContain(UUID.randomUUID().toString())) {
+                falsePositives++;
+            }
+        }
+        Assert.assertTrue("False positives: " + falsePositives, falsePositives < 3000);
+    }
+
+    @Test
+    public void testRevokedMapLookupThroughFilter() {
+
+        RevokedJWTDataHolder dataHolder = RevokedJWTDataHolder.getInstance();
+        String signature = UUID.randomUUID().toString();
+        Assert.assertFalse(RevokedJWTDataHolder.isJWTTokenSignatureExistsInRevokedMap(signature));
+        dataHolder.addRevokedJWTToMap(signature, System.currentTimeMillis() / 1000 + 3600);
+        Assert.assertTrue(RevokedJWTDataHolder.isJWTTokenSignatureExistsInRevokedMap(signature));
+
+        String expiredSignature = UUID.randomUUID().toString();
+        dataHolder.addRevokedJWTToMap(expiredSignature, System.currentTimeMillis() / 1000 - 3600);
+        new RevokedJWTMapCleaner().run();
+        Assert.assertFalse(RevokedJWTDataHolder.isJWTTokenSignatureExistsInRevokedMap(expiredSignature));
+        Assert.assertTrue(RevokedJWTDataHolder.isJWTTokenSignatureExistsInRevokedMap(signature));
+
+        for (int i = 0; i < 5000; i++) {
+            dataHolder.addRevokedJWTToMap(UUID.randomUUID().toString(), System.currentTimeMillis() / 1000 + 3600);
+        }
+        Assert.assertTrue(RevokedJWTDataHolder.isJWTTokenSignatureExistsInRevokedMap(signature));
+    }
+}
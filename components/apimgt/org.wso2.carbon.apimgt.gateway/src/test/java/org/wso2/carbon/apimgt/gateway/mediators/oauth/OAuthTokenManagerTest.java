@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.mediators.oauth;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.wso2.carbon.apimgt.api.APIManagementException;
+import org.wso2.carbon.apimgt.gateway.handlers.security.APISecurityException;
+import org.wso2.carbon.apimgt.gateway.mediators.oauth.client.TokenResponse;
+import org.wso2.carbon.apimgt.gateway.mediators.oauth.conf.OAuthEndpoint;
+import org.wso2.carbon.metrics.manager.Timer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class OAuthTokenManagerTest {
+
+    private static OAuthEndpoint getEndpoint(String id) {
+
+        OAuthEndpoint endpoint = new OAuthEndpoint();
+        endpoint.setId(id);
+        endpoint.setTokenApiUrl("https://localhost:9443/oauth2/token");
+        endpoint.setClientId("client");
+        endpoint.setClientSecret("secret");
+        endpoint.setGrantType("CLIENT_CREDENTIALS");
+        return endpoint;
+    }
+
+    @Test
+    public void testConcurrentMissesShareOneFetch() throws Exception {
+
+        StubTokenManager manager = new StubTokenManager(10000, 0);
+        manager.release = new CountDownLatch(1);
+        ExecutorService requests = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<TokenResponse>> responses = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                responses.add(requests.submit(() -> manager.getToken(getEndpoint("ep1"))));
+            }
+            Thread.sleep(200);
+            manager.release.countDown();
+            for (Future<TokenResponse> response : responses) {
+                Assert.assertEquals("token-1", response.get(5, TimeUnit.SECONDS).getAccessToken());
+            }
+        } finally {
+            requests.shutdownNow();
+        }
+        Assert.assertEquals(1, manager.fetches.get());
+        Assert.assertEquals(1, manager.getRefreshMetrics("ep1").getRefreshCount());
+        // Served from the current token
+        Assert.assertEquals("token-1", manager.getToken(getEndpoint("ep1")).getAccessToken());
+        Assert.assertEquals(1, manager.fetches.get());
+    }
+
+    @Test
+    public void testUsedTokenIsRefreshedAhead() throws Exception {
+
+        StubTokenManager manager = new StubTokenManager(10000, 0);
+        manager.lifetimeSeconds = 4;
+        Assert.assertEquals("token-1", manager.getToken(getEndpoint("ep1")).getAccessToken());
+        Assert.assertEquals("token-1", manager.getToken(getEndpoint("ep1")).getAccessToken());
+        manager.lifetimeSeconds = 3600;
+        long deadline = System.currentTimeMillis() + 5000;
+        while (manager.fetches.get() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        Assert.assertEquals(2, manager.fetches.get());
+        Assert.assertEquals(Collections.singletonList("refresh-1"), manager.refreshTokens);
+        Assert.assertEquals("token-2", manager.getToken(getEndpoint("ep1")).getAccessToken());
+    }
+
+    @Test
+    public void testFailureIsBackedOff() throws Exception {
+
+        StubTokenManager manager = new StubTokenManager(10000, 0);
+        manager.fail = true;
+        try {
+            manager.getToken(getEndpoint("ep1"));
+            Assert.fail("Expected the token endpoint failure");
+        } catch (APISecurityException e) {
+            Assert.assertTrue(e.getCause() instanceof APIManagementException);
+        }
+        manager.fail = false;
+        // Within the backoff the token endpoint is not called again
+        try {
+            manager.getToken(getEndpoint("ep1"));
+            Assert.fail("Expected the backoff");
+        } catch (APISecurityException e) {
+            Assert.assertTrue(e.getCause() instanceof APIManagementException);
+        }
+        Assert.assertEquals(1, manager.fetches.get());
+        Assert.assertEquals(1, manager.failures.get());
+        Assert.assertEquals(1, manager.getRefreshMetrics("ep1").getFailureCount());
+    }
+
+    @Test
+    public void testRejectedTokenIsReplaced() throws Exception {
+
+        StubTokenManager manager = new StubTokenManager(10000, 0);
+        Assert.assertEquals("token-1", manager.getToken(getEndpoint("ep1")).getAccessToken());
+        manager.invalidate("ep1");
+        Assert.assertEquals("token-2", manager.getToken(getEndpoint("ep1")).getAccessToken());
+
+        // Rejections of a token younger than the minimum interval are ignored
+        StubTokenManager guarded = new StubTokenManager(10000, 60000);
+        Assert.assertEquals("token-1", guarded.getToken(getEndpoint("ep1")).getAccessToken());
+        guarded.invalidate("ep1");
+        Assert.assertEquals("token-1", guarded.getToken(getEndpoint("ep1")).getAccessToken());
+    }
+
+    @Test
+    public void testChangedEndpointInvalidatesToken() throws Exception {
+
+        StubTokenManager manager = new StubTokenManager(10000, 0);
+        Assert.assertEquals("token-1", manager.getToken(getEndpoint("ep1")).getAccessToken());
+        OAuthEndpoint changed = getEndpoint("ep1");
+        changed.setClientSecret("rotated");
+        Assert.assertEquals("token-2", manager.getToken(changed).getAccessToken());
+        // The refresh token of the previous configuration is not used
+        Assert.assertTrue(manager.refreshTokens.isEmpty());
+    }
+
+    @Test
+    public void testHungEndpointsDoNotBlockOtherEndpoints() throws Exception {
+
+        StubTokenManager manager = new StubTokenManager(1000, 0);
+        manager.hungEndpoints.add("ep1");
+        manager.hungEndpoints.add("ep2");
+        ExecutorService requests = Executors.newFixedThreadPool(2);
+        try {
+            Future<TokenResponse> first = requests.submit(() -> manager.getToken(getEndpoint("ep1")));
+            Future<TokenResponse> second = requests.submit(() -> manager.getToken(getEndpoint("ep2")));
+            Thread.sleep(200);
+            long start = System.currentTimeMillis();
+            Assert.assertEquals("token-1", manager.getToken(getEndpoint("ep3")).getAccessToken());
+            Assert.assertTrue(System.currentTimeMillis() - start < 500);
+            try {
+                first.get(5, TimeUnit.SECONDS);
+                Assert.fail("Expected the fetch timeout");
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof APISecurityException);
+            }
+            try {
+                second.get(5, TimeUnit.SECONDS);
+                Assert.fail("Expected the fetch timeout");
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof APISecurityException);
+            }
+        } finally {
+            requests.shutdownNow();
+        }
+        // The stuck fetches are interrupted and counted as failures
+        long deadline = System.currentTimeMillis() + 5000;
+        while (manager.interrupted.get() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        Assert.assertEquals(2, manager.interrupted.get());
+        Assert.assertEquals(1, manager.getRefreshMetrics("ep1").getFailureCount());
+        Assert.assertEquals(2, manager.failures.get());
+
+        // The endpoint is fetched again after the backoff
+        manager.hungEndpoints.clear();
+        Thread.sleep(1100);
+        Assert.assertEquals("token-2", manager.getToken(getEndpoint("ep1")).getAccessToken());
+    }
+
+    @Test
+    public void testUnusedTokenIsDroppedWithoutItsMetrics() throws Exception {
+
+        StubTokenManager manager = new StubTokenManager(10000, 0);
+        manager.lifetimeSeconds = 6;
+        // The request which fetches the token is not a use of it
+        manager.fetchMillis = 10;
+        Assert.assertEquals("token-1", manager.getToken(getEndpoint("ep1")).getAccessToken());
+        manager.lifetimeSeconds = 3600;
+        // The token is due for refresh within 4 seconds, but it was not used again
+        Thread.sleep(4200);
+        Assert.assertEquals(1, manager.fetches.get());
+        Assert.assertNotNull(manager.getRefreshMetrics("ep1"));
+        Assert.assertEquals(1, manager.getRefreshMetrics("ep1").getRefreshCount());
+        Assert.assertEquals("token-2", manager.getToken(getEndpoint("ep1")).getAccessToken());
+        Assert.assertEquals(2, manager.getRefreshMetrics("ep1").getRefreshCount());
+    }
+
+    private static class StubTokenManager extends OAuthTokenManager {
+
+        private final AtomicInteger fetches = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+        private final AtomicInteger interrupted = new AtomicInteger();
+        private final List<String> refreshTokens = Collections.synchronizedList(new ArrayList<>());
+        private final Set<String> hungEndpoints = ConcurrentHashMap.newKeySet();
+        private volatile CountDownLatch release;
+        private volatile boolean fail;
+        private volatile long lifetimeSeconds = 3600;
+        private volatile long fetchMillis;
+
+        StubTokenManager(long fetchTimeoutMillis, long minForcedRefreshIntervalMillis) {
+
+            super(fetchTimeoutMillis, minForcedRefreshIntervalMillis);
+        }
+
+        @Override
+        protected TokenResponse fetchToken(OAuthEndpoint oAuthEndpoint, String refreshToken)
+                throws APIManagementException {
+
+            if (hungEndpoints.contains(oAuthEndpoint.getId())) {
+                try {
+                    Thread.sleep(60000);
+                } catch (InterruptedException e) {
+                    interrupted.incrementAndGet();
+                    throw new APIManagementException("Token request was interrupted");
+                }
+            }
+            if (fetchMillis > 0) {
+                try {
+                    Thread.sleep(fetchMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            int count = fetches.incrementAndGet();
+            if (fail) {
+                throw new APIManagementException("Token endpoint is not available");
+            }
+            if (refreshToken != null) {
+                refreshTokens.add(refreshToken);
+            }
+            TokenResponse tokenResponse = new TokenResponse();
+            tokenResponse.setAccessToken("token-" + count);
+            tokenResponse.setRefreshToken("refresh-" + count);
+            tokenResponse.setValidTill(System.currentTimeMillis() / 1000 + lifetimeSeconds);
+            return tokenResponse;
+        }
+
+        @Override
+        protected boolean isSharedTierEnabled() {
+
+            return false;
+        }
+
+        @Override
+        protected Timer.Context startRefreshTimer() {
+
+            return null;
+        }
+
+        @Override
+        protected void recordRefreshFailure() {
+
+            failures.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.mediators.webhooks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assert;
+import org.junit.Test;
+import org.wso2.carbon.apimgt.impl.APIConstants;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class DeliveryStatusPublisherTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    public void testLatestStatusIsPersisted() throws Exception {
+
+        RecordingPublisher publisher = new RecordingPublisher(10, 10);
+        publisher.update("api", "app", "carbon.super", "http://cb1", "topic", 0);
+        publisher.update("api", "app", "carbon.super", "http://cb1", "topic", 1);
+        publisher.update("api", "app", "carbon.super", "http://cb2", "topic", 0);
+        Assert.assertEquals(2, publisher.getPendingCount());
+
+        publisher.flush();
+        Assert.assertEquals(0, publisher.getPendingCount());
+        Assert.assertEquals(1, publisher.bodies.size());
+        JsonNode events = MAPPER.readTree(publisher.bodies.get(0));
+        Assert.assertEquals(2, events.size());
+        for (JsonNode event : events) {
+            int expected = "http://cb1".equals(event.get(APIConstants.Webhooks.CALLBACK_PROPERTY).asText()) ? 1 : 0;
+            Assert.assertEquals(expected, event.get(APIConstants.Webhooks.STATUS_PROPERTY).asInt());
+            Assert.assertTrue(event.get("timeStamp").asLong() > 0);
+        }
+    }
+
+    @Test
+    public void testStatusesAreBoundedAndBatched() throws Exception {
+
+        RecordingPublisher publisher = new RecordingPublisher(5, 2);
+        for (int i = 0; i < 7; i++) {
+            publisher.update("api", "app", "carbon.super", "http://cb" + i, "topic", 1);
+        }
+        Assert.assertEquals(5, publisher.getPendingCount());
+        Assert.assertEquals(2, publisher.getDroppedCount());
+        // A pending subscription is still updated while the buffer is full
+        Assert.assertTrue(publisher.update("api", "app", "carbon.super", "http://cb0", "topic", 0));
+
+        publisher.flush();
+        Assert.assertEquals(3, publisher.bodies.size());
+        Assert.assertEquals(2, MAPPER.readTree(publisher.bodies.get(0)).size());
+        Assert.assertEquals(1, MAPPER.readTree(publisher.bodies.get(2)).size());
+    }
+
+    @Test
+    public void testFailedBatchIsKept() throws Exception {
+
+        RecordingPublisher publisher = new RecordingPublisher(10, 10);
+        publisher.accept = false;
+        publisher.update("api", "app", "carbon.super", "http://cb1", "topic", 0);
+        publisher.update("api", "app", "carbon.super", "http://cb2", "topic", 0);
+        publisher.flush();
+        Assert.assertEquals(2, publisher.getPendingCount());
+
+        publisher.accept = true;
+        publisher.update("api", "app", "carbon.super", "http://cb1", "topic", 1);
+        publisher.flush();
+        Assert.assertEquals(0, publisher.getPendingCount());
+        JsonNode events = MAPPER.readTree(publisher.bodies.get(1));
+        Assert.assertEquals(2, events.size());
+    }
+
+    @Test
+    public void testBatchIsKeptOnRuntimeException() throws Exception {
+
+        RecordingPublisher publisher = new RecordingPublisher(10, 10);
+        publisher.failure = new IllegalStateException("Event hub is not configured");
+        publisher.update("api", "app", "carbon.super", "http://cb1", "topic", 0);
+        publisher.flush();
+        Assert.assertEquals(1, publisher.getPendingCount());
+
+        publisher.failure = null;
+        publisher.flush();
+        Assert.assertEquals(0, publisher.getPendingCount());
+        Assert.assertEquals(1, publisher.bodies.size());
+    }
+
+    @Test
+    public void testStatusesAreSentOneByOneWhenBulkEventsAreIgnored() throws Exception {
+
+        RecordingPublisher publisher = new RecordingPublisher(10, 10);
+        publisher.bulkHandled = false;
+        publisher.update("api", "app", "carbon.super", "http://cb1", "topic", 0);
+        publisher.update("api", "app", "carbon.super", "http://cb2", "topic", 1);
+        publisher.flush();
+        Assert.assertEquals(0, publisher.getPendingCount());
+        // The ignored batch, then each of its statuses
+        Assert.assertEquals(3, publisher.bodies.size());
+        Assert.assertEquals(APIConstants.Webhooks.DELIVERY_EVENT_TYPE, publisher.eventTypes.get(1));
+        Assert.assertTrue(MAPPER.readTree(publisher.bodies.get(1)).isObject());
+
+        publisher.update("api", "app", "carbon.super", "http://cb1", "topic", 1);
+        publisher.flush();
+        Assert.assertEquals(4, publisher.bodies.size());
+        Assert.assertEquals(APIConstants.Webhooks.DELIVERY_EVENT_TYPE, publisher.eventTypes.get(3));
+    }
+
+    private static class RecordingPublisher extends DeliveryStatusPublisher {
+
+        private final List<String> bodies = new ArrayList<>();
+        private final List<String> eventTypes = new ArrayList<>();
+        private boolean accept = true;
+        private boolean bulkHandled = true;
+        private RuntimeException failure;
+
+        RecordingPublisher(int maxPending, int batchSize) {
+
+            super(maxPending, batchSize, 0);
+        }
+
+        @Override
+        protected PersistResult persist(String body, String eventType) {
+
+            if (failure != null) {
+                throw failure;
+            }
+            bodies.add(body);
+            eventTypes.add(eventType);
+            if (!accept) {
+                return PersistResult.FAILED;
+            }
+            return bulkHandled || !APIConstants.Webhooks.BULK_DELIVERY_EVENT_TYPE.equals(eventType)
+                    ? PersistResult.ACCEPTED : PersistResult.IGNORED;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.service;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.wso2.carbon.apimgt.gateway.handlers.Utils;
+import org.wso2.carbon.apimgt.gateway.handlers.security.GatewayNearCache;
+import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
+import org.wso2.carbon.base.MultitenantConstants;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+
+import javax.cache.Cache;
+
+/**
+ * Test class for the near cache invalidation of revoked tokens.
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({Utils.class, ServiceReferenceHolder.class, PrivilegedCarbonContext.class})
+public class RevokedTokenDataImplTestCase {
+
+    private final GatewayNearCache nearCache = new GatewayNearCache(true, 100, 60);
+    private final Cache backingCache = Mockito.mock(Cache.class);
+
+    @Before
+    public void setup() {
+
+        ServiceReferenceHolder serviceReferenceHolder = Mockito.mock(ServiceReferenceHolder.class);
+        PowerMockito.mockStatic(ServiceReferenceHolder.class);
+        PowerMockito.when(ServiceReferenceHolder.getInstance()).thenReturn(serviceReferenceHolder);
+        Mockito.when(serviceReferenceHolder.getGatewayNearCache()).thenReturn(nearCache);
+        PowerMockito.mockStatic(PrivilegedCarbonContext.class);
+        PowerMockito.when(PrivilegedCarbonContext.getThreadLocalCarbonContext())
+                .thenReturn(Mockito.mock(PrivilegedCarbonContext.class));
+        nearCache.put(GatewayNearCache.Tier.GATEWAY_TOKEN, "a.com", "token", "a.com");
+        nearCache.put(GatewayNearCache.Tier.GATEWAY_KEY, "a.com", "token", "token:/api/1.0/*:GET:Any", "info");
+    }
+
+    @Test
+    public void testRevokedTokenIsRemovedFromNearCacheAfterBackingCacheExpiry() {
+
+        PowerMockito.mockStatic(Utils.class);
+        // The backing cache entry of the token already expired
+        PowerMockito.when(Utils.getCachedTenantDomain("token")).thenReturn(null);
+
+        new RevokedTokenDataImpl().removeTokenFromGatewayCache("token", false);
+        assertTokenIsNotCached();
+    }
+
+    @Test
+    public void testTokenRemovedFromTenantCacheIsRemovedFromNearCache() {
+
+        Utils.removeTokenFromTenantTokenCache("token", MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+        assertTokenIsNotCached();
+    }
+
+    private void assertTokenIsNotCached() {
+
+        Assert.assertNull(nearCache.get(GatewayNearCache.Tier.GATEWAY_TOKEN, "a.com", "token", () -> backingCache));
+        Assert.assertNull(nearCache.get(GatewayNearCache.Tier.GATEWAY_KEY, "a.com", "token",
+                "token:/api/1.0/*:GET:Any", () -> backingCache));
+    }
+}
@@ -18,10 +18,16 @@
 
 package org.wso2.carbon.apimgt.gateway.throttling;
 
+import org.junit.Assert;
 import org.junit.Test;
+import org.wso2.carbon.apimgt.gateway.dto.IPRange;
+import org.wso2.carbon.apimgt.impl.APIConstants;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 
 public class ThrottleDataHolderTest {
@@ -66,6 +72,40 @@ public class ThrottleDataHolderTest {
 
     @Test
     public void addIplockingCondition() throws Exception {
+        ThrottleDataHolder throttleDataHolder = new ThrottleDataHolder();
+        throttleDataHolder.addIpBlockingCondition("carbon.super", 1, "{\"fixedIp\":\"127.0.0.1\",\"invert\":false}",
+                APIConstants.BLOCKING_CONDITIONS_IP);
+        throttleDataHolder.addIpBlockingCondition("carbon.super", 2,
+                "{\"startingIp\":\"10.0.0.1\",\"endingIp\":\"10.0.0.100\",\"invert\":false}",
+                APIConstants.BLOCK_CONDITION_IP_RANGE);
+        throttleDataHolder.addIpBlockingCondition("carbon.super", 3,
+                "{\"startingIp\":\"2001:db8::1\",\"endingIp\":\"2001:db8::ff\",\"invert\":false}",
+                APIConstants.BLOCK_CONDITION_IP_RANGE);
+        Assert.assertTrue(isIpBlocked(throttleDataHolder, "carbon.super", "127.0.0.1"));
+        Assert.assertTrue(isIpBlocked(throttleDataHolder, "carbon.super", "10.0.0.50"));
+        Assert.assertTrue(isIpBlocked(throttleDataHolder, "carbon.super", "2001:db8:0:0:0:0:0:10"));
+        // Range bounds are exclusive
+        Assert.assertFalse(isIpBlocked(throttleDataHolder, "carbon.super", "10.0.0.1"));
+        Assert.assertFalse(isIpBlocked(throttleDataHolder, "carbon.super", "10.0.0.100"));
+        Assert.assertFalse(isIpBlocked(throttleDataHolder, "carbon.super", "192.168.1.1"));
+        Assert.assertFalse(isIpBlocked(throttleDataHolder, "abc.com", "127.0.0.1"));
+
+        throttleDataHolder.addIpBlockingCondition("abc.com", 4, "{\"fixedIp\":\"127.0.0.1\",\"invert\":true}",
+                APIConstants.BLOCKING_CONDITIONS_IP);
+        Assert.assertFalse(isIpBlocked(throttleDataHolder, "abc.com", "127.0.0.1"));
+        Assert.assertTrue(isIpBlocked(throttleDataHolder, "abc.com", "127.0.0.2"));
+        throttleDataHolder.addIpBlockingCondition("abc.com", 5,
+                "{\"startingIp\":\"127.0.0.0\",\"endingIp\":\"127.0.0.10\",\"invert\":true}",
+                APIConstants.BLOCK_CONDITION_IP_RANGE);
+        Assert.assertFalse(isIpBlocked(throttleDataHolder, "abc.com", "127.0.0.1"));
+        throttleDataHolder.removeIpBlockingCondition("abc.com", 4);
+        Assert.assertFalse(isIpBlocked(throttleDataHolder, "abc.com", "127.0.0.2"));
+        Assert.assertTrue(isIpBlocked(throttleDataHolder, "abc.com", "127.0.0.11"));
+    }
+
+    private boolean isIpBlocked(ThrottleDataHolder throttleDataHolder, String tenantDomain, String ip) {
+        return throttleDataHolder.isRequestBlocked("/api1/1.0.0", "admin:DefaultApplication", "admin", ip,
+                tenantDomain, "/api1/1.0.0:1.0.0:admin-DefaultApplication:PRODUCTION");
     }
 
     @Test
@@ -74,6 +114,17 @@ public class ThrottleDataHolderTest {
 
     @Test
     public void addIplockingConditionsFromMap() throws Exception {
+        IPRange ipRange = new IPRange();
+        ipRange.setId(1);
+        ipRange.setTenantDomain("carbon.super");
+        ipRange.setType(APIConstants.BLOCKING_CONDITIONS_IP);
+        ipRange.setFixedIp("127.0.0.1");
+        Map<String, Set<IPRange>> map = new HashMap<>();
+        map.put("carbon.super", new HashSet<>(Collections.singletonList(ipRange)));
+        ThrottleDataHolder throttleDataHolder = new ThrottleDataHolder();
+        throttleDataHolder.addIplockingConditionsFromMap(map);
+        Assert.assertTrue(isIpBlocked(throttleDataHolder, "carbon.super", "127.0.0.1"));
+        Assert.assertFalse(isIpBlocked(throttleDataHolder, "carbon.super", "127.0.0.2"));
     }
 
     @Test
@@ -98,6 +149,12 @@ public class ThrottleDataHolderTest {
 
     @Test
     public void removeIpBlockingCondition() throws Exception {
+        ThrottleDataHolder throttleDataHolder = new ThrottleDataHolder();
+        throttleDataHolder.addIpBlockingCondition("carbon.super", 1, "{\"fixedIp\":\"127.0.0.1\",\"invert\":false}",
+                APIConstants.BLOCKING_CONDITIONS_IP);
+        Assert.assertTrue(isIpBlocked(throttleDataHolder, "carbon.super", "127.0.0.1"));
+        throttleDataHolder.removeIpBlockingCondition("carbon.super", 1);
+        Assert.assertFalse(isIpBlocked(throttleDataHolder, "carbon.super", "127.0.0.1"));
     }
 
     @Test
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.throttling;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ThrottleDecisionStoreTest {
+
+    @Test
+    public void testExpiredDecisionIsDroppedOnCheck() {
+
+        ThrottleDecisionStore store = new ThrottleDecisionStore();
+        long nextAccessTimestamp = System.currentTimeMillis() + 60000;
+        store.put("throttled", nextAccessTimestamp);
+        store.put("expired", System.currentTimeMillis() - 1000);
+        Assert.assertTrue(store.isThrottled("throttled"));
+        Assert.assertEquals(nextAccessTimestamp, store.getNextAccessTimestamp("throttled"));
+        Assert.assertFalse(store.isThrottled("expired"));
+        Assert.assertFalse(store.isThrottled("unknown"));
+        Assert.assertEquals(0, store.getNextAccessTimestamp("unknown"));
+        Assert.assertEquals(1, store.getSize());
+        Assert.assertEquals(1, store.getExpiredCount());
+    }
+
+    @Test
+    public void testSweepDropsExpiredDecisions() {
+
+        List<String> expiredKeys = new ArrayList<>();
+        ThrottleDecisionStore store = new ThrottleDecisionStore(100, expiredKeys::add);
+        for (int i = 0; i < 10; i++) {
+            store.put("expired" + i, System.currentTimeMillis() - 1000);
+        }
+        store.put("throttled", System.currentTimeMillis() + 60000);
+        store.sweep();
+        Assert.assertEquals(1, store.getSize());
+        Assert.assertEquals(10, store.getExpiredCount());
+        Assert.assertEquals(10, expiredKeys.size());
+        Assert.assertTrue(store.isThrottled("throttled"));
+    }
+
+    @Test
+    public void testSizeIsCapped() {
+
+        ThrottleDecisionStore store = new ThrottleDecisionStore(100, null);
+        for (int i = 0; i < 1000; i++) {
+            store.put("key" + i, System.currentTimeMillis() + 60000);
+        }
+        Assert.assertTrue(store.getSize() <= 100);
+        Assert.assertEquals(1000, store.getSize() + store.getEvictedCount());
+    }
+
+    @Test
+    public void testDecisionsExpiringSoonestAreEvictedOnOverflow() {
+
+        List<String> evictedKeys = new ArrayList<>();
+        ThrottleDecisionStore store = new ThrottleDecisionStore(10, evictedKeys::add);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 5; i++) {
+            store.put("long" + i, now + 600000);
+        }
+        for (int i = 0; i < 10; i++) {
+            store.put("short" + i, now + 60000 + i);
+        }
+        Assert.assertTrue(store.getSize() <= 10);
+        Assert.assertEquals(15, store.getSize() + store.getEvictedCount());
+        for (int i = 0; i < 5; i++) {
+            Assert.assertTrue(store.isThrottled("long" + i));
+        }
+        for (String evictedKey : evictedKeys) {
+            Assert.assertTrue(evictedKey.startsWith("short"));
+        }
+        // The short decision expiring last is kept
+        Assert.assertTrue(store.isThrottled("short9"));
+    }
+
+    @Test
+    public void testExpiredDecisionsAreDroppedBeforeEvictingOnOverflow() {
+
+        ThrottleDecisionStore store = new ThrottleDecisionStore(10, null);
+        for (int i = 0; i < 5; i++) {
+            store.put("expired" + i, System.currentTimeMillis() - 1000);
+        }
+        for (int i = 0; i < 6; i++) {
+            store.put("throttled" + i, System.currentTimeMillis() + 60000);
+        }
+        Assert.assertEquals(6, store.getSize());
+        Assert.assertEquals(5, store.getExpiredCount());
+        Assert.assertEquals(0, store.getEvictedCount());
+        for (int i = 0; i < 6; i++) {
+            Assert.assertTrue(store.isThrottled("throttled" + i));
+        }
+    }
+
+    @Test
+    public void testExpiredApiKeyConditionsAreRemoved() {
+
+        ThrottleDataHolder throttleDataHolder = new ThrottleDataHolder();
+        throttleDataHolder.addThrottledAPIKey("/api/1.0.0", System.currentTimeMillis() - 1000);
+        throttleDataHolder.addThrottledApiConditions("/api/1.0.0", "condition", new ArrayList<>());
+        throttleDataHolder.addThrottleData("/api/1.0.0_default", System.currentTimeMillis() - 1000);
+        Assert.assertEquals(2, throttleDataHolder.getThrottleDecisionCount());
+        throttleDataHolder.sweepExpiredDecisions();
+        Assert.assertEquals(0, throttleDataHolder.getThrottleDecisionCount());
+        Assert.assertEquals(2, throttleDataHolder.getExpiredThrottleDecisionCount());
+        Assert.assertFalse(throttleDataHolder.isConditionsAvailable("/api/1.0.0"));
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.apimgt.gateway.throttling.local;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.wso2.carbon.apimgt.gateway.throttling.ThrottleDataHolder;
+import org.wso2.carbon.apimgt.impl.APIConstants.PolicyType;
+import org.wso2.carbon.apimgt.throttle.policy.deployer.dto.QuotaPolicy;
+import org.wso2.carbon.apimgt.throttle.policy.deployer.dto.RequestCountLimit;
+
+import java.util.concurrent.TimeUnit;
+
+public class LocalThrottleEngineTest {
+
+    private final ThrottleDataHolder throttleDataHolder = Mockito.mock(ThrottleDataHolder.class);
+
+    private LocalThrottleEngine createEngine() {
+
+        // The whole limit may be sent at once, so that the buckets can be emptied without waiting
+        return createEngine(100);
+    }
+
+    private LocalThrottleEngine createEngine(int burstTolerancePercentage) {
+
+        return new LocalThrottleEngine(burstTolerancePercentage) {
+            @Override
+            protected ThrottleDataHolder getThrottleDataHolder() {
+
+                return throttleDataHolder;
+            }
+        };
+    }
+
+    @Test
+    public void testRequestsBeyondLimitAreThrottled() {
+
+        LocalThrottleEngine engine = createEngine();
+        engine.addLimit(PolicyType.APPLICATION, "carbon.super", "10PerMin",
+                new LocalThrottleLimit(10, TimeUnit.MINUTES.toNanos(1), true));
+        LocalThrottleLimit limit = engine.getLimit(PolicyType.APPLICATION, "carbon.super", "10PerMin");
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(engine.tryAcquire("1:admin@carbon.super", limit));
+        }
+        Assert.assertFalse(engine.tryAcquire("1:admin@carbon.super", limit));
+        Assert.assertTrue(engine.tryAcquire("2:admin@carbon.super", limit));
+        Assert.assertTrue(engine.getNextAccessTimestamp("1:admin@carbon.super") > System.currentTimeMillis());
+        Assert.assertEquals(11, engine.getAllowedCount());
+        Assert.assertEquals(1, engine.getThrottledCount());
+    }
+
+    @Test
+    public void testBurstIsLimitedToTheBurstTolerance() {
+
+        LocalThrottleEngine engine = createEngine(10);
+        LocalThrottleLimit limit = new LocalThrottleLimit(100, TimeUnit.MINUTES.toNanos(1), true);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(engine.tryAcquire("key", limit));
+        }
+        Assert.assertFalse(engine.tryAcquire("key", limit));
+
+        // A limit too small for a burst still allows a single request
+        LocalThrottleLimit smallLimit = new LocalThrottleLimit(5, TimeUnit.MINUTES.toNanos(1), true);
+        Assert.assertTrue(engine.tryAcquire("small", smallLimit));
+        Assert.assertFalse(engine.tryAcquire("small", smallLimit));
+    }
+
+    @Test
+    public void testWindowDoesNotAllowMoreThanTheLimitAndTheBurst() {
+
+        long window = TimeUnit.SECONDS.toNanos(1);
+        LocalThrottleLimit limit = new LocalThrottleLimit(100, window, true);
+        for (long burstSize : new long[]{1, 10, 100}) {
+            LocalRateLimiter rateLimiter = new LocalRateLimiter(limit, burstSize, 0);
+            // A request every 100 microseconds for two windows, ten times the rate of the limit
+            long step = TimeUnit.MICROSECONDS.toNanos(100);
+            long[] allowedAt = new long[20000];
+            int allowed = 0;
+            for (long now = 0; now < 2 * window; now += step) {
+                if (rateLimiter.tryAcquire(now)) {
+                    allowedAt[allowed++] = now;
+                }
+            }
+            // Any window of the limit holds at most the limit and the burst
+            for (int first = 0, last = 0; last < allowed; last++) {
+                while (allowedAt[last] - allowedAt[first] >= window) {
+                    first++;
+                }
+                Assert.assertTrue("Burst of " + burstSize, last - first < limit.getRequestCount() + burstSize);
+            }
+            Assert.assertTrue("Burst of " + burstSize, allowed >= 2 * limit.getRequestCount());
+        }
+    }
+
+    @Test
+    public void testLimitsOfPolicies() {
+
+        LocalThrottleEngine engine = createEngine();
+        engine.addLimit(PolicyType.SUBSCRIPTION, "carbon.super", "Gold",
+                new LocalThrottleLimit(10, TimeUnit.MINUTES.toNanos(1), true));
+        LocalThrottleLimit limit = engine.getLimit(PolicyType.SUBSCRIPTION, "carbon.super", "Gold");
+        Assert.assertEquals(10, limit.getRequestCount());
+        Assert.assertNull(engine.getLimit(PolicyType.API, "carbon.super", "Gold"));
+        engine.removeLimit(PolicyType.SUBSCRIPTION, "carbon.super", "Gold");
+        Assert.assertNull(engine.getLimit(PolicyType.SUBSCRIPTION, "carbon.super", "Gold"));
+    }
+
+    @Test
+    public void testRejectedRequestIsNotCountedByOtherPolicies() {
+
+        LocalThrottleEngine engine = createEngine();
+        LocalThrottleLimit subscriptionLimit = new LocalThrottleLimit(1, TimeUnit.MINUTES.toNanos(1), true);
+        LocalThrottleLimit apiLimit = new LocalThrottleLimit(2, TimeUnit.MINUTES.toNanos(1), true);
+        String[] keys = {"subscription", "api"};
+        LocalThrottleLimit[] limits = {subscriptionLimit, apiLimit};
+        Assert.assertEquals(-1, engine.tryAcquireAll(keys, limits));
+        Assert.assertEquals(0, engine.tryAcquireAll(keys, limits));
+        // The API bucket still holds the request that the subscription policy rejected
+        Assert.assertTrue(engine.tryAcquire("api", apiLimit));
+        Assert.assertFalse(engine.tryAcquire("api", apiLimit));
+
+        String[] reversedKeys = {"api2", "subscription2"};
+        Assert.assertEquals(-1, engine.tryAcquireAll(reversedKeys, new LocalThrottleLimit[]{apiLimit,
+                subscriptionLimit}));
+        Assert.assertEquals(1, engine.tryAcquireAll(reversedKeys, new LocalThrottleLimit[]{apiLimit,
+                subscriptionLimit}));
+        Assert.assertTrue(engine.tryAcquire("api2", apiLimit));
+    }
+
+    @Test
+    public void testReconcileAppliesTrafficManagerDecisionsAndReleasesIdleKeys() {
+
+        LocalThrottleEngine engine = createEngine();
+        LocalThrottleLimit limit = new LocalThrottleLimit(1000, TimeUnit.MILLISECONDS.toNanos(1), true);
+        Assert.assertTrue(engine.tryAcquire("throttled", limit));
+        Assert.assertTrue(engine.tryAcquire("idle", limit));
+        Mockito.when(throttleDataHolder.isThrottled("throttled")).thenReturn(true);
+        Mockito.when(throttleDataHolder.getThrottleNextAccessTimestamp("throttled"))
+                .thenReturn(System.currentTimeMillis() + 60000);
+        engine.reconcile();
+        Assert.assertEquals(1, engine.getActiveKeyCount());
+        Assert.assertFalse(engine.tryAcquire("throttled", limit));
+    }
+
+    @Test
+    public void testPolicyLimitConversion() {
+
+        QuotaPolicy quotaPolicy = new QuotaPolicy();
+        quotaPolicy.setQuotaType("requestCount");
+        RequestCountLimit requestCountLimit = new RequestCountLimit();
+        requestCountLimit.setRequestCount(50);
+        requestCountLimit.setUnitTime(2);
+        requestCountLimit.setTimeUnit("hour");
+        quotaPolicy.setRequestCount(requestCountLimit);
+        LocalThrottleLimit limit = LocalThrottlePolicyLoader.toLimit(quotaPolicy, false);
+        Assert.assertNotNull(limit);
+        Assert.assertEquals(50, limit.getRequestCount());
+        Assert.assertEquals(TimeUnit.HOURS.toNanos(2), limit.getWindowInNanos());
+        Assert.assertFalse(limit.isStopOnQuotaReach());
+
+        quotaPolicy.setQuotaType("bandwidthVolume");
+        Assert.assertNull(LocalThrottlePolicyLoader.toLimit(quotaPolicy, true));
+        Assert.assertEquals(TimeUnit.DAYS.toNanos(30), LocalThrottleLimit.toNanos(1, "month"));
+        Assert.assertEquals(-1, LocalThrottleLimit.toNanos(1, "fortnight"));
+    }
+}
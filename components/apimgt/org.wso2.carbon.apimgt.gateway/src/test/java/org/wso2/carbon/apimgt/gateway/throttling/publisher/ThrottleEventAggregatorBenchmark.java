@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.throttling.publisher;
+
+import org.json.simple.JSONObject;
+import org.mockito.Mockito;
+import org.wso2.carbon.apimgt.gateway.handlers.throttling.APIThrottleConstants;
+import org.wso2.carbon.databridge.agent.DataPublisher;
+import org.wso2.carbon.databridge.commons.Event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compares publishing one throttle event per request with publishing the events aggregated by
+ * {@link ThrottleEventAggregator}, for the same requests spread over a number of throttle key combinations. It reports
+ * the requests per second handled by the request threads and the number of events which reach the data publisher,
+ * i.e. the load on the traffic manager. It is not a unit test, so it is not run by the build. Run it from the module
+ * directory, with the test classpath, as
+ * <pre>
+ * java -cp target/classes:target/test-classes:&lt;test dependencies&gt; \
+ *     org.wso2.carbon.apimgt.gateway.throttling.publisher.ThrottleEventAggregatorBenchmark \
+ *     [threads] [requests per thread] [key combinations]
+ * </pre>
+ * The per request mode builds the event as DataProcessAndPublishingAgent does and hands it to a pool with the default
+ * bounded queue of the data publisher thread pool, as ThrottleDataPublisher does. The data publisher accepts and
+ * counts every event without sending it.
+ */
+public class ThrottleEventAggregatorBenchmark {
+
+    private static final String STREAM_ID = "org.wso2.throttle.request.stream:1.0.0";
+    private static final int DEFAULT_THREADS = 8;
+    private static final int DEFAULT_REQUESTS = 1000000;
+    private static final int DEFAULT_KEYS = 1000;
+    private static final int CORE_POOL_SIZE = 200;
+    private static final int MAXIMUM_POOL_SIZE = 1000;
+    private static final int MAX_QUEUE_SIZE = 100000;
+    private static final long WINDOW_IN_MILLIS = 100;
+    private static final int MAX_PENDING_KEYS = 10000;
+    private static final long MESSAGE_SIZE = 512;
+
+    private static final LongAdder published = new LongAdder();
+
+    public static void main(String[] args) throws Exception {
+
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_THREADS;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_REQUESTS;
+        int keyCount = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_KEYS;
+
+        DataPublisher dataPublisher = Mockito.mock(DataPublisher.class, Mockito.withSettings().stubOnly());
+        Mockito.when(dataPublisher.tryPublish(Mockito.any(Event.class))).thenAnswer(invocation -> {
+            published.increment();
+            return true;
+        });
+        String[][] keys = new String[keyCount][];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = new String[]{i + ":admin@carbon.super", "Unlimited", "/test:1.0.0", "", i + ":/test:1.0.0",
+                    "Gold", "/test/1.0.0/*:GET", "Unlimited", "admin@carbon.super", "/test", "1.0.0", "carbon.super",
+                    "carbon.super", String.valueOf(i), "test"};
+        }
+
+        // The first runs warm up the code of both modes
+        runPerRequest(dataPublisher, keys, threads, requests / 10);
+        runAggregated(dataPublisher, keys, threads, requests / 10);
+        report("per request", threads, requests, runPerRequest(dataPublisher, keys, threads, requests));
+        report("aggregated", threads, requests, runAggregated(dataPublisher, keys, threads, requests));
+    }
+
+    private static Result runPerRequest(DataPublisher dataPublisher, String[][] keys, int threads, int requests)
+            throws Exception {
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(CORE_POOL_SIZE, MAXIMUM_POOL_SIZE, 200,
+                TimeUnit.SECONDS, new LinkedBlockingDeque<>(MAX_QUEUE_SIZE));
+        LongAdder rejected = new LongAdder();
+        published.reset();
+        try {
+            long elapsed = runRequests(threads, requests, (thread, request) -> {
+                String[] key = keys[(thread + request * threads) % keys.length];
+                try {
+                    executor.execute(() -> dataPublisher.tryPublish(toEvent(key)));
+                } catch (RejectedExecutionException e) {
+                    rejected.increment();
+                }
+            });
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+            return new Result(elapsed, published.sum(), rejected.sum());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Result runAggregated(DataPublisher dataPublisher, String[][] keys, int threads, int requests)
+            throws Exception {
+
+        // The keys are built once per combination, as WebsocketThrottleContext does per connection
+        ThrottleEventAggregator.AggregationKey[] aggregationKeys = new ThrottleEventAggregator.AggregationKey[
+                keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            String[] key = keys[i];
+            aggregationKeys[i] = new ThrottleEventAggregator.AggregationKey(key[0], key[1], key[2], key[3], key[4],
+                    key[5], key[6], key[7], key[8], key[9], key[10], key[11], key[12], key[13], key[14]);
+        }
+        ThrottleEventAggregator aggregator = new ThrottleEventAggregator(MAX_PENDING_KEYS, false) {
+            @Override
+            protected DataPublisher getDataPublisher() {
+
+                return dataPublisher;
+            }
+        };
+        published.reset();
+        aggregator.start(WINDOW_IN_MILLIS);
+        long elapsed;
+        try {
+            elapsed = runRequests(threads, requests, (thread, request) -> {
+                int index = (thread + request * threads) % keys.length;
+                if (!aggregator.add(aggregationKeys[index], MESSAGE_SIZE)) {
+                    dataPublisher.tryPublish(toEvent(keys[index]));
+                }
+            });
+        } finally {
+            aggregator.stop();
+        }
+        return new Result(elapsed, published.sum(), 0);
+    }
+
+    private static long runRequests(int threads, int requests, Request request) throws Exception {
+
+        ExecutorService requestThreads = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>(threads);
+        try {
+            for (int i = 0; i < threads; i++) {
+                int thread = i;
+                futures.add(requestThreads.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < requests; j++) {
+                        request.handle(thread, j);
+                    }
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return System.nanoTime() - begin;
+        } finally {
+            requestThreads.shutdownNow();
+        }
+    }
+
+    /**
+     * Builds the throttle event of a single request, as DataProcessAndPublishingAgent does.
+     */
+    private static Event toEvent(String[] attributes) {
+
+        JSONObject jsonObMap = new JSONObject();
+        jsonObMap.put(APIThrottleConstants.MESSAGE_SIZE, MESSAGE_SIZE);
+        Object[] objects = new Object[attributes.length + 2];
+        objects[0] = UUID.randomUUID().toString();
+        System.arraycopy(attributes, 0, objects, 1, attributes.length);
+        objects[objects.length - 1] = jsonObMap.toString();
+        return new Event(STREAM_ID, System.currentTimeMillis(), null, null, objects);
+    }
+
+    private static void report(String mode, int threads, int requests, Result result) {
+
+        long total = (long) threads * requests;
+        double elapsedMillis = result.elapsedNanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        System.out.println(String.format("%-12s %10d requests %10.1f ms %14.1f requests/s %10d events published "
+                        + "%10d events rejected", mode, total, elapsedMillis, total * 1000 / elapsedMillis,
+                result.published, result.rejected));
+    }
+
+    private interface Request {
+
+        void handle(int thread, int request);
+    }
+
+    private static class Result {
+
+        private final long elapsedNanos;
+        private final long published;
+        private final long rejected;
+
+        Result(long elapsedNanos, long published, long rejected) {
+
+            this.elapsedNanos = elapsedNanos;
+            this.published = published;
+            this.rejected = rejected;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.apimgt.gateway.throttling.publisher;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.wso2.carbon.databridge.agent.DataPublisher;
+import org.wso2.carbon.databridge.commons.Event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class ThrottleEventAggregatorTest {
+
+    private static final Pattern EVENT_COUNT = Pattern.compile("\"eventCount\":(\\d+)");
+    private static final Pattern MESSAGE_SIZE = Pattern.compile("\"messageSize\":(\\d+)");
+
+    private final DataPublisher dataPublisher = Mockito.mock(DataPublisher.class);
+
+    private ThrottleEventAggregator createAggregator(int maxPendingKeys) {
+
+        return new ThrottleEventAggregator(maxPendingKeys, false) {
+            @Override
+            protected DataPublisher getDataPublisher() {
+
+                return dataPublisher;
+            }
+        };
+    }
+
+    private boolean add(ThrottleEventAggregator aggregator, String appKey, long messageSize) {
+
+        return aggregator.add(appKey, "Unlimited", "/test:1.0.0", "", "/test:1.0.0:admin-app", "Gold",
+                "/test/1.0.0/*:GET", "Unlimited", "admin", "/test", "1.0.0", "carbon.super", "carbon.super", "1",
+                "test", messageSize);
+    }
+
+    @Test
+    public void testRequestsOfSameKeysArePublishedAsSingleEvent() {
+
+        ThrottleEventAggregator aggregator = createAggregator(10);
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertTrue(add(aggregator, "1:admin", 10));
+        }
+        aggregator.flush();
+        ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
+        Mockito.verify(dataPublisher, Mockito.times(1)).tryPublish(eventCaptor.capture());
+        Object[] payload = eventCaptor.getValue().getPayloadData();
+        Assert.assertEquals(17, payload.length);
+        Assert.assertEquals("1:admin", payload[1]);
+        Assert.assertEquals("test", payload[15]);
+        Assert.assertTrue(payload[16].toString().contains("\"eventCount\":1000"));
+        Assert.assertTrue(payload[16].toString().contains("\"messageSize\":10000"));
+        Assert.assertEquals(1000, aggregator.getAggregatedCount());
+        Assert.assertEquals(1, aggregator.getPublishedCount());
+    }
+
+    @Test
+    public void testIdleKeysAreRetiredAndLimitIsEnforced() {
+
+        ThrottleEventAggregator aggregator = createAggregator(1);
+        Assert.assertTrue(add(aggregator, "1:admin", 0));
+        Assert.assertFalse(add(aggregator, "2:admin", 0));
+        Assert.assertEquals(1, aggregator.getOverflowCount());
+        aggregator.flush();
+        aggregator.flush();
+        Assert.assertEquals(0, aggregator.getPendingKeyCount());
+        Assert.assertTrue(add(aggregator, "2:admin", 0));
+        aggregator.flush();
+        Mockito.verify(dataPublisher, Mockito.times(2)).tryPublish(Mockito.any(Event.class));
+    }
+
+    @Test
+    public void testPropertiesOfKeyArePublished() {
+
+        ThrottleEventAggregator aggregator = createAggregator(10);
+        ThrottleEventAggregator.AggregationKey key = new ThrottleEventAggregator.AggregationKey("1:admin",
+                "Unlimited", "/test:1.0.0", "", "/test:1.0.0:admin-app", "Gold", "/test:1.0.0", "", "admin",
+                "/test", "1.0.0", "carbon.super", "carbon.super", "1", "test");
+        Assert.assertTrue(aggregator.add(key.withProperty("ip", 3232235620L), 10));
+        Assert.assertTrue(aggregator.add(key.withProperty("ip", 3232235621L), 10));
+        Assert.assertTrue(aggregator.add(key.withProperty("ip", 3232235620L), 10));
+        Assert.assertEquals(2, aggregator.getPendingKeyCount());
+        aggregator.flush();
+        ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
+        Mockito.verify(dataPublisher, Mockito.times(2)).tryPublish(eventCaptor.capture());
+        boolean found = false;
+        for (Event event : eventCaptor.getAllValues()) {
+            String properties = event.getPayloadData()[16].toString();
+            if (properties.contains("\"ip\":3232235620")) {
+                Assert.assertTrue(properties.contains("\"eventCount\":2"));
+                found = true;
+            }
+        }
+        Assert.assertTrue(found);
+    }
+
+    @Test
+    public void testCountAndSizeOfConcurrentRequestsArePublishedTogether() throws Exception {
+
+        ThrottleEventAggregator aggregator = createAggregator(10);
+        int threads = 4;
+        int requests = 100000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < requests; j++) {
+                        Assert.assertTrue(add(aggregator, "1:admin", 10));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                while (!future.isDone()) {
+                    aggregator.flush();
+                }
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        aggregator.flush();
+
+        ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
+        Mockito.verify(dataPublisher, Mockito.atLeastOnce()).tryPublish(eventCaptor.capture());
+        long publishedRequests = 0;
+        for (Event event : eventCaptor.getAllValues()) {
+            String properties = event.getPayloadData()[16].toString();
+            long count = getLong(EVENT_COUNT, properties);
+            // Each event carries the size of exactly the requests it counts
+            Assert.assertEquals(count * 10, getLong(MESSAGE_SIZE, properties));
+            publishedRequests += count;
+        }
+        Assert.assertEquals((long) threads * requests, publishedRequests);
+    }
+
+    private static long getLong(Pattern pattern, String properties) {
+
+        Matcher matcher = pattern.matcher(properties);
+        Assert.assertTrue(properties, matcher.find());
+        return Long.parseLong(matcher.group(1));
+    }
+}
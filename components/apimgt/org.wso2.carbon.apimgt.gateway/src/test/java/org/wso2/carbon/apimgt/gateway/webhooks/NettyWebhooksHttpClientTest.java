@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.webhooks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.wso2.carbon.apimgt.impl.dto.WebhooksDTO;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test class for {@link NettyWebhooksHttpClient}, against a local HTTP server.
+ */
+public class NettyWebhooksHttpClientTest {
+
+    private static final String PAYLOAD = "{\"order\":1}";
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private final Map<String, String> receivedBodies = new ConcurrentHashMap<>();
+    private final Map<String, String> receivedSignatures = new ConcurrentHashMap<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ExecutorService serverExecutor;
+    private HttpServer server;
+    private String baseUrl;
+    private NettyWebhooksHttpClient httpClient;
+
+    @Before
+    public void setUp() throws Exception {
+
+        serverExecutor = Executors.newFixedThreadPool(8);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/accepted", exchange -> respond(exchange, 202));
+        server.createContext("/unavailable", exchange -> respond(exchange, 503));
+        server.createContext("/slow", exchange -> {
+            try {
+                release.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 202);
+        });
+        server.setExecutor(serverExecutor);
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        httpClient = new NettyWebhooksHttpClient(2, 2, 5000, 1000);
+    }
+
+    @After
+    public void tearDown() {
+
+        release.countDown();
+        httpClient.close();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testEventIsPostedWithItsHeaders() throws Exception {
+
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Content-Type", "application/json");
+        headers.put("x-hub-signature", "sha-256=abc");
+
+        Assert.assertEquals(Integer.valueOf(202), post("/accepted/1?id=1", headers).get(TIMEOUT_SECONDS,
+                TimeUnit.SECONDS));
+        Assert.assertEquals(PAYLOAD, receivedBodies.get("/accepted/1?id=1"));
+        Assert.assertEquals("sha-256=abc", receivedSignatures.get("/accepted/1?id=1"));
+    }
+
+    @Test
+    public void testStatusCodeOfErrorResponseIsReturned() throws Exception {
+
+        Assert.assertEquals(Integer.valueOf(503), post("/unavailable", Collections.emptyMap())
+                .get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testRequestsWaitForAPooledConnection() throws Exception {
+
+        // Twice the connections of the pool, so that the connections are reused
+        List<CompletableFuture<Integer>> responses = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            responses.add(post("/accepted/" + i, Collections.emptyMap()));
+        }
+        for (CompletableFuture<Integer> response : responses) {
+            Assert.assertEquals(Integer.valueOf(202), response.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        }
+        Assert.assertEquals(4, receivedBodies.size());
+    }
+
+    @Test
+    public void testRequestWithoutResponseTimesOut() throws Exception {
+
+        CompletableFuture<Integer> response = post("/slow", Collections.emptyMap());
+        try {
+            response.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            Assert.fail("Request without a response did not fail");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IOException);
+        }
+        release.countDown();
+        // The connection of the timed out request is not reused for the next one
+        Assert.assertEquals(Integer.valueOf(202), post("/accepted", Collections.emptyMap())
+                .get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testConnectionFailureIsReported() throws Exception {
+
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        CompletableFuture<Integer> response = new CompletableFuture<>();
+        httpClient.post(new URI("http://127.0.0.1:" + port + "/closed"), new byte[0], Collections.emptyMap(),
+                new FutureCallback(response));
+        try {
+            response.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            Assert.fail("Request to a closed port did not fail");
+        } catch (ExecutionException e) {
+            Assert.assertNotNull(e.getCause());
+        }
+    }
+
+    @Test
+    public void testDispatcherDeliversSignedEventsThroughTheClient() throws Exception {
+
+        CountDownLatch delivered = new CountDownLatch(2);
+        List<String> outcomes = Collections.synchronizedList(new ArrayList<>());
+        WebhooksDispatcher dispatcher = new WebhooksDispatcher(httpClient) {
+            @Override
+            protected void onDelivered(Event event, WebhooksDTO subscriber, boolean success) {
+
+                outcomes.add(subscriber.getCallbackURL() + ":" + success);
+                delivered.countDown();
+            }
+        };
+        TopicSubscribers subscribers = TopicSubscribers.of(Arrays.asList(
+                TopicSubscribersTest.getSubscriber(baseUrl + "/accepted/a", "secret", 0),
+                TopicSubscribersTest.getSubscriber(baseUrl + "/accepted/b", null, 0)));
+
+        Assert.assertEquals(2, dispatcher.dispatch("api", "carbon.super", "orders", subscribers, PAYLOAD,
+                "application/json"));
+        Assert.assertTrue(delivered.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        Assert.assertEquals(2, dispatcher.getDeliveredCount());
+        Assert.assertEquals(2, outcomes.size());
+        Assert.assertEquals(PAYLOAD, receivedBodies.get("/accepted/a"));
+        Assert.assertTrue(receivedSignatures.get("/accepted/a").startsWith("sha-256="));
+        Assert.assertNull(receivedSignatures.get("/accepted/b"));
+        // The dispatcher is not shut down, as it would close the client of the test
+    }
+
+    private CompletableFuture<Integer> post(String path, Map<String, String> headers) throws Exception {
+
+        CompletableFuture<Integer> response = new CompletableFuture<>();
+        httpClient.post(new URI(baseUrl + path), PAYLOAD.getBytes(StandardCharsets.UTF_8), headers,
+                new FutureCallback(response));
+        return response;
+    }
+
+    private void respond(HttpExchange exchange, int statusCode) throws IOException {
+
+        String target = exchange.getRequestURI().toString();
+        receivedBodies.put(target, IOUtils.toString(exchange.getRequestBody(), StandardCharsets.UTF_8));
+        String signature = exchange.getRequestHeaders().getFirst("x-hub-signature");
+        if (signature != null) {
+            receivedSignatures.put(target, signature);
+        }
+        exchange.sendResponseHeaders(statusCode, -1);
+        exchange.close();
+    }
+
+    private static class FutureCallback implements WebhooksHttpClient.ResponseCallback {
+
+        private final CompletableFuture<Integer> response;
+
+        FutureCallback(CompletableFuture<Integer> response) {
+
+            this.response = response;
+        }
+
+        @Override
+        public void onResponse(int statusCode) {
+
+            response.complete(statusCode);
+        }
+
+        @Override
+        public void onFailure(Throwable cause) {
+
+            response.completeExceptionally(cause);
+        }
+    }
+}
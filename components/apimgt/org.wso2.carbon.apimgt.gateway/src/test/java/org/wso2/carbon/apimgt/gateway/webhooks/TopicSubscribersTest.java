@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.webhooks;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.wso2.carbon.apimgt.impl.dto.WebhooksDTO;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class TopicSubscribersTest {
+
+    static WebhooksDTO getSubscriber(String callback, String secret, long expiryTime) {
+
+        WebhooksDTO subscriber = new WebhooksDTO();
+        subscriber.setAppID("app");
+        subscriber.setCallbackURL(callback);
+        subscriber.setSecret(secret);
+        subscriber.setExpiryTime(expiryTime);
+        return subscriber;
+    }
+
+    @Test
+    public void testSnapshotsAreNotModified() {
+
+        TopicSubscribers first = TopicSubscribers.of(Arrays.asList(getSubscriber("http://cb1", "s1", 0),
+                getSubscriber("http://cb2", "s2", 0)));
+        TopicSubscribers second = first.with(Collections.singletonList(getSubscriber("http://cb1", "s3", 0)));
+        TopicSubscribers third = second.without("http://cb2");
+
+        Assert.assertEquals(2, first.size());
+        Assert.assertEquals("s1", first.getSubscribers().get(0).getSecret());
+        Assert.assertEquals(2, second.size());
+        Assert.assertEquals("s3", second.getSubscribers().get(0).getSecret());
+        Assert.assertEquals(1, third.size());
+        Assert.assertSame(third, third.without("http://cb2"));
+        Assert.assertNull(third.without("http://cb1"));
+    }
+
+    @Test
+    public void testExpiredSubscribers() {
+
+        TopicSubscribers subscribers = TopicSubscribers.of(Arrays.asList(getSubscriber("http://cb1", null, 0),
+                getSubscriber("http://cb2", null, 1000), getSubscriber("http://cb3", null, 2000)));
+        // The shared list is returned while no subscription has expired
+        Assert.assertSame(subscribers.getSubscribers(), subscribers.getActiveSubscribers(1000));
+        Assert.assertFalse(subscribers.hasExpired(1000));
+
+        List<WebhooksDTO> active = subscribers.getActiveSubscribers(1500);
+        Assert.assertEquals(2, active.size());
+        Assert.assertEquals("http://cb3", active.get(1).getCallbackURL());
+        TopicSubscribers pruned = subscribers.withoutExpired(1500);
+        Assert.assertEquals(2, pruned.size());
+        Assert.assertFalse(pruned.hasExpired(1500));
+        Assert.assertEquals(1, subscribers.withoutExpired(2500).size());
+    }
+}
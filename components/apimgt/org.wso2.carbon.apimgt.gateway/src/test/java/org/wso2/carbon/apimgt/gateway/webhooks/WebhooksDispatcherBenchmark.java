@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.webhooks;
+
+import com.sun.net.httpserver.HttpServer;
+import org.wso2.carbon.apimgt.impl.dto.WebhooksDTO;
+
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the deliveries per second of {@link WebhooksDispatcher} with {@link NettyWebhooksHttpClient}, for topics
+ * of 1,000, 10,000 and 100,000 subscribers, against a local stub server which accepts every event. It is not a unit
+ * test, so it is not run by the build. Run it from the module directory, with the test classpath, as
+ * <pre>
+ * java -cp target/classes:target/test-classes:&lt;test dependencies&gt; \
+ *     org.wso2.carbon.apimgt.gateway.webhooks.WebhooksDispatcherBenchmark [events] [subscribers...]
+ * </pre>
+ * The subscribers have distinct callback urls on the stub server, so each of them has its own callback queue, while
+ * the connections to the server are shared as they would be for subscribers on the same host.
+ */
+public class WebhooksDispatcherBenchmark {
+
+    private static final int DEFAULT_EVENTS = 5;
+    private static final int[] DEFAULT_SUBSCRIBER_COUNTS = {1000, 10000, 100000};
+    private static final int SERVER_THREADS = 16;
+    private static final int IO_THREADS = 4;
+    private static final int MAX_CONNECTIONS_PER_HOST = 64;
+    private static final int CONNECT_TIMEOUT_MILLIS = 10000;
+    private static final long RESPONSE_TIMEOUT_MILLIS = 30000;
+    private static final long COMPLETION_TIMEOUT_MINUTES = 10;
+    private static final String PAYLOAD = "{\"order\":1,\"status\":\"created\"}";
+
+    public static void main(String[] args) throws Exception {
+
+        int events = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_EVENTS;
+        int[] subscriberCounts = DEFAULT_SUBSCRIBER_COUNTS;
+        if (args.length > 1) {
+            subscriberCounts = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) {
+                subscriberCounts[i - 1] = Integer.parseInt(args[i]);
+            }
+        }
+
+        ExecutorService serverExecutor = Executors.newFixedThreadPool(SERVER_THREADS);
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            try (InputStream body = exchange.getRequestBody()) {
+                byte[] buffer = new byte[1024];
+                while (body.read(buffer) != -1) {
+                    // The event is discarded
+                }
+            }
+            exchange.sendResponseHeaders(202, -1);
+            exchange.close();
+        });
+        server.setExecutor(serverExecutor);
+        server.start();
+        try {
+            String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/callback/";
+            for (int subscriberCount : subscriberCounts) {
+                run(baseUrl, subscriberCount, events);
+            }
+        } finally {
+            server.stop(0);
+            serverExecutor.shutdownNow();
+        }
+    }
+
+    private static void run(String baseUrl, int subscriberCount, int events) throws Exception {
+
+        List<WebhooksDTO> subscriberList = new ArrayList<>(subscriberCount);
+        for (int i = 0; i < subscriberCount; i++) {
+            WebhooksDTO subscriber = new WebhooksDTO();
+            subscriber.setAppID("app" + i);
+            subscriber.setCallbackURL(baseUrl + i);
+            subscriber.setSecret(i % 2 == 0 ? "secret" + i : null);
+            subscriberList.add(subscriber);
+        }
+        TopicSubscribers subscribers = TopicSubscribers.of(subscriberList);
+        CountingDispatcher dispatcher = new CountingDispatcher(new NettyWebhooksHttpClient(IO_THREADS,
+                MAX_CONNECTIONS_PER_HOST, CONNECT_TIMEOUT_MILLIS, RESPONSE_TIMEOUT_MILLIS));
+        try {
+            // The first event opens the connections to the stub server
+            deliver(dispatcher, subscribers);
+            long start = System.nanoTime();
+            int deliveries = 0;
+            for (int i = 0; i < events; i++) {
+                deliveries += deliver(dispatcher, subscribers);
+            }
+            report(subscriberCount, deliveries, System.nanoTime() - start, dispatcher);
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+
+    private static int deliver(CountingDispatcher dispatcher, TopicSubscribers subscribers) throws Exception {
+
+        int count = dispatcher.dispatch("benchmark", "carbon.super", "orders", subscribers, PAYLOAD,
+                "application/json");
+        if (!dispatcher.completed.tryAcquire(count, COMPLETION_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+            throw new IllegalStateException("Deliveries to " + subscribers.size() + " subscribers did not complete");
+        }
+        return count;
+    }
+
+    private static void report(int subscriberCount, int deliveries, long elapsedNanos,
+                               WebhooksDispatcher dispatcher) {
+
+        double elapsedMillis = elapsedNanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        System.out.println(String.format("%8d subscribers %10d deliveries %10.1f ms %12.1f deliveries/s "
+                        + "%8d failed", subscriberCount, deliveries, elapsedMillis, deliveries * 1000 / elapsedMillis,
+                dispatcher.getFailedCount()));
+    }
+
+    /**
+     * Counts the completed deliveries instead of publishing their status.
+     */
+    private static class CountingDispatcher extends WebhooksDispatcher {
+
+        private final Semaphore completed = new Semaphore(0);
+
+        CountingDispatcher(WebhooksHttpClient httpClient) {
+
+            super(httpClient);
+        }
+
+        @Override
+        protected void onDelivered(Event event, WebhooksDTO subscriber, boolean delivered) {
+
+            completed.release();
+        }
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.webhooks;
+
+import org.apache.commons.codec.binary.Hex;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.wso2.carbon.apimgt.impl.dto.WebhooksDTO;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import static org.wso2.carbon.apimgt.gateway.webhooks.TopicSubscribersTest.getSubscriber;
+
+public class WebhooksDispatcherTest {
+
+    private static final String PAYLOAD = "{\"order\":1}";
+
+    private final RecordingHttpClient httpClient = new RecordingHttpClient();
+    private RecordingDispatcher dispatcher;
+
+    @After
+    public void tearDown() {
+
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test
+    public void testEventIsSignedAndSentToActiveSubscribers() throws Exception {
+
+        dispatcher = new RecordingDispatcher(httpClient, 2, 10, 0, 10);
+        TopicSubscribers subscribers = TopicSubscribers.of(Arrays.asList(getSubscriber("http://cb1", "secret", 0),
+                getSubscriber("http://cb2", "secret", 0), getSubscriber("http://cb3", null, 0),
+                getSubscriber("http://cb4", "secret", 1000)));
+
+        Assert.assertEquals(3, dispatch(subscribers));
+        Assert.assertEquals(3, httpClient.requests.size());
+        String signature = "sha-256=" + hmac("HmacSHA256", "secret", PAYLOAD);
+        Assert.assertEquals(signature, httpClient.requests.get(0).headers.get("x-hub-signature"));
+        Assert.assertEquals(signature, httpClient.requests.get(1).headers.get("x-hub-signature"));
+        Assert.assertNull(httpClient.requests.get(2).headers.get("x-hub-signature"));
+        Assert.assertEquals("application/json", httpClient.requests.get(2).headers.get("Content-Type"));
+        Assert.assertEquals(PAYLOAD, new String(httpClient.requests.get(2).body, StandardCharsets.UTF_8));
+
+        for (Request request : httpClient.takeAll()) {
+            request.callback.onResponse(202);
+        }
+        Assert.assertEquals(3, dispatcher.getDeliveredCount());
+        Assert.assertEquals(Arrays.asList("http://cb1:true", "http://cb2:true", "http://cb3:true"),
+                dispatcher.outcomes);
+    }
+
+    @Test
+    public void testEventIsSignedWithTheSigningConfigurationOfTheAPI() throws Exception {
+
+        dispatcher = new RecordingDispatcher(httpClient, 2, 10, 0, 10);
+        TopicSubscribers subscribers = TopicSubscribers.of(Collections.singletonList(
+                getSubscriber("http://cb1", "secret", 0)));
+
+        Assert.assertEquals(1, dispatcher.dispatch("api", "carbon.super", "orders", subscribers, PAYLOAD,
+                "application/json", WebhooksSignatureConfig.of("SHA-512", "X-Signature")));
+        Assert.assertEquals(1, dispatcher.dispatch("api", "carbon.super", "orders", subscribers, PAYLOAD,
+                "application/json", WebhooksSignatureConfig.of("sha1=", null)));
+
+        Assert.assertEquals(2, httpClient.requests.size());
+        Assert.assertEquals("sha-512=" + hmac("HmacSHA512", "secret", PAYLOAD),
+                httpClient.requests.get(0).headers.get("X-Signature"));
+        Assert.assertEquals("sha1=" + hmac("HmacSHA1", "secret", PAYLOAD),
+                httpClient.requests.get(1).headers.get("x-hub-signature"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedSigningAlgorithmIsRejected() {
+
+        WebhooksSignatureConfig.of("MD4", null);
+    }
+
+    @Test
+    public void testDeliveriesInFlightAreBoundedPerSubscriber() throws Exception {
+
+        dispatcher = new RecordingDispatcher(httpClient, 1, 2, 0, 10);
+        TopicSubscribers subscribers = TopicSubscribers.of(Collections.singletonList(
+                getSubscriber("http://cb1", null, 0)));
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(1, dispatch(subscribers));
+        }
+        Assert.assertEquals(0, dispatch(subscribers));
+        Assert.assertEquals(1, dispatcher.getDroppedCount());
+        Assert.assertEquals(Collections.singletonList("http://cb1:false"), dispatcher.outcomes);
+        Assert.assertEquals(1, httpClient.requests.size());
+
+        // Completing a delivery sends the next waiting one
+        httpClient.takeAll().get(0).callback.onResponse(200);
+        Assert.assertEquals(1, httpClient.requests.size());
+        httpClient.takeAll().get(0).callback.onFailure(new IOException("Connection refused"));
+        Assert.assertEquals(1, httpClient.requests.size());
+        httpClient.takeAll().get(0).callback.onResponse(200);
+        Assert.assertTrue(httpClient.requests.isEmpty());
+        Assert.assertEquals(2, dispatcher.getDeliveredCount());
+    }
+
+    @Test
+    public void testFailedDeliveriesAreRetried() throws Exception {
+
+        dispatcher = new RecordingDispatcher(httpClient, 2, 10, 2, 10);
+        TopicSubscribers subscribers = TopicSubscribers.of(Arrays.asList(getSubscriber("http://cb1", null, 0),
+                getSubscriber("http://cb2", null, 0)));
+        Assert.assertEquals(2, dispatch(subscribers));
+        List<Request> requests = httpClient.takeAll();
+        // Client errors are not retried
+        requests.get(1).callback.onResponse(404);
+        requests.get(0).callback.onResponse(503);
+        httpClient.await(1).callback.onResponse(503);
+        httpClient.await(1).callback.onResponse(503);
+
+        Assert.assertEquals(2, dispatcher.getRetriedCount());
+        Assert.assertEquals(2, dispatcher.getFailedCount());
+        Assert.assertEquals(Arrays.asList("http://cb2:false", "http://cb1:false"), dispatcher.outcomes);
+        Assert.assertTrue(httpClient.requests.isEmpty());
+    }
+
+    @Test
+    public void testSynchronousFailuresAreHandedToTheScheduler() throws Exception {
+
+        List<String> sendingThreads = Collections.synchronizedList(new ArrayList<>());
+        WebhooksHttpClient failingClient = new RecordingHttpClient() {
+
+            @Override
+            public void post(URI uri, byte[] body, Map<String, String> headers, ResponseCallback callback) {
+
+                sendingThreads.add(Thread.currentThread().getName());
+                if (sendingThreads.size() == 1) {
+                    super.post(uri, body, headers, callback);
+                } else {
+                    callback.onFailure(new IOException("Connection refused"));
+                }
+            }
+        };
+        dispatcher = new RecordingDispatcher(failingClient, 1, 1000, 0, 10);
+        TopicSubscribers subscribers = TopicSubscribers.of(Collections.singletonList(
+                getSubscriber("http://cb1", null, 0)));
+        for (int i = 0; i < 1001; i++) {
+            Assert.assertEquals(1, dispatch(subscribers));
+        }
+        ((RecordingHttpClient) failingClient).takeAll().get(0).callback.onResponse(200);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (dispatcher.getFailedCount() < 1000 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        Assert.assertEquals(1000, dispatcher.getFailedCount());
+        // The waiting deliveries are sent one at a time by the scheduler, not from within the failed ones
+        Assert.assertEquals(1001, sendingThreads.size());
+        Assert.assertEquals("WebhooksDispatcher", sendingThreads.get(2));
+        Assert.assertEquals("WebhooksDispatcher", sendingThreads.get(1000));
+    }
+
+    private int dispatch(TopicSubscribers subscribers) {
+
+        return dispatcher.dispatch("api", "carbon.super", "orders", subscribers, PAYLOAD, "application/json");
+    }
+
+    private static String hmac(String algorithm, String secret, String payload) throws Exception {
+
+        Mac mac = Mac.getInstance(algorithm);
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), algorithm));
+        return Hex.encodeHexString(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static class RecordingDispatcher extends WebhooksDispatcher {
+
+        private final List<String> outcomes = Collections.synchronizedList(new ArrayList<>());
+
+        RecordingDispatcher(WebhooksHttpClient httpClient, int maxInFlight, int maxQueued, int maxRetries,
+                            long backoffMillis) {
+
+            super(httpClient, maxInFlight, maxQueued, maxRetries, backoffMillis, backoffMillis * 4, 100);
+        }
+
+        @Override
+        protected void onDelivered(Event event, WebhooksDTO subscriber, boolean delivered) {
+
+            outcomes.add(subscriber.getCallbackURL() + ":" + delivered);
+        }
+    }
+
+    private static class Request {
+
+        private final byte[] body;
+        private final Map<String, String> headers;
+        private final WebhooksHttpClient.ResponseCallback callback;
+
+        Request(byte[] body, Map<String, String> headers, WebhooksHttpClient.ResponseCallback callback) {
+
+            this.body = body;
+            this.headers = headers;
+            this.callback = callback;
+        }
+    }
+
+    /**
+     * Keeps the requests until the test completes them.
+     */
+    private static class RecordingHttpClient implements WebhooksHttpClient {
+
+        private final List<Request> requests = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void post(URI uri, byte[] body, Map<String, String> headers, ResponseCallback callback) {
+
+            requests.add(new Request(body, headers, callback));
+        }
+
+        @Override
+        public void close() {
+
+        }
+
+        List<Request> takeAll() {
+
+            synchronized (requests) {
+                List<Request> taken = new ArrayList<>(requests);
+                requests.clear();
+                return taken;
+            }
+        }
+
+        Request await(int count) throws InterruptedException {
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (requests.size() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            Assert.assertEquals(count, requests.size());
+            return takeAll().get(0);
+        }
+    }
+}
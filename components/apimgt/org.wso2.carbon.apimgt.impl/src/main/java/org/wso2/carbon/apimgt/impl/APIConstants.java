@@ -700,6 +700,12 @@ public final class APIConstants {
     public static final String CACHE_CONFIGS = "CacheConfigurations.";
     public static final String GATEWAY_TOKEN_CACHE_ENABLED = CACHE_CONFIGS + "EnableGatewayTokenCache";
     public static final String GATEWAY_RESOURCE_CACHE_ENABLED = CACHE_CONFIGS + "EnableGatewayResourceCache";
+    public static final String GATEWAY_NEAR_CACHE_ENABLED = CACHE_CONFIGS + "GatewayNearCache.Enabled";
+    public static final String GATEWAY_NEAR_CACHE_MAX_SIZE = CACHE_CONFIGS + "GatewayNearCache.MaxSize";
+    public static final String GATEWAY_NEAR_CACHE_EXPIRY = CACHE_CONFIGS + "GatewayNearCache.ExpiryTime";
+    public static final String JWT_SIGNATURE_CACHE_ENABLED = CACHE_CONFIGS + "JWTSignatureCache.Enabled";
+    public static final String JWT_SIGNATURE_CACHE_MAX_SIZE = CACHE_CONFIGS + "JWTSignatureCache.MaxSize";
+    public static final String JWT_SIGNATURE_CACHE_EXPIRY = CACHE_CONFIGS + "JWTSignatureCache.ExpiryTime";
     public static final String JWT_CLAIM_CACHE_EXPIRY = CACHE_CONFIGS + "JWTClaimCacheExpiry";
     public static final String ENABLED_JWT_CLAIM_CACHE = CACHE_CONFIGS + "EnableJWTClaimCache";
     public static final String KEY_MANAGER_TOKEN_CACHE = CACHE_CONFIGS + "EnableKeyManagerTokenCache";
@@ -848,6 +854,9 @@ public final class APIConstants {
     public static final String SELF_SIGN_UP_ENABLED = SELF_SIGN_UP + "Enabled";
     public static final String SELF_SIGN_UP_ROLE = SELF_SIGN_UP + "SubscriberRoleName";
 
+    public static final String SUBSCRIPTION_DATA_DELTA_SYNC_ENABLED = "SubscriptionDataDeltaSync.Enabled";
+    public static final String WEBHOOKS_DISPATCHER_ENABLED = "WebhooksDispatcher.Enabled";
+
     //elements in the configuration file in the registry related to self signup
     public static final String SELF_SIGN_UP_REG_DOMAIN_ELEM = "SignUpDomain";
     public static final String SELF_SIGN_UP_REG_ROLES_ELEM = "SignUpRoles";
@@ -1280,6 +1289,7 @@ public final class APIConstants {
     public static final String OAUTH2_DEFAULT_SCOPE = "default";
 
     public static final String RECENTLY_ADDED_API_CACHE_NAME = "RECENTLY_ADDED_API";
+    public static final String TAG_SUMMARY_CACHE_NAME = "TAG_SUMMARY";
     public static final String VELOCITY_LOGGER = "VelocityLogger";
 
     public static final String SHA_256 = "SHA-256";
@@ -1848,12 +1858,23 @@ public final class APIConstants {
         public static final String DATA_PUBLISHER_THREAD_POOL_CONFIGURATION_CORE_POOL_SIZE = "CorePoolSize";
         public static final String DATA_PUBLISHER_THREAD_POOL_CONFIGURATION_MAXMIMUM_POOL_SIZE = "MaxmimumPoolSize";
         public static final String DATA_PUBLISHER_THREAD_POOL_CONFIGURATION_KEEP_ALIVE_TIME = "KeepAliveTime";
+        public static final String DATA_PUBLISHER_THREAD_POOL_CONFIGURATION_MAX_QUEUE_SIZE = "MaxQueueSize";
+        public static final String EVENT_BATCHING_CONFIGURATION = "EventBatching";
+        public static final String EVENT_BATCHING_WINDOW_IN_MILLIS = "WindowInMillis";
+        public static final String EVENT_BATCHING_MAX_PENDING_KEYS = "MaxPendingKeys";
+        public static final String LOCAL_THROTTLING_CONFIGURATION = "LocalThrottling";
+        public static final String LOCAL_THROTTLING_RECONCILE_INTERVAL = "ReconcileIntervalInMillis";
+        public static final String LOCAL_THROTTLING_BURST_TOLERANCE_PERCENTAGE = "BurstTolerancePercentage";
+        public static final String THROTTLE_DECISION_STORE_CONFIGURATION = "ThrottleDecisionStore";
+        public static final String THROTTLE_DECISION_STORE_MAX_SIZE = "MaxSize";
+        public static final String THROTTLE_DECISION_STORE_SWEEP_INTERVAL = "SweepIntervalInMillis";
         public static final String BLOCK_CONDITION_RETRIEVER_INIT_DELAY = "InitDelay";
         public static final String BLOCK_CONDITION_RETRIEVER_PERIOD = "Period";
         public static final String ENABLE_SUBSCRIPTION_SPIKE_ARREST = "EnableSubscriptionSpikeArrest";
         public static final String ENABLE_HEADER_CONDITIONS = "EnableHeaderConditions";
         public static final String ENABLE_JWT_CLAIM_CONDITIONS = "EnableJWTClaimConditions";
         public static final String ENABLE_QUERY_PARAM_CONDITIONS = "EnableQueryParamConditions";
+        public static final String ENABLE_COMPACT_EVENT_ENCODING = "EnableCompactEventEncoding";
         public static final String SKIP_REDEPLOYING_POLICIES = "SkipRedeployingPolicies";
         public static final String ENABLED = "Enabled";
         public static final String IS_THROTTLED = "isThrottled";
@@ -2563,6 +2584,8 @@ public final class APIConstants {
         public static final String STATUS_PROPERTY = "status";
         public static final String SUBSCRIPTION_EVENT_TYPE = "subscriptionEventType";
         public static final String DELIVERY_EVENT_TYPE = "diliveryStatusEventType";
+        public static final String BULK_DELIVERY_EVENT_TYPE = "bulkDeliveryStatusEventType";
+        public static final String EVENT_HANDLED_HEADER = "X-WSO2-Event-Handled";
         public static final String GET_SUBSCRIPTIONS_URL = "/webhooks-subscriptions";
         public static final String HUB_TOPIC_QUERY_PARAM = "hub.topic";
         public static final String HUB_CALLBACK_QUERY_PARAM = "hub.callback";
@@ -2637,6 +2660,17 @@ public final class APIConstants {
 
     public static final String ALLOW_MULTIPLE_STATUS = "allowMultipleStatus";
 
+    // Constants related to the API persistence
+    public static final String API_PERSISTENCE_TYPE = "APIPersistence.Type";
+    public static final String API_PERSISTENCE_DATA_SOURCE = "APIPersistence.DataSourceName";
+    public static final String API_PERSISTENCE_SEARCH_INDEX_ENABLED = "APIPersistence.SearchIndex.Enabled";
+    public static final String PERSISTENCE_TYPE = "persistenceType";
+    public static final String PERSISTENCE_TYPE_JDBC = "jdbc";
+    public static final String PERSISTENCE_DATA_SOURCE_NAME = "persistenceDataSourceName";
+    public static final String PERSISTENCE_SEARCH_INDEX_ENABLED = "persistenceSearchIndexEnabled";
+    public static final String PERSISTENCE_SEARCH_INDEX_SOURCE = "persistenceSearchIndexSource";
+    public static final String MIGRATE_API_PERSISTENCE = "migrateAPIPersistence";
+
     public static class ServiceCatalogConstants {
         public static final String SERVICE_UUID = "UUID";
         public static final String SERVICE_NAME = "SERVICE_NAME";
@@ -77,6 +77,8 @@ import org.wso2.carbon.apimgt.api.model.Documentation.DocumentVisibility;
 import org.wso2.carbon.apimgt.api.model.webhooks.Subscription;
 import org.wso2.carbon.apimgt.api.model.webhooks.Topic;
 import org.wso2.carbon.apimgt.impl.caching.CacheProvider;
+import org.wso2.carbon.apimgt.impl.caching.TagSummary;
+import org.wso2.carbon.apimgt.impl.caching.TagSummaryCache;
 import org.wso2.carbon.apimgt.impl.containermgt.ContainerBasedConstants;
 import org.wso2.carbon.apimgt.impl.definitions.AsyncApiParser;
 import org.wso2.carbon.apimgt.impl.definitions.OASParserUtil;
@@ -95,6 +97,7 @@ import org.wso2.carbon.apimgt.impl.notifier.events.ApplicationEvent;
 import org.wso2.carbon.apimgt.impl.notifier.events.ApplicationRegistrationEvent;
 import org.wso2.carbon.apimgt.impl.notifier.events.SubscriptionEvent;
 import org.wso2.carbon.apimgt.impl.publishers.RevocationRequestPublisher;
+import org.wso2.carbon.apimgt.impl.ranking.APIRankingIndex;
 import org.wso2.carbon.apimgt.impl.recommendationmgt.RecommendationEnvironment;
 import org.wso2.carbon.apimgt.impl.recommendationmgt.RecommenderDetailsExtractor;
 import org.wso2.carbon.apimgt.impl.recommendationmgt.RecommenderEventPublisher;
@@ -224,11 +227,8 @@ public class APIConsumerImpl extends AbstractAPIManager implements APIConsumer {
     private boolean isTenantModeStoreView;
     private String requestedTenant;
     private boolean isTagCacheEnabled;
-    private Set<Tag> tagSet;
     private long tagCacheValidityTime;
-    private volatile long lastUpdatedTime;
     private volatile long lastUpdatedTimeForTagApi;
-    private final Object tagCacheMutex = new Object();
     private final Object tagWithAPICacheMutex = new Object();
     protected APIMRegistryService apimRegistryService;
     protected String userNameWithoutChange;
@@ -1625,6 +1625,14 @@ public class APIConsumerImpl extends AbstractAPIManager implements APIConsumer {
     public Set<API> getTopRatedAPIs(int limit) throws APIManagementException {
         int returnLimit = 0;
         SortedSet<API> apiSortedSet = new TreeSet<API>(new APINameComparator());
+        APIRankingIndex rankingIndex = APIRankingIndex.getInstance();
+        if (rankingIndex.refreshIfStale()) {
+            String rankedTenantDomain = tenantDomain != null ? tenantDomain
+                    : MultitenantConstants.SUPER_TENANT_DOMAIN_NAME;
+            apiSortedSet.addAll(getRankedAPIs(rankingIndex.iterateTopRated(rankedTenantDomain,
+                    APIConstants.TOP_TATE_MARGIN), limit, false, registry));
+            return apiSortedSet;
+        }
         try {
             GenericArtifactManager artifactManager = APIUtil.getArtifactManager(registry, APIConstants.API_KEY);
             if (artifactManager == null) {
@@ -1732,8 +1740,20 @@ public class APIConsumerImpl extends AbstractAPIManager implements APIConsumer {
         	//Find UUID
         	GenericArtifactManager artifactManager = APIUtil.getArtifactManager(userRegistry, APIConstants.API_KEY);
         	if (artifactManager != null) {
-                GenericArtifact[] genericArtifacts = artifactManager.findGovernanceArtifacts(getSearchQuery(searchCriteria));
-        		SortedSet<API> allAPIs = new TreeSet<API>(new APINameComparator());
+                SortedSet<API> allAPIs = new TreeSet<API>(new APINameComparator());
+                APIRankingIndex rankingIndex = APIRankingIndex.getInstance();
+                GenericArtifact[] genericArtifacts;
+                if (rankingIndex.refreshIfStale()) {
+                    // The ranking index gives the latest published APIs without searching through the artifacts
+                    String rankedTenantDomain = tenantDomain != null ? tenantDomain
+                            : MultitenantConstants.SUPER_TENANT_DOMAIN_NAME;
+                    // Only the latest version of each API is listed, so the limit applies to distinct APIs
+                    allAPIs.addAll(getRankedAPIs(rankingIndex.iterateRecentlyAdded(rankedTenantDomain), limit,
+                            !APIUtil.isAllowDisplayMultipleVersions(), userRegistry));
+                    genericArtifacts = new GenericArtifact[0];
+                } else {
+                    genericArtifacts = artifactManager.findGovernanceArtifacts(getSearchQuery(searchCriteria));
+                }
         		for (GenericArtifact artifact : genericArtifacts) {
 
                     API api = null;
@@ -1802,6 +1822,54 @@ public class APIConsumerImpl extends AbstractAPIManager implements APIConsumer {
         return recentlyAddedAPIs;
     }
 
+    /**
+     * Reads the APIs ranked by the {@link APIRankingIndex} from the registry, in the order of the ranking, until the
+     * limit is reached. APIs that cannot be read with the given registry, such as the APIs not visible to the user,
+     * are left out.
+     *
+     * @param rankedAPIs    APIs ranked by the index
+     * @param limit         maximum number of APIs to return
+     * @param distinctNames whether the limit applies to the distinct provider and name pairs rather than to the API
+     *                      versions, so that enough APIs are left when only the latest version of each is listed
+     * @param userRegistry  registry of the user
+     * @return the APIs that could be read
+     * @throws APIManagementException if failed to get the artifact manager
+     */
+    private List<API> getRankedAPIs(Iterator<APIRankingIndex.RankedAPI> rankedAPIs, int limit, boolean distinctNames,
+                                    Registry userRegistry) throws APIManagementException {
+
+        List<API> apis = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        GenericArtifactManager artifactManager = APIUtil.getArtifactManager(userRegistry, APIConstants.API_KEY);
+        if (artifactManager == null) {
+            return apis;
+        }
+        // Products, and APIs the user cannot read, are skipped, so the ranking is read until there are enough APIs
+        while ((distinctNames ? names.size() : apis.size()) < limit && rankedAPIs.hasNext()) {
+            APIRankingIndex.RankedAPI rankedAPI = rankedAPIs.next();
+            if (APIConstants.API_PRODUCT.equals(rankedAPI.getType())) {
+                continue;
+            }
+            try {
+                GenericArtifact artifact = artifactManager.getGenericArtifact(rankedAPI.getUuid());
+                if (artifact == null || !APIConstants.PUBLISHED.equals(APIUtil.getLcStateFromArtifact(artifact))) {
+                    continue;
+                }
+                API api = APIUtil.getAPI(artifact, userRegistry);
+                if (api != null) {
+                    apis.add(api);
+                    names.add(api.getId().getProviderName() + COLON_CHAR + api.getId().getApiName());
+                }
+            } catch (RegistryException | APIManagementException e) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Skipping ranked API " + rankedAPI.getName() + '-' + rankedAPI.getVersion()
+                            + " which could not be read", e);
+                }
+            }
+        }
+        return apis;
+    }
+
     @Override
     public Set<Tag> getAllTags(String requestedTenantDomain) throws APIManagementException {
 
@@ -1811,111 +1879,146 @@ public class APIConsumerImpl extends AbstractAPIManager implements APIConsumer {
             this.requestedTenant = requestedTenantDomain;
         }
 
-        /* We keep track of the lastUpdatedTime of the TagCache to determine its freshness.
-         */
-        long lastUpdatedTimeAtStart = lastUpdatedTime;
-        long currentTimeAtStart = System.currentTimeMillis();
-        if(isTagCacheEnabled && ( (currentTimeAtStart- lastUpdatedTimeAtStart) < tagCacheValidityTime)){
-            if(tagSet != null){
-                return tagSet;
-            }
+        // A user browsing the Store of another tenant sees it as an anonymous user
+        boolean isAnonymousView = userNameWithoutChange == null || (this.isTenantModeStoreView
+                && (this.tenantDomain == null || isTenantDomainNotMatching(requestedTenantDomain)));
+        String storeTenantDomain = this.isTenantModeStoreView ? this.requestedTenant : this.tenantDomain;
+        if (storeTenantDomain == null) {
+            storeTenantDomain = MultitenantConstants.SUPER_TENANT_DOMAIN_NAME;
         }
 
-        TreeSet<Tag> tempTagSet = new TreeSet<Tag>(new Comparator<Tag>() {
-            @Override
-            public int compare(Tag o1, Tag o2) {
-                return o1.getName().compareTo(o2.getName());
-            }
-        });
+        if (!isTagCacheEnabled) {
+            return getTagsFromRegistry(requestedTenantDomain);
+        }
+        TagSummary tagSummary = TagSummaryCache.getInstance().getTagSummary(storeTenantDomain, tagCacheValidityTime,
+                tenant -> new TagSummary(getTaggedAPIs(tenant)));
+        if (isAnonymousView) {
+            return tagSummary.getTags(null);
+        }
+        if (APIUtil.hasPermission(userNameWithoutChange, APIConstants.Permissions.APIM_ADMIN)) {
+            return tagSummary.getAllTags();
+        }
+        return tagSummary.getTags(APIUtil.getListOfRoles(userNameWithoutChange));
+    }
+
+    /**
+     * Reads the tags of the published and prototyped APIs visible to the user with the registry facet queries, when
+     * the tag cache is disabled.
+     *
+     * @param requestedTenantDomain tenant domain of the Store, or null for the tenant of the user
+     * @return the tags, sorted by name
+     * @throws APIManagementException if failed to read the tags
+     */
+    private Set<Tag> getTagsFromRegistry(String requestedTenantDomain) throws APIManagementException {
+
+        Set<Tag> tags = new TreeSet<>(Comparator.comparing(Tag::getName));
         Registry userRegistry = null;
         boolean isTenantFlowStarted = false;
-        String tagsQueryPath = null;
+        String tagsQueryPath = RegistryConstants.QUERIES_COLLECTION_PATH + "/tag-summary";
         try {
-        	tagsQueryPath = RegistryConstants.QUERIES_COLLECTION_PATH + "/tag-summary";
-            Map<String, String> params = new HashMap<String, String>();
-            params.put(RegistryConstants.RESULT_TYPE_PROPERTY_NAME, RegistryConstants.TAG_SUMMARY_RESULT_TYPE);
             //as a tenant, I'm browsing my own Store or I'm browsing a Store of another tenant..
-            if ((this.isTenantModeStoreView && this.tenantDomain==null) || (this.isTenantModeStoreView && isTenantDomainNotMatching(requestedTenantDomain))) {//Tenant based store anonymous mode
+            if (this.isTenantModeStoreView
+                    && (this.tenantDomain == null || isTenantDomainNotMatching(requestedTenantDomain))) {
                 int tenantId = getTenantId(this.requestedTenant);
                 userRegistry = ServiceReferenceHolder.getInstance().getRegistryService().
                         getGovernanceUserRegistry(CarbonConstants.REGISTRY_ANONNYMOUS_USERNAME, tenantId);
             } else {
                 userRegistry = registry;
             }
-
-            Map<String, Tag> tagsData = new HashMap<String, Tag>();
             try {
-            	PrivilegedCarbonContext.getThreadLocalCarbonContext().setUsername(((UserRegistry)userRegistry).getUserName());
-                if (requestedTenant != null ) {
+                PrivilegedCarbonContext.getThreadLocalCarbonContext()
+                        .setUsername(((UserRegistry) userRegistry).getUserName());
+                if (requestedTenant != null) {
                     isTenantFlowStarted = startTenantFlowForTenantDomain(requestedTenant);
-                    PrivilegedCarbonContext.getThreadLocalCarbonContext().setUsername(((UserRegistry)userRegistry).getUserName());
-                }
-
-                Map <String, List<String>> criteriaPublished = new HashMap<String, List<String>>();
-                criteriaPublished.put(APIConstants.LCSTATE_SEARCH_KEY, new ArrayList<String>() {{
-                    add(APIConstants.PUBLISHED);
-                }});
-                //rxt api media type
-                List<TermData> termsPublished = GovernanceUtils
-                        .getTermDataList(criteriaPublished, APIConstants.API_OVERVIEW_TAG,
-                                         APIConstants.API_RXT_MEDIA_TYPE, true);
-
-                if(termsPublished != null){
-                    for(TermData data : termsPublished){
-                        tempTagSet.add(new Tag(data.getTerm(), (int)data.getFrequency()));
-                    }
-                }
-
-                Map<String, List<String>> criteriaPrototyped = new HashMap<String, List<String>>();
-                criteriaPrototyped.put(APIConstants.LCSTATE_SEARCH_KEY, new ArrayList<String>() {{
-                    add(APIConstants.PROTOTYPED);
-                }});
-                //rxt api media type
-                List<TermData> termsPrototyped = GovernanceUtils
-                        .getTermDataList(criteriaPrototyped, APIConstants.API_OVERVIEW_TAG,
-                                         APIConstants.API_RXT_MEDIA_TYPE, true);
-
-                if(termsPrototyped != null){
-                    for(TermData data : termsPrototyped){
-                        tempTagSet.add(new Tag(data.getTerm(), (int)data.getFrequency()));
+                    PrivilegedCarbonContext.getThreadLocalCarbonContext()
+                            .setUsername(((UserRegistry) userRegistry).getUserName());
+                }
+                for (String lcState : new String[]{APIConstants.PUBLISHED, APIConstants.PROTOTYPED}) {
+                    Map<String, List<String>> criteria = new HashMap<>();
+                    criteria.put(APIConstants.LCSTATE_SEARCH_KEY, Collections.singletonList(lcState));
+                    List<TermData> terms = GovernanceUtils.getTermDataList(criteria, APIConstants.API_OVERVIEW_TAG,
+                            APIConstants.API_RXT_MEDIA_TYPE, true);
+                    if (terms != null) {
+                        for (TermData data : terms) {
+                            tags.add(new Tag(data.getTerm(), (int) data.getFrequency()));
+                        }
                     }
                 }
-
-
             } finally {
                 if (isTenantFlowStarted) {
                     endTenantFlow();
                 }
             }
-
-            synchronized (tagCacheMutex) {
-                lastUpdatedTime = System.currentTimeMillis();
-                this.tagSet = tempTagSet;
-            }
-
         } catch (RegistryException e) {
-        	try {
-        		//Before a tenant login to the store or publisher at least one time,
-        		//a registry exception is thrown when the tenant store is accessed in anonymous mode.
-        		//This fix checks whether query resource available in the registry. If not
-        		// give a warn.
-				if (userRegistry != null && !userRegistry.resourceExists(tagsQueryPath)) {
-					log.warn("Failed to retrieve tags query resource at " + tagsQueryPath);
-					return tagSet == null ? Collections.EMPTY_SET : tagSet;
-				}
-			} catch (RegistryException e1) {
+            try {
+                //Before a tenant login to the store or publisher at least one time,
+                //a registry exception is thrown when the tenant store is accessed in anonymous mode.
+                //This fix checks whether query resource available in the registry. If not
+                // give a warn.
+                if (userRegistry != null && !userRegistry.resourceExists(tagsQueryPath)) {
+                    log.warn("Failed to retrieve tags query resource at " + tagsQueryPath);
+                    return Collections.emptySet();
+                }
+            } catch (RegistryException e1) {
                 // Even if we should ignore this exception, we are logging this as a warn log.
                 // The reason is that, this error happens when we try to add some additional logs in an error
                 // scenario and it does not affect the execution path.
-                log.warn("Unable to execute the resource exist method for tags query resource path : " + tagsQueryPath,
-                         e1);
+                log.warn("Unable to execute the resource exist method for tags query resource path : "
+                        + tagsQueryPath, e1);
             }
             handleException("Failed to get all the tags", e);
         } catch (UserStoreException e) {
             handleException("Failed to get all the tags", e);
         }
+        return tags;
+    }
 
-        return tagSet;
+    /**
+     * Reads the tags and the visibility of the published and prototyped APIs of a tenant, to load the tag summary of
+     * the tenant. The tags are kept as registry tags of the API artifacts, so they are read artifact by artifact. This
+     * only happens when a node loads the summary of a tenant, or refreshes it in the background.
+     *
+     * @param tenantDomain tenant domain
+     * @return the APIs
+     * @throws APIManagementException if failed to read the APIs
+     */
+    private List<TagSummary.TaggedAPI> getTaggedAPIs(String tenantDomain) throws APIManagementException {
+
+        List<TagSummary.TaggedAPI> taggedAPIs = new ArrayList<>();
+        boolean isTenantFlowStarted = false;
+        try {
+            isTenantFlowStarted = startTenantFlowForTenantDomain(tenantDomain);
+            int tenantId = getTenantId(tenantDomain);
+            APIUtil.loadTenantRegistry(tenantId);
+            Registry systemRegistry = ServiceReferenceHolder.getInstance().getRegistryService()
+                    .getGovernanceSystemRegistry(tenantId);
+            GenericArtifactManager artifactManager = APIUtil.getArtifactManager(systemRegistry, APIConstants.API_KEY);
+            if (artifactManager == null) {
+                return taggedAPIs;
+            }
+            for (String lcState : new String[]{APIConstants.PUBLISHED, APIConstants.PROTOTYPED}) {
+                GenericArtifact[] artifacts = artifactManager
+                        .findGovernanceArtifacts(APIConstants.LCSTATE_SEARCH_KEY + "= (" + lcState + ")");
+                for (GenericArtifact artifact : artifacts) {
+                    Set<String> tags = new HashSet<>();
+                    for (org.wso2.carbon.registry.core.Tag tag : systemRegistry.getTags(artifact.getPath())) {
+                        tags.add(tag.getTagName());
+                    }
+                    taggedAPIs.add(new TagSummary.TaggedAPI(artifact.getId(), tags,
+                            artifact.getAttribute(APIConstants.API_OVERVIEW_VISIBILITY),
+                            artifact.getAttribute(APIConstants.API_OVERVIEW_VISIBLE_ROLES)));
+                }
+            }
+        } catch (RegistryException e) {
+            handleException("Failed to get all the tags", e);
+        } catch (UserStoreException e) {
+            handleException("Failed to get all the tags", e);
+        } finally {
+            if (isTenantFlowStarted) {
+                endTenantFlow();
+            }
+        }
+        return taggedAPIs;
     }
 
     @Override
@@ -1997,11 +2100,30 @@ public class APIConsumerImpl extends AbstractAPIManager implements APIConsumer {
     @Override
     public void rateAPI(Identifier id, APIRating rating, String user) throws APIManagementException {
         apiMgtDAO.addRating(id, rating.getRating(), user);
+        updateRankedRating(id);
     }
 
     @Override
     public void removeAPIRating(Identifier id, String user) throws APIManagementException {
         apiMgtDAO.removeAPIRating(id, user);
+        updateRankedRating(id);
+    }
+
+    /**
+     * Updates the average rating of an API in the {@link APIRankingIndex} after a rating of it is changed.
+     *
+     * @param id identifier of the API
+     * @throws APIManagementException if failed to read the average rating
+     */
+    private void updateRankedRating(Identifier id) throws APIManagementException {
+
+        APIRankingIndex rankingIndex = APIRankingIndex.getInstance();
+        if (!rankingIndex.isLoaded()) {
+            return;
+        }
+        int apiId = apiMgtDAO.getAPIID(id);
+        String apiTenantDomain = MultitenantUtils.getTenantDomain(APIUtil.replaceEmailDomainBack(id.getProviderName()));
+        rankingIndex.updateRating(apiTenantDomain, apiId, apiMgtDAO.getAverageRating(apiId));
     }
 
     @Override
@@ -2851,6 +2973,29 @@ public class APIConsumerImpl extends AbstractAPIManager implements APIConsumer {
         return subscribedAPIs;
     }
 
+    @Override
+    public Set<SubscribedAPI> getPaginatedSubscribedAPIsAfter(Subscriber subscriber, String applicationName,
+                                                              int afterSubscriptionId, int limit, String groupingId)
+            throws APIManagementException {
+        Set<SubscribedAPI> subscribedAPIs = null;
+        try {
+            subscribedAPIs = apiMgtDAO.getPaginatedSubscribedAPIsAfter(subscriber, applicationName,
+                    afterSubscriptionId, limit, groupingId);
+            if (subscribedAPIs != null && !subscribedAPIs.isEmpty()) {
+                Map<String, Tier> tiers = APIUtil.getTiers(tenantId);
+                for (SubscribedAPI subscribedApi : subscribedAPIs) {
+                    Tier tier = tiers.get(subscribedApi.getTier().getName());
+                    subscribedApi.getTier().setDisplayName(tier != null ? tier.getDisplayName() : subscribedApi
+                            .getTier().getName());
+                }
+            }
+        } catch (APIManagementException e) {
+            handleException("Failed to get APIs of " + subscriber.getName() + " under application "
+                    + applicationName, e);
+        }
+        return subscribedAPIs;
+    }
+
     @Override
     public Set<SubscribedAPI> getPaginatedSubscribedAPIs(Subscriber subscriber, int applicationId, int startSubIndex,
             int endSubIndex, String groupingId) throws APIManagementException {
@@ -4701,6 +4846,14 @@ public class APIConsumerImpl extends AbstractAPIManager implements APIConsumer {
                 search, sortColumn, sortOrder);
     }
 
+    @Override
+    public Application[] getApplicationsAfter(Subscriber subscriber, String groupingId, String afterName,
+                                              int afterApplicationId, int limit, String search, String sortOrder)
+            throws APIManagementException {
+        return apiMgtDAO.getApplicationsAfter(subscriber, groupingId, afterName, afterApplicationId, limit, search,
+                sortOrder);
+    }
+
 
 
 
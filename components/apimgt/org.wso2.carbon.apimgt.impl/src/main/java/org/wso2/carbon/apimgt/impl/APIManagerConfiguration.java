@@ -966,6 +966,14 @@ public class APIManagerConfiguration {
                 throttleProperties.setEnableQueryParamConditions(JavaUtils.isTrueExplicitly(enableQueryParamElement
                         .getText()));
             }
+            // Check compact throttle event encoding enable
+            OMElement enableCompactEventEncodingElement = throttleConfigurationElement
+                    .getFirstChildWithName(new QName(APIConstants.AdvancedThrottleConstants
+                            .ENABLE_COMPACT_EVENT_ENCODING));
+            if (enableCompactEventEncodingElement != null) {
+                throttleProperties.setEnableCompactEventEncoding(JavaUtils.isTrueExplicitly(
+                        enableCompactEventEncodingElement.getText()));
+            }
             // Check skip redeploy throttle policies
             OMElement skipRedeployingPoliciesElement = throttleConfigurationElement
                     .getFirstChildWithName(new QName(APIConstants.AdvancedThrottleConstants
@@ -1096,8 +1104,39 @@ public class APIManagerConfiguration {
                         if (keepAliveTimeElement != null) {
                             dataPublisherThreadPool.setKeepAliveTime(Long.parseLong(keepAliveTimeElement.getText()));
                         }
+                        OMElement maxQueueSizeElement = dataPublisherThreadPoolConfigurationElement
+                                .getFirstChildWithName(new QName(APIConstants.AdvancedThrottleConstants
+                                        .DATA_PUBLISHER_THREAD_POOL_CONFIGURATION_MAX_QUEUE_SIZE));
+                        if (maxQueueSizeElement != null) {
+                            dataPublisherThreadPool.setMaxQueueSize(Integer.parseInt(maxQueueSizeElement.getText()));
+                        }
                     }
                     throttleProperties.setDataPublisherThreadPool(dataPublisherThreadPool);
+
+                    // Event batching configuration
+                    OMElement eventBatchingConfigurationElement = dataPublisherConfigurationElement
+                            .getFirstChildWithName(new QName(APIConstants.AdvancedThrottleConstants
+                                    .EVENT_BATCHING_CONFIGURATION));
+                    ThrottleProperties.EventBatching eventBatching = new ThrottleProperties.EventBatching();
+                    if (eventBatchingConfigurationElement != null) {
+                        OMElement eventBatchingEnabledElement = eventBatchingConfigurationElement
+                                .getFirstChildWithName(new QName(APIConstants.AdvancedThrottleConstants.ENABLED));
+                        if (eventBatchingEnabledElement != null) {
+                            eventBatching.setEnabled(JavaUtils.isTrueExplicitly(eventBatchingEnabledElement
+                                    .getText()));
+                        }
+                        OMElement windowElement = eventBatchingConfigurationElement.getFirstChildWithName(new QName
+                                (APIConstants.AdvancedThrottleConstants.EVENT_BATCHING_WINDOW_IN_MILLIS));
+                        if (windowElement != null) {
+                            eventBatching.setWindowInMillis(Long.parseLong(windowElement.getText()));
+                        }
+                        OMElement maxPendingKeysElement = eventBatchingConfigurationElement.getFirstChildWithName(
+                                new QName(APIConstants.AdvancedThrottleConstants.EVENT_BATCHING_MAX_PENDING_KEYS));
+                        if (maxPendingKeysElement != null) {
+                            eventBatching.setMaxPendingKeys(Integer.parseInt(maxPendingKeysElement.getText()));
+                        }
+                    }
+                    throttleProperties.setEventBatching(eventBatching);
                 }
 
                 // Configuring JMSConnectionDetails
@@ -1331,6 +1370,67 @@ public class APIManagerConfiguration {
                 }
                 throttleProperties.setPolicyDeployer(policyDeployerConfiguration);
 
+                //Configuring local throttling
+                OMElement localThrottlingElement = throttleConfigurationElement.getFirstChildWithName(new
+                        QName(APIConstants.AdvancedThrottleConstants.LOCAL_THROTTLING_CONFIGURATION));
+                ThrottleProperties.LocalThrottling localThrottling = new ThrottleProperties.LocalThrottling();
+                if (localThrottlingElement != null) {
+                    OMElement localThrottlingEnabledElement = localThrottlingElement
+                            .getFirstChildWithName(new QName(APIConstants.AdvancedThrottleConstants.ENABLED));
+                    if (localThrottlingEnabledElement != null) {
+                        localThrottling.setEnabled(JavaUtils.isTrueExplicitly(localThrottlingEnabledElement
+                                .getText()));
+                    }
+                    OMElement reconcileIntervalElement = localThrottlingElement.getFirstChildWithName(new QName
+                            (APIConstants.AdvancedThrottleConstants.LOCAL_THROTTLING_RECONCILE_INTERVAL));
+                    if (reconcileIntervalElement != null) {
+                        long reconcileIntervalInMillis = Long.parseLong(reconcileIntervalElement.getText());
+                        if (reconcileIntervalInMillis > 0) {
+                            localThrottling.setReconcileIntervalInMillis(reconcileIntervalInMillis);
+                        } else {
+                            log.warn("Ignoring the non positive local throttling reconcile interval "
+                                    + reconcileIntervalInMillis + " ms");
+                        }
+                    }
+                    OMElement burstToleranceElement = localThrottlingElement.getFirstChildWithName(new QName
+                            (APIConstants.AdvancedThrottleConstants.LOCAL_THROTTLING_BURST_TOLERANCE_PERCENTAGE));
+                    if (burstToleranceElement != null) {
+                        int burstTolerancePercentage = Integer.parseInt(burstToleranceElement.getText());
+                        if (burstTolerancePercentage >= 0 && burstTolerancePercentage <= 100) {
+                            localThrottling.setBurstTolerancePercentage(burstTolerancePercentage);
+                        } else {
+                            log.warn("Ignoring the local throttling burst tolerance of " + burstTolerancePercentage
+                                    + "%, which is not between 0 and 100");
+                        }
+                    }
+                }
+                throttleProperties.setLocalThrottling(localThrottling);
+
+                //Configuring throttle decision store
+                OMElement throttleDecisionStoreElement = throttleConfigurationElement.getFirstChildWithName(new
+                        QName(APIConstants.AdvancedThrottleConstants.THROTTLE_DECISION_STORE_CONFIGURATION));
+                ThrottleProperties.ThrottleDecisionStore throttleDecisionStore =
+                        new ThrottleProperties.ThrottleDecisionStore();
+                if (throttleDecisionStoreElement != null) {
+                    OMElement maxSizeElement = throttleDecisionStoreElement.getFirstChildWithName(new QName
+                            (APIConstants.AdvancedThrottleConstants.THROTTLE_DECISION_STORE_MAX_SIZE));
+                    if (maxSizeElement != null) {
+                        throttleDecisionStore.setMaxSize(Integer.parseInt(maxSizeElement.getText()));
+                    }
+                    OMElement sweepIntervalElement = throttleDecisionStoreElement.getFirstChildWithName(new QName
+                            (APIConstants.AdvancedThrottleConstants.THROTTLE_DECISION_STORE_SWEEP_INTERVAL));
+                    if (sweepIntervalElement != null) {
+                        long sweepIntervalInMillis = Long.parseLong(sweepIntervalElement.getText());
+                        if (sweepIntervalInMillis > 0) {
+                            throttleDecisionStore.setSweepIntervalInMillis(sweepIntervalInMillis);
+                        } else {
+                            log.warn("Ignoring the non positive throttle decision sweep interval "
+                                    + sweepIntervalInMillis + " ms");
+                        }
+                    }
+                }
+                throttleProperties.setThrottleDecisionStore(throttleDecisionStore);
+
                 //Configuring Block Condition retriever configuration
                 OMElement blockConditionRetrieverElement = throttleConfigurationElement.getFirstChildWithName(new
                         QName(APIConstants.AdvancedThrottleConstants.BLOCK_CONDITION_RETRIEVER_CONFIGURATION));
@@ -108,6 +108,7 @@ import org.wso2.carbon.apimgt.api.model.policy.Pipeline;
 import org.wso2.carbon.apimgt.api.model.policy.Policy;
 import org.wso2.carbon.apimgt.api.model.policy.PolicyConstants;
 import org.wso2.carbon.apimgt.api.model.policy.SubscriptionPolicy;
+import org.wso2.carbon.apimgt.impl.caching.TagSummaryCache;
 import org.wso2.carbon.apimgt.impl.certificatemgt.CertificateManager;
 import org.wso2.carbon.apimgt.impl.certificatemgt.CertificateManagerImpl;
 import org.wso2.carbon.apimgt.impl.certificatemgt.GatewayCertificateManager;
@@ -118,7 +119,6 @@ import org.wso2.carbon.apimgt.impl.containermgt.ContainerBasedConstants;
 import org.wso2.carbon.apimgt.impl.containermgt.ContainerManager;
 import org.wso2.carbon.apimgt.impl.dao.ApiMgtDAO;
 import org.wso2.carbon.apimgt.impl.dao.GatewayArtifactsMgtDAO;
-import org.wso2.carbon.apimgt.impl.definitions.AsyncApiParserUtil;
 import org.wso2.carbon.apimgt.impl.dao.ServiceCatalogDAO;
 import org.wso2.carbon.apimgt.impl.definitions.GraphQLSchemaDefinition;
 import org.wso2.carbon.apimgt.impl.definitions.OAS3Parser;
@@ -184,6 +184,7 @@ import org.wso2.carbon.apimgt.persistence.dto.PublisherSearchContent;
 import org.wso2.carbon.apimgt.persistence.dto.SearchContent;
 import org.wso2.carbon.apimgt.persistence.dto.UserContext;
 import org.wso2.carbon.apimgt.persistence.exceptions.APIPersistenceException;
+import org.wso2.carbon.apimgt.persistence.exceptions.AsyncSpecPersistenceException;
 import org.wso2.carbon.apimgt.persistence.exceptions.DocumentationPersistenceException;
 import org.wso2.carbon.apimgt.persistence.exceptions.GraphQLPersistenceException;
 import org.wso2.carbon.apimgt.persistence.exceptions.MediationPolicyPersistenceException;
@@ -1582,6 +1583,7 @@ class APIProviderImpl extends AbstractAPIManager implements APIProvider {
         registerOrUpdateResourceInKeyManager(api, tenantDomain);
 
         int apiId = apiMgtDAO.getAPIID(api.getId());
+        updateTagSummary(api, tenantDomain);
 
         APIEvent apiEvent = new APIEvent(UUID.randomUUID().toString(), System.currentTimeMillis(),
                 APIConstants.EventType.API_UPDATE.name(), tenantId, tenantDomain, api.getId().getApiName(), apiId,
@@ -1693,6 +1695,7 @@ class APIProviderImpl extends AbstractAPIManager implements APIProvider {
         registerOrUpdateResourceInKeyManager(api, tenantDomain);
 
         int apiId = apiMgtDAO.getAPIID(api.getId());
+        updateTagSummary(api, tenantDomain);
 
         APIEvent apiEvent = new APIEvent(UUID.randomUUID().toString(), System.currentTimeMillis(),
                 APIConstants.EventType.API_UPDATE.name(), tenantId, tenantDomain, api.getId().getApiName(), apiId,
@@ -2423,6 +2426,7 @@ class APIProviderImpl extends AbstractAPIManager implements APIProvider {
                     // IF new API published we will add it to recently added APIs
                     Caching.getCacheManager(APIConstants.API_MANAGER_CACHE_MANAGER)
                             .getCache(APIConstants.RECENTLY_ADDED_API_CACHE_NAME).removeAll();
+                    updateTagSummary(api, tenantDomain);
 
 
                     api.setAsPublishedDefaultVersion(api.getId().getVersion()
@@ -2521,6 +2525,7 @@ class APIProviderImpl extends AbstractAPIManager implements APIProvider {
                     // IF new API published we will add it to recently added APIs
                     Caching.getCacheManager(APIConstants.API_MANAGER_CACHE_MANAGER)
                             .getCache(APIConstants.RECENTLY_ADDED_API_CACHE_NAME).removeAll();
+                    updateTagSummary(api, tenantDomain);
 
 
                     api.setAsPublishedDefaultVersion(api.getId().getVersion()
@@ -2625,6 +2630,7 @@ class APIProviderImpl extends AbstractAPIManager implements APIProvider {
                     // IF new API published we will add it to recently added APIs
                     Caching.getCacheManager(APIConstants.API_MANAGER_CACHE_MANAGER)
                             .getCache(APIConstants.RECENTLY_ADDED_API_CACHE_NAME).removeAll();
+                    updateTagSummary(api, tenantDomain);
 
 
                     api.setAsPublishedDefaultVersion(api.getId().getVersion()
@@ -2690,6 +2696,19 @@ class APIProviderImpl extends AbstractAPIManager implements APIProvider {
         return isSuccess;
     }
 
+    /**
+     * Updates the DevPortal tag summary of a tenant after the tags, the visibility or the lifecycle state of an API
+     * changed.
+     *
+     * @param api             the API
+     * @param apiTenantDomain tenant domain of the API
+     */
+    private void updateTagSummary(API api, String apiTenantDomain) {
+
+        TagSummaryCache.getInstance().updateAPI(apiTenantDomain, api.getUuid(), api.getStatus(), api.getTags(),
+                api.getVisibility(), api.getVisibleRoles());
+    }
+
     @Override
     public boolean updateAPIforStateChange(APIIdentifier identifier, APIStatus newStatus,
             Map<String, String> failedGatewaysMap) throws APIManagementException, FaultGatewaysException {
@@ -4223,6 +4242,7 @@ class APIProviderImpl extends AbstractAPIManager implements APIProvider {
             }
             GatewayArtifactsMgtDAO.getInstance().deleteGatewayArtifacts(api.getUuid());
             apiPersistenceInstance.deleteAPI(new Organization(tenantDomain), api.getUuid());
+            TagSummaryCache.getInstance().removeAPI(tenantDomain, api.getUuid());
             APIEvent apiEvent = new APIEvent(UUID.randomUUID().toString(), System.currentTimeMillis(),
                     APIConstants.EventType.API_DELETE.name(), tenantId, tenantDomain, api.getId().getApiName(), apiId,
                     api.getUuid(), api.getId().getVersion(), api.getType(), api.getContext(),
@@ -8895,12 +8915,19 @@ class APIProviderImpl extends AbstractAPIManager implements APIProvider {
 
     @Override
     public void saveAsyncApiDefinition(API api, String jsonText) throws APIManagementException {
+
+        String apiId;
+        if (api.getUuid() != null) {
+            apiId = api.getUuid();
+        } else if (api.getId().getUUID() != null) {
+            apiId = api.getId().getUUID();
+        } else {
+            apiId = apiMgtDAO.getUUIDFromIdentifier(api.getId());
+        }
         try {
-            PrivilegedCarbonContext.startTenantFlow();
-            PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(tenantDomain, true);
-            AsyncApiParserUtil.saveAPIDefinition(api, jsonText, registry);
-        } finally {
-            PrivilegedCarbonContext.endTenantFlow();
+            apiPersistenceInstance.saveAsyncDefinition(new Organization(tenantDomain), apiId, jsonText);
+        } catch (AsyncSpecPersistenceException e) {
+            throw new APIManagementException("Error while persisting Async API definition ", e);
         }
     }
 
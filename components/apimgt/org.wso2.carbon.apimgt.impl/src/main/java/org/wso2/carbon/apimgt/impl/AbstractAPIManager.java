@@ -249,6 +249,7 @@ public abstract class AbstractAPIManager implements APIManager {
         }
         Properties properties = new Properties();
         properties.put(APIConstants.ALLOW_MULTIPLE_STATUS, APIUtil.isAllowDisplayAPIsWithMultipleStatus());
+        APIUtil.addAPIPersistenceProperties(properties);
         apiPersistenceInstance = PersistenceManager.getPersistenceInstance(properties);
 
     }
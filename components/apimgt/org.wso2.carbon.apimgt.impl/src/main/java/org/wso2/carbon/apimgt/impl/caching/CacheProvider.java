@@ -24,6 +24,7 @@ import org.wso2.carbon.apimgt.impl.internal.ServiceReferenceHolder;
 import org.wso2.carbon.apimgt.impl.utils.APIUtil;
 import org.wso2.carbon.base.ServerConfiguration;
 
+import java.util.concurrent.TimeUnit;
 import javax.cache.Cache;
 import javax.cache.Caching;
 
@@ -32,6 +33,8 @@ import javax.cache.Caching;
  */
 public class CacheProvider {
 
+    private static final long TAG_SUMMARY_MODIFIED_EXPIRY = TimeUnit.DAYS.toSeconds(365);
+
     /**
      * @return gateway key cache
      */
@@ -151,6 +154,15 @@ public class CacheProvider {
         return getCache(APIConstants.RECOMMENDATIONS_CACHE_NAME);
     }
 
+    /**
+     * @return DevPortal tag summary cache. The summaries are updated and refreshed in place rather than expired, so an
+     * entry is only dropped when the tags of its tenant are not read for the default cache timeout
+     */
+    public static Cache getTagSummaryCache() {
+        return getCache(APIConstants.API_MANAGER_CACHE_MANAGER, APIConstants.TAG_SUMMARY_CACHE_NAME,
+                TAG_SUMMARY_MODIFIED_EXPIRY, getDefaultCacheTimeout());
+    }
+
     /**
      * @return APIManagerConfiguration
      */
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.impl.caching;
+
+import org.wso2.carbon.apimgt.api.model.Tag;
+import org.wso2.carbon.apimgt.impl.APIConstants;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Tags of the published and prototyped APIs of a tenant, with the number of APIs having each tag, grouped by the users
+ * the APIs are visible to, so that the tags a user can see are counted without querying the registry.
+ * <p>
+ * Instances are immutable. A change of an API gives a new summary, so that a summary can be read without locking.
+ */
+public class TagSummary implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private static final String PUBLIC_AUDIENCE = "public";
+    private static final String TENANT_AUDIENCE = "tenant";
+    private static final String ROLES_AUDIENCE_PREFIX = "roles:";
+
+    private final Map<String, TaggedAPI> apis;
+    private final Map<String, Map<String, Integer>> tagCounts = new HashMap<>();
+    private final Map<String, Set<String>> audienceRoles = new HashMap<>();
+
+    public TagSummary(Collection<TaggedAPI> apis) {
+
+        this(toMap(apis));
+    }
+
+    private TagSummary(Map<String, TaggedAPI> apis) {
+
+        this.apis = apis;
+        for (TaggedAPI api : apis.values()) {
+            Map<String, Integer> counts = tagCounts.computeIfAbsent(api.audience, key -> new HashMap<>());
+            for (String tag : api.tags) {
+                counts.merge(tag, 1, Integer::sum);
+            }
+            if (api.audience.startsWith(ROLES_AUDIENCE_PREFIX)) {
+                audienceRoles.put(api.audience, api.visibleRoles);
+            }
+        }
+    }
+
+    private static Map<String, TaggedAPI> toMap(Collection<TaggedAPI> apis) {
+
+        Map<String, TaggedAPI> apiMap = new HashMap<>();
+        for (TaggedAPI api : apis) {
+            apiMap.put(api.uuid, api);
+        }
+        return apiMap;
+    }
+
+    /**
+     * @param api API that is added, or whose tags or visibility changed
+     * @return summary including the API
+     */
+    public TagSummary withAPI(TaggedAPI api) {
+
+        Map<String, TaggedAPI> newApis = new HashMap<>(apis);
+        newApis.put(api.uuid, api);
+        return new TagSummary(newApis);
+    }
+
+    /**
+     * @param uuid UUID of an API that is no longer published or prototyped
+     * @return summary without the API
+     */
+    public TagSummary withoutAPI(String uuid) {
+
+        if (!apis.containsKey(uuid)) {
+            return this;
+        }
+        Map<String, TaggedAPI> newApis = new HashMap<>(apis);
+        newApis.remove(uuid);
+        return new TagSummary(newApis);
+    }
+
+    /**
+     * Returns the tags of the APIs visible to a user.
+     *
+     * @param userRoles roles of the user, or null for an anonymous user
+     * @return the tags, sorted by name
+     */
+    public Set<Tag> getTags(String[] userRoles) {
+
+        Set<String> roles = new HashSet<>();
+        if (userRoles != null) {
+            for (String role : userRoles) {
+                roles.add(role.toLowerCase());
+            }
+        }
+        Map<String, Integer> counts = new HashMap<>();
+        for (Map.Entry<String, Map<String, Integer>> audienceCounts : tagCounts.entrySet()) {
+            String audience = audienceCounts.getKey();
+            boolean visible;
+            if (PUBLIC_AUDIENCE.equals(audience)) {
+                visible = true;
+            } else if (TENANT_AUDIENCE.equals(audience)) {
+                visible = userRoles != null;
+            } else {
+                visible = !Collections.disjoint(roles, audienceRoles.get(audience));
+            }
+            if (visible) {
+                audienceCounts.getValue().forEach((tag, count) -> counts.merge(tag, count, Integer::sum));
+            }
+        }
+        return toTags(counts);
+    }
+
+    /**
+     * @return the tags of all the APIs, as seen by an administrator
+     */
+    public Set<Tag> getAllTags() {
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (Map<String, Integer> audienceCounts : tagCounts.values()) {
+            audienceCounts.forEach((tag, count) -> counts.merge(tag, count, Integer::sum));
+        }
+        return toTags(counts);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return apis.equals(((TagSummary) o).apis);
+    }
+
+    @Override
+    public int hashCode() {
+
+        return apis.hashCode();
+    }
+
+    private static Set<Tag> toTags(Map<String, Integer> counts) {
+
+        Set<Tag> tags = new TreeSet<>(Comparator.comparing(Tag::getName));
+        counts.forEach((name, count) -> tags.add(new Tag(name, count)));
+        return tags;
+    }
+
+    /**
+     * Tags and visibility of a published or prototyped API.
+     */
+    public static class TaggedAPI implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String uuid;
+        private final Set<String> tags;
+        private final Set<String> visibleRoles = new TreeSet<>();
+        private final String audience;
+
+        /**
+         * @param uuid         UUID of the API
+         * @param tags         tags of the API
+         * @param visibility   DevPortal visibility of the API
+         * @param visibleRoles comma separated roles the API is visible to, when the visibility is restricted
+         */
+        public TaggedAPI(String uuid, Collection<String> tags, String visibility, String visibleRoles) {
+
+            this.uuid = uuid;
+            this.tags = tags != null ? new HashSet<>(tags) : Collections.<String>emptySet();
+            if (visibility == null || APIConstants.API_GLOBAL_VISIBILITY.equalsIgnoreCase(visibility)) {
+                audience = PUBLIC_AUDIENCE;
+            } else if (APIConstants.API_RESTRICTED_VISIBILITY.equalsIgnoreCase(visibility)) {
+                if (visibleRoles != null) {
+                    for (String role : visibleRoles.split(",")) {
+                        if (!role.trim().isEmpty()) {
+                            this.visibleRoles.add(role.trim().toLowerCase());
+                        }
+                    }
+                }
+                audience = ROLES_AUDIENCE_PREFIX + String.join(",", this.visibleRoles);
+            } else {
+                audience = TENANT_AUDIENCE;
+            }
+        }
+
+        public String getUuid() {
+
+            return uuid;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            TaggedAPI taggedAPI = (TaggedAPI) o;
+            return uuid.equals(taggedAPI.uuid) && tags.equals(taggedAPI.tags) && audience.equals(taggedAPI.audience);
+        }
+
+        @Override
+        public int hashCode() {
+
+            return Objects.hash(uuid, tags, audience);
+        }
+    }
+}
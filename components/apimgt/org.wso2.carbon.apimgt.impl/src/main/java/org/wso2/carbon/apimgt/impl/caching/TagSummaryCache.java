@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.impl.caching;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.apimgt.api.APIManagementException;
+import org.wso2.carbon.apimgt.impl.APIConstants;
+import org.wso2.carbon.apimgt.impl.internal.ServiceReferenceHolder;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.UnaryOperator;
+import javax.cache.Cache;
+import javax.cache.CacheEntryInfo;
+import javax.cache.CacheInvalidationRequestSender;
+
+/**
+ * Keeps the {@link TagSummary} of each tenant in the tag summary cache, shared by all the DevPortal users of the node.
+ * <p>
+ * The summary of a tenant is loaded by the first reader, while the other readers of the tenant wait for that load
+ * instead of loading it again. It is then updated from the API changes made on this node. Every update of the cache
+ * entry is sent to the other nodes by the global cache invalidation, so that they drop their summary of the tenant and
+ * load it again. When this node has no summary of the tenant to update, the invalidation is requested from the global
+ * cache invalidation directly. As changes made without going through the API provider are not seen, the summary is
+ * loaded again in the background once it is older than the tag cache duration.
+ */
+public class TagSummaryCache {
+
+    private static final Log log = LogFactory.getLog(TagSummaryCache.class);
+    private static final TagSummaryCache instance = new TagSummaryCache(Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "TagSummaryRefresher");
+        thread.setDaemon(true);
+        return thread;
+    }));
+
+    private final Map<String, Object> tenantLocks = new ConcurrentHashMap<>();
+    private final Map<String, Long> loadTimes = new ConcurrentHashMap<>();
+    private final Set<String> refreshingTenants = ConcurrentHashMap.newKeySet();
+    private final Executor refreshExecutor;
+
+    TagSummaryCache(Executor refreshExecutor) {
+
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    public static TagSummaryCache getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Reads the tag summary of a tenant from the registry.
+     */
+    @FunctionalInterface
+    public interface Loader {
+
+        /**
+         * @param tenantDomain tenant domain
+         * @return tag summary of the tenant
+         * @throws APIManagementException if failed to read the APIs of the tenant
+         */
+        TagSummary load(String tenantDomain) throws APIManagementException;
+    }
+
+    /**
+     * Returns the tag summary of a tenant, loading it if this node has none. A summary older than the refresh interval
+     * is still returned, and loaded again in the background, one load at a time.
+     *
+     * @param tenantDomain          tenant domain
+     * @param refreshIntervalMillis age of the summary after which it is loaded again
+     * @param loader                reads the summary from the registry
+     * @return tag summary of the tenant
+     * @throws APIManagementException if the summary could not be loaded
+     */
+    public TagSummary getTagSummary(String tenantDomain, long refreshIntervalMillis, Loader loader)
+            throws APIManagementException {
+
+        TagSummary tagSummary = getTagSummary(tenantDomain);
+        if (tagSummary == null) {
+            synchronized (getTenantLock(tenantDomain)) {
+                tagSummary = getTagSummary(tenantDomain);
+                if (tagSummary == null) {
+                    tagSummary = load(tenantDomain, loader);
+                }
+            }
+        } else if (System.currentTimeMillis() - loadTimes.getOrDefault(tenantDomain, 0L) >= refreshIntervalMillis) {
+            refreshInBackground(tenantDomain, loader);
+        }
+        return tagSummary;
+    }
+
+    /**
+     * @param tenantDomain tenant domain
+     * @return tag summary of the tenant, or null if it is not loaded
+     */
+    TagSummary getTagSummary(String tenantDomain) {
+
+        startTenantFlow(tenantDomain);
+        try {
+            return (TagSummary) getCache().get(tenantDomain);
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    private void refreshInBackground(String tenantDomain, Loader loader) {
+
+        if (!refreshingTenants.add(tenantDomain)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    synchronized (getTenantLock(tenantDomain)) {
+                        load(tenantDomain, loader);
+                    }
+                } catch (APIManagementException | RuntimeException e) {
+                    log.error("Error while refreshing the tag summary of tenant " + tenantDomain, e);
+                } finally {
+                    refreshingTenants.remove(tenantDomain);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshingTenants.remove(tenantDomain);
+            log.error("Error while scheduling the refresh of the tag summary of tenant " + tenantDomain, e);
+        }
+    }
+
+    /**
+     * Loads the summary of a tenant and stores it, unless it is the same as the stored one. An unchanged summary is
+     * not stored again, as storing it would make the other nodes drop and load their summary of the tenant. Must be
+     * called holding the lock of the tenant, so that API changes are applied on top of the loaded summary.
+     */
+    private TagSummary load(String tenantDomain, Loader loader) throws APIManagementException {
+
+        long loadTime = System.currentTimeMillis();
+        TagSummary tagSummary = loader.load(tenantDomain);
+        startTenantFlow(tenantDomain);
+        try {
+            Cache cache = getCache();
+            if (!tagSummary.equals(cache.get(tenantDomain))) {
+                cache.put(tenantDomain, tagSummary);
+            }
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+        loadTimes.put(tenantDomain, loadTime);
+        return tagSummary;
+    }
+
+    /**
+     * Updates the summary after an API is updated or its lifecycle state changes.
+     *
+     * @param tenantDomain tenant domain of the API
+     * @param uuid         UUID of the API
+     * @param status       lifecycle state of the API
+     * @param tags         tags of the API
+     * @param visibility   DevPortal visibility of the API
+     * @param visibleRoles comma separated roles the API is visible to
+     */
+    public void updateAPI(String tenantDomain, String uuid, String status, Set<String> tags, String visibility,
+                          String visibleRoles) {
+
+        if (APIConstants.PUBLISHED.equalsIgnoreCase(status) || APIConstants.PROTOTYPED.equalsIgnoreCase(status)) {
+            TagSummary.TaggedAPI api = new TagSummary.TaggedAPI(uuid, tags, visibility, visibleRoles);
+            update(tenantDomain, tagSummary -> tagSummary.withAPI(api));
+        } else {
+            removeAPI(tenantDomain, uuid);
+        }
+    }
+
+    /**
+     * Updates the summary after an API is deleted.
+     *
+     * @param tenantDomain tenant domain of the API
+     * @param uuid         UUID of the API
+     */
+    public void removeAPI(String tenantDomain, String uuid) {
+
+        update(tenantDomain, tagSummary -> tagSummary.withoutAPI(uuid));
+    }
+
+    private void update(String tenantDomain, UnaryOperator<TagSummary> change) {
+
+        synchronized (getTenantLock(tenantDomain)) {
+            startTenantFlow(tenantDomain);
+            try {
+                if (!isTagCacheEnabled()) {
+                    // The DevPortal reads the tags from the registry, so no node keeps a summary
+                    return;
+                }
+                Cache cache = getCache();
+                TagSummary tagSummary = (TagSummary) cache.get(tenantDomain);
+                if (tagSummary == null) {
+                    // Nothing to update on this node, but the other nodes still have to drop their summary
+                    invalidateOnOtherNodes(cache, tenantDomain);
+                    return;
+                }
+                TagSummary updatedTagSummary = change.apply(tagSummary);
+                if (updatedTagSummary != tagSummary) {
+                    cache.put(tenantDomain, updatedTagSummary);
+                }
+            } catch (RuntimeException e) {
+                // The tags are only a view of the APIs, so a failed update must not fail the API change
+                log.error("Error while updating the tag summary of tenant " + tenantDomain, e);
+            } finally {
+                PrivilegedCarbonContext.endTenantFlow();
+            }
+        }
+    }
+
+    private Object getTenantLock(String tenantDomain) {
+
+        return tenantLocks.computeIfAbsent(tenantDomain, key -> new Object());
+    }
+
+    private void invalidateOnOtherNodes(Cache cache, String tenantDomain) {
+
+        CacheInvalidationRequestSender invalidationRequestSender = getInvalidationRequestSender();
+        if (invalidationRequestSender == null) {
+            // The global cache invalidation is disabled, so the other nodes share no cache entries to drop
+            return;
+        }
+        invalidationRequestSender.send(new CacheEntryInfo(cache.getCacheManager().getName(), cache.getName(),
+                tenantDomain, tenantDomain, PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId()));
+    }
+
+    private static void startTenantFlow(String tenantDomain) {
+
+        PrivilegedCarbonContext.startTenantFlow();
+        PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(tenantDomain, true);
+    }
+
+    protected Cache getCache() {
+
+        return CacheProvider.getTagSummaryCache();
+    }
+
+    protected boolean isTagCacheEnabled() {
+
+        return ServiceReferenceHolder.getInstance().getAPIManagerConfigurationService().getAPIManagerConfiguration()
+                .getFirstProperty(APIConstants.STORE_TAG_CACHE_DURATION) != null;
+    }
+
+    protected CacheInvalidationRequestSender getInvalidationRequestSender() {
+
+        return ServiceReferenceHolder.getInstance().getCacheInvalidationRequestSender();
+    }
+}
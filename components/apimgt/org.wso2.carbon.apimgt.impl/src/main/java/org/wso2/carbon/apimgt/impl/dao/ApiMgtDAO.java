@@ -106,6 +106,7 @@ import org.wso2.carbon.apimgt.impl.factory.KeyManagerHolder;
 import org.wso2.carbon.apimgt.impl.factory.SQLConstantManagerFactory;
 import org.wso2.carbon.apimgt.impl.internal.ServiceReferenceHolder;
 import org.wso2.carbon.apimgt.impl.notifier.events.SubscriptionEvent;
+import org.wso2.carbon.apimgt.impl.ranking.APIRankingIndex;
 import org.wso2.carbon.apimgt.impl.utils.APIMgtDBUtil;
 import org.wso2.carbon.apimgt.impl.utils.APIUtil;
 import org.wso2.carbon.apimgt.impl.utils.ApplicationUtils;
@@ -1882,16 +1883,56 @@ public class ApiMgtDAO {
     public Set<SubscribedAPI> getPaginatedSubscribedAPIs(Subscriber subscriber, String applicationName,
                                                          int startSubIndex, int endSubIndex, String groupingId)
             throws APIManagementException {
+
+        return getPaginatedSubscribedAPIs(subscriber, applicationName, null, startSubIndex,
+                endSubIndex - startSubIndex, groupingId);
+    }
+
+    /**
+     * Gets the subscribed API's of the application which come after the given subscription, in the order of their
+     * subscription ids, so that a page is read by seeking to the last subscription of the previous page instead of
+     * skipping the subscriptions before it.
+     *
+     * @param subscriber          the subscriber subscribing for the api
+     * @param applicationName     the application to which the api's are subscribed
+     * @param afterSubscriptionId id of the last subscription of the previous page
+     * @param limit               maximum number of subscriptions to return
+     * @param groupingId          the group id of the application
+     * @return the set of subscribed API's.
+     * @throws APIManagementException
+     */
+    public Set<SubscribedAPI> getPaginatedSubscribedAPIsAfter(Subscriber subscriber, String applicationName,
+                                                              int afterSubscriptionId, int limit, String groupingId)
+            throws APIManagementException {
+
+        return getPaginatedSubscribedAPIs(subscriber, applicationName, afterSubscriptionId, 0, limit, groupingId);
+    }
+
+    private Set<SubscribedAPI> getPaginatedSubscribedAPIs(Subscriber subscriber, String applicationName,
+                                                          Integer afterSubscriptionId, int offset, int limit,
+                                                          String groupingId) throws APIManagementException {
+
         Set<SubscribedAPI> subscribedAPIs = new LinkedHashSet<>();
+        if (limit <= 0) {
+            return subscribedAPIs;
+        }
         String sqlQuery =
                 appendSubscriptionQueryWhereClause(groupingId, SQLConstants.GET_PAGINATED_SUBSCRIBED_APIS_SQL);
+        if (afterSubscriptionId != null) {
+            sqlQuery += " AND SUBS.SUBSCRIPTION_ID > ?";
+        }
+        sqlQuery += SQLConstantManagerFactory.getSQlString("GET_PAGINATED_SUBSCRIBED_APIS_SUFFIX");
 
         try (Connection connection = APIMgtDBUtil.getConnection();
-             PreparedStatement ps = connection.prepareStatement(sqlQuery);
-             ResultSet result = getSubscriptionResultSet(groupingId, subscriber, applicationName, ps)) {
-            int index = 0;
-            while (result.next()) {
-                if (index >= startSubIndex && index < endSubIndex) {
+             PreparedStatement ps = connection.prepareStatement(sqlQuery)) {
+            int paramIndex = setSubscriptionQueryParams(groupingId, subscriber, applicationName, ps);
+            if (afterSubscriptionId != null) {
+                ps.setInt(++paramIndex, afterSubscriptionId);
+            }
+            ps.setInt(++paramIndex, offset);
+            ps.setInt(++paramIndex, limit);
+            try (ResultSet result = ps.executeQuery()) {
+                while (result.next()) {
                     String apiType = result.getString("TYPE");
 
                     if (APIConstants.API_PRODUCT.toString().equals(apiType)) {
@@ -1911,12 +1952,7 @@ public class ApiMgtDAO {
                         initSubscribedAPI(subscribedAPI, subscriber, result);
                         subscribedAPIs.add(subscribedAPI);
                     }
-
-                    if (index == endSubIndex - 1) {
-                        break;
-                    }
                 }
-                index++;
             }
         } catch (SQLException e) {
             handleException("Failed to get SubscribedAPI of :" + subscriber.getName(), e);
@@ -1962,10 +1998,23 @@ public class ApiMgtDAO {
         return sqlQuery;
     }
 
-    private ResultSet getSubscriptionResultSet(String groupingId, Subscriber subscriber, String applicationName,
-                                          PreparedStatement statement) throws SQLException {
+    private int setSubscriptionQueryParams(String groupingId, Subscriber subscriber, String applicationName,
+                                           PreparedStatement statement) throws SQLException {
         int tenantId = APIUtil.getTenantId(subscriber.getName());
         int paramIndex = 0;
+        statement.setInt(++paramIndex, tenantId);
+        statement.setString(++paramIndex, applicationName);
+
+        return setSubscriptionOwnerParams(groupingId, subscriber, statement, paramIndex);
+    }
+
+    /**
+     * Sets the parameters of the where clause added by {@link #appendSubscriptionQueryWhereClause(String, String)}.
+     *
+     * @return index of the last parameter set
+     */
+    private int setSubscriptionOwnerParams(String groupingId, Subscriber subscriber, PreparedStatement statement,
+                                           int paramIndex) throws SQLException {
 
         if (groupingId != null && !"null".equals(groupingId) && !groupingId.isEmpty()) {
             if (multiGroupAppSharingEnabled) {
@@ -1973,30 +2022,25 @@ public class ApiMgtDAO {
 
                 String[] groupIDArray = groupingId.split(",");
 
-                statement.setInt(++paramIndex, tenantId);
-                statement.setString(++paramIndex, applicationName);
                 for (String groupId : groupIDArray) {
                     statement.setString(++paramIndex, groupId);
                 }
                 statement.setString(++paramIndex, tenantDomain);
                 statement.setString(++paramIndex, subscriber.getName());
             } else {
-                statement.setInt(++paramIndex, tenantId);
-                statement.setString(++paramIndex, applicationName);
                 statement.setString(++paramIndex, groupingId);
                 statement.setString(++paramIndex, subscriber.getName());
             }
         } else {
-            statement.setInt(++paramIndex, tenantId);
-            statement.setString(++paramIndex, applicationName);
             statement.setString(++paramIndex, subscriber.getName());
         }
 
-        return statement.executeQuery();
+        return paramIndex;
     }
 
     private void initSubscribedAPI(SubscribedAPI subscribedAPI, Subscriber subscriber, ResultSet resultSet)
             throws SQLException {
+        subscribedAPI.setSubscriptionId(resultSet.getInt("SUBSCRIPTION_ID"));
         subscribedAPI.setUUID(resultSet.getString("SUB_UUID"));
         subscribedAPI.setSubStatus(resultSet.getString("SUB_STATUS"));
         subscribedAPI.setSubCreatedStatus(resultSet.getString("SUBS_CREATE_STATE"));
@@ -2022,68 +2066,25 @@ public class ApiMgtDAO {
     public Set<SubscribedAPI> getPaginatedSubscribedAPIs(Subscriber subscriber, int applicationId,
             int startSubIndex, int endSubIndex, String groupingId)
             throws APIManagementException {
-        Set<SubscribedAPI> subscribedAPIs = new LinkedHashSet<SubscribedAPI>();
-        Connection connection = null;
-        PreparedStatement ps = null;
-        ResultSet result = null;
-        String sqlQuery = SQLConstants.GET_PAGINATED_SUBSCRIBED_APIS_BY_APP_ID_SQL;
-        String whereClause = " AND  SUB.USER_ID = ? ";
-        String whereClauseForceCaseInsensitiveComp = " AND LOWER(SUB.USER_ID) = LOWER(?)  ";
-        String whereClauseWithGroupId = " AND (APP.GROUP_ID = ? OR ((APP.GROUP_ID='' OR APP.GROUP_ID IS NULL)"
-                + " AND SUB.USER_ID = ?))";
-        String whereClauseWithGroupIdorceCaseInsensitiveComp = " AND (APP.GROUP_ID = ?"
-                + " OR ((APP.GROUP_ID='' OR APP.GROUP_ID IS NULL) AND LOWER(SUB.USER_ID) = LOWER(?)))";
-        String whereClauseWithMultiGroupId = " AND  ( (APP.APPLICATION_ID IN (SELECT APPLICATION_ID FROM " +
-                "AM_APPLICATION_GROUP_MAPPING WHERE GROUP_ID IN ($params) AND TENANT = ?))  OR  ( SUB.USER_ID = ? ))";
-        String whereClauseWithMultiGroupIdCaseInsensitive = " AND  ( (APP.APPLICATION_ID IN  (SELECT APPLICATION_ID " +
-                "FROM AM_APPLICATION_GROUP_MAPPING  WHERE GROUP_ID IN ($params) AND TENANT = ?))  OR  ( LOWER(SUB.USER_ID) = LOWER" +
-                "(?) ))";
-        try {
-            connection = APIMgtDBUtil.getConnection();
-            int tenantId = APIUtil.getTenantId(subscriber.getName());
-            if (groupingId != null && !"null".equals(groupingId) && !groupingId.isEmpty()) {
-                if (multiGroupAppSharingEnabled) {
-                    String tenantDomain = MultitenantUtils.getTenantDomain(subscriber.getName());
-                    if (forceCaseInsensitiveComparisons) {
-                        sqlQuery += whereClauseWithMultiGroupIdCaseInsensitive;
-                    } else {
-                        sqlQuery += whereClauseWithMultiGroupId;
-                    }
-                    String groupIDArray[] = groupingId.split(",");
-                    ps = fillQueryParams(connection, sqlQuery, groupIDArray, 3);
-                    ps.setInt(1, tenantId);
-                    ps.setInt(2, applicationId);
-                    // dynamically seeting the parameter index
-                    int paramIndex = groupIDArray.length + 2;
-                    ps.setString(++paramIndex, tenantDomain);
-                    ps.setString(++paramIndex, subscriber.getName());
-                } else {
-                    if (forceCaseInsensitiveComparisons) {
-                        sqlQuery += whereClauseWithGroupIdorceCaseInsensitiveComp;
-                    } else {
-                        sqlQuery += whereClauseWithGroupId;
-                    }
-                    ps = connection.prepareStatement(sqlQuery);
-                    ps.setInt(1, tenantId);
-                    ps.setInt(2, applicationId);
-                    ps.setString(3, groupingId);
-                    ps.setString(4, subscriber.getName());
-                }
-            } else {
-                if (forceCaseInsensitiveComparisons) {
-                    sqlQuery += whereClauseForceCaseInsensitiveComp;
-                } else {
-                    sqlQuery += whereClause;
-                }
-                ps = connection.prepareStatement(sqlQuery);
-                ps.setInt(1, tenantId);
-                ps.setInt(2, applicationId);
-                ps.setString(3, subscriber.getName());
-            }
-            result = ps.executeQuery();
-            int index = 0;
-            while (result.next()) {
-                if (index >= startSubIndex && index < endSubIndex) {
+
+        Set<SubscribedAPI> subscribedAPIs = new LinkedHashSet<>();
+        int offset = Math.max(startSubIndex, 0);
+        if (endSubIndex <= offset) {
+            return subscribedAPIs;
+        }
+        String sqlQuery = appendSubscriptionQueryWhereClause(groupingId,
+                SQLConstants.GET_PAGINATED_SUBSCRIBED_APIS_BY_APP_ID_SQL)
+                + SQLConstantManagerFactory.getSQlString("GET_PAGINATED_SUBSCRIBED_APIS_SUFFIX");
+
+        try (Connection connection = APIMgtDBUtil.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sqlQuery)) {
+            ps.setInt(1, APIUtil.getTenantId(subscriber.getName()));
+            ps.setInt(2, applicationId);
+            int paramIndex = setSubscriptionOwnerParams(groupingId, subscriber, ps, 2);
+            ps.setInt(++paramIndex, offset);
+            ps.setInt(++paramIndex, endSubIndex - offset);
+            try (ResultSet result = ps.executeQuery()) {
+                while (result.next()) {
                     APIIdentifier apiIdentifier = new APIIdentifier(APIUtil.replaceEmailDomain(result.getString
                             ("API_PROVIDER")), result.getString("API_NAME"), result.getString("API_VERSION"));
                     SubscribedAPI subscribedAPI = new SubscribedAPI(subscriber, apiIdentifier);
@@ -2093,16 +2094,10 @@ public class ApiMgtDAO {
                     Application application = new Application(result.getString("APP_NAME"), subscriber);
                     subscribedAPI.setApplication(application);
                     subscribedAPIs.add(subscribedAPI);
-                    if (index == endSubIndex - 1) {
-                        break;
-                    }
                 }
-                index++;
             }
         } catch (SQLException e) {
             handleException("Failed to get SubscribedAPI of :" + subscriber.getName(), e);
-        } finally {
-            APIMgtDBUtil.closeAllConnections(ps, connection, result);
         }
         return subscribedAPIs;
     }
@@ -4097,6 +4092,138 @@ public class ApiMgtDAO {
         return avrRating;
     }
 
+    /**
+     * Returns all the APIs, of all the tenants, with their average rating and subscription count, to load the
+     * {@link APIRankingIndex}.
+     *
+     * @return the APIs
+     * @throws APIManagementException if failed to read the APIs
+     */
+    public List<APIRankingIndex.RankedAPI> getRankedAPIs() throws APIManagementException {
+
+        List<APIRankingIndex.RankedAPI> rankedAPIs = new ArrayList<>();
+        try (Connection conn = APIMgtDBUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement(SQLConstants.GET_RANKED_APIS_SQL)) {
+            ps.setString(1, APIConstants.SubscriptionCreatedStatus.SUBSCRIBE);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Timestamp createdTime = rs.getTimestamp("CREATED_TIME");
+                    rankedAPIs.add(new APIRankingIndex.RankedAPI(rs.getInt("API_ID"), rs.getString("API_UUID"),
+                            rs.getString("API_PROVIDER"), rs.getString("API_NAME"), rs.getString("API_VERSION"),
+                            rs.getString("API_TYPE"), createdTime != null ? createdTime.getTime() : 0,
+                            rs.getString("STATUS"), rs.getFloat("RATING"), rs.getInt("SUBSCRIPTION_COUNT")));
+                }
+            }
+        } catch (SQLException e) {
+            handleException("Failed to get the APIs to rank", e);
+        }
+        return rankedAPIs;
+    }
+
+    /**
+     * Returns the UUIDs of the APIs, or of the API Products, of a tenant, to load the API search index of the tenant.
+     *
+     * @param tenantDomain tenant domain
+     * @param apiProducts  whether the UUIDs of the API Products are returned instead of the APIs
+     * @return the UUIDs
+     * @throws APIManagementException if failed to read the APIs
+     */
+    public List<String> getAPIUUIDsOfTenant(String tenantDomain, boolean apiProducts) throws APIManagementException {
+
+        List<String> uuids = new ArrayList<>();
+        String query = MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equals(tenantDomain)
+                ? SQLConstants.GET_API_UUIDS_NOT_MATCHING_CONTEXT_SQL
+                : SQLConstants.GET_API_UUIDS_MATCHING_CONTEXT_SQL;
+        query += apiProducts ? SQLConstants.API_PRODUCT_TYPE_CONDITION : SQLConstants.NOT_API_PRODUCT_TYPE_CONDITION;
+        try (Connection conn = APIMgtDBUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
+            ps.setString(1, getTenantContextPattern(tenantDomain));
+            ps.setString(2, APIConstants.API_PRODUCT);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    uuids.add(rs.getString("API_UUID"));
+                }
+            }
+        } catch (SQLException e) {
+            handleException("Failed to get the APIs of tenant " + tenantDomain, e);
+        }
+        return uuids;
+    }
+
+    /**
+     * Returns the state of each API or API Product of a tenant, which changes when the API is updated or changes its
+     * lifecycle state.
+     *
+     * @param tenantDomain tenant domain
+     * @param apiProducts  whether the API Products are returned instead of the APIs
+     * @return the lifecycle state and the created and updated times, by the UUIDs of the APIs
+     * @throws APIManagementException if failed to read the states
+     */
+    public Map<String, String> getAPIStatesOfTenant(String tenantDomain, boolean apiProducts)
+            throws APIManagementException {
+
+        Map<String, String> states = new HashMap<>();
+        String query = MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equals(tenantDomain)
+                ? SQLConstants.GET_API_STATES_NOT_MATCHING_CONTEXT_SQL
+                : SQLConstants.GET_API_STATES_MATCHING_CONTEXT_SQL;
+        query += apiProducts ? SQLConstants.API_PRODUCT_TYPE_CONDITION : SQLConstants.NOT_API_PRODUCT_TYPE_CONDITION;
+        try (Connection conn = APIMgtDBUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
+            ps.setString(1, getTenantContextPattern(tenantDomain));
+            ps.setString(2, APIConstants.API_PRODUCT);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    states.put(rs.getString("API_UUID"), rs.getString("STATUS") + ':'
+                            + rs.getTimestamp("CREATED_TIME") + ':' + rs.getTimestamp("UPDATED_TIME"));
+                }
+            }
+        } catch (SQLException e) {
+            handleException("Failed to get the state of the APIs of tenant " + tenantDomain, e);
+        }
+        return states;
+    }
+
+    /**
+     * Returns a summary of the APIs and API Products of a tenant, which changes when one of them is added, updated,
+     * deleted or changes its lifecycle state.
+     *
+     * @param tenantDomain tenant domain
+     * @return the number of APIs, the largest API id and the latest created and updated times, of each lifecycle state
+     * @throws APIManagementException if failed to read the summary
+     */
+    public String getAPIStateSummaryOfTenant(String tenantDomain) throws APIManagementException {
+
+        StringBuilder summary = new StringBuilder();
+        String query = MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equals(tenantDomain)
+                ? SQLConstants.GET_API_STATE_SUMMARY_NOT_MATCHING_CONTEXT_SQL
+                : SQLConstants.GET_API_STATE_SUMMARY_MATCHING_CONTEXT_SQL;
+        try (Connection conn = APIMgtDBUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
+            ps.setString(1, getTenantContextPattern(tenantDomain));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    summary.append(rs.getString("STATUS")).append(':')
+                            .append(rs.getLong("API_COUNT")).append(':')
+                            .append(rs.getLong("MAX_API_ID")).append(':')
+                            .append(rs.getTimestamp("MAX_CREATED_TIME")).append(':')
+                            .append(rs.getTimestamp("MAX_UPDATED_TIME")).append(';');
+                }
+            }
+        } catch (SQLException e) {
+            handleException("Failed to get the state of the APIs of tenant " + tenantDomain, e);
+        }
+        return summary.toString();
+    }
+
+    private static String getTenantContextPattern(String tenantDomain) {
+
+        // The contexts of the APIs of a tenant, other than the super tenant, start with /t/<tenant domain>/
+        if (MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equals(tenantDomain)) {
+            return APIConstants.TENANT_PREFIX + '%';
+        }
+        return APIConstants.TENANT_PREFIX + tenantDomain + "/%";
+    }
+
     /**
      * @param identifier Identifier
      * @throws APIManagementException if failed to add Application
@@ -4821,6 +4948,37 @@ public class ApiMgtDAO {
                                                        int offset, String search, String sortColumn, String sortOrder)
             throws APIManagementException {
 
+        return getApplicationsWithPagination(subscriber, groupingId, start, offset, search, sortColumn, sortOrder,
+                null, 0);
+    }
+
+    /**
+     * Returns the applications sorted by name which come after the given application, so that a page is read by
+     * seeking to the last application of the previous page instead of skipping the applications before it.
+     *
+     * @param subscriber         The subscriber.
+     * @param groupingId         The groupId to which the applications must belong.
+     * @param afterName          Name of the last application of the previous page.
+     * @param afterApplicationId Id of the last application of the previous page.
+     * @param limit              The maximum number of applications to return.
+     * @param search             The search string.
+     * @param sortOrder          The sort order.
+     * @return Application[] The array of applications.
+     * @throws APIManagementException
+     */
+    public Application[] getApplicationsAfter(Subscriber subscriber, String groupingId, String afterName,
+                                              int afterApplicationId, int limit, String search, String sortOrder)
+            throws APIManagementException {
+
+        return getApplicationsWithPagination(subscriber, groupingId, 0, limit, search, APIConstants.APPLICATION_NAME,
+                sortOrder, afterName, afterApplicationId);
+    }
+
+    private Application[] getApplicationsWithPagination(Subscriber subscriber, String groupingId, int start,
+                                                        int offset, String search, String sortColumn,
+                                                        String sortOrder, String afterName, int afterApplicationId)
+            throws APIManagementException {
+
         Connection connection = null;
         PreparedStatement prepStmt = null;
         ResultSet rs = null;
@@ -4861,50 +5019,59 @@ public class ApiMgtDAO {
             }
             // sortColumn, sortOrder variable values has sanitized in jaggery level (applications-list.jag)for security.
             sqlQuery = sqlQuery.replace("$1", sortColumn);
-            if ("acs".equalsIgnoreCase(sortOrder) || "desc".equalsIgnoreCase(sortOrder)) {
-                sqlQuery = sqlQuery.replace("$2", sortOrder);
+            boolean descending = "desc".equalsIgnoreCase(sortOrder);
+            if (!descending) {
+                sortOrder = "asc";
+            }
+            // Applications with the same value in the sort column are ordered by id, so that a page does not
+            // depend on the order the database happens to return them in.
+            sqlQuery = sqlQuery.replace("$2", sortOrder + ", APPLICATION_ID " + sortOrder);
+            if (afterName != null) {
+                sqlQuery = sqlQuery.replace("$4", descending ?
+                        " AND (APP.NAME < ? OR (APP.NAME = ? AND APP.APPLICATION_ID < ?))" :
+                        " AND (APP.NAME > ? OR (APP.NAME = ? AND APP.APPLICATION_ID > ?))");
             } else {
-                sqlQuery = sqlQuery.replace("$2", "asc");
+                sqlQuery = sqlQuery.replace("$4", "");
             }
-            
+
             if (driverName.contains("Oracle") && "CREATED_BY".equals(sortColumn)) {
                 sqlQuery = sqlQuery.replace("$3", "APP.CREATED_BY");
             } else {
                 sqlQuery = sqlQuery.replace("$3", sortColumn);
             }
 
+            int paramIndex = 0;
             if (groupingId != null && !"null".equals(groupingId) && !groupingId.isEmpty()) {
                 if (multiGroupAppSharingEnabled) {
                     String tenantDomain = MultitenantUtils.getTenantDomain(subscriber.getName());
                     String[] grpIdArray = groupingId.split(",");
-                    int noOfParams = grpIdArray.length;
+                    paramIndex = grpIdArray.length;
                     prepStmt = fillQueryParams(connection, sqlQuery, grpIdArray, 1);
-                    prepStmt.setString(++noOfParams, tenantDomain);
-                    prepStmt.setString(++noOfParams, subscriber.getName());
-                    prepStmt.setString(++noOfParams, tenantDomain + '/' + groupingId);
-                    prepStmt.setString(++noOfParams, "%" + search + "%");
-                    prepStmt.setInt(++noOfParams, start);
-                    prepStmt.setInt(++noOfParams, offset);
+                    prepStmt.setString(++paramIndex, tenantDomain);
+                    prepStmt.setString(++paramIndex, subscriber.getName());
+                    prepStmt.setString(++paramIndex, tenantDomain + '/' + groupingId);
                 } else {
                     prepStmt = connection.prepareStatement(sqlQuery);
-                    prepStmt.setString(1, groupingId);
-                    prepStmt.setString(2, subscriber.getName());
-                    prepStmt.setString(3, "%" + search + "%");
-                    prepStmt.setInt(4, start);
-                    prepStmt.setInt(5, offset);
+                    prepStmt.setString(++paramIndex, groupingId);
+                    prepStmt.setString(++paramIndex, subscriber.getName());
                 }
             } else {
                 prepStmt = connection.prepareStatement(sqlQuery);
-                prepStmt.setString(1, subscriber.getName());
-                prepStmt.setString(2, "%" + search + "%");
-                prepStmt.setInt(3, start);
-                prepStmt.setInt(4, offset);
+                prepStmt.setString(++paramIndex, subscriber.getName());
+            }
+            prepStmt.setString(++paramIndex, "%" + search + "%");
+            if (afterName != null) {
+                prepStmt.setString(++paramIndex, afterName);
+                prepStmt.setString(++paramIndex, afterName);
+                prepStmt.setInt(++paramIndex, afterApplicationId);
             }
+            prepStmt.setInt(++paramIndex, start);
+            prepStmt.setInt(++paramIndex, offset);
             if (log.isDebugEnabled()) {
                 log.debug("Query: " + sqlQuery);
                 log.debug("Param: " + "Sub:" + subscriber.getName() + " GroupId: " + groupingId + " Search:%" + search
                         + "% " + "Start:" + start + " Offset:" + offset + " SortColumn:" + sortColumn + " SortOrder:"
-                        + sortOrder);
+                        + sortOrder + " After:" + afterName + "/" + afterApplicationId);
             }
             rs = prepStmt.executeQuery();
             ArrayList<Application> applicationsList = new ArrayList<Application>();
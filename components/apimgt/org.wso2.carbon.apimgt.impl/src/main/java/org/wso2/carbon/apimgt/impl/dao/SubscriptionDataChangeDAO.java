@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.impl.dao;
+
+import org.wso2.carbon.apimgt.api.APIManagementException;
+import org.wso2.carbon.apimgt.impl.dao.constants.SQLConstants;
+import org.wso2.carbon.apimgt.impl.notifier.events.ApplicationEvent;
+import org.wso2.carbon.apimgt.impl.notifier.events.ApplicationRegistrationEvent;
+import org.wso2.carbon.apimgt.impl.notifier.events.Event;
+import org.wso2.carbon.apimgt.impl.notifier.events.SubscriptionEvent;
+import org.wso2.carbon.apimgt.impl.utils.APIMgtDBUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DAO of the AM_SUBSCRIPTION_DATA_CHANGE table, which holds the subscription, application and application key mapping
+ * changes of every control plane node, numbered with the auto incremented SEQUENCE_ID of the table.
+ */
+public class SubscriptionDataChangeDAO {
+
+    public static final String SUBSCRIPTION = "SUBSCRIPTION";
+    public static final String APPLICATION = "APPLICATION";
+    public static final String APPLICATION_KEY_MAPPING = "APPLICATION_KEY_MAPPING";
+
+    private static final SubscriptionDataChangeDAO instance = new SubscriptionDataChangeDAO();
+
+    protected SubscriptionDataChangeDAO() {
+
+    }
+
+    public static SubscriptionDataChangeDAO getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * @param eventType type of the events
+     * @return the entity type the events are stored with, or null if the events are not stored
+     */
+    public static String getEntityType(Class<? extends Event> eventType) {
+
+        if (SubscriptionEvent.class.isAssignableFrom(eventType)) {
+            return SUBSCRIPTION;
+        } else if (ApplicationEvent.class.isAssignableFrom(eventType)) {
+            return APPLICATION;
+        } else if (ApplicationRegistrationEvent.class.isAssignableFrom(eventType)) {
+            return APPLICATION_KEY_MAPPING;
+        }
+        return null;
+    }
+
+    /**
+     * Stores a subscription, application or application key mapping change.
+     *
+     * @param event       the event of the change
+     * @param createdTime time the change is stored at
+     * @throws APIManagementException if the change could not be stored
+     */
+    public void addChange(Event event, long createdTime) throws APIManagementException {
+
+        String entityType = getEntityType(event.getClass());
+        if (entityType == null) {
+            throw new APIManagementException("Unsupported subscription data change " + event.getType());
+        }
+        try (Connection connection = APIMgtDBUtil.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(
+                     SQLConstants.SubscriptionDataChangeSqlConstants.ADD_CHANGE)) {
+            preparedStatement.setInt(1, event.getTenantId());
+            preparedStatement.setString(2, event.getTenantDomain());
+            preparedStatement.setString(3, entityType);
+            preparedStatement.setString(4, event.getType());
+            // The integer ids of columns 5 to 7 and the strings of columns 8 to 11 are set by the type of the change
+            for (int i = 5; i <= 11; i++) {
+                preparedStatement.setNull(i, i <= 7 ? Types.INTEGER : Types.VARCHAR);
+            }
+            if (event instanceof SubscriptionEvent) {
+                SubscriptionEvent subscriptionEvent = (SubscriptionEvent) event;
+                preparedStatement.setInt(5, subscriptionEvent.getApiId());
+                preparedStatement.setInt(6, subscriptionEvent.getApplicationId());
+                preparedStatement.setInt(7, subscriptionEvent.getSubscriptionId());
+            } else if (event instanceof ApplicationEvent) {
+                ApplicationEvent applicationEvent = (ApplicationEvent) event;
+                preparedStatement.setInt(6, applicationEvent.getApplicationId());
+                preparedStatement.setString(8, applicationEvent.getUuid());
+            } else {
+                ApplicationRegistrationEvent registrationEvent = (ApplicationRegistrationEvent) event;
+                preparedStatement.setInt(6, registrationEvent.getApplicationId());
+                preparedStatement.setString(9, registrationEvent.getConsumerKey());
+                preparedStatement.setString(10, registrationEvent.getKeyManager());
+                preparedStatement.setString(11, registrationEvent.getKeyType());
+            }
+            preparedStatement.setLong(12, createdTime);
+            preparedStatement.executeUpdate();
+        } catch (SQLException e) {
+            throw new APIManagementException("Error while storing the subscription data change " + event.getType()
+                    + " of tenant " + event.getTenantDomain(), e);
+        }
+    }
+
+    /**
+     * Returns the changes of a type stored for a tenant after a sequence number, in the order of their sequence
+     * numbers. The event ids of the returned events are their sequence numbers.
+     *
+     * @param tenantDomain tenant domain
+     * @param since        sequence number of the last change the caller has
+     * @param eventType    type of the changes
+     * @return the changes
+     * @throws APIManagementException if the changes could not be read
+     */
+    public <T extends Event> List<T> getChanges(String tenantDomain, long since, Class<T> eventType)
+            throws APIManagementException {
+
+        String entityType = getEntityType(eventType);
+        List<T> changes = new ArrayList<>();
+        if (entityType == null) {
+            return changes;
+        }
+        try (Connection connection = APIMgtDBUtil.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(
+                     SQLConstants.SubscriptionDataChangeSqlConstants.GET_CHANGES)) {
+            preparedStatement.setString(1, tenantDomain);
+            preparedStatement.setString(2, entityType);
+            preparedStatement.setLong(3, since);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    changes.add(eventType.cast(toEvent(resultSet, tenantDomain, entityType)));
+                }
+            }
+        } catch (SQLException e) {
+            throw new APIManagementException("Error while reading the " + entityType + " changes of tenant "
+                    + tenantDomain, e);
+        }
+        return changes;
+    }
+
+    /**
+     * @return the lowest and the highest sequence numbers stored, or null if no change is stored
+     * @throws APIManagementException if the sequence numbers could not be read
+     */
+    public SequenceRange getSequenceRange() throws APIManagementException {
+
+        try (Connection connection = APIMgtDBUtil.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(
+                     SQLConstants.SubscriptionDataChangeSqlConstants.GET_SEQUENCE_RANGE);
+             ResultSet resultSet = preparedStatement.executeQuery()) {
+            if (resultSet.next()) {
+                long max = resultSet.getLong("MAX_SEQUENCE_ID");
+                if (!resultSet.wasNull()) {
+                    return new SequenceRange(resultSet.getLong("MIN_SEQUENCE_ID"), max);
+                }
+            }
+            return null;
+        } catch (SQLException e) {
+            throw new APIManagementException("Error while reading the sequence numbers of subscription data changes",
+                    e);
+        }
+    }
+
+    /**
+     * @param createdTime time in milliseconds
+     * @return the highest sequence number of the changes stored at or before the time, or -1 if there is none
+     * @throws APIManagementException if the sequence number could not be read
+     */
+    public long getMaxSequenceCreatedBefore(long createdTime) throws APIManagementException {
+
+        try (Connection connection = APIMgtDBUtil.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(
+                     SQLConstants.SubscriptionDataChangeSqlConstants.GET_MAX_SEQUENCE_CREATED_BEFORE)) {
+            preparedStatement.setLong(1, createdTime);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                if (resultSet.next()) {
+                    long max = resultSet.getLong("MAX_SEQUENCE_ID");
+                    if (!resultSet.wasNull()) {
+                        return max;
+                    }
+                }
+            }
+            return -1;
+        } catch (SQLException e) {
+            throw new APIManagementException("Error while reading the sequence numbers of subscription data changes",
+                    e);
+        }
+    }
+
+    /**
+     * Deletes the changes stored before a time whose sequence numbers are lower than the given one.
+     *
+     * @param createdTime    time in milliseconds
+     * @param sequenceBefore sequence number of the oldest change to keep regardless of its time
+     * @return number of changes deleted
+     * @throws APIManagementException if the changes could not be deleted
+     */
+    public int deleteChanges(long createdTime, long sequenceBefore) throws APIManagementException {
+
+        try (Connection connection = APIMgtDBUtil.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(
+                     SQLConstants.SubscriptionDataChangeSqlConstants.DELETE_CHANGES_CREATED_BEFORE)) {
+            preparedStatement.setLong(1, createdTime);
+            preparedStatement.setLong(2, sequenceBefore);
+            return preparedStatement.executeUpdate();
+        } catch (SQLException e) {
+            throw new APIManagementException("Error while deleting the old subscription data changes", e);
+        }
+    }
+
+    private Event toEvent(ResultSet resultSet, String tenantDomain, String entityType) throws SQLException {
+
+        String eventId = String.valueOf(resultSet.getLong("SEQUENCE_ID"));
+        long createdTime = resultSet.getLong("CREATED_TIME");
+        String type = resultSet.getString("EVENT_TYPE");
+        int tenantId = resultSet.getInt("TENANT_ID");
+        int applicationId = resultSet.getInt("APPLICATION_ID");
+        if (SUBSCRIPTION.equals(entityType)) {
+            return new SubscriptionEvent(eventId, createdTime, type, tenantId, tenantDomain,
+                    resultSet.getInt("SUBSCRIPTION_ID"), resultSet.getInt("API_ID"), applicationId, null, null);
+        } else if (APPLICATION.equals(entityType)) {
+            return new ApplicationEvent(eventId, createdTime, type, tenantId, tenantDomain, applicationId,
+                    resultSet.getString("APPLICATION_UUID"), null, null, null, null, null, null);
+        }
+        return new ApplicationRegistrationEvent(eventId, createdTime, type, tenantId, tenantDomain, applicationId,
+                resultSet.getString("CONSUMER_KEY"), resultSet.getString("KEY_TYPE"),
+                resultSet.getString("KEY_MANAGER"));
+    }
+
+    /**
+     * The lowest and the highest sequence numbers stored.
+     */
+    public static class SequenceRange {
+
+        private final long min;
+        private final long max;
+
+        public SequenceRange(long min, long max) {
+
+            this.min = min;
+            this.max = max;
+        }
+
+        public long getMin() {
+
+            return min;
+        }
+
+        public long getMax() {
+
+            return max;
+        }
+    }
+}
@@ -17,13 +17,11 @@
  */
 package org.wso2.carbon.apimgt.impl.dao;
 
-import edu.emory.mathcs.backport.java.util.Arrays;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.apimgt.api.APIManagementException;
 import org.wso2.carbon.apimgt.api.dto.ConditionDTO;
-import org.wso2.carbon.apimgt.api.dto.ConditionGroupDTO;
 import org.wso2.carbon.apimgt.api.dto.KeyManagerConfigurationDTO;
 import org.wso2.carbon.apimgt.api.model.policy.BandwidthLimit;
 import org.wso2.carbon.apimgt.api.model.policy.PolicyConstants;
@@ -55,14 +53,17 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.Hashtable;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 public class SubscriptionValidationDAO {
 
     private static Log log = LogFactory.getLog(SubscriptionValidationDAO.class);
+    // Rows fetched per round trip while loading all the entities of a kind
+    private static final int RESULT_SET_FETCH_SIZE = 500;
 
     /*
      * This method can be used to retrieve all the Subscriptions in the database
@@ -94,11 +95,11 @@ public class SubscriptionValidationDAO {
 
         List<Application> applications = new ArrayList<>();
         try (Connection conn = APIMgtDBUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(SubscriptionValidationSQLConstants.GET_ALL_APPLICATIONS_SQL);
-             ResultSet resultSet = ps.executeQuery();
-        ) {
-            addToApplicationList(applications, resultSet);
-
+             PreparedStatement ps = conn.prepareStatement(SubscriptionValidationSQLConstants.GET_ALL_APPLICATIONS_SQL)) {
+            ps.setFetchSize(RESULT_SET_FETCH_SIZE);
+            try (ResultSet resultSet = ps.executeQuery()) {
+                addToApplicationList(applications, resultSet);
+            }
         } catch (SQLException e) {
             log.error("Error in loading Applications : ", e);
         }
@@ -112,7 +113,8 @@ public class SubscriptionValidationDAO {
             list = new ArrayList<>();
         }
         if (resultSet != null) {
-            Map<Integer, Application> temp = new Hashtable<>();
+            // An application has a row for each of its attributes
+            Map<Integer, Application> temp = new HashMap<>();
             while (resultSet.next()) {
                 int appId = resultSet.getInt("APP_ID");
                 Application application = temp.get(appId);
@@ -125,6 +127,7 @@ public class SubscriptionValidationDAO {
                     application.setName(resultSet.getString("APS_NAME"));
                     application.setTokenType(resultSet.getString("TOKEN_TYPE"));
                     temp.put(appId, application);
+                    list.add(application);
                 }
                 String attributeName = resultSet.getString("ATTRIBUTE_NAME");
                 String attributeValue = resultSet.getString("ATTRIBUTE_VALUE");
@@ -133,8 +136,6 @@ public class SubscriptionValidationDAO {
                 }
                 // todo read from the aplication_group_mapping table and make it a set
 //                application.addGroupId(resultSet.getString("GROUP_ID"));
-
-                list.add(application);
             }
         }
     }
@@ -174,11 +175,12 @@ public class SubscriptionValidationDAO {
         try (
                 Connection conn = APIMgtDBUtil.getConnection();
                 PreparedStatement ps =
-                        conn.prepareStatement(SubscriptionValidationSQLConstants.GET_ALL_SUBSCRIPTION_POLICIES_SQL);
-                ResultSet resultSet = ps.executeQuery();
+                        conn.prepareStatement(SubscriptionValidationSQLConstants.GET_ALL_SUBSCRIPTION_POLICIES_SQL)
         ) {
-            return populateSubscriptionPolicyList(resultSet);
-
+            ps.setFetchSize(RESULT_SET_FETCH_SIZE);
+            try (ResultSet resultSet = ps.executeQuery()) {
+                return populateSubscriptionPolicyList(resultSet);
+            }
         } catch (SQLException e) {
             log.error("Error in loading Subscription policies : ", e);
         }
@@ -253,11 +255,13 @@ public class SubscriptionValidationDAO {
         try (
                 Connection conn = APIMgtDBUtil.getConnection();
                 PreparedStatement ps =
-                        conn.prepareStatement(SubscriptionValidationSQLConstants.GET_ALL_API_POLICIES_SQL);
-                ResultSet resultSet = ps.executeQuery();
+                        conn.prepareStatement(SubscriptionValidationSQLConstants.GET_ALL_API_POLICIES_SQL)
         ) {
-            return populateApiPolicyList(resultSet);
-
+            Map<Integer, List<ConditionDTO>> conditions = getConditions(conn, StringUtils.EMPTY, null, null);
+            ps.setFetchSize(RESULT_SET_FETCH_SIZE);
+            try (ResultSet resultSet = ps.executeQuery()) {
+                return populateApiPolicyList(resultSet, conditions);
+            }
         } catch (SQLException e) {
             log.error("Error in loading api policies : ", e);
         }
@@ -381,59 +385,12 @@ public class SubscriptionValidationDAO {
      * */
     public List<API> getAllApis(String organization) {
 
-        String sql = "SELECT AM_API.API_PROVIDER,AM_API.API_NAME,AM_API.CONTEXT,AM_API.API_UUID,AM_API.API_ID,AM_API" +
-                ".API_TIER,AM_API.API_VERSION,AM_API.API_TYPE,AM_REVISION.REVISION_UUID AS REVISION_UUID," +
-                "AM_DEPLOYMENT_REVISION_MAPPING.NAME AS DEPLOYMENT_NAME " +
-                "FROM AM_API LEFT JOIN AM_REVISION ON AM_API.API_UUID=AM_REVISION.API_UUID LEFT JOIN " +
-                "AM_DEPLOYMENT_REVISION_MAPPING " +
-                "ON AM_REVISION.REVISION_UUID=AM_DEPLOYMENT_REVISION_MAPPING.REVISION_UUID ";
-        if (MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equals(organization)) {
-            sql = sql.concat("WHERE AM_API.CONTEXT NOT LIKE '/t/%'");
-        } else {
-            sql = sql.concat("WHERE AM_API.CONTEXT LIKE '/t/" + organization + "%'");
-        }
-
-        List<API> apiList = new ArrayList<>();
         try (Connection connection = APIMgtDBUtil.getConnection()) {
-            try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-                preparedStatement.setString(1, organization);
-                try (ResultSet resultSet = preparedStatement.executeQuery()) {
-                    while (resultSet.next()) {
-                        String deploymentName = resultSet.getString("DEPLOYMENT_NAME");
-                        String apiType = resultSet.getString("API_TYPE");
-                        API api = new API();
-                        String provider = resultSet.getString("API_PROVIDER");
-                        String name = resultSet.getString("API_NAME");
-                        String version = resultSet.getString("API_VERSION");
-                        api.setApiUUID(resultSet.getString("API_UUID"));
-                        api.setApiId(resultSet.getInt("API_ID"));
-                        api.setVersion(version);
-                        api.setProvider(provider);
-                        api.setName(name);
-                        api.setApiType(apiType);
-                        api.setPolicy(resultSet.getString("API_TIER"));
-                        api.setContext(resultSet.getString("CONTEXT"));
-                        String revision = resultSet.getString("REVISION_UUID");
-                        api.setIsDefaultVersion(isAPIDefaultVersion(connection, provider, name, version));
-                        if (APIConstants.API_PRODUCT.equals(apiType)) {
-                            attachURlMappingDetailsOfApiProduct(connection, api);
-                            apiList.add(api);
-                        } else {
-                            if (StringUtils.isNotEmpty(deploymentName)) {
-                                attachURLMappingDetails(connection, revision, api);
-                                api.setEnvironment(deploymentName);
-                                api.setRevision(revision);
-                                apiList.add(api);
-                            }
-                        }
-                    }
-                }
-            }
-
+            return getAllApis(connection, organization, null);
         } catch (SQLException e) {
             log.error("Error in loading APIs for organization : " + organization, e);
         }
-        return apiList;
+        return new ArrayList<>();
     }
 
     /*
@@ -445,42 +402,61 @@ public class SubscriptionValidationDAO {
     public List<Subscription> getAllSubscriptions(String tenantDomain) {
 
         List<Subscription> subscriptions = new ArrayList<>();
+        try {
+            forEachSubscription(tenantDomain, subscriptions::add);
+        } catch (APIManagementException e) {
+            log.error("Error in loading Subscriptions for tenantId : " + tenantDomain, e);
+        }
+        return subscriptions;
+    }
+
+    /**
+     * Passes the Subscriptions of a tenant to a consumer one by one as they are read from the database, without
+     * holding all of them in memory.
+     *
+     * @param tenantDomain tenant domain
+     * @param consumer     consumer of the subscriptions
+     * @throws APIManagementException if the subscriptions could not be read
+     */
+    public void forEachSubscription(String tenantDomain, Consumer<Subscription> consumer)
+            throws APIManagementException {
+
+        int tenantId = getTenantId(tenantDomain);
         try (Connection conn = APIMgtDBUtil.getConnection();
              PreparedStatement ps =
                      conn.prepareStatement(SubscriptionValidationSQLConstants.GET_TENANT_SUBSCRIPTIONS_SQL)) {
-            int tenantId = 0;
-            try {
-                tenantId = ServiceReferenceHolder.getInstance().getRealmService().getTenantManager()
-                        .getTenantId(tenantDomain);
-            } catch (UserStoreException e) {
-                log.error("Error in getting tenant id for loading Subscriptions for tenant : " + tenantDomain, e);
-            }
             ps.setInt(1, tenantId);
-
+            ps.setFetchSize(RESULT_SET_FETCH_SIZE);
             try (ResultSet resultSet = ps.executeQuery()) {
-                populateSubscriptionsList(subscriptions, resultSet);
+                while (resultSet.next()) {
+                    consumer.accept(readSubscription(resultSet));
+                }
             }
         } catch (SQLException e) {
-            log.error("Error in loading Subscriptions for tenantId : " + tenantDomain, e);
+            throw new APIManagementException("Error in loading Subscriptions for tenant : " + tenantDomain, e);
         }
-        return subscriptions;
     }
 
     private void populateSubscriptionsList(List<Subscription> subscriptions, ResultSet resultSet) throws SQLException {
 
         if (resultSet != null && subscriptions != null) {
             while (resultSet.next()) {
-                Subscription subscription = new Subscription();
-                subscription.setSubscriptionId(resultSet.getInt("SUB_ID"));
-                subscription.setPolicyId(resultSet.getString("TIER"));
-                subscription.setApiId(resultSet.getInt("API_ID"));
-                subscription.setAppId(resultSet.getInt("APP_ID"));
-                subscription.setSubscriptionState(resultSet.getString("STATUS"));
-                subscriptions.add(subscription);
+                subscriptions.add(readSubscription(resultSet));
             }
         }
     }
 
+    private Subscription readSubscription(ResultSet resultSet) throws SQLException {
+
+        Subscription subscription = new Subscription();
+        subscription.setSubscriptionId(resultSet.getInt("SUB_ID"));
+        subscription.setPolicyId(resultSet.getString("TIER"));
+        subscription.setApiId(resultSet.getInt("API_ID"));
+        subscription.setAppId(resultSet.getInt("APP_ID"));
+        subscription.setSubscriptionState(resultSet.getString("STATUS"));
+        return subscription;
+    }
+
     /*
      * This method can be used to retrieve all the Applications of a given tenant in the database
      * @param tenantId : tenant Id
@@ -488,27 +464,62 @@ public class SubscriptionValidationDAO {
      * */
     public List<Application> getAllApplications(String tenantDomain) {
 
-        ArrayList<Application> applications = new ArrayList<>();
+        List<Application> applications = new ArrayList<>();
+        try {
+            forEachApplication(tenantDomain, applications::add);
+        } catch (APIManagementException e) {
+            log.error("Error in loading Applications for tenantDomain : " + tenantDomain, e);
+        }
+        return applications;
+    }
+
+    /**
+     * Passes the Applications of a tenant to a consumer one by one as they are read from the database, without
+     * holding all of them in memory. The attribute rows of an application are read in order of the application ID,
+     * so an application is complete once a row of the next application is read.
+     *
+     * @param tenantDomain tenant domain
+     * @param consumer     consumer of the applications
+     * @throws APIManagementException if the applications could not be read
+     */
+    public void forEachApplication(String tenantDomain, Consumer<Application> consumer)
+            throws APIManagementException {
+
+        int tenantId = getTenantId(tenantDomain);
         try (Connection conn = APIMgtDBUtil.getConnection();
              PreparedStatement ps =
                      conn.prepareStatement(SubscriptionValidationSQLConstants.GET_TENANT_APPLICATIONS_SQL)) {
-            try {
-                int tenantId = ServiceReferenceHolder.getInstance().getRealmService().getTenantManager()
-                        .getTenantId(tenantDomain);
-                ps.setInt(1, tenantId);
-
-                try (ResultSet resultSet = ps.executeQuery()) {
-                    addToApplicationList(applications, resultSet);
+            ps.setInt(1, tenantId);
+            ps.setFetchSize(RESULT_SET_FETCH_SIZE);
+            try (ResultSet resultSet = ps.executeQuery()) {
+                Application application = null;
+                while (resultSet.next()) {
+                    int appId = resultSet.getInt("APP_ID");
+                    if (application == null || application.getId() != appId) {
+                        if (application != null) {
+                            consumer.accept(application);
+                        }
+                        application = new Application();
+                        application.setId(appId);
+                        application.setUuid(resultSet.getString("APP_UUID"));
+                        application.setPolicy(resultSet.getString("TIER"));
+                        application.setSubName(resultSet.getString("SUB_NAME"));
+                        application.setName(resultSet.getString("APS_NAME"));
+                        application.setTokenType(resultSet.getString("TOKEN_TYPE"));
+                    }
+                    String attributeName = resultSet.getString("ATTRIBUTE_NAME");
+                    String attributeValue = resultSet.getString("ATTRIBUTE_VALUE");
+                    if (StringUtils.isNotEmpty(attributeName) && StringUtils.isNotEmpty(attributeValue)) {
+                        application.addAttribute(attributeName, attributeValue);
+                    }
+                }
+                if (application != null) {
+                    consumer.accept(application);
                 }
-            } catch (UserStoreException e) {
-                log.error("Error in getting tenant id for loading Applications for tenant : " + tenantDomain, e);
             }
-
         } catch (SQLException e) {
-            log.error("Error in loading Applications for tenantDomain : " + tenantDomain, e);
+            throw new APIManagementException("Error in loading Applications for tenant : " + tenantDomain, e);
         }
-
-        return applications;
     }
 
     /*
@@ -518,27 +529,50 @@ public class SubscriptionValidationDAO {
     public List<ApplicationKeyMapping> getAllApplicationKeyMappings(String tenantDomain) {
 
         List<ApplicationKeyMapping> keyMappings = new ArrayList<>();
+        try {
+            forEachApplicationKeyMapping(tenantDomain, keyMappings::add);
+        } catch (APIManagementException e) {
+            log.error("Error in loading Application key mappings for tenantId : " + tenantDomain, e);
+        }
+        return keyMappings;
+    }
 
+    /**
+     * Passes the ApplicationKeyMappings of a tenant to a consumer one by one as they are read from the database,
+     * without holding all of them in memory.
+     *
+     * @param tenantDomain tenant domain
+     * @param consumer     consumer of the key mappings
+     * @throws APIManagementException if the key mappings could not be read
+     */
+    public void forEachApplicationKeyMapping(String tenantDomain, Consumer<ApplicationKeyMapping> consumer)
+            throws APIManagementException {
+
+        int tenantId = getTenantId(tenantDomain);
         try (Connection conn = APIMgtDBUtil.getConnection();
              PreparedStatement ps =
                      conn.prepareStatement(SubscriptionValidationSQLConstants.GET_TENANT_AM_KEY_MAPPING_SQL)) {
-            int tenantId = 0;
-            try {
-                tenantId = ServiceReferenceHolder.getInstance().getRealmService().getTenantManager()
-                        .getTenantId(tenantDomain);
-            } catch (UserStoreException e) {
-                log.error("Error in loading ApplicationKeyMappings for tenantDomain : " + tenantDomain, e);
-            }
             ps.setInt(1, tenantId);
-
+            ps.setFetchSize(RESULT_SET_FETCH_SIZE);
             try (ResultSet resultSet = ps.executeQuery()) {
-                populateApplicationKeyMappingsList(keyMappings, resultSet);
+                while (resultSet.next()) {
+                    consumer.accept(readApplicationKeyMapping(resultSet));
+                }
             }
         } catch (SQLException e) {
-            log.error("Error in loading Application key mappings for tenantId : " + tenantDomain, e);
+            throw new APIManagementException("Error in loading Application key mappings for tenant : "
+                    + tenantDomain, e);
         }
+    }
 
-        return keyMappings;
+    private int getTenantId(String tenantDomain) throws APIManagementException {
+
+        try {
+            return ServiceReferenceHolder.getInstance().getRealmService().getTenantManager()
+                    .getTenantId(tenantDomain);
+        } catch (UserStoreException e) {
+            throw new APIManagementException("Error in getting tenant id of tenant : " + tenantDomain, e);
+        }
     }
 
     private void populateApplicationKeyMappingsList(List<ApplicationKeyMapping> keyMappings, ResultSet resultSet)
@@ -547,17 +581,22 @@ public class SubscriptionValidationDAO {
         if (keyMappings != null && resultSet != null) {
 
             while (resultSet.next()) {
-                ApplicationKeyMapping keyMapping = new ApplicationKeyMapping();
-                keyMapping.setApplicationId(resultSet.getInt("APPLICATION_ID"));
-                keyMapping.setConsumerKey(resultSet.getString("CONSUMER_KEY"));
-                keyMapping.setKeyType(resultSet.getString("KEY_TYPE"));
-                keyMapping.setKeyManager(resultSet.getString("KEY_MANAGER"));
-                keyMappings.add(keyMapping);
+                keyMappings.add(readApplicationKeyMapping(resultSet));
             }
 
         }
     }
 
+    private ApplicationKeyMapping readApplicationKeyMapping(ResultSet resultSet) throws SQLException {
+
+        ApplicationKeyMapping keyMapping = new ApplicationKeyMapping();
+        keyMapping.setApplicationId(resultSet.getInt("APPLICATION_ID"));
+        keyMapping.setConsumerKey(resultSet.getString("CONSUMER_KEY"));
+        keyMapping.setKeyType(resultSet.getString("KEY_TYPE"));
+        keyMapping.setKeyManager(resultSet.getString("KEY_MANAGER"));
+        return keyMapping;
+    }
+
     /*
      * @param subscriptionId : unique identifier of a subscription
      * @return {@link Subscription}
@@ -575,6 +614,7 @@ public class SubscriptionValidationDAO {
                 log.error("Error in loading SubscriptionPolicies for tenantDomain : " + tenantDomain, e);
             }
             ps.setInt(1, tenantId);
+            ps.setFetchSize(RESULT_SET_FETCH_SIZE);
 
             try (ResultSet resultSet = ps.executeQuery()) {
                 return populateSubscriptionPolicyList(resultSet);
@@ -654,9 +694,13 @@ public class SubscriptionValidationDAO {
                 log.error("Error in loading ApplicationPolicies for tenantDomain : " + tenantDomain, e);
             }
             ps.setInt(1, tenantId);
+            ps.setFetchSize(RESULT_SET_FETCH_SIZE);
+            Map<Integer, List<ConditionDTO>> conditions =
+                    getConditions(conn, SubscriptionValidationSQLConstants.TENANT_CONDITION_GROUPS_CONDITION,
+                            tenantId, null);
 
             try (ResultSet resultSet = ps.executeQuery()) {
-                return populateApiPolicyList(resultSet);
+                return populateApiPolicyList(resultSet, conditions);
             }
 
         } catch (SQLException e) {
@@ -666,7 +710,7 @@ public class SubscriptionValidationDAO {
         return null;
     }
 
-    private List<APIPolicy> populateApiPolicyList(ResultSet resultSet)
+    private List<APIPolicy> populateApiPolicyList(ResultSet resultSet, Map<Integer, List<ConditionDTO>> conditions)
             throws SQLException {
 
         List<APIPolicy> apiPolicies = new ArrayList<>();
@@ -694,15 +738,8 @@ public class SubscriptionValidationDAO {
                 apiPolicyConditionGroup
                         .setQuotaType(resultSet.getString(ThrottlePolicyConstants.COLUMN_QUOTA_POLICY_TYPE));
                 apiPolicyConditionGroup.setPolicyId(policyId);
-                ApiMgtDAO apiMgtDAO = ApiMgtDAO.getInstance();
-                ConditionGroupDTO conditionGroupDTO = null;
-                try {
-                    conditionGroupDTO = apiMgtDAO.createConditionGroupDTO(conditionGroup);
-                } catch (APIManagementException e) {
-                    log.error("Error while processing api policies for policyId : " + policyId, e);
-                }
-                ConditionDTO[] conditionDTOS = conditionGroupDTO.getConditions();
-                apiPolicyConditionGroup.setConditionDTOS(Arrays.asList(conditionDTOS));
+                List<ConditionDTO> conditionDTOS = conditions.get(conditionGroup);
+                apiPolicyConditionGroup.setConditionDTOS(conditionDTOS != null ? conditionDTOS : new ArrayList<>());
                 setCommonProperties(apiPolicyConditionGroup, resultSet);
                 apiPolicy.addConditionGroup(apiPolicyConditionGroup);
                 temp.put(policyId, apiPolicy);
@@ -711,6 +748,100 @@ public class SubscriptionValidationDAO {
         return apiPolicies;
     }
 
+    /*
+     * Loads the conditions of a set of condition groups with one query per kind of condition, instead of one query
+     * per kind of condition for each condition group.
+     *
+     * @param conditionGroupsCondition condition selecting the condition groups, empty to load every condition group
+     * @param tenantId                 tenant of the policies of the condition groups, if the condition has one
+     * @param policyName               name of the policy of the condition groups, if the condition has one
+     * @return conditions by condition group id
+     * */
+    private Map<Integer, List<ConditionDTO>> getConditions(Connection connection, String conditionGroupsCondition,
+                                                           Integer tenantId, String policyName) throws SQLException {
+
+        Map<Integer, List<ConditionDTO>> conditions = new HashMap<>();
+        try (PreparedStatement ps = prepareConditionsStatement(connection,
+                SubscriptionValidationSQLConstants.GET_ALL_IP_CONDITIONS_SQL, conditionGroupsCondition, tenantId,
+                policyName);
+             ResultSet resultSet = ps.executeQuery()) {
+            while (resultSet.next()) {
+                String startingIP = resultSet.getString(ThrottlePolicyConstants.COLUMN_STARTING_IP);
+                String endingIP = resultSet.getString(ThrottlePolicyConstants.COLUMN_ENDING_IP);
+                String specificIP = resultSet.getString(ThrottlePolicyConstants.COLUMN_SPECIFIC_IP);
+                boolean invert = resultSet.getBoolean(ThrottlePolicyConstants.COLUMN_WITHIN_IP_RANGE);
+                if (StringUtils.isNotEmpty(specificIP)) {
+                    addCondition(conditions, resultSet, PolicyConstants.IP_SPECIFIC_TYPE,
+                            PolicyConstants.IP_SPECIFIC_TYPE, specificIP, invert);
+                } else if (StringUtils.isNotEmpty(startingIP)) {
+                    addCondition(conditions, resultSet, PolicyConstants.IP_RANGE_TYPE, startingIP, endingIP, invert);
+                }
+            }
+        }
+        try (PreparedStatement ps = prepareConditionsStatement(connection,
+                SubscriptionValidationSQLConstants.GET_ALL_HEADER_CONDITIONS_SQL, conditionGroupsCondition, tenantId,
+                policyName);
+             ResultSet resultSet = ps.executeQuery()) {
+            while (resultSet.next()) {
+                addCondition(conditions, resultSet, PolicyConstants.HEADER_TYPE,
+                        resultSet.getString(ThrottlePolicyConstants.COLUMN_HEADER_FIELD_NAME),
+                        resultSet.getString(ThrottlePolicyConstants.COLUMN_HEADER_FIELD_VALUE),
+                        resultSet.getBoolean(ThrottlePolicyConstants.COLUMN_IS_HEADER_FIELD_MAPPING));
+            }
+        }
+        try (PreparedStatement ps = prepareConditionsStatement(connection,
+                SubscriptionValidationSQLConstants.GET_ALL_QUERY_PARAMETER_CONDITIONS_SQL, conditionGroupsCondition,
+                tenantId, policyName);
+             ResultSet resultSet = ps.executeQuery()) {
+            while (resultSet.next()) {
+                addCondition(conditions, resultSet, PolicyConstants.QUERY_PARAMETER_TYPE,
+                        resultSet.getString(ThrottlePolicyConstants.COLUMN_PARAMETER_NAME),
+                        resultSet.getString(ThrottlePolicyConstants.COLUMN_PARAMETER_VALUE),
+                        resultSet.getBoolean(ThrottlePolicyConstants.COLUMN_IS_PARAM_MAPPING));
+            }
+        }
+        try (PreparedStatement ps = prepareConditionsStatement(connection,
+                SubscriptionValidationSQLConstants.GET_ALL_JWT_CLAIM_CONDITIONS_SQL, conditionGroupsCondition,
+                tenantId, policyName);
+             ResultSet resultSet = ps.executeQuery()) {
+            while (resultSet.next()) {
+                addCondition(conditions, resultSet, PolicyConstants.JWT_CLAIMS_TYPE,
+                        resultSet.getString(ThrottlePolicyConstants.COLUMN_CLAIM_URI),
+                        resultSet.getString(ThrottlePolicyConstants.COLUMN_CLAIM_ATTRIBUTE),
+                        resultSet.getBoolean(ThrottlePolicyConstants.COLUMN_IS_CLAIM_MAPPING));
+            }
+        }
+        return conditions;
+    }
+
+    private PreparedStatement prepareConditionsStatement(Connection connection, String sql,
+                                                         String conditionGroupsCondition, Integer tenantId,
+                                                         String policyName) throws SQLException {
+
+        PreparedStatement ps = connection.prepareStatement(sql + conditionGroupsCondition);
+        int parameterIndex = 1;
+        if (tenantId != null) {
+            ps.setInt(parameterIndex++, tenantId);
+        }
+        if (policyName != null) {
+            ps.setString(parameterIndex, policyName);
+        }
+        ps.setFetchSize(RESULT_SET_FETCH_SIZE);
+        return ps;
+    }
+
+    private void addCondition(Map<Integer, List<ConditionDTO>> conditions, ResultSet resultSet, String type,
+                              String name, String value, boolean invert) throws SQLException {
+
+        ConditionDTO conditionDTO = new ConditionDTO();
+        conditionDTO.setConditionType(type);
+        conditionDTO.setConditionName(name);
+        conditionDTO.setConditionValue(value);
+        conditionDTO.isInverted(invert);
+        conditions.computeIfAbsent(resultSet.getInt(ThrottlePolicyConstants.COLUMN_CONDITION_ID),
+                conditionGroupId -> new ArrayList<>()).add(conditionDTO);
+    }
+
     /*
      * @param subscriptionId : unique identifier of a subscription
      * @return {@link Subscription}
@@ -826,9 +957,12 @@ public class SubscriptionValidationDAO {
             }
             ps.setInt(1, tenantId);
             ps.setString(2, policyName);
+            Map<Integer, List<ConditionDTO>> conditions =
+                    getConditions(conn, SubscriptionValidationSQLConstants.TENANT_POLICY_CONDITION_GROUPS_CONDITION,
+                            tenantId, policyName);
 
             try (ResultSet resultSet = ps.executeQuery()) {
-                List<APIPolicy> apiPolicies = populateApiPolicyList(resultSet);
+                List<APIPolicy> apiPolicies = populateApiPolicyList(resultSet, conditions);
                 if (!apiPolicies.isEmpty()) {
                     policy = apiPolicies.get(0);
                 }
@@ -980,55 +1114,140 @@ public class SubscriptionValidationDAO {
 
     public List<API> getAllApis(String organization, String deployment) {
 
-        String sql = "SELECT AM_API.API_PROVIDER,AM_API.API_NAME,AM_API.CONTEXT,AM_API.API_UUID,AM_API.API_ID,AM_API" +
-                ".API_TIER,AM_API.API_VERSION,AM_API.API_TYPE,AM_REVISION.REVISION_UUID AS REVISION_UUID," +
-                "AM_DEPLOYMENT_REVISION_MAPPING.NAME AS DEPLOYMENT_NAME " +
-                "FROM AM_API LEFT JOIN AM_REVISION ON AM_API.API_UUID=AM_REVISION.API_UUID LEFT JOIN " +
-                "AM_DEPLOYMENT_REVISION_MAPPING " +
-                "ON AM_REVISION.REVISION_UUID=AM_DEPLOYMENT_REVISION_MAPPING.REVISION_UUID ";
-        if (MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equals(organization)) {
-            sql = sql.concat("WHERE AM_API.CONTEXT NOT LIKE '/t/%'");
-        } else {
-            sql = sql.concat("WHERE AM_API.CONTEXT LIKE '/t/" + organization + "%'");
+        try (Connection connection = APIMgtDBUtil.getConnection()) {
+            return getAllApis(connection, organization, deployment);
+        } catch (SQLException e) {
+            log.error("Error in loading APIs for api : " + deployment, e);
         }
+        return new ArrayList<>();
+    }
+
+    /*
+     * Loads the APIs of an organization with at most three queries, whatever the number of APIs: one for the APIs
+     * and whether they are the default version, one for the URL mappings of their deployed revisions and one for the
+     * URL mappings of the API products. URL mappings are attached to the APIs in memory as they are read.
+     *
+     * @param deployment name of the deployment to load the APIs of, or null to load the APIs of every deployment
+     *                   and the API products
+     * @return {@link List<API>}
+     * */
+    private List<API> getAllApis(Connection connection, String organization, String deployment)
+            throws SQLException {
+
         List<API> apiList = new ArrayList<>();
-        try (Connection connection = APIMgtDBUtil.getConnection()) {
-            try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+        // A revision deployed in several deployments is listed once per deployment
+        Map<String, List<API>> apisByRevision = new HashMap<>();
+        Map<Integer, API> apiProducts = new HashMap<>();
+        String apisSql = SubscriptionValidationSQLConstants.GET_ORGANIZATION_APIS_SQL +
+                getContextCondition(organization);
+        if (deployment != null) {
+            apisSql = apisSql.concat(SubscriptionValidationSQLConstants.DEPLOYMENT_NAME_CONDITION);
+        }
+        try (PreparedStatement preparedStatement = connection.prepareStatement(apisSql)) {
+            preparedStatement.setString(1, getContextPattern(organization));
+            if (deployment != null) {
+                preparedStatement.setString(2, deployment);
+            }
+            preparedStatement.setFetchSize(RESULT_SET_FETCH_SIZE);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    String deploymentName = resultSet.getString("DEPLOYMENT_NAME");
+                    String apiType = resultSet.getString("API_TYPE");
+                    int apiId = resultSet.getInt("API_ID");
+                    if (APIConstants.API_PRODUCT.equals(apiType)) {
+                        if (deployment == null && !apiProducts.containsKey(apiId)) {
+                            API apiProduct = getApi(resultSet);
+                            apiProducts.put(apiId, apiProduct);
+                            apiList.add(apiProduct);
+                        }
+                    } else if (StringUtils.isNotEmpty(deploymentName)) {
+                        API api = getApi(resultSet);
+                        String revision = resultSet.getString("REVISION_UUID");
+                        api.setEnvironment(deploymentName);
+                        api.setRevision(revision);
+                        apisByRevision.computeIfAbsent(apiId + ":" + revision, key -> new ArrayList<>()).add(api);
+                        apiList.add(api);
+                    }
+                }
+            }
+        }
+        if (!apisByRevision.isEmpty()) {
+            String urlMappingsSql = SubscriptionValidationSQLConstants.GET_ORGANIZATION_API_URL_MAPPINGS_SQL;
+            if (deployment != null) {
+                urlMappingsSql = urlMappingsSql.concat(SubscriptionValidationSQLConstants
+                        .DEPLOYED_REVISION_NAME_CONDITION);
+            }
+            urlMappingsSql = urlMappingsSql.concat(") AND ").concat(getContextCondition(organization));
+            try (PreparedStatement preparedStatement = connection.prepareStatement(urlMappingsSql)) {
+                int parameterIndex = 1;
+                if (deployment != null) {
+                    preparedStatement.setString(parameterIndex++, deployment);
+                }
+                preparedStatement.setString(parameterIndex, getContextPattern(organization));
+                preparedStatement.setFetchSize(RESULT_SET_FETCH_SIZE);
                 try (ResultSet resultSet = preparedStatement.executeQuery()) {
                     while (resultSet.next()) {
-                        String deploymentName = resultSet.getString("DEPLOYMENT_NAME");
-                        String apiType = resultSet.getString("API_TYPE");
-                        API api = new API();
-                        String provider = resultSet.getString("API_PROVIDER");
-                        String name = resultSet.getString("API_NAME");
-                        String version = resultSet.getString("API_VERSION");
-                        api.setApiUUID(resultSet.getString("API_UUID"));
-                        api.setApiId(resultSet.getInt("API_ID"));
-                        api.setVersion(version);
-                        api.setProvider(provider);
-                        api.setName(name);
-                        api.setApiType(apiType);
-                        api.setPolicy(resultSet.getString("API_TIER"));
-                        api.setContext(resultSet.getString("CONTEXT"));
-                        String revision = resultSet.getString("REVISION_UUID");
-                        api.setIsDefaultVersion(isAPIDefaultVersion(connection, provider, name, version));
-                        if (APIConstants.API_PRODUCT.equals(apiType)) {
-                            attachURlMappingDetailsOfApiProduct(connection, api);
-                        } else {
-                            if (deployment.equals(deploymentName)) {
-                                attachURLMappingDetails(connection, revision, api);
-                                apiList.add(api);
+                        List<API> apis = apisByRevision.get(resultSet.getInt("API_ID") + ":" +
+                                resultSet.getString("REVISION_UUID"));
+                        if (apis != null) {
+                            for (API api : apis) {
+                                addURLMapping(api, resultSet);
                             }
                         }
                     }
                 }
             }
-        } catch (SQLException e) {
-            log.error("Error in loading APIs for api : " + deployment, e);
+        }
+        if (!apiProducts.isEmpty()) {
+            String productUrlMappingsSql = SubscriptionValidationSQLConstants
+                    .GET_ORGANIZATION_API_PRODUCT_URL_MAPPINGS_SQL + getContextCondition(organization);
+            try (PreparedStatement preparedStatement = connection.prepareStatement(productUrlMappingsSql)) {
+                preparedStatement.setString(1, getContextPattern(organization));
+                preparedStatement.setFetchSize(RESULT_SET_FETCH_SIZE);
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    while (resultSet.next()) {
+                        API apiProduct = apiProducts.get(resultSet.getInt("API_ID"));
+                        if (apiProduct != null) {
+                            addURLMapping(apiProduct, resultSet);
+                        }
+                    }
+                }
+            }
         }
         return apiList;
     }
 
+    private API getApi(ResultSet resultSet) throws SQLException {
+
+        API api = new API();
+        api.setApiUUID(resultSet.getString("API_UUID"));
+        api.setApiId(resultSet.getInt("API_ID"));
+        api.setVersion(resultSet.getString("API_VERSION"));
+        api.setProvider(resultSet.getString("API_PROVIDER"));
+        api.setName(resultSet.getString("API_NAME"));
+        api.setApiType(resultSet.getString("API_TYPE"));
+        api.setPolicy(resultSet.getString("API_TIER"));
+        api.setContext(resultSet.getString("CONTEXT"));
+        api.setIsDefaultVersion(resultSet.getString("PUBLISHED_DEFAULT_API_VERSION") != null);
+        return api;
+    }
+
+    private static String getContextCondition(String organization) {
+
+        if (MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equals(organization)) {
+            return "AM_API.CONTEXT NOT LIKE ?";
+        }
+        return "AM_API.CONTEXT LIKE ?";
+    }
+
+    private static String getContextPattern(String organization) {
+
+        if (MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equals(organization)) {
+            return "/t/%";
+        }
+        return "/t/" + organization + "/%";
+    }
+
     private void attachURlMappingDetailsOfApiProduct(Connection connection, API api) throws SQLException {
 
         String sql = "SELECT AM_API_URL_MAPPING.URL_MAPPING_ID,AM_API_URL_MAPPING.HTTP_METHOD,AM_API_URL_MAPPING" +
@@ -1042,23 +1261,7 @@ public class SubscriptionValidationDAO {
             preparedStatement.setInt(1, api.getApiId());
             try (ResultSet resultSet = preparedStatement.executeQuery()) {
                 while (resultSet.next()) {
-                    String httpMethod = resultSet.getString("HTTP_METHOD");
-                    String authScheme = resultSet.getString("AUTH_SCHEME");
-                    String urlPattern = resultSet.getString("URL_PATTERN");
-                    String throttlingTier = resultSet.getString("THROTTLING_TIER");
-                    String scopeName = resultSet.getString("SCOPE_NAME");
-                    URLMapping urlMapping = api.getResource(urlPattern, httpMethod);
-                    if (urlMapping == null) {
-                        urlMapping = new URLMapping();
-                        urlMapping.setAuthScheme(authScheme);
-                        urlMapping.setHttpMethod(httpMethod);
-                        urlMapping.setThrottlingPolicy(throttlingTier);
-                        urlMapping.setUrlPattern(urlPattern);
-                    }
-                    if (StringUtils.isNotEmpty(scopeName)) {
-                        urlMapping.addScope(scopeName);
-                    }
-                    api.addResource(urlMapping);
+                    addURLMapping(api, resultSet);
                 }
             }
         }
@@ -1126,28 +1329,31 @@ public class SubscriptionValidationDAO {
             preparedStatement.setString(2, revisionId);
             try (ResultSet resultSet = preparedStatement.executeQuery()) {
                 while (resultSet.next()) {
-                    String httpMethod = resultSet.getString("HTTP_METHOD");
-                    String authScheme = resultSet.getString("AUTH_SCHEME");
-                    String urlPattern = resultSet.getString("URL_PATTERN");
-                    String throttlingTier = resultSet.getString("THROTTLING_TIER");
-                    String scopeName = resultSet.getString("SCOPE_NAME");
-                    URLMapping urlMapping = api.getResource(urlPattern, httpMethod);
-                    if (urlMapping == null) {
-                        urlMapping = new URLMapping();
-                        urlMapping.setAuthScheme(authScheme);
-                        urlMapping.setHttpMethod(httpMethod);
-                        urlMapping.setThrottlingPolicy(throttlingTier);
-                        urlMapping.setUrlPattern(urlPattern);
-                    }
-                    if (StringUtils.isNotEmpty(scopeName)) {
-                        urlMapping.addScope(scopeName);
-                    }
-                    api.addResource(urlMapping);
+                    addURLMapping(api, resultSet);
                 }
             }
         }
     }
 
+    private void addURLMapping(API api, ResultSet resultSet) throws SQLException {
+
+        String httpMethod = resultSet.getString("HTTP_METHOD");
+        String urlPattern = resultSet.getString("URL_PATTERN");
+        String scopeName = resultSet.getString("SCOPE_NAME");
+        URLMapping urlMapping = api.getResource(urlPattern, httpMethod);
+        if (urlMapping == null) {
+            urlMapping = new URLMapping();
+            urlMapping.setAuthScheme(resultSet.getString("AUTH_SCHEME"));
+            urlMapping.setHttpMethod(httpMethod);
+            urlMapping.setThrottlingPolicy(resultSet.getString("THROTTLING_TIER"));
+            urlMapping.setUrlPattern(urlPattern);
+        }
+        if (StringUtils.isNotEmpty(scopeName)) {
+            urlMapping.addScope(scopeName);
+        }
+        api.addResource(urlMapping);
+    }
+
     private boolean isAPIDefaultVersion(Connection connection, String provider, String name, String version)
             throws SQLException {
 
@@ -23,6 +23,7 @@ import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.apimgt.api.APIManagementException;
 import org.wso2.carbon.apimgt.api.model.webhooks.Subscription;
 import org.wso2.carbon.apimgt.impl.APIConstants;
+import org.wso2.carbon.apimgt.impl.dto.WebhooksDeliveryStatusDTO;
 import org.wso2.carbon.apimgt.impl.dao.constants.SQLConstants;
 import org.wso2.carbon.apimgt.impl.utils.APIMgtDBUtil;
 import org.wso2.carbon.core.util.CryptoException;
@@ -270,6 +271,47 @@ public class WebhooksDAO {
         }
     }
 
+    /**
+     * Updates the delivery status of a batch of webhooks callback urls in a single transaction.
+     *
+     * @param deliveryStatuses delivery statuses to store
+     * @throws APIManagementException if the statuses cannot be stored
+     */
+    public void updateDeliveryStatuses(List<WebhooksDeliveryStatusDTO> deliveryStatuses)
+            throws APIManagementException {
+
+        if (deliveryStatuses.isEmpty()) {
+            return;
+        }
+        try (Connection conn = APIMgtDBUtil.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement prepareStmt = conn
+                    .prepareStatement(SQLConstants.WebhooksSqlConstants.UPDATE_DELIVERY_STATE)) {
+                long now = System.currentTimeMillis();
+                for (WebhooksDeliveryStatusDTO deliveryStatus : deliveryStatuses) {
+                    long deliveredAt = deliveryStatus.getDeliveredAt() > 0 ? deliveryStatus.getDeliveredAt() : now;
+                    prepareStmt.setTimestamp(1, new Timestamp(deliveredAt));
+                    prepareStmt.setInt(2, deliveryStatus.getStatus());
+                    prepareStmt.setString(3, deliveryStatus.getApiKey());
+                    prepareStmt.setString(4, deliveryStatus.getAppID());
+                    prepareStmt.setString(5, deliveryStatus.getTenantDomain());
+                    prepareStmt.setString(6, deliveryStatus.getCallbackURL());
+                    prepareStmt.setString(7, deliveryStatus.getTopicName());
+                    prepareStmt.addBatch();
+                }
+                prepareStmt.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                handleConnectionRollBack(conn);
+                throw new APIManagementException("Error while storing the delivery status of "
+                        + deliveryStatuses.size() + " webhooks callbacks", e);
+            }
+        } catch (SQLException e) {
+            throw new APIManagementException("Error while storing the delivery status of "
+                    + deliveryStatuses.size() + " webhooks callbacks", e);
+        }
+    }
+
     private void deleteSubscription(Connection conn, Properties properties) throws APIManagementException {
         try (PreparedStatement preparedStatement = conn
                 .prepareStatement(SQLConstants.WebhooksSqlConstants.DELETE_IF_EXISTS_SUBSCRIBER)) {
@@ -49,7 +49,7 @@ public class SQLConstantOracle extends SQLConstants{
                     " AND " +
                     "   (GROUP_ID= ?  OR  ((GROUP_ID='' OR GROUP_ID IS NULL ) AND SUB.USER_ID=?))" +
                     " And " +
-                    "    NAME like ?" +
+                    "    NAME like ? $4" +
                     " ) a WHERE r BETWEEN ?+1 AND ?"+
                     " )x left join AM_BLOCK_CONDITIONS bl on  ( bl.TYPE = 'APPLICATION' AND bl.VALUE = concat(concat(x.USER_ID,':'),x.name)) "+
                     " ORDER BY $1 $2 ";
@@ -81,7 +81,7 @@ public class SQLConstantOracle extends SQLConstants{
                     " AND " +
                     "   (GROUP_ID= ?  OR ((GROUP_ID='' OR GROUP_ID IS NULL ) AND LOWER (SUB.USER_ID) = LOWER(?)))"+
                     " And "+
-                    "    NAME like ?"+
+                    "    NAME like ? $4"+
                     " ) a WHERE r BETWEEN ?+1 AND ?"+
                     " )x left join AM_BLOCK_CONDITIONS bl on  ( bl.TYPE = 'APPLICATION' AND bl.VALUE = concat(concat(x.USER_ID,':'),x.name)) "+
                     " ORDER BY $1 $2 ";
@@ -115,7 +115,7 @@ public class SQLConstantOracle extends SQLConstants{
                     "    (APP.APPLICATION_ID IN (SELECT APPLICATION_ID FROM AM_APPLICATION WHERE GROUP_ID = ?))" +
                     " )" +
                     " And " +
-                    "    NAME like ?" +
+                    "    NAME like ? $4" +
                     " ) a WHERE r BETWEEN ?+1 AND ?"+
                     " )x left join AM_BLOCK_CONDITIONS bl on  ( bl.TYPE = 'APPLICATION' AND bl.VALUE = concat(concat(x.USER_ID,':'),x.name)) "+
                     " ORDER BY $1 $2 ";
@@ -151,7 +151,7 @@ public class SQLConstantOracle extends SQLConstants{
                     "    (APP.APPLICATION_ID IN (SELECT APPLICATION_ID FROM AM_APPLICATION WHERE GROUP_ID = ?))" +
                     " )" +
                     " And " +
-                    "    NAME like ?"+
+                    "    NAME like ? $4"+
                     " ) a WHERE r BETWEEN ?+1 AND ?"+
                     " )x left join AM_BLOCK_CONDITIONS bl on  ( bl.TYPE = 'APPLICATION' AND bl.VALUE = concat(concat(x.USER_ID,':'),x.name)) "+
                     " ORDER BY $1 $2 ";
@@ -181,7 +181,7 @@ public class SQLConstantOracle extends SQLConstants{
                     " AND " +
                     "    SUB.USER_ID = ?"+
                     " And "+
-                    "    NAME like ?"+
+                    "    NAME like ? $4"+
                     " ) a WHERE r BETWEEN ?+1 AND ?"+
                     " )x left join AM_BLOCK_CONDITIONS bl on  ( bl.TYPE = 'APPLICATION' AND bl.VALUE = concat(concat(x.USER_ID,':'),x.name)) "+
                     " ORDER BY $1 $2 ";
@@ -211,11 +211,14 @@ public class SQLConstantOracle extends SQLConstants{
                     " AND " +
                     "   LOWER(SUB.USER_ID) = LOWER(?)" +
                     " And "+
-                    "    NAME like ?"+
+                    "    NAME like ? $4"+
                     " ) a WHERE r BETWEEN ?+1 AND ?"+
                     " )x left join AM_BLOCK_CONDITIONS bl on  ( bl.TYPE = 'APPLICATION' AND bl.VALUE = concat(concat(x.USER_ID,':'),x.name)) "+
                     " ORDER BY $1 $2 ";
 
+    public static final String GET_PAGINATED_SUBSCRIBED_APIS_SUFFIX =
+            " ORDER BY SUBS.SUBSCRIPTION_ID OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
+
     public static final String GET_APPLICATIONS_BY_TENANT_ID =
             "select distinct x.* from (" +
                     "SELECT * FROM (" +
@@ -46,7 +46,7 @@ public class SQLConstantPostgreSQL extends SQLConstants{
                     " AND " +
                     "   (GROUP_ID= ?  OR  (GROUP_ID='' AND SUB.USER_ID = ?))" +
                     " And " +
-                    "    NAME like ?" +
+                    "    NAME like ? $4" +
                     " ORDER BY $1 $2 " +
                     " offset ? limit  ? "+
                     " )x left join AM_BLOCK_CONDITIONS bl on  ( bl.TYPE = 'APPLICATION' AND bl.VALUE = concat(concat(x.USER_ID,':'),x.name)) ";
@@ -74,7 +74,7 @@ public class SQLConstantPostgreSQL extends SQLConstants{
                     " AND " +
                     "   (GROUP_ID= ?  OR (GROUP_ID='' AND LOWER (SUB.USER_ID) =LOWER (?)))"+
                     " And "+
-                    "    NAME like ?"+
+                    "    NAME like ? $4"+
                     " ORDER BY $1 $2 " +
                     " offset ? limit  ? "+
                     " )x left join AM_BLOCK_CONDITIONS bl on  ( bl.TYPE = 'APPLICATION' AND bl.VALUE = concat(concat(x.USER_ID,':'),x.name)) ";
@@ -106,7 +106,7 @@ public class SQLConstantPostgreSQL extends SQLConstants{
                     "    (APP.APPLICATION_ID IN (SELECT APPLICATION_ID FROM AM_APPLICATION WHERE GROUP_ID = ?))" +
                     " )" +
                     " And "+
-                    "    NAME like ?" +
+                    "    NAME like ? $4" +
                     " ORDER BY $1 $2 " +
                     " offset ? limit  ? "+
                     " )x left join AM_BLOCK_CONDITIONS bl on  ( bl.TYPE = 'APPLICATION' AND bl.VALUE = concat(concat(x.USER_ID,':'),x.name)) ";
@@ -140,7 +140,7 @@ public class SQLConstantPostgreSQL extends SQLConstants{
                     "    (APP.APPLICATION_ID IN (SELECT APPLICATION_ID FROM AM_APPLICATION WHERE GROUP_ID = ?))" +
                     " )" +
                     " And " +
-                    "    NAME like ?"+
+                    "    NAME like ? $4"+
                     " ORDER BY $1 $2 " +
                     " offset ? limit  ? "+
                     " )x left join AM_BLOCK_CONDITIONS bl on  ( bl.TYPE = 'APPLICATION' AND bl.VALUE = concat(concat(x.USER_ID,':'),x.name)) ";
@@ -168,7 +168,7 @@ public class SQLConstantPostgreSQL extends SQLConstants{
                     " AND " +
                     "    SUB.USER_ID = ?"+
                     " And "+
-                    "    NAME like ?"+
+                    "    NAME like ? $4"+
                     " ORDER BY $1 $2 " +
                     " offset ? limit  ? "+
                     " )x left join AM_BLOCK_CONDITIONS bl on  ( bl.TYPE = 'APPLICATION' AND bl.VALUE = concat(concat(x.USER_ID,':'),x.name)) ";
@@ -195,12 +195,15 @@ public class SQLConstantPostgreSQL extends SQLConstants{
                     " AND " +
                     "   LOWER (SUB.USER_ID) =LOWER (?)" +
                     " And "+
-                    "    NAME like ?"+
+                    "    NAME like ? $4"+
                     " ORDER BY $1 $2 " +
                     " offset ? limit  ? "+
                     " )x left join AM_BLOCK_CONDITIONS bl on  ( bl.TYPE = 'APPLICATION' AND bl.VALUE = concat(concat(x.USER_ID,':'),x.name)) ";
 
 
+    public static final String GET_PAGINATED_SUBSCRIBED_APIS_SUFFIX =
+            " ORDER BY SUBS.SUBSCRIPTION_ID offset ? limit ? ";
+
     public static final String GET_APPLICATIONS_BY_TENANT_ID =
             "select distinct x.* from (" +
                     "SELECT " +
@@ -1440,6 +1440,43 @@ public class SQLConstants {
             " GROUP BY " +
             "   API_ID ";
 
+    public static final String GET_RANKED_APIS_SQL =
+            " SELECT " +
+            "   API.API_ID, API.API_UUID, API.API_PROVIDER, API.API_NAME, API.API_VERSION, API.API_TYPE, " +
+            "   API.CREATED_TIME, API.STATUS, RATINGS.RATING, SUBS.SUBSCRIPTION_COUNT " +
+            " FROM " +
+            "   AM_API API " +
+            "   LEFT JOIN (SELECT API_ID, CAST( SUM(RATING) AS DECIMAL)/COUNT(RATING) AS RATING " +
+            "     FROM AM_API_RATINGS GROUP BY API_ID) RATINGS ON API.API_ID = RATINGS.API_ID " +
+            "   LEFT JOIN (SELECT API_ID, COUNT(SUBSCRIPTION_ID) AS SUBSCRIPTION_COUNT " +
+            "     FROM AM_SUBSCRIPTION WHERE SUBS_CREATE_STATE = ? GROUP BY API_ID) SUBS ON API.API_ID = SUBS.API_ID ";
+
+    public static final String GET_API_UUIDS_NOT_MATCHING_CONTEXT_SQL =
+            " SELECT API_UUID FROM AM_API WHERE CONTEXT NOT LIKE ? ";
+
+    public static final String GET_API_UUIDS_MATCHING_CONTEXT_SQL =
+            " SELECT API_UUID FROM AM_API WHERE CONTEXT LIKE ? ";
+
+    public static final String GET_API_STATES_NOT_MATCHING_CONTEXT_SQL =
+            " SELECT API_UUID, STATUS, CREATED_TIME, UPDATED_TIME FROM AM_API WHERE CONTEXT NOT LIKE ? ";
+
+    public static final String GET_API_STATES_MATCHING_CONTEXT_SQL =
+            " SELECT API_UUID, STATUS, CREATED_TIME, UPDATED_TIME FROM AM_API WHERE CONTEXT LIKE ? ";
+
+    public static final String API_PRODUCT_TYPE_CONDITION = " AND API_TYPE = ? ";
+
+    public static final String NOT_API_PRODUCT_TYPE_CONDITION = " AND (API_TYPE IS NULL OR API_TYPE <> ?) ";
+
+    public static final String GET_API_STATE_SUMMARY_NOT_MATCHING_CONTEXT_SQL =
+            " SELECT STATUS, COUNT(API_ID) AS API_COUNT, MAX(API_ID) AS MAX_API_ID, " +
+            "   MAX(CREATED_TIME) AS MAX_CREATED_TIME, MAX(UPDATED_TIME) AS MAX_UPDATED_TIME " +
+            " FROM AM_API WHERE CONTEXT NOT LIKE ? GROUP BY STATUS ORDER BY STATUS";
+
+    public static final String GET_API_STATE_SUMMARY_MATCHING_CONTEXT_SQL =
+            " SELECT STATUS, COUNT(API_ID) AS API_COUNT, MAX(API_ID) AS MAX_API_ID, " +
+            "   MAX(CREATED_TIME) AS MAX_CREATED_TIME, MAX(UPDATED_TIME) AS MAX_UPDATED_TIME " +
+            " FROM AM_API WHERE CONTEXT LIKE ? GROUP BY STATUS ORDER BY STATUS";
+
     public static final String APP_APPLICATION_SQL =
             " INSERT INTO AM_APPLICATION (NAME, SUBSCRIBER_ID, APPLICATION_TIER, " +
             "   CALLBACK_URL, DESCRIPTION, APPLICATION_STATUS, GROUP_ID, CREATED_BY, CREATED_TIME, UPDATED_TIME, " +
@@ -3881,6 +3918,28 @@ public class SQLConstants {
                         "APPLICATION_ID = ? AND TENANT_DOMAIN = ? AND HUB_CALLBACK_URL = ? AND HUB_TOPIC = ?";
     }
 
+    /**
+     * Static class to hold database queries related to AM_SUBSCRIPTION_DATA_CHANGE table
+     */
+    public static class SubscriptionDataChangeSqlConstants {
+        public static final String ADD_CHANGE =
+                "INSERT INTO AM_SUBSCRIPTION_DATA_CHANGE (TENANT_ID, TENANT_DOMAIN, ENTITY_TYPE, EVENT_TYPE, API_ID, " +
+                        "APPLICATION_ID, SUBSCRIPTION_ID, APPLICATION_UUID, CONSUMER_KEY, KEY_MANAGER, KEY_TYPE, " +
+                        "CREATED_TIME) VALUES (?,?,?,?,?,?,?,?,?,?,?,?)";
+        public static final String GET_CHANGES =
+                "SELECT SEQUENCE_ID, TENANT_ID, EVENT_TYPE, API_ID, APPLICATION_ID, SUBSCRIPTION_ID, " +
+                        "APPLICATION_UUID, CONSUMER_KEY, KEY_MANAGER, KEY_TYPE, CREATED_TIME " +
+                        "FROM AM_SUBSCRIPTION_DATA_CHANGE WHERE TENANT_DOMAIN = ? AND ENTITY_TYPE = ? AND " +
+                        "SEQUENCE_ID > ? ORDER BY SEQUENCE_ID";
+        public static final String GET_SEQUENCE_RANGE =
+                "SELECT MIN(SEQUENCE_ID) AS MIN_SEQUENCE_ID, MAX(SEQUENCE_ID) AS MAX_SEQUENCE_ID " +
+                        "FROM AM_SUBSCRIPTION_DATA_CHANGE";
+        public static final String GET_MAX_SEQUENCE_CREATED_BEFORE =
+                "SELECT MAX(SEQUENCE_ID) AS MAX_SEQUENCE_ID FROM AM_SUBSCRIPTION_DATA_CHANGE WHERE CREATED_TIME <= ?";
+        public static final String DELETE_CHANGES_CREATED_BEFORE =
+                "DELETE FROM AM_SUBSCRIPTION_DATA_CHANGE WHERE CREATED_TIME < ? AND SEQUENCE_ID < ?";
+    }
+
     public static class KeyManagerSqlConstants {
         public static final String ADD_KEY_MANAGER =
                 " INSERT INTO AM_KEY_MANAGER (UUID,NAME,DESCRIPTION,TYPE,CONFIGURATION,TENANT_DOMAIN,ENABLED," +
@@ -50,7 +50,7 @@ public class SQLConstantsDB2 extends SQLConstants{
                     " AND " +
                     "   (GROUP_ID= ?  OR  (GROUP_ID='' AND SUB.USER_ID = ?))" +
                     " And " +
-                    "    NAME like ?" +
+                    "    NAME like ? $4" +
                     " ) a )x left join AM_BLOCK_CONDITIONS bl on  ( bl.TYPE = 'APPLICATION' AND bl.VALUE = concat(concat(x.USER_ID,':'),x.name)) " +
                     " ORDER BY $1 $2 limit ? , ? ";
 
@@ -81,7 +81,7 @@ public class SQLConstantsDB2 extends SQLConstants{
                     " AND " +
                     "   (GROUP_ID= ?  OR (GROUP_ID='' AND LOWER (SUB.USER_ID) = LOWER (?)))"+
                     " And "+
-                    "    NAME like ?" +
+                    "    NAME like ? $4" +
                     " ) a )x left join AM_BLOCK_CONDITIONS bl on  ( bl.TYPE = 'APPLICATION' AND bl.VALUE = concat(concat(x.USER_ID,':'),x.name)) " +
                     " ORDER BY $1 $2 limit ? , ? ";
 
@@ -109,7 +109,7 @@ public class SQLConstantsDB2 extends SQLConstants{
                     " AND " +
                     "    SUB.USER_ID = ?"+
                     " And "+
-                    "    NAME like ?" +
+                    "    NAME like ? $4" +
                     " ) a )x left join AM_BLOCK_CONDITIONS bl on  ( bl.TYPE = 'APPLICATION' AND bl.VALUE = concat(concat(x.USER_ID,':'),x.name)) " +
                     " ORDER BY $1 $2 limit ? , ? ";
 
@@ -138,7 +138,7 @@ public class SQLConstantsDB2 extends SQLConstants{
                     " AND " +
                     "   LOWER (SUB.USER_ID) = LOWER(?)" +
                     " And "+
-                    "    NAME like ?" +
+                    "    NAME like ? $4" +
                     " ) a )x left join AM_BLOCK_CONDITIONS bl on  ( bl.TYPE = 'APPLICATION' AND bl.VALUE = concat(concat(x.USER_ID,':'),x.name)) " +
                     " ORDER BY $1 $2 limit ? , ? ";
 
@@ -169,13 +169,16 @@ public class SQLConstantsDB2 extends SQLConstants{
                     "    (APP.APPLICATION_ID IN (SELECT APPLICATION_ID FROM AM_APPLICATION WHERE GROUP_ID = ?))" +
                     " )" +
                     " And "+
-                    "    NAME like ?"+
+                    "    NAME like ? $4"+
                     " ORDER BY $1 $2 " +
                     " limit ? , ? "+
                     " )x left join AM_BLOCK_CONDITIONS bl on  ( bl.TYPE = 'APPLICATION' AND bl.VALUE = concat(concat(x.USER_ID,':'),x.name)) ";
 
 
 
+    public static final String GET_PAGINATED_SUBSCRIBED_APIS_SUFFIX =
+            " ORDER BY SUBS.SUBSCRIPTION_ID limit ? , ? ";
+
     public static final String GET_APPLICATIONS_BY_TENANT_ID =
             "select distinct x.* from (" +
                     "SELECT * FROM (" +
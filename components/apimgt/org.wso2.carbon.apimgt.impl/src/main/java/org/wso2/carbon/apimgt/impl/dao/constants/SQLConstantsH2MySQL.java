@@ -48,7 +48,7 @@ public class SQLConstantsH2MySQL extends SQLConstants{
             " AND " +
             "   (GROUP_ID= ?  OR  (GROUP_ID='' AND LOWER (SUB.USER_ID) = LOWER(?)))" +
             " And " +
-            "    NAME like ?" +
+            "    NAME like ? $4" +
             " )x left join AM_BLOCK_CONDITIONS bl on  ( bl.TYPE = 'APPLICATION' AND bl.VALUE = concat(concat(x.USER_ID,':'),x.name)) " +
             " ORDER BY $1 $2 limit ? , ?";
 
@@ -75,7 +75,7 @@ public class SQLConstantsH2MySQL extends SQLConstants{
             " AND " +
             "   (GROUP_ID= ?  OR (GROUP_ID='' AND LOWER (SUB.USER_ID) = LOWER (?)))"+
             " And "+
-            "    NAME like ?"+
+            "    NAME like ? $4"+
             " )x left join AM_BLOCK_CONDITIONS bl on  ( bl.TYPE = 'APPLICATION' AND bl.VALUE = concat(concat(x.USER_ID,':'),x.name)) " +
             " ORDER BY $1 $2 limit ? , ?";
 
@@ -107,7 +107,7 @@ public class SQLConstantsH2MySQL extends SQLConstants{
                     "     (APP.APPLICATION_ID IN (SELECT APPLICATION_ID FROM AM_APPLICATION WHERE GROUP_ID = ?))" +
                     " )" +
                     " And " +
-                    "    NAME like ?"+
+                    "    NAME like ? $4"+
                     " )x left join AM_BLOCK_CONDITIONS bl on  ( bl.TYPE = 'APPLICATION' AND bl.VALUE = concat(concat(x.USER_ID,':'),x.name)) " +
                     " ORDER BY $1 $2 limit ? , ?";
 
@@ -139,7 +139,7 @@ public class SQLConstantsH2MySQL extends SQLConstants{
                     "    (APP.APPLICATION_ID IN (SELECT APPLICATION_ID FROM AM_APPLICATION WHERE GROUP_ID = ?))" +
                     " )" +
                     " And "+
-                    "    NAME like ?"+
+                    "    NAME like ? $4"+
                     " )x left join AM_BLOCK_CONDITIONS bl on  ( bl.TYPE = 'APPLICATION' AND bl.VALUE = concat(concat(x.USER_ID,':'),x.name)) " +
                     " ORDER BY $1 $2 limit ? , ?";
 
@@ -167,7 +167,7 @@ public class SQLConstantsH2MySQL extends SQLConstants{
             " AND " +
             "    LOWER(SUB.USER_ID) = LOWER(?)"+
             " And "+
-            "    NAME like ?"+
+            "    NAME like ? $4"+
             " )x left join AM_BLOCK_CONDITIONS bl on  ( bl.TYPE = 'APPLICATION' AND bl.VALUE = concat(concat(x.USER_ID,':'),x.name)) " +
             " ORDER BY $1 $2 limit ? , ?";
 
@@ -193,11 +193,14 @@ public class SQLConstantsH2MySQL extends SQLConstants{
             " AND " +
             "   LOWER (SUB.USER_ID) =LOWER (?)" +
             " And "+
-            "    NAME like ?"+
+            "    NAME like ? $4"+
             " )x left join AM_BLOCK_CONDITIONS bl on  ( bl.TYPE = 'APPLICATION' AND bl.VALUE = concat(concat(x.USER_ID,':'),x.name)) " +
             " ORDER BY $1 $2 limit ? , ?";
 
 
+    public static final String GET_PAGINATED_SUBSCRIBED_APIS_SUFFIX =
+            " ORDER BY SUBS.SUBSCRIPTION_ID limit ? , ? ";
+
     public static final String GET_APPLICATIONS_BY_TENANT_ID =
             "select distinct x.* from (" +
                     "SELECT " +
@@ -50,7 +50,7 @@ public class SQLConstantsMSSQL extends SQLConstants{
             " AND " +
             "   (GROUP_ID= ?  OR  (GROUP_ID='' AND SUB.USER_ID COLLATE Latin1_General_CS_AS =?))" +
             " And " +
-            "    NAME like ?" +
+            "    NAME like ? $4" +
             " ) a " +
             " )x left join AM_BLOCK_CONDITIONS bl on  ( bl.TYPE = 'APPLICATION' AND bl.VALUE = (x.USER_ID + ':') + x.NAME)" +
             " ORDER BY $1 $2 OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
@@ -82,7 +82,7 @@ public class SQLConstantsMSSQL extends SQLConstants{
             " AND " +
             "   (GROUP_ID= ?  OR (GROUP_ID='' AND LOWER (SUB.USER_ID) = LOWER(?)))"+
             " And "+
-            "    NAME like ?"+
+            "    NAME like ? $4"+
             " ) a WHERE a.row > ? and a.row <= a.row + ?"+
             " )x left join AM_BLOCK_CONDITIONS bl on  ( bl.TYPE = 'APPLICATION' AND bl.VALUE = (x.USER_ID + ':') + x.NAME)"+
             " ORDER BY $1 $2 OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
@@ -117,7 +117,7 @@ public class SQLConstantsMSSQL extends SQLConstants{
                     "    (APP.APPLICATION_ID IN (SELECT APPLICATION_ID FROM AM_APPLICATION WHERE GROUP_ID = ?))" +
                     " )" +
                     " And "+
-                    "    NAME like ? ) a " +
+                    "    NAME like ? $4 ) a " +
                     " )x left join AM_BLOCK_CONDITIONS bl on  ( bl.TYPE = 'APPLICATION' AND bl.VALUE = (x.USER_ID + ':') + x.NAME)" +
                     " ORDER BY $1 $2 OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
 
@@ -154,7 +154,7 @@ public class SQLConstantsMSSQL extends SQLConstants{
                     "    (APP.APPLICATION_ID IN (SELECT APPLICATION_ID FROM AM_APPLICATION WHERE GROUP_ID = ?))" +
                     " )" +
                     " And " +
-                    "    NAME like ?"+
+                    "    NAME like ? $4"+
                     " ) a " +
                     " )x left join AM_BLOCK_CONDITIONS bl on  ( bl.TYPE = 'APPLICATION' AND bl.VALUE = (x.USER_ID + ':') + x.NAME)" +
                     " ORDER BY $1 $2 OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
@@ -184,7 +184,7 @@ public class SQLConstantsMSSQL extends SQLConstants{
             " AND " +
             "    SUB.USER_ID COLLATE Latin1_General_CS_AS =?"+
             " And "+
-            "    NAME like ?"+
+            "    NAME like ? $4"+
             " )a " +
             " )x left join AM_BLOCK_CONDITIONS bl on  ( bl.TYPE = 'APPLICATION' AND bl.VALUE = (x.USER_ID + ':') + x.NAME)" +
             " ORDER BY $1 $2 OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
@@ -214,11 +214,14 @@ public class SQLConstantsMSSQL extends SQLConstants{
             " AND " +
             "    LOWER(SUB.USER_ID) = LOWER(?)" +
             " And "+
-            "    NAME like ?"+
+            "    NAME like ? $4"+
             " ) a " +
             " )x left join AM_BLOCK_CONDITIONS bl on  ( bl.TYPE = 'APPLICATION' AND bl.VALUE = (x.USER_ID + ':') + x.NAME)" +
             " ORDER BY $1 $2 OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
 
+    public static final String GET_PAGINATED_SUBSCRIBED_APIS_SUFFIX =
+            " ORDER BY SUBS.SUBSCRIPTION_ID OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
+
     public static final String GET_APPLICATIONS_BY_TENANT_ID =
             "select distinct x.* from (" +
                     "SELECT * FROM (" +
@@ -55,7 +55,8 @@ public class SubscriptionValidationSQLConstants {
                     "  ON APP.APPLICATION_ID = ATTRIBUTES.APPLICATION_ID" +
                     " WHERE " +
                     "   APP.SUBSCRIBER_ID = SUB.SUBSCRIBER_ID AND" +
-                    "   SUB.TENANT_ID = ? ";
+                    "   SUB.TENANT_ID = ? " +
+                    " ORDER BY APP.APPLICATION_ID";
 
     public static final String GET_APPLICATION_BY_ID_SQL =
             " SELECT " +
@@ -949,4 +950,103 @@ public class SubscriptionValidationSQLConstants {
                     "      AND APIS.API_PROVIDER = DEF.API_PROVIDER" +
                     "      AND APIS.API_VERSION = DEF.PUBLISHED_DEFAULT_API_VERSION";
 
+    /*
+     * APIs of an organization with their deployed revisions. The condition on the context of the API is appended
+     * by the caller.
+     */
+    public static final String GET_ORGANIZATION_APIS_SQL =
+            "SELECT" +
+                    "   AM_API.API_PROVIDER," +
+                    "   AM_API.API_NAME," +
+                    "   AM_API.CONTEXT," +
+                    "   AM_API.API_UUID," +
+                    "   AM_API.API_ID," +
+                    "   AM_API.API_TIER," +
+                    "   AM_API.API_VERSION," +
+                    "   AM_API.API_TYPE," +
+                    "   AM_REVISION.REVISION_UUID AS REVISION_UUID," +
+                    "   AM_DEPLOYMENT_REVISION_MAPPING.NAME AS DEPLOYMENT_NAME," +
+                    "   DEF.PUBLISHED_DEFAULT_API_VERSION AS PUBLISHED_DEFAULT_API_VERSION" +
+                    " FROM" +
+                    "   AM_API" +
+                    "   LEFT JOIN AM_REVISION ON AM_API.API_UUID = AM_REVISION.API_UUID" +
+                    "   LEFT JOIN AM_DEPLOYMENT_REVISION_MAPPING" +
+                    "   ON AM_REVISION.REVISION_UUID = AM_DEPLOYMENT_REVISION_MAPPING.REVISION_UUID" +
+                    "   LEFT JOIN AM_API_DEFAULT_VERSION DEF" +
+                    "   ON AM_API.API_NAME = DEF.API_NAME" +
+                    "   AND AM_API.API_PROVIDER = DEF.API_PROVIDER" +
+                    "   AND AM_API.API_VERSION = DEF.PUBLISHED_DEFAULT_API_VERSION" +
+                    " WHERE ";
+
+    public static final String DEPLOYMENT_NAME_CONDITION = " AND AM_DEPLOYMENT_REVISION_MAPPING.NAME = ?";
+
+    /*
+     * URL mappings of the deployed revisions of the APIs of an organization. The condition on the deployment and on
+     * the context of the API is appended by the caller.
+     */
+    public static final String GET_ORGANIZATION_API_URL_MAPPINGS_SQL =
+            "SELECT" +
+                    "   AM_API_URL_MAPPING.API_ID," +
+                    "   AM_API_URL_MAPPING.REVISION_UUID," +
+                    "   AM_API_URL_MAPPING.HTTP_METHOD," +
+                    "   AM_API_URL_MAPPING.AUTH_SCHEME," +
+                    "   AM_API_URL_MAPPING.URL_PATTERN," +
+                    "   AM_API_URL_MAPPING.THROTTLING_TIER," +
+                    "   AM_API_RESOURCE_SCOPE_MAPPING.SCOPE_NAME" +
+                    " FROM" +
+                    "   AM_API_URL_MAPPING" +
+                    "   INNER JOIN AM_API ON AM_API_URL_MAPPING.API_ID = AM_API.API_ID" +
+                    "   LEFT JOIN AM_API_RESOURCE_SCOPE_MAPPING" +
+                    "   ON AM_API_URL_MAPPING.URL_MAPPING_ID = AM_API_RESOURCE_SCOPE_MAPPING.URL_MAPPING_ID" +
+                    " WHERE" +
+                    "   AM_API_URL_MAPPING.REVISION_UUID IN" +
+                    "   (SELECT REVISION_UUID FROM AM_DEPLOYMENT_REVISION_MAPPING";
+
+    public static final String DEPLOYED_REVISION_NAME_CONDITION = " WHERE NAME = ?";
+
+    /*
+     * URL mappings of the API products of an organization. The condition on the context of the API product is
+     * appended by the caller.
+     */
+    public static final String GET_ORGANIZATION_API_PRODUCT_URL_MAPPINGS_SQL =
+            "SELECT" +
+                    "   PROD.API_ID," +
+                    "   AM_API_URL_MAPPING.HTTP_METHOD," +
+                    "   AM_API_URL_MAPPING.AUTH_SCHEME," +
+                    "   AM_API_URL_MAPPING.URL_PATTERN," +
+                    "   AM_API_URL_MAPPING.THROTTLING_TIER," +
+                    "   AM_API_RESOURCE_SCOPE_MAPPING.SCOPE_NAME" +
+                    " FROM" +
+                    "   (SELECT DISTINCT API_ID, URL_MAPPING_ID FROM AM_API_PRODUCT_MAPPING) PROD" +
+                    "   INNER JOIN AM_API ON PROD.API_ID = AM_API.API_ID" +
+                    "   INNER JOIN AM_API_URL_MAPPING ON PROD.URL_MAPPING_ID = AM_API_URL_MAPPING.URL_MAPPING_ID" +
+                    "   LEFT JOIN AM_API_RESOURCE_SCOPE_MAPPING" +
+                    "   ON AM_API_URL_MAPPING.URL_MAPPING_ID = AM_API_RESOURCE_SCOPE_MAPPING.URL_MAPPING_ID" +
+                    " WHERE ";
+
+    public static final String GET_ALL_IP_CONDITIONS_SQL =
+            "SELECT CONDITION_GROUP_ID, STARTING_IP, ENDING_IP, SPECIFIC_IP, WITHIN_IP_RANGE FROM AM_IP_CONDITION";
+
+    public static final String GET_ALL_HEADER_CONDITIONS_SQL =
+            "SELECT CONDITION_GROUP_ID, HEADER_FIELD_NAME, HEADER_FIELD_VALUE, IS_HEADER_FIELD_MAPPING" +
+                    " FROM AM_HEADER_FIELD_CONDITION";
+
+    public static final String GET_ALL_QUERY_PARAMETER_CONDITIONS_SQL =
+            "SELECT CONDITION_GROUP_ID, PARAMETER_NAME, PARAMETER_VALUE, IS_PARAM_MAPPING" +
+                    " FROM AM_QUERY_PARAMETER_CONDITION";
+
+    public static final String GET_ALL_JWT_CLAIM_CONDITIONS_SQL =
+            "SELECT CONDITION_GROUP_ID, CLAIM_URI, CLAIM_ATTRIB, IS_CLAIM_MAPPING FROM AM_JWT_CLAIM_CONDITION";
+
+    public static final String TENANT_CONDITION_GROUPS_CONDITION =
+            " WHERE CONDITION_GROUP_ID IN" +
+                    "   (SELECT COND.CONDITION_GROUP_ID" +
+                    "   FROM AM_CONDITION_GROUP COND, AM_API_THROTTLE_POLICY POLICY" +
+                    "   WHERE COND.POLICY_ID = POLICY.POLICY_ID AND POLICY.TENANT_ID = ?)";
+
+    public static final String TENANT_POLICY_CONDITION_GROUPS_CONDITION =
+            " WHERE CONDITION_GROUP_ID IN" +
+                    "   (SELECT COND.CONDITION_GROUP_ID" +
+                    "   FROM AM_CONDITION_GROUP COND, AM_API_THROTTLE_POLICY POLICY" +
+                    "   WHERE COND.POLICY_ID = POLICY.POLICY_ID AND POLICY.TENANT_ID = ? AND POLICY.NAME = ?)";
 }
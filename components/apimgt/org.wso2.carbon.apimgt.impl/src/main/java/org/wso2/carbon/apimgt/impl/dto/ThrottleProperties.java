@@ -26,6 +26,9 @@ public class ThrottleProperties {
     private GlobalEngineWSConnection globalEngineWSConnection;
     private DataPublisherPool dataPublisherPool;
     private DataPublisherThreadPool dataPublisherThreadPool;
+    private EventBatching eventBatching = new EventBatching();
+    private LocalThrottling localThrottling = new LocalThrottling();
+    private ThrottleDecisionStore throttleDecisionStore = new ThrottleDecisionStore();
     private JMSConnectionProperties jmsConnectionProperties;
     private boolean enableUnlimitedTier;
     private String throttleDataSourceName;
@@ -34,6 +37,7 @@ public class ThrottleProperties {
     private boolean enableHeaderConditions = false;
     private boolean enableJwtConditions = false;
     private boolean enableQueryParamConditions =false;
+    private boolean enableCompactEventEncoding = false;
     private String[] skipRedeployingPolicies = new String[]{};
     private Map<String, Long> defaultThrottleTierLimits = new HashMap<String, Long>();
     private TrafficManager trafficManager;
@@ -53,6 +57,30 @@ public class ThrottleProperties {
         this.dataPublisherThreadPool = dataPublisherThreadPool;
     }
 
+    public EventBatching getEventBatching() {
+        return eventBatching;
+    }
+
+    public void setEventBatching(EventBatching eventBatching) {
+        this.eventBatching = eventBatching;
+    }
+
+    public LocalThrottling getLocalThrottling() {
+        return localThrottling;
+    }
+
+    public void setLocalThrottling(LocalThrottling localThrottling) {
+        this.localThrottling = localThrottling;
+    }
+
+    public ThrottleDecisionStore getThrottleDecisionStore() {
+        return throttleDecisionStore;
+    }
+
+    public void setThrottleDecisionStore(ThrottleDecisionStore throttleDecisionStore) {
+        this.throttleDecisionStore = throttleDecisionStore;
+    }
+
     public BlockCondition getBlockCondition() {
         return blockCondition;
     }
@@ -142,6 +170,14 @@ public class ThrottleProperties {
         this.enableQueryParamConditions = enableQueryParamConditions;
     }
 
+    public boolean isEnableCompactEventEncoding() {
+        return enableCompactEventEncoding;
+    }
+
+    public void setEnableCompactEventEncoding(boolean enableCompactEventEncoding) {
+        this.enableCompactEventEncoding = enableCompactEventEncoding;
+    }
+
     public void setTrafficManager(TrafficManager trafficManager) {
         this.trafficManager = trafficManager;
     }
@@ -568,6 +604,7 @@ public class ThrottleProperties {
         private int corePoolSize = 200;
         private int maximumPoolSize = 500;
         private long keepAliveTime = 100;
+        private int maxQueueSize = 100000;
 
         public int getCorePoolSize() {
 
@@ -593,6 +630,107 @@ public class ThrottleProperties {
         public void setKeepAliveTime(long keepAliveTime) {
             this.keepAliveTime = keepAliveTime;
         }
+
+        public int getMaxQueueSize() {
+            return maxQueueSize;
+        }
+
+        public void setMaxQueueSize(int maxQueueSize) {
+            this.maxQueueSize = maxQueueSize;
+        }
+    }
+
+    /**
+     * Configuration of publishing non throttled events aggregated per throttle key over a short window instead of
+     * publishing one event per request.
+     */
+    public static class EventBatching {
+        private boolean enabled = false;
+        private long windowInMillis = 100;
+        private int maxPendingKeys = 10000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getWindowInMillis() {
+            return windowInMillis;
+        }
+
+        public void setWindowInMillis(long windowInMillis) {
+            this.windowInMillis = windowInMillis;
+        }
+
+        public int getMaxPendingKeys() {
+            return maxPendingKeys;
+        }
+
+        public void setMaxPendingKeys(int maxPendingKeys) {
+            this.maxPendingKeys = maxPendingKeys;
+        }
+    }
+
+    /**
+     * Configuration of evaluating throttle policies within the gateway, in addition to the decisions received from
+     * the traffic manager.
+     */
+    public static class LocalThrottling {
+        private boolean enabled = false;
+        private long reconcileIntervalInMillis = 1000;
+        private int burstTolerancePercentage = 10;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getReconcileIntervalInMillis() {
+            return reconcileIntervalInMillis;
+        }
+
+        public void setReconcileIntervalInMillis(long reconcileIntervalInMillis) {
+            this.reconcileIntervalInMillis = reconcileIntervalInMillis;
+        }
+
+        public int getBurstTolerancePercentage() {
+            return burstTolerancePercentage;
+        }
+
+        public void setBurstTolerancePercentage(int burstTolerancePercentage) {
+            this.burstTolerancePercentage = burstTolerancePercentage;
+        }
+    }
+
+    /**
+     * Configuration of the throttle decisions received from the traffic manager and kept in the gateway until they
+     * expire.
+     */
+    public static class ThrottleDecisionStore {
+        private int maxSize = 100000;
+        private long sweepIntervalInMillis = 5000;
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public long getSweepIntervalInMillis() {
+            return sweepIntervalInMillis;
+        }
+
+        public void setSweepIntervalInMillis(long sweepIntervalInMillis) {
+            this.sweepIntervalInMillis = sweepIntervalInMillis;
+        }
     }
 
     public String[] getSkipRedeployingPolicies() {
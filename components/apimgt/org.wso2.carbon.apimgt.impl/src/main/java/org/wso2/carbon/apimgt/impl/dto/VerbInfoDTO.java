@@ -5,7 +5,10 @@ import org.wso2.carbon.apimgt.impl.APIConstants;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class VerbInfoDTO implements Serializable {
 
@@ -27,6 +30,8 @@ public class VerbInfoDTO implements Serializable {
     
     private boolean contentAware;
 
+    private transient volatile ConditionGroupThrottleKeys conditionGroupThrottleKeys;
+
     public String getThrottling() {
         return throttling;
     }
@@ -41,6 +46,7 @@ public class VerbInfoDTO implements Serializable {
 
     public void setRequestKey(String requestKey) {
         this.requestKey = requestKey;
+        this.conditionGroupThrottleKeys = null;
     }
 
     public String getHttpVerb() {
@@ -99,6 +105,24 @@ public class VerbInfoDTO implements Serializable {
 
     public void setConditionGroups(ConditionGroupDTO[] conditionGroups) {
         this.conditionGroups = conditionGroups;
+        this.conditionGroupThrottleKeys = null;
+    }
+
+    /**
+     * Returns the throttle keys of the condition groups of this resource by condition group id, each being the given
+     * throttle key followed by the condition group id. Since the resource is cached, the keys are built once and
+     * reused by later requests with the same throttle key.
+     *
+     * @param throttleKey resource or API level throttle key
+     * @return throttle keys by condition group id
+     */
+    public Map<String, String> getConditionGroupThrottleKeys(String throttleKey) {
+        ConditionGroupThrottleKeys keys = conditionGroupThrottleKeys;
+        if (keys == null || !keys.throttleKey.equals(throttleKey)) {
+            keys = new ConditionGroupThrottleKeys(throttleKey, conditionGroups);
+            conditionGroupThrottleKeys = keys;
+        }
+        return keys.keys;
     }
 
     public ConditionGroupDTO[] getConditionGroups() {
@@ -112,4 +136,24 @@ public class VerbInfoDTO implements Serializable {
     public void setContentAware(boolean contentAware) {
         this.contentAware = contentAware;
     }
+
+    private static class ConditionGroupThrottleKeys {
+
+        private final String throttleKey;
+        private final Map<String, String> keys;
+
+        ConditionGroupThrottleKeys(String throttleKey, ConditionGroupDTO[] conditionGroups) {
+            this.throttleKey = throttleKey;
+            if (conditionGroups == null || conditionGroups.length == 0) {
+                this.keys = Collections.emptyMap();
+            } else {
+                Map<String, String> keyMap = new HashMap<>(conditionGroups.length * 2);
+                for (ConditionGroupDTO conditionGroup : conditionGroups) {
+                    keyMap.put(conditionGroup.getConditionGroupId(),
+                            throttleKey + conditionGroup.getConditionGroupId());
+                }
+                this.keys = Collections.unmodifiableMap(keyMap);
+            }
+        }
+    }
 }
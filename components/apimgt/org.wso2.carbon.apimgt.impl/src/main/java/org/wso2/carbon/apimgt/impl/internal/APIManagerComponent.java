@@ -35,6 +35,7 @@ import org.wso2.carbon.CarbonConstants;
 import org.wso2.carbon.apimgt.api.APIManagementException;
 import org.wso2.carbon.apimgt.api.APIManagerDatabaseException;
 import org.wso2.carbon.apimgt.api.APIMgtInternalException;
+import org.wso2.carbon.apimgt.api.model.APIRevision;
 import org.wso2.carbon.apimgt.api.model.KeyManagerConnectorConfiguration;
 import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.wso2.carbon.apimgt.impl.APIManagerAnalyticsConfiguration;
@@ -55,6 +56,7 @@ import org.wso2.carbon.apimgt.impl.gatewayartifactsynchronizer.DBRetriever;
 import org.wso2.carbon.apimgt.impl.gatewayartifactsynchronizer.GatewayArtifactGenerator;
 import org.wso2.carbon.apimgt.impl.handlers.UserPostSelfRegistrationHandler;
 import org.wso2.carbon.apimgt.impl.importexport.ImportExportAPI;
+import org.wso2.carbon.apimgt.impl.jwt.JWKSKeyRegistry;
 import org.wso2.carbon.apimgt.impl.jwt.JWTValidationService;
 import org.wso2.carbon.apimgt.impl.jwt.JWTValidationServiceImpl;
 import org.wso2.carbon.apimgt.common.gateway.jwttransformer.JWTTransformer;
@@ -69,17 +71,25 @@ import org.wso2.carbon.apimgt.impl.notifier.GoogleAnalyticsNotifier;
 import org.wso2.carbon.apimgt.impl.notifier.Notifier;
 import org.wso2.carbon.apimgt.impl.notifier.PolicyNotifier;
 import org.wso2.carbon.apimgt.impl.notifier.ScopesNotifier;
+import org.wso2.carbon.apimgt.impl.notifier.SubscriptionDataChangeLog;
 import org.wso2.carbon.apimgt.impl.notifier.SubscriptionsNotifier;
 import org.wso2.carbon.apimgt.impl.observers.APIStatusObserverList;
 import org.wso2.carbon.apimgt.impl.observers.CommonConfigDeployer;
 import org.wso2.carbon.apimgt.impl.observers.KeyMgtConfigDeployer;
 import org.wso2.carbon.apimgt.impl.observers.SignupObserver;
 import org.wso2.carbon.apimgt.impl.observers.TenantLoadMessageSender;
+import org.wso2.carbon.apimgt.impl.ranking.APIRankingIndex;
 import org.wso2.carbon.apimgt.impl.recommendationmgt.AccessTokenGenerator;
 import org.wso2.carbon.apimgt.impl.recommendationmgt.RecommendationEnvironment;
 import org.wso2.carbon.apimgt.impl.utils.APIMgtDBUtil;
 import org.wso2.carbon.apimgt.impl.utils.APIUtil;
 import org.wso2.carbon.apimgt.impl.utils.GatewayArtifactsMgtDBUtil;
+import org.wso2.carbon.apimgt.persistence.APIPersistenceMigrator;
+import org.wso2.carbon.apimgt.persistence.JdbcPersistenceImpl;
+import org.wso2.carbon.apimgt.persistence.RegistryPersistenceImpl;
+import org.wso2.carbon.apimgt.persistence.dto.Organization;
+import org.wso2.carbon.apimgt.persistence.dto.UserContext;
+import org.wso2.carbon.apimgt.persistence.exceptions.APIPersistenceException;
 import org.wso2.carbon.base.MultitenantConstants;
 import org.wso2.carbon.base.ServerConfiguration;
 import org.wso2.carbon.context.CarbonContext;
@@ -106,6 +116,7 @@ import org.wso2.carbon.registry.core.utils.RegistryUtils;
 import org.wso2.carbon.registry.indexing.service.TenantIndexingLoader;
 import org.wso2.carbon.user.api.AuthorizationManager;
 import org.wso2.carbon.user.api.Permission;
+import org.wso2.carbon.user.api.Tenant;
 import org.wso2.carbon.user.api.UserStoreException;
 import org.wso2.carbon.user.api.UserStoreManager;
 import org.wso2.carbon.user.core.UserRealm;
@@ -125,8 +136,10 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 
 import javax.cache.Cache;
+import javax.cache.CacheInvalidationRequestSender;
 
 @Component(
          name = "org.wso2.apimgt.impl.services",
@@ -175,6 +188,8 @@ public class APIManagerComponent {
             APIUtil.loadTenantSelfSignUpConfigurations(tenantId);
             String filePath = CarbonUtils.getCarbonConfigDirPath() + File.separator + "api-manager.xml";
             configuration.load(filePath);
+            SubscriptionDataChangeLog.getInstance().setEnabled(!Boolean.FALSE.toString().equalsIgnoreCase(
+                    configuration.getFirstProperty(APIConstants.SUBSCRIPTION_DATA_DELTA_SYNC_ENABLED)));
             String gatewayType = configuration.getFirstProperty(APIConstants.API_GATEWAY_TYPE);
             if (APIConstants.API_GATEWAY_TYPE_SYNAPSE.equalsIgnoreCase(gatewayType)) {
                 addDefinedSequencesToRegistry();
@@ -257,6 +272,17 @@ public class APIManagerComponent {
             } catch (APIManagementException e) {
                 log.error("Failed to convert NULL THROTTLING_TIERS to Unlimited");
             }
+            // Load the ranking of the published APIs used by the DevPortal listings
+            if (apiManagementEnabled) {
+                try {
+                    APIRankingIndex.getInstance().rebuild();
+                } catch (APIManagementException e) {
+                    log.error("Failed to load the API ranking index", e);
+                }
+            }
+            if (apiManagementEnabled && Boolean.getBoolean(APIConstants.MIGRATE_API_PERSISTENCE)) {
+                migrateAPIPersistence();
+            }
 //            // Initialise KeyManager.
 //            KeyManagerHolder.initializeKeyManager(configuration);
             // Initialise sql constants
@@ -288,6 +314,7 @@ public class APIManagerComponent {
             CacheProvider.createGatewayBasicAuthResourceCache();
             CacheProvider.createGatewayUsernameCache();
             CacheProvider.createIntrospectionCache();
+            JWKSKeyRegistry.startRefreshExecutor();
             //Initialize Recommendation wso2event output publisher
             configureRecommendationEventPublisherProperties();
             setupAccessTokenGenerator();
@@ -314,6 +341,7 @@ public class APIManagerComponent {
         }
 
         registration.unregister();
+        JWKSKeyRegistry.stopRefreshExecutor();
         APIManagerFactory.getInstance().clearAll();
         org.wso2.carbon.apimgt.impl.utils.AuthorizationManager.getInstance().destroy();
     }
@@ -390,6 +418,49 @@ public class APIManagerComponent {
         log.debug("Listener manager unbound from the API manager component");
     }
 
+    /**
+     * Copies the APIs of all the tenants from the registry to the database tables of the JDBC API persistence. Run
+     * once with -DmigrateAPIPersistence=true before starting the nodes with the JDBC persistence.
+     */
+    private void migrateAPIPersistence() {
+
+        Properties properties = new Properties();
+        properties.put(APIConstants.ALLOW_MULTIPLE_STATUS, APIUtil.isAllowDisplayAPIsWithMultipleStatus());
+        APIUtil.addAPIPersistenceProperties(properties);
+        if (!APIConstants.PERSISTENCE_TYPE_JDBC.equalsIgnoreCase(
+                (String) properties.get(APIConstants.PERSISTENCE_TYPE))) {
+            log.warn("API persistence migration is skipped as the JDBC API persistence is not configured");
+            return;
+        }
+        APIPersistenceMigrator migrator = new APIPersistenceMigrator(new RegistryPersistenceImpl(properties),
+                new JdbcPersistenceImpl(properties));
+        List<Tenant> tenants;
+        try {
+            tenants = APIUtil.getAllTenantsWithSuperTenant();
+        } catch (UserStoreException e) {
+            log.error("Failed to get the tenants to migrate the API persistence", e);
+            return;
+        }
+        for (Tenant tenant : tenants) {
+            String tenantDomain = tenant.getDomain();
+            Organization org = new Organization(tenantDomain);
+            try {
+                String adminUserName = APIUtil.getTenantAdminUserName(tenantDomain);
+                Map<String, Object> userProperties = new HashMap<>();
+                userProperties.put(APIConstants.USER_CTX_PROPERTY_ISADMIN, true);
+                UserContext ctx = new UserContext(adminUserName, org, userProperties, new String[0]);
+                for (String apiId : migrator.migrateAPIs(org, ctx)) {
+                    for (APIRevision revision : ApiMgtDAO.getInstance().getRevisionsListByAPIUUID(apiId)) {
+                        migrator.migrateRevision(org, ctx, apiId, revision.getRevisionUUID(), revision.getId());
+                    }
+                }
+                log.info("Migrated the API persistence of tenant " + tenantDomain);
+            } catch (APIManagementException | APIPersistenceException e) {
+                log.error("Failed to migrate the API persistence of tenant " + tenantDomain, e);
+            }
+        }
+    }
+
     private void addRxtConfigs() throws APIManagementException {
         String rxtDir = CarbonUtils.getCarbonHome() + File.separator + "repository" + File.separator + "resources" + File.separator + "rxts";
         File file = new File(rxtDir);
@@ -900,6 +971,22 @@ public class APIManagerComponent {
         ServiceReferenceHolder.getInstance().setImportExportAPI(null);
     }
 
+    @Reference(
+            name = "cache.invalidation.request.sender",
+            service = CacheInvalidationRequestSender.class,
+            cardinality = ReferenceCardinality.OPTIONAL,
+            policy = ReferencePolicy.DYNAMIC,
+            unbind = "unsetCacheInvalidationRequestSender")
+    protected void setCacheInvalidationRequestSender(CacheInvalidationRequestSender cacheInvalidationRequestSender) {
+
+        ServiceReferenceHolder.getInstance().setCacheInvalidationRequestSender(cacheInvalidationRequestSender);
+    }
+
+    protected void unsetCacheInvalidationRequestSender(CacheInvalidationRequestSender cacheInvalidationRequestSender) {
+
+        ServiceReferenceHolder.getInstance().setCacheInvalidationRequestSender(null);
+    }
+
     /**
      * Method to configure wso2event type event adapter to be used for event notification.
      */
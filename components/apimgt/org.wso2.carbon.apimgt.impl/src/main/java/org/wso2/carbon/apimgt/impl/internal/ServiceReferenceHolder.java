@@ -38,6 +38,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import javax.cache.CacheInvalidationRequestSender;
 
 public class ServiceReferenceHolder {
 
@@ -58,6 +59,7 @@ public class ServiceReferenceHolder {
     private ArtifactSaver artifactSaver;
     private Map<String, List<Notifier>> notifiersMap = new HashMap<>();
     private ImportExportAPI importExportService;
+    private CacheInvalidationRequestSender cacheInvalidationRequestSender;
     private Map<String, GatewayArtifactGenerator> gatewayArtifactGeneratorMap = new HashMap<>();
     public static ConfigurationContextService getContextService() {
         return contextService;
@@ -216,6 +218,16 @@ public class ServiceReferenceHolder {
         return importExportService;
     }
 
+    public void setCacheInvalidationRequestSender(CacheInvalidationRequestSender cacheInvalidationRequestSender) {
+
+        this.cacheInvalidationRequestSender = cacheInvalidationRequestSender;
+    }
+
+    public CacheInvalidationRequestSender getCacheInvalidationRequestSender() {
+
+        return cacheInvalidationRequestSender;
+    }
+
     public void addGatewayArtifactGenerator(GatewayArtifactGenerator gatewayArtifactGenerator) {
 
         if (gatewayArtifactGenerator != null) {
@@ -0,0 +1,307 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.impl.jwt;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.wso2.carbon.apimgt.impl.utils.APIUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Signing keys of a JWKS endpoint, kept as ready to use signature verifiers.
+ * <p>
+ * The key set is fetched when a key is first needed and refreshed in the background once the max-age of the
+ * response, or {@link #DEFAULT_REFRESH_INTERVAL_MILLIS} if it has none, has elapsed, while the keys already known are
+ * still served. Concurrent refreshes share a single fetch. A key ID which is not in the key set triggers a refresh at
+ * most once every {@link #UNKNOWN_KEY_REFRESH_INTERVAL_MILLIS}, and is then remembered as unknown for the same time,
+ * so that tokens with made up key IDs can not make the gateway fetch the key set on every request.
+ * <p>
+ * Background refreshes run on a small bounded pool started and stopped with the API manager component by
+ * {@link #startRefreshExecutor()} and {@link #stopRefreshExecutor()}. While the pool is not running the key set is
+ * refreshed on the calling thread. Every fetch is bounded by {@link #CONNECT_TIMEOUT_MILLIS} and
+ * {@link #READ_TIMEOUT_MILLIS}, since the first fetch of a key set blocks the request which needs it.
+ */
+public class JWKSKeyRegistry {
+
+    private static final Log log = LogFactory.getLog(JWKSKeyRegistry.class);
+    static final long DEFAULT_REFRESH_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(15);
+    static final long UNKNOWN_KEY_REFRESH_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    private static final int MAX_UNKNOWN_KEYS = 10000;
+    static final int CONNECT_TIMEOUT_MILLIS = 10000;
+    static final int READ_TIMEOUT_MILLIS = 10000;
+    private static final int REFRESH_THREADS = 4;
+    private static final int MAX_QUEUED_REFRESHES = 100;
+    private static final long REFRESH_THREAD_KEEP_ALIVE_SECONDS = 60;
+    private static final String MAX_AGE = "max-age=";
+    private static final Map<String, JWKSKeyRegistry> registries = new ConcurrentHashMap<>();
+    private static volatile ThreadPoolExecutor refreshExecutor;
+
+    private final String jwksEndpoint;
+    private final AtomicReference<CompletableFuture<Map<String, JWSVerifier>>> inFlightRefresh =
+            new AtomicReference<>();
+    private final Map<String, Long> unknownKeys = new ConcurrentHashMap<>();
+    private volatile Map<String, JWSVerifier> verifiers;
+    private volatile long refreshTime;
+    private volatile long lastFetchTime;
+
+    protected JWKSKeyRegistry(String jwksEndpoint) {
+
+        this.jwksEndpoint = jwksEndpoint;
+    }
+
+    /**
+     * @param jwksEndpoint JWKS endpoint of a token issuer
+     * @return the key registry of the endpoint, shared by every issuer using it
+     */
+    public static JWKSKeyRegistry getInstance(String jwksEndpoint) {
+
+        return registries.computeIfAbsent(jwksEndpoint, JWKSKeyRegistry::new);
+    }
+
+    /**
+     * Returns the verifier of a signing key, fetching the key set if it was not fetched yet or does not have the key.
+     *
+     * @param keyId key ID of the JWT header
+     * @return the verifier of the key, or null if the key set has no RSA key with the ID
+     * @throws IOException    if the key set could not be fetched
+     * @throws ParseException if the key set could not be parsed
+     */
+    public JWSVerifier getVerifier(String keyId) throws IOException, ParseException {
+
+        Map<String, JWSVerifier> currentVerifiers = verifiers;
+        if (currentVerifiers == null) {
+            if (lastFetchTime != 0 && System.currentTimeMillis() < refreshTime) {
+                throw new IOException("JWKS of " + jwksEndpoint + " is not available after a failed retrieval");
+            }
+            currentVerifiers = refresh();
+        } else if (System.currentTimeMillis() >= refreshTime) {
+            refreshInBackground();
+        }
+        JWSVerifier verifier = currentVerifiers.get(keyId);
+        if (verifier != null) {
+            return verifier;
+        }
+        long currentTime = System.currentTimeMillis();
+        Long unknownUntil = unknownKeys.get(keyId);
+        if (unknownUntil != null && unknownUntil > currentTime) {
+            return null;
+        }
+        if (currentTime - lastFetchTime >= UNKNOWN_KEY_REFRESH_INTERVAL_MILLIS) {
+            verifier = refresh().get(keyId);
+        }
+        if (verifier == null) {
+            if (unknownKeys.size() >= MAX_UNKNOWN_KEYS) {
+                unknownKeys.clear();
+            }
+            unknownKeys.put(keyId, currentTime + UNKNOWN_KEY_REFRESH_INTERVAL_MILLIS);
+            if (log.isDebugEnabled()) {
+                log.debug("Key ID " + keyId + " is not in the JWKS of " + jwksEndpoint);
+            }
+        }
+        return verifier;
+    }
+
+    /**
+     * Starts the pool of the background refreshes of every registry.
+     */
+    public static synchronized void startRefreshExecutor() {
+
+        if (refreshExecutor != null) {
+            return;
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(REFRESH_THREADS, REFRESH_THREADS,
+                REFRESH_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new ArrayBlockingQueue<>(MAX_QUEUED_REFRESHES),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "JWKSKeyRegistryRefresh-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        refreshExecutor = executor;
+    }
+
+    /**
+     * Stops the pool of the background refreshes. Refreshes in progress are interrupted.
+     */
+    public static synchronized void stopRefreshExecutor() {
+
+        ThreadPoolExecutor executor = refreshExecutor;
+        refreshExecutor = null;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void refreshInBackground() {
+
+        ThreadPoolExecutor executor = refreshExecutor;
+        if (executor == null) {
+            try {
+                refresh();
+            } catch (IOException | ParseException e) {
+                // Already logged, the keys already known are served until the next refresh
+            }
+            return;
+        }
+        CompletableFuture<Map<String, JWSVerifier>> refresh = new CompletableFuture<>();
+        if (inFlightRefresh.compareAndSet(null, refresh)) {
+            try {
+                executor.execute(() -> fetch(refresh));
+            } catch (RejectedExecutionException e) {
+                // Retried by a later request, the keys already known are served meanwhile
+                inFlightRefresh.set(null);
+                refresh.completeExceptionally(e);
+                if (log.isDebugEnabled()) {
+                    log.debug("Background refresh of the JWKS of " + jwksEndpoint + " was rejected", e);
+                }
+            }
+        }
+    }
+
+    private Map<String, JWSVerifier> refresh() throws IOException, ParseException {
+
+        CompletableFuture<Map<String, JWSVerifier>> inFlight = inFlightRefresh.get();
+        while (inFlight == null) {
+            CompletableFuture<Map<String, JWSVerifier>> refresh = new CompletableFuture<>();
+            if (inFlightRefresh.compareAndSet(null, refresh)) {
+                fetch(refresh);
+                inFlight = refresh;
+            } else {
+                inFlight = inFlightRefresh.get();
+            }
+        }
+        try {
+            return inFlight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            } else if (e.getCause() instanceof ParseException) {
+                throw (ParseException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void fetch(CompletableFuture<Map<String, JWSVerifier>> refresh) {
+
+        try {
+            lastFetchTime = System.currentTimeMillis();
+            Map<String, JWSVerifier> fetchedVerifiers = fetchVerifiers();
+            verifiers = fetchedVerifiers;
+            unknownKeys.clear();
+            refresh.complete(fetchedVerifiers);
+        } catch (IOException | ParseException | RuntimeException e) {
+            // Keep serving the keys already known, and retry no earlier than an unknown key would
+            refreshTime = System.currentTimeMillis() + UNKNOWN_KEY_REFRESH_INTERVAL_MILLIS;
+            log.error("Error while retrieving the JWKS from " + jwksEndpoint, e);
+            refresh.completeExceptionally(e);
+        } finally {
+            inFlightRefresh.set(null);
+            if (!refresh.isDone()) {
+                // Do not leave the threads waiting for this fetch blocked
+                refresh.completeExceptionally(new IOException("Error while retrieving the JWKS from " + jwksEndpoint));
+            }
+        }
+    }
+
+    private Map<String, JWSVerifier> fetchVerifiers() throws IOException, ParseException {
+
+        URL url = new URL(jwksEndpoint);
+        HttpGet httpGet = new HttpGet(jwksEndpoint);
+        httpGet.setConfig(RequestConfig.custom().setConnectTimeout(CONNECT_TIMEOUT_MILLIS)
+                .setConnectionRequestTimeout(CONNECT_TIMEOUT_MILLIS).setSocketTimeout(READ_TIMEOUT_MILLIS).build());
+        try (CloseableHttpClient httpClient = getHttpClient(url);
+             CloseableHttpResponse response = httpClient.execute(httpGet)) {
+            if (response.getStatusLine().getStatusCode() != 200) {
+                throw new IOException("JWKS endpoint " + jwksEndpoint + " responded with status "
+                        + response.getStatusLine().getStatusCode());
+            }
+            String jwks;
+            try (InputStream content = response.getEntity().getContent()) {
+                jwks = IOUtils.toString(content, StandardCharsets.UTF_8);
+            }
+            Map<String, JWSVerifier> fetchedVerifiers = new HashMap<>();
+            for (JWK jwk : JWKSet.parse(jwks).getKeys()) {
+                if (jwk instanceof RSAKey && jwk.getKeyID() != null) {
+                    try {
+                        fetchedVerifiers.put(jwk.getKeyID(), new RSASSAVerifier(((RSAKey) jwk).toRSAPublicKey()));
+                    } catch (JOSEException e) {
+                        log.error("Error while reading key " + jwk.getKeyID() + " of the JWKS from " + jwksEndpoint,
+                                e);
+                    }
+                }
+            }
+            refreshTime = System.currentTimeMillis() + getMaxAge(response.getFirstHeader(HttpHeaders.CACHE_CONTROL));
+            return Collections.unmodifiableMap(fetchedVerifiers);
+        }
+    }
+
+    private static long getMaxAge(Header cacheControl) {
+
+        if (cacheControl != null) {
+            for (String directive : cacheControl.getValue().split(",")) {
+                directive = directive.trim();
+                if (directive.startsWith(MAX_AGE)) {
+                    try {
+                        return TimeUnit.SECONDS.toMillis(Long.parseLong(directive.substring(MAX_AGE.length())));
+                    } catch (NumberFormatException e) {
+                        log.debug("Ignoring invalid max-age of the JWKS response: " + directive);
+                    }
+                }
+            }
+        }
+        return DEFAULT_REFRESH_INTERVAL_MILLIS;
+    }
+
+    protected CloseableHttpClient getHttpClient(URL url) {
+
+        return (CloseableHttpClient) APIUtil.getHttpClient(url.getPort(), url.getProtocol());
+    }
+}
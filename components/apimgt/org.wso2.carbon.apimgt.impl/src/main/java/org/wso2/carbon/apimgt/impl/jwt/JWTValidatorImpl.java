@@ -18,9 +18,8 @@
 
 package org.wso2.carbon.apimgt.impl.jwt;
 
-import com.nimbusds.jose.JOSEException;
-import com.nimbusds.jose.jwk.JWKSet;
-import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
 import com.nimbusds.jwt.util.DateUtils;
@@ -39,6 +38,7 @@ import org.wso2.carbon.apimgt.impl.utils.APIUtil;
 import org.wso2.carbon.apimgt.impl.utils.JWTUtil;
 
 import java.io.IOException;
+import java.security.cert.Certificate;
 import java.security.interfaces.RSAPublicKey;
 import java.text.ParseException;
 import java.util.Arrays;
@@ -50,7 +50,7 @@ public class JWTValidatorImpl implements JWTValidator {
     TokenIssuerDto tokenIssuer;
     private Log log = LogFactory.getLog(JWTValidatorImpl.class);
     JWTTransformer jwtTransformer;
-    private JWKSet jwkSet;
+    private JWSVerifier certificateVerifier;
 
     @Override
     public JWTValidationInfo validateToken(SignedJWTInfo signedJWTInfo) throws APIManagementException {
@@ -58,7 +58,18 @@ public class JWTValidatorImpl implements JWTValidator {
         JWTValidationInfo jwtValidationInfo = new JWTValidationInfo();
         boolean state;
         try {
-            state = validateSignature(signedJWTInfo.getSignedJWT());
+            VerifiedJWTSignatureCache signatureCache = getVerifiedJWTSignatureCache();
+            String issuer = tokenIssuer != null ? tokenIssuer.getIssuer() : null;
+            Object verificationKey = signatureCache.isEnabled() && signedJWTInfo.getToken() != null ?
+                    getVerificationKey(signedJWTInfo.getSignedJWT()) : null;
+            state = signatureCache.isVerified(signedJWTInfo, issuer, verificationKey);
+            if (!state) {
+                state = validateSignature(signedJWTInfo.getSignedJWT());
+                if (state && signedJWTInfo.getToken() != null) {
+                    signatureCache.putVerified(signedJWTInfo, getTokenIdentifier(signedJWTInfo), issuer,
+                            verificationKey);
+                }
+            }
             if (state) {
                 JWTClaimsSet jwtClaimsSet = signedJWTInfo.getJwtClaimsSet();
                 state = signedJWTInfo.isValidCertificateBoundAccessToken();
@@ -97,6 +108,9 @@ public class JWTValidatorImpl implements JWTValidator {
     public void loadTokenIssuerConfiguration(TokenIssuerDto tokenIssuerConfigurations) {
 
         this.tokenIssuer = tokenIssuerConfigurations;
+        this.certificateVerifier = null;
+        // Tokens verified with the previous configuration of the issuer are verified again
+        getVerifiedJWTSignatureCache().invalidateIssuer(tokenIssuer.getIssuer());
         JWTTransformer jwtTransformer = ServiceReferenceHolder.getInstance().getJWTTransformer(tokenIssuer.getIssuer());
         if (jwtTransformer != null) {
             this.jwtTransformer = jwtTransformer;
@@ -114,36 +128,78 @@ public class JWTValidatorImpl implements JWTValidator {
             if (StringUtils.isNotEmpty(keyID)) {
                 if (tokenIssuer.getJwksConfigurationDTO().isEnabled() &&
                         StringUtils.isNotEmpty(tokenIssuer.getJwksConfigurationDTO().getUrl())) {
-                    // Check JWKSet Available in Cache
-                    if (jwkSet == null) {
-                        jwkSet = retrieveJWKSet();
-                    }
-                    if (jwkSet.getKeyByKeyId(keyID) == null) {
-                        jwkSet = retrieveJWKSet();
-                    }
-                    if (jwkSet.getKeyByKeyId(keyID) instanceof RSAKey) {
-                        RSAKey keyByKeyId = (RSAKey) jwkSet.getKeyByKeyId(keyID);
-                        RSAPublicKey rsaPublicKey = keyByKeyId.toRSAPublicKey();
-                        if (rsaPublicKey != null) {
-                            return JWTUtil.verifyTokenSignature(signedJWT, rsaPublicKey);
-                        }
+                    // Keys of the JWKS are kept in the registry of the JWKS endpoint
+                    JWSVerifier jwsVerifier = getJWKSKeyRegistry().getVerifier(keyID);
+                    if (jwsVerifier != null) {
+                        return JWTUtil.verifyTokenSignature(signedJWT, jwsVerifier);
                     } else {
                         throw new APIManagementException("Key Algorithm not supported");
                     }
                 } else if (tokenIssuer.getCertificate() != null) {
                     log.debug("Retrieve certificate from Token issuer and validating");
-                    RSAPublicKey rsaPublicKey = (RSAPublicKey) tokenIssuer.getCertificate().getPublicKey();
-                    return JWTUtil.verifyTokenSignature(signedJWT, rsaPublicKey);
+                    if (certificateVerifier == null) {
+                        RSAPublicKey rsaPublicKey = (RSAPublicKey) tokenIssuer.getCertificate().getPublicKey();
+                        certificateVerifier = new RSASSAVerifier(rsaPublicKey);
+                    }
+                    return JWTUtil.verifyTokenSignature(signedJWT, certificateVerifier);
                 } else {
                     return JWTUtil.verifyTokenSignature(signedJWT, keyID);
                 }
             }
             return JWTUtil.verifyTokenSignature(signedJWT, certificateAlias);
-        } catch (ParseException | JOSEException | IOException e) {
-            log.error("Error while parsing JWT", e);
+        } catch (ParseException | IOException e) {
+            // The signature can not be verified without the key, so the token is not accepted
+            log.error("Error while retrieving the key to verify the JWT signature", e);
+        }
+        return false;
+    }
+
+    /**
+     * Resolves the public key the signature of a token is verified with, the same way
+     * {@link #validateSignature(SignedJWT)} does, so that a cached verification is only used while the key has not
+     * changed.
+     *
+     * @return the public key, or null if it cannot be resolved
+     */
+    protected Object getVerificationKey(SignedJWT signedJWT) {
+
+        try {
+            String keyID = signedJWT.getHeader().getKeyID();
+            String certificateAlias = APIConstants.GATEWAY_PUBLIC_CERTIFICATE_ALIAS;
+            if (StringUtils.isNotEmpty(keyID)) {
+                if (tokenIssuer.getJwksConfigurationDTO().isEnabled() &&
+                        StringUtils.isNotEmpty(tokenIssuer.getJwksConfigurationDTO().getUrl())) {
+                    JWSVerifier jwsVerifier = getJWKSKeyRegistry().getVerifier(keyID);
+                    return jwsVerifier instanceof RSASSAVerifier ?
+                            ((RSASSAVerifier) jwsVerifier).getPublicKey() : jwsVerifier;
+                } else if (tokenIssuer.getCertificate() != null) {
+                    return tokenIssuer.getCertificate().getPublicKey();
+                }
+                certificateAlias = keyID;
+            }
+            Certificate certificate = APIUtil.getCertificateFromTrustStore(certificateAlias);
+            return certificate != null ? certificate.getPublicKey() : null;
+        } catch (IOException | ParseException | APIManagementException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Could not resolve the key of the JWT, its signature is verified without the cache", e);
+            }
+            return null;
         }
+    }
+
+    protected VerifiedJWTSignatureCache getVerifiedJWTSignatureCache() {
+
+        return VerifiedJWTSignatureCache.getInstance();
+    }
+
+    private String getTokenIdentifier(SignedJWTInfo signedJWTInfo) {
 
-        return true;
+        // Revoked JWTs are identified by their JWT ID, or by their signature if they have none
+        if (signedJWTInfo.getJwtClaimsSet() != null
+                && StringUtils.isNotEmpty(signedJWTInfo.getJwtClaimsSet().getJWTID())) {
+            return signedJWTInfo.getJwtClaimsSet().getJWTID();
+        }
+        return signedJWTInfo.getSignedJWT().getSignature().toString();
     }
 
     protected boolean validateTokenExpiry(JWTClaimsSet jwtClaimsSet) {
@@ -196,11 +252,8 @@ public class JWTValidatorImpl implements JWTValidator {
         }
     }
 
-    private JWKSet retrieveJWKSet() throws IOException, ParseException {
+    protected JWKSKeyRegistry getJWKSKeyRegistry() {
 
-        String jwksInfo = JWTUtil
-                .retrieveJWKSConfiguration(tokenIssuer.getJwksConfigurationDTO().getUrl());
-        jwkSet = JWKSet.parse(jwksInfo);
-        return jwkSet;
+        return JWKSKeyRegistry.getInstance(tokenIssuer.getJwksConfigurationDTO().getUrl());
     }
 }
@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.impl.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.wso2.carbon.apimgt.impl.APIConstants;
+import org.wso2.carbon.apimgt.impl.APIManagerConfiguration;
+import org.wso2.carbon.apimgt.impl.APIManagerConfigurationService;
+import org.wso2.carbon.apimgt.impl.internal.ServiceReferenceHolder;
+
+import java.util.Date;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tokens whose signature was verified by this node, so that a token presented again does not go through signature
+ * verification until it expires.
+ * <p>
+ * Entries are keyed by a SHA-256 hash of the whole serialized token, so a cache hit means the exact header, payload
+ * and signature were verified before. Each entry also records the issuer and the public key the signature was
+ * verified with, and is only used while the issuer still resolves the token to the same key: a token signed with a key
+ * removed from a JWKS or replaced in a certificate is verified again. An entry is kept until the expiry time of the
+ * token, and for no longer than the configured expiry time, and is removed when the token is revoked or the
+ * configuration of its issuer is reloaded.
+ */
+public class VerifiedJWTSignatureCache {
+
+    public static final long DEFAULT_MAX_SIZE = 10000;
+    public static final long DEFAULT_EXPIRY_TIME_IN_SECONDS = 900;
+    private static volatile VerifiedJWTSignatureCache instance;
+
+    private final boolean enabled;
+    private final long expiryTimeInNanos;
+    private final Cache<String, Entry> verifiedTokens;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public VerifiedJWTSignatureCache(boolean enabled, long maxSize, long expiryTimeInSeconds) {
+
+        this.enabled = enabled;
+        this.expiryTimeInNanos = TimeUnit.SECONDS.toNanos(expiryTimeInSeconds);
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(enabled ? maxSize : 0)
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry entry, long currentTime) {
+
+                        return entry.timeToLiveInNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry entry, long currentTime,
+                                                  long currentDuration) {
+
+                        return entry.timeToLiveInNanos;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * @return the cache of this node, configured by CacheConfigurations/JWTSignatureCache
+     */
+    public static VerifiedJWTSignatureCache getInstance() {
+
+        if (instance == null) {
+            synchronized (VerifiedJWTSignatureCache.class) {
+                if (instance == null) {
+                    instance = create();
+                }
+            }
+        }
+        return instance;
+    }
+
+    private static VerifiedJWTSignatureCache create() {
+
+        boolean enabled = true;
+        long maxSize = DEFAULT_MAX_SIZE;
+        long expiryTime = DEFAULT_EXPIRY_TIME_IN_SECONDS;
+        APIManagerConfigurationService configurationService =
+                ServiceReferenceHolder.getInstance().getAPIManagerConfigurationService();
+        APIManagerConfiguration configuration = configurationService != null ?
+                configurationService.getAPIManagerConfiguration() : null;
+        if (configuration != null) {
+            String enabledProperty = configuration.getFirstProperty(APIConstants.JWT_SIGNATURE_CACHE_ENABLED);
+            if (StringUtils.isNotEmpty(enabledProperty)) {
+                enabled = Boolean.parseBoolean(enabledProperty);
+            }
+            String maxSizeProperty = configuration.getFirstProperty(APIConstants.JWT_SIGNATURE_CACHE_MAX_SIZE);
+            if (StringUtils.isNotEmpty(maxSizeProperty)) {
+                maxSize = Long.parseLong(maxSizeProperty);
+            }
+            String expiryTimeProperty = configuration.getFirstProperty(APIConstants.JWT_SIGNATURE_CACHE_EXPIRY);
+            if (StringUtils.isNotEmpty(expiryTimeProperty)) {
+                expiryTime = Long.parseLong(expiryTimeProperty);
+            }
+        }
+        return new VerifiedJWTSignatureCache(enabled, maxSize, expiryTime);
+    }
+
+    /**
+     * @param signedJWTInfo   token
+     * @param issuer          issuer the token is validated for
+     * @param verificationKey key the issuer currently resolves the token to
+     * @return true if the signature of the exact token was verified before with the same key and the token has not
+     * expired since
+     */
+    public boolean isVerified(SignedJWTInfo signedJWTInfo, String issuer, Object verificationKey) {
+
+        if (!enabled || signedJWTInfo.getToken() == null || verificationKey == null) {
+            return false;
+        }
+        Entry entry = verifiedTokens.getIfPresent(getKey(signedJWTInfo.getToken()));
+        if (entry != null && Objects.equals(issuer, entry.issuer) && verificationKey.equals(entry.verificationKey)) {
+            hits.increment();
+            return true;
+        }
+        misses.increment();
+        return false;
+    }
+
+    /**
+     * Remembers a token whose signature was verified.
+     *
+     * @param signedJWTInfo   verified token
+     * @param tokenIdentifier identifier the token is revoked with, its JWT ID or signature
+     * @param issuer          issuer the token was validated for
+     * @param verificationKey key the signature was verified with
+     */
+    public void putVerified(SignedJWTInfo signedJWTInfo, String tokenIdentifier, String issuer,
+                            Object verificationKey) {
+
+        if (!enabled || signedJWTInfo.getToken() == null || verificationKey == null) {
+            return;
+        }
+        long timeToLive = expiryTimeInNanos;
+        Date expirationTime = signedJWTInfo.getJwtClaimsSet() != null ?
+                signedJWTInfo.getJwtClaimsSet().getExpirationTime() : null;
+        if (expirationTime != null) {
+            timeToLive = Math.min(timeToLive,
+                    TimeUnit.MILLISECONDS.toNanos(expirationTime.getTime() - System.currentTimeMillis()));
+        }
+        if (timeToLive > 0) {
+            verifiedTokens.put(getKey(signedJWTInfo.getToken()),
+                    new Entry(tokenIdentifier, issuer, verificationKey, timeToLive));
+        }
+    }
+
+    /**
+     * Removes the tokens with a revoked JWT ID or signature.
+     */
+    public void invalidate(String tokenIdentifier) {
+
+        if (enabled && tokenIdentifier != null) {
+            verifiedTokens.asMap().values().removeIf(entry -> tokenIdentifier.equals(entry.tokenIdentifier));
+        }
+    }
+
+    /**
+     * Removes the tokens of an issuer, whose keys may have changed.
+     */
+    public void invalidateIssuer(String issuer) {
+
+        if (enabled) {
+            verifiedTokens.asMap().values().removeIf(entry -> Objects.equals(issuer, entry.issuer));
+        }
+    }
+
+    public void invalidateAll() {
+
+        verifiedTokens.invalidateAll();
+    }
+
+    public boolean isEnabled() {
+
+        return enabled;
+    }
+
+    /**
+     * @return ratio of the lookups which found a verified token
+     */
+    public double getHitRatio() {
+
+        long lookups = hits.sum() + misses.sum();
+        return lookups == 0 ? 0 : (double) hits.sum() / lookups;
+    }
+
+    public long getHitCount() {
+
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+
+        return misses.sum();
+    }
+
+    private static String getKey(String token) {
+
+        return Base64.encodeBase64String(DigestUtils.sha256(token));
+    }
+
+    private static final class Entry {
+
+        private final String tokenIdentifier;
+        private final String issuer;
+        private final Object verificationKey;
+        private final long timeToLiveInNanos;
+
+        private Entry(String tokenIdentifier, String issuer, Object verificationKey, long timeToLiveInNanos) {
+
+            this.tokenIdentifier = tokenIdentifier;
+            this.issuer = issuer;
+            this.verificationKey = verificationKey;
+            this.timeToLiveInNanos = timeToLiveInNanos;
+        }
+    }
+}
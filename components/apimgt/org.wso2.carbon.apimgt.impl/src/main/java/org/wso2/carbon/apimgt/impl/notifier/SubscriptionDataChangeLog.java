@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.impl.notifier;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.apimgt.api.APIManagementException;
+import org.wso2.carbon.apimgt.impl.dao.SubscriptionDataChangeDAO;
+import org.wso2.carbon.apimgt.impl.notifier.events.Event;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Subscription, application and application key mapping changes, numbered with a sequence number, so that the
+ * subscription data of a gateway can be brought up to date by fetching only the entries changed after the last
+ * sequence number it has.
+ * <p>
+ * The changes are stored in the AM_SUBSCRIPTION_DATA_CHANGE table, so every control plane node records the changes it
+ * publishes in the same log and serves them to any gateway. The sequence numbers are allocated by the database when a
+ * change is stored, so a change may become visible after a change with a higher sequence number. The sequence number
+ * reported to a caller is therefore the highest one of the changes stored at least {@link #DEFAULT_SETTLE_MILLIS}
+ * before, and the changes after it are returned again with the next delta, which is harmless as the callers read the
+ * current state of every changed entry. The delay also covers the clock differences of the control plane nodes.
+ * <p>
+ * The changes older than {@link #DEFAULT_RETENTION_MILLIS} are deleted, so a caller with an older sequence number, or
+ * with a sequence number ahead of the log, has to load all the entries again.
+ */
+public class SubscriptionDataChangeLog {
+
+    /**
+     * The sequence numbers of the table do not restart, so the epoch changes only when the format of the log does.
+     */
+    public static final String EPOCH = "1";
+    public static final long DEFAULT_SETTLE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    public static final long DEFAULT_RETENTION_MILLIS = TimeUnit.DAYS.toMillis(1);
+    private static final long CLEANUP_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final Log log = LogFactory.getLog(SubscriptionDataChangeLog.class);
+    private static final SubscriptionDataChangeLog instance = new SubscriptionDataChangeLog(
+            SubscriptionDataChangeDAO.getInstance(), DEFAULT_SETTLE_MILLIS, DEFAULT_RETENTION_MILLIS);
+
+    private final SubscriptionDataChangeDAO subscriptionDataChangeDAO;
+    private final long settleMillis;
+    private final long retentionMillis;
+    private final AtomicLong nextCleanupTime = new AtomicLong();
+    private volatile boolean enabled = true;
+
+    SubscriptionDataChangeLog(SubscriptionDataChangeDAO subscriptionDataChangeDAO, long settleMillis,
+                              long retentionMillis) {
+
+        this.subscriptionDataChangeDAO = subscriptionDataChangeDAO;
+        this.settleMillis = settleMillis;
+        this.retentionMillis = retentionMillis;
+    }
+
+    public static SubscriptionDataChangeLog getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Enables or disables the log. It is enabled by default. A disabled log neither records changes nor returns them,
+     * which makes every caller load all the entries. It has to be set the same way on every control plane node, as
+     * the changes made by a node with a disabled log are missing from the log of the others.
+     *
+     * @param enabled whether the changes are recorded and returned
+     */
+    public void setEnabled(boolean enabled) {
+
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+
+        return enabled;
+    }
+
+    /**
+     * Records a subscription, application or application key mapping change. Other events are ignored. The changes
+     * older than the retention period are deleted at most once an hour by each node.
+     *
+     * @param event published event
+     */
+    public void record(Event event) {
+
+        if (!enabled || event.getTenantDomain() == null
+                || SubscriptionDataChangeDAO.getEntityType(event.getClass()) == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        try {
+            subscriptionDataChangeDAO.addChange(event, now);
+        } catch (APIManagementException e) {
+            log.error("Error while recording the subscription data change " + event.getType() + " of tenant "
+                    + event.getTenantDomain(), e);
+        }
+        deleteOldChanges(now);
+    }
+
+    public String getEpoch() {
+
+        return EPOCH;
+    }
+
+    /**
+     * Returns the sequence number to report along with a full load of the entries of a tenant. It has to be read
+     * before the entries are loaded, so that the changes made while loading them are included in the next delta.
+     *
+     * @param tenantDomain tenant domain
+     * @return sequence number of the last change every entry loaded afterwards includes
+     */
+    public long getSequence(String tenantDomain) {
+
+        try {
+            return getSettledSequence(System.currentTimeMillis());
+        } catch (APIManagementException e) {
+            log.error("Error while reading the subscription data change sequence for tenant " + tenantDomain, e);
+            return 0;
+        }
+    }
+
+    /**
+     * Returns the changes of a type recorded for a tenant after a sequence number, in the order they were recorded.
+     *
+     * @param tenantDomain tenant domain
+     * @param epoch        epoch the sequence number was issued by
+     * @param since        sequence number of the last change the caller has
+     * @param eventType    type of the changes
+     * @return the changes, or null if the log is disabled, the epoch is not the epoch of this log, the changes are
+     * no longer kept or they could not be read
+     */
+    public <T extends Event> Changes<T> getChanges(String tenantDomain, String epoch, long since,
+                                                  Class<T> eventType) {
+
+        if (!enabled || !EPOCH.equals(epoch) || since < 0) {
+            return null;
+        }
+        try {
+            long settledSequence = getSettledSequence(System.currentTimeMillis());
+            List<T> events = subscriptionDataChangeDAO.getChanges(tenantDomain, since, eventType);
+            // The range is read after the changes, so that changes deleted meanwhile are detected
+            SubscriptionDataChangeDAO.SequenceRange range = subscriptionDataChangeDAO.getSequenceRange();
+            if (range == null) {
+                if (since > 0) {
+                    return null;
+                }
+            } else if (since > range.getMax() || since < range.getMin() - 1) {
+                return null;
+            }
+            return new Changes<>(events, Math.max(since, settledSequence));
+        } catch (APIManagementException e) {
+            log.error("Error while reading the subscription data changes of tenant " + tenantDomain, e);
+            return null;
+        }
+    }
+
+    /**
+     * @return the highest sequence number of the changes stored before the settle delay, or 0 if there is none
+     */
+    private long getSettledSequence(long now) throws APIManagementException {
+
+        return Math.max(0, subscriptionDataChangeDAO.getMaxSequenceCreatedBefore(now - settleMillis));
+    }
+
+    private void deleteOldChanges(long now) {
+
+        long cleanupTime = nextCleanupTime.get();
+        if (now < cleanupTime || !nextCleanupTime.compareAndSet(cleanupTime, now + CLEANUP_INTERVAL_MILLIS)) {
+            return;
+        }
+        try {
+            SubscriptionDataChangeDAO.SequenceRange range = subscriptionDataChangeDAO.getSequenceRange();
+            if (range != null) {
+                // The last change is kept, so that the sequence numbers issued remain within the log
+                int deleted = subscriptionDataChangeDAO.deleteChanges(now - retentionMillis, range.getMax());
+                if (log.isDebugEnabled()) {
+                    log.debug("Deleted " + deleted + " subscription data changes older than " + retentionMillis
+                            + " ms");
+                }
+            }
+        } catch (APIManagementException e) {
+            log.error("Error while deleting the old subscription data changes", e);
+        }
+    }
+
+    /**
+     * Changes recorded after a sequence number.
+     */
+    public static class Changes<T extends Event> {
+
+        private final List<T> events;
+        private final long sequence;
+
+        Changes(List<T> events, long sequence) {
+
+            this.events = events;
+            this.sequence = sequence;
+        }
+
+        public List<T> getEvents() {
+
+            return events;
+        }
+
+        /**
+         * @return sequence number to report to the caller, up to which every change is included
+         */
+        public long getSequence() {
+
+            return sequence;
+        }
+    }
+}
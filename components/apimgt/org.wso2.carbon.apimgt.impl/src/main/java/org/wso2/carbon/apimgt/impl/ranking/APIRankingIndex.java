@@ -0,0 +1,517 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.impl.ranking;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.apimgt.api.APIManagementException;
+import org.wso2.carbon.apimgt.impl.APIConstants;
+import org.wso2.carbon.apimgt.impl.dao.ApiMgtDAO;
+import org.wso2.carbon.apimgt.impl.notifier.events.APIEvent;
+import org.wso2.carbon.apimgt.impl.notifier.events.Event;
+import org.wso2.carbon.apimgt.impl.notifier.events.SubscriptionEvent;
+import org.wso2.carbon.apimgt.impl.utils.APIUtil;
+import org.wso2.carbon.utils.multitenancy.MultitenantUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * Published APIs of each tenant ranked by average rating, creation time and subscription count, so that the top APIs
+ * of the DevPortal listings can be read without going through all the API artifacts of the tenant.
+ * <p>
+ * The index is loaded from the database and then kept up to date from the API, rating and subscription changes made on
+ * this node. As changes made on other nodes are not seen, the index is loaded again in the background once it is older
+ * than the refresh interval.
+ */
+public class APIRankingIndex {
+
+    private static final Log log = LogFactory.getLog(APIRankingIndex.class);
+    public static final long DEFAULT_REFRESH_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final int ITERATOR_BATCH_SIZE = 20;
+    private static final APIRankingIndex instance = new APIRankingIndex(DEFAULT_REFRESH_INTERVAL_MILLIS,
+            Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "APIRankingIndexRefresher");
+                thread.setDaemon(true);
+                return thread;
+            }));
+
+    private static final Comparator<RankedAPI> RATING_ORDER = Comparator
+            .comparingDouble((RankedAPI api) -> api.getAverageRating()).reversed()
+            .thenComparingInt(RankedAPI::getApiId);
+    private static final Comparator<RankedAPI> CREATED_TIME_ORDER = Comparator
+            .comparingLong(RankedAPI::getCreatedTime).reversed()
+            .thenComparing(Comparator.comparingInt(RankedAPI::getApiId).reversed());
+    private static final Comparator<RankedAPI> SUBSCRIPTION_COUNT_ORDER = Comparator
+            .comparingInt(RankedAPI::getSubscriptionCount).reversed()
+            .thenComparingInt(RankedAPI::getApiId);
+
+    private final long refreshIntervalMillis;
+    private final Executor refreshExecutor;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private volatile Map<String, TenantIndex> tenantIndexes = new ConcurrentHashMap<>();
+    private volatile long lastRebuildTime;
+    private volatile boolean loaded;
+
+    APIRankingIndex(long refreshIntervalMillis, Executor refreshExecutor) {
+
+        this.refreshIntervalMillis = refreshIntervalMillis;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    public static APIRankingIndex getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Loads the index again from the database.
+     *
+     * @throws APIManagementException if the APIs could not be read
+     */
+    public void rebuild() throws APIManagementException {
+
+        rebuild(ApiMgtDAO.getInstance().getRankedAPIs());
+    }
+
+    /**
+     * Replaces the content of the index with the given APIs.
+     *
+     * @param apis all the APIs, of all the tenants
+     */
+    void rebuild(List<RankedAPI> apis) {
+
+        Map<String, TenantIndex> newTenantIndexes = new ConcurrentHashMap<>();
+        for (RankedAPI api : apis) {
+            String tenantDomain = MultitenantUtils.getTenantDomain(APIUtil.replaceEmailDomainBack(api.getProvider()));
+            newTenantIndexes.computeIfAbsent(tenantDomain, key -> new TenantIndex()).put(api);
+        }
+        tenantIndexes = newTenantIndexes;
+        lastRebuildTime = System.currentTimeMillis();
+        loaded = true;
+    }
+
+    /**
+     * Starts loading the index again in the background if it is older than the refresh interval. Only one load runs at
+     * a time, and the callers keep reading the current content meanwhile.
+     *
+     * @return whether the index has been loaded and can be read
+     */
+    public boolean refreshIfStale() {
+
+        if (loaded && System.currentTimeMillis() - lastRebuildTime < refreshIntervalMillis) {
+            return true;
+        }
+        if (rebuilding.compareAndSet(false, true)) {
+            try {
+                refreshExecutor.execute(() -> {
+                    try {
+                        rebuild();
+                    } catch (APIManagementException e) {
+                        log.error("Error while loading the API ranking index", e);
+                    } finally {
+                        rebuilding.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                rebuilding.set(false);
+                log.error("Error while scheduling the loading of the API ranking index", e);
+            }
+        }
+        return loaded;
+    }
+
+    public boolean isLoaded() {
+
+        return loaded;
+    }
+
+    /**
+     * @param tenantDomain tenant domain
+     * @param limit        maximum number of APIs to return
+     * @return published APIs of the tenant, highest average rating first
+     */
+    public List<RankedAPI> getTopRated(String tenantDomain, int limit) {
+
+        return getTenantIndex(tenantDomain).top(RATING_ORDER, limit);
+    }
+
+    /**
+     * @param tenantDomain tenant domain
+     * @param limit        maximum number of APIs to return
+     * @return published APIs of the tenant, most recently created first
+     */
+    public List<RankedAPI> getRecentlyAdded(String tenantDomain, int limit) {
+
+        return getTenantIndex(tenantDomain).top(CREATED_TIME_ORDER, limit);
+    }
+
+    /**
+     * Iterates the published APIs of a tenant with an average rating above a minimum, highest average rating first.
+     * The APIs are read from the index in small batches, so that the caller can skip APIs and keep reading until it
+     * has as many as it needs.
+     *
+     * @param tenantDomain     tenant domain
+     * @param minAverageRating the iteration ends at the first API with an average rating not above this
+     * @return iterator of the APIs
+     */
+    public Iterator<RankedAPI> iterateTopRated(String tenantDomain, float minAverageRating) {
+
+        return new RankedIterator(getTenantIndex(tenantDomain), RATING_ORDER,
+                api -> api.getAverageRating() > minAverageRating);
+    }
+
+    /**
+     * Iterates the published APIs of a tenant, most recently created first. The APIs are read from the index in small
+     * batches, so that the caller can skip APIs and keep reading until it has as many as it needs.
+     *
+     * @param tenantDomain tenant domain
+     * @return iterator of the APIs
+     */
+    public Iterator<RankedAPI> iterateRecentlyAdded(String tenantDomain) {
+
+        return new RankedIterator(getTenantIndex(tenantDomain), CREATED_TIME_ORDER, api -> true);
+    }
+
+    /**
+     * @param tenantDomain tenant domain
+     * @param limit        maximum number of APIs to return
+     * @return published APIs of the tenant, highest subscription count first
+     */
+    public List<RankedAPI> getMostSubscribed(String tenantDomain, int limit) {
+
+        return getTenantIndex(tenantDomain).top(SUBSCRIPTION_COUNT_ORDER, limit);
+    }
+
+    /**
+     * Updates the average rating of an API after a rating is added or removed.
+     *
+     * @param tenantDomain  tenant domain of the API
+     * @param apiId         id of the API
+     * @param averageRating new average rating of the API
+     */
+    public void updateRating(String tenantDomain, int apiId, float averageRating) {
+
+        TenantIndex tenantIndex = getTenantIndex(tenantDomain);
+        synchronized (tenantIndex) {
+            RankedAPI api = tenantIndex.get(apiId);
+            if (api != null) {
+                tenantIndex.put(api.withAverageRating(averageRating));
+            }
+        }
+    }
+
+    /**
+     * Updates the index from an API or subscription change. Other events, and events published before the index is
+     * loaded, are ignored.
+     *
+     * @param event published event
+     */
+    public void onEvent(Event event) {
+
+        if (!loaded || event.getTenantDomain() == null) {
+            return;
+        }
+        if (event instanceof APIEvent) {
+            onAPIEvent((APIEvent) event);
+        } else if (event instanceof SubscriptionEvent) {
+            onSubscriptionEvent((SubscriptionEvent) event);
+        }
+    }
+
+    private void onAPIEvent(APIEvent event) {
+
+        TenantIndex tenantIndex = getTenantIndex(event.getTenantDomain());
+        synchronized (tenantIndex) {
+            if (APIConstants.EventType.API_CREATE.name().equals(event.getType())) {
+                tenantIndex.put(new RankedAPI(event.getApiId(), event.getUuid(), event.getApiProvider(),
+                        event.getApiName(), event.getApiVersion(), event.getApiType(), event.getTimeStamp(),
+                        event.getApiStatus(), 0, 0));
+            } else if (APIConstants.EventType.API_DELETE.name().equals(event.getType())) {
+                tenantIndex.remove(event.getApiId());
+            } else if (APIConstants.EventType.API_LIFECYCLE_CHANGE.name().equals(event.getType())) {
+                RankedAPI api = tenantIndex.get(event.getApiId());
+                if (api != null) {
+                    tenantIndex.put(api.withStatus(event.getApiStatus()));
+                }
+            }
+        }
+    }
+
+    private void onSubscriptionEvent(SubscriptionEvent event) {
+
+        int change;
+        if (APIConstants.EventType.SUBSCRIPTIONS_CREATE.name().equals(event.getType())) {
+            change = 1;
+        } else if (APIConstants.EventType.SUBSCRIPTIONS_DELETE.name().equals(event.getType())) {
+            change = -1;
+        } else {
+            return;
+        }
+        TenantIndex tenantIndex = getTenantIndex(event.getTenantDomain());
+        synchronized (tenantIndex) {
+            RankedAPI api = tenantIndex.get(event.getApiId());
+            if (api != null) {
+                tenantIndex.put(api.withSubscriptionCount(Math.max(0, api.getSubscriptionCount() + change)));
+            }
+        }
+    }
+
+    private TenantIndex getTenantIndex(String tenantDomain) {
+
+        return tenantIndexes.computeIfAbsent(tenantDomain, key -> new TenantIndex());
+    }
+
+    /**
+     * APIs of a tenant. Only the published APIs are kept in the ranked sets.
+     */
+    private static class TenantIndex {
+
+        private final Map<Integer, RankedAPI> apis = new HashMap<>();
+        private final TreeSet<RankedAPI> byRating = new TreeSet<>(RATING_ORDER);
+        private final TreeSet<RankedAPI> byCreatedTime = new TreeSet<>(CREATED_TIME_ORDER);
+        private final TreeSet<RankedAPI> bySubscriptionCount = new TreeSet<>(SUBSCRIPTION_COUNT_ORDER);
+
+        private synchronized RankedAPI get(int apiId) {
+
+            return apis.get(apiId);
+        }
+
+        private synchronized void put(RankedAPI api) {
+
+            remove(api.getApiId());
+            apis.put(api.getApiId(), api);
+            if (APIConstants.PUBLISHED.equalsIgnoreCase(api.getStatus())) {
+                byRating.add(api);
+                byCreatedTime.add(api);
+                bySubscriptionCount.add(api);
+            }
+        }
+
+        private synchronized void remove(int apiId) {
+
+            RankedAPI api = apis.remove(apiId);
+            if (api != null) {
+                byRating.remove(api);
+                byCreatedTime.remove(api);
+                bySubscriptionCount.remove(api);
+            }
+        }
+
+        private List<RankedAPI> top(Comparator<RankedAPI> order, int limit) {
+
+            return after(order, null, limit);
+        }
+
+        /**
+         * @return up to limit APIs ranked after the given one, which does not need to be in the index any more
+         */
+        private synchronized List<RankedAPI> after(Comparator<RankedAPI> order, RankedAPI last, int limit) {
+
+            TreeSet<RankedAPI> ranked = order == RATING_ORDER ? byRating
+                    : order == CREATED_TIME_ORDER ? byCreatedTime : bySubscriptionCount;
+            if (limit <= 0) {
+                return Collections.emptyList();
+            }
+            List<RankedAPI> top = new ArrayList<>(Math.min(limit, ranked.size()));
+            Iterator<RankedAPI> iterator = last == null ? ranked.iterator() : ranked.tailSet(last, false).iterator();
+            while (iterator.hasNext() && top.size() < limit) {
+                top.add(iterator.next());
+            }
+            return top;
+        }
+    }
+
+    /**
+     * Reads the APIs of a ranked set in batches, continuing after the last API read, so that the set is not locked
+     * while the caller handles the APIs.
+     */
+    private static class RankedIterator implements Iterator<RankedAPI> {
+
+        private final TenantIndex tenantIndex;
+        private final Comparator<RankedAPI> order;
+        private final Predicate<RankedAPI> inRange;
+        private Iterator<RankedAPI> batch = Collections.emptyIterator();
+        private RankedAPI last;
+        private RankedAPI next;
+        private boolean lastBatch;
+        private boolean ended;
+
+        private RankedIterator(TenantIndex tenantIndex, Comparator<RankedAPI> order, Predicate<RankedAPI> inRange) {
+
+            this.tenantIndex = tenantIndex;
+            this.order = order;
+            this.inRange = inRange;
+        }
+
+        @Override
+        public boolean hasNext() {
+
+            if (next != null) {
+                return true;
+            }
+            if (ended) {
+                return false;
+            }
+            if (!batch.hasNext()) {
+                if (!lastBatch) {
+                    List<RankedAPI> apis = tenantIndex.after(order, last, ITERATOR_BATCH_SIZE);
+                    lastBatch = apis.size() < ITERATOR_BATCH_SIZE;
+                    batch = apis.iterator();
+                }
+                if (!batch.hasNext()) {
+                    ended = true;
+                    return false;
+                }
+            }
+            last = batch.next();
+            if (!inRange.test(last)) {
+                ended = true;
+                return false;
+            }
+            next = last;
+            return true;
+        }
+
+        @Override
+        public RankedAPI next() {
+
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            RankedAPI api = next;
+            next = null;
+            return api;
+        }
+    }
+
+    /**
+     * An API with the values it is ranked by. Instances are immutable, so that they can be handed out of the index.
+     */
+    public static class RankedAPI {
+
+        private final int apiId;
+        private final String uuid;
+        private final String provider;
+        private final String name;
+        private final String version;
+        private final String type;
+        private final long createdTime;
+        private final String status;
+        private final float averageRating;
+        private final int subscriptionCount;
+
+        public RankedAPI(int apiId, String uuid, String provider, String name, String version, String type,
+                         long createdTime, String status, float averageRating, int subscriptionCount) {
+
+            this.apiId = apiId;
+            this.uuid = uuid;
+            this.provider = provider;
+            this.name = name;
+            this.version = version;
+            this.type = type;
+            this.createdTime = createdTime;
+            this.status = status;
+            this.averageRating = averageRating;
+            this.subscriptionCount = subscriptionCount;
+        }
+
+        private RankedAPI withStatus(String status) {
+
+            return new RankedAPI(apiId, uuid, provider, name, version, type, createdTime, status, averageRating,
+                    subscriptionCount);
+        }
+
+        private RankedAPI withAverageRating(float averageRating) {
+
+            return new RankedAPI(apiId, uuid, provider, name, version, type, createdTime, status, averageRating,
+                    subscriptionCount);
+        }
+
+        private RankedAPI withSubscriptionCount(int subscriptionCount) {
+
+            return new RankedAPI(apiId, uuid, provider, name, version, type, createdTime, status, averageRating,
+                    subscriptionCount);
+        }
+
+        public int getApiId() {
+
+            return apiId;
+        }
+
+        public String getUuid() {
+
+            return uuid;
+        }
+
+        public String getProvider() {
+
+            return provider;
+        }
+
+        public String getName() {
+
+            return name;
+        }
+
+        public String getVersion() {
+
+            return version;
+        }
+
+        public String getType() {
+
+            return type;
+        }
+
+        public long getCreatedTime() {
+
+            return createdTime;
+        }
+
+        public String getStatus() {
+
+            return status;
+        }
+
+        public float getAverageRating() {
+
+            return averageRating;
+        }
+
+        public int getSubscriptionCount() {
+
+            return subscriptionCount;
+        }
+    }
+}
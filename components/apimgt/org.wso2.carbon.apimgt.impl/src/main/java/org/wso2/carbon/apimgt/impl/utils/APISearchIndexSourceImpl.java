@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.impl.utils;
+
+import org.wso2.carbon.apimgt.api.APIManagementException;
+import org.wso2.carbon.apimgt.impl.dao.ApiMgtDAO;
+import org.wso2.carbon.apimgt.persistence.dto.Organization;
+import org.wso2.carbon.apimgt.persistence.exceptions.APIPersistenceException;
+import org.wso2.carbon.apimgt.persistence.search.APISearchIndexSource;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lists the APIs of a tenant from the AM_API table, to load the API search index of the tenant without searching the
+ * registry as a user of the tenant. The version of the APIs is a summary of their AM_API rows and the state of an API
+ * is its lifecycle state with its created and updated times, so that the APIs changed on other nodes are indexed
+ * again.
+ */
+public class APISearchIndexSourceImpl implements APISearchIndexSource {
+
+    @Override
+    public List<String> getAPIIds(Organization org) throws APIPersistenceException {
+
+        return getUUIDs(org, false);
+    }
+
+    @Override
+    public List<String> getAPIProductIds(Organization org) throws APIPersistenceException {
+
+        return getUUIDs(org, true);
+    }
+
+    @Override
+    public String getVersion(Organization org) throws APIPersistenceException {
+
+        try {
+            return ApiMgtDAO.getInstance().getAPIStateSummaryOfTenant(org.getName());
+        } catch (APIManagementException e) {
+            throw new APIPersistenceException("Error while reading the state of the APIs of " + org.getName(), e);
+        }
+    }
+
+    @Override
+    public Map<String, String> getAPIStates(Organization org, boolean apiProducts) throws APIPersistenceException {
+
+        try {
+            return ApiMgtDAO.getInstance().getAPIStatesOfTenant(org.getName(), apiProducts);
+        } catch (APIManagementException e) {
+            throw new APIPersistenceException("Error while reading the state of the APIs of " + org.getName(), e);
+        }
+    }
+
+    private static List<String> getUUIDs(Organization org, boolean apiProducts) throws APIPersistenceException {
+
+        try {
+            return ApiMgtDAO.getInstance().getAPIUUIDsOfTenant(org.getName(), apiProducts);
+        } catch (APIManagementException e) {
+            throw new APIPersistenceException("Error while listing the APIs of " + org.getName(), e);
+        }
+    }
+}
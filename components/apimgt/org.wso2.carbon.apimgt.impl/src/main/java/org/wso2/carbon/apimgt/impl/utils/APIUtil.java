@@ -153,10 +153,12 @@ import org.wso2.carbon.apimgt.impl.kmclient.ApacheFeignHttpClient;
 import org.wso2.carbon.apimgt.impl.kmclient.model.OpenIDConnectDiscoveryClient;
 import org.wso2.carbon.apimgt.impl.kmclient.model.OpenIdConnectConfiguration;
 import org.wso2.carbon.apimgt.impl.notifier.Notifier;
+import org.wso2.carbon.apimgt.impl.notifier.SubscriptionDataChangeLog;
 import org.wso2.carbon.apimgt.impl.notifier.events.APIPolicyEvent;
 import org.wso2.carbon.apimgt.impl.notifier.events.ApplicationPolicyEvent;
 import org.wso2.carbon.apimgt.impl.notifier.events.SubscriptionPolicyEvent;
 import org.wso2.carbon.apimgt.impl.notifier.exceptions.NotifierException;
+import org.wso2.carbon.apimgt.impl.ranking.APIRankingIndex;
 import org.wso2.carbon.apimgt.impl.recommendationmgt.RecommendationEnvironment;
 import org.wso2.carbon.apimgt.impl.workflow.WorkflowConstants;
 import org.wso2.carbon.apimgt.impl.wsdl.WSDLProcessor;
@@ -598,6 +600,8 @@ public final class APIUtil {
      */
     public static void sendNotification(org.wso2.carbon.apimgt.impl.notifier.events.Event event, String notifierType) {
 
+        SubscriptionDataChangeLog.getInstance().record(event);
+        APIRankingIndex.getInstance().onEvent(event);
         List<Notifier> notifierList = ServiceReferenceHolder.getInstance().getNotifiersMap().get(notifierType);
         notifierList.forEach((notifier) -> {
             try {
@@ -5117,6 +5121,29 @@ public final class APIUtil {
         return Boolean.parseBoolean(displayAllAPIs);
     }
 
+    /**
+     * Adds the configured type and data source of the API persistence to the properties it is created with.
+     *
+     * @param properties properties of the API persistence
+     */
+    public static void addAPIPersistenceProperties(Properties properties) {
+
+        APIManagerConfiguration config = ServiceReferenceHolder.getInstance().
+                getAPIManagerConfigurationService().getAPIManagerConfiguration();
+        String persistenceType = config.getFirstProperty(APIConstants.API_PERSISTENCE_TYPE);
+        if (StringUtils.isNotEmpty(persistenceType)) {
+            properties.put(APIConstants.PERSISTENCE_TYPE, persistenceType.trim());
+        }
+        String dataSourceName = config.getFirstProperty(APIConstants.API_PERSISTENCE_DATA_SOURCE);
+        if (StringUtils.isNotEmpty(dataSourceName)) {
+            properties.put(APIConstants.PERSISTENCE_DATA_SOURCE_NAME, dataSourceName.trim());
+        }
+        if (Boolean.parseBoolean(config.getFirstProperty(APIConstants.API_PERSISTENCE_SEARCH_INDEX_ENABLED))) {
+            properties.put(APIConstants.PERSISTENCE_SEARCH_INDEX_ENABLED, Boolean.TRUE);
+            properties.put(APIConstants.PERSISTENCE_SEARCH_INDEX_SOURCE, new APISearchIndexSourceImpl());
+        }
+    }
+
     public static boolean isAllowDisplayMultipleVersions() {
 
         APIManagerConfiguration config = ServiceReferenceHolder.getInstance().
@@ -77,11 +77,22 @@ public class JWTUtil {
      */
     public static boolean verifyTokenSignature(SignedJWT jwt, RSAPublicKey publicKey) {
 
+        return verifyTokenSignature(jwt, new RSASSAVerifier(publicKey));
+    }
+
+    /**
+     * Verify the JWT token signature with a verifier which can be reused across tokens.
+     *
+     * @param jwt SignedJwt Token
+     * @param jwsVerifier RSA signature verifier of the public key
+     * @return whether the signature is verified or or not
+     */
+    public static boolean verifyTokenSignature(SignedJWT jwt, JWSVerifier jwsVerifier) {
+
         JWSAlgorithm algorithm = jwt.getHeader().getAlgorithm();
         if ((JWSAlgorithm.RS256.equals(algorithm) || JWSAlgorithm.RS512.equals(algorithm) ||
                 JWSAlgorithm.RS384.equals(algorithm))) {
             try {
-                JWSVerifier jwsVerifier = new RSASSAVerifier(publicKey);
                 return jwt.verify(jwsVerifier);
             } catch (JOSEException e) {
                 log.error("Error while verifying JWT signature", e);
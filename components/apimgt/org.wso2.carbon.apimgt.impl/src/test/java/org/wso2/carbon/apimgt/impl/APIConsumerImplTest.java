@@ -52,6 +52,7 @@ import org.wso2.carbon.apimgt.api.model.Scope;
 import org.wso2.carbon.apimgt.api.model.SubscribedAPI;
 import org.wso2.carbon.apimgt.api.model.Subscriber;
 import org.wso2.carbon.apimgt.api.model.Tier;
+import org.wso2.carbon.apimgt.impl.caching.TagSummary;
 import org.wso2.carbon.apimgt.impl.dao.ApiMgtDAO;
 import org.wso2.carbon.apimgt.impl.dto.SubscriptionWorkflowDTO;
 import org.wso2.carbon.apimgt.impl.dto.TierPermissionDTO;
@@ -554,6 +555,55 @@ public class APIConsumerImplTest {
         assertNotNull(apiConsumer.getTagsWithAttributes("testDomain"));
     }
 
+    @Test
+    public void testGetTagsWithAttributesFromTagSummary() throws Exception {
+        Registry userRegistry = Mockito.mock(Registry.class);
+        APIManagerConfiguration apiManagerConfiguration = Mockito.mock(APIManagerConfiguration.class);
+        Mockito.when(apiManagerConfiguration.getFirstProperty(APIConstants.STORE_TAG_CACHE_DURATION))
+                .thenReturn("60000");
+        APIConsumerImpl apiConsumer = new APIConsumerImplWrapper(userRegistry, apiMgtDAO) {
+            @Override
+            protected APIManagerConfiguration getAPIManagerConfiguration() {
+                return apiManagerConfiguration;
+            }
+        };
+        System.setProperty(CARBON_HOME, "");
+        PowerMockito.mockStatic(GovernanceUtils.class);
+        UserRegistry userRegistry1 = Mockito.mock(UserRegistry.class);
+        Mockito.when(registryService.getGovernanceUserRegistry(Mockito.anyString(), Mockito.anyInt())).
+                thenReturn(userRegistry1);
+        Mockito.when(registryService.getGovernanceSystemRegistry(Mockito.anyInt())).thenReturn(userRegistry1);
+        Cache tagSummaryCache = Mockito.mock(Cache.class);
+        PowerMockito.when(APIUtil.getCache(Mockito.eq(APIConstants.API_MANAGER_CACHE_MANAGER),
+                Mockito.eq(APIConstants.TAG_SUMMARY_CACHE_NAME), Mockito.anyLong(), Mockito.anyLong()))
+                .thenReturn(tagSummaryCache);
+        GenericArtifactManager artifactManager = Mockito.mock(GenericArtifactManager.class);
+        PowerMockito.when(APIUtil.getArtifactManager(userRegistry1, APIConstants.API_KEY)).thenReturn(artifactManager);
+        GenericArtifact artifact = Mockito.mock(GenericArtifact.class);
+        Mockito.when(artifact.getId()).thenReturn("testUUID");
+        Mockito.when(artifact.getPath()).thenReturn("testPath");
+        Mockito.when(artifactManager.findGovernanceArtifacts(Mockito.anyString()))
+                .thenReturn(new GenericArtifact[]{artifact}, new GenericArtifact[0]);
+        Tag registryTag = new Tag();
+        registryTag.setTagName("testTerm");
+        Mockito.when(userRegistry1.getTags("testPath")).thenReturn(new Tag[]{registryTag});
+        ResourceDO resourceDO = Mockito.mock(ResourceDO.class);
+        Resource resource = new ResourceImpl("dw", resourceDO);
+        resource.setContent("testContent");
+        Mockito.when(userRegistry1.resourceExists(Mockito.anyString())).thenReturn(true);
+        Mockito.when(userRegistry1.get(Mockito.anyString())).thenReturn(resource);
+        Set<org.wso2.carbon.apimgt.api.model.Tag> tags = apiConsumer.getTagsWithAttributes("testDomain");
+        assertNotNull(tags);
+        assertEquals(1, tags.size());
+        assertEquals("testTerm", tags.iterator().next().getName());
+        assertEquals(1, tags.iterator().next().getNoOfOccurrences());
+        Mockito.verify(tagSummaryCache).put(Mockito.eq("testDomain"), Mockito.any(TagSummary.class));
+        // The registry facet queries are only used when the tag cache is disabled
+        PowerMockito.verifyStatic(GovernanceUtils.class, Mockito.never());
+        GovernanceUtils.getTermDataList(Mockito.anyMap(), Mockito.anyString(), Mockito.anyString(),
+                Mockito.anyBoolean());
+    }
+
     @Test
     public void testGetTopRatedAPIs() throws APIManagementException, RegistryException {
         Registry userRegistry = Mockito.mock(Registry.class);
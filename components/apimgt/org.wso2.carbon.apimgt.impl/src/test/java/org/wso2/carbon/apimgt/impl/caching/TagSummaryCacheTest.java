@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.impl.caching;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.cache.Cache;
+import javax.cache.CacheInvalidationRequestSender;
+
+public class TagSummaryCacheTest {
+
+    private static final String TENANT_DOMAIN = "carbon.super";
+
+    private final Map<Object, Object> entries = new ConcurrentHashMap<>();
+    private final AtomicInteger puts = new AtomicInteger();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final List<Runnable> refreshes = new ArrayList<>();
+    private final TagSummaryCache tagSummaryCache = new TagSummaryCache(refreshes::add) {
+        @Override
+        protected Cache getCache() {
+
+            return getMapCache();
+        }
+
+        @Override
+        protected boolean isTagCacheEnabled() {
+
+            return true;
+        }
+
+        @Override
+        protected CacheInvalidationRequestSender getInvalidationRequestSender() {
+
+            return null;
+        }
+    };
+    private volatile TagSummary storedTagSummary = getTagSummary("pets");
+
+    private static TagSummary getTagSummary(String tag) {
+
+        return new TagSummary(Collections.singletonList(
+                new TagSummary.TaggedAPI("uuid1", Collections.singletonList(tag), "public", null)));
+    }
+
+    /**
+     * Returns a cache which keeps the entries in a map and counts the entries stored.
+     */
+    private Cache getMapCache() {
+
+        return (Cache) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Cache.class},
+                (proxy, method, args) -> {
+                    if ("get".equals(method.getName())) {
+                        return entries.get(args[0]);
+                    }
+                    if ("put".equals(method.getName())) {
+                        puts.incrementAndGet();
+                        return entries.put(args[0], args[1]);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private TagSummary load(String tenantDomain) throws InterruptedException {
+
+        loads.incrementAndGet();
+        // Gives the other readers the time to find the summary missing
+        Thread.sleep(100);
+        return storedTagSummary;
+    }
+
+    @Test
+    public void testSummaryIsLoadedOnceForConcurrentReaders() throws Exception {
+
+        int readers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(readers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<TagSummary>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < readers; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return tagSummaryCache.getTagSummary(TENANT_DOMAIN, TimeUnit.MINUTES.toMillis(5), tenantDomain -> {
+                        try {
+                            return load(tenantDomain);
+                        } catch (InterruptedException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<TagSummary> result : results) {
+                Assert.assertSame(storedTagSummary, result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals(1, loads.get());
+        Assert.assertEquals(1, puts.get());
+        Assert.assertTrue(refreshes.isEmpty());
+    }
+
+    @Test
+    public void testStaleSummaryIsRefreshedInTheBackground() throws Exception {
+
+        TagSummaryCache.Loader loader = tenantDomain -> {
+            loads.incrementAndGet();
+            return storedTagSummary;
+        };
+        TagSummary tagSummary = tagSummaryCache.getTagSummary(TENANT_DOMAIN, 0, loader);
+        Assert.assertEquals(1, loads.get());
+        Assert.assertTrue(refreshes.isEmpty());
+
+        // The current summary is returned while a single refresh is pending
+        Assert.assertSame(tagSummary, tagSummaryCache.getTagSummary(TENANT_DOMAIN, 0, loader));
+        Assert.assertSame(tagSummary, tagSummaryCache.getTagSummary(TENANT_DOMAIN, 0, loader));
+        Assert.assertEquals(1, refreshes.size());
+        Assert.assertEquals(1, loads.get());
+
+        // An unchanged summary is not stored again, which would make the other nodes drop theirs
+        storedTagSummary = getTagSummary("pets");
+        refreshes.remove(0).run();
+        Assert.assertEquals(2, loads.get());
+        Assert.assertEquals(1, puts.get());
+        Assert.assertSame(tagSummary, tagSummaryCache.getTagSummary(TENANT_DOMAIN, 0, loader));
+
+        storedTagSummary = getTagSummary("finance");
+        refreshes.remove(0).run();
+        Assert.assertEquals(3, loads.get());
+        Assert.assertEquals(2, puts.get());
+        Assert.assertSame(storedTagSummary,
+                tagSummaryCache.getTagSummary(TENANT_DOMAIN, TimeUnit.MINUTES.toMillis(5), loader));
+        Assert.assertTrue(refreshes.isEmpty());
+    }
+
+    @Test
+    public void testUpdatesAreAppliedToTheLoadedSummary() throws Exception {
+
+        tagSummaryCache.getTagSummary(TENANT_DOMAIN, TimeUnit.MINUTES.toMillis(5), tenantDomain -> storedTagSummary);
+        tagSummaryCache.updateAPI(TENANT_DOMAIN, "uuid2", "PUBLISHED", Collections.singleton("finance"), "public",
+                null);
+
+        TagSummary tagSummary = tagSummaryCache.getTagSummary(TENANT_DOMAIN);
+        Assert.assertEquals(2, tagSummary.getTags(null).size());
+        tagSummaryCache.removeAPI(TENANT_DOMAIN, "uuid2");
+        Assert.assertEquals(storedTagSummary, tagSummaryCache.getTagSummary(TENANT_DOMAIN));
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.impl.caching;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.wso2.carbon.apimgt.api.model.Tag;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+public class TagSummaryTest {
+
+    private static Map<String, Integer> getCounts(Set<Tag> tags) {
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (Tag tag : tags) {
+            counts.put(tag.getName(), tag.getNoOfOccurrences());
+        }
+        return counts;
+    }
+
+    private static TagSummary getTagSummary() {
+
+        return new TagSummary(Arrays.asList(
+                new TagSummary.TaggedAPI("uuid1", Arrays.asList("pets", "finance"), "public", null),
+                new TagSummary.TaggedAPI("uuid2", Arrays.asList("pets"), "private", null),
+                new TagSummary.TaggedAPI("uuid3", Arrays.asList("pets", "internal"), "restricted",
+                        "Internal/Staff, partner")));
+    }
+
+    @Test
+    public void testTagsAreCountedForTheAPIsVisibleToTheUser() {
+
+        TagSummary tagSummary = getTagSummary();
+
+        Map<String, Integer> anonymousCounts = getCounts(tagSummary.getTags(null));
+        Assert.assertEquals(2, anonymousCounts.size());
+        Assert.assertEquals(Integer.valueOf(1), anonymousCounts.get("pets"));
+        Assert.assertEquals(Integer.valueOf(1), anonymousCounts.get("finance"));
+
+        Map<String, Integer> userCounts = getCounts(tagSummary.getTags(new String[]{"Internal/everyone"}));
+        Assert.assertEquals(Integer.valueOf(2), userCounts.get("pets"));
+        Assert.assertNull(userCounts.get("internal"));
+
+        Map<String, Integer> partnerCounts = getCounts(tagSummary.getTags(new String[]{"Partner"}));
+        Assert.assertEquals(Integer.valueOf(3), partnerCounts.get("pets"));
+        Assert.assertEquals(Integer.valueOf(1), partnerCounts.get("internal"));
+
+        Assert.assertEquals(getCounts(tagSummary.getAllTags()), partnerCounts);
+    }
+
+    @Test
+    public void testChangesGiveNewSummaries() {
+
+        TagSummary tagSummary = getTagSummary();
+
+        TagSummary updated = tagSummary.withAPI(
+                new TagSummary.TaggedAPI("uuid1", Arrays.asList("payments"), "public", null));
+        Map<String, Integer> counts = getCounts(updated.getTags(null));
+        Assert.assertEquals(1, counts.size());
+        Assert.assertEquals(Integer.valueOf(1), counts.get("payments"));
+        // The previous summary is not changed
+        Assert.assertEquals(Integer.valueOf(1), getCounts(tagSummary.getTags(null)).get("finance"));
+
+        TagSummary removed = updated.withoutAPI("uuid1");
+        Assert.assertTrue(removed.getTags(null).isEmpty());
+        Assert.assertSame(removed, removed.withoutAPI("uuid1"));
+    }
+}
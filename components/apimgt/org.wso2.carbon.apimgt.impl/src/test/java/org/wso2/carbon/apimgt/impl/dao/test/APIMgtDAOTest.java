@@ -78,6 +78,7 @@ import org.wso2.carbon.apimgt.impl.dto.APIKeyValidationInfoDTO;
 import org.wso2.carbon.apimgt.impl.dto.ApplicationRegistrationWorkflowDTO;
 import org.wso2.carbon.apimgt.impl.dto.TierPermissionDTO;
 import org.wso2.carbon.apimgt.impl.factory.KeyManagerHolder;
+import org.wso2.carbon.apimgt.impl.factory.SQLConstantManagerFactory;
 import org.wso2.carbon.apimgt.impl.internal.ServiceReferenceHolder;
 import org.wso2.carbon.apimgt.impl.notifier.Notifier;
 import org.wso2.carbon.apimgt.impl.notifier.SubscriptionsNotifier;
@@ -142,6 +143,7 @@ public class APIMgtDAOTest {
         PowerMockito.mockStatic(KeyManagerHolder.class);
         keyManager = Mockito.mock(KeyManager.class);
         APIMgtDBUtil.initialize();
+        SQLConstantManagerFactory.initializeSQLConstantManager();
         apiMgtDAO = ApiMgtDAO.getInstance();
         IdentityTenantUtil.setRealmService(new TestRealmService());
         String identityConfigPath = System.getProperty("IdentityConfigurationPath");
@@ -342,6 +344,31 @@ public class APIMgtDAOTest {
                 (), null));
 
     }
+    @Test
+    public void testGetApplicationsAfter() throws Exception {
+        Subscriber subscriber = new Subscriber("LA_F_APPLICATIONS_AFTER");
+        subscriber.setEmail("laf@wso2.com");
+        subscriber.setSubscribedDate(new Date());
+        subscriber.setTenantId(MultitenantConstants.SUPER_TENANT_ID);
+        apiMgtDAO.addSubscriber(subscriber, null);
+        for (String name : new String[]{"keysetApp3", "keysetApp1", "keysetApp2"}) {
+            apiMgtDAO.addApplication(new Application(name, subscriber), subscriber.getName());
+        }
+        Application[] firstPage = apiMgtDAO.getApplicationsWithPagination(subscriber, null, 0, 2, "keysetApp",
+                APIConstants.APPLICATION_NAME, "asc");
+        assertEquals(2, firstPage.length);
+        assertEquals("keysetApp1", firstPage[0].getName());
+        assertEquals("keysetApp2", firstPage[1].getName());
+        Application[] nextPage = apiMgtDAO.getApplicationsAfter(subscriber, null, firstPage[1].getName(),
+                firstPage[1].getId(), 2, "keysetApp", "asc");
+        assertEquals(1, nextPage.length);
+        assertEquals("keysetApp3", nextPage[0].getName());
+        Application[] descendingPage = apiMgtDAO.getApplicationsAfter(subscriber, null, "keysetApp3",
+                nextPage[0].getId(), 2, "keysetApp", "desc");
+        assertEquals(2, descendingPage.length);
+        assertEquals("keysetApp2", descendingPage[0].getName());
+    }
+
     @Test
     public void testAddGetApplicationByNameWithGroupId() throws Exception {
         Subscriber subscriber = new Subscriber("LA_F_APP");
@@ -915,6 +942,13 @@ public class APIMgtDAOTest {
         boolean applicationExist = apiMgtDAO.isApplicationExist(application.getName(), subscriber.getName(), null);
         assertTrue(applicationExist);
         assertNotNull(apiMgtDAO.getPaginatedSubscribedAPIs(subscriber, application.getName(), 0, 10, null));
+        Set<SubscribedAPI> firstPage = apiMgtDAO.getPaginatedSubscribedAPIs(subscriber, application.getName(), 0, 1,
+                null);
+        assertEquals(1, firstPage.size());
+        assertTrue(apiMgtDAO.getPaginatedSubscribedAPIsAfter(subscriber, application.getName(),
+                firstPage.iterator().next().getSubscriptionId(), 10, null).isEmpty());
+        assertEquals(1, apiMgtDAO.getPaginatedSubscribedAPIs(subscriber, application.getId(), 0, 10, null).size());
+        assertTrue(apiMgtDAO.getPaginatedSubscribedAPIs(subscriber, application.getId(), 1, 10, null).isEmpty());
         Set<SubscribedAPI> subscribedAPIS = apiMgtDAO.getSubscribedAPIs(subscriber, application.getName(), null);
         assertEquals(subscribedAPIS.size(), 1);
         apiMgtDAO.updateSubscription(apiId, APIConstants.SubscriptionStatus.BLOCKED, application.getId());
@@ -0,0 +1,335 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.impl.dao.test;
+
+import org.apache.commons.lang3.StringUtils;
+import org.h2.jdbcx.JdbcDataSource;
+import org.wso2.carbon.apimgt.api.model.subscription.API;
+import org.wso2.carbon.apimgt.api.model.subscription.URLMapping;
+import org.wso2.carbon.apimgt.impl.APIManagerConfiguration;
+import org.wso2.carbon.apimgt.impl.APIManagerConfigurationServiceImpl;
+import org.wso2.carbon.apimgt.impl.dao.SubscriptionValidationDAO;
+import org.wso2.carbon.apimgt.impl.internal.ServiceReferenceHolder;
+import org.wso2.carbon.apimgt.impl.utils.APIMgtDBUtil;
+import org.wso2.carbon.base.MultitenantConstants;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.naming.Context;
+import javax.naming.InitialContext;
+import javax.sql.DataSource;
+
+/**
+ * Measures the number of queries and the time taken by {@link SubscriptionValidationDAO#getAllApis(String, String)}
+ * to load the APIs of a deployment from an in-memory H2 database created with the H2 script of the distribution, and
+ * compares it with the per API queries the APIs were loaded with before, which are kept in {@link #getAllApisPerApi}.
+ * It is not a unit test, so it is not run by the build. Run it from the module directory, with the test classpath, as
+ * <pre>
+ * java -cp target/classes:target/test-classes:&lt;test dependencies&gt; \
+ *     org.wso2.carbon.apimgt.impl.dao.test.SubscriptionValidationDAOBenchmark [number of APIs] [iterations]
+ * </pre>
+ */
+public class SubscriptionValidationDAOBenchmark {
+
+    private static final int DEFAULT_API_COUNT = 3000;
+    private static final int DEFAULT_ITERATIONS = 20;
+    private static final int WARM_UP_ITERATIONS = 5;
+    private static final int RESOURCES_PER_API = 5;
+    private static final String DEPLOYMENT = "Production";
+    private static final String DATA_SOURCE_NAME = "java:/comp/env/jdbc/WSO2AM_DB";
+    private static final String CONFIG = "./src/test/resources/amConfig.xml";
+    private static final String H2_SCRIPT =
+            "../../../features/apimgt/org.wso2.carbon.apimgt.core.feature/src/main/resources/sql/h2.sql";
+
+    private static final String GET_APIS_SQL = "SELECT AM_API.API_PROVIDER,AM_API.API_NAME,AM_API.CONTEXT," +
+            "AM_API.API_UUID,AM_API.API_ID,AM_API.API_TIER,AM_API.API_VERSION,AM_API.API_TYPE," +
+            "AM_REVISION.REVISION_UUID AS REVISION_UUID,AM_DEPLOYMENT_REVISION_MAPPING.NAME AS DEPLOYMENT_NAME " +
+            "FROM AM_API LEFT JOIN AM_REVISION ON AM_API.API_UUID=AM_REVISION.API_UUID LEFT JOIN " +
+            "AM_DEPLOYMENT_REVISION_MAPPING " +
+            "ON AM_REVISION.REVISION_UUID=AM_DEPLOYMENT_REVISION_MAPPING.REVISION_UUID " +
+            "WHERE AM_API.CONTEXT NOT LIKE '/t/%'";
+    private static final String IS_DEFAULT_VERSION_SQL = "SELECT PUBLISHED_DEFAULT_API_VERSION FROM " +
+            "AM_API_DEFAULT_VERSION WHERE API_NAME = ? AND API_PROVIDER = ? AND PUBLISHED_DEFAULT_API_VERSION = ?";
+    private static final String GET_URL_MAPPINGS_SQL = "SELECT AM_API_URL_MAPPING.HTTP_METHOD," +
+            "AM_API_URL_MAPPING.AUTH_SCHEME,AM_API_URL_MAPPING.URL_PATTERN,AM_API_URL_MAPPING.THROTTLING_TIER," +
+            "AM_API_RESOURCE_SCOPE_MAPPING.SCOPE_NAME FROM AM_API_URL_MAPPING LEFT JOIN " +
+            "AM_API_RESOURCE_SCOPE_MAPPING ON AM_API_URL_MAPPING.URL_MAPPING_ID=" +
+            "AM_API_RESOURCE_SCOPE_MAPPING.URL_MAPPING_ID WHERE AM_API_URL_MAPPING.API_ID=? AND " +
+            "AM_API_URL_MAPPING.REVISION_UUID=?";
+
+    private final AtomicLong queries = new AtomicLong();
+    private final SubscriptionValidationDAO subscriptionValidationDAO = new SubscriptionValidationDAO();
+
+    public static void main(String[] args) throws Exception {
+
+        int apiCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_API_COUNT;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ITERATIONS;
+
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:subscriptionvalidationbenchmark;DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("RUNSCRIPT FROM '" + H2_SCRIPT + "'");
+            addApis(connection, apiCount);
+        }
+        SubscriptionValidationDAOBenchmark benchmark = new SubscriptionValidationDAOBenchmark();
+        benchmark.initialize(dataSource);
+        benchmark.run(apiCount, iterations);
+    }
+
+    /**
+     * Adds APIs deployed to the measured deployment, each with URL mappings that have a scope. Every other API is
+     * the default version.
+     */
+    private static void addApis(Connection connection, int apiCount) throws SQLException {
+
+        connection.setAutoCommit(false);
+        try (PreparedStatement addApi = connection.prepareStatement("INSERT INTO AM_API (API_ID, API_UUID, " +
+                "API_PROVIDER, API_NAME, API_VERSION, CONTEXT, API_TIER, API_TYPE) VALUES (?, ?, 'admin', ?, " +
+                "'1.0.0', ?, 'Unlimited', 'HTTP')");
+             PreparedStatement addDefaultVersion = connection.prepareStatement("INSERT INTO " +
+                     "AM_API_DEFAULT_VERSION (API_NAME, API_PROVIDER, DEFAULT_API_VERSION, " +
+                     "PUBLISHED_DEFAULT_API_VERSION) VALUES (?, 'admin', '1.0.0', '1.0.0')");
+             PreparedStatement addRevision = connection.prepareStatement("INSERT INTO AM_REVISION (ID, API_UUID, " +
+                     "REVISION_UUID) VALUES (1, ?, ?)");
+             PreparedStatement addDeployment = connection.prepareStatement("INSERT INTO " +
+                     "AM_DEPLOYMENT_REVISION_MAPPING (NAME, REVISION_UUID) VALUES (?, ?)");
+             PreparedStatement addUrlMapping = connection.prepareStatement("INSERT INTO AM_API_URL_MAPPING " +
+                     "(URL_MAPPING_ID, API_ID, HTTP_METHOD, AUTH_SCHEME, URL_PATTERN, THROTTLING_TIER, " +
+                     "REVISION_UUID) VALUES (?, ?, 'GET', 'Any', ?, 'Unlimited', ?)");
+             PreparedStatement addScope = connection.prepareStatement("INSERT INTO AM_API_RESOURCE_SCOPE_MAPPING " +
+                     "(SCOPE_NAME, URL_MAPPING_ID, TENANT_ID) VALUES (?, ?, -1234)")) {
+            int urlMappingId = 0;
+            for (int apiId = 1; apiId <= apiCount; apiId++) {
+                String apiUUID = UUID.randomUUID().toString();
+                String revisionUUID = UUID.randomUUID().toString();
+                String name = "BenchmarkAPI" + apiId;
+                addApi.setInt(1, apiId);
+                addApi.setString(2, apiUUID);
+                addApi.setString(3, name);
+                addApi.setString(4, "/" + name.toLowerCase() + "/1.0.0");
+                addApi.addBatch();
+                if (apiId % 2 == 0) {
+                    addDefaultVersion.setString(1, name);
+                    addDefaultVersion.addBatch();
+                }
+                addRevision.setString(1, apiUUID);
+                addRevision.setString(2, revisionUUID);
+                addRevision.addBatch();
+                addDeployment.setString(1, DEPLOYMENT);
+                addDeployment.setString(2, revisionUUID);
+                addDeployment.addBatch();
+                for (int resource = 0; resource < RESOURCES_PER_API; resource++) {
+                    urlMappingId++;
+                    addUrlMapping.setInt(1, urlMappingId);
+                    addUrlMapping.setInt(2, apiId);
+                    addUrlMapping.setString(3, "/resource" + resource);
+                    addUrlMapping.setString(4, revisionUUID);
+                    addUrlMapping.addBatch();
+                    addScope.setString(1, "scope" + resource);
+                    addScope.setInt(2, urlMappingId);
+                    addScope.addBatch();
+                }
+            }
+            addApi.executeBatch();
+            addDefaultVersion.executeBatch();
+            addRevision.executeBatch();
+            addDeployment.executeBatch();
+            addUrlMapping.executeBatch();
+            addScope.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+    }
+
+    /**
+     * Binds the data source the DAOs read from, with each statement prepared on it counted as a query.
+     */
+    private void initialize(DataSource dataSource) throws Exception {
+
+        DataSource countingDataSource = (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{DataSource.class}, (proxy, method, args) -> {
+                    Object result = invoke(dataSource, method, args);
+                    if (result instanceof Connection) {
+                        return countQueries((Connection) result);
+                    }
+                    return result;
+                });
+        System.setProperty(Context.INITIAL_CONTEXT_FACTORY, "org.apache.naming.java.javaURLContextFactory");
+        System.setProperty(Context.URL_PKG_PREFIXES, "org.apache.naming");
+        InitialContext ic = new InitialContext();
+        ic.createSubcontext("java:");
+        ic.createSubcontext("java:/comp");
+        ic.createSubcontext("java:/comp/env");
+        ic.createSubcontext("java:/comp/env/jdbc");
+        ic.bind(DATA_SOURCE_NAME, countingDataSource);
+
+        APIManagerConfiguration config = new APIManagerConfiguration();
+        config.load(CONFIG);
+        ServiceReferenceHolder.getInstance().setAPIManagerConfigurationService(
+                new APIManagerConfigurationServiceImpl(config));
+        APIMgtDBUtil.initialize();
+    }
+
+    private Connection countQueries(Connection connection) {
+
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if ("prepareStatement".equals(method.getName()) || "createStatement".equals(method.getName())) {
+                        queries.incrementAndGet();
+                    }
+                    return invoke(connection, method, args);
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void run(int apiCount, int iterations) throws Exception {
+
+        List<API> apis = subscriptionValidationDAO.getAllApis(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME,
+                DEPLOYMENT);
+        List<API> perApi = getAllApisPerApi();
+        if (apis.size() != apiCount || perApi.size() != apiCount
+                || countResources(apis) != countResources(perApi)) {
+            throw new IllegalStateException("The APIs loaded do not match: " + apis.size() + " APIs with "
+                    + countResources(apis) + " resources, " + perApi.size() + " APIs with "
+                    + countResources(perApi) + " resources loaded per API");
+        }
+        System.out.println("Loading " + apiCount + " APIs with " + RESOURCES_PER_API + " resources each, "
+                + iterations + " times");
+        measure("per API queries", iterations, this::getAllApisPerApi);
+        measure("set based queries", iterations,
+                () -> subscriptionValidationDAO.getAllApis(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME,
+                        DEPLOYMENT));
+    }
+
+    private void measure(String name, int iterations, Load load) throws Exception {
+
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            load.load();
+        }
+        queries.set(0);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            load.load();
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-20s %8d queries %10.2f ms per load%n", name, queries.get() / iterations,
+                (double) TimeUnit.NANOSECONDS.toMicros(elapsed) / iterations / 1000);
+    }
+
+    private static int countResources(List<API> apis) {
+
+        int resources = 0;
+        for (API api : apis) {
+            resources += api.getAllResources().size();
+        }
+        return resources;
+    }
+
+    /**
+     * Loads the APIs of the deployment as they were loaded before, with a default version query and a URL mapping
+     * query for every API.
+     */
+    private List<API> getAllApisPerApi() throws SQLException {
+
+        List<API> apiList = new ArrayList<>();
+        try (Connection connection = APIMgtDBUtil.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(GET_APIS_SQL);
+             ResultSet resultSet = preparedStatement.executeQuery()) {
+            while (resultSet.next()) {
+                API api = new API();
+                String provider = resultSet.getString("API_PROVIDER");
+                String name = resultSet.getString("API_NAME");
+                String version = resultSet.getString("API_VERSION");
+                api.setApiUUID(resultSet.getString("API_UUID"));
+                api.setApiId(resultSet.getInt("API_ID"));
+                api.setVersion(version);
+                api.setProvider(provider);
+                api.setName(name);
+                api.setApiType(resultSet.getString("API_TYPE"));
+                api.setPolicy(resultSet.getString("API_TIER"));
+                api.setContext(resultSet.getString("CONTEXT"));
+                try (PreparedStatement defaultVersion = connection.prepareStatement(IS_DEFAULT_VERSION_SQL)) {
+                    defaultVersion.setString(1, name);
+                    defaultVersion.setString(2, provider);
+                    defaultVersion.setString(3, version);
+                    try (ResultSet defaultVersionResult = defaultVersion.executeQuery()) {
+                        api.setIsDefaultVersion(defaultVersionResult.next());
+                    }
+                }
+                if (DEPLOYMENT.equals(resultSet.getString("DEPLOYMENT_NAME"))) {
+                    attachURLMappings(connection, resultSet.getString("REVISION_UUID"), api);
+                    apiList.add(api);
+                }
+            }
+        }
+        return apiList;
+    }
+
+    private static void attachURLMappings(Connection connection, String revisionUUID, API api) throws SQLException {
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(GET_URL_MAPPINGS_SQL)) {
+            preparedStatement.setInt(1, api.getApiId());
+            preparedStatement.setString(2, revisionUUID);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    String httpMethod = resultSet.getString("HTTP_METHOD");
+                    String urlPattern = resultSet.getString("URL_PATTERN");
+                    String scopeName = resultSet.getString("SCOPE_NAME");
+                    URLMapping urlMapping = api.getResource(urlPattern, httpMethod);
+                    if (urlMapping == null) {
+                        urlMapping = new URLMapping();
+                        urlMapping.setAuthScheme(resultSet.getString("AUTH_SCHEME"));
+                        urlMapping.setHttpMethod(httpMethod);
+                        urlMapping.setThrottlingPolicy(resultSet.getString("THROTTLING_TIER"));
+                        urlMapping.setUrlPattern(urlPattern);
+                    }
+                    if (StringUtils.isNotEmpty(scopeName)) {
+                        urlMapping.addScope(scopeName);
+                    }
+                    api.addResource(urlMapping);
+                }
+            }
+        }
+    }
+
+    private interface Load {
+
+        Object load() throws Exception;
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ *  Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.apimgt.impl.dao.test;
+
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.impl.builder.StAXOMBuilder;
+import org.apache.commons.dbcp.BasicDataSource;
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.wso2.carbon.apimgt.api.dto.ConditionDTO;
+import org.wso2.carbon.apimgt.api.model.policy.PolicyConstants;
+import org.wso2.carbon.apimgt.api.model.subscription.API;
+import org.wso2.carbon.apimgt.api.model.subscription.APIPolicy;
+import org.wso2.carbon.apimgt.api.model.subscription.APIPolicyConditionGroup;
+import org.wso2.carbon.apimgt.api.model.subscription.URLMapping;
+import org.wso2.carbon.apimgt.impl.APIManagerConfiguration;
+import org.wso2.carbon.apimgt.impl.APIManagerConfigurationServiceImpl;
+import org.wso2.carbon.apimgt.impl.dao.SubscriptionValidationDAO;
+import org.wso2.carbon.apimgt.impl.internal.ServiceReferenceHolder;
+import org.wso2.carbon.apimgt.impl.utils.APIMgtDBUtil;
+import org.wso2.carbon.base.MultitenantConstants;
+
+import javax.naming.Context;
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+
+public class SubscriptionValidationDAOTest {
+
+    private SubscriptionValidationDAO subscriptionValidationDAO;
+
+    @Before
+    public void setUp() throws Exception {
+
+        String dbConfigPath = System.getProperty("APIManagerDBConfigurationPath");
+        APIManagerConfiguration config = new APIManagerConfiguration();
+        initializeDatabase(dbConfigPath);
+        config.load(dbConfigPath);
+        ServiceReferenceHolder.getInstance().setAPIManagerConfigurationService(new APIManagerConfigurationServiceImpl
+                (config));
+        APIMgtDBUtil.initialize();
+        subscriptionValidationDAO = new SubscriptionValidationDAO();
+    }
+
+    private static void initializeDatabase(String configFilePath)
+            throws XMLStreamException, IOException, NamingException {
+
+        InputStream in;
+        try {
+            in = FileUtils.openInputStream(new File(configFilePath));
+            StAXOMBuilder builder = new StAXOMBuilder(in);
+            OMElement databaseElement = builder.getDocumentElement().getFirstChildWithName(new QName("Database"));
+            String databaseURL = databaseElement.getFirstChildWithName(new QName("URL")).getText();
+            String databaseUser = databaseElement.getFirstChildWithName(new QName("Username")).getText();
+            String databasePass = databaseElement.getFirstChildWithName(new QName("Password")).getText();
+            String databaseDriver = databaseElement.getFirstChildWithName(new QName("Driver")).getText();
+
+            BasicDataSource basicDataSource = new BasicDataSource();
+            basicDataSource.setDriverClassName(databaseDriver);
+            basicDataSource.setUrl(databaseURL);
+            basicDataSource.setUsername(databaseUser);
+            basicDataSource.setPassword(databasePass);
+
+            // Create initial context
+            System.setProperty(Context.INITIAL_CONTEXT_FACTORY,
+                    "org.apache.naming.java.javaURLContextFactory");
+            System.setProperty(Context.URL_PKG_PREFIXES,
+                    "org.apache.naming");
+            try {
+                InitialContext.doLookup("java:/comp/env/jdbc/WSO2AM_DB");
+            } catch (NamingException e) {
+                InitialContext ic = new InitialContext();
+                ic.createSubcontext("java:");
+                ic.createSubcontext("java:/comp");
+                ic.createSubcontext("java:/comp/env");
+                ic.createSubcontext("java:/comp/env/jdbc");
+
+                ic.bind("java:/comp/env/jdbc/WSO2AM_DB", basicDataSource);
+            }
+        } catch (XMLStreamException e) {
+            throw new XMLStreamException("Unexpected error in processing XML");
+        } catch (IOException e) {
+            throw new IOException("Error in processing the APIManagerDBConfiguration file ");
+        } catch (NamingException e) {
+            throw new NamingException("Error in database Username and Password");
+        }
+    }
+
+    @Test
+    public void testGetAllApisOfDeployment() throws Exception {
+
+        String name = "SubValidationAPI" + UUID.randomUUID().toString().replace("-", "");
+        String apiUUID = UUID.randomUUID().toString();
+        String revisionUUID = UUID.randomUUID().toString();
+        try (Connection connection = APIMgtDBUtil.getConnection()) {
+            int apiId = addApi(connection, apiUUID, name, "1.0.0");
+            addApi(connection, UUID.randomUUID().toString(), name, "2.0.0");
+            execute(connection, "INSERT INTO AM_API_DEFAULT_VERSION (API_NAME, API_PROVIDER, DEFAULT_API_VERSION, " +
+                    "PUBLISHED_DEFAULT_API_VERSION) VALUES ('" + name + "', 'admin', '1.0.0', '1.0.0')");
+            execute(connection, "INSERT INTO AM_REVISION (ID, API_UUID, REVISION_UUID) VALUES (1, '" + apiUUID +
+                    "', '" + revisionUUID + "')");
+            execute(connection, "INSERT INTO AM_DEPLOYMENT_REVISION_MAPPING (NAME, REVISION_UUID) VALUES " +
+                    "('Production', '" + revisionUUID + "')");
+            int getMappingId = addUrlMapping(connection, apiId, "GET", "/pets", revisionUUID);
+            addUrlMapping(connection, apiId, "POST", "/pets", revisionUUID);
+            // URL mapping of the working copy, which is not deployed
+            addUrlMapping(connection, apiId, "DELETE", "/pets", null);
+            execute(connection, "INSERT INTO AM_API_RESOURCE_SCOPE_MAPPING (SCOPE_NAME, URL_MAPPING_ID, TENANT_ID) " +
+                    "VALUES ('read', " + getMappingId + ", -1234)");
+            execute(connection, "INSERT INTO AM_API_RESOURCE_SCOPE_MAPPING (SCOPE_NAME, URL_MAPPING_ID, TENANT_ID) " +
+                    "VALUES ('view', " + getMappingId + ", -1234)");
+        }
+
+        Assert.assertNotNull(findApi(subscriptionValidationDAO.getAllApis(
+                MultitenantConstants.SUPER_TENANT_DOMAIN_NAME, "Production"), apiUUID));
+        Assert.assertNull(findApi(subscriptionValidationDAO.getAllApis(
+                MultitenantConstants.SUPER_TENANT_DOMAIN_NAME, "Sandbox"), apiUUID));
+        Assert.assertNull(findApi(subscriptionValidationDAO.getAllApis("wso2.com", "Production"), apiUUID));
+
+        API api = findApi(subscriptionValidationDAO.getAllApis(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME),
+                apiUUID);
+        Assert.assertNotNull(api);
+        Assert.assertTrue(api.isDefaultVersion());
+        Assert.assertEquals("Production", api.getEnvironment());
+        Assert.assertEquals(revisionUUID, api.getRevision());
+        Assert.assertEquals(2, api.getAllResources().size());
+        URLMapping getResource = api.getResource("/pets", "GET");
+        Assert.assertEquals(2, getResource.getScopes().size());
+        Assert.assertTrue(getResource.getScopes().contains("read"));
+        Assert.assertTrue(getResource.getScopes().contains("view"));
+        Assert.assertTrue(api.getResource("/pets", "POST").getScopes().isEmpty());
+        Assert.assertNull(api.getResource("/pets", "DELETE"));
+    }
+
+    @Test
+    public void testGetAllApiPoliciesWithConditions() throws Exception {
+
+        String policyName = "SubValidationPolicy" + UUID.randomUUID().toString().replace("-", "");
+        try (Connection connection = APIMgtDBUtil.getConnection()) {
+            execute(connection, "INSERT INTO AM_API_THROTTLE_POLICY (NAME, TENANT_ID, DEFAULT_QUOTA_TYPE, " +
+                    "DEFAULT_QUOTA, DEFAULT_UNIT_TIME, DEFAULT_TIME_UNIT, APPLICABLE_LEVEL) VALUES ('" + policyName +
+                    "', -1234, 'requestCount', 100, 1, 'min', 'apiLevel')");
+            int policyId = getId(connection, "SELECT POLICY_ID FROM AM_API_THROTTLE_POLICY WHERE NAME = '" +
+                    policyName + "'");
+            execute(connection, "INSERT INTO AM_CONDITION_GROUP (POLICY_ID, QUOTA_TYPE, QUOTA, UNIT_TIME, " +
+                    "TIME_UNIT) VALUES (" + policyId + ", 'requestCount', 10, 1, 'min')");
+            int conditionGroupId = getId(connection, "SELECT CONDITION_GROUP_ID FROM AM_CONDITION_GROUP WHERE " +
+                    "POLICY_ID = " + policyId);
+            execute(connection, "INSERT INTO AM_HEADER_FIELD_CONDITION (CONDITION_GROUP_ID, HEADER_FIELD_NAME, " +
+                    "HEADER_FIELD_VALUE, IS_HEADER_FIELD_MAPPING) VALUES (" + conditionGroupId +
+                    ", 'Host', 'localhost', TRUE)");
+            execute(connection, "INSERT INTO AM_IP_CONDITION (CONDITION_GROUP_ID, SPECIFIC_IP, WITHIN_IP_RANGE) " +
+                    "VALUES (" + conditionGroupId + ", '127.0.0.1', FALSE)");
+        }
+
+        APIPolicy apiPolicy = null;
+        for (APIPolicy policy : subscriptionValidationDAO.getAllApiPolicies()) {
+            if (policyName.equals(policy.getName())) {
+                apiPolicy = policy;
+            }
+        }
+        Assert.assertNotNull(apiPolicy);
+        Assert.assertEquals(1, apiPolicy.getConditionGroups().size());
+        APIPolicyConditionGroup conditionGroup = apiPolicy.getConditionGroups().get(0);
+        List<ConditionDTO> conditions = conditionGroup.getConditionDTOS();
+        Assert.assertEquals(2, conditions.size());
+        Assert.assertEquals(PolicyConstants.IP_SPECIFIC_TYPE, conditions.get(0).getConditionType());
+        Assert.assertEquals("127.0.0.1", conditions.get(0).getConditionValue());
+        Assert.assertFalse(conditions.get(0).isInverted());
+        Assert.assertEquals(PolicyConstants.HEADER_TYPE, conditions.get(1).getConditionType());
+        Assert.assertEquals("Host", conditions.get(1).getConditionName());
+        Assert.assertEquals("localhost", conditions.get(1).getConditionValue());
+        Assert.assertTrue(conditions.get(1).isInverted());
+
+        APIPolicy policyByName = subscriptionValidationDAO.getApiPolicyByNameForTenant(policyName,
+                MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+        Assert.assertNotNull(policyByName);
+        Assert.assertEquals(2, policyByName.getConditionGroups().get(0).getConditionDTOS().size());
+    }
+
+    private static API findApi(List<API> apis, String apiUUID) {
+
+        for (API api : apis) {
+            if (apiUUID.equals(api.getApiUUID())) {
+                return api;
+            }
+        }
+        return null;
+    }
+
+    private static int addApi(Connection connection, String apiUUID, String name, String version)
+            throws SQLException {
+
+        execute(connection, "INSERT INTO AM_API (API_UUID, API_PROVIDER, API_NAME, API_VERSION, CONTEXT, " +
+                "API_TIER, API_TYPE) VALUES ('" + apiUUID + "', 'admin', '" + name + "', '" + version + "', '/" +
+                name + "/" + version + "', 'Unlimited', 'HTTP')");
+        return getId(connection, "SELECT API_ID FROM AM_API WHERE API_UUID = '" + apiUUID + "'");
+    }
+
+    private static int addUrlMapping(Connection connection, int apiId, String httpMethod, String urlPattern,
+                                     String revisionUUID) throws SQLException {
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement("INSERT INTO AM_API_URL_MAPPING " +
+                "(API_ID, HTTP_METHOD, AUTH_SCHEME, URL_PATTERN, THROTTLING_TIER, REVISION_UUID) VALUES " +
+                "(?, ?, 'Any', ?, 'Unlimited', ?)", Statement.RETURN_GENERATED_KEYS)) {
+            preparedStatement.setInt(1, apiId);
+            preparedStatement.setString(2, httpMethod);
+            preparedStatement.setString(3, urlPattern);
+            preparedStatement.setString(4, revisionUUID);
+            preparedStatement.executeUpdate();
+            try (ResultSet generatedKeys = preparedStatement.getGeneratedKeys()) {
+                generatedKeys.next();
+                return generatedKeys.getInt(1);
+            }
+        }
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(sql);
+        }
+    }
+
+    private static int getId(Connection connection, String sql) throws SQLException {
+
+        try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.impl.jwt;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.wso2.carbon.apimgt.common.gateway.dto.JWKSConfigurationDTO;
+import org.wso2.carbon.apimgt.common.gateway.dto.TokenIssuerDto;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class JWKSKeyRegistryTest {
+
+    private HttpServer server;
+    private KeyPair keyPair;
+    private final AtomicInteger fetchCount = new AtomicInteger();
+    private volatile String cacheControl;
+    private String jwksEndpoint;
+
+    @Before
+    public void setUp() throws Exception {
+
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        keyPair = keyPairGenerator.generateKeyPair();
+        String jwks = new JWKSet(new RSAKey.Builder((RSAPublicKey) keyPair.getPublic()).keyID("kid1").build())
+                .toString();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/jwks", exchange -> {
+            fetchCount.incrementAndGet();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (cacheControl != null) {
+                exchange.getResponseHeaders().add("Cache-Control", cacheControl);
+            }
+            byte[] response = jwks.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(response);
+            }
+        });
+        server.createContext("/failing", exchange -> {
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+        });
+        server.start();
+        JWKSKeyRegistry.startRefreshExecutor();
+        jwksEndpoint = "http://localhost:" + server.getAddress().getPort() + "/jwks";
+    }
+
+    @After
+    public void tearDown() {
+
+        JWKSKeyRegistry.stopRefreshExecutor();
+        server.stop(0);
+    }
+
+    private JWKSKeyRegistry createRegistry() {
+
+        return createRegistry(jwksEndpoint);
+    }
+
+    private static JWKSKeyRegistry createRegistry(String jwksEndpoint) {
+
+        return new JWKSKeyRegistry(jwksEndpoint) {
+            @Override
+            protected CloseableHttpClient getHttpClient(URL url) {
+
+                return HttpClients.createDefault();
+            }
+        };
+    }
+
+    @Test
+    public void testVerifierIsCached() throws Exception {
+
+        JWKSKeyRegistry registry = createRegistry();
+        SignedJWT signedJWT = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID("kid1").build(),
+                new JWTClaimsSet.Builder().subject("admin").build());
+        signedJWT.sign(new RSASSASigner((RSAPrivateKey) keyPair.getPrivate()));
+
+        JWSVerifier verifier = registry.getVerifier("kid1");
+        Assert.assertNotNull(verifier);
+        Assert.assertTrue(signedJWT.verify(verifier));
+        Assert.assertSame(verifier, registry.getVerifier("kid1"));
+        Assert.assertEquals(1, fetchCount.get());
+    }
+
+    @Test
+    public void testUnknownKeyDoesNotFetchOnEveryCall() throws Exception {
+
+        JWKSKeyRegistry registry = createRegistry();
+        Assert.assertNotNull(registry.getVerifier("kid1"));
+        for (int i = 0; i < 100; i++) {
+            Assert.assertNull(registry.getVerifier("unknown" + i % 3));
+        }
+        Assert.assertEquals(1, fetchCount.get());
+    }
+
+    @Test
+    public void testConcurrentFetchesAreMerged() throws Exception {
+
+        JWKSKeyRegistry registry = createRegistry();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        AtomicInteger found = new AtomicInteger();
+        for (int i = 0; i < 10; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    if (registry.getVerifier("kid1") != null) {
+                        found.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    Assert.fail(e.getMessage());
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(10, found.get());
+        Assert.assertEquals(1, fetchCount.get());
+    }
+
+    @Test
+    public void testRefreshAfterMaxAge() throws Exception {
+
+        cacheControl = "public, max-age=0";
+        JWKSKeyRegistry registry = createRegistry();
+        JWSVerifier verifier = registry.getVerifier("kid1");
+        Assert.assertNotNull(verifier);
+        // Served from the known keys while the key set is refreshed in the background
+        Assert.assertSame(verifier, registry.getVerifier("kid1"));
+        for (int i = 0; i < 50 && fetchCount.get() < 2; i++) {
+            Thread.sleep(20);
+        }
+        Assert.assertEquals(2, fetchCount.get());
+    }
+
+    @Test
+    public void testRefreshRunsOnCallingThreadWithoutExecutor() throws Exception {
+
+        JWKSKeyRegistry.stopRefreshExecutor();
+        cacheControl = "public, max-age=0";
+        JWKSKeyRegistry registry = createRegistry();
+        Assert.assertNotNull(registry.getVerifier("kid1"));
+        Assert.assertNotNull(registry.getVerifier("kid1"));
+        Assert.assertEquals(2, fetchCount.get());
+    }
+
+    @Test
+    public void testSignatureIsRejectedWhenKeySetIsNotAvailable() throws Exception {
+
+        String failingEndpoint = "http://localhost:" + server.getAddress().getPort() + "/failing";
+        JWKSKeyRegistry registry = createRegistry(failingEndpoint);
+        JWKSConfigurationDTO jwksConfigurationDTO = new JWKSConfigurationDTO();
+        jwksConfigurationDTO.setEnabled(true);
+        jwksConfigurationDTO.setUrl(failingEndpoint);
+        TokenIssuerDto tokenIssuerDto = new TokenIssuerDto("https://localhost:9443/oauth2/token");
+        tokenIssuerDto.setJwksConfigurationDTO(jwksConfigurationDTO);
+        JWTValidatorImpl validator = new JWTValidatorImpl() {
+            @Override
+            protected JWKSKeyRegistry getJWKSKeyRegistry() {
+
+                return registry;
+            }
+        };
+        validator.tokenIssuer = tokenIssuerDto;
+        SignedJWT signedJWT = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID("kid1").build(),
+                new JWTClaimsSet.Builder().subject("admin").build());
+        signedJWT.sign(new RSASSASigner((RSAPrivateKey) keyPair.getPrivate()));
+
+        // The failed fetch, and the time after it in which the key set is not fetched again
+        Assert.assertFalse(validator.validateSignature(signedJWT));
+        Assert.assertFalse(validator.validateSignature(signedJWT));
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.impl.jwt;
+
+import com.nimbusds.jwt.JWTClaimsSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Date;
+
+public class VerifiedJWTSignatureCacheTest {
+
+    private static final String ISSUER = "https://localhost:9443/oauth2/token";
+    private static final String KEY = "key1";
+
+    private static SignedJWTInfo getSignedJWTInfo(String token, String jti, long expiresInMillis) {
+
+        JWTClaimsSet claimsSet = new JWTClaimsSet.Builder().jwtID(jti)
+                .expirationTime(new Date(System.currentTimeMillis() + expiresInMillis)).build();
+        return new SignedJWTInfo(token, null, claimsSet);
+    }
+
+    @Test
+    public void testVerifiedTokenIsCached() {
+
+        VerifiedJWTSignatureCache cache = new VerifiedJWTSignatureCache(true, 100, 60);
+        SignedJWTInfo signedJWTInfo = getSignedJWTInfo("header.payload.signature", "jti1", 60000);
+
+        Assert.assertFalse(cache.isVerified(signedJWTInfo, ISSUER, KEY));
+        cache.putVerified(signedJWTInfo, "jti1", ISSUER, KEY);
+        Assert.assertTrue(cache.isVerified(signedJWTInfo, ISSUER, KEY));
+        // A token with the same claims and a different signature is not verified
+        Assert.assertFalse(cache.isVerified(getSignedJWTInfo("header.payload.other", "jti1", 60000), ISSUER,
+                KEY));
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(2, cache.getMissCount());
+        Assert.assertEquals(1.0 / 3, cache.getHitRatio(), 0.0001);
+    }
+
+    @Test
+    public void testExpiredTokenIsNotCached() {
+
+        VerifiedJWTSignatureCache cache = new VerifiedJWTSignatureCache(true, 100, 60);
+        SignedJWTInfo signedJWTInfo = getSignedJWTInfo("header.payload.signature", "jti1", -1000);
+
+        cache.putVerified(signedJWTInfo, "jti1", ISSUER, KEY);
+        Assert.assertFalse(cache.isVerified(signedJWTInfo, ISSUER, KEY));
+    }
+
+    @Test
+    public void testEntryIsKeptUntilTokenExpiry() throws InterruptedException {
+
+        VerifiedJWTSignatureCache cache = new VerifiedJWTSignatureCache(true, 100, 60);
+        SignedJWTInfo signedJWTInfo = getSignedJWTInfo("header.payload.signature", "jti1", 200);
+
+        cache.putVerified(signedJWTInfo, "jti1", ISSUER, KEY);
+        Assert.assertTrue(cache.isVerified(signedJWTInfo, ISSUER, KEY));
+        Thread.sleep(300);
+        Assert.assertFalse(cache.isVerified(signedJWTInfo, ISSUER, KEY));
+    }
+
+    @Test
+    public void testRevokedTokenIsInvalidated() {
+
+        VerifiedJWTSignatureCache cache = new VerifiedJWTSignatureCache(true, 100, 60);
+        SignedJWTInfo revoked = getSignedJWTInfo("header.payload.signature1", "jti1", 60000);
+        SignedJWTInfo other = getSignedJWTInfo("header.payload.signature2", "jti2", 60000);
+        cache.putVerified(revoked, "jti1", ISSUER, KEY);
+        cache.putVerified(other, "jti2", ISSUER, KEY);
+
+        cache.invalidate("jti1");
+        Assert.assertFalse(cache.isVerified(revoked, ISSUER, KEY));
+        Assert.assertTrue(cache.isVerified(other, ISSUER, KEY));
+
+        cache.invalidateAll();
+        Assert.assertFalse(cache.isVerified(other, ISSUER, KEY));
+    }
+
+    @Test
+    public void testDisabledCache() {
+
+        VerifiedJWTSignatureCache cache = new VerifiedJWTSignatureCache(false, 100, 60);
+        SignedJWTInfo signedJWTInfo = getSignedJWTInfo("header.payload.signature", "jti1", 60000);
+
+        cache.putVerified(signedJWTInfo, "jti1", ISSUER, KEY);
+        Assert.assertFalse(cache.isEnabled());
+        Assert.assertFalse(cache.isVerified(signedJWTInfo, ISSUER, KEY));
+        Assert.assertEquals(0, cache.getMissCount());
+    }
+
+    @Test
+    public void testTokenIsVerifiedAgainWhenKeyChanges() {
+
+        VerifiedJWTSignatureCache cache = new VerifiedJWTSignatureCache(true, 100, 60);
+        SignedJWTInfo signedJWTInfo = getSignedJWTInfo("header.payload.signature", "jti1", 60000);
+        cache.putVerified(signedJWTInfo, "jti1", ISSUER, KEY);
+
+        Assert.assertFalse(cache.isVerified(signedJWTInfo, ISSUER, "key2"));
+        Assert.assertFalse(cache.isVerified(signedJWTInfo, ISSUER, null));
+        Assert.assertFalse(cache.isVerified(signedJWTInfo, "https://other/token", KEY));
+        Assert.assertTrue(cache.isVerified(signedJWTInfo, ISSUER, KEY));
+
+        cache.invalidateIssuer(ISSUER);
+        Assert.assertFalse(cache.isVerified(signedJWTInfo, ISSUER, KEY));
+    }
+}
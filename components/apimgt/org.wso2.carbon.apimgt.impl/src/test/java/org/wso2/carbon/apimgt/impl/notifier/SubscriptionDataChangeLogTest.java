@@ -0,0 +1,307 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.impl.notifier;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.wso2.carbon.apimgt.api.APIManagementException;
+import org.wso2.carbon.apimgt.impl.APIConstants;
+import org.wso2.carbon.apimgt.impl.dao.SubscriptionDataChangeDAO;
+import org.wso2.carbon.apimgt.impl.notifier.events.ApplicationEvent;
+import org.wso2.carbon.apimgt.impl.notifier.events.ApplicationRegistrationEvent;
+import org.wso2.carbon.apimgt.impl.notifier.events.Event;
+import org.wso2.carbon.apimgt.impl.notifier.events.SubscriptionEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+public class SubscriptionDataChangeLogTest {
+
+    private static final String TENANT_DOMAIN = "carbon.super";
+    private static final long RETENTION_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private static SubscriptionEvent getSubscriptionEvent(String tenantDomain, int apiId, int applicationId) {
+
+        return new SubscriptionEvent(UUID.randomUUID().toString(), System.currentTimeMillis(),
+                APIConstants.EventType.SUBSCRIPTIONS_CREATE.name(), -1234, tenantDomain, 1, apiId, applicationId,
+                "Unlimited", APIConstants.SubscriptionStatus.UNBLOCKED);
+    }
+
+    private static ApplicationEvent getApplicationEvent(int applicationId) {
+
+        return new ApplicationEvent(UUID.randomUUID().toString(), System.currentTimeMillis(),
+                APIConstants.EventType.APPLICATION_CREATE.name(), -1234, TENANT_DOMAIN, applicationId,
+                UUID.randomUUID().toString(), "app" + applicationId, "JWT", "Unlimited", null, null, "admin");
+    }
+
+    @Test
+    public void testChangesAfterSequence() {
+
+        InMemorySubscriptionDataChangeDAO changeDAO = new InMemorySubscriptionDataChangeDAO();
+        SubscriptionDataChangeLog changeLog = new SubscriptionDataChangeLog(changeDAO, 0, RETENTION_MILLIS);
+        long sequence = changeLog.getSequence(TENANT_DOMAIN);
+        Assert.assertEquals(0, sequence);
+        changeLog.record(getSubscriptionEvent(TENANT_DOMAIN, 1, 1));
+        changeLog.record(getApplicationEvent(2));
+        changeLog.record(getSubscriptionEvent("wso2.com", 1, 3));
+        changeLog.record(new ApplicationRegistrationEvent(UUID.randomUUID().toString(), System.currentTimeMillis(),
+                APIConstants.EventType.APPLICATION_REGISTRATION_CREATE.name(), -1234, TENANT_DOMAIN, 2, "key",
+                "PRODUCTION", "Resident Key Manager"));
+        changeLog.record(getSubscriptionEvent(TENANT_DOMAIN, 1, 2));
+
+        SubscriptionDataChangeLog.Changes<SubscriptionEvent> changes =
+                changeLog.getChanges(TENANT_DOMAIN, changeLog.getEpoch(), sequence, SubscriptionEvent.class);
+        Assert.assertNotNull(changes);
+        Assert.assertEquals(2, changes.getEvents().size());
+        Assert.assertEquals(1, changes.getEvents().get(0).getApplicationId());
+        Assert.assertEquals(2, changes.getEvents().get(1).getApplicationId());
+        Assert.assertEquals(5, changes.getSequence());
+
+        changes = changeLog.getChanges(TENANT_DOMAIN, changeLog.getEpoch(), changes.getSequence(),
+                SubscriptionEvent.class);
+        Assert.assertNotNull(changes);
+        Assert.assertTrue(changes.getEvents().isEmpty());
+
+        SubscriptionDataChangeLog.Changes<ApplicationEvent> applicationChanges =
+                changeLog.getChanges(TENANT_DOMAIN, changeLog.getEpoch(), sequence, ApplicationEvent.class);
+        Assert.assertEquals(1, applicationChanges.getEvents().size());
+        SubscriptionDataChangeLog.Changes<ApplicationRegistrationEvent> keyMappingChanges =
+                changeLog.getChanges(TENANT_DOMAIN, changeLog.getEpoch(), sequence,
+                        ApplicationRegistrationEvent.class);
+        Assert.assertEquals(1, keyMappingChanges.getEvents().size());
+        Assert.assertEquals("key", keyMappingChanges.getEvents().get(0).getConsumerKey());
+    }
+
+    @Test
+    public void testChangesRecordedByAnotherNodeAreReturned() {
+
+        // Both logs use the same table, as the control plane nodes do
+        InMemorySubscriptionDataChangeDAO changeDAO = new InMemorySubscriptionDataChangeDAO();
+        SubscriptionDataChangeLog changeLog = new SubscriptionDataChangeLog(changeDAO, 0, RETENTION_MILLIS);
+        SubscriptionDataChangeLog otherChangeLog = new SubscriptionDataChangeLog(changeDAO, 0, RETENTION_MILLIS);
+        changeLog.record(getSubscriptionEvent(TENANT_DOMAIN, 1, 1));
+        long sequence = changeLog.getSequence(TENANT_DOMAIN);
+        otherChangeLog.record(getSubscriptionEvent(TENANT_DOMAIN, 1, 2));
+
+        SubscriptionDataChangeLog.Changes<SubscriptionEvent> changes =
+                changeLog.getChanges(TENANT_DOMAIN, changeLog.getEpoch(), sequence, SubscriptionEvent.class);
+        Assert.assertNotNull(changes);
+        Assert.assertEquals(1, changes.getEvents().size());
+        Assert.assertEquals(2, changes.getEvents().get(0).getApplicationId());
+    }
+
+    @Test
+    public void testRecentChangesAreReturnedAgain() {
+
+        InMemorySubscriptionDataChangeDAO changeDAO = new InMemorySubscriptionDataChangeDAO();
+        SubscriptionDataChangeLog changeLog = new SubscriptionDataChangeLog(changeDAO, TimeUnit.MINUTES.toMillis(1),
+                RETENTION_MILLIS);
+        changeLog.record(getSubscriptionEvent(TENANT_DOMAIN, 1, 1));
+        changeDAO.age(TimeUnit.MINUTES.toMillis(2));
+        long sequence = changeLog.getSequence(TENANT_DOMAIN);
+        Assert.assertEquals(1, sequence);
+        changeLog.record(getSubscriptionEvent(TENANT_DOMAIN, 1, 2));
+
+        // A change with a lower sequence number may still be committed, so the sequence does not move past it
+        SubscriptionDataChangeLog.Changes<SubscriptionEvent> changes =
+                changeLog.getChanges(TENANT_DOMAIN, changeLog.getEpoch(), sequence, SubscriptionEvent.class);
+        Assert.assertNotNull(changes);
+        Assert.assertEquals(1, changes.getEvents().size());
+        Assert.assertEquals(sequence, changes.getSequence());
+
+        changeDAO.age(TimeUnit.MINUTES.toMillis(2));
+        changes = changeLog.getChanges(TENANT_DOMAIN, changeLog.getEpoch(), sequence, SubscriptionEvent.class);
+        Assert.assertNotNull(changes);
+        Assert.assertEquals(1, changes.getEvents().size());
+        Assert.assertEquals(2, changes.getSequence());
+    }
+
+    @Test
+    public void testChangesOfAnotherEpochAreNotAvailable() {
+
+        SubscriptionDataChangeLog changeLog =
+                new SubscriptionDataChangeLog(new InMemorySubscriptionDataChangeDAO(), 0, RETENTION_MILLIS);
+        changeLog.record(getSubscriptionEvent(TENANT_DOMAIN, 1, 1));
+
+        Assert.assertNull(changeLog.getChanges(TENANT_DOMAIN, null, 0, SubscriptionEvent.class));
+        Assert.assertNull(changeLog.getChanges(TENANT_DOMAIN, UUID.randomUUID().toString(), 0,
+                SubscriptionEvent.class));
+        // A sequence number ahead of the log was issued by a log which is gone
+        Assert.assertNull(changeLog.getChanges(TENANT_DOMAIN, changeLog.getEpoch(), 5, SubscriptionEvent.class));
+    }
+
+    @Test
+    public void testDeletedChangesAreNotAvailable() {
+
+        InMemorySubscriptionDataChangeDAO changeDAO = new InMemorySubscriptionDataChangeDAO();
+        SubscriptionDataChangeLog changeLog = new SubscriptionDataChangeLog(changeDAO, 0, RETENTION_MILLIS);
+        changeLog.record(getSubscriptionEvent(TENANT_DOMAIN, 1, 1));
+        changeLog.record(getSubscriptionEvent(TENANT_DOMAIN, 1, 2));
+        changeLog.record(getSubscriptionEvent(TENANT_DOMAIN, 1, 3));
+        changeDAO.age(RETENTION_MILLIS * 2);
+        // The next cleanup runs with the next change recorded after an hour
+        new SubscriptionDataChangeLog(changeDAO, 0, RETENTION_MILLIS).record(getSubscriptionEvent(TENANT_DOMAIN,
+                1, 4));
+
+        Assert.assertNull(changeLog.getChanges(TENANT_DOMAIN, changeLog.getEpoch(), 2, SubscriptionEvent.class));
+        SubscriptionDataChangeLog.Changes<SubscriptionEvent> changes =
+                changeLog.getChanges(TENANT_DOMAIN, changeLog.getEpoch(), 3, SubscriptionEvent.class);
+        Assert.assertNotNull(changes);
+        Assert.assertEquals(1, changes.getEvents().size());
+        Assert.assertEquals(4, changes.getSequence());
+    }
+
+    @Test
+    public void testLastChangeIsNotDeleted() {
+
+        InMemorySubscriptionDataChangeDAO changeDAO = new InMemorySubscriptionDataChangeDAO();
+        SubscriptionDataChangeLog changeLog = new SubscriptionDataChangeLog(changeDAO, 0, 0);
+        changeLog.record(getSubscriptionEvent(TENANT_DOMAIN, 1, 1));
+        changeDAO.age(1);
+        new SubscriptionDataChangeLog(changeDAO, 0, 0).record(getApplicationEvent(1));
+
+        // The sequence number issued before the cleanup is still within the log
+        Assert.assertEquals(1, changeDAO.changes.size());
+        SubscriptionDataChangeLog.Changes<SubscriptionEvent> changes =
+                changeLog.getChanges(TENANT_DOMAIN, changeLog.getEpoch(), 1, SubscriptionEvent.class);
+        Assert.assertNotNull(changes);
+        Assert.assertTrue(changes.getEvents().isEmpty());
+    }
+
+    @Test
+    public void testDisabledLogHasNoChanges() {
+
+        InMemorySubscriptionDataChangeDAO changeDAO = new InMemorySubscriptionDataChangeDAO();
+        SubscriptionDataChangeLog changeLog = new SubscriptionDataChangeLog(changeDAO, 0, RETENTION_MILLIS);
+        Assert.assertTrue(changeLog.isEnabled());
+        changeLog.setEnabled(false);
+        long sequence = changeLog.getSequence(TENANT_DOMAIN);
+        changeLog.record(getSubscriptionEvent(TENANT_DOMAIN, 1, 1));
+        Assert.assertNull(changeLog.getChanges(TENANT_DOMAIN, changeLog.getEpoch(), sequence,
+                SubscriptionEvent.class));
+        Assert.assertTrue(changeDAO.changes.isEmpty());
+    }
+
+    @Test
+    public void testFailureToReadChangesRequiresFullLoad() {
+
+        InMemorySubscriptionDataChangeDAO changeDAO = new InMemorySubscriptionDataChangeDAO();
+        SubscriptionDataChangeLog changeLog = new SubscriptionDataChangeLog(changeDAO, 0, RETENTION_MILLIS);
+        changeLog.record(getSubscriptionEvent(TENANT_DOMAIN, 1, 1));
+        changeDAO.failing = true;
+
+        Assert.assertNull(changeLog.getChanges(TENANT_DOMAIN, changeLog.getEpoch(), 0, SubscriptionEvent.class));
+    }
+
+    /**
+     * Keeps the changes in memory, numbered as the table numbers them.
+     */
+    private static class InMemorySubscriptionDataChangeDAO extends SubscriptionDataChangeDAO {
+
+        private final List<StoredChange> changes = new ArrayList<>();
+        private long sequence;
+        private boolean failing;
+
+        /**
+         * Makes the stored changes older, as if the time passed.
+         */
+        void age(long millis) {
+
+            for (StoredChange change : changes) {
+                change.createdTime -= millis;
+            }
+        }
+
+        @Override
+        public void addChange(Event event, long createdTime) {
+
+            changes.add(new StoredChange(++sequence, createdTime, event));
+        }
+
+        @Override
+        public <T extends Event> List<T> getChanges(String tenantDomain, long since, Class<T> eventType)
+                throws APIManagementException {
+
+            checkFailure();
+            List<T> events = new ArrayList<>();
+            for (StoredChange change : changes) {
+                if (change.sequence > since && tenantDomain.equals(change.event.getTenantDomain())
+                        && eventType.isInstance(change.event)) {
+                    events.add(eventType.cast(change.event));
+                }
+            }
+            return events;
+        }
+
+        @Override
+        public SequenceRange getSequenceRange() throws APIManagementException {
+
+            checkFailure();
+            if (changes.isEmpty()) {
+                return null;
+            }
+            return new SequenceRange(changes.get(0).sequence, changes.get(changes.size() - 1).sequence);
+        }
+
+        @Override
+        public long getMaxSequenceCreatedBefore(long createdTime)
+                throws APIManagementException {
+
+            checkFailure();
+            long max = -1;
+            for (StoredChange change : changes) {
+                if (change.createdTime <= createdTime) {
+                    max = Math.max(max, change.sequence);
+                }
+            }
+            return max;
+        }
+
+        @Override
+        public int deleteChanges(long createdTime, long sequenceBefore) {
+
+            int size = changes.size();
+            changes.removeIf(change -> change.createdTime < createdTime && change.sequence < sequenceBefore);
+            return size - changes.size();
+        }
+
+        private void checkFailure() throws APIManagementException {
+
+            if (failing) {
+                throw new APIManagementException("Database is not available");
+            }
+        }
+    }
+
+    private static class StoredChange {
+
+        private final long sequence;
+        private long createdTime;
+        private final Event event;
+
+        StoredChange(long sequence, long createdTime, Event event) {
+
+            this.sequence = sequence;
+            this.createdTime = createdTime;
+            this.event = event;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.impl.ranking;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.wso2.carbon.apimgt.impl.APIConstants;
+import org.wso2.carbon.apimgt.impl.notifier.events.APIEvent;
+import org.wso2.carbon.apimgt.impl.notifier.events.SubscriptionEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+
+public class APIRankingIndexTest {
+
+    private static final String TENANT_DOMAIN = "carbon.super";
+    private static final String OTHER_TENANT_DOMAIN = "wso2.com";
+
+    private APIRankingIndex rankingIndex;
+
+    private static APIRankingIndex.RankedAPI getRankedAPI(int apiId, String provider, long createdTime, String status,
+                                                          float averageRating, int subscriptionCount) {
+
+        return new APIRankingIndex.RankedAPI(apiId, "uuid" + apiId, provider, "API" + apiId, "1.0.0", "HTTP",
+                createdTime, status, averageRating, subscriptionCount);
+    }
+
+    private static List<Integer> getApiIds(List<APIRankingIndex.RankedAPI> rankedAPIs) {
+
+        List<Integer> apiIds = new ArrayList<>();
+        for (APIRankingIndex.RankedAPI rankedAPI : rankedAPIs) {
+            apiIds.add(rankedAPI.getApiId());
+        }
+        return apiIds;
+    }
+
+    private static List<Integer> getApiIds(Iterator<APIRankingIndex.RankedAPI> rankedAPIs) {
+
+        List<Integer> apiIds = new ArrayList<>();
+        while (rankedAPIs.hasNext()) {
+            apiIds.add(rankedAPIs.next().getApiId());
+        }
+        return apiIds;
+    }
+
+    private static APIEvent getAPIEvent(APIConstants.EventType type, int apiId, String status) {
+
+        return new APIEvent(UUID.randomUUID().toString(), 4000, type.name(), -1234, TENANT_DOMAIN, "API" + apiId,
+                apiId, "uuid" + apiId, "1.0.0", "HTTP", "/api" + apiId, "admin", status);
+    }
+
+    private static SubscriptionEvent getSubscriptionEvent(APIConstants.EventType type, int apiId) {
+
+        return new SubscriptionEvent(UUID.randomUUID().toString(), System.currentTimeMillis(), type.name(), -1234,
+                TENANT_DOMAIN, 1, apiId, 1, "Gold", "UNBLOCKED");
+    }
+
+    @Before
+    public void setUp() {
+
+        rankingIndex = new APIRankingIndex(APIRankingIndex.DEFAULT_REFRESH_INTERVAL_MILLIS, Runnable::run);
+        rankingIndex.rebuild(Arrays.asList(
+                getRankedAPI(1, "admin", 1000, "PUBLISHED", 3.5f, 2),
+                getRankedAPI(2, "admin", 3000, "PUBLISHED", 4.5f, 0),
+                getRankedAPI(3, "admin", 2000, "PUBLISHED", 4.0f, 5),
+                getRankedAPI(4, "admin", 5000, "CREATED", 5.0f, 9),
+                getRankedAPI(5, "admin@wso2.com", 6000, "PUBLISHED", 5.0f, 1)));
+    }
+
+    @Test
+    public void testPublishedAPIsAreRankedPerTenant() {
+
+        Assert.assertTrue(rankingIndex.isLoaded());
+        Assert.assertEquals(Arrays.asList(2, 3, 1), getApiIds(rankingIndex.getTopRated(TENANT_DOMAIN, 10)));
+        Assert.assertEquals(Arrays.asList(2, 3), getApiIds(rankingIndex.getTopRated(TENANT_DOMAIN, 2)));
+        Assert.assertEquals(Arrays.asList(2, 3, 1), getApiIds(rankingIndex.getRecentlyAdded(TENANT_DOMAIN, 10)));
+        Assert.assertEquals(Arrays.asList(3, 1, 2), getApiIds(rankingIndex.getMostSubscribed(TENANT_DOMAIN, 10)));
+        Assert.assertEquals(Arrays.asList(5), getApiIds(rankingIndex.getTopRated(OTHER_TENANT_DOMAIN, 10)));
+        Assert.assertTrue(rankingIndex.getTopRated("unknown.com", 10).isEmpty());
+    }
+
+    @Test
+    public void testRatingUpdate() {
+
+        rankingIndex.updateRating(TENANT_DOMAIN, 1, 4.8f);
+        Assert.assertEquals(Arrays.asList(1, 2, 3), getApiIds(rankingIndex.getTopRated(TENANT_DOMAIN, 10)));
+        // An API of another tenant is not updated
+        rankingIndex.updateRating(OTHER_TENANT_DOMAIN, 2, 1.0f);
+        Assert.assertEquals(Arrays.asList(1, 2, 3), getApiIds(rankingIndex.getTopRated(TENANT_DOMAIN, 10)));
+    }
+
+    @Test
+    public void testLifecycleChanges() {
+
+        rankingIndex.onEvent(getAPIEvent(APIConstants.EventType.API_LIFECYCLE_CHANGE, 4, "Published"));
+        Assert.assertEquals(Arrays.asList(4, 2, 3, 1), getApiIds(rankingIndex.getRecentlyAdded(TENANT_DOMAIN, 10)));
+
+        rankingIndex.onEvent(getAPIEvent(APIConstants.EventType.API_LIFECYCLE_CHANGE, 2, "Deprecated"));
+        Assert.assertEquals(Arrays.asList(4, 3, 1), getApiIds(rankingIndex.getRecentlyAdded(TENANT_DOMAIN, 10)));
+
+        rankingIndex.onEvent(getAPIEvent(APIConstants.EventType.API_CREATE, 6, "CREATED"));
+        rankingIndex.onEvent(getAPIEvent(APIConstants.EventType.API_LIFECYCLE_CHANGE, 6, "PUBLISHED"));
+        Assert.assertEquals(Arrays.asList(4, 6, 3, 1), getApiIds(rankingIndex.getRecentlyAdded(TENANT_DOMAIN, 10)));
+
+        rankingIndex.onEvent(getAPIEvent(APIConstants.EventType.API_DELETE, 4, "PUBLISHED"));
+        Assert.assertEquals(Arrays.asList(6, 3, 1), getApiIds(rankingIndex.getRecentlyAdded(TENANT_DOMAIN, 10)));
+    }
+
+    @Test
+    public void testSubscriptionChanges() {
+
+        for (int i = 0; i < 4; i++) {
+            rankingIndex.onEvent(getSubscriptionEvent(APIConstants.EventType.SUBSCRIPTIONS_CREATE, 2));
+        }
+        Assert.assertEquals(Arrays.asList(3, 2, 1), getApiIds(rankingIndex.getMostSubscribed(TENANT_DOMAIN, 10)));
+
+        for (int i = 0; i < 3; i++) {
+            rankingIndex.onEvent(getSubscriptionEvent(APIConstants.EventType.SUBSCRIPTIONS_DELETE, 1));
+        }
+        Assert.assertEquals(0, rankingIndex.getMostSubscribed(TENANT_DOMAIN, 10).get(2).getSubscriptionCount());
+    }
+
+    @Test
+    public void testEventsBeforeLoadingAreIgnored() {
+
+        APIRankingIndex notLoaded = new APIRankingIndex(APIRankingIndex.DEFAULT_REFRESH_INTERVAL_MILLIS, Runnable::run);
+        notLoaded.onEvent(getAPIEvent(APIConstants.EventType.API_CREATE, 7, "PUBLISHED"));
+
+        Assert.assertFalse(notLoaded.isLoaded());
+        Assert.assertTrue(notLoaded.getRecentlyAdded(TENANT_DOMAIN, 10).isEmpty());
+    }
+
+    @Test
+    public void testIterationContinuesAfterTheFirstBatch() {
+
+        List<APIRankingIndex.RankedAPI> apis = new ArrayList<>();
+        List<Integer> expectedApiIds = new ArrayList<>();
+        for (int apiId = 1; apiId <= 50; apiId++) {
+            apis.add(getRankedAPI(apiId, "admin", apiId, "PUBLISHED", apiId <= 45 ? 4.0f : 0, 0));
+            expectedApiIds.add(0, apiId);
+        }
+        rankingIndex.rebuild(apis);
+
+        Assert.assertEquals(expectedApiIds, getApiIds(rankingIndex.iterateRecentlyAdded(TENANT_DOMAIN)));
+        // The iteration ends at the first API not rated above the minimum
+        Assert.assertEquals(45, getApiIds(rankingIndex.iterateTopRated(TENANT_DOMAIN, 0)).size());
+        Assert.assertFalse(rankingIndex.iterateTopRated(OTHER_TENANT_DOMAIN, 0).hasNext());
+    }
+
+    @Test
+    public void testStaleIndexIsLoadedInTheBackground() {
+
+        List<Runnable> tasks = new ArrayList<>();
+        APIRankingIndex staleIndex = new APIRankingIndex(0, tasks::add);
+        staleIndex.rebuild(Arrays.asList(getRankedAPI(1, "admin", 1000, "PUBLISHED", 3.5f, 2)));
+
+        Assert.assertTrue(staleIndex.refreshIfStale());
+        Assert.assertTrue(staleIndex.refreshIfStale());
+        // Only one load is scheduled at a time, and the callers keep reading the current content meanwhile
+        Assert.assertEquals(1, tasks.size());
+        Assert.assertEquals(Arrays.asList(1), getApiIds(staleIndex.getTopRated(TENANT_DOMAIN, 10)));
+    }
+}
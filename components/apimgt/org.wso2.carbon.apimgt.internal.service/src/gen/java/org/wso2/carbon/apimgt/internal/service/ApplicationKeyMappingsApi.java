@@ -44,7 +44,7 @@ ApplicationKeyMappingsApiService delegate = new ApplicationKeyMappingsApiService
     @ApiResponses(value = { 
         @ApiResponse(code = 200, message = "An array of application key mappings in the database", response = ApplicationKeyMappingListDTO.class),
         @ApiResponse(code = 200, message = "Unexpected error", response = ErrorDTO.class) })
-    public Response applicationKeyMappingsGet(@ApiParam(value = "This is used to specify the tenant domain, where the resource need to be   retrieved from. " ,required=true)@HeaderParam("xWSO2Tenant") String xWSO2Tenant,  @ApiParam(value = "**Search condition**.  Consumer Key of the application ")  @QueryParam("consumerKey") String consumerKey,  @ApiParam(value = "**Search condition**.  KeyManager associated to consumer_key of the application ")  @QueryParam("keymanager") String keymanager) throws APIManagementException{
-        return delegate.applicationKeyMappingsGet(xWSO2Tenant, consumerKey, keymanager, securityContext);
+    public Response applicationKeyMappingsGet(@ApiParam(value = "This is used to specify the tenant domain, where the resource need to be   retrieved from. " ,required=true)@HeaderParam("xWSO2Tenant") String xWSO2Tenant,  @ApiParam(value = "**Search condition**.  Consumer Key of the application ")  @QueryParam("consumerKey") String consumerKey,  @ApiParam(value = "**Search condition**.  KeyManager associated to consumer_key of the application ")  @QueryParam("keymanager") String keymanager,  @ApiParam(value = "Sequence number of the last change the caller has. When given, only the entries changed after it are   returned, unless the changes are no longer available, in which case all the entries are returned. ")  @QueryParam("since") Long since,  @ApiParam(value = "Epoch of the change log the `since` sequence number was issued by. ")  @QueryParam("epoch") String epoch) throws APIManagementException{
+        return delegate.applicationKeyMappingsGet(xWSO2Tenant, consumerKey, keymanager, since, epoch, securityContext);
     }
 }
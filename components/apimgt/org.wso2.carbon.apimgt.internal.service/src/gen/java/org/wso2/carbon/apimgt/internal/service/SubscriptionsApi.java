@@ -44,7 +44,7 @@ SubscriptionsApiService delegate = new SubscriptionsApiServiceImpl();
     @ApiResponses(value = { 
         @ApiResponse(code = 200, message = "An array of subscriptions in the database", response = SubscriptionListDTO.class),
         @ApiResponse(code = 200, message = "Unexpected error", response = ErrorDTO.class) })
-    public Response subscriptionsGet(@ApiParam(value = "This is used to specify the tenant domain, where the resource need to be   retrieved from. " ,required=true)@HeaderParam("xWSO2Tenant") String xWSO2Tenant,  @ApiParam(value = "**Search condition**.   Api ID  of the subscription ")  @QueryParam("apiId") Integer apiId,  @ApiParam(value = "**Search condition**.   Application ID  of the subscription ")  @QueryParam("appId") Integer appId) throws APIManagementException{
-        return delegate.subscriptionsGet(xWSO2Tenant, apiId, appId, securityContext);
+    public Response subscriptionsGet(@ApiParam(value = "This is used to specify the tenant domain, where the resource need to be   retrieved from. " ,required=true)@HeaderParam("xWSO2Tenant") String xWSO2Tenant,  @ApiParam(value = "**Search condition**.   Api ID  of the subscription ")  @QueryParam("apiId") Integer apiId,  @ApiParam(value = "**Search condition**.   Application ID  of the subscription ")  @QueryParam("appId") Integer appId,  @ApiParam(value = "Sequence number of the last change the caller has. When given, only the entries changed after it are   returned, unless the changes are no longer available, in which case all the entries are returned. ")  @QueryParam("since") Long since,  @ApiParam(value = "Epoch of the change log the `since` sequence number was issued by. ")  @QueryParam("epoch") String epoch) throws APIManagementException{
+        return delegate.subscriptionsGet(xWSO2Tenant, apiId, appId, since, epoch, securityContext);
     }
 }
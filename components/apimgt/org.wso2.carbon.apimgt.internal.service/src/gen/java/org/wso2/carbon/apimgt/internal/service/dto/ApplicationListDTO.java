@@ -23,6 +23,10 @@ public class ApplicationListDTO   {
     private Integer count = null;
     private List<ApplicationDTO> list = new ArrayList<>();
     private PaginationDTO pagination = null;
+    private String epoch = null;
+    private Long sequence = null;
+    private Boolean delta = null;
+    private List<ApplicationDTO> removed = new ArrayList<>();
 
   /**
    * Number of Applications returned. 
@@ -76,6 +80,78 @@ public class ApplicationListDTO   {
     this.pagination = pagination;
   }
 
+  /**
+   * Epoch of the change log the sequence number belongs to.
+   **/
+  public ApplicationListDTO epoch(String epoch) {
+    this.epoch = epoch;
+    return this;
+  }
+
+  
+  @ApiModelProperty(value = "Epoch of the change log the sequence number belongs to. ")
+  @JsonProperty("epoch")
+  public String getEpoch() {
+    return epoch;
+  }
+  public void setEpoch(String epoch) {
+    this.epoch = epoch;
+  }
+
+  /**
+   * Sequence number of the last change included in the response.
+   **/
+  public ApplicationListDTO sequence(Long sequence) {
+    this.sequence = sequence;
+    return this;
+  }
+
+  
+  @ApiModelProperty(value = "Sequence number of the last change included in the response. ")
+  @JsonProperty("sequence")
+  public Long getSequence() {
+    return sequence;
+  }
+  public void setSequence(Long sequence) {
+    this.sequence = sequence;
+  }
+
+  /**
+   * Whether the list only has the entries changed after the requested sequence number.
+   **/
+  public ApplicationListDTO delta(Boolean delta) {
+    this.delta = delta;
+    return this;
+  }
+
+  
+  @ApiModelProperty(value = "Whether the list only has the entries changed after the requested sequence number. ")
+  @JsonProperty("delta")
+  public Boolean isDelta() {
+    return delta;
+  }
+  public void setDelta(Boolean delta) {
+    this.delta = delta;
+  }
+
+  /**
+   * Entries removed after the requested sequence number, when the response is a delta.
+   **/
+  public ApplicationListDTO removed(List<ApplicationDTO> removed) {
+    this.removed = removed;
+    return this;
+  }
+
+  
+  @ApiModelProperty(value = "Entries removed after the requested sequence number, when the response is a delta. ")
+  @JsonProperty("removed")
+  public List<ApplicationDTO> getRemoved() {
+    return removed;
+  }
+  public void setRemoved(List<ApplicationDTO> removed) {
+    this.removed = removed;
+  }
+
 
   @Override
   public boolean equals(java.lang.Object o) {
@@ -88,12 +164,16 @@ public class ApplicationListDTO   {
     ApplicationListDTO applicationList = (ApplicationListDTO) o;
     return Objects.equals(count, applicationList.count) &&
         Objects.equals(list, applicationList.list) &&
-        Objects.equals(pagination, applicationList.pagination);
+        Objects.equals(pagination, applicationList.pagination) &&
+        Objects.equals(epoch, applicationList.epoch) &&
+        Objects.equals(sequence, applicationList.sequence) &&
+        Objects.equals(delta, applicationList.delta) &&
+        Objects.equals(removed, applicationList.removed);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(count, list, pagination);
+    return Objects.hash(count, list, pagination, epoch, sequence, delta, removed);
   }
 
   @Override
@@ -104,6 +184,10 @@ public class ApplicationListDTO   {
     sb.append("    count: ").append(toIndentedString(count)).append("\n");
     sb.append("    list: ").append(toIndentedString(list)).append("\n");
     sb.append("    pagination: ").append(toIndentedString(pagination)).append("\n");
+    sb.append("    epoch: ").append(toIndentedString(epoch)).append("\n");
+    sb.append("    sequence: ").append(toIndentedString(sequence)).append("\n");
+    sb.append("    delta: ").append(toIndentedString(delta)).append("\n");
+    sb.append("    removed: ").append(toIndentedString(removed)).append("\n");
     sb.append("}");
     return sb.toString();
   }
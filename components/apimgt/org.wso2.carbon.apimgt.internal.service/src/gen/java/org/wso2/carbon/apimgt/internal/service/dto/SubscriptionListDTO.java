@@ -23,6 +23,10 @@ public class SubscriptionListDTO   {
     private Integer count = null;
     private List<SubscriptionDTO> list = new ArrayList<>();
     private PaginationDTO pagination = null;
+    private String epoch = null;
+    private Long sequence = null;
+    private Boolean delta = null;
+    private List<SubscriptionDTO> removed = new ArrayList<>();
 
   /**
    * Number of Subscriptions returned. 
@@ -76,6 +80,78 @@ public class SubscriptionListDTO   {
     this.pagination = pagination;
   }
 
+  /**
+   * Epoch of the change log the sequence number belongs to.
+   **/
+  public SubscriptionListDTO epoch(String epoch) {
+    this.epoch = epoch;
+    return this;
+  }
+
+  
+  @ApiModelProperty(value = "Epoch of the change log the sequence number belongs to. ")
+  @JsonProperty("epoch")
+  public String getEpoch() {
+    return epoch;
+  }
+  public void setEpoch(String epoch) {
+    this.epoch = epoch;
+  }
+
+  /**
+   * Sequence number of the last change included in the response.
+   **/
+  public SubscriptionListDTO sequence(Long sequence) {
+    this.sequence = sequence;
+    return this;
+  }
+
+  
+  @ApiModelProperty(value = "Sequence number of the last change included in the response. ")
+  @JsonProperty("sequence")
+  public Long getSequence() {
+    return sequence;
+  }
+  public void setSequence(Long sequence) {
+    this.sequence = sequence;
+  }
+
+  /**
+   * Whether the list only has the entries changed after the requested sequence number.
+   **/
+  public SubscriptionListDTO delta(Boolean delta) {
+    this.delta = delta;
+    return this;
+  }
+
+  
+  @ApiModelProperty(value = "Whether the list only has the entries changed after the requested sequence number. ")
+  @JsonProperty("delta")
+  public Boolean isDelta() {
+    return delta;
+  }
+  public void setDelta(Boolean delta) {
+    this.delta = delta;
+  }
+
+  /**
+   * Entries removed after the requested sequence number, when the response is a delta.
+   **/
+  public SubscriptionListDTO removed(List<SubscriptionDTO> removed) {
+    this.removed = removed;
+    return this;
+  }
+
+  
+  @ApiModelProperty(value = "Entries removed after the requested sequence number, when the response is a delta. ")
+  @JsonProperty("removed")
+  public List<SubscriptionDTO> getRemoved() {
+    return removed;
+  }
+  public void setRemoved(List<SubscriptionDTO> removed) {
+    this.removed = removed;
+  }
+
 
   @Override
   public boolean equals(java.lang.Object o) {
@@ -88,12 +164,16 @@ public class SubscriptionListDTO   {
     SubscriptionListDTO subscriptionList = (SubscriptionListDTO) o;
     return Objects.equals(count, subscriptionList.count) &&
         Objects.equals(list, subscriptionList.list) &&
-        Objects.equals(pagination, subscriptionList.pagination);
+        Objects.equals(pagination, subscriptionList.pagination) &&
+        Objects.equals(epoch, subscriptionList.epoch) &&
+        Objects.equals(sequence, subscriptionList.sequence) &&
+        Objects.equals(delta, subscriptionList.delta) &&
+        Objects.equals(removed, subscriptionList.removed);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(count, list, pagination);
+    return Objects.hash(count, list, pagination, epoch, sequence, delta, removed);
   }
 
   @Override
@@ -104,6 +184,10 @@ public class SubscriptionListDTO   {
     sb.append("    count: ").append(toIndentedString(count)).append("\n");
     sb.append("    list: ").append(toIndentedString(list)).append("\n");
     sb.append("    pagination: ").append(toIndentedString(pagination)).append("\n");
+    sb.append("    epoch: ").append(toIndentedString(epoch)).append("\n");
+    sb.append("    sequence: ").append(toIndentedString(sequence)).append("\n");
+    sb.append("    delta: ").append(toIndentedString(delta)).append("\n");
+    sb.append("    removed: ").append(toIndentedString(removed)).append("\n");
     sb.append("}");
     return sb.toString();
   }
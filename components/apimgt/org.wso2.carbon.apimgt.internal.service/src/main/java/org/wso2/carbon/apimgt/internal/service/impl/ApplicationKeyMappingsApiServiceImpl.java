@@ -21,20 +21,30 @@ package org.wso2.carbon.apimgt.internal.service.impl;
 import org.apache.commons.lang3.StringUtils;
 import org.wso2.carbon.apimgt.api.APIManagementException;
 import org.wso2.carbon.apimgt.api.model.subscription.ApplicationKeyMapping;
+import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.wso2.carbon.apimgt.impl.dao.SubscriptionValidationDAO;
+import org.wso2.carbon.apimgt.impl.notifier.SubscriptionDataChangeLog;
+import org.wso2.carbon.apimgt.impl.notifier.events.ApplicationRegistrationEvent;
 import org.wso2.carbon.apimgt.internal.service.ApplicationKeyMappingsApiService;
 import org.apache.cxf.jaxrs.ext.MessageContext;
+import org.wso2.carbon.apimgt.internal.service.dto.ApplicationKeyMappingDTO;
+import org.wso2.carbon.apimgt.internal.service.dto.ApplicationKeyMappingListDTO;
+import org.wso2.carbon.apimgt.internal.service.utils.StreamingListOutput;
 import org.wso2.carbon.apimgt.internal.service.utils.SubscriptionValidationDataUtil;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
 public class ApplicationKeyMappingsApiServiceImpl implements ApplicationKeyMappingsApiService {
 
     @Override
-    public Response applicationKeyMappingsGet(String xWSO2Tenant, String consumerKey, String keymanager,
-                                              MessageContext messageContext) throws APIManagementException {
+    public Response applicationKeyMappingsGet(String xWSO2Tenant, String consumerKey, String keymanager, Long since,
+                                              String epoch, MessageContext messageContext)
+            throws APIManagementException {
 
         SubscriptionValidationDAO subscriptionValidationDAO = new SubscriptionValidationDAO();
         xWSO2Tenant = SubscriptionValidationDataUtil.validateTenantDomain(xWSO2Tenant, messageContext);
@@ -50,11 +60,62 @@ public class ApplicationKeyMappingsApiServiceImpl implements ApplicationKeyMappi
                     fromApplicationKeyMappingToApplicationKeyMappingListDTO(applicationKeyMappings)).build();
         }
         if (StringUtils.isNotEmpty(xWSO2Tenant)) {
-            return Response.ok().entity(SubscriptionValidationDataUtil.
-                    fromApplicationKeyMappingToApplicationKeyMappingListDTO(subscriptionValidationDAO.
-                            getAllApplicationKeyMappings(xWSO2Tenant))).build();
+            SubscriptionDataChangeLog changeLog = SubscriptionDataChangeLog.getInstance();
+            if (since != null) {
+                SubscriptionDataChangeLog.Changes<ApplicationRegistrationEvent> changes =
+                        changeLog.getChanges(xWSO2Tenant, epoch, since, ApplicationRegistrationEvent.class);
+                if (changes != null) {
+                    return Response.ok().entity(getChangedApplicationKeyMappings(changes, xWSO2Tenant,
+                            subscriptionValidationDAO)).build();
+                }
+            }
+            long sequence = changeLog.getSequence(xWSO2Tenant);
+            String tenantDomain = xWSO2Tenant;
+            return Response.ok(new StreamingListOutput<>(changeLog.getEpoch(), sequence,
+                    consumer -> subscriptionValidationDAO.forEachApplicationKeyMapping(tenantDomain, consumer),
+                    SubscriptionValidationDataUtil::fromApplicationKeyMappingToApplicationKeyMappingDTO),
+                    MediaType.APPLICATION_JSON).build();
 
         }
         return null;
     }
+
+    private ApplicationKeyMappingListDTO getChangedApplicationKeyMappings(
+            SubscriptionDataChangeLog.Changes<ApplicationRegistrationEvent> changes, String tenantDomain,
+            SubscriptionValidationDAO subscriptionValidationDAO) {
+
+        // Only the latest change of a key mapping matters, as its current state is read from the database
+        Map<String, ApplicationRegistrationEvent> latestChanges = new LinkedHashMap<>();
+        for (ApplicationRegistrationEvent event : changes.getEvents()) {
+            String key = event.getConsumerKey() + ":" + event.getKeyManager();
+            latestChanges.remove(key);
+            latestChanges.put(key, event);
+        }
+        List<ApplicationKeyMapping> changedKeyMappings = new ArrayList<>();
+        List<ApplicationKeyMappingDTO> removedKeyMappings = new ArrayList<>();
+        for (ApplicationRegistrationEvent event : latestChanges.values()) {
+            ApplicationKeyMapping keyMapping = null;
+            if (!APIConstants.EventType.REMOVE_APPLICATION_KEYMAPPING.name().equals(event.getType())) {
+                keyMapping = subscriptionValidationDAO.getApplicationKeyMapping(event.getConsumerKey(),
+                        event.getKeyManager(), tenantDomain);
+            }
+            if (keyMapping != null) {
+                changedKeyMappings.add(keyMapping);
+            } else {
+                ApplicationKeyMappingDTO applicationKeyMappingDTO = new ApplicationKeyMappingDTO();
+                applicationKeyMappingDTO.setApplicationId(event.getApplicationId());
+                applicationKeyMappingDTO.setConsumerKey(event.getConsumerKey());
+                applicationKeyMappingDTO.setKeyType(event.getKeyType());
+                applicationKeyMappingDTO.setKeyManager(event.getKeyManager());
+                removedKeyMappings.add(applicationKeyMappingDTO);
+            }
+        }
+        ApplicationKeyMappingListDTO applicationKeyMappingListDTO = SubscriptionValidationDataUtil.
+                fromApplicationKeyMappingToApplicationKeyMappingListDTO(changedKeyMappings);
+        applicationKeyMappingListDTO.setRemoved(removedKeyMappings);
+        applicationKeyMappingListDTO.setEpoch(SubscriptionDataChangeLog.getInstance().getEpoch());
+        applicationKeyMappingListDTO.setSequence(changes.getSequence());
+        applicationKeyMappingListDTO.setDelta(true);
+        return applicationKeyMappingListDTO;
+    }
 }
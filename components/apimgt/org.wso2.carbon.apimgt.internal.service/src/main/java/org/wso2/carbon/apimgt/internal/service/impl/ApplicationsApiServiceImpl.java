@@ -21,17 +21,28 @@ package org.wso2.carbon.apimgt.internal.service.impl;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.cxf.jaxrs.ext.MessageContext;
 import org.wso2.carbon.apimgt.api.model.subscription.Application;
+import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.wso2.carbon.apimgt.impl.dao.SubscriptionValidationDAO;
+import org.wso2.carbon.apimgt.impl.notifier.SubscriptionDataChangeLog;
+import org.wso2.carbon.apimgt.impl.notifier.events.ApplicationEvent;
 import org.wso2.carbon.apimgt.internal.service.ApplicationsApiService;
+import org.wso2.carbon.apimgt.internal.service.dto.ApplicationDTO;
+import org.wso2.carbon.apimgt.internal.service.dto.ApplicationListDTO;
+import org.wso2.carbon.apimgt.internal.service.utils.StreamingListOutput;
 import org.wso2.carbon.apimgt.internal.service.utils.SubscriptionValidationDataUtil;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
 public class ApplicationsApiServiceImpl implements ApplicationsApiService {
 
     @Override
-    public Response applicationsGet(String xWSO2Tenant, Integer appId, MessageContext messageContext) {
+    public Response applicationsGet(String xWSO2Tenant, Integer appId, Long since, String epoch,
+                                    MessageContext messageContext) {
 
         SubscriptionValidationDAO subscriptionValidationDAO = new SubscriptionValidationDAO();
         if (appId != null && appId > 0) {
@@ -41,11 +52,56 @@ public class ApplicationsApiServiceImpl implements ApplicationsApiService {
         }
         xWSO2Tenant = SubscriptionValidationDataUtil.validateTenantDomain(xWSO2Tenant, messageContext);
         if (StringUtils.isNotEmpty(xWSO2Tenant)) {
-            return Response.ok().entity(SubscriptionValidationDataUtil.fromApplicationToApplicationListDTO(
-                    subscriptionValidationDAO.getAllApplications(xWSO2Tenant)))
+            SubscriptionDataChangeLog changeLog = SubscriptionDataChangeLog.getInstance();
+            if (since != null) {
+                SubscriptionDataChangeLog.Changes<ApplicationEvent> changes =
+                        changeLog.getChanges(xWSO2Tenant, epoch, since, ApplicationEvent.class);
+                if (changes != null) {
+                    return Response.ok().entity(getChangedApplications(changes, subscriptionValidationDAO)).build();
+                }
+            }
+            long sequence = changeLog.getSequence(xWSO2Tenant);
+            String tenantDomain = xWSO2Tenant;
+            return Response.ok(new StreamingListOutput<>(changeLog.getEpoch(), sequence,
+                    consumer -> subscriptionValidationDAO.forEachApplication(tenantDomain, consumer),
+                    SubscriptionValidationDataUtil::fromApplicationToApplicationDTO), MediaType.APPLICATION_JSON)
                     .build();
         }
         return Response.ok().entity(SubscriptionValidationDataUtil.fromApplicationToApplicationListDTO(
                 subscriptionValidationDAO.getAllApplications())).build();
     }
+
+    private ApplicationListDTO getChangedApplications(SubscriptionDataChangeLog.Changes<ApplicationEvent> changes,
+                                                      SubscriptionValidationDAO subscriptionValidationDAO) {
+
+        // Only the latest change of an application matters, as its current state is read from the database
+        Map<Integer, ApplicationEvent> latestChanges = new LinkedHashMap<>();
+        for (ApplicationEvent event : changes.getEvents()) {
+            latestChanges.remove(event.getApplicationId());
+            latestChanges.put(event.getApplicationId(), event);
+        }
+        List<Application> changedApplications = new ArrayList<>();
+        List<ApplicationDTO> removedApplications = new ArrayList<>();
+        for (ApplicationEvent event : latestChanges.values()) {
+            List<Application> applications = null;
+            if (!APIConstants.EventType.APPLICATION_DELETE.name().equals(event.getType())) {
+                applications = subscriptionValidationDAO.getApplicationById(event.getApplicationId());
+            }
+            if (applications != null && !applications.isEmpty()) {
+                changedApplications.addAll(applications);
+            } else {
+                ApplicationDTO applicationDTO = new ApplicationDTO();
+                applicationDTO.setId(event.getApplicationId());
+                applicationDTO.setUuid(event.getUuid());
+                removedApplications.add(applicationDTO);
+            }
+        }
+        ApplicationListDTO applicationListDTO =
+                SubscriptionValidationDataUtil.fromApplicationToApplicationListDTO(changedApplications);
+        applicationListDTO.setRemoved(removedApplications);
+        applicationListDTO.setEpoch(SubscriptionDataChangeLog.getInstance().getEpoch());
+        applicationListDTO.setSequence(changes.getSequence());
+        applicationListDTO.setDelta(true);
+        return applicationListDTO;
+    }
 }
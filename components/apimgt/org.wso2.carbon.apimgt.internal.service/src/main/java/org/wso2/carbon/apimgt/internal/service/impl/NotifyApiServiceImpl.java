@@ -5,6 +5,7 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.cxf.jaxrs.ext.MessageContext;
 import org.json.JSONObject;
 import org.wso2.carbon.apimgt.api.APIManagementException;
+import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.wso2.carbon.apimgt.internal.service.NotifyApiService;
 import org.wso2.carbon.apimgt.notification.NotificationEventService;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
@@ -26,7 +27,11 @@ public class NotifyApiServiceImpl implements NotifyApiService {
                     (NotificationEventService) PrivilegedCarbonContext.getThreadLocalCarbonContext()
                             .getOSGiService(NotificationEventService.class, new Hashtable<>());
             Map<String, List<String>> requestHeaders = messageContext.getHttpHeaders().getRequestHeaders();
-            notificationEventService.processEvent(xWSO2KEYManager, body, requestHeaders);
+            if (notificationEventService.processEvent(xWSO2KEYManager, body, requestHeaders)) {
+                // Lets the senders of newer event types tell whether the event was handled
+                return Response.ok().header(APIConstants.Webhooks.EVENT_HANDLED_HEADER, Boolean.TRUE.toString())
+                        .build();
+            }
             return Response.ok().build();
         } catch (APIManagementException e) {
             log.error("Error while processing notification", e);
@@ -20,19 +20,29 @@ package org.wso2.carbon.apimgt.internal.service.impl;
 
 import org.apache.commons.lang3.StringUtils;
 import org.wso2.carbon.apimgt.api.model.subscription.Subscription;
+import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.wso2.carbon.apimgt.impl.dao.SubscriptionValidationDAO;
+import org.wso2.carbon.apimgt.impl.notifier.SubscriptionDataChangeLog;
+import org.wso2.carbon.apimgt.impl.notifier.events.SubscriptionEvent;
 import org.wso2.carbon.apimgt.internal.service.*;
 import org.apache.cxf.jaxrs.ext.MessageContext;
+import org.wso2.carbon.apimgt.internal.service.dto.SubscriptionDTO;
+import org.wso2.carbon.apimgt.internal.service.dto.SubscriptionListDTO;
+import org.wso2.carbon.apimgt.internal.service.utils.StreamingListOutput;
 import org.wso2.carbon.apimgt.internal.service.utils.SubscriptionValidationDataUtil;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
 public class SubscriptionsApiServiceImpl implements SubscriptionsApiService {
 
     @Override
-    public Response subscriptionsGet(String xWSO2Tenant, Integer apiId, Integer appId, MessageContext messageContext) {
+    public Response subscriptionsGet(String xWSO2Tenant, Integer apiId, Integer appId, Long since, String epoch,
+                                     MessageContext messageContext) {
 
         SubscriptionValidationDAO subscriptionValidationDAO = new SubscriptionValidationDAO();
         List<Subscription> subscriptionList = new ArrayList<>();
@@ -45,11 +55,59 @@ public class SubscriptionsApiServiceImpl implements SubscriptionsApiService {
             return Response.ok().entity(
                     SubscriptionValidationDataUtil.fromSubscriptionToSubscriptionListDTO(subscriptionList)).build();
         } else if (StringUtils.isNotEmpty(xWSO2Tenant)) {
-            return Response.ok().entity(SubscriptionValidationDataUtil.fromSubscriptionToSubscriptionListDTO(
-                    subscriptionValidationDAO.getAllSubscriptions(xWSO2Tenant))).build();
+            SubscriptionDataChangeLog changeLog = SubscriptionDataChangeLog.getInstance();
+            if (since != null) {
+                SubscriptionDataChangeLog.Changes<SubscriptionEvent> changes =
+                        changeLog.getChanges(xWSO2Tenant, epoch, since, SubscriptionEvent.class);
+                if (changes != null) {
+                    return Response.ok().entity(getChangedSubscriptions(changes, subscriptionValidationDAO)).build();
+                }
+            }
+            long sequence = changeLog.getSequence(xWSO2Tenant);
+            String tenantDomain = xWSO2Tenant;
+            return Response.ok(new StreamingListOutput<>(changeLog.getEpoch(), sequence,
+                    consumer -> subscriptionValidationDAO.forEachSubscription(tenantDomain, consumer),
+                    SubscriptionValidationDataUtil::fromSubscriptionToSubscriptionDTO), MediaType.APPLICATION_JSON)
+                    .build();
         }
         return Response.ok().entity(SubscriptionValidationDataUtil.fromSubscriptionToSubscriptionListDTO(
                 subscriptionValidationDAO.getAllSubscriptions())).build();
 
     }
+
+    private SubscriptionListDTO getChangedSubscriptions(SubscriptionDataChangeLog.Changes<SubscriptionEvent> changes,
+                                                        SubscriptionValidationDAO subscriptionValidationDAO) {
+
+        // Only the latest change of a subscription matters, as its current state is read from the database
+        Map<String, SubscriptionEvent> latestChanges = new LinkedHashMap<>();
+        for (SubscriptionEvent event : changes.getEvents()) {
+            String key = event.getApiId() + ":" + event.getApplicationId();
+            latestChanges.remove(key);
+            latestChanges.put(key, event);
+        }
+        List<Subscription> changedSubscriptions = new ArrayList<>();
+        List<SubscriptionDTO> removedSubscriptions = new ArrayList<>();
+        for (SubscriptionEvent event : latestChanges.values()) {
+            Subscription subscription = null;
+            if (!APIConstants.EventType.SUBSCRIPTIONS_DELETE.name().equals(event.getType())) {
+                subscription = subscriptionValidationDAO.getSubscription(event.getApiId(), event.getApplicationId());
+            }
+            if (subscription != null) {
+                changedSubscriptions.add(subscription);
+            } else {
+                SubscriptionDTO subscriptionDTO = new SubscriptionDTO();
+                subscriptionDTO.setSubscriptionId(event.getSubscriptionId());
+                subscriptionDTO.setApiId(event.getApiId());
+                subscriptionDTO.setAppId(event.getApplicationId());
+                removedSubscriptions.add(subscriptionDTO);
+            }
+        }
+        SubscriptionListDTO subscriptionListDTO =
+                SubscriptionValidationDataUtil.fromSubscriptionToSubscriptionListDTO(changedSubscriptions);
+        subscriptionListDTO.setRemoved(removedSubscriptions);
+        subscriptionListDTO.setEpoch(SubscriptionDataChangeLog.getInstance().getEpoch());
+        subscriptionListDTO.setSequence(changes.getSequence());
+        subscriptionListDTO.setDelta(true);
+        return subscriptionListDTO;
+    }
 }
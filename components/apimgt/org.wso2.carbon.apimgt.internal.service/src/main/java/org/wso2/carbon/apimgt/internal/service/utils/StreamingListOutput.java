@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.apimgt.internal.service.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.apimgt.api.APIManagementException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import javax.ws.rs.core.StreamingOutput;
+
+/**
+ * Writes a full list of subscription data entries, in the format of the list DTOs, while the entries are read from
+ * the database, so that the entries of a tenant are never held in memory all at once.
+ * <p>
+ * If reading the entries fails, the response is left incomplete instead of being closed as a valid but partial list,
+ * so that the caller does not mistake it for all the entries.
+ *
+ * @param <T> type of the entries read from the database
+ */
+public class StreamingListOutput<T> implements StreamingOutput {
+
+    private static final Log log = LogFactory.getLog(StreamingListOutput.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final String epoch;
+    private final long sequence;
+    private final EntrySource<T> entrySource;
+    private final Function<T, ?> toDTO;
+
+    /**
+     * @param epoch       epoch of the subscription data change log
+     * @param sequence    sequence number of the change log read before the entries
+     * @param entrySource source passing the entries to a consumer one by one
+     * @param toDTO       converter of an entry to its DTO
+     */
+    public StreamingListOutput(String epoch, long sequence, EntrySource<T> entrySource, Function<T, ?> toDTO) {
+
+        this.epoch = epoch;
+        this.sequence = sequence;
+        this.entrySource = entrySource;
+        this.toDTO = toDTO;
+    }
+
+    @Override
+    public void write(OutputStream outputStream) throws IOException {
+
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+        generator.writeStartObject();
+        generator.writeStringField("epoch", epoch);
+        generator.writeNumberField("sequence", sequence);
+        generator.writeBooleanField("delta", false);
+        generator.writeArrayFieldStart("list");
+        int[] count = new int[1];
+        try {
+            entrySource.forEach(entry -> {
+                try {
+                    generator.writeObject(toDTO.apply(entry));
+                    count[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (APIManagementException e) {
+            log.error("Error while writing the subscription data list", e);
+            throw new IOException("Error while reading the subscription data list", e);
+        }
+        generator.writeEndArray();
+        generator.writeNumberField("count", count[0]);
+        generator.writeEndObject();
+        generator.close();
+    }
+
+    /**
+     * Source of the entries of a list.
+     *
+     * @param <T> type of the entries
+     */
+    public interface EntrySource<T> {
+
+        void forEach(Consumer<T> consumer) throws APIManagementException;
+    }
+}
@@ -158,25 +158,7 @@ public class SubscriptionValidationDataUtil {
         ApplicationListDTO applicationListDTO = new ApplicationListDTO();
         if (model != null) {
             for (Application appModel : model) {
-                ApplicationDTO applicationDTO = new ApplicationDTO();
-                applicationDTO.setUuid(appModel.getUuid());
-                applicationDTO.setId(appModel.getId());
-                applicationDTO.setName(appModel.getName());
-                applicationDTO.setPolicy(appModel.getPolicy());
-                applicationDTO.setSubName(appModel.getSubName());
-                applicationDTO.setTokenType(appModel.getTokenType());
-
-                Set<String> groupIds = appModel.getGroupIds();
-                for (String grp : groupIds) {
-                    GroupIdDTO groupIdDTO = new GroupIdDTO();
-                    groupIdDTO.setApplicationId(appModel.getId());
-                    groupIdDTO.setGroupId(grp);
-                    applicationDTO.getGroupIds().add(groupIdDTO);
-                }
-
-                Map<String, String> attributes = appModel.getAttributes();
-                applicationDTO.setAttributes(attributes);
-                applicationListDTO.getList().add(applicationDTO);
+                applicationListDTO.getList().add(fromApplicationToApplicationDTO(appModel));
             }
             applicationListDTO.setCount(model.size());
 
@@ -186,20 +168,35 @@ public class SubscriptionValidationDataUtil {
         return applicationListDTO;
     }
 
+    public static ApplicationDTO fromApplicationToApplicationDTO(Application appModel) {
+
+        ApplicationDTO applicationDTO = new ApplicationDTO();
+        applicationDTO.setUuid(appModel.getUuid());
+        applicationDTO.setId(appModel.getId());
+        applicationDTO.setName(appModel.getName());
+        applicationDTO.setPolicy(appModel.getPolicy());
+        applicationDTO.setSubName(appModel.getSubName());
+        applicationDTO.setTokenType(appModel.getTokenType());
+
+        Set<String> groupIds = appModel.getGroupIds();
+        for (String grp : groupIds) {
+            GroupIdDTO groupIdDTO = new GroupIdDTO();
+            groupIdDTO.setApplicationId(appModel.getId());
+            groupIdDTO.setGroupId(grp);
+            applicationDTO.getGroupIds().add(groupIdDTO);
+        }
+
+        Map<String, String> attributes = appModel.getAttributes();
+        applicationDTO.setAttributes(attributes);
+        return applicationDTO;
+    }
+
     public static SubscriptionListDTO fromSubscriptionToSubscriptionListDTO(List<Subscription> model) {
 
         SubscriptionListDTO subscriptionListDTO = new SubscriptionListDTO();
         if (model != null) {
             for (Subscription subsModel : model) {
-                SubscriptionDTO subscriptionDTO = new SubscriptionDTO();
-                subscriptionDTO.setApiId(subsModel.getApiId());
-                subscriptionDTO.setAppId(subsModel.getAppId());
-                subscriptionDTO.setSubscriptionId(subsModel.getSubscriptionId());
-                subscriptionDTO.setPolicyId(subsModel.getPolicyId());
-                subscriptionDTO.setSubscriptionState(subsModel.getSubscriptionState());
-
-                subscriptionListDTO.getList().add(subscriptionDTO);
-
+                subscriptionListDTO.getList().add(fromSubscriptionToSubscriptionDTO(subsModel));
             }
             subscriptionListDTO.setCount(model.size());
 
@@ -209,6 +206,17 @@ public class SubscriptionValidationDataUtil {
         return subscriptionListDTO;
     }
 
+    public static SubscriptionDTO fromSubscriptionToSubscriptionDTO(Subscription subsModel) {
+
+        SubscriptionDTO subscriptionDTO = new SubscriptionDTO();
+        subscriptionDTO.setApiId(subsModel.getApiId());
+        subscriptionDTO.setAppId(subsModel.getAppId());
+        subscriptionDTO.setSubscriptionId(subsModel.getSubscriptionId());
+        subscriptionDTO.setPolicyId(subsModel.getPolicyId());
+        subscriptionDTO.setSubscriptionState(subsModel.getSubscriptionState());
+        return subscriptionDTO;
+    }
+
     public static SubscriptionPolicyListDTO fromSubscriptionPolicyToSubscriptionPolicyListDTO (
             List<SubscriptionPolicy> model) {
 
@@ -392,13 +400,8 @@ public class SubscriptionValidationDataUtil {
         ApplicationKeyMappingListDTO applicationKeyMappingListDTO = new ApplicationKeyMappingListDTO();
         if (model != null) {
             for (ApplicationKeyMapping applicationKeyMapping : model) {
-                ApplicationKeyMappingDTO applicationKeyMappingDTO = new ApplicationKeyMappingDTO();
-                applicationKeyMappingDTO.setApplicationId(applicationKeyMapping.getApplicationId());
-                applicationKeyMappingDTO.setConsumerKey(applicationKeyMapping.getConsumerKey());
-                applicationKeyMappingDTO.setKeyType(applicationKeyMapping.getKeyType());
-                applicationKeyMappingDTO.setKeyManager(applicationKeyMapping.getKeyManager());
-                applicationKeyMappingListDTO.getList().add(applicationKeyMappingDTO);
-
+                applicationKeyMappingListDTO.getList()
+                        .add(fromApplicationKeyMappingToApplicationKeyMappingDTO(applicationKeyMapping));
             }
             applicationKeyMappingListDTO.setCount(model.size());
 
@@ -408,6 +411,17 @@ public class SubscriptionValidationDataUtil {
         return applicationKeyMappingListDTO;
     }
 
+    public static ApplicationKeyMappingDTO fromApplicationKeyMappingToApplicationKeyMappingDTO(
+            ApplicationKeyMapping applicationKeyMapping) {
+
+        ApplicationKeyMappingDTO applicationKeyMappingDTO = new ApplicationKeyMappingDTO();
+        applicationKeyMappingDTO.setApplicationId(applicationKeyMapping.getApplicationId());
+        applicationKeyMappingDTO.setConsumerKey(applicationKeyMapping.getConsumerKey());
+        applicationKeyMappingDTO.setKeyType(applicationKeyMapping.getKeyType());
+        applicationKeyMappingDTO.setKeyManager(applicationKeyMapping.getKeyManager());
+        return applicationKeyMappingDTO;
+    }
+
     public static String validateTenantDomain(String xWSO2Tenant, MessageContext messageContext) {
 
         String tenantDomain = RestApiCommonUtil.getLoggedInUserTenantDomain();
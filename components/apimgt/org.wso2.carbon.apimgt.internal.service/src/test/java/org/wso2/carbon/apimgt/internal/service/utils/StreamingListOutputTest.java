@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.internal.service.utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assert;
+import org.junit.Test;
+import org.wso2.carbon.apimgt.api.APIManagementException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Test class for {@link StreamingListOutput}.
+ */
+public class StreamingListOutputTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static Map<String, Object> toDTO(Integer id) {
+
+        Map<String, Object> dto = new LinkedHashMap<>();
+        dto.put("id", id);
+        dto.put("name", id % 2 == 0 ? null : "entry" + id);
+        return dto;
+    }
+
+    @Test
+    public void testEntriesAreWrittenAsAFullList() throws Exception {
+
+        StreamingListOutput<Integer> output = new StreamingListOutput<>("1", 42,
+                consumer -> Arrays.asList(1, 2, 3).forEach(consumer), StreamingListOutputTest::toDTO);
+
+        JsonNode list = objectMapper.readTree(write(output));
+        Assert.assertEquals("1", list.get("epoch").asText());
+        Assert.assertEquals(42, list.get("sequence").asLong());
+        Assert.assertFalse(list.get("delta").asBoolean());
+        Assert.assertEquals(3, list.get("count").asInt());
+        Assert.assertEquals(3, list.get("list").size());
+        Assert.assertEquals(1, list.get("list").get(0).get("id").asInt());
+        Assert.assertEquals("entry3", list.get("list").get(2).get("name").asText());
+        Assert.assertTrue(list.get("list").get(1).get("name").isNull());
+    }
+
+    @Test
+    public void testNoEntriesAreWrittenAsAnEmptyList() throws Exception {
+
+        StreamingListOutput<Integer> output = new StreamingListOutput<>("1", 0,
+                consumer -> Collections.<Integer>emptyList().forEach(consumer), StreamingListOutputTest::toDTO);
+
+        JsonNode list = objectMapper.readTree(write(output));
+        Assert.assertEquals(0, list.get("count").asInt());
+        Assert.assertTrue(list.get("list").isArray());
+        Assert.assertEquals(0, list.get("list").size());
+    }
+
+    @Test
+    public void testFailureToReadEntriesLeavesTheListIncomplete() {
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        StreamingListOutput<Integer> output = new StreamingListOutput<>("1", 42, consumer -> {
+            consumer.accept(1);
+            throw new APIManagementException("Database is not available");
+        }, StreamingListOutputTest::toDTO);
+
+        try {
+            output.write(outputStream);
+            Assert.fail("Failure to read the entries was not reported");
+        } catch (IOException e) {
+            Assert.assertTrue(e.getCause() instanceof APIManagementException);
+        }
+        // The caller must not be able to read the entries written so far as a complete list
+        String written = new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+        Assert.assertFalse(written.contains("\"count\""));
+        Assert.assertFalse(isCompleteList(written));
+    }
+
+    @Test
+    public void testFailureToWriteEntriesIsReported() {
+
+        StreamingListOutput<Integer> output = new StreamingListOutput<>("1", 42,
+                consumer -> Arrays.asList(1, 2).forEach(consumer), StreamingListOutputTest::toDTO);
+        try {
+            output.write(new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+
+                    throw new IOException("Broken pipe");
+                }
+            });
+            Assert.fail("Failure to write the entries was not reported");
+        } catch (IOException e) {
+            Assert.assertEquals("Broken pipe", e.getMessage());
+        }
+    }
+
+    private static boolean isCompleteList(String written) {
+
+        try {
+            JsonNode list = objectMapper.readTree(written);
+            return list != null && list.has("list");
+        } catch (JsonProcessingException e) {
+            return false;
+        }
+    }
+
+    private static String write(StreamingListOutput<?> output) throws IOException {
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        output.write(outputStream);
+        return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -771,6 +771,9 @@ public class JMSTaskManager {
                     isOnExceptionError = false;
                     log.info("Reconnection attempt: " + r + " for " + jmsConsumerName +
                              " was successful!");
+                    if (messageListener instanceof JMSReconnectionListener) {
+                        ((JMSReconnectionListener) messageListener).onReconnect();
+                    }
                 }
 
 
@@ -56,4 +56,14 @@ public class SubscriptionDataHolder {
         return subscriptionStore.get(tenantDomain);
     }
 
+    /**
+     * Brings the subscription data of every tenant up to date, after events may have been missed.
+     */
+    public void synchronizeTenantSubscriptionStores() {
+
+        for (SubscriptionDataStore tenantStore : subscriptionStore.values()) {
+            tenantStore.synchronizeSubscriptionData();
+        }
+    }
+
 }
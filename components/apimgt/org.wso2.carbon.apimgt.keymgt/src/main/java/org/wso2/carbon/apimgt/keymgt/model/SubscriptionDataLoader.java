@@ -22,13 +22,17 @@ import org.wso2.carbon.apimgt.keymgt.model.entity.API;
 import org.wso2.carbon.apimgt.keymgt.model.entity.ApiPolicy;
 import org.wso2.carbon.apimgt.keymgt.model.entity.Application;
 import org.wso2.carbon.apimgt.keymgt.model.entity.ApplicationKeyMapping;
+import org.wso2.carbon.apimgt.keymgt.model.entity.ApplicationKeyMappingList;
+import org.wso2.carbon.apimgt.keymgt.model.entity.ApplicationList;
 import org.wso2.carbon.apimgt.keymgt.model.entity.ApplicationPolicy;
 import org.wso2.carbon.apimgt.keymgt.model.entity.Scope;
 import org.wso2.carbon.apimgt.keymgt.model.entity.Subscription;
+import org.wso2.carbon.apimgt.keymgt.model.entity.SubscriptionList;
 import org.wso2.carbon.apimgt.keymgt.model.entity.SubscriptionPolicy;
 import org.wso2.carbon.apimgt.keymgt.model.exception.DataLoadingException;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * This interface abstracts Data Loading operations. Interface will be consumed by
@@ -62,6 +66,57 @@ public interface SubscriptionDataLoader {
      */
     public List<ApplicationKeyMapping> loadAllKeyMappings(String tenantDomain) throws DataLoadingException;
 
+    /**
+     * Loads the subscriptions changed after a sequence number, or all subscriptions if the changes are not available.
+     * The subscriptions are passed to the consumers one by one while the response is read, instead of being collected
+     * in the returned list.
+     *
+     * @param tenantDomain tenant domain
+     * @param epoch        epoch of the sequence number, or null to load all subscriptions
+     * @param since        sequence number of the last change already loaded, or null to load all subscriptions
+     * @param changed      consumer of the changed subscriptions, or of all of them if the response is not a delta
+     * @param removed      consumer of the removed subscriptions
+     * @return the sequence number of the last change included and whether the response is a delta
+     * @throws DataLoadingException If any error
+     */
+    public SubscriptionList loadSubscriptionChanges(String tenantDomain, String epoch, Long since,
+            Consumer<Subscription> changed, Consumer<Subscription> removed)
+            throws DataLoadingException;
+
+    /**
+     * Loads the applications changed after a sequence number, or all applications if the changes are not available. The
+     * applications are passed to the consumers one by one while the response is read, instead of being collected in the
+     * returned list.
+     *
+     * @param tenantDomain tenant domain
+     * @param epoch        epoch of the sequence number, or null to load all applications
+     * @param since        sequence number of the last change already loaded, or null to load all applications
+     * @param changed      consumer of the changed applications, or of all of them if the response is not a delta
+     * @param removed      consumer of the removed applications
+     * @return the sequence number of the last change included and whether the response is a delta
+     * @throws DataLoadingException If any error
+     */
+    public ApplicationList loadApplicationChanges(String tenantDomain, String epoch, Long since,
+            Consumer<Application> changed, Consumer<Application> removed)
+            throws DataLoadingException;
+
+    /**
+     * Loads the key mappings changed after a sequence number, or all key mappings if the changes are not available. The
+     * key mappings are passed to the consumers one by one while the response is read, instead of being collected in the
+     * returned list.
+     *
+     * @param tenantDomain tenant domain
+     * @param epoch        epoch of the sequence number, or null to load all key mappings
+     * @param since        sequence number of the last change already loaded, or null to load all key mappings
+     * @param changed      consumer of the changed key mappings, or of all of them if the response is not a delta
+     * @param removed      consumer of the removed key mappings
+     * @return the sequence number of the last change included and whether the response is a delta
+     * @throws DataLoadingException If any error
+     */
+    public ApplicationKeyMappingList loadKeyMappingChanges(String tenantDomain, String epoch, Long since,
+            Consumer<ApplicationKeyMapping> changed, Consumer<ApplicationKeyMapping> removed)
+            throws DataLoadingException;
+
     /**
      * Load all {@link API} objects owned by all Tenants.
      *
@@ -158,5 +158,11 @@ public interface SubscriptionDataStore {
     Map<String, Scope> getScopesByTenant(String tenantDomain);
 
     boolean isScopesInitialized();
+
+    /**
+     * Brings the subscriptions, applications and application key mappings up to date, loading only the entries
+     * changed since they were last loaded when the changes are still available.
+     */
+    void synchronizeSubscriptionData();
 }
 
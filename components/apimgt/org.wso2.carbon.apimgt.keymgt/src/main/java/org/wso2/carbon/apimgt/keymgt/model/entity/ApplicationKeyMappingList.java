@@ -22,7 +22,7 @@ package org.wso2.carbon.apimgt.keymgt.model.entity;
 import java.util.ArrayList;
 import java.util.List;
 
-public class ApplicationKeyMappingList {
+public class ApplicationKeyMappingList extends DeltaList<ApplicationKeyMapping> {
 
     private Integer count = null;
     private List<ApplicationKeyMapping> list = new ArrayList<>();
@@ -22,7 +22,7 @@ package org.wso2.carbon.apimgt.keymgt.model.entity;
 import java.util.ArrayList;
 import java.util.List;
 
-public class ApplicationList {
+public class ApplicationList extends DeltaList<Application> {
 
     private Integer count = null;
     private List<Application> list = new ArrayList<>();
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.apimgt.keymgt.model.entity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Change tracking details of a list retrieved from the internal API. When the list was requested with the sequence
+ * number of the last change the gateway has, and the changes after it were still available, the list only has the
+ * changed entries and the removed ones are listed separately. When the entries are streamed to consumers while the
+ * response is read, the lists are left empty.
+ */
+public abstract class DeltaList<T> {
+
+    private String epoch = null;
+    private Long sequence = null;
+    private Boolean delta = null;
+    private List<T> removed = new ArrayList<>();
+
+    public abstract List<T> getList();
+
+    public String getEpoch() {
+
+        return epoch;
+    }
+
+    public void setEpoch(String epoch) {
+
+        this.epoch = epoch;
+    }
+
+    public Long getSequence() {
+
+        return sequence;
+    }
+
+    public void setSequence(Long sequence) {
+
+        this.sequence = sequence;
+    }
+
+    public boolean isDelta() {
+
+        return Boolean.TRUE.equals(delta);
+    }
+
+    public void setDelta(Boolean delta) {
+
+        this.delta = delta;
+    }
+
+    public List<T> getRemoved() {
+
+        return removed;
+    }
+
+    public void setRemoved(List<T> removed) {
+
+        this.removed = removed;
+    }
+}
@@ -22,7 +22,7 @@ package org.wso2.carbon.apimgt.keymgt.model.entity;
 import java.util.ArrayList;
 import java.util.List;
 
-public class SubscriptionList {
+public class SubscriptionList extends DeltaList<Subscription> {
 
     private Integer count = null;
     private List<Subscription> list = new ArrayList<>();
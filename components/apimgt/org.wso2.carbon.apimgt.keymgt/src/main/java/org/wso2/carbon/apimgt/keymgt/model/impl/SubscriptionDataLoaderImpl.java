@@ -18,9 +18,13 @@
 package org.wso2.carbon.apimgt.keymgt.model.impl;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.HttpClient;
@@ -42,6 +46,7 @@ import org.wso2.carbon.apimgt.keymgt.model.entity.ApplicationKeyMappingList;
 import org.wso2.carbon.apimgt.keymgt.model.entity.ApplicationList;
 import org.wso2.carbon.apimgt.keymgt.model.entity.ApplicationPolicy;
 import org.wso2.carbon.apimgt.keymgt.model.entity.ApplicationPolicyList;
+import org.wso2.carbon.apimgt.keymgt.model.entity.DeltaList;
 import org.wso2.carbon.apimgt.keymgt.model.entity.Scope;
 import org.wso2.carbon.apimgt.keymgt.model.entity.ScopesList;
 import org.wso2.carbon.apimgt.keymgt.model.entity.Subscription;
@@ -51,6 +56,7 @@ import org.wso2.carbon.apimgt.keymgt.model.entity.SubscriptionPolicyList;
 import org.wso2.carbon.apimgt.keymgt.model.exception.DataLoadingException;
 
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
 import java.net.URL;
 import java.net.URLEncoder;
@@ -58,10 +64,12 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 public class SubscriptionDataLoaderImpl implements SubscriptionDataLoader {
 
     private static final Log log = LogFactory.getLog(SubscriptionDataLoaderImpl.class);
+    private static final Gson gson = new Gson();
     private EventHubConfigurationDto getEventHubConfigurationDto;
     private GatewayArtifactSynchronizerProperties gatewayArtifactSynchronizerProperties;
     public static final int retrievalTimeoutInSeconds = 15;
@@ -70,69 +78,155 @@ public class SubscriptionDataLoaderImpl implements SubscriptionDataLoader {
 
     public SubscriptionDataLoaderImpl() {
 
-        this.getEventHubConfigurationDto = ServiceReferenceHolder.getInstance()
-                .getAPIManagerConfigurationService().getAPIManagerConfiguration()
-                .getEventHubConfigurationDto();
-        this.gatewayArtifactSynchronizerProperties =
+        this(ServiceReferenceHolder.getInstance().getAPIManagerConfigurationService().getAPIManagerConfiguration()
+                        .getEventHubConfigurationDto(),
                 ServiceReferenceHolder.getInstance().getAPIManagerConfigurationService().getAPIManagerConfiguration()
-                        .getGatewayArtifactSynchronizerProperties();
+                        .getGatewayArtifactSynchronizerProperties());
+    }
+
+    SubscriptionDataLoaderImpl(EventHubConfigurationDto eventHubConfigurationDto,
+                               GatewayArtifactSynchronizerProperties gatewayArtifactSynchronizerProperties) {
+
+        this.getEventHubConfigurationDto = eventHubConfigurationDto;
+        this.gatewayArtifactSynchronizerProperties = gatewayArtifactSynchronizerProperties;
     }
 
     @Override
     public List<Subscription> loadAllSubscriptions(String tenantDomain) throws DataLoadingException {
 
-        String subscriptionsEP = APIConstants.SubscriptionValidationResources.SUBSCRIPTIONS;
         List<Subscription> subscriptions = new ArrayList<>();
-        String responseString = null;
-        try {
-            responseString = invokeService(subscriptionsEP, tenantDomain);
-        } catch (IOException e) {
-            String msg = "Error while executing the http client " + subscriptionsEP;
-            log.error(msg, e);
-            throw new DataLoadingException(msg, e);
-        }
-        if (responseString != null && !responseString.isEmpty()) {
-            subscriptions = (new Gson().fromJson(responseString, SubscriptionList.class)).getList();
-        }
+        loadSubscriptionChanges(tenantDomain, null, null, subscriptions::add, subscription -> {
+        });
         return subscriptions;
     }
 
     @Override
     public List<Application> loadAllApplications(String tenantDomain) throws DataLoadingException {
 
-        String applicationsEP = APIConstants.SubscriptionValidationResources.APPLICATIONS;
         List<Application> applications = new ArrayList<>();
-        String responseString = null;
-        try {
-            responseString = invokeService(applicationsEP, tenantDomain);
-        } catch (IOException e) {
-            String msg = "Error while executing the http client " + applicationsEP;
-            log.error(msg, e);
-            throw new DataLoadingException(msg, e);
-        }
-        if (responseString != null && !responseString.isEmpty()) {
-            applications = (new Gson().fromJson(responseString, ApplicationList.class)).getList();
-        }
+        loadApplicationChanges(tenantDomain, null, null, applications::add, application -> {
+        });
         return applications;
     }
 
     @Override
     public List<ApplicationKeyMapping> loadAllKeyMappings(String tenantDomain) throws DataLoadingException {
 
-        String applicationsEP = APIConstants.SubscriptionValidationResources.APPLICATION_KEY_MAPPINGS;
-        List<ApplicationKeyMapping> applicationKeyMappings = new ArrayList<>();
-        String responseString = null;
+        List<ApplicationKeyMapping> keyMappings = new ArrayList<>();
+        loadKeyMappingChanges(tenantDomain, null, null, keyMappings::add, keyMapping -> {
+        });
+        return keyMappings;
+    }
+
+    @Override
+    public SubscriptionList loadSubscriptionChanges(String tenantDomain, String epoch, Long since,
+                                                    Consumer<Subscription> changed, Consumer<Subscription> removed)
+            throws DataLoadingException {
+
+        return loadChanges(APIConstants.SubscriptionValidationResources.SUBSCRIPTIONS, tenantDomain, epoch, since,
+                new SubscriptionList(), Subscription.class, changed, removed);
+    }
+
+    @Override
+    public ApplicationList loadApplicationChanges(String tenantDomain, String epoch, Long since,
+                                                  Consumer<Application> changed, Consumer<Application> removed)
+            throws DataLoadingException {
+
+        return loadChanges(APIConstants.SubscriptionValidationResources.APPLICATIONS, tenantDomain, epoch, since,
+                new ApplicationList(), Application.class, changed, removed);
+    }
+
+    @Override
+    public ApplicationKeyMappingList loadKeyMappingChanges(String tenantDomain, String epoch, Long since,
+                                                           Consumer<ApplicationKeyMapping> changed,
+                                                           Consumer<ApplicationKeyMapping> removed)
+            throws DataLoadingException {
+
+        return loadChanges(APIConstants.SubscriptionValidationResources.APPLICATION_KEY_MAPPINGS, tenantDomain, epoch,
+                since, new ApplicationKeyMappingList(), ApplicationKeyMapping.class, changed, removed);
+    }
+
+    /**
+     * Reads a list response of the internal API token by token, passing each entry to a consumer as soon as it is
+     * parsed, so that a full list of a tenant is never held in memory as a whole, either as the response string or as
+     * a list of entries.
+     */
+    private <T, L extends DeltaList<T>> L loadChanges(String endpoint, String tenantDomain, String epoch, Long since,
+                                                      L deltaList, Class<T> entryType, Consumer<T> changed,
+                                                      Consumer<T> removed) throws DataLoadingException {
+
         try {
-            responseString = invokeService(applicationsEP, tenantDomain);
-        } catch (IOException e) {
-            String msg = "Error while executing the http client " + applicationsEP;
+            readResponse(endpoint + getChangesQuery(epoch, since), tenantDomain,
+                    reader -> readDeltaList(reader, deltaList, entryType, changed, removed));
+        } catch (IOException | JsonParseException e) {
+            String msg = "Error while executing the http client " + endpoint;
             log.error(msg, e);
             throw new DataLoadingException(msg, e);
         }
-        if (responseString != null && !responseString.isEmpty()) {
-            applicationKeyMappings = (new Gson().fromJson(responseString, ApplicationKeyMappingList.class)).getList();
+        return deltaList;
+    }
+
+    private <T> void readDeltaList(JsonReader reader, DeltaList<T> deltaList, Class<T> entryType,
+                                   Consumer<T> changed, Consumer<T> removed) throws IOException {
+
+        boolean listRead = false;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "list":
+                    readEntries(reader, entryType, changed);
+                    listRead = true;
+                    break;
+                case "removed":
+                    readEntries(reader, entryType, removed);
+                    break;
+                case "epoch":
+                    deltaList.setEpoch(reader.nextString());
+                    break;
+                case "sequence":
+                    deltaList.setSequence(reader.nextLong());
+                    break;
+                case "delta":
+                    deltaList.setDelta(reader.nextBoolean());
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        // A full load replaces every entry of the gateway, so it is only accepted with a list of entries
+        if (!listRead) {
+            throw new JsonParseException("The response has no list of entries");
+        }
+    }
+
+    private <T> void readEntries(JsonReader reader, Class<T> entryType, Consumer<T> consumer) throws IOException {
+
+        reader.beginArray();
+        while (reader.hasNext()) {
+            T entry = gson.fromJson(reader, entryType);
+            if (entry != null) {
+                consumer.accept(entry);
+            }
+        }
+        reader.endArray();
+    }
+
+    private String getChangesQuery(String epoch, Long since) throws DataLoadingException {
+
+        if (epoch == null || since == null) {
+            return "";
+        }
+        try {
+            return "?since=" + since + "&epoch=" + URLEncoder.encode(epoch, UTF8);
+        } catch (UnsupportedEncodingException e) {
+            throw new DataLoadingException("Error while encoding the epoch " + epoch, e);
         }
-        return applicationKeyMappings;
     }
 
     @Override
@@ -153,7 +247,7 @@ public class SubscriptionDataLoaderImpl implements SubscriptionDataLoader {
                     throw new DataLoadingException(msg, e);
                 }
                 if (responseString != null && !responseString.isEmpty()) {
-                    APIList apiList = new Gson().fromJson(responseString, APIList.class);
+                    APIList apiList = gson.fromJson(responseString, APIList.class);
                     apis.addAll(apiList.getList());
                 }
                 if (log.isDebugEnabled()) {
@@ -179,7 +273,7 @@ public class SubscriptionDataLoaderImpl implements SubscriptionDataLoader {
             throw new DataLoadingException(msg, e);
         }
         if (responseString != null && !responseString.isEmpty()) {
-            subscriptionPolicies = (new Gson().fromJson(responseString, SubscriptionPolicyList.class)).getList();
+            subscriptionPolicies = (gson.fromJson(responseString, SubscriptionPolicyList.class)).getList();
         }
         return subscriptionPolicies;
     }
@@ -198,7 +292,7 @@ public class SubscriptionDataLoaderImpl implements SubscriptionDataLoader {
             throw new DataLoadingException(msg, e);
         }
         if (responseString != null && !responseString.isEmpty()) {
-            apiPolicies = (new Gson().fromJson(responseString, APIPolicyList.class)).getList();
+            apiPolicies = (gson.fromJson(responseString, APIPolicyList.class)).getList();
         }
         return apiPolicies;
     }
@@ -217,7 +311,7 @@ public class SubscriptionDataLoaderImpl implements SubscriptionDataLoader {
             throw new DataLoadingException(msg, e);
         }
         if (responseString != null && !responseString.isEmpty()) {
-            applicationPolicies = (new Gson().fromJson(responseString, ApplicationPolicyList.class)).getList();
+            applicationPolicies = (gson.fromJson(responseString, ApplicationPolicyList.class)).getList();
         }
         return applicationPolicies;
     }
@@ -237,7 +331,7 @@ public class SubscriptionDataLoaderImpl implements SubscriptionDataLoader {
             throw new DataLoadingException(msg, e);
         }
         if (responseString != null && !responseString.isEmpty()) {
-            SubscriptionList list = new Gson().fromJson(responseString, SubscriptionList.class);
+            SubscriptionList list = gson.fromJson(responseString, SubscriptionList.class);
             if (list.getList() != null && !list.getList().isEmpty()) {
                 subscription = list.getList().get(0);
             }
@@ -259,7 +353,7 @@ public class SubscriptionDataLoaderImpl implements SubscriptionDataLoader {
             throw new DataLoadingException(msg, e);
         }
         if (responseString != null && !responseString.isEmpty()) {
-            ApplicationList list = new Gson().fromJson(responseString, ApplicationList.class);
+            ApplicationList list = gson.fromJson(responseString, ApplicationList.class);
             if (list.getList() != null && !list.getList().isEmpty()) {
                 application = list.getList().get(0);
             }
@@ -286,7 +380,7 @@ public class SubscriptionDataLoaderImpl implements SubscriptionDataLoader {
             throw new DataLoadingException(msg, e);
         }
         if (responseString != null && !responseString.isEmpty()) {
-            ApplicationKeyMappingList list = new Gson().fromJson(responseString, ApplicationKeyMappingList.class);
+            ApplicationKeyMappingList list = gson.fromJson(responseString, ApplicationKeyMappingList.class);
             if (list.getList() != null && !list.getList().isEmpty()) {
                 application = list.getList().get(0);
             }
@@ -313,7 +407,7 @@ public class SubscriptionDataLoaderImpl implements SubscriptionDataLoader {
                     throw new DataLoadingException(msg, e);
                 }
                 if (responseString != null && !responseString.isEmpty()) {
-                    APIList list = new Gson().fromJson(responseString, APIList.class);
+                    APIList list = gson.fromJson(responseString, APIList.class);
                     if (list.getList() != null && !list.getList().isEmpty()) {
                         api = list.getList().get(0);
                     }
@@ -343,7 +437,7 @@ public class SubscriptionDataLoaderImpl implements SubscriptionDataLoader {
             throw new DataLoadingException(msg, e);
         }
         if (responseString != null && !responseString.isEmpty()) {
-            SubscriptionPolicyList list = new Gson().fromJson(responseString, SubscriptionPolicyList.class);
+            SubscriptionPolicyList list = gson.fromJson(responseString, SubscriptionPolicyList.class);
             if (list.getList() != null && !list.getList().isEmpty()) {
                 subscriptionPolicy = list.getList().get(0);
             }
@@ -369,7 +463,7 @@ public class SubscriptionDataLoaderImpl implements SubscriptionDataLoader {
             throw new DataLoadingException(msg, e);
         }
         if (responseString != null && !responseString.isEmpty()) {
-            ApplicationPolicyList list = new Gson().fromJson(responseString, ApplicationPolicyList.class);
+            ApplicationPolicyList list = gson.fromJson(responseString, ApplicationPolicyList.class);
             if (list.getList() != null && !list.getList().isEmpty()) {
                 applicationPolicy = list.getList().get(0);
             }
@@ -395,7 +489,7 @@ public class SubscriptionDataLoaderImpl implements SubscriptionDataLoader {
             throw new DataLoadingException(msg, e);
         }
         if (responseString != null && !responseString.isEmpty()) {
-            APIPolicyList list = new Gson().fromJson(responseString, APIPolicyList.class);
+            APIPolicyList list = gson.fromJson(responseString, APIPolicyList.class);
             if (list.getList() != null && !list.getList().isEmpty()) {
                 apiPolicy = list.getList().get(0);
             }
@@ -416,7 +510,7 @@ public class SubscriptionDataLoaderImpl implements SubscriptionDataLoader {
             throw new DataLoadingException(msg, e);
         }
         if (responseString != null && !responseString.isEmpty()) {
-            scopes = new Gson().fromJson(responseString, ScopesList.class).getList();
+            scopes = gson.fromJson(responseString, ScopesList.class).getList();
         }
         return scopes;
 
@@ -424,6 +518,35 @@ public class SubscriptionDataLoaderImpl implements SubscriptionDataLoader {
 
     private String invokeService(String path, String tenantDomain) throws DataLoadingException, IOException {
 
+        HttpResponse httpResponse = executeRequest(path, tenantDomain);
+        String responseString = EntityUtils.toString(httpResponse.getEntity(), UTF8);
+        if (log.isDebugEnabled()) {
+            log.debug("Response : " + responseString);
+        }
+        return responseString;
+    }
+
+    private void readResponse(String path, String tenantDomain, ResponseReader responseReader)
+            throws DataLoadingException, IOException {
+
+        HttpEntity entity = executeRequest(path, tenantDomain).getEntity();
+        if (entity == null || entity.getContentLength() == 0) {
+            throw new DataLoadingException("Empty response received from " + path);
+        }
+        try (JsonReader reader = new JsonReader(new InputStreamReader(entity.getContent(), StandardCharsets.UTF_8))) {
+            responseReader.read(reader);
+        }
+    }
+
+    /**
+     * Executes a GET request to the internal API, retrying while the internal API is unreachable.
+     *
+     * @param path         path and query of the resource, relative to the internal API
+     * @param tenantDomain tenant domain the resource is requested for, or null
+     * @return the response, with status 200
+     */
+    protected HttpResponse executeRequest(String path, String tenantDomain) throws DataLoadingException, IOException {
+
         String serviceURLStr = getEventHubConfigurationDto.getServiceUrl().concat(APIConstants.INTERNAL_WEB_APP_EP);
         HttpGet method = new HttpGet(serviceURLStr + path);
 
@@ -467,12 +590,13 @@ public class SubscriptionDataLoaderImpl implements SubscriptionDataLoader {
                 log.error("Could not retrieve subscriptions for tenantDomain : " + tenantDomain);
                 throw new DataLoadingException("Error while retrieving subscription from " + path);
             }
-            String responseString = EntityUtils.toString(httpResponse.getEntity(), UTF8);
-            if (log.isDebugEnabled()) {
-                log.debug("Response : " + responseString);
-            }
-            return responseString;
+            return httpResponse;
+
+    }
+
+    private interface ResponseReader {
 
+        void read(JsonReader reader) throws IOException;
     }
 
     private byte[] getServiceCredentials(EventHubConfigurationDto eventHubConfigurationDto) {
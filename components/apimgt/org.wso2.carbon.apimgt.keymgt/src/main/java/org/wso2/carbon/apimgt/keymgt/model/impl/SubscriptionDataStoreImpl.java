@@ -34,6 +34,7 @@ import org.wso2.carbon.apimgt.keymgt.model.entity.Application;
 import org.wso2.carbon.apimgt.keymgt.model.entity.ApplicationKeyMapping;
 import org.wso2.carbon.apimgt.keymgt.model.entity.ApplicationKeyMappingCacheKey;
 import org.wso2.carbon.apimgt.keymgt.model.entity.ApplicationPolicy;
+import org.wso2.carbon.apimgt.keymgt.model.entity.DeltaList;
 import org.wso2.carbon.apimgt.keymgt.model.entity.Policy;
 import org.wso2.carbon.apimgt.keymgt.model.entity.Scope;
 import org.wso2.carbon.apimgt.keymgt.model.entity.Subscription;
@@ -43,6 +44,7 @@ import org.wso2.carbon.apimgt.keymgt.model.util.SubscriptionDataStoreUtil;
 import org.wso2.carbon.base.MultitenantConstants;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -50,6 +52,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
@@ -87,6 +90,9 @@ public class SubscriptionDataStoreImpl implements SubscriptionDataStore {
     public static final int LOADING_POOL_SIZE = 7;
     private String tenantDomain = MultitenantConstants.SUPER_TENANT_DOMAIN_NAME;
     private ScheduledExecutorService executorService = Executors.newScheduledThreadPool(LOADING_POOL_SIZE);
+    private DeltaPopulateTask<String, Subscription> subscriptionSyncTask;
+    private DeltaPopulateTask<Integer, Application> applicationSyncTask;
+    private DeltaPopulateTask<ApplicationKeyMappingCacheKey, ApplicationKeyMapping> keyMappingSyncTask;
 
     public SubscriptionDataStoreImpl(String tenantDomain) {
 
@@ -321,54 +327,23 @@ public class SubscriptionDataStoreImpl implements SubscriptionDataStore {
 
         executorService.schedule(apiTask, 0, TimeUnit.SECONDS);
 
-        Runnable subscriptionLoadingTask = new PopulateTask<String, Subscription>(subscriptionMap,
-                () -> {
-                    try {
-                        log.debug("Calling loadAllSubscriptions.");
-                        List<Subscription> subscriptionList =
-                                new SubscriptionDataLoaderImpl().loadAllSubscriptions(tenantDomain);
-                        subscriptionsInitialized = true;
-                        return subscriptionList;
-                    } catch (APIManagementException e) {
-                        log.error("Exception while loading Subscriptions " + e);
-                    }
-                    return null;
-                });
-
-        executorService.schedule(subscriptionLoadingTask, 0, TimeUnit.SECONDS);
+        subscriptionSyncTask = new DeltaPopulateTask<>("Subscriptions", subscriptionMap,
+                (epoch, since, changed, removed) -> new SubscriptionDataLoaderImpl()
+                        .loadSubscriptionChanges(tenantDomain, epoch, since, changed, removed),
+                () -> subscriptionsInitialized = true);
+        executorService.schedule(subscriptionSyncTask, 0, TimeUnit.SECONDS);
 
-        Runnable applicationLoadingTask = new PopulateTask<Integer, Application>(applicationMap,
-                () -> {
-                    try {
-                        log.debug("Calling loadAllApplications.");
-                        List<Application> applicationList =
-                                new SubscriptionDataLoaderImpl().loadAllApplications(tenantDomain);
-                        applicationsInitialized = true;
-                        return applicationList;
-                    } catch (APIManagementException e) {
-                        log.error("Exception while loading Applications " + e);
-                    }
-                    return null;
-                });
+        applicationSyncTask = new DeltaPopulateTask<>("Applications", applicationMap,
+                (epoch, since, changed, removed) -> new SubscriptionDataLoaderImpl()
+                        .loadApplicationChanges(tenantDomain, epoch, since, changed, removed),
+                () -> applicationsInitialized = true);
+        executorService.schedule(applicationSyncTask, 0, TimeUnit.SECONDS);
 
-        executorService.schedule(applicationLoadingTask, 0, TimeUnit.SECONDS);
-
-        Runnable keyMappingsTask =
-                new PopulateTask<ApplicationKeyMappingCacheKey, ApplicationKeyMapping>(applicationKeyMappingMap,
-                        () -> {
-                            try {
-                                log.debug("Calling loadAllKeyMappings.");
-                                List<ApplicationKeyMapping> applicationKeyMappingList =
-                                        new SubscriptionDataLoaderImpl().loadAllKeyMappings(tenantDomain);
-                                applicationKeysInitialized = true;
-                                return applicationKeyMappingList;
-                            } catch (APIManagementException e) {
-                                log.error("Exception while loading ApplicationKeyMapping " + e);
-                            }
-                            return null;
-                        });
-
-        executorService.schedule(keyMappingsTask, 0, TimeUnit.SECONDS);
+        keyMappingSyncTask = new DeltaPopulateTask<>("ApplicationKeyMappings", applicationKeyMappingMap,
+                (epoch, since, changed, removed) -> new SubscriptionDataLoaderImpl()
+                        .loadKeyMappingChanges(tenantDomain, epoch, since, changed, removed),
+                () -> applicationKeysInitialized = true);
+        executorService.schedule(keyMappingSyncTask, 0, TimeUnit.SECONDS);
 
         Runnable apiPolicyLoadingTask =
                 new PopulateTask<String, ApiPolicy>(apiPolicyMap,
@@ -481,6 +456,83 @@ public class SubscriptionDataStoreImpl implements SubscriptionDataStore {
         }
     }
 
+    @Override
+    public void synchronizeSubscriptionData() {
+
+        executorService.schedule(subscriptionSyncTask, 0, TimeUnit.SECONDS);
+        executorService.schedule(applicationSyncTask, 0, TimeUnit.SECONDS);
+        executorService.schedule(keyMappingSyncTask, 0, TimeUnit.SECONDS);
+    }
+
+    private interface ChangesLoader<V> {
+
+        DeltaList<V> load(String epoch, Long since, Consumer<V> changed, Consumer<V> removed)
+                throws DataLoadingException;
+    }
+
+    /**
+     * Populates an entity map and keeps it up to date. The first run loads all the entries. Later runs send the
+     * sequence number of the last change loaded, and only apply the changed and removed entries, unless the internal
+     * API no longer has the changes and returns all the entries instead.
+     */
+    private class DeltaPopulateTask<K, V extends CacheableEntity<K>> implements Runnable {
+
+        private final String entityName;
+        private final Map<K, V> entityMap;
+        private final ChangesLoader<V> changesLoader;
+        private final Runnable onLoaded;
+        private String epoch;
+        private Long sequence;
+
+        DeltaPopulateTask(String entityName, Map<K, V> entityMap, ChangesLoader<V> changesLoader,
+                          Runnable onLoaded) {
+
+            this.entityName = entityName;
+            this.entityMap = entityMap;
+            this.changesLoader = changesLoader;
+            this.onLoaded = onLoaded;
+        }
+
+        public synchronized void run() {
+
+            // Entries are applied as they are read from the response, so only the keys of a full load are kept
+            Set<K> loadedKeys = new HashSet<>();
+            int[] removedCount = new int[1];
+            DeltaList<V> changes;
+            try {
+                if (log.isDebugEnabled()) {
+                    log.debug("Loading " + entityName + " changed after sequence " + sequence);
+                }
+                changes = changesLoader.load(epoch, sequence, v -> {
+                    K key = v.getCacheKey();
+                    entityMap.put(key, v);
+                    loadedKeys.add(key);
+                }, v -> {
+                    entityMap.remove(v.getCacheKey());
+                    removedCount[0]++;
+                });
+            } catch (DataLoadingException e) {
+                log.error("Exception while loading " + entityName + " " + e);
+                return;
+            }
+            if (changes.isDelta()) {
+                if (log.isDebugEnabled()) {
+                    log.debug(String.format("Applied %d changed and %d removed %s", loadedKeys.size(),
+                            removedCount[0], entityName));
+                }
+            } else {
+                // The loader fails on an empty or incomplete response, so the keys are those of a full list
+                entityMap.keySet().retainAll(loadedKeys);
+                if (log.isDebugEnabled()) {
+                    log.debug(String.format("Loaded all %d %s", loadedKeys.size(), entityName));
+                }
+            }
+            epoch = changes.getEpoch();
+            sequence = changes.getSequence();
+            onLoaded.run();
+        }
+    }
+
     public boolean isApisInitialized() {
 
         return apisInitialized;
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.keymgt.model.impl;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.Assert;
+import org.junit.Test;
+import org.wso2.carbon.apimgt.keymgt.model.entity.Subscription;
+import org.wso2.carbon.apimgt.keymgt.model.entity.SubscriptionList;
+import org.wso2.carbon.apimgt.keymgt.model.exception.DataLoadingException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test class for reading the list responses of the internal API in {@link SubscriptionDataLoaderImpl}.
+ */
+public class SubscriptionDataLoaderImplTest {
+
+    private static final String TENANT_DOMAIN = "carbon.super";
+    private static final String SUBSCRIPTION_1 = "{\"subscriptionId\":\"1\",\"policyId\":\"Gold\",\"apiId\":1,"
+            + "\"appId\":1,\"subscriptionState\":\"UNBLOCKED\"}";
+    private static final String SUBSCRIPTION_2 = "{\"subscriptionId\":\"2\",\"policyId\":\"Gold\",\"apiId\":2,"
+            + "\"appId\":1,\"subscriptionState\":\"BLOCKED\"}";
+
+    private final List<Subscription> changed = new ArrayList<>();
+    private final List<Subscription> removed = new ArrayList<>();
+
+    @Test
+    public void testFullLoad() throws Exception {
+
+        String body = "{\"epoch\":\"1\",\"sequence\":42,\"delta\":false,\"list\":[" + SUBSCRIPTION_1 + ","
+                + SUBSCRIPTION_2 + "],\"count\":2}";
+        CannedResponseLoader loader = new CannedResponseLoader(body, body.length());
+
+        SubscriptionList subscriptionList = loader.loadSubscriptionChanges(TENANT_DOMAIN, null, null, changed::add,
+                removed::add);
+        Assert.assertEquals("/subscriptions", loader.path);
+        Assert.assertEquals(TENANT_DOMAIN, loader.tenantDomain);
+        Assert.assertFalse(subscriptionList.isDelta());
+        Assert.assertEquals("1", subscriptionList.getEpoch());
+        Assert.assertEquals(Long.valueOf(42), subscriptionList.getSequence());
+        Assert.assertEquals(2, changed.size());
+        Assert.assertEquals("1", changed.get(0).getSubscriptionId());
+        Assert.assertEquals(Integer.valueOf(2), changed.get(1).getApiId());
+        Assert.assertEquals("BLOCKED", changed.get(1).getSubscriptionState());
+        Assert.assertTrue(removed.isEmpty());
+
+        List<Subscription> subscriptions = new CannedResponseLoader(body, -1).loadAllSubscriptions(TENANT_DOMAIN);
+        Assert.assertEquals(2, subscriptions.size());
+    }
+
+    @Test
+    public void testDeltaWithRemovedEntriesAndNulls() throws Exception {
+
+        String body = "{\"epoch\":\"1\",\"sequence\":43,\"delta\":true,\"list\":[" + SUBSCRIPTION_1
+                + ",null],\"removed\":[null," + SUBSCRIPTION_2 + "],\"unknown\":{\"list\":[1]},\"count\":null}";
+        CannedResponseLoader loader = new CannedResponseLoader(body, body.length());
+
+        SubscriptionList subscriptionList = loader.loadSubscriptionChanges(TENANT_DOMAIN, "1", 42L, changed::add,
+                removed::add);
+        Assert.assertEquals("/subscriptions?since=42&epoch=1", loader.path);
+        Assert.assertTrue(subscriptionList.isDelta());
+        Assert.assertEquals(Long.valueOf(43), subscriptionList.getSequence());
+        Assert.assertEquals(1, changed.size());
+        Assert.assertEquals("1", changed.get(0).getSubscriptionId());
+        Assert.assertEquals(1, removed.size());
+        Assert.assertEquals("2", removed.get(0).getSubscriptionId());
+    }
+
+    @Test
+    public void testDeltaWithoutRemovedEntries() throws Exception {
+
+        String body = "{\"epoch\":\"1\",\"sequence\":43,\"delta\":true,\"list\":[],\"removed\":null}";
+
+        SubscriptionList subscriptionList = new CannedResponseLoader(body, body.length())
+                .loadSubscriptionChanges(TENANT_DOMAIN, "1", 43L, changed::add, removed::add);
+        Assert.assertTrue(subscriptionList.isDelta());
+        Assert.assertTrue(changed.isEmpty());
+        Assert.assertTrue(removed.isEmpty());
+    }
+
+    @Test
+    public void testEmptyBodyFails() {
+
+        assertLoadFails(new CannedResponseLoader("", 0));
+        // A chunked response does not declare its length
+        assertLoadFails(new CannedResponseLoader("", -1));
+    }
+
+    @Test
+    public void testResponseWithoutListFails() {
+
+        String body = "{\"epoch\":\"1\",\"sequence\":42,\"delta\":false,\"list\":null}";
+        assertLoadFails(new CannedResponseLoader(body, body.length()));
+    }
+
+    @Test
+    public void testUnterminatedStreamFails() {
+
+        // The internal API leaves the response incomplete when reading the entries fails
+        String body = "{\"epoch\":\"1\",\"sequence\":42,\"delta\":false,\"list\":[" + SUBSCRIPTION_1 + ",";
+        assertLoadFails(new CannedResponseLoader(body, -1));
+        body = "{\"epoch\":\"1\",\"sequence\":42,\"delta\":false,\"list\":[" + SUBSCRIPTION_1 + "]";
+        assertLoadFails(new CannedResponseLoader(body, -1));
+    }
+
+    @Test
+    public void testAbortedStreamFails() {
+
+        String body = "{\"epoch\":\"1\",\"sequence\":42,\"delta\":false,\"list\":[" + SUBSCRIPTION_1 + ",";
+        InputStream aborted = new SequenceInputStream(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)),
+                new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+
+                        throw new IOException("Connection reset");
+                    }
+                });
+        assertLoadFails(new CannedResponseLoader(aborted, -1));
+    }
+
+    private void assertLoadFails(CannedResponseLoader loader) {
+
+        List<Subscription> subscriptions = null;
+        try {
+            subscriptions = loader.loadAllSubscriptions(TENANT_DOMAIN);
+            Assert.fail("An incomplete response was loaded");
+        } catch (DataLoadingException e) {
+            // The entries read before the failure are not returned
+            Assert.assertNull(subscriptions);
+        }
+    }
+
+    /**
+     * Serves a canned response instead of requesting the internal API.
+     */
+    private static class CannedResponseLoader extends SubscriptionDataLoaderImpl {
+
+        private final InputStream content;
+        private final long contentLength;
+        private String path;
+        private String tenantDomain;
+
+        CannedResponseLoader(String body, long contentLength) {
+
+            this(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), contentLength);
+        }
+
+        CannedResponseLoader(InputStream content, long contentLength) {
+
+            super(null, null);
+            this.content = content;
+            this.contentLength = contentLength;
+        }
+
+        @Override
+        protected HttpResponse executeRequest(String path, String tenantDomain) {
+
+            this.path = path;
+            this.tenantDomain = tenantDomain;
+            BasicHttpEntity entity = new BasicHttpEntity();
+            entity.setContent(content);
+            entity.setContentLength(contentLength);
+            HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK");
+            response.setEntity(entity);
+            return response;
+        }
+    }
+}
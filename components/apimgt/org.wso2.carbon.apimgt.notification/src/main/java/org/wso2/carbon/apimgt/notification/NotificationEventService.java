@@ -32,7 +32,12 @@ import java.util.Map;
  */
 public class NotificationEventService {
 
-    public void processEvent(String type, String content, Map<String, List<String>> headers)
+    /**
+     * Passes an event to the handler of its type.
+     *
+     * @return false if no handler is registered for the type, so the event was ignored
+     */
+    public boolean processEvent(String type, String content, Map<String, List<String>> headers)
             throws APIManagementException {
 
         if (StringUtils.isEmpty(type)) {
@@ -42,7 +47,9 @@ public class NotificationEventService {
                 ServiceReferenceHolder.getInstance().getEventHandlerByType(type);
         if (eventHandlerByType != null) {
             eventHandlerByType.handleEvent(content, headers);
+            return true;
         }
+        return false;
     }
 
 }
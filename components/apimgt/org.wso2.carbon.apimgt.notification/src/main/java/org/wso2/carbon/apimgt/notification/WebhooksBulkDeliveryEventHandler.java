@@ -0,0 +1,65 @@
+/*
+ *  Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.apimgt.notification;
+
+import com.google.gson.Gson;
+import org.wso2.carbon.apimgt.api.APIManagementException;
+import org.wso2.carbon.apimgt.impl.APIConstants;
+import org.wso2.carbon.apimgt.impl.dao.WebhooksDAO;
+import org.wso2.carbon.apimgt.impl.dto.WebhooksDeliveryStatusDTO;
+import org.wso2.carbon.apimgt.impl.handlers.EventHandler;
+import org.wso2.carbon.apimgt.notification.event.WebhooksDeliveryEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class implements to handle notification events carrying the delivery status of many webhooks callbacks,
+ * which are stored with a single batch update.
+ */
+public class WebhooksBulkDeliveryEventHandler implements EventHandler {
+
+    @Override
+    public boolean handleEvent(String event, Map<String, List<String>> headers) throws APIManagementException {
+
+        WebhooksDeliveryEvent[] deliveryEvents = new Gson().fromJson(event, WebhooksDeliveryEvent[].class);
+        if (deliveryEvents == null) {
+            return true;
+        }
+        List<WebhooksDeliveryStatusDTO> deliveryStatuses = new ArrayList<>(deliveryEvents.length);
+        for (WebhooksDeliveryEvent deliveryEvent : deliveryEvents) {
+            WebhooksDeliveryStatusDTO deliveryStatus = new WebhooksDeliveryStatusDTO();
+            deliveryStatus.setApiKey(deliveryEvent.getApiKey());
+            deliveryStatus.setAppID(deliveryEvent.getAppID());
+            deliveryStatus.setTenantDomain(deliveryEvent.getTenantDomain());
+            deliveryStatus.setCallbackURL(deliveryEvent.getCallback());
+            deliveryStatus.setTopicName(deliveryEvent.getTopic());
+            deliveryStatus.setStatus(deliveryEvent.getStatus());
+            deliveryStatus.setDeliveredAt(deliveryEvent.getTimeStamp());
+            deliveryStatuses.add(deliveryStatus);
+        }
+        WebhooksDAO.getInstance().updateDeliveryStatuses(deliveryStatuses);
+        return true;
+    }
+
+    @Override
+    public String getType() {
+        return APIConstants.Webhooks.BULK_DELIVERY_EVENT_TYPE;
+    }
+}
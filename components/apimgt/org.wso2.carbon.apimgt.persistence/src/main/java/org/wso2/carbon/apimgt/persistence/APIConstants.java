@@ -374,4 +374,12 @@ public final class APIConstants {
     public static final String API_TYPE_SOAPTOREST = "SOAPTOREST";
 
     public static final String API_ASYNC_API_DEFINITION_RESOURCE_NAME = "asyncapi.json";
+
+    public static final String PERSISTENCE_TYPE = "persistenceType";
+    public static final String PERSISTENCE_TYPE_REGISTRY = "registry";
+    public static final String PERSISTENCE_TYPE_JDBC = "jdbc";
+    public static final String PERSISTENCE_DATA_SOURCE_NAME = "persistenceDataSourceName";
+    public static final String DEFAULT_PERSISTENCE_DATA_SOURCE_NAME = "jdbc/WSO2AM_DB";
+    public static final String PERSISTENCE_SEARCH_INDEX_ENABLED = "persistenceSearchIndexEnabled";
+    public static final String PERSISTENCE_SEARCH_INDEX_SOURCE = "persistenceSearchIndexSource";
 }
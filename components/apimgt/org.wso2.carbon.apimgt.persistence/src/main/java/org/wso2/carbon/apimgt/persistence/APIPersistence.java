@@ -249,6 +249,17 @@ public interface APIPersistence {
     /* ==== Async API Definition ==========
     ============================================= */
 
+    /**
+     * Save Async API definition
+     *
+     * @param org           Organization the definition is owned by
+     * @param apiId         API ID
+     * @param apiDefinition Async API definition
+     * @throws AsyncSpecPersistenceException
+     */
+    void saveAsyncDefinition(Organization org, String apiId, String apiDefinition)
+            throws AsyncSpecPersistenceException;
+
     /**
      * Get Async API definition
      *
@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.persistence;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.apimgt.persistence.dto.DocumentContent;
+import org.wso2.carbon.apimgt.persistence.dto.DocumentSearchResult;
+import org.wso2.carbon.apimgt.persistence.dto.Documentation;
+import org.wso2.carbon.apimgt.persistence.dto.Mediation;
+import org.wso2.carbon.apimgt.persistence.dto.MediationInfo;
+import org.wso2.carbon.apimgt.persistence.dto.Organization;
+import org.wso2.carbon.apimgt.persistence.dto.PublisherAPI;
+import org.wso2.carbon.apimgt.persistence.dto.PublisherAPIInfo;
+import org.wso2.carbon.apimgt.persistence.dto.PublisherAPIProduct;
+import org.wso2.carbon.apimgt.persistence.dto.PublisherAPIProductInfo;
+import org.wso2.carbon.apimgt.persistence.dto.PublisherAPIProductSearchResult;
+import org.wso2.carbon.apimgt.persistence.dto.PublisherAPISearchResult;
+import org.wso2.carbon.apimgt.persistence.dto.ResourceFile;
+import org.wso2.carbon.apimgt.persistence.dto.UserContext;
+import org.wso2.carbon.apimgt.persistence.exceptions.APIPersistenceException;
+import org.wso2.carbon.apimgt.persistence.exceptions.AsyncSpecPersistenceException;
+import org.wso2.carbon.apimgt.persistence.exceptions.DocumentationPersistenceException;
+import org.wso2.carbon.apimgt.persistence.exceptions.GraphQLPersistenceException;
+import org.wso2.carbon.apimgt.persistence.exceptions.MediationPolicyPersistenceException;
+import org.wso2.carbon.apimgt.persistence.exceptions.ThumbnailPersistenceException;
+import org.wso2.carbon.apimgt.persistence.exceptions.WSDLPersistenceException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Copies the APIs and API products of an organization, with their definitions, documents, thumbnails, mediation
+ * policies and revisions, from another persistence to the {@link JdbcPersistenceImpl}.
+ * <p>
+ * An artifact that already exists in the target is replaced, so that an interrupted migration can be run again.
+ */
+public class APIPersistenceMigrator {
+
+    private static final Log log = LogFactory.getLog(APIPersistenceMigrator.class);
+    private static final int PAGE_SIZE = 100;
+
+    private final APIPersistence source;
+    private final JdbcPersistenceImpl target;
+
+    public APIPersistenceMigrator(APIPersistence source, JdbcPersistenceImpl target) {
+
+        this.source = source;
+        this.target = target;
+    }
+
+    /**
+     * Copies the APIs and API products of an organization. The search of some persistences lists the revisions
+     * too, which are copied as APIs until {@link #migrateRevision} turns them into revisions.
+     *
+     * @param org Organization to migrate
+     * @param ctx context of an administrator of the organization
+     * @return UUIDs of the copied APIs and API products
+     * @throws APIPersistenceException if an artifact cannot be copied
+     */
+    public List<String> migrateAPIs(Organization org, UserContext ctx) throws APIPersistenceException {
+
+        List<String> apiIds = new ArrayList<>();
+        int totalCount;
+        do {
+            PublisherAPISearchResult result = source.searchAPIsForPublisher(org, "", apiIds.size(), PAGE_SIZE, ctx);
+            if (result == null || result.getPublisherAPIInfoList().isEmpty()) {
+                break;
+            }
+            for (PublisherAPIInfo apiInfo : result.getPublisherAPIInfoList()) {
+                apiIds.add(apiInfo.getId());
+            }
+            totalCount = result.getTotalAPIsCount();
+        } while (apiIds.size() < totalCount);
+
+        List<String> apiProductIds = new ArrayList<>();
+        do {
+            PublisherAPIProductSearchResult result = source.searchAPIProductsForPublisher(org, "",
+                    apiProductIds.size(), PAGE_SIZE, ctx);
+            if (result == null || result.getPublisherAPIProductInfoList().isEmpty()) {
+                break;
+            }
+            for (PublisherAPIProductInfo productInfo : result.getPublisherAPIProductInfoList()) {
+                apiProductIds.add(productInfo.getId());
+            }
+            totalCount = result.getTotalAPIsCount();
+        } while (apiProductIds.size() < totalCount);
+
+        List<String> migratedIds = new ArrayList<>();
+        for (String apiId : apiIds) {
+            // The API search of the registry lists the API products too
+            if (!apiProductIds.contains(apiId)) {
+                migrateAPI(org, apiId, ctx);
+                migratedIds.add(apiId);
+            }
+        }
+        for (String apiProductId : apiProductIds) {
+            migrateAPIProduct(org, apiProductId, ctx);
+            migratedIds.add(apiProductId);
+        }
+        log.info("Migrated " + migratedIds.size() + " APIs and API Products of " + org.getName());
+        return migratedIds;
+    }
+
+    /**
+     * Copies a revision of an API or API product. The API or API product has to be copied before, as copying it
+     * again removes its revisions.
+     *
+     * @param org          Organization to migrate
+     * @param ctx          context of an administrator of the organization
+     * @param apiUUID      UUID of the API or API product
+     * @param revisionUUID UUID of the revision
+     * @param revisionId   revision number
+     * @throws APIPersistenceException if the revision cannot be copied
+     */
+    public void migrateRevision(Organization org, UserContext ctx, String apiUUID, String revisionUUID,
+                                int revisionId) throws APIPersistenceException {
+
+        if (target.isAPIProduct(org, apiUUID)) {
+            migrateAPIProduct(org, revisionUUID, ctx);
+        } else {
+            migrateAPI(org, revisionUUID, ctx);
+        }
+        target.setRevision(org, revisionUUID, apiUUID, revisionId);
+    }
+
+    private void migrateAPI(Organization org, String apiId, UserContext ctx) throws APIPersistenceException {
+
+        PublisherAPI publisherAPI = source.getPublisherAPI(org, apiId);
+        target.deleteAPI(org, apiId);
+        target.addAPI(org, publisherAPI);
+        try {
+            ResourceFile wsdl = source.getWSDL(org, apiId);
+            if (wsdl != null) {
+                target.saveWSDL(org, apiId, wsdl);
+            }
+            String graphQLSchema = source.getGraphQLSchema(org, apiId);
+            if (graphQLSchema != null) {
+                target.saveGraphQLSchemaDefinition(org, apiId, graphQLSchema);
+            }
+            String asyncDefinition = source.getAsyncDefinition(org, apiId);
+            if (asyncDefinition != null) {
+                target.saveAsyncDefinition(org, apiId, asyncDefinition);
+            }
+            for (MediationInfo mediationInfo : source.getAllMediationPolicies(org, apiId)) {
+                Mediation mediation = source.getMediationPolicy(org, apiId, mediationInfo.getId());
+                if (mediation != null) {
+                    target.addMediationPolicy(org, apiId, mediation);
+                }
+            }
+        } catch (WSDLPersistenceException | GraphQLPersistenceException | AsyncSpecPersistenceException
+                | MediationPolicyPersistenceException e) {
+            throw new APIPersistenceException("Error while migrating the definitions of API " + apiId, e);
+        }
+        migrateThumbnailAndDocuments(org, apiId, ctx);
+        if (log.isDebugEnabled()) {
+            log.debug("Migrated API " + publisherAPI.getApiName() + ":" + publisherAPI.getVersion());
+        }
+    }
+
+    private void migrateAPIProduct(Organization org, String apiProductId, UserContext ctx)
+            throws APIPersistenceException {
+
+        PublisherAPIProduct publisherAPIProduct = source.getPublisherAPIProduct(org, apiProductId);
+        target.deleteAPIProduct(org, apiProductId);
+        target.addAPIProduct(org, publisherAPIProduct);
+        migrateThumbnailAndDocuments(org, apiProductId, ctx);
+        if (log.isDebugEnabled()) {
+            log.debug("Migrated API Product " + publisherAPIProduct.getApiProductName() + ":"
+                    + publisherAPIProduct.getVersion());
+        }
+    }
+
+    private void migrateThumbnailAndDocuments(Organization org, String apiId, UserContext ctx)
+            throws APIPersistenceException {
+
+        try {
+            ResourceFile thumbnail = source.getThumbnail(org, apiId);
+            if (thumbnail != null) {
+                target.saveThumbnail(org, apiId, thumbnail);
+            }
+            DocumentSearchResult documents = source.searchDocumentation(org, apiId, 0, 0, null, ctx);
+            if (documents == null || documents.getDocumentationList() == null) {
+                return;
+            }
+            for (Documentation documentation : documents.getDocumentationList()) {
+                target.addDocumentation(org, apiId, documentation);
+                DocumentContent content = source.getDocumentationContent(org, apiId, documentation.getId());
+                if (content != null && content.getSourceType() != null
+                        && !DocumentContent.ContentSourceType.URL.equals(content.getSourceType())) {
+                    target.addDocumentationContent(org, apiId, documentation.getId(), content);
+                }
+            }
+        } catch (ThumbnailPersistenceException | DocumentationPersistenceException e) {
+            throw new APIPersistenceException("Error while migrating the documents of " + apiId, e);
+        }
+    }
+}
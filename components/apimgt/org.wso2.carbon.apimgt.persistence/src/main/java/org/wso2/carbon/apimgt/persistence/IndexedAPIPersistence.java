@@ -0,0 +1,797 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.persistence;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.apimgt.persistence.dto.DevPortalAPI;
+import org.wso2.carbon.apimgt.persistence.dto.DevPortalAPISearchResult;
+import org.wso2.carbon.apimgt.persistence.dto.DevPortalContentSearchResult;
+import org.wso2.carbon.apimgt.persistence.dto.DocumentContent;
+import org.wso2.carbon.apimgt.persistence.dto.DocumentSearchResult;
+import org.wso2.carbon.apimgt.persistence.dto.Documentation;
+import org.wso2.carbon.apimgt.persistence.dto.Mediation;
+import org.wso2.carbon.apimgt.persistence.dto.MediationInfo;
+import org.wso2.carbon.apimgt.persistence.dto.Organization;
+import org.wso2.carbon.apimgt.persistence.dto.PublisherAPI;
+import org.wso2.carbon.apimgt.persistence.dto.PublisherAPIInfo;
+import org.wso2.carbon.apimgt.persistence.dto.PublisherAPIProduct;
+import org.wso2.carbon.apimgt.persistence.dto.PublisherAPIProductInfo;
+import org.wso2.carbon.apimgt.persistence.dto.PublisherAPIProductSearchResult;
+import org.wso2.carbon.apimgt.persistence.dto.PublisherAPISearchResult;
+import org.wso2.carbon.apimgt.persistence.dto.PublisherContentSearchResult;
+import org.wso2.carbon.apimgt.persistence.dto.ResourceFile;
+import org.wso2.carbon.apimgt.persistence.dto.UserContext;
+import org.wso2.carbon.apimgt.persistence.exceptions.APIPersistenceException;
+import org.wso2.carbon.apimgt.persistence.exceptions.AsyncSpecPersistenceException;
+import org.wso2.carbon.apimgt.persistence.exceptions.DocumentationPersistenceException;
+import org.wso2.carbon.apimgt.persistence.exceptions.GraphQLPersistenceException;
+import org.wso2.carbon.apimgt.persistence.exceptions.MediationPolicyPersistenceException;
+import org.wso2.carbon.apimgt.persistence.exceptions.OASPersistenceException;
+import org.wso2.carbon.apimgt.persistence.exceptions.ThumbnailPersistenceException;
+import org.wso2.carbon.apimgt.persistence.exceptions.WSDLPersistenceException;
+import org.wso2.carbon.apimgt.persistence.search.APISearchFilter;
+import org.wso2.carbon.apimgt.persistence.search.APISearchIndex;
+import org.wso2.carbon.apimgt.persistence.search.APISearchIndexResult;
+import org.wso2.carbon.apimgt.persistence.search.APISearchIndexSource;
+import org.wso2.carbon.apimgt.persistence.search.IndexedAPI;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+/**
+ * An {@link APIPersistence} answering the Publisher and Dev Portal API searches from an {@link APISearchIndex}, and
+ * passing everything else to the persistence it wraps.
+ * <p>
+ * The index of an organization is loaded in the background on its first search, which is answered by the wrapped
+ * persistence, as are the searches the index cannot answer. Afterwards the APIs, documents and definitions changed
+ * through this persistence are indexed as they change. The changes made on other nodes are picked up in the
+ * background when the version of the APIs reported by the {@link APISearchIndexSource} changes, by indexing again the
+ * APIs whose states changed, or by loading the whole index again when the source does not report the states. The
+ * version is checked once every {@link #VERSION_CHECK_INTERVAL_MILLIS} at most.
+ */
+public class IndexedAPIPersistence implements APIPersistence {
+
+    private static final Log log = LogFactory.getLog(IndexedAPIPersistence.class);
+    private static final int PAGE_SIZE = 100;
+    static final long VERSION_CHECK_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private final APIPersistence persistence;
+    private final APISearchIndex index;
+    private final APISearchIndexSource source;
+    private final Properties properties;
+    private final Set<String> loadingOrganizations = ConcurrentHashMap.newKeySet();
+    private final Map<String, LoadState> loadStates = new ConcurrentHashMap<>();
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "APISearchIndexLoader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public IndexedAPIPersistence(APIPersistence persistence, APISearchIndex index, Properties properties) {
+
+        this.persistence = persistence;
+        this.index = index;
+        this.properties = properties;
+        Object indexSource = properties != null ? properties.get(APIConstants.PERSISTENCE_SEARCH_INDEX_SOURCE) : null;
+        this.source = indexSource instanceof APISearchIndexSource ? (APISearchIndexSource) indexSource : null;
+    }
+
+    private boolean isAllowDisplayAPIsWithMultipleStatus() {
+
+        if (properties != null && properties.get(APIConstants.ALLOW_MULTIPLE_STATUS) != null) {
+            return (boolean) properties.get(APIConstants.ALLOW_MULTIPLE_STATUS);
+        }
+        return false;
+    }
+
+    /* ======= Search ======= */
+
+    @Override
+    public PublisherAPISearchResult searchAPIsForPublisher(Organization org, String searchQuery, int start, int offset,
+                                                           UserContext ctx) throws APIPersistenceException {
+
+        APISearchIndexResult indexResult = searchIndex(org, searchQuery,
+                APISearchFilter.forPublisher(ctx, StringUtils.isBlank(searchQuery)), start, offset);
+        if (indexResult == null) {
+            return persistence.searchAPIsForPublisher(org, searchQuery, start, offset, ctx);
+        }
+        List<PublisherAPIInfo> publisherAPIInfoList = new ArrayList<>();
+        for (IndexedAPI api : indexResult.getAPIs()) {
+            publisherAPIInfoList.add(api.toPublisherAPIInfo());
+        }
+        PublisherAPISearchResult result = new PublisherAPISearchResult();
+        result.setPublisherAPIInfoList(publisherAPIInfoList);
+        result.setReturnedAPIsCount(publisherAPIInfoList.size());
+        result.setTotalAPIsCount(indexResult.getTotalCount());
+        return result;
+    }
+
+    @Override
+    public DevPortalAPISearchResult searchAPIsForDevPortal(Organization org, String searchQuery, int start, int offset,
+                                                           UserContext ctx) throws APIPersistenceException {
+
+        APISearchIndexResult indexResult = searchIndex(org, searchQuery, APISearchFilter.forDevPortal(org, ctx,
+                isAllowDisplayAPIsWithMultipleStatus(), StringUtils.isBlank(searchQuery)), start, offset);
+        if (indexResult == null) {
+            return persistence.searchAPIsForDevPortal(org, searchQuery, start, offset, ctx);
+        }
+        DevPortalAPISearchResult result = new DevPortalAPISearchResult();
+        for (IndexedAPI api : indexResult.getAPIs()) {
+            result.getDevPortalAPIInfoList().add(api.toDevPortalAPIInfo());
+        }
+        result.setReturnedAPIsCount(result.getDevPortalAPIInfoList().size());
+        result.setTotalAPIsCount(indexResult.getTotalCount());
+        return result;
+    }
+
+    /**
+     * Searches the index of an organization, which starts loading if it is not loaded yet.
+     *
+     * @return the matching APIs or null if the search has to be done through the wrapped persistence
+     */
+    private APISearchIndexResult searchIndex(Organization org, String searchQuery, APISearchFilter filter, int start,
+                                             int offset) throws APIPersistenceException {
+
+        if (!index.isLoaded(org.getName())) {
+            loadIndexInBackground(org);
+            return null;
+        }
+        updateIndexInBackground(org);
+        return index.search(org.getName(), searchQuery, filter, start, offset);
+    }
+
+    private void updateIndexInBackground(Organization org) {
+
+        LoadState loadState = loadStates.get(org.getName());
+        long now = System.currentTimeMillis();
+        if (loadState == null || now - loadState.checkTime < VERSION_CHECK_INTERVAL_MILLIS) {
+            return;
+        }
+        loadState.checkTime = now;
+        if (!loadingOrganizations.add(org.getName())) {
+            return;
+        }
+        loader.execute(() -> {
+            try {
+                updateIndex(org);
+            } catch (APIPersistenceException | RuntimeException e) {
+                log.error("Failed to update the API search index of " + org.getName(), e);
+            } finally {
+                loadingOrganizations.remove(org.getName());
+            }
+        });
+    }
+
+    /**
+     * Applies the changes made on other nodes to the index of an organization, if the version of its APIs changed
+     * since the index was loaded or last updated. Only the APIs added, changed or deleted meanwhile are indexed again,
+     * unless the source does not report the states of the APIs.
+     *
+     * @param org organization
+     * @throws APIPersistenceException if the version or the states of the APIs cannot be read
+     */
+    void updateIndex(Organization org) throws APIPersistenceException {
+
+        LoadState loadState = loadStates.get(org.getName());
+        if (loadState == null || source == null) {
+            return;
+        }
+        // The version is read first, so that a change made while updating causes another update
+        String version = source.getVersion(org);
+        if (loadState.complete && Objects.equals(version, loadState.version)) {
+            return;
+        }
+        Map<String, String> apiStates = getAPIStates(org, false);
+        Map<String, String> apiProductStates = getAPIStates(org, true);
+        if (apiStates == null || apiProductStates == null || loadState.apiStates == null) {
+            loadIndex(org);
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        UserContext ctx = getAdminContext(org);
+        boolean complete = applyChanges(org, loadState.apiStates, apiStates, false, ctx);
+        complete &= applyChanges(org, loadState.apiProductStates, apiProductStates, true, ctx);
+        loadStates.put(org.getName(), new LoadState(version, complete, apiStates, apiProductStates, startTime));
+        if (log.isDebugEnabled()) {
+            log.debug("Updated the search index of " + org.getName() + " in "
+                    + (System.currentTimeMillis() - startTime) + " ms");
+        }
+    }
+
+    /**
+     * Indexes the APIs whose states differ from the indexed ones and removes the deleted APIs from the index. The
+     * APIs which cannot be read are left out of the given states, so that they are read on the next update.
+     *
+     * @return true if all the changed APIs were indexed
+     */
+    private boolean applyChanges(Organization org, Map<String, String> indexedStates, Map<String, String> states,
+                                 boolean apiProducts, UserContext ctx) {
+
+        for (String apiId : indexedStates.keySet()) {
+            if (!states.containsKey(apiId)) {
+                index.remove(org.getName(), apiId);
+            }
+        }
+        boolean complete = true;
+        for (Iterator<Map.Entry<String, String>> iterator = states.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<String, String> state = iterator.next();
+            if (Objects.equals(state.getValue(), indexedStates.get(state.getKey()))) {
+                continue;
+            }
+            try {
+                index.put(org.getName(), readAPI(org, state.getKey(), apiProducts, ctx));
+            } catch (APIPersistenceException | DocumentationPersistenceException e) {
+                log.warn("Failed to index API " + state.getKey() + " of " + org.getName(), e);
+                iterator.remove();
+                complete = false;
+            }
+        }
+        return complete;
+    }
+
+    private Map<String, String> getAPIStates(Organization org, boolean apiProducts) throws APIPersistenceException {
+
+        Map<String, String> states = source != null ? source.getAPIStates(org, apiProducts) : null;
+        return states != null ? new HashMap<>(states) : null;
+    }
+
+    private void loadIndexInBackground(Organization org) {
+
+        if (!loadingOrganizations.add(org.getName())) {
+            return;
+        }
+        loader.execute(() -> {
+            try {
+                loadIndex(org);
+            } catch (APIPersistenceException | RuntimeException e) {
+                log.error("Failed to load the API search index of " + org.getName(), e);
+            } finally {
+                loadingOrganizations.remove(org.getName());
+            }
+        });
+    }
+
+    /**
+     * Loads the APIs and API Products of an organization into the index, with their documents.
+     *
+     * @param org organization
+     * @throws APIPersistenceException if the APIs cannot be listed
+     */
+    public void loadIndex(Organization org) throws APIPersistenceException {
+
+        long startTime = System.currentTimeMillis();
+        UserContext ctx = getAdminContext(org);
+        // The version is read first, so that a change made while loading causes another load
+        String version = source != null ? source.getVersion(org) : null;
+        index.startLoading(org.getName());
+        Map<String, String> apiStates = getAPIStates(org, false);
+        Map<String, String> apiProductStates = getAPIStates(org, true);
+        List<String> apiIds;
+        List<String> apiProductIds;
+        if (apiStates != null && apiProductStates != null) {
+            apiIds = new ArrayList<>(apiStates.keySet());
+            apiProductIds = new ArrayList<>(apiProductStates.keySet());
+        } else if (source != null) {
+            apiStates = null;
+            apiProductStates = null;
+            apiIds = source.getAPIIds(org);
+            apiProductIds = source.getAPIProductIds(org);
+        } else {
+            apiIds = listAPIIds(org, ctx);
+            apiProductIds = listAPIProductIds(org, ctx);
+            apiIds.removeAll(apiProductIds);
+        }
+        List<IndexedAPI> apis = new ArrayList<>();
+        boolean complete = true;
+        for (String apiId : apiIds) {
+            complete &= addToLoad(apis, org, apiId, false, ctx, apiStates);
+        }
+        for (String apiProductId : apiProductIds) {
+            complete &= addToLoad(apis, org, apiProductId, true, ctx, apiProductStates);
+        }
+        index.load(org.getName(), apis);
+        loadStates.put(org.getName(), new LoadState(version, complete || apiStates == null, apiStates,
+                apiProductStates, startTime));
+        if (log.isDebugEnabled()) {
+            log.debug("Loaded " + apis.size() + " APIs of " + org.getName() + " into the search index in "
+                    + (System.currentTimeMillis() - startTime) + " ms");
+        }
+    }
+
+    /**
+     * Version of the APIs of an organization and states of the APIs and API Products when its index was loaded or
+     * last updated. The states are null when the source does not report them. The index is not complete when some
+     * APIs could not be read, which are read again on the next check.
+     */
+    private static final class LoadState {
+
+        private final String version;
+        private final boolean complete;
+        private final Map<String, String> apiStates;
+        private final Map<String, String> apiProductStates;
+        private volatile long checkTime;
+
+        private LoadState(String version, boolean complete, Map<String, String> apiStates,
+                          Map<String, String> apiProductStates, long loadTime) {
+
+            this.version = version;
+            this.complete = complete;
+            this.apiStates = apiStates;
+            this.apiProductStates = apiProductStates;
+            this.checkTime = loadTime;
+        }
+    }
+
+    /**
+     * Reads an API to load it into the index. The state of an API which cannot be read is dropped, so that the API is
+     * read on the next update of the index.
+     *
+     * @return true if the API was read
+     */
+    private boolean addToLoad(List<IndexedAPI> apis, Organization org, String apiId, boolean apiProduct,
+                              UserContext ctx, Map<String, String> states) {
+
+        try {
+            apis.add(readAPI(org, apiId, apiProduct, ctx));
+            return true;
+        } catch (APIPersistenceException | DocumentationPersistenceException e) {
+            log.warn("Failed to index API " + apiId + " of " + org.getName(), e);
+            if (states != null) {
+                states.remove(apiId);
+            }
+            return false;
+        }
+    }
+
+    private static UserContext getAdminContext(Organization org) {
+
+        Map<String, Object> userProperties = new HashMap<>();
+        userProperties.put(APIConstants.USER_CTX_PROPERTY_ISADMIN, true);
+        return new UserContext(null, org, userProperties, new String[0]);
+    }
+
+    private List<String> listAPIIds(Organization org, UserContext ctx) throws APIPersistenceException {
+
+        List<String> apiIds = new ArrayList<>();
+        int totalCount;
+        do {
+            PublisherAPISearchResult result = persistence.searchAPIsForPublisher(org, "", apiIds.size(), PAGE_SIZE,
+                    ctx);
+            if (result == null || result.getPublisherAPIInfoList().isEmpty()) {
+                break;
+            }
+            for (PublisherAPIInfo apiInfo : result.getPublisherAPIInfoList()) {
+                apiIds.add(apiInfo.getId());
+            }
+            totalCount = result.getTotalAPIsCount();
+        } while (apiIds.size() < totalCount);
+        return apiIds;
+    }
+
+    private List<String> listAPIProductIds(Organization org, UserContext ctx) throws APIPersistenceException {
+
+        List<String> apiProductIds = new ArrayList<>();
+        int totalCount;
+        do {
+            PublisherAPIProductSearchResult result = persistence.searchAPIProductsForPublisher(org, "",
+                    apiProductIds.size(), PAGE_SIZE, ctx);
+            if (result == null || result.getPublisherAPIProductInfoList().isEmpty()) {
+                break;
+            }
+            for (PublisherAPIProductInfo productInfo : result.getPublisherAPIProductInfoList()) {
+                apiProductIds.add(productInfo.getId());
+            }
+            totalCount = result.getTotalAPIsCount();
+        } while (apiProductIds.size() < totalCount);
+        return apiProductIds;
+    }
+
+    /**
+     * Reads an API or API Product, with the names and the inline content of its documents.
+     */
+    private IndexedAPI readAPI(Organization org, String apiId, boolean apiProduct, UserContext ctx)
+            throws APIPersistenceException, DocumentationPersistenceException {
+
+        IndexedAPI api = apiProduct ? IndexedAPI.fromAPIProduct(persistence.getPublisherAPIProduct(org, apiId))
+                : IndexedAPI.fromAPI(persistence.getPublisherAPI(org, apiId));
+        DocumentSearchResult documents = persistence.searchDocumentation(org, apiId, 0, 0, null, ctx);
+        if (documents == null || documents.getDocumentationList() == null) {
+            return api;
+        }
+        for (Documentation documentation : documents.getDocumentationList()) {
+            api = api.withDocument(documentation.getId(), getTitle(documentation));
+            if (Documentation.DocumentSourceType.INLINE.equals(documentation.getSourceType())
+                    || Documentation.DocumentSourceType.MARKDOWN.equals(documentation.getSourceType())) {
+                DocumentContent content = persistence.getDocumentationContent(org, apiId, documentation.getId());
+                if (content != null && content.getTextContent() != null) {
+                    api = api.withDocumentContent(documentation.getId(), content.getTextContent());
+                }
+            }
+        }
+        return api;
+    }
+
+    private static String getTitle(Documentation documentation) {
+
+        return StringUtils.defaultString(documentation.getName()) + " "
+                + StringUtils.defaultString(documentation.getSummary());
+    }
+
+    /* ======= Index updates ======= */
+
+    /**
+     * Checks whether the changes of the APIs of an organization have to be indexed, which is once its index is
+     * loaded or being loaded.
+     */
+    private boolean isIndexed(Organization org) {
+
+        return index.isLoaded(org.getName()) || loadingOrganizations.contains(org.getName());
+    }
+
+    private void indexAPI(Organization org, IndexedAPI api) {
+
+        if (!isIndexed(org) || api.getId() == null) {
+            return;
+        }
+        IndexedAPI previous = index.get(org.getName(), api.getId());
+        index.put(org.getName(), previous != null ? api.withResourcesOf(previous) : api);
+    }
+
+    private void updateIndexedAPI(Organization org, String apiId, UnaryOperator<IndexedAPI> change) {
+
+        if (!isIndexed(org)) {
+            return;
+        }
+        IndexedAPI api = index.get(org.getName(), apiId);
+        if (api != null) {
+            index.put(org.getName(), change.apply(api));
+        }
+    }
+
+    /**
+     * Reads an indexed API again, after a change that is not described by the arguments of the change.
+     */
+    private void reindexAPI(Organization org, String apiId) {
+
+        if (!isIndexed(org)) {
+            return;
+        }
+        IndexedAPI api = index.get(org.getName(), apiId);
+        if (api == null) {
+            return;
+        }
+        try {
+            index.put(org.getName(), readAPI(org, apiId, api.isAPIProduct(), getAdminContext(org)));
+        } catch (APIPersistenceException | DocumentationPersistenceException e) {
+            log.error("Failed to index API " + apiId + ". Reloading the search index of " + org.getName(), e);
+            index.unload(org.getName());
+        }
+    }
+
+    @Override
+    public PublisherAPI addAPI(Organization org, PublisherAPI publisherAPI) throws APIPersistenceException {
+
+        PublisherAPI addedAPI = persistence.addAPI(org, publisherAPI);
+        indexAPI(org, IndexedAPI.fromAPI(addedAPI));
+        return addedAPI;
+    }
+
+    @Override
+    public PublisherAPI updateAPI(Organization org, PublisherAPI publisherAPI) throws APIPersistenceException {
+
+        PublisherAPI updatedAPI = persistence.updateAPI(org, publisherAPI);
+        indexAPI(org, IndexedAPI.fromAPI(updatedAPI != null ? updatedAPI : publisherAPI));
+        return updatedAPI;
+    }
+
+    @Override
+    public void deleteAPI(Organization org, String apiId) throws APIPersistenceException {
+
+        persistence.deleteAPI(org, apiId);
+        if (isIndexed(org)) {
+            index.remove(org.getName(), apiId);
+        }
+    }
+
+    @Override
+    public void changeAPILifeCycle(Organization org, String apiId, String status) throws APIPersistenceException {
+
+        persistence.changeAPILifeCycle(org, apiId, status);
+        updateIndexedAPI(org, apiId, api -> api.withStatus(status));
+    }
+
+    @Override
+    public void restoreAPIRevision(Organization org, String apiUUID, int revisionId) throws APIPersistenceException {
+
+        persistence.restoreAPIRevision(org, apiUUID, revisionId);
+        reindexAPI(org, apiUUID);
+    }
+
+    @Override
+    public void saveOASDefinition(Organization org, String apiId, String apiDefinition)
+            throws OASPersistenceException {
+
+        persistence.saveOASDefinition(org, apiId, apiDefinition);
+        updateIndexedAPI(org, apiId, api -> api.withDefinition(apiDefinition));
+    }
+
+    @Override
+    public void saveAsyncDefinition(Organization org, String apiId, String apiDefinition)
+            throws AsyncSpecPersistenceException {
+
+        persistence.saveAsyncDefinition(org, apiId, apiDefinition);
+        updateIndexedAPI(org, apiId, api -> api.withDefinition(apiDefinition));
+    }
+
+    @Override
+    public Documentation addDocumentation(Organization org, String apiId, Documentation documentation)
+            throws DocumentationPersistenceException {
+
+        Documentation addedDocumentation = persistence.addDocumentation(org, apiId, documentation);
+        if (addedDocumentation != null) {
+            updateIndexedAPI(org, apiId,
+                    api -> api.withDocument(addedDocumentation.getId(), getTitle(addedDocumentation)));
+        }
+        return addedDocumentation;
+    }
+
+    @Override
+    public Documentation updateDocumentation(Organization org, String apiId, Documentation documentation)
+            throws DocumentationPersistenceException {
+
+        Documentation updatedDocumentation = persistence.updateDocumentation(org, apiId, documentation);
+        updateIndexedAPI(org, apiId, api -> api.withDocument(documentation.getId(), getTitle(documentation)));
+        return updatedDocumentation;
+    }
+
+    @Override
+    public DocumentContent addDocumentationContent(Organization org, String apiId, String docId,
+                                                   DocumentContent content) throws DocumentationPersistenceException {
+
+        DocumentContent addedContent = persistence.addDocumentationContent(org, apiId, docId, content);
+        if (content != null && content.getTextContent() != null
+                && (DocumentContent.ContentSourceType.INLINE.equals(content.getSourceType())
+                || DocumentContent.ContentSourceType.MARKDOWN.equals(content.getSourceType()))) {
+            updateIndexedAPI(org, apiId, api -> api.withDocumentContent(docId, content.getTextContent()));
+        }
+        return addedContent;
+    }
+
+    @Override
+    public void deleteDocumentation(Organization org, String apiId, String docId)
+            throws DocumentationPersistenceException {
+
+        persistence.deleteDocumentation(org, apiId, docId);
+        updateIndexedAPI(org, apiId, api -> api.withoutDocument(docId));
+    }
+
+    @Override
+    public void saveThumbnail(Organization org, String apiId, ResourceFile resourceFile)
+            throws ThumbnailPersistenceException {
+
+        persistence.saveThumbnail(org, apiId, resourceFile);
+        reindexAPI(org, apiId);
+    }
+
+    @Override
+    public void deleteThumbnail(Organization org, String apiId) throws ThumbnailPersistenceException {
+
+        persistence.deleteThumbnail(org, apiId);
+        reindexAPI(org, apiId);
+    }
+
+    @Override
+    public PublisherAPIProduct addAPIProduct(Organization org, PublisherAPIProduct publisherAPIProduct)
+            throws APIPersistenceException {
+
+        PublisherAPIProduct addedAPIProduct = persistence.addAPIProduct(org, publisherAPIProduct);
+        indexAPI(org, IndexedAPI.fromAPIProduct(addedAPIProduct));
+        return addedAPIProduct;
+    }
+
+    @Override
+    public PublisherAPIProduct updateAPIProduct(Organization org, PublisherAPIProduct publisherAPIProduct)
+            throws APIPersistenceException {
+
+        PublisherAPIProduct updatedAPIProduct = persistence.updateAPIProduct(org, publisherAPIProduct);
+        indexAPI(org, IndexedAPI.fromAPIProduct(updatedAPIProduct != null ? updatedAPIProduct
+                : publisherAPIProduct));
+        return updatedAPIProduct;
+    }
+
+    @Override
+    public void deleteAPIProduct(Organization org, String apiId) throws APIPersistenceException {
+
+        persistence.deleteAPIProduct(org, apiId);
+        if (isIndexed(org)) {
+            index.remove(org.getName(), apiId);
+        }
+    }
+
+    /* ======= Passed to the wrapped persistence ======= */
+
+    @Override
+    public String addAPIRevision(Organization org, String apiUUID, int revisionId) throws APIPersistenceException {
+
+        return persistence.addAPIRevision(org, apiUUID, revisionId);
+    }
+
+    @Override
+    public void deleteAPIRevision(Organization org, String apiUUID, int revisionId) throws APIPersistenceException {
+
+        persistence.deleteAPIRevision(org, apiUUID, revisionId);
+    }
+
+    @Override
+    public PublisherAPI getPublisherAPI(Organization org, String apiId) throws APIPersistenceException {
+
+        return persistence.getPublisherAPI(org, apiId);
+    }
+
+    @Override
+    public DevPortalAPI getDevPortalAPI(Organization org, String apiId) throws APIPersistenceException {
+
+        return persistence.getDevPortalAPI(org, apiId);
+    }
+
+    @Override
+    public PublisherContentSearchResult searchContentForPublisher(Organization org, String searchQuery, int start,
+                                                                  int offset, UserContext ctx)
+            throws APIPersistenceException {
+
+        return persistence.searchContentForPublisher(org, searchQuery, start, offset, ctx);
+    }
+
+    @Override
+    public DevPortalContentSearchResult searchContentForDevPortal(Organization org, String searchQuery, int start,
+                                                                  int offset, UserContext ctx)
+            throws APIPersistenceException {
+
+        return persistence.searchContentForDevPortal(org, searchQuery, start, offset, ctx);
+    }
+
+    @Override
+    public void saveWSDL(Organization org, String apiId, ResourceFile wsdlResourceFile)
+            throws WSDLPersistenceException {
+
+        persistence.saveWSDL(org, apiId, wsdlResourceFile);
+    }
+
+    @Override
+    public ResourceFile getWSDL(Organization org, String apiId) throws WSDLPersistenceException {
+
+        return persistence.getWSDL(org, apiId);
+    }
+
+    @Override
+    public String getOASDefinition(Organization org, String apiId) throws OASPersistenceException {
+
+        return persistence.getOASDefinition(org, apiId);
+    }
+
+    @Override
+    public String getAsyncDefinition(Organization org, String apiId) throws AsyncSpecPersistenceException {
+
+        return persistence.getAsyncDefinition(org, apiId);
+    }
+
+    @Override
+    public void saveGraphQLSchemaDefinition(Organization org, String apiId, String schemaDefinition)
+            throws GraphQLPersistenceException {
+
+        persistence.saveGraphQLSchemaDefinition(org, apiId, schemaDefinition);
+    }
+
+    @Override
+    public String getGraphQLSchema(Organization org, String apiId) throws GraphQLPersistenceException {
+
+        return persistence.getGraphQLSchema(org, apiId);
+    }
+
+    @Override
+    public Documentation getDocumentation(Organization org, String apiId, String docId)
+            throws DocumentationPersistenceException {
+
+        return persistence.getDocumentation(org, apiId, docId);
+    }
+
+    @Override
+    public DocumentContent getDocumentationContent(Organization org, String apiId, String docId)
+            throws DocumentationPersistenceException {
+
+        return persistence.getDocumentationContent(org, apiId, docId);
+    }
+
+    @Override
+    public DocumentSearchResult searchDocumentation(Organization org, String apiId, int start, int offset,
+                                                    String searchQuery, UserContext ctx)
+            throws DocumentationPersistenceException {
+
+        return persistence.searchDocumentation(org, apiId, start, offset, searchQuery, ctx);
+    }
+
+    @Override
+    public Mediation addMediationPolicy(Organization org, String apiId, Mediation mediation)
+            throws MediationPolicyPersistenceException {
+
+        return persistence.addMediationPolicy(org, apiId, mediation);
+    }
+
+    @Override
+    public Mediation updateMediationPolicy(Organization org, String apiId, Mediation mediation)
+            throws MediationPolicyPersistenceException {
+
+        return persistence.updateMediationPolicy(org, apiId, mediation);
+    }
+
+    @Override
+    public Mediation getMediationPolicy(Organization org, String apiId, String mediationPolicyId)
+            throws MediationPolicyPersistenceException {
+
+        return persistence.getMediationPolicy(org, apiId, mediationPolicyId);
+    }
+
+    @Override
+    public List<MediationInfo> getAllMediationPolicies(Organization org, String apiId)
+            throws MediationPolicyPersistenceException {
+
+        return persistence.getAllMediationPolicies(org, apiId);
+    }
+
+    @Override
+    public void deleteMediationPolicy(Organization org, String apiId, String mediationPolicyId)
+            throws MediationPolicyPersistenceException {
+
+        persistence.deleteMediationPolicy(org, apiId, mediationPolicyId);
+    }
+
+    @Override
+    public ResourceFile getThumbnail(Organization org, String apiId) throws ThumbnailPersistenceException {
+
+        return persistence.getThumbnail(org, apiId);
+    }
+
+    @Override
+    public PublisherAPIProduct getPublisherAPIProduct(Organization org, String apiProductId)
+            throws APIPersistenceException {
+
+        return persistence.getPublisherAPIProduct(org, apiProductId);
+    }
+
+    @Override
+    public PublisherAPIProductSearchResult searchAPIProductsForPublisher(Organization org, String searchQuery,
+                                                                         int start, int offset, UserContext ctx)
+            throws APIPersistenceException {
+
+        return persistence.searchAPIProductsForPublisher(org, searchQuery, start, offset, ctx);
+    }
+}
@@ -0,0 +1,2155 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.persistence;
+
+import com.google.gson.ExclusionStrategy;
+import com.google.gson.FieldAttributes;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializer;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.json.simple.JSONObject;
+import org.wso2.carbon.apimgt.api.APIMgtResourceNotFoundException;
+import org.wso2.carbon.apimgt.api.model.API;
+import org.wso2.carbon.apimgt.persistence.dto.DevPortalAPI;
+import org.wso2.carbon.apimgt.persistence.dto.DevPortalAPIInfo;
+import org.wso2.carbon.apimgt.persistence.dto.DevPortalAPISearchResult;
+import org.wso2.carbon.apimgt.persistence.dto.DevPortalContentSearchResult;
+import org.wso2.carbon.apimgt.persistence.dto.DevPortalSearchContent;
+import org.wso2.carbon.apimgt.persistence.dto.DocumentContent;
+import org.wso2.carbon.apimgt.persistence.dto.DocumentSearchContent;
+import org.wso2.carbon.apimgt.persistence.dto.DocumentSearchResult;
+import org.wso2.carbon.apimgt.persistence.dto.Documentation;
+import org.wso2.carbon.apimgt.persistence.dto.Mediation;
+import org.wso2.carbon.apimgt.persistence.dto.MediationInfo;
+import org.wso2.carbon.apimgt.persistence.dto.Organization;
+import org.wso2.carbon.apimgt.persistence.dto.PublisherAPI;
+import org.wso2.carbon.apimgt.persistence.dto.PublisherAPIInfo;
+import org.wso2.carbon.apimgt.persistence.dto.PublisherAPIProduct;
+import org.wso2.carbon.apimgt.persistence.dto.PublisherAPIProductInfo;
+import org.wso2.carbon.apimgt.persistence.dto.PublisherAPIProductSearchResult;
+import org.wso2.carbon.apimgt.persistence.dto.PublisherAPISearchResult;
+import org.wso2.carbon.apimgt.persistence.dto.PublisherContentSearchResult;
+import org.wso2.carbon.apimgt.persistence.dto.PublisherSearchContent;
+import org.wso2.carbon.apimgt.persistence.dto.ResourceFile;
+import org.wso2.carbon.apimgt.persistence.dto.SearchContent;
+import org.wso2.carbon.apimgt.persistence.dto.UserContext;
+import org.wso2.carbon.apimgt.persistence.exceptions.APIPersistenceException;
+import org.wso2.carbon.apimgt.persistence.exceptions.AsyncSpecPersistenceException;
+import org.wso2.carbon.apimgt.persistence.exceptions.DocumentationPersistenceException;
+import org.wso2.carbon.apimgt.persistence.exceptions.GraphQLPersistenceException;
+import org.wso2.carbon.apimgt.persistence.exceptions.MediationPolicyPersistenceException;
+import org.wso2.carbon.apimgt.persistence.exceptions.OASPersistenceException;
+import org.wso2.carbon.apimgt.persistence.exceptions.ThumbnailPersistenceException;
+import org.wso2.carbon.apimgt.persistence.exceptions.WSDLPersistenceException;
+import org.wso2.carbon.apimgt.persistence.mapper.APIMapper;
+import org.wso2.carbon.apimgt.persistence.search.APISearchFilter;
+import org.wso2.carbon.apimgt.persistence.utils.JdbcPersistenceSQLConstants;
+import org.wso2.carbon.apimgt.persistence.utils.PersistenceUtil;
+import org.wso2.carbon.utils.multitenancy.MultitenantUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+import javax.sql.DataSource;
+
+/**
+ * {@link APIPersistence} which keeps the API artifacts in database tables instead of the registry.
+ * <p>
+ * Each API or API product is a row of AM_API_ARTIFACT, holding the artifact as JSON together with the columns the
+ * listings are filtered and sorted on. Tags, labels, categories, custom properties and the roles an artifact is
+ * visible to are rows of AM_API_ARTIFACT_ATTRIBUTE, so that the searches and the pagination are done by the database.
+ * Definitions, thumbnails and mediation policies are kept in AM_API_ARTIFACT_RESOURCE and documents in
+ * AM_API_ARTIFACT_DOC. A revision is a copy of the artifact, its resources and documents, which refers to the API it
+ * is a revision of.
+ * <p>
+ * The searches support the same query syntax as the registry. Searching APIs by the content of their documents is
+ * done on the document names, and searching by the resource paths of the APIs (subcontext) or by the description is
+ * not supported.
+ */
+public class JdbcPersistenceImpl implements APIPersistence {
+
+    private static final Log log = LogFactory.getLog(JdbcPersistenceImpl.class);
+
+    private static final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(Date.class,
+                    (JsonSerializer<Date>) (date, type, context) -> new JsonPrimitive(date.getTime()))
+            .registerTypeAdapter(Date.class,
+                    (JsonDeserializer<Date>) (json, type, context) -> new Date(json.getAsLong()))
+            .setExclusionStrategies(new HiddenFieldExclusionStrategy(PublisherAPI.class, PublisherAPIProduct.class,
+                    Documentation.class))
+            .create();
+
+    private static final String THUMBNAIL_PROPERTY = "thumbnail";
+    private static final String API_STATUS_PROPERTY = "status";
+    private static final String API_PRODUCT_STATUS_PROPERTY = "state";
+    private static final String DEFAULT_THUMBNAIL_NAME = "icon";
+    private static final String JSON_MEDIA_TYPE = "application/json";
+    private static final String XML_MEDIA_TYPE = "application/xml";
+    private static final String TEXT_MEDIA_TYPE = "text/plain";
+    private static final String LIKE_ESCAPE_CHARACTER = "!";
+    private static final int MAX_ATTRIBUTE_VALUE_LENGTH = 1024;
+
+    private final Properties properties;
+    private final String dataSourceName;
+    private volatile DataSource dataSource;
+
+    public JdbcPersistenceImpl(Properties properties) {
+
+        this.properties = properties;
+        String name = properties != null ? (String) properties.get(APIConstants.PERSISTENCE_DATA_SOURCE_NAME) : null;
+        this.dataSourceName = StringUtils.isNotEmpty(name) ? name : APIConstants.DEFAULT_PERSISTENCE_DATA_SOURCE_NAME;
+    }
+
+    protected JdbcPersistenceImpl(Properties properties, DataSource dataSource) {
+
+        this(properties);
+        this.dataSource = dataSource;
+    }
+
+    protected Connection getConnection() throws SQLException {
+
+        if (dataSource == null) {
+            synchronized (this) {
+                if (dataSource == null) {
+                    try {
+                        dataSource = (DataSource) new InitialContext().lookup(dataSourceName);
+                    } catch (NamingException e) {
+                        throw new SQLException("Data source " + dataSourceName + " of the API persistence is not "
+                                + "available", e);
+                    }
+                }
+            }
+        }
+        return dataSource.getConnection();
+    }
+
+    private boolean isAllowDisplayAPIsWithMultipleStatus() {
+
+        if (properties != null && properties.get(APIConstants.ALLOW_MULTIPLE_STATUS) != null) {
+            return (boolean) properties.get(APIConstants.ALLOW_MULTIPLE_STATUS);
+        }
+        return false;
+    }
+
+    /* ======= API ======= */
+
+    @Override
+    public PublisherAPI addAPI(Organization org, PublisherAPI publisherAPI) throws APIPersistenceException {
+
+        if (StringUtils.isEmpty(publisherAPI.getId())) {
+            publisherAPI.setId(UUID.randomUUID().toString());
+        }
+        if (StringUtils.isEmpty(publisherAPI.getCreatedTime())) {
+            publisherAPI.setCreatedTime(String.valueOf(System.currentTimeMillis()));
+        }
+        try (Connection connection = getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                addArtifact(connection, org, JdbcPersistenceSQLConstants.ARTIFACT_TYPE_API, getColumns(publisherAPI),
+                        toJson(publisherAPI));
+                if (publisherAPI.getSwaggerDefinition() != null) {
+                    saveResource(connection, publisherAPI.getId(), JdbcPersistenceSQLConstants.RESOURCE_TYPE_OAS,
+                            APIConstants.API_OAS_DEFINITION_RESOURCE_NAME, JSON_MEDIA_TYPE,
+                            toBytes(publisherAPI.getSwaggerDefinition()));
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new APIPersistenceException("Error while adding API " + publisherAPI.getApiName(), e);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("API " + publisherAPI.getApiName() + ":" + publisherAPI.getVersion() + " added with id "
+                    + publisherAPI.getId());
+        }
+        return publisherAPI;
+    }
+
+    @Override
+    public String addAPIRevision(Organization org, String apiUUID, int revisionId) throws APIPersistenceException {
+
+        String revisionUUID = UUID.randomUUID().toString();
+        try (Connection connection = getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                if (getRevisionUUID(connection, apiUUID, revisionId) != null) {
+                    throw new APIPersistenceException("API revision already exists with id: " + revisionId);
+                }
+                try (PreparedStatement ps = connection.prepareStatement(JdbcPersistenceSQLConstants.ADD_REVISION_SQL)) {
+                    ps.setString(1, revisionUUID);
+                    ps.setInt(2, revisionId);
+                    ps.setString(3, apiUUID);
+                    ps.setString(4, org.getName());
+                    if (ps.executeUpdate() == 0) {
+                        String msg = "Failed to get API. API artifact corresponding to artifactId " + apiUUID
+                                + " does not exist";
+                        throw new APIPersistenceException(msg, new APIMgtResourceNotFoundException(msg));
+                    }
+                }
+                copyResourcesAndDocuments(connection, apiUUID, revisionUUID);
+                connection.commit();
+            } catch (SQLException | APIPersistenceException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new APIPersistenceException("Error while creating API Revision", e);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Revision " + revisionId + " of API " + apiUUID + " created with id " + revisionUUID);
+        }
+        return revisionUUID;
+    }
+
+    @Override
+    public void restoreAPIRevision(Organization org, String apiUUID, int revisionId) throws APIPersistenceException {
+
+        try (Connection connection = getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                String revisionUUID = getRevisionUUID(connection, apiUUID, revisionId);
+                StoredArtifact revision = revisionUUID != null ? getArtifact(connection, org, revisionUUID) : null;
+                if (revision == null) {
+                    throw new APIPersistenceException("Revision " + revisionId + " of API " + apiUUID
+                            + " does not exist");
+                }
+                if (JdbcPersistenceSQLConstants.ARTIFACT_TYPE_API_PRODUCT.equals(revision.artifactType)) {
+                    PublisherAPIProduct product = gson.fromJson(revision.json, PublisherAPIProduct.class);
+                    product.setId(apiUUID);
+                    updateArtifact(connection, org, getColumns(product), toJson(product));
+                } else {
+                    PublisherAPI api = toPublisherAPI(revision.json);
+                    api.setId(apiUUID);
+                    updateArtifact(connection, org, getColumns(api), toJson(api));
+                }
+                executeUpdate(connection, JdbcPersistenceSQLConstants.DELETE_ALL_RESOURCES_SQL, apiUUID);
+                executeUpdate(connection, JdbcPersistenceSQLConstants.DELETE_ALL_DOCUMENTS_SQL, apiUUID);
+                copyResourcesAndDocuments(connection, revisionUUID, apiUUID);
+                connection.commit();
+            } catch (SQLException | IOException | APIPersistenceException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException | IOException e) {
+            throw new APIPersistenceException("Error while restoring revision " + revisionId + " of API " + apiUUID,
+                    e);
+        }
+    }
+
+    @Override
+    public void deleteAPIRevision(Organization org, String apiUUID, int revisionId) throws APIPersistenceException {
+
+        try (Connection connection = getConnection()) {
+            executeUpdate(connection, JdbcPersistenceSQLConstants.DELETE_REVISION_SQL, apiUUID, revisionId);
+        } catch (SQLException e) {
+            throw new APIPersistenceException("Error while deleting revision " + revisionId + " of API " + apiUUID,
+                    e);
+        }
+    }
+
+    /**
+     * Turns a stored API or API product into a revision of another one. Used when the revisions of the artifacts are
+     * copied from another persistence, where they were added as separate artifacts.
+     *
+     * @param org          Organization the artifacts are owned by
+     * @param revisionUUID UUID of the stored revision
+     * @param apiUUID      UUID of the API or API product it is a revision of
+     * @param revisionId   revision number
+     * @throws APIPersistenceException if the revision cannot be updated
+     */
+    public void setRevision(Organization org, String revisionUUID, String apiUUID, int revisionId)
+            throws APIPersistenceException {
+
+        try (Connection connection = getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                if (getArtifactType(connection, org, revisionUUID) == null) {
+                    throw new APIPersistenceException("Artifact " + revisionUUID + " does not exist");
+                }
+                executeUpdate(connection, JdbcPersistenceSQLConstants.SET_REVISION_SQL, apiUUID, revisionId,
+                        revisionUUID);
+                // Revisions are not searched
+                executeUpdate(connection, JdbcPersistenceSQLConstants.DELETE_ATTRIBUTES_SQL, revisionUUID);
+                connection.commit();
+            } catch (SQLException | APIPersistenceException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new APIPersistenceException("Error while setting revision " + revisionId + " of API " + apiUUID, e);
+        }
+    }
+
+    /**
+     * @param org  Organization the artifact is owned by
+     * @param uuid UUID of an API, API product or revision
+     * @return true if the artifact is an API product
+     * @throws APIPersistenceException if the artifact does not exist or cannot be read
+     */
+    boolean isAPIProduct(Organization org, String uuid) throws APIPersistenceException {
+
+        try (Connection connection = getConnection()) {
+            String artifactType = getArtifactType(connection, org, uuid);
+            if (artifactType == null) {
+                String msg = "API artifact corresponding to artifactId " + uuid + " does not exist";
+                throw new APIPersistenceException(msg, new APIMgtResourceNotFoundException(msg));
+            }
+            return JdbcPersistenceSQLConstants.ARTIFACT_TYPE_API_PRODUCT.equals(artifactType);
+        } catch (SQLException e) {
+            throw new APIPersistenceException("Error while reading the artifact " + uuid, e);
+        }
+    }
+
+    @Override
+    public PublisherAPI updateAPI(Organization org, PublisherAPI publisherAPI) throws APIPersistenceException {
+
+        try (Connection connection = getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                StoredArtifact stored = getArtifact(connection, org, publisherAPI.getId());
+                if (stored == null) {
+                    String msg = "Failed to get API. API artifact corresponding to artifactId " + publisherAPI.getId()
+                            + " does not exist";
+                    throw new APIPersistenceException(msg, new APIMgtResourceNotFoundException(msg));
+                }
+                PublisherAPI existingAPI = toPublisherAPI(stored.json);
+                if (publisherAPI.getThumbnail() == null) {
+                    publisherAPI.setThumbnail(existingAPI.getThumbnail());
+                }
+                if (publisherAPI.getCreatedTime() == null) {
+                    publisherAPI.setCreatedTime(existingAPI.getCreatedTime());
+                }
+                updateArtifact(connection, org, getColumns(publisherAPI), toJson(publisherAPI));
+                if (publisherAPI.getSwaggerDefinition() != null) {
+                    saveResource(connection, publisherAPI.getId(), JdbcPersistenceSQLConstants.RESOURCE_TYPE_OAS,
+                            APIConstants.API_OAS_DEFINITION_RESOURCE_NAME, JSON_MEDIA_TYPE,
+                            toBytes(publisherAPI.getSwaggerDefinition()));
+                }
+                connection.commit();
+            } catch (SQLException | IOException | APIPersistenceException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException | IOException e) {
+            throw new APIPersistenceException("Error while updating API " + publisherAPI.getId(), e);
+        }
+        return publisherAPI;
+    }
+
+    @Override
+    public PublisherAPI getPublisherAPI(Organization org, String apiId) throws APIPersistenceException {
+
+        try (Connection connection = getConnection()) {
+            StoredArtifact stored = getArtifact(connection, org, apiId);
+            if (stored == null) {
+                String msg = "Failed to get API. API artifact corresponding to artifactId " + apiId
+                        + " does not exist";
+                throw new APIPersistenceException(msg, new APIMgtResourceNotFoundException(msg));
+            }
+            PublisherAPI publisherAPI = toPublisherAPI(stored.json);
+            publisherAPI.setId(apiId);
+            byte[] definition = getResourceContent(connection, apiId, JdbcPersistenceSQLConstants.RESOURCE_TYPE_OAS);
+            if (definition != null) {
+                publisherAPI.setSwaggerDefinition(new String(definition, StandardCharsets.UTF_8));
+            }
+            return publisherAPI;
+        } catch (SQLException | IOException e) {
+            throw new APIPersistenceException("Failed to get API", e);
+        }
+    }
+
+    @Override
+    public DevPortalAPI getDevPortalAPI(Organization org, String apiId) throws APIPersistenceException {
+
+        try (Connection connection = getConnection()) {
+            StoredArtifact stored = getArtifact(connection, org, apiId);
+            if (stored == null) {
+                return null;
+            }
+            if (JdbcPersistenceSQLConstants.ARTIFACT_TYPE_API_PRODUCT.equals(stored.artifactType)) {
+                PublisherAPIProduct product = gson.fromJson(stored.json, PublisherAPIProduct.class);
+                product.setId(apiId);
+                return toDevPortalAPI(product);
+            }
+            PublisherAPI publisherAPI = toPublisherAPI(stored.json);
+            publisherAPI.setId(apiId);
+            byte[] definition = getResourceContent(connection, apiId, JdbcPersistenceSQLConstants.RESOURCE_TYPE_OAS);
+            if (definition != null) {
+                publisherAPI.setSwaggerDefinition(new String(definition, StandardCharsets.UTF_8));
+            }
+            API api = APIMapper.INSTANCE.toApi(publisherAPI);
+            return APIMapper.INSTANCE.toDevPortalApi(api);
+        } catch (SQLException | IOException e) {
+            throw new APIPersistenceException("Failed to get API", e);
+        }
+    }
+
+    @Override
+    public void deleteAPI(Organization org, String apiId) throws APIPersistenceException {
+
+        try (Connection connection = getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                // The attributes, resources and documents are deleted along with the artifacts
+                executeUpdate(connection, JdbcPersistenceSQLConstants.DELETE_ARTIFACT_REVISIONS_SQL, apiId);
+                executeUpdate(connection, JdbcPersistenceSQLConstants.DELETE_ARTIFACT_SQL, apiId, org.getName());
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new APIPersistenceException("Failed to remove the API : " + apiId, e);
+        }
+    }
+
+    @Override
+    public PublisherAPISearchResult searchAPIsForPublisher(Organization org, String searchQuery, int start,
+                                                           int offset, UserContext ctx)
+            throws APIPersistenceException {
+
+        SearchConditions conditions = new SearchConditions(org);
+        conditions.addArtifactType(JdbcPersistenceSQLConstants.ARTIFACT_TYPE_API);
+        conditions.addQuery(searchQuery);
+        addPublisherAccessConditions(conditions, ctx);
+
+        PublisherAPISearchResult result = new PublisherAPISearchResult();
+        List<PublisherAPIInfo> publisherAPIInfoList = new ArrayList<>();
+        try (Connection connection = getConnection()) {
+            int totalCount = countArtifacts(connection, conditions);
+            for (StoredArtifact stored : searchArtifacts(connection, conditions, start, offset)) {
+                PublisherAPI publisherAPI = toPublisherAPI(stored.json);
+                PublisherAPIInfo apiInfo = new PublisherAPIInfo();
+                apiInfo.setId(publisherAPI.getId());
+                apiInfo.setApiName(publisherAPI.getApiName());
+                apiInfo.setVersion(publisherAPI.getVersion());
+                apiInfo.setProviderName(publisherAPI.getProviderName());
+                apiInfo.setContext(publisherAPI.getContext());
+                apiInfo.setStatus(publisherAPI.getStatus());
+                apiInfo.setType(publisherAPI.getType());
+                apiInfo.setThumbnail(publisherAPI.getThumbnail());
+                publisherAPIInfoList.add(apiInfo);
+            }
+            result.setTotalAPIsCount(totalCount);
+        } catch (SQLException | IOException e) {
+            throw new APIPersistenceException("Error while searching APIs for the query " + searchQuery, e);
+        }
+        result.setPublisherAPIInfoList(publisherAPIInfoList);
+        result.setReturnedAPIsCount(publisherAPIInfoList.size());
+        return result;
+    }
+
+    @Override
+    public DevPortalAPISearchResult searchAPIsForDevPortal(Organization org, String searchQuery, int start,
+                                                           int offset, UserContext ctx)
+            throws APIPersistenceException {
+
+        SearchConditions conditions = new SearchConditions(org);
+        conditions.addQuery(searchQuery);
+        if (StringUtils.isEmpty(searchQuery)) {
+            conditions.addEnableStore();
+        }
+        addDevPortalAccessConditions(conditions, org, ctx);
+
+        DevPortalAPISearchResult result = new DevPortalAPISearchResult();
+        List<DevPortalAPIInfo> devPortalAPIInfoList = new ArrayList<>();
+        try (Connection connection = getConnection()) {
+            int totalCount = countArtifacts(connection, conditions);
+            for (StoredArtifact stored : searchArtifacts(connection, conditions, start, offset)) {
+                devPortalAPIInfoList.add(toDevPortalAPIInfo(stored));
+            }
+            result.setTotalAPIsCount(totalCount);
+        } catch (SQLException | IOException e) {
+            throw new APIPersistenceException("Error while searching APIs for the query " + searchQuery, e);
+        }
+        result.setDevPortalAPIInfoList(devPortalAPIInfoList);
+        result.setReturnedAPIsCount(devPortalAPIInfoList.size());
+        return result;
+    }
+
+    @Override
+    public PublisherContentSearchResult searchContentForPublisher(Organization org, String searchQuery, int start,
+                                                                  int offset, UserContext ctx)
+            throws APIPersistenceException {
+
+        String content = getContentSearchValue(searchQuery);
+        SearchConditions apiConditions = new SearchConditions(org);
+        apiConditions.addArtifactType(JdbcPersistenceSQLConstants.ARTIFACT_TYPE_API);
+        apiConditions.addContent(content);
+        addPublisherAccessConditions(apiConditions, ctx);
+        SearchConditions documentConditions = new SearchConditions(org, toContainsPattern(content));
+        addPublisherAccessConditions(documentConditions, ctx);
+
+        PublisherContentSearchResult result = new PublisherContentSearchResult();
+        List<SearchContent> contentData = new ArrayList<>();
+        try (Connection connection = getConnection()) {
+            ContentPage page = new ContentPage(connection, apiConditions, documentConditions, start, offset);
+            for (StoredArtifact stored : page.artifacts) {
+                PublisherAPI publisherAPI = toPublisherAPI(stored.json);
+                PublisherSearchContent apiContent = new PublisherSearchContent();
+                apiContent.setId(publisherAPI.getId());
+                apiContent.setName(publisherAPI.getApiName());
+                apiContent.setVersion(publisherAPI.getVersion());
+                apiContent.setProvider(PersistenceUtil.replaceEmailDomainBack(publisherAPI.getProviderName()));
+                apiContent.setContext(publisherAPI.getContext());
+                apiContent.setDescription(publisherAPI.getDescription());
+                apiContent.setStatus(publisherAPI.getStatus());
+                apiContent.setThumbnailUri(publisherAPI.getThumbnail());
+                contentData.add(apiContent);
+            }
+            for (StoredDocument document : page.documents) {
+                contentData.add(toDocumentSearchContent(document));
+            }
+            result.setTotalCount(page.totalCount);
+        } catch (SQLException | IOException e) {
+            throw new APIPersistenceException("Error while searching for content ", e);
+        }
+        result.setResults(contentData);
+        result.setReturnedCount(contentData.size());
+        return result;
+    }
+
+    @Override
+    public DevPortalContentSearchResult searchContentForDevPortal(Organization org, String searchQuery, int start,
+                                                                  int offset, UserContext ctx)
+            throws APIPersistenceException {
+
+        String content = getContentSearchValue(searchQuery);
+        SearchConditions apiConditions = new SearchConditions(org);
+        apiConditions.addContent(content);
+        addDevPortalAccessConditions(apiConditions, org, ctx);
+        SearchConditions documentConditions = new SearchConditions(org, toContainsPattern(content));
+        addDevPortalAccessConditions(documentConditions, org, ctx);
+
+        DevPortalContentSearchResult result = new DevPortalContentSearchResult();
+        List<SearchContent> contentData = new ArrayList<>();
+        try (Connection connection = getConnection()) {
+            ContentPage page = new ContentPage(connection, apiConditions, documentConditions, start, offset);
+            for (StoredArtifact stored : page.artifacts) {
+                DevPortalAPI devPortalAPI = toDevPortalAPI(stored);
+                DevPortalSearchContent apiContent = new DevPortalSearchContent();
+                apiContent.setId(devPortalAPI.getId());
+                apiContent.setName(devPortalAPI.getApiName());
+                apiContent.setVersion(devPortalAPI.getVersion());
+                apiContent.setProvider(PersistenceUtil.replaceEmailDomainBack(devPortalAPI.getProviderName()));
+                apiContent.setContext(devPortalAPI.getContext());
+                apiContent.setDescription(devPortalAPI.getDescription());
+                apiContent.setStatus(devPortalAPI.getStatus());
+                apiContent.setThumbnailUri(devPortalAPI.getThumbnail());
+                apiContent.setBusinessOwner(devPortalAPI.getBusinessOwner());
+                apiContent.setBusinessOwnerEmail(devPortalAPI.getBusinessOwnerEmail());
+                apiContent.setTechnicalOwner(devPortalAPI.getTechnicalOwner());
+                apiContent.setTechnicalOwnerEmail(devPortalAPI.getTechnicalOwnerEmail());
+                contentData.add(apiContent);
+            }
+            for (StoredDocument document : page.documents) {
+                contentData.add(toDocumentSearchContent(document));
+            }
+            result.setTotalCount(page.totalCount);
+        } catch (SQLException | IOException e) {
+            throw new APIPersistenceException("Error while searching for content ", e);
+        }
+        result.setResults(contentData);
+        result.setReturnedCount(contentData.size());
+        return result;
+    }
+
+    /**
+     * Changes the lifecycle state of an API or API product. The transition is expected to be validated by the caller.
+     */
+    @Override
+    public void changeAPILifeCycle(Organization org, String apiId, String status) throws APIPersistenceException {
+
+        try (Connection connection = getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                StoredArtifact stored = getArtifact(connection, org, apiId);
+                if (stored == null) {
+                    throw new APIPersistenceException("API artifact corresponding to artifactId " + apiId
+                            + " does not exist");
+                }
+                JsonObject artifact = gson.fromJson(stored.json, JsonObject.class);
+                String statusProperty = JdbcPersistenceSQLConstants.ARTIFACT_TYPE_API_PRODUCT
+                        .equals(stored.artifactType) ? API_PRODUCT_STATUS_PROPERTY : API_STATUS_PROPERTY;
+                artifact.addProperty(statusProperty, status.toUpperCase(Locale.ENGLISH));
+                executeUpdate(connection, JdbcPersistenceSQLConstants.UPDATE_ARTIFACT_CONTENT_SQL,
+                        status.toUpperCase(Locale.ENGLISH), new Timestamp(System.currentTimeMillis()),
+                        toBytes(gson.toJson(artifact)), apiId);
+                connection.commit();
+            } catch (SQLException | APIPersistenceException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException | IOException e) {
+            throw new APIPersistenceException("Error while changing the lifecycle. ", e);
+        }
+    }
+
+    /* ======= Definitions ======= */
+
+    @Override
+    public void saveWSDL(Organization org, String apiId, ResourceFile wsdlResourceFile)
+            throws WSDLPersistenceException {
+
+        try (Connection connection = getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                checkArtifactExists(connection, org, apiId);
+                saveResource(connection, apiId, JdbcPersistenceSQLConstants.RESOURCE_TYPE_WSDL,
+                        wsdlResourceFile.getName(), wsdlResourceFile.getContentType(),
+                        IOUtils.toByteArray(wsdlResourceFile.getContent()));
+                connection.commit();
+            } catch (SQLException | IOException | APIPersistenceException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException | IOException | APIPersistenceException e) {
+            throw new WSDLPersistenceException("Error while saving the WSDL for api " + apiId, e);
+        }
+    }
+
+    @Override
+    public ResourceFile getWSDL(Organization org, String apiId) throws WSDLPersistenceException {
+
+        try (Connection connection = getConnection()) {
+            checkArtifactExists(connection, org, apiId);
+            return getResourceFile(connection, apiId, JdbcPersistenceSQLConstants.RESOURCE_TYPE_WSDL);
+        } catch (SQLException | IOException | APIPersistenceException e) {
+            throw new WSDLPersistenceException("Error while getting the WSDL of api " + apiId, e);
+        }
+    }
+
+    @Override
+    public void saveOASDefinition(Organization org, String apiId, String apiDefinition)
+            throws OASPersistenceException {
+
+        try {
+            saveDefinition(org, apiId, JdbcPersistenceSQLConstants.RESOURCE_TYPE_OAS,
+                    APIConstants.API_OAS_DEFINITION_RESOURCE_NAME, JSON_MEDIA_TYPE, apiDefinition);
+        } catch (SQLException | APIPersistenceException e) {
+            throw new OASPersistenceException("Error while saving the OAS definition of api " + apiId, e);
+        }
+    }
+
+    @Override
+    public String getOASDefinition(Organization org, String apiId) throws OASPersistenceException {
+
+        try {
+            return getDefinition(org, apiId, JdbcPersistenceSQLConstants.RESOURCE_TYPE_OAS);
+        } catch (SQLException | IOException | APIPersistenceException e) {
+            throw new OASPersistenceException("Error while getting the OAS definition of api " + apiId, e);
+        }
+    }
+
+    @Override
+    public void saveAsyncDefinition(Organization org, String apiId, String apiDefinition)
+            throws AsyncSpecPersistenceException {
+
+        try {
+            saveDefinition(org, apiId, JdbcPersistenceSQLConstants.RESOURCE_TYPE_ASYNC,
+                    APIConstants.API_ASYNC_API_DEFINITION_RESOURCE_NAME, JSON_MEDIA_TYPE, apiDefinition);
+        } catch (SQLException | APIPersistenceException e) {
+            throw new AsyncSpecPersistenceException("Error while saving the Async API definition of api " + apiId, e);
+        }
+    }
+
+    @Override
+    public String getAsyncDefinition(Organization org, String apiId) throws AsyncSpecPersistenceException {
+
+        try {
+            return getDefinition(org, apiId, JdbcPersistenceSQLConstants.RESOURCE_TYPE_ASYNC);
+        } catch (SQLException | IOException | APIPersistenceException e) {
+            throw new AsyncSpecPersistenceException("Error while getting the Async API definition of api " + apiId,
+                    e);
+        }
+    }
+
+    @Override
+    public void saveGraphQLSchemaDefinition(Organization org, String apiId, String schemaDefinition)
+            throws GraphQLPersistenceException {
+
+        try {
+            saveDefinition(org, apiId, JdbcPersistenceSQLConstants.RESOURCE_TYPE_GRAPHQL,
+                    apiId + APIConstants.GRAPHQL_SCHEMA_FILE_EXTENSION, TEXT_MEDIA_TYPE, schemaDefinition);
+        } catch (SQLException | APIPersistenceException e) {
+            throw new GraphQLPersistenceException("Error while saving the GraphQL schema of api " + apiId, e);
+        }
+    }
+
+    @Override
+    public String getGraphQLSchema(Organization org, String apiId) throws GraphQLPersistenceException {
+
+        try {
+            return getDefinition(org, apiId, JdbcPersistenceSQLConstants.RESOURCE_TYPE_GRAPHQL);
+        } catch (SQLException | IOException | APIPersistenceException e) {
+            throw new GraphQLPersistenceException("Error while getting the GraphQL schema of api " + apiId, e);
+        }
+    }
+
+    private void saveDefinition(Organization org, String apiId, String resourceType, String name, String mediaType,
+                                String definition) throws SQLException, APIPersistenceException {
+
+        try (Connection connection = getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                checkArtifactExists(connection, org, apiId);
+                saveResource(connection, apiId, resourceType, name, mediaType, toBytes(definition));
+                connection.commit();
+            } catch (SQLException | APIPersistenceException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    private String getDefinition(Organization org, String apiId, String resourceType)
+            throws SQLException, IOException, APIPersistenceException {
+
+        try (Connection connection = getConnection()) {
+            checkArtifactExists(connection, org, apiId);
+            byte[] definition = getResourceContent(connection, apiId, resourceType);
+            return definition != null ? new String(definition, StandardCharsets.UTF_8) : null;
+        }
+    }
+
+    /* ======= Documentation ======= */
+
+    @Override
+    public Documentation addDocumentation(Organization org, String apiId, Documentation documentation)
+            throws DocumentationPersistenceException {
+
+        if (StringUtils.isEmpty(documentation.getId())) {
+            documentation.setId(UUID.randomUUID().toString());
+        }
+        try (Connection connection = getConnection()) {
+            checkArtifactExists(connection, org, apiId);
+            executeUpdate(connection, JdbcPersistenceSQLConstants.ADD_DOCUMENT_SQL, documentation.getId(), apiId,
+                    documentation.getName(), toBytes(gson.toJson(documentation)), null, null, null);
+        } catch (SQLException | APIPersistenceException e) {
+            throw new DocumentationPersistenceException("Failed to add documentation", e);
+        }
+        return documentation;
+    }
+
+    @Override
+    public Documentation updateDocumentation(Organization org, String apiId, Documentation documentation)
+            throws DocumentationPersistenceException {
+
+        try (Connection connection = getConnection()) {
+            checkArtifactExists(connection, org, apiId);
+            int updated = executeUpdate(connection, JdbcPersistenceSQLConstants.UPDATE_DOCUMENT_SQL,
+                    documentation.getName(), toBytes(gson.toJson(documentation)), documentation.getId(), apiId);
+            if (updated == 0) {
+                throw new DocumentationPersistenceException("Document " + documentation.getId() + " does not exist");
+            }
+        } catch (SQLException | APIPersistenceException e) {
+            throw new DocumentationPersistenceException("Failed to update documentation", e);
+        }
+        return documentation;
+    }
+
+    @Override
+    public Documentation getDocumentation(Organization org, String apiId, String docId)
+            throws DocumentationPersistenceException {
+
+        try (Connection connection = getConnection()) {
+            checkArtifactExists(connection, org, apiId);
+            try (PreparedStatement ps = connection.prepareStatement(JdbcPersistenceSQLConstants.GET_DOCUMENT_SQL)) {
+                ps.setString(1, docId);
+                ps.setString(2, apiId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        return gson.fromJson(readString(rs, "METADATA"), Documentation.class);
+                    }
+                }
+            }
+        } catch (SQLException | IOException | APIPersistenceException e) {
+            throw new DocumentationPersistenceException("Failed to get documentation details", e);
+        }
+        return null;
+    }
+
+    @Override
+    public DocumentContent getDocumentationContent(Organization org, String apiId, String docId)
+            throws DocumentationPersistenceException {
+
+        try (Connection connection = getConnection()) {
+            checkArtifactExists(connection, org, apiId);
+            try (PreparedStatement ps = connection.prepareStatement(
+                    JdbcPersistenceSQLConstants.GET_DOCUMENT_CONTENT_SQL)) {
+                ps.setString(1, docId);
+                ps.setString(2, apiId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) {
+                        return null;
+                    }
+                    Documentation documentation = gson.fromJson(readString(rs, "METADATA"), Documentation.class);
+                    byte[] content = readBytes(rs, "CONTENT");
+                    Documentation.DocumentSourceType sourceType = documentation.getSourceType();
+                    DocumentContent documentContent = null;
+                    if (Documentation.DocumentSourceType.FILE.equals(sourceType)) {
+                        if (content != null) {
+                            documentContent = new DocumentContent();
+                            documentContent.setSourceType(DocumentContent.ContentSourceType.FILE);
+                            ResourceFile resourceFile = new ResourceFile(new ByteArrayInputStream(content),
+                                    rs.getString("MEDIA_TYPE"));
+                            resourceFile.setName(rs.getString("CONTENT_NAME"));
+                            documentContent.setResourceFile(resourceFile);
+                        }
+                    } else if (Documentation.DocumentSourceType.INLINE.equals(sourceType)
+                            || Documentation.DocumentSourceType.MARKDOWN.equals(sourceType)) {
+                        documentContent = new DocumentContent();
+                        if (content != null) {
+                            documentContent.setTextContent(new String(content, StandardCharsets.UTF_8));
+                            documentContent.setSourceType(
+                                    DocumentContent.ContentSourceType.valueOf(sourceType.toString()));
+                        }
+                    } else if (Documentation.DocumentSourceType.URL.equals(sourceType)) {
+                        documentContent = new DocumentContent();
+                        documentContent.setTextContent(documentation.getSourceUrl());
+                        documentContent.setSourceType(DocumentContent.ContentSourceType.URL);
+                    }
+                    return documentContent;
+                }
+            }
+        } catch (SQLException | IOException | APIPersistenceException e) {
+            throw new DocumentationPersistenceException("Failed to get documentation details", e);
+        }
+    }
+
+    @Override
+    public DocumentContent addDocumentationContent(Organization org, String apiId, String docId,
+                                                   DocumentContent content) throws DocumentationPersistenceException {
+
+        try (Connection connection = getConnection()) {
+            checkArtifactExists(connection, org, apiId);
+            int updated;
+            if (DocumentContent.ContentSourceType.FILE.equals(content.getSourceType())) {
+                ResourceFile resourceFile = content.getResourceFile();
+                updated = executeUpdate(connection, JdbcPersistenceSQLConstants.UPDATE_DOCUMENT_CONTENT_SQL,
+                        IOUtils.toByteArray(resourceFile.getContent()), resourceFile.getName(),
+                        resourceFile.getContentType(), docId, apiId);
+                if (updated > 0) {
+                    Documentation documentation = getDocumentation(org, apiId, docId);
+                    documentation.setFilePath(resourceFile.getName());
+                    executeUpdate(connection, JdbcPersistenceSQLConstants.UPDATE_DOCUMENT_SQL,
+                            documentation.getName(), toBytes(gson.toJson(documentation)), docId, apiId);
+                }
+            } else if (APIConstants.NO_CONTENT_UPDATE.equals(content.getTextContent())) {
+                return null;
+            } else {
+                updated = executeUpdate(connection, JdbcPersistenceSQLConstants.UPDATE_DOCUMENT_CONTENT_SQL,
+                        toBytes(content.getTextContent()), null, TEXT_MEDIA_TYPE, docId, apiId);
+            }
+            if (updated == 0) {
+                throw new DocumentationPersistenceException("Document " + docId + " does not exist");
+            }
+        } catch (SQLException | IOException | APIPersistenceException e) {
+            throw new DocumentationPersistenceException("Error while adding document content", e);
+        }
+        return null;
+    }
+
+    @Override
+    public DocumentSearchResult searchDocumentation(Organization org, String apiId, int start, int offset,
+                                                    String searchQuery, UserContext ctx)
+            throws DocumentationPersistenceException {
+
+        List<Documentation> documentationList = new ArrayList<>();
+        try (Connection connection = getConnection()) {
+            checkArtifactExists(connection, org, apiId);
+            String sql = JdbcPersistenceSQLConstants.GET_DOCUMENTS_SQL;
+            String requestedDocName = null;
+            if (searchQuery != null) {
+                if (searchQuery.toLowerCase(Locale.ENGLISH).startsWith("name:")) {
+                    sql = JdbcPersistenceSQLConstants.GET_DOCUMENTS_BY_NAME_SQL;
+                    requestedDocName = searchQuery.split(":")[1].toLowerCase(Locale.ENGLISH);
+                } else {
+                    log.warn("Document search not implemented for the query " + searchQuery);
+                    sql = null;
+                }
+            }
+            if (sql != null) {
+                try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                    ps.setString(1, apiId);
+                    if (requestedDocName != null) {
+                        ps.setString(2, requestedDocName);
+                    }
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            documentationList.add(gson.fromJson(readString(rs, "METADATA"), Documentation.class));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException | IOException | APIPersistenceException e) {
+            throw new DocumentationPersistenceException("Failed to get documentations for api/product " + apiId, e);
+        }
+        DocumentSearchResult result = new DocumentSearchResult();
+        result.setDocumentationList(documentationList);
+        result.setTotalDocsCount(documentationList.size());
+        return result;
+    }
+
+    @Override
+    public void deleteDocumentation(Organization org, String apiId, String docId)
+            throws DocumentationPersistenceException {
+
+        try (Connection connection = getConnection()) {
+            checkArtifactExists(connection, org, apiId);
+            executeUpdate(connection, JdbcPersistenceSQLConstants.DELETE_DOCUMENT_SQL, docId, apiId);
+        } catch (SQLException | APIPersistenceException e) {
+            throw new DocumentationPersistenceException("Failed to delete documentation", e);
+        }
+    }
+
+    /* ======= Mediation Policy ======= */
+
+    @Override
+    public Mediation addMediationPolicy(Organization org, String apiId, Mediation mediation)
+            throws MediationPolicyPersistenceException {
+
+        if (StringUtils.isEmpty(mediation.getId())) {
+            mediation.setId(UUID.randomUUID().toString());
+        }
+        try (Connection connection = getConnection()) {
+            checkArtifactExists(connection, org, apiId);
+            executeUpdate(connection, JdbcPersistenceSQLConstants.ADD_RESOURCE_SQL, mediation.getId(), apiId,
+                    getMediationResourceType(mediation.getType()), mediation.getName(), XML_MEDIA_TYPE,
+                    toBytes(mediation.getConfig()));
+        } catch (SQLException | APIPersistenceException e) {
+            throw new MediationPolicyPersistenceException("Error while adding the mediation policy "
+                    + mediation.getName(), e);
+        }
+        return mediation;
+    }
+
+    @Override
+    public Mediation updateMediationPolicy(Organization org, String apiId, Mediation mediation)
+            throws MediationPolicyPersistenceException {
+
+        try (Connection connection = getConnection()) {
+            checkArtifactExists(connection, org, apiId);
+            int updated = executeUpdate(connection, JdbcPersistenceSQLConstants.UPDATE_RESOURCE_SQL,
+                    getMediationResourceType(mediation.getType()), mediation.getName(), XML_MEDIA_TYPE,
+                    toBytes(mediation.getConfig()), mediation.getId(), apiId);
+            if (updated == 0) {
+                throw new MediationPolicyPersistenceException("Mediation policy " + mediation.getId()
+                        + " does not exist");
+            }
+        } catch (SQLException | APIPersistenceException e) {
+            throw new MediationPolicyPersistenceException("Error while updating the mediation policy "
+                    + mediation.getName(), e);
+        }
+        return mediation;
+    }
+
+    @Override
+    public Mediation getMediationPolicy(Organization org, String apiId, String mediationPolicyId)
+            throws MediationPolicyPersistenceException {
+
+        try (Connection connection = getConnection()) {
+            checkArtifactExists(connection, org, apiId);
+            try (PreparedStatement ps = connection.prepareStatement(JdbcPersistenceSQLConstants.GET_RESOURCE_SQL)) {
+                ps.setString(1, mediationPolicyId);
+                ps.setString(2, apiId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    String resourceType = rs.next() ? rs.getString("RESOURCE_TYPE") : null;
+                    if (resourceType == null
+                            || !resourceType.startsWith(JdbcPersistenceSQLConstants.RESOURCE_TYPE_MEDIATION_PREFIX)) {
+                        return null;
+                    }
+                    Mediation mediation = new Mediation();
+                    mediation.setId(rs.getString("RESOURCE_UUID"));
+                    mediation.setName(rs.getString("RESOURCE_NAME"));
+                    mediation.setType(getMediationType(resourceType));
+                    mediation.setConfig(readString(rs, "CONTENT"));
+                    return mediation;
+                }
+            }
+        } catch (SQLException | IOException | APIPersistenceException e) {
+            throw new MediationPolicyPersistenceException("Error while getting the mediation policy "
+                    + mediationPolicyId, e);
+        }
+    }
+
+    @Override
+    public List<MediationInfo> getAllMediationPolicies(Organization org, String apiId)
+            throws MediationPolicyPersistenceException {
+
+        List<MediationInfo> mediationList = new ArrayList<>();
+        try (Connection connection = getConnection()) {
+            checkArtifactExists(connection, org, apiId);
+            try (PreparedStatement ps = connection.prepareStatement(
+                    JdbcPersistenceSQLConstants.GET_MEDIATION_RESOURCES_SQL)) {
+                ps.setString(1, apiId);
+                ps.setString(2, getMediationResourceType(APIConstants.API_CUSTOM_SEQUENCE_TYPE_IN));
+                ps.setString(3, getMediationResourceType(APIConstants.API_CUSTOM_SEQUENCE_TYPE_OUT));
+                ps.setString(4, getMediationResourceType(APIConstants.API_CUSTOM_SEQUENCE_TYPE_FAULT));
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        MediationInfo mediationInfo = new MediationInfo();
+                        mediationInfo.setId(rs.getString("RESOURCE_UUID"));
+                        mediationInfo.setName(rs.getString("RESOURCE_NAME"));
+                        mediationInfo.setType(getMediationType(rs.getString("RESOURCE_TYPE")));
+                        mediationList.add(mediationInfo);
+                    }
+                }
+            }
+        } catch (SQLException | APIPersistenceException e) {
+            throw new MediationPolicyPersistenceException("Error while getting the mediation policies of api "
+                    + apiId, e);
+        }
+        return mediationList;
+    }
+
+    @Override
+    public void deleteMediationPolicy(Organization org, String apiId, String mediationPolicyId)
+            throws MediationPolicyPersistenceException {
+
+        try (Connection connection = getConnection()) {
+            checkArtifactExists(connection, org, apiId);
+            executeUpdate(connection, JdbcPersistenceSQLConstants.DELETE_RESOURCE_SQL, mediationPolicyId, apiId);
+        } catch (SQLException | APIPersistenceException e) {
+            throw new MediationPolicyPersistenceException("Error while deleting the mediation policy "
+                    + mediationPolicyId, e);
+        }
+    }
+
+    private static String getMediationResourceType(String mediationType) {
+
+        return JdbcPersistenceSQLConstants.RESOURCE_TYPE_MEDIATION_PREFIX + mediationType.toUpperCase(Locale.ENGLISH);
+    }
+
+    private static String getMediationType(String resourceType) {
+
+        return resourceType.substring(JdbcPersistenceSQLConstants.RESOURCE_TYPE_MEDIATION_PREFIX.length())
+                .toLowerCase(Locale.ENGLISH);
+    }
+
+    /* ======= Thumbnail Icon ======= */
+
+    @Override
+    public void saveThumbnail(Organization org, String apiId, ResourceFile resourceFile)
+            throws ThumbnailPersistenceException {
+
+        String name = StringUtils.isNotEmpty(resourceFile.getName()) ? resourceFile.getName()
+                : DEFAULT_THUMBNAIL_NAME;
+        try (Connection connection = getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                saveResource(connection, apiId, JdbcPersistenceSQLConstants.RESOURCE_TYPE_THUMBNAIL, name,
+                        resourceFile.getContentType(), IOUtils.toByteArray(resourceFile.getContent()));
+                setArtifactProperty(connection, org, apiId, THUMBNAIL_PROPERTY, name);
+                connection.commit();
+            } catch (SQLException | IOException | APIPersistenceException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException | IOException | APIPersistenceException e) {
+            throw new ThumbnailPersistenceException("Error while saving thumbnail for api " + apiId, e);
+        }
+    }
+
+    @Override
+    public ResourceFile getThumbnail(Organization org, String apiId) throws ThumbnailPersistenceException {
+
+        try (Connection connection = getConnection()) {
+            checkArtifactExists(connection, org, apiId);
+            return getResourceFile(connection, apiId, JdbcPersistenceSQLConstants.RESOURCE_TYPE_THUMBNAIL);
+        } catch (SQLException | IOException | APIPersistenceException e) {
+            throw new ThumbnailPersistenceException("Error while accessing thumbnail resource of api " + apiId, e);
+        }
+    }
+
+    @Override
+    public void deleteThumbnail(Organization org, String apiId) throws ThumbnailPersistenceException {
+
+        try (Connection connection = getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                setArtifactProperty(connection, org, apiId, THUMBNAIL_PROPERTY, null);
+                executeUpdate(connection, JdbcPersistenceSQLConstants.DELETE_RESOURCE_BY_TYPE_SQL, apiId,
+                        JdbcPersistenceSQLConstants.RESOURCE_TYPE_THUMBNAIL);
+                connection.commit();
+            } catch (SQLException | IOException | APIPersistenceException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException | IOException | APIPersistenceException e) {
+            throw new ThumbnailPersistenceException("Error while deleting thumbnail of api " + apiId, e);
+        }
+    }
+
+    /* ======= API Product ======= */
+
+    @Override
+    public PublisherAPIProduct addAPIProduct(Organization org, PublisherAPIProduct publisherAPIProduct)
+            throws APIPersistenceException {
+
+        if (StringUtils.isEmpty(publisherAPIProduct.getId())) {
+            publisherAPIProduct.setId(UUID.randomUUID().toString());
+        }
+        if (StringUtils.isEmpty(publisherAPIProduct.getCreatedTime())) {
+            publisherAPIProduct.setCreatedTime(String.valueOf(System.currentTimeMillis()));
+        }
+        try (Connection connection = getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                addArtifact(connection, org, JdbcPersistenceSQLConstants.ARTIFACT_TYPE_API_PRODUCT,
+                        getColumns(publisherAPIProduct), toJson(publisherAPIProduct));
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new APIPersistenceException("Error while adding API Product "
+                    + publisherAPIProduct.getApiProductName(), e);
+        }
+        return publisherAPIProduct;
+    }
+
+    @Override
+    public PublisherAPIProduct updateAPIProduct(Organization org, PublisherAPIProduct publisherAPIProduct)
+            throws APIPersistenceException {
+
+        try (Connection connection = getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                StoredArtifact stored = getArtifact(connection, org, publisherAPIProduct.getId());
+                if (stored == null) {
+                    String msg = "Failed to get API Product. API Product artifact corresponding to artifactId "
+                            + publisherAPIProduct.getId() + " does not exist";
+                    throw new APIPersistenceException(msg, new APIMgtResourceNotFoundException(msg));
+                }
+                PublisherAPIProduct existingProduct = gson.fromJson(stored.json, PublisherAPIProduct.class);
+                if (publisherAPIProduct.getThumbnail() == null) {
+                    publisherAPIProduct.setThumbnail(existingProduct.getThumbnail());
+                }
+                if (publisherAPIProduct.getCreatedTime() == null) {
+                    publisherAPIProduct.setCreatedTime(existingProduct.getCreatedTime());
+                }
+                updateArtifact(connection, org, getColumns(publisherAPIProduct), toJson(publisherAPIProduct));
+                connection.commit();
+            } catch (SQLException | IOException | APIPersistenceException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException | IOException e) {
+            throw new APIPersistenceException("Error while updating API Product " + publisherAPIProduct.getId(), e);
+        }
+        return publisherAPIProduct;
+    }
+
+    @Override
+    public PublisherAPIProduct getPublisherAPIProduct(Organization org, String apiProductId)
+            throws APIPersistenceException {
+
+        try (Connection connection = getConnection()) {
+            StoredArtifact stored = getArtifact(connection, org, apiProductId);
+            if (stored == null) {
+                String msg = "Failed to get API Product. API Product artifact corresponding to artifactId "
+                        + apiProductId + " does not exist";
+                throw new APIPersistenceException(msg, new APIMgtResourceNotFoundException(msg));
+            }
+            PublisherAPIProduct product = gson.fromJson(stored.json, PublisherAPIProduct.class);
+            product.setId(apiProductId);
+            return product;
+        } catch (SQLException | IOException e) {
+            throw new APIPersistenceException("Failed to get API Product", e);
+        }
+    }
+
+    @Override
+    public PublisherAPIProductSearchResult searchAPIProductsForPublisher(Organization org, String searchQuery,
+                                                                         int start, int offset, UserContext ctx)
+            throws APIPersistenceException {
+
+        SearchConditions conditions = new SearchConditions(org);
+        conditions.addArtifactType(JdbcPersistenceSQLConstants.ARTIFACT_TYPE_API_PRODUCT);
+        conditions.addQuery(searchQuery);
+        addPublisherAccessConditions(conditions, ctx);
+
+        PublisherAPIProductSearchResult result = new PublisherAPIProductSearchResult();
+        List<PublisherAPIProductInfo> publisherAPIProductInfoList = new ArrayList<>();
+        try (Connection connection = getConnection()) {
+            int totalCount = countArtifacts(connection, conditions);
+            for (StoredArtifact stored : searchArtifacts(connection, conditions, start, offset)) {
+                PublisherAPIProduct product = gson.fromJson(stored.json, PublisherAPIProduct.class);
+                PublisherAPIProductInfo productInfo = new PublisherAPIProductInfo();
+                productInfo.setId(product.getId());
+                productInfo.setApiProductName(product.getApiProductName());
+                productInfo.setVersion(product.getVersion());
+                productInfo.setProviderName(product.getProviderName());
+                productInfo.setContext(product.getContext());
+                productInfo.setState(product.getState());
+                productInfo.setType(product.getType());
+                productInfo.setApiSecurity(product.getApiSecurity());
+                publisherAPIProductInfoList.add(productInfo);
+            }
+            result.setTotalAPIsCount(totalCount);
+        } catch (SQLException | IOException e) {
+            throw new APIPersistenceException("Error while searching API Products for the query " + searchQuery, e);
+        }
+        result.setPublisherAPIProductInfoList(publisherAPIProductInfoList);
+        result.setReturnedAPIsCount(publisherAPIProductInfoList.size());
+        return result;
+    }
+
+    @Override
+    public void deleteAPIProduct(Organization org, String apiId) throws APIPersistenceException {
+
+        deleteAPI(org, apiId);
+    }
+
+    /* ======= Artifact rows ======= */
+
+    private void addArtifact(Connection connection, Organization org, String artifactType, ArtifactColumns columns,
+                             byte[] artifact) throws SQLException {
+
+        executeUpdate(connection, JdbcPersistenceSQLConstants.ADD_ARTIFACT_SQL, columns.uuid, org.getName(),
+                artifactType, columns.name, columns.version, columns.provider, columns.context, columns.type,
+                columns.status, columns.visibility, columns.enableStore ? 1 : 0, columns.createdTime,
+                new Timestamp(System.currentTimeMillis()), artifact);
+        addAttributes(connection, columns.uuid, columns.attributes);
+    }
+
+    private void updateArtifact(Connection connection, Organization org, ArtifactColumns columns, byte[] artifact)
+            throws SQLException {
+
+        executeUpdate(connection, JdbcPersistenceSQLConstants.UPDATE_ARTIFACT_SQL, columns.name, columns.version,
+                columns.provider, columns.context, columns.type, columns.status, columns.visibility,
+                columns.enableStore ? 1 : 0, new Timestamp(System.currentTimeMillis()), artifact, columns.uuid,
+                org.getName());
+        executeUpdate(connection, JdbcPersistenceSQLConstants.DELETE_ATTRIBUTES_SQL, columns.uuid);
+        addAttributes(connection, columns.uuid, columns.attributes);
+    }
+
+    private void addAttributes(Connection connection, String uuid, Map<String, Set<String>> attributes)
+            throws SQLException {
+
+        try (PreparedStatement ps = connection.prepareStatement(JdbcPersistenceSQLConstants.ADD_ATTRIBUTE_SQL)) {
+            for (Map.Entry<String, Set<String>> attribute : attributes.entrySet()) {
+                for (String value : attribute.getValue()) {
+                    ps.setString(1, uuid);
+                    ps.setString(2, attribute.getKey());
+                    ps.setString(3, value);
+                    ps.setString(4, getAttributeValueHash(value));
+                    ps.addBatch();
+                }
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private StoredArtifact getArtifact(Connection connection, Organization org, String uuid)
+            throws SQLException, IOException {
+
+        try (PreparedStatement ps = connection.prepareStatement(JdbcPersistenceSQLConstants.GET_ARTIFACT_SQL)) {
+            ps.setString(1, uuid);
+            ps.setString(2, org.getName());
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return new StoredArtifact(rs.getString("ARTIFACT_TYPE"), readString(rs, "ARTIFACT"));
+                }
+            }
+        }
+        return null;
+    }
+
+    private String getArtifactType(Connection connection, Organization org, String uuid) throws SQLException {
+
+        try (PreparedStatement ps = connection.prepareStatement(JdbcPersistenceSQLConstants.GET_ARTIFACT_TYPE_SQL)) {
+            ps.setString(1, uuid);
+            ps.setString(2, org.getName());
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getString("ARTIFACT_TYPE") : null;
+            }
+        }
+    }
+
+    private void checkArtifactExists(Connection connection, Organization org, String uuid)
+            throws SQLException, APIPersistenceException {
+
+        if (getArtifactType(connection, org, uuid) == null) {
+            String msg = "API artifact corresponding to artifactId " + uuid + " does not exist";
+            throw new APIPersistenceException(msg, new APIMgtResourceNotFoundException(msg));
+        }
+    }
+
+    private void setArtifactProperty(Connection connection, Organization org, String uuid, String property,
+                                     String value) throws SQLException, IOException, APIPersistenceException {
+
+        StoredArtifact stored = getArtifact(connection, org, uuid);
+        if (stored == null) {
+            throw new APIPersistenceException("API artifact corresponding to artifactId " + uuid + " does not exist");
+        }
+        JsonObject artifact = gson.fromJson(stored.json, JsonObject.class);
+        if (value != null) {
+            artifact.addProperty(property, value);
+        } else {
+            artifact.remove(property);
+        }
+        String status = null;
+        if (artifact.has(API_STATUS_PROPERTY)) {
+            status = artifact.get(API_STATUS_PROPERTY).getAsString();
+        } else if (artifact.has(API_PRODUCT_STATUS_PROPERTY)) {
+            status = artifact.get(API_PRODUCT_STATUS_PROPERTY).getAsString();
+        }
+        executeUpdate(connection, JdbcPersistenceSQLConstants.UPDATE_ARTIFACT_CONTENT_SQL,
+                status != null ? status.toUpperCase(Locale.ENGLISH) : null, new Timestamp(System.currentTimeMillis()),
+                toBytes(gson.toJson(artifact)), uuid);
+    }
+
+    private String getRevisionUUID(Connection connection, String apiUUID, int revisionId) throws SQLException {
+
+        try (PreparedStatement ps = connection.prepareStatement(JdbcPersistenceSQLConstants.GET_REVISION_UUID_SQL)) {
+            ps.setString(1, apiUUID);
+            ps.setInt(2, revisionId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getString("API_UUID") : null;
+            }
+        }
+    }
+
+    private void copyResourcesAndDocuments(Connection connection, String sourceUUID, String targetUUID)
+            throws SQLException {
+
+        try (PreparedStatement select = connection.prepareStatement(
+                JdbcPersistenceSQLConstants.GET_ALL_RESOURCES_SQL);
+             PreparedStatement insert = connection.prepareStatement(JdbcPersistenceSQLConstants.ADD_RESOURCE_SQL)) {
+            select.setString(1, sourceUUID);
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    insert.setString(1, UUID.randomUUID().toString());
+                    insert.setString(2, targetUUID);
+                    insert.setString(3, rs.getString("RESOURCE_TYPE"));
+                    insert.setString(4, rs.getString("RESOURCE_NAME"));
+                    insert.setString(5, rs.getString("MEDIA_TYPE"));
+                    setBytes(insert, 6, readBytes(rs, "CONTENT"));
+                    insert.addBatch();
+                }
+            }
+            insert.executeBatch();
+        } catch (IOException e) {
+            throw new SQLException("Error while reading the resources of " + sourceUUID, e);
+        }
+        try (PreparedStatement select = connection.prepareStatement(
+                JdbcPersistenceSQLConstants.GET_ALL_DOCUMENTS_SQL);
+             PreparedStatement insert = connection.prepareStatement(JdbcPersistenceSQLConstants.ADD_DOCUMENT_SQL)) {
+            select.setString(1, sourceUUID);
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    Documentation documentation = gson.fromJson(readString(rs, "METADATA"), Documentation.class);
+                    documentation.setId(UUID.randomUUID().toString());
+                    insert.setString(1, documentation.getId());
+                    insert.setString(2, targetUUID);
+                    insert.setString(3, rs.getString("DOC_NAME"));
+                    setBytes(insert, 4, toBytes(gson.toJson(documentation)));
+                    setBytes(insert, 5, readBytes(rs, "CONTENT"));
+                    insert.setString(6, rs.getString("CONTENT_NAME"));
+                    insert.setString(7, rs.getString("MEDIA_TYPE"));
+                    insert.addBatch();
+                }
+            }
+            insert.executeBatch();
+        } catch (IOException e) {
+            throw new SQLException("Error while reading the documents of " + sourceUUID, e);
+        }
+    }
+
+    /* ======= Resources ======= */
+
+    private void saveResource(Connection connection, String apiId, String resourceType, String name,
+                              String mediaType, byte[] content) throws SQLException {
+
+        executeUpdate(connection, JdbcPersistenceSQLConstants.DELETE_RESOURCE_BY_TYPE_SQL, apiId, resourceType);
+        executeUpdate(connection, JdbcPersistenceSQLConstants.ADD_RESOURCE_SQL, UUID.randomUUID().toString(), apiId,
+                resourceType, name, mediaType, content);
+    }
+
+    private byte[] getResourceContent(Connection connection, String apiId, String resourceType)
+            throws SQLException, IOException {
+
+        try (PreparedStatement ps = connection.prepareStatement(
+                JdbcPersistenceSQLConstants.GET_RESOURCE_BY_TYPE_SQL)) {
+            ps.setString(1, apiId);
+            ps.setString(2, resourceType);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? readBytes(rs, "CONTENT") : null;
+            }
+        }
+    }
+
+    private ResourceFile getResourceFile(Connection connection, String apiId, String resourceType)
+            throws SQLException, IOException {
+
+        try (PreparedStatement ps = connection.prepareStatement(
+                JdbcPersistenceSQLConstants.GET_RESOURCE_BY_TYPE_SQL)) {
+            ps.setString(1, apiId);
+            ps.setString(2, resourceType);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                byte[] content = readBytes(rs, "CONTENT");
+                ResourceFile resourceFile = new ResourceFile(
+                        new ByteArrayInputStream(content != null ? content : new byte[0]), rs.getString("MEDIA_TYPE"));
+                resourceFile.setName(rs.getString("RESOURCE_NAME"));
+                return resourceFile;
+            }
+        }
+    }
+
+    /* ======= Search ======= */
+
+    private void addPublisherAccessConditions(SearchConditions conditions, UserContext ctx) {
+
+        Set<String> roles = APISearchFilter.getRoles(ctx);
+        if (roles != null) {
+            conditions.addAttributeIn(APIConstants.PUBLISHER_ROLES, roles);
+        }
+    }
+
+    private void addDevPortalAccessConditions(SearchConditions conditions, Organization org, UserContext ctx) {
+
+        List<String> statusList = new ArrayList<>(Arrays.asList(APIConstants.PUBLISHED, APIConstants.PROTOTYPED));
+        if (isAllowDisplayAPIsWithMultipleStatus()) {
+            statusList.add(APIConstants.DEPRECATED);
+        }
+        conditions.addStatusIn(statusList);
+        Set<String> roles = APISearchFilter.getRoles(ctx);
+        if (roles == null) {
+            return;
+        }
+        conditions.addAttributeIn(APIConstants.STORE_VIEW_ROLES, roles);
+        // Private APIs are visible to the signed in users of the tenant
+        String username = ctx.getUserame();
+        if (username == null || APIConstants.WSO2_ANONYMOUS_USER.equals(username)
+                || !org.getName().equals(MultitenantUtils.getTenantDomain(username))) {
+            conditions.addPrivateVisibilityExclusion();
+        }
+    }
+
+    /**
+     * Returns an attribute value as it is stored. Attribute values are compared in lower case.
+     */
+    private static String toAttributeValue(String value) {
+
+        return StringUtils.left(value.trim().toLowerCase(Locale.ENGLISH), MAX_ATTRIBUTE_VALUE_LENGTH);
+    }
+
+    /**
+     * Returns the SHA-256 hash of a stored attribute value in hex. The attribute rows are keyed and matched exactly by
+     * the hash, which keeps the index keys within the limits of every database whatever the length of the value.
+     */
+    private static String getAttributeValueHash(String value) {
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return String.format("%064x", new BigInteger(1, digest));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform supports SHA-256
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    private static String getContentSearchValue(String searchQuery) {
+
+        String content = searchQuery != null ? searchQuery.trim() : "";
+        if (content.toLowerCase(Locale.ENGLISH).startsWith(APIConstants.CONTENT_SEARCH_TYPE_PREFIX + ":")) {
+            content = content.substring(APIConstants.CONTENT_SEARCH_TYPE_PREFIX.length() + 1).trim();
+        }
+        return content;
+    }
+
+    private int countArtifacts(Connection connection, SearchConditions conditions) throws SQLException {
+
+        String sql = JdbcPersistenceSQLConstants.COUNT_ARTIFACTS_SQL + conditions.sql;
+        return count(connection, sql, conditions.parameters);
+    }
+
+    private List<StoredArtifact> searchArtifacts(Connection connection, SearchConditions conditions, int start,
+                                                 int limit) throws SQLException, IOException {
+
+        List<Object> parameters = new ArrayList<>(conditions.parameters);
+        String sql = JdbcPersistenceSQLConstants.SEARCH_ARTIFACTS_SQL + conditions.sql
+                + JdbcPersistenceSQLConstants.SEARCH_ARTIFACTS_ORDER_BY
+                + getPaginationClause(connection, start, limit, parameters);
+        List<StoredArtifact> artifacts = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            setParameters(ps, parameters);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    artifacts.add(new StoredArtifact(rs.getString("ARTIFACT_TYPE"), readString(rs, "ARTIFACT")));
+                }
+            }
+        }
+        return artifacts;
+    }
+
+    private int countDocuments(Connection connection, SearchConditions conditions) throws SQLException {
+
+        String sql = JdbcPersistenceSQLConstants.COUNT_DOCUMENTS_SQL + conditions.sql;
+        return count(connection, sql, conditions.parameters);
+    }
+
+    private List<StoredDocument> searchDocuments(Connection connection, SearchConditions conditions, int start,
+                                                 int limit) throws SQLException, IOException {
+
+        List<Object> parameters = new ArrayList<>(conditions.parameters);
+        String sql = JdbcPersistenceSQLConstants.SEARCH_DOCUMENTS_SQL + conditions.sql
+                + JdbcPersistenceSQLConstants.SEARCH_DOCUMENTS_ORDER_BY
+                + getPaginationClause(connection, start, limit, parameters);
+        List<StoredDocument> documents = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            setParameters(ps, parameters);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    documents.add(new StoredDocument(
+                            new StoredArtifact(rs.getString("ARTIFACT_TYPE"), readString(rs, "ARTIFACT")),
+                            gson.fromJson(readString(rs, "METADATA"), Documentation.class)));
+                }
+            }
+        }
+        return documents;
+    }
+
+    private static int count(Connection connection, String sql, List<Object> parameters) throws SQLException {
+
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            setParameters(ps, parameters);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Returns the pagination clause of the database and adds its parameters. MS SQL, Oracle and DB2 use the standard
+     * OFFSET FETCH clause, the others use LIMIT and OFFSET.
+     */
+    private static String getPaginationClause(Connection connection, int start, int limit, List<Object> parameters)
+            throws SQLException {
+
+        if (limit <= 0) {
+            return "";
+        }
+        String databaseName = connection.getMetaData().getDatabaseProductName();
+        if (StringUtils.containsIgnoreCase(databaseName, "Microsoft")
+                || StringUtils.containsIgnoreCase(databaseName, "Oracle")
+                || StringUtils.containsIgnoreCase(databaseName, "DB2")) {
+            parameters.add(Math.max(start, 0));
+            parameters.add(limit);
+            return JdbcPersistenceSQLConstants.OFFSET_FETCH_PAGINATION;
+        }
+        parameters.add(limit);
+        parameters.add(Math.max(start, 0));
+        return JdbcPersistenceSQLConstants.LIMIT_OFFSET_PAGINATION;
+    }
+
+    private static String toContainsPattern(String value) {
+
+        return "%" + toLikePattern(value) + "%";
+    }
+
+    /**
+     * Escapes the LIKE wildcards of a search value and turns the * wildcards of the search query into LIKE wildcards.
+     */
+    private static String toLikePattern(String value) {
+
+        String escaped = value.toLowerCase(Locale.ENGLISH)
+                .replace(LIKE_ESCAPE_CHARACTER, LIKE_ESCAPE_CHARACTER + LIKE_ESCAPE_CHARACTER)
+                .replace("%", LIKE_ESCAPE_CHARACTER + "%")
+                .replace("_", LIKE_ESCAPE_CHARACTER + "_");
+        return escaped.replace("*", "%");
+    }
+
+    /**
+     * Conditions of a search, appended to the search and count queries.
+     */
+    private static final class SearchConditions {
+
+        private static final Map<String, String> SEARCH_COLUMNS = new HashMap<>();
+
+        static {
+            SEARCH_COLUMNS.put("name", "A.API_NAME");
+            SEARCH_COLUMNS.put("provider", "A.API_PROVIDER");
+            SEARCH_COLUMNS.put("version", "A.API_VERSION");
+            SEARCH_COLUMNS.put("context", "A.CONTEXT");
+            SEARCH_COLUMNS.put("status", "A.STATUS");
+            SEARCH_COLUMNS.put("lcstate", "A.STATUS");
+            SEARCH_COLUMNS.put("type", "A.API_TYPE");
+        }
+
+        private final StringBuilder sql = new StringBuilder();
+        private final List<Object> parameters = new ArrayList<>();
+
+        SearchConditions(Organization org) {
+
+            parameters.add(org.getName());
+        }
+
+        /**
+         * Conditions of a document search, for documents with a name matching the given pattern.
+         */
+        SearchConditions(Organization org, String documentNamePattern) {
+
+            parameters.add(org.getName());
+            parameters.add(documentNamePattern);
+        }
+
+        void addArtifactType(String artifactType) {
+
+            sql.append(" AND A.ARTIFACT_TYPE = ?");
+            parameters.add(artifactType);
+        }
+
+        void addEnableStore() {
+
+            sql.append(JdbcPersistenceSQLConstants.ENABLE_STORE_CONDITION);
+        }
+
+        void addStatusIn(Collection<String> statusList) {
+
+            sql.append(" AND A.STATUS IN (").append(getPlaceholders(statusList.size())).append(')');
+            parameters.addAll(statusList);
+        }
+
+        void addAttributeIn(String name, Collection<String> values) {
+
+            sql.append(JdbcPersistenceSQLConstants.ATTRIBUTE_HASH_CONDITION).append(" IN (")
+                    .append(getPlaceholders(values.size())).append("))");
+            parameters.add(name);
+            for (String value : values) {
+                parameters.add(getAttributeValueHash(toAttributeValue(value)));
+            }
+        }
+
+        void addPrivateVisibilityExclusion() {
+
+            sql.append(JdbcPersistenceSQLConstants.PRIVATE_VISIBILITY_CONDITION);
+            parameters.add(APIConstants.API_PRIVATE_VISIBILITY);
+        }
+
+        void addContent(String content) {
+
+            String pattern = toContainsPattern(content);
+            sql.append(JdbcPersistenceSQLConstants.CONTENT_CONDITION);
+            parameters.addAll(Arrays.asList(pattern, pattern, pattern, pattern,
+                    JdbcPersistenceSQLConstants.ATTRIBUTE_TAG, pattern));
+        }
+
+        /**
+         * Adds the conditions of a search query, in the syntax of the registry search. The query is a list of
+         * key:value criteria separated by spaces, which all have to match. A criterion without a key is searched in
+         * the names. A quoted value has to match exactly, while the others are searched as a part of the values.
+         */
+        void addQuery(String searchQuery) throws APIPersistenceException {
+
+            String query = searchQuery != null ? searchQuery.trim() : "";
+            if (query.isEmpty()) {
+                return;
+            }
+            List<String> criteria;
+            if (query.contains(APIConstants.TAG_COLON_SEARCH_TYPE_PREFIX)
+                    || query.toLowerCase(Locale.ENGLISH).startsWith(APIConstants.CONTENT_SEARCH_TYPE_PREFIX + ":")) {
+                // Tags and content may contain spaces
+                criteria = new ArrayList<>();
+                criteria.add(query);
+            } else {
+                criteria = Arrays.asList(query.split("\\s+"));
+            }
+            for (String criterion : criteria) {
+                String key = "name";
+                String value = criterion;
+                int separator = criterion.indexOf(':');
+                if (separator >= 0) {
+                    key = criterion.substring(0, separator).trim().toLowerCase(Locale.ENGLISH);
+                    value = criterion.substring(separator + 1).trim();
+                    if (value.isEmpty()) {
+                        throw new APIPersistenceException("Search term is missing. Try again with valid search query.");
+                    }
+                }
+                addCriterion(key, value);
+            }
+        }
+
+        private void addCriterion(String key, String value) throws APIPersistenceException {
+
+            boolean exact = value.length() > 1 && value.startsWith("\"") && value.endsWith("\"");
+            String searchValue = exact ? value.substring(1, value.length() - 1) : value;
+            String column = SEARCH_COLUMNS.get(key);
+            if (column != null) {
+                sql.append(" AND LOWER(").append(column).append(')');
+                addValue(searchValue, exact);
+            } else if (APIConstants.TAG_SEARCH_TYPE_PREFIX.equals(key)
+                    || APIConstants.TAGS_SEARCH_TYPE_PREFIX.equals(key)) {
+                addAttribute(JdbcPersistenceSQLConstants.ATTRIBUTE_TAG, searchValue, true);
+            } else if (APIConstants.LABEL_SEARCH_TYPE_PREFIX.equals(key)) {
+                addAttribute(JdbcPersistenceSQLConstants.ATTRIBUTE_LABEL, searchValue, true);
+            } else if (APIConstants.CATEGORY_SEARCH_TYPE_PREFIX.equals(key)) {
+                addAttribute(JdbcPersistenceSQLConstants.ATTRIBUTE_CATEGORY, searchValue, true);
+            } else if (APIConstants.CONTENT_SEARCH_TYPE_PREFIX.equals(key)) {
+                addContent(searchValue);
+            } else if (APIConstants.DOCUMENTATION_SEARCH_TYPE_PREFIX.equals(key)) {
+                sql.append(JdbcPersistenceSQLConstants.DOCUMENT_NAME_CONDITION);
+                parameters.add(toContainsPattern(searchValue));
+            } else if (APIConstants.SUBCONTEXT_SEARCH_TYPE_PREFIX.equals(key) || "description".equals(key)) {
+                throw new APIPersistenceException("Search by " + key + " is not supported by the JDBC persistence");
+            } else {
+                addAttribute(APIConstants.API_RELATED_CUSTOM_PROPERTIES_PREFIX + key, searchValue, exact);
+            }
+        }
+
+        private void addAttribute(String name, String value, boolean exact) {
+
+            if (exact) {
+                sql.append(JdbcPersistenceSQLConstants.ATTRIBUTE_HASH_CONDITION).append(" = ?)");
+                parameters.add(name);
+                parameters.add(getAttributeValueHash(toAttributeValue(value)));
+                return;
+            }
+            sql.append(JdbcPersistenceSQLConstants.ATTRIBUTE_CONDITION);
+            parameters.add(name);
+            addValue(value, false);
+            sql.append(')');
+        }
+
+        private void addValue(String value, boolean exact) {
+
+            if (exact) {
+                sql.append(" = ?");
+                parameters.add(value.toLowerCase(Locale.ENGLISH));
+            } else {
+                sql.append(" LIKE ? ESCAPE '").append(LIKE_ESCAPE_CHARACTER).append('\'');
+                parameters.add(toContainsPattern(value));
+            }
+        }
+
+        private static String getPlaceholders(int count) {
+
+            StringBuilder placeholders = new StringBuilder();
+            for (int i = 0; i < count; i++) {
+                placeholders.append(i == 0 ? "?" : ",?");
+            }
+            return placeholders.toString();
+        }
+    }
+
+    /**
+     * A page of a content search, which lists the matching APIs followed by the matching documents.
+     */
+    private final class ContentPage {
+
+        private final List<StoredArtifact> artifacts;
+        private final List<StoredDocument> documents;
+        private final int totalCount;
+
+        ContentPage(Connection connection, SearchConditions apiConditions, SearchConditions documentConditions,
+                    int start, int limit) throws SQLException, IOException {
+
+            int apiCount = countArtifacts(connection, apiConditions);
+            int documentCount = countDocuments(connection, documentConditions);
+            totalCount = apiCount + documentCount;
+            int first = Math.max(start, 0);
+            int size = limit > 0 ? limit : totalCount;
+            if (first < apiCount) {
+                artifacts = searchArtifacts(connection, apiConditions, first, Math.min(size, apiCount - first));
+            } else {
+                artifacts = new ArrayList<>();
+            }
+            int remaining = size - artifacts.size();
+            if (remaining > 0 && documentCount > 0) {
+                documents = searchDocuments(connection, documentConditions, Math.max(first - apiCount, 0),
+                        remaining);
+            } else {
+                documents = new ArrayList<>();
+            }
+        }
+    }
+
+    /* ======= Mapping ======= */
+
+    private static byte[] toJson(PublisherAPI publisherAPI) {
+
+        // The definition is kept as a separate resource
+        String swaggerDefinition = publisherAPI.getSwaggerDefinition();
+        publisherAPI.setSwaggerDefinition(null);
+        try {
+            return toBytes(gson.toJson(publisherAPI));
+        } finally {
+            publisherAPI.setSwaggerDefinition(swaggerDefinition);
+        }
+    }
+
+    private static byte[] toJson(PublisherAPIProduct publisherAPIProduct) {
+
+        return toBytes(gson.toJson(publisherAPIProduct));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static PublisherAPI toPublisherAPI(String json) {
+
+        PublisherAPI publisherAPI = gson.fromJson(json, PublisherAPI.class);
+        if (publisherAPI.getMonetizationProperties() != null) {
+            // The properties are read back as a plain map
+            publisherAPI.setMonetizationProperties(new JSONObject(publisherAPI.getMonetizationProperties()));
+        }
+        return publisherAPI;
+    }
+
+    private static DevPortalAPI toDevPortalAPI(StoredArtifact stored) {
+
+        if (JdbcPersistenceSQLConstants.ARTIFACT_TYPE_API_PRODUCT.equals(stored.artifactType)) {
+            return toDevPortalAPI(gson.fromJson(stored.json, PublisherAPIProduct.class));
+        }
+        return APIMapper.INSTANCE.toDevPortalApi(APIMapper.INSTANCE.toApi(toPublisherAPI(stored.json)));
+    }
+
+    private static DevPortalAPI toDevPortalAPI(PublisherAPIProduct product) {
+
+        DevPortalAPI devPortalAPI = new DevPortalAPI();
+        devPortalAPI.setId(product.getId());
+        devPortalAPI.setApiName(product.getApiProductName());
+        devPortalAPI.setVersion(product.getVersion());
+        devPortalAPI.setProviderName(product.getProviderName());
+        devPortalAPI.setContext(product.getContext());
+        devPortalAPI.setContextTemplate(product.getContextTemplate());
+        devPortalAPI.setType(APIConstants.API_PRODUCT);
+        devPortalAPI.setStatus(product.getState());
+        devPortalAPI.setDescription(product.getDescription());
+        devPortalAPI.setThumbnail(product.getThumbnail());
+        devPortalAPI.setVisibility(product.getVisibility());
+        devPortalAPI.setVisibleRoles(product.getVisibleRoles());
+        devPortalAPI.setTechnicalOwner(product.getTechnicalOwner());
+        devPortalAPI.setTechnicalOwnerEmail(product.getTechnicalOwnerEmail());
+        devPortalAPI.setBusinessOwner(product.getBusinessOwner());
+        devPortalAPI.setBusinessOwnerEmail(product.getBusinessOwnerEmail());
+        devPortalAPI.setSubscriptionAvailability(product.getSubscriptionAvailability());
+        devPortalAPI.setSubscriptionAvailableOrgs(product.getSubscriptionAvailableOrgs());
+        devPortalAPI.setAvailableTierNames(product.getAvailableTierNames());
+        devPortalAPI.setEnvironments(product.getEnvironments());
+        devPortalAPI.setTransports(product.getTransports());
+        devPortalAPI.setAuthorizationHeader(product.getAuthorizationHeader());
+        devPortalAPI.setApiSecurity(product.getApiSecurity());
+        devPortalAPI.setMonetizationEnabled(product.isMonetizationEnabled());
+        devPortalAPI.setApiCategories(product.getApiCategories());
+        if (product.getTags() != null) {
+            devPortalAPI.setTags(new ArrayList<>(product.getTags()));
+        }
+        return devPortalAPI;
+    }
+
+    private static DevPortalAPIInfo toDevPortalAPIInfo(StoredArtifact stored) {
+
+        DevPortalAPI devPortalAPI = toDevPortalAPI(stored);
+        DevPortalAPIInfo apiInfo = new DevPortalAPIInfo();
+        apiInfo.setId(devPortalAPI.getId());
+        apiInfo.setApiName(devPortalAPI.getApiName());
+        apiInfo.setVersion(devPortalAPI.getVersion());
+        apiInfo.setProviderName(devPortalAPI.getProviderName());
+        apiInfo.setContext(devPortalAPI.getContext());
+        apiInfo.setType(devPortalAPI.getType());
+        apiInfo.setStatus(devPortalAPI.getStatus());
+        apiInfo.setThumbnail(devPortalAPI.getThumbnail());
+        apiInfo.setBusinessOwner(devPortalAPI.getBusinessOwner());
+        apiInfo.setAvailableTierNames(devPortalAPI.getAvailableTierNames());
+        return apiInfo;
+    }
+
+    private static DocumentSearchContent toDocumentSearchContent(StoredDocument document) {
+
+        DevPortalAPI api = toDevPortalAPI(document.artifact);
+        Documentation documentation = document.documentation;
+        DocumentSearchContent content = new DocumentSearchContent();
+        content.setId(documentation.getId());
+        content.setName(documentation.getName());
+        content.setDocType(documentation.getType());
+        content.setSourceType(documentation.getSourceType());
+        content.setVisibility(documentation.getVisibility());
+        content.setSummary(documentation.getSummary());
+        content.setApiName(api.getApiName());
+        content.setApiVersion(api.getVersion());
+        content.setApiProvider(api.getProviderName());
+        content.setApiUUID(api.getId());
+        if (APIConstants.API_PRODUCT.equals(api.getType())) {
+            content.setAssociatedType(APIConstants.API_PRODUCT);
+        }
+        return content;
+    }
+
+    private static ArtifactColumns getColumns(PublisherAPI api) {
+
+        ArtifactColumns columns = new ArtifactColumns(api.getId(), api.getApiName(), api.getVersion(),
+                api.getProviderName(), api.getContext(), api.getType(), api.getStatus(), api.getVisibility(),
+                api.isEnableStore(), api.getCreatedTime());
+        columns.addAttributes(JdbcPersistenceSQLConstants.ATTRIBUTE_TAG, api.getTags());
+        columns.addAttributes(JdbcPersistenceSQLConstants.ATTRIBUTE_LABEL, api.getGatewayLabels());
+        columns.addAttributes(JdbcPersistenceSQLConstants.ATTRIBUTE_CATEGORY, api.getApiCategories());
+        if (api.getAdditionalProperties() != null) {
+            for (Map.Entry<String, String> property : api.getAdditionalProperties().entrySet()) {
+                columns.addAttribute(APIConstants.API_RELATED_CUSTOM_PROPERTIES_PREFIX + property.getKey(),
+                        property.getValue());
+            }
+        }
+        columns.addRoles(api.getAccessControl(), api.getAccessControlRoles(), api.getVisibility(),
+                api.getVisibleRoles());
+        return columns;
+    }
+
+    private static ArtifactColumns getColumns(PublisherAPIProduct product) {
+
+        ArtifactColumns columns = new ArtifactColumns(product.getId(), product.getApiProductName(),
+                product.getVersion(), product.getProviderName(), product.getContext(), product.getType(),
+                product.getState(), product.getVisibility(), product.isEnableStore(), product.getCreatedTime());
+        columns.addAttributes(JdbcPersistenceSQLConstants.ATTRIBUTE_TAG, product.getTags());
+        columns.addAttributes(JdbcPersistenceSQLConstants.ATTRIBUTE_CATEGORY, product.getApiCategories());
+        columns.addRoles(product.getAccessControl(), product.getAccessControlRoles(), product.getVisibility(),
+                product.getVisibleRoles());
+        return columns;
+    }
+
+    /**
+     * Column and attribute values of an artifact row.
+     */
+    private static final class ArtifactColumns {
+
+        private final String uuid;
+        private final String name;
+        private final String version;
+        private final String provider;
+        private final String context;
+        private final String type;
+        private final String status;
+        private final String visibility;
+        private final boolean enableStore;
+        private final Timestamp createdTime;
+        private final Map<String, Set<String>> attributes = new HashMap<>();
+
+        ArtifactColumns(String uuid, String name, String version, String provider, String context, String type,
+                        String status, String visibility, boolean enableStore, String createdTime) {
+
+            this.uuid = uuid;
+            this.name = name;
+            this.version = version;
+            this.provider = provider;
+            this.context = context;
+            this.type = type;
+            this.status = status != null ? status.toUpperCase(Locale.ENGLISH) : null;
+            this.visibility = visibility != null ? visibility.toLowerCase(Locale.ENGLISH) : null;
+            this.enableStore = enableStore;
+            this.createdTime = new Timestamp(NumberUtils.toLong(createdTime, System.currentTimeMillis()));
+        }
+
+        void addAttribute(String name, String value) {
+
+            if (StringUtils.isBlank(value)) {
+                return;
+            }
+            attributes.computeIfAbsent(name, key -> new LinkedHashSet<>()).add(toAttributeValue(value));
+        }
+
+        void addAttributes(String name, Collection<String> values) {
+
+            if (values != null) {
+                for (String value : values) {
+                    addAttribute(name, value);
+                }
+            }
+        }
+
+        /**
+         * Adds the roles the artifact is visible to in the Publisher and in the Dev Portal, as the registry indexer
+         * does. The role list is "null" when the artifact is not restricted to roles.
+         */
+        void addRoles(String accessControl, Set<String> accessControlRoles, String visibility, String visibleRoles) {
+
+            List<String> publisherRoles = new ArrayList<>();
+            if (APIConstants.API_RESTRICTED_VISIBILITY.equalsIgnoreCase(accessControl) && accessControlRoles != null) {
+                publisherRoles.addAll(accessControlRoles);
+            }
+            if (publisherRoles.isEmpty()) {
+                addAttribute(APIConstants.PUBLISHER_ROLES, APIConstants.NULL_USER_ROLE_LIST);
+            } else {
+                addAttributes(APIConstants.PUBLISHER_ROLES, publisherRoles);
+            }
+            if (APIConstants.API_RESTRICTED_VISIBILITY.equalsIgnoreCase(visibility) && visibleRoles != null) {
+                addAttributes(APIConstants.STORE_VIEW_ROLES, publisherRoles);
+                addAttributes(APIConstants.STORE_VIEW_ROLES, Arrays.asList(visibleRoles.split(",")));
+            } else {
+                addAttribute(APIConstants.STORE_VIEW_ROLES, APIConstants.NULL_USER_ROLE_LIST);
+            }
+        }
+    }
+
+    /**
+     * Skips the fields of the super classes of the stored objects which are hidden by a field of the same name, such as
+     * the thumbnail of {@link PublisherAPIInfo}, as the JSON can only have one of them.
+     */
+    private static final class HiddenFieldExclusionStrategy implements ExclusionStrategy {
+
+        private final Set<String> hiddenFields = new HashSet<>();
+
+        HiddenFieldExclusionStrategy(Class<?>... storedClasses) {
+
+            for (Class<?> storedClass : storedClasses) {
+                Set<String> fieldNames = new HashSet<>();
+                for (Class<?> type = storedClass; type != null && type != Object.class; type = type.getSuperclass()) {
+                    for (Field field : type.getDeclaredFields()) {
+                        if (!fieldNames.add(field.getName())) {
+                            hiddenFields.add(type.getName() + "#" + field.getName());
+                        }
+                    }
+                }
+            }
+        }
+
+        @Override
+        public boolean shouldSkipField(FieldAttributes field) {
+
+            return hiddenFields.contains(field.getDeclaringClass().getName() + "#" + field.getName());
+        }
+
+        @Override
+        public boolean shouldSkipClass(Class<?> type) {
+
+            return false;
+        }
+    }
+
+    /**
+     * An artifact as read from AM_API_ARTIFACT.
+     */
+    private static final class StoredArtifact {
+
+        private final String artifactType;
+        private final String json;
+
+        StoredArtifact(String artifactType, String json) {
+
+            this.artifactType = artifactType;
+            this.json = json;
+        }
+    }
+
+    /**
+     * A document found by a content search, along with the artifact it belongs to.
+     */
+    private static final class StoredDocument {
+
+        private final StoredArtifact artifact;
+        private final Documentation documentation;
+
+        StoredDocument(StoredArtifact artifact, Documentation documentation) {
+
+            this.artifact = artifact;
+            this.documentation = documentation;
+        }
+    }
+
+    /* ======= JDBC helpers ======= */
+
+    private static int executeUpdate(Connection connection, String sql, Object... parameters) throws SQLException {
+
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            setParameters(ps, Arrays.asList(parameters));
+            return ps.executeUpdate();
+        }
+    }
+
+    private static void setParameters(PreparedStatement ps, List<Object> parameters) throws SQLException {
+
+        Iterator<Object> iterator = parameters.iterator();
+        for (int index = 1; iterator.hasNext(); index++) {
+            Object parameter = iterator.next();
+            if (parameter instanceof byte[]) {
+                setBytes(ps, index, (byte[]) parameter);
+            } else if (parameter == null) {
+                ps.setNull(index, java.sql.Types.VARCHAR);
+            } else {
+                ps.setObject(index, parameter);
+            }
+        }
+    }
+
+    private static void setBytes(PreparedStatement ps, int index, byte[] content) throws SQLException {
+
+        if (content == null) {
+            ps.setNull(index, java.sql.Types.BLOB);
+        } else {
+            ps.setBinaryStream(index, new ByteArrayInputStream(content), content.length);
+        }
+    }
+
+    private static byte[] readBytes(ResultSet rs, String column) throws SQLException, IOException {
+
+        try (InputStream content = rs.getBinaryStream(column)) {
+            return content != null ? IOUtils.toByteArray(content) : null;
+        }
+    }
+
+    private static String readString(ResultSet rs, String column) throws SQLException, IOException {
+
+        byte[] content = readBytes(rs, column);
+        return content != null ? new String(content, StandardCharsets.UTF_8) : null;
+    }
+
+    private static byte[] toBytes(String content) {
+
+        return content != null ? content.getBytes(StandardCharsets.UTF_8) : null;
+    }
+}
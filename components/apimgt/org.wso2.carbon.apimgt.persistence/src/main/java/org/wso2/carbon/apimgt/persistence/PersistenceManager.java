@@ -16,6 +16,8 @@
 
 package org.wso2.carbon.apimgt.persistence;
 
+import org.wso2.carbon.apimgt.persistence.search.InMemoryAPISearchIndex;
+
 import java.util.Properties;
 
 public class PersistenceManager {
@@ -24,7 +26,19 @@ public class PersistenceManager {
 
     public static APIPersistence getPersistenceInstance(Properties properties) {
         if (persistence == null) {
-            persistence = new RegistryPersistenceImpl(properties);
+            String persistenceType = properties != null ?
+                    (String) properties.get(APIConstants.PERSISTENCE_TYPE) : null;
+            APIPersistence apiPersistence;
+            if (APIConstants.PERSISTENCE_TYPE_JDBC.equalsIgnoreCase(persistenceType)) {
+                apiPersistence = new JdbcPersistenceImpl(properties);
+            } else {
+                apiPersistence = new RegistryPersistenceImpl(properties);
+            }
+            if (properties != null
+                    && Boolean.TRUE.equals(properties.get(APIConstants.PERSISTENCE_SEARCH_INDEX_ENABLED))) {
+                apiPersistence = new IndexedAPIPersistence(apiPersistence, new InMemoryAPISearchIndex(), properties);
+            }
+            persistence = apiPersistence;
         }
         return persistence;
     }
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.persistence.search;
+
+import org.apache.commons.lang3.StringUtils;
+import org.wso2.carbon.apimgt.persistence.APIConstants;
+import org.wso2.carbon.apimgt.persistence.dto.Organization;
+import org.wso2.carbon.apimgt.persistence.dto.UserContext;
+import org.wso2.carbon.apimgt.persistence.utils.PersistenceUtil;
+import org.wso2.carbon.utils.multitenancy.MultitenantUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Decides which of the indexed APIs a user can see in a search, with the same rules the registry search applies
+ * through the publisher_roles and store_view_roles properties and the lifecycle state of the APIs.
+ */
+public final class APISearchFilter {
+
+    private final Set<String> roles;
+    private final boolean devPortal;
+    private final Set<String> statuses;
+    private final boolean excludePrivate;
+    private final boolean listing;
+
+    private APISearchFilter(Set<String> roles, boolean devPortal, Set<String> statuses, boolean excludePrivate,
+                            boolean listing) {
+
+        this.roles = roles;
+        this.devPortal = devPortal;
+        this.statuses = statuses;
+        this.excludePrivate = excludePrivate;
+        this.listing = listing;
+    }
+
+    /**
+     * Filter of a Publisher search. Listing all the APIs, with an empty query, leaves out the API Products.
+     *
+     * @param ctx     context of the user
+     * @param listing whether all the APIs are listed
+     * @return the filter
+     */
+    public static APISearchFilter forPublisher(UserContext ctx, boolean listing) {
+
+        return new APISearchFilter(getRoles(ctx), false, null, false, listing);
+    }
+
+    /**
+     * Filter of a Dev Portal search, which returns the published and prototyped APIs visible to the user. Listing all
+     * the APIs, with an empty query, leaves out the APIs that are not shown in the Dev Portal.
+     *
+     * @param org                 organization searched
+     * @param ctx                 context of the user
+     * @param allowMultipleStatus whether deprecated APIs are shown
+     * @param listing             whether all the APIs are listed
+     * @return the filter
+     */
+    public static APISearchFilter forDevPortal(Organization org, UserContext ctx, boolean allowMultipleStatus,
+                                               boolean listing) {
+
+        Set<String> statuses = new HashSet<>(Arrays.asList(APIConstants.PUBLISHED, APIConstants.PROTOTYPED));
+        if (allowMultipleStatus) {
+            statuses.add(APIConstants.DEPRECATED);
+        }
+        // Private APIs are visible to the signed in users of the tenant
+        String username = ctx.getUserame();
+        boolean excludePrivate = !PersistenceUtil.isAdminUser(ctx) && (username == null
+                || APIConstants.WSO2_ANONYMOUS_USER.equals(username)
+                || !org.getName().equals(MultitenantUtils.getTenantDomain(username)));
+        return new APISearchFilter(getRoles(ctx), true, statuses, excludePrivate, listing);
+    }
+
+    /**
+     * Returns the roles of the user in lower case, with "null" standing for the APIs not restricted to roles, or
+     * null when the user is an admin and sees all the APIs.
+     */
+    public static Set<String> getRoles(UserContext ctx) {
+
+        if (PersistenceUtil.isAdminUser(ctx)) {
+            return null;
+        }
+        List<String> userRoles = new ArrayList<>();
+        if (ctx.getRoles() != null) {
+            userRoles.addAll(Arrays.asList(ctx.getRoles()));
+        }
+        String skipRolesByRegex = PersistenceUtil.getSkipRoles(ctx);
+        if (StringUtils.isNotEmpty(skipRolesByRegex)) {
+            for (String regex : skipRolesByRegex.split(",")) {
+                Pattern pattern = Pattern.compile(regex);
+                userRoles.removeIf(role -> pattern.matcher(role).matches());
+            }
+        }
+        Set<String> roles = new HashSet<>();
+        roles.add(APIConstants.NULL_USER_ROLE_LIST);
+        for (String role : userRoles) {
+            roles.add(role.toLowerCase(Locale.ENGLISH));
+        }
+        return Collections.unmodifiableSet(roles);
+    }
+
+    /**
+     * Checks whether an API is returned by the search.
+     *
+     * @param api indexed API
+     * @return true if the user can see the API
+     */
+    public boolean accepts(IndexedAPI api) {
+
+        if (devPortal) {
+            if (!statuses.contains(api.getStatus())) {
+                return false;
+            }
+            if (listing && !api.isEnableStore()) {
+                return false;
+            }
+            if (excludePrivate && APIConstants.API_PRIVATE_VISIBILITY.equalsIgnoreCase(api.getVisibility())) {
+                return false;
+            }
+        } else if (listing && !Arrays.asList(APIConstants.API_SUPPORTED_TYPE_LIST).contains(api.getType())) {
+            return false;
+        }
+        return roles == null || !Collections.disjoint(roles,
+                devPortal ? api.getStoreViewRoles() : api.getPublisherRoles());
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.persistence.search;
+
+import org.wso2.carbon.apimgt.persistence.exceptions.APIPersistenceException;
+
+import java.util.Collection;
+
+/**
+ * Index of the APIs and API Products of the organizations, which answers the Publisher and Dev Portal API searches
+ * without reading the artifacts from the persistence. The index of an organization is loaded, and then kept up to
+ * date as the APIs change. It is loaded again to pick up the changes made elsewhere.
+ */
+public interface APISearchIndex {
+
+    /**
+     * Checks whether the APIs of an organization have been loaded.
+     *
+     * @param organization organization name
+     * @return true if the organization can be searched
+     */
+    boolean isLoaded(String organization);
+
+    /**
+     * Marks the start of reading the APIs of an organization for {@link #load}, so that the APIs changed meanwhile are
+     * kept as they are when they are loaded.
+     *
+     * @param organization organization name
+     */
+    void startLoading(String organization);
+
+    /**
+     * Loads the APIs of an organization. APIs changed through {@link #put} or {@link #remove} while they were read for
+     * loading are kept as they are. When the organization is loaded again, the APIs not in the given ones are removed.
+     *
+     * @param organization organization name
+     * @param apis         the APIs of the organization
+     */
+    void load(String organization, Collection<IndexedAPI> apis);
+
+    /**
+     * Drops the APIs of an organization, so that it is loaded again.
+     *
+     * @param organization organization name
+     */
+    void unload(String organization);
+
+    /**
+     * Returns an indexed API.
+     *
+     * @param organization organization name
+     * @param id           UUID of the API
+     * @return the API or null if it is not indexed
+     */
+    IndexedAPI get(String organization, String id);
+
+    /**
+     * Adds an API to the index or replaces the indexed version of it.
+     *
+     * @param organization organization name
+     * @param api          the API
+     */
+    void put(String organization, IndexedAPI api);
+
+    /**
+     * Removes an API from the index.
+     *
+     * @param organization organization name
+     * @param id           UUID of the API
+     */
+    void remove(String organization, String id);
+
+    /**
+     * Searches the APIs of a loaded organization, ordered by name and version. The query has the syntax of the
+     * registry search, a list of key:value criteria which all have to match.
+     *
+     * @param organization organization name
+     * @param query        search query
+     * @param filter       the APIs the user can see
+     * @param start        index of the first API returned
+     * @param limit        maximum number of APIs returned
+     * @return the matching APIs or null if the index cannot answer the query, such as a query on a custom property
+     * @throws APIPersistenceException if the query is invalid
+     */
+    APISearchIndexResult search(String organization, String query, APISearchFilter filter, int start, int limit)
+            throws APIPersistenceException;
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.persistence.search;
+
+import java.util.List;
+
+/**
+ * A page of the APIs matching a search of an {@link APISearchIndex}.
+ */
+public final class APISearchIndexResult {
+
+    private final int totalCount;
+    private final List<IndexedAPI> apis;
+
+    public APISearchIndexResult(int totalCount, List<IndexedAPI> apis) {
+
+        this.totalCount = totalCount;
+        this.apis = apis;
+    }
+
+    public int getTotalCount() {
+
+        return totalCount;
+    }
+
+    public List<IndexedAPI> getAPIs() {
+
+        return apis;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.persistence.search;
+
+import org.wso2.carbon.apimgt.persistence.dto.Organization;
+import org.wso2.carbon.apimgt.persistence.exceptions.APIPersistenceException;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lists the APIs and API Products of an organization, to load them into an {@link APISearchIndex}.
+ */
+public interface APISearchIndexSource {
+
+    /**
+     * Returns the UUIDs of the APIs of an organization.
+     *
+     * @param org organization
+     * @return UUIDs of the APIs
+     * @throws APIPersistenceException if the APIs cannot be listed
+     */
+    List<String> getAPIIds(Organization org) throws APIPersistenceException;
+
+    /**
+     * Returns the UUIDs of the API Products of an organization.
+     *
+     * @param org organization
+     * @return UUIDs of the API Products
+     * @throws APIPersistenceException if the API Products cannot be listed
+     */
+    List<String> getAPIProductIds(Organization org) throws APIPersistenceException;
+
+    /**
+     * Returns a value which changes when an API or API Product of an organization is added, updated, deleted or
+     * changes its lifecycle state, on any node, so that the changes are applied to the index of the organization.
+     *
+     * @param org organization
+     * @return version of the APIs, or null if it is not known
+     * @throws APIPersistenceException if the version cannot be read
+     */
+    default String getVersion(Organization org) throws APIPersistenceException {
+
+        return null;
+    }
+
+    /**
+     * Returns the state of each API or API Product of an organization, a value which changes when the API is updated
+     * or changes its lifecycle state, so that only the APIs added, changed or deleted since the index was loaded are
+     * indexed again when the version of the APIs changes.
+     *
+     * @param org         organization
+     * @param apiProducts whether the states of the API Products are returned instead of the APIs
+     * @return the states by the UUIDs of the APIs, or null if they are not known and the index has to be loaded again
+     * @throws APIPersistenceException if the states cannot be read
+     */
+    default Map<String, String> getAPIStates(Organization org, boolean apiProducts) throws APIPersistenceException {
+
+        return null;
+    }
+}
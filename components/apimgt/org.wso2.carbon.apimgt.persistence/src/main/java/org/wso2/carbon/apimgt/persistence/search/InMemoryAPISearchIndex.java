@@ -0,0 +1,502 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.persistence.search;
+
+import org.apache.commons.lang3.StringUtils;
+import org.wso2.carbon.apimgt.persistence.APIConstants;
+import org.wso2.carbon.apimgt.persistence.exceptions.APIPersistenceException;
+import org.wso2.carbon.apimgt.persistence.utils.PersistenceUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * An {@link APISearchIndex} kept in memory as an inverted index. For each searchable field, the terms of the field
+ * values are mapped to the APIs having them, in a sorted map so that a value can be matched as a prefix of the terms.
+ * <p>
+ * The terms of a value are the whole value and the words in it, split at non alphanumeric characters and at camel case
+ * boundaries. So "PizzaShack" is found by "pizza", "shack" and "pizzash", while a quoted value has to match a whole
+ * value. Tags, labels and categories are always matched as a whole, as in the registry search.
+ */
+public class InMemoryAPISearchIndex implements APISearchIndex {
+
+    private static final String NAME = "name";
+    private static final String PROVIDER = "provider";
+    private static final String VERSION = "version";
+    private static final String CONTEXT = "context";
+    private static final String STATUS = "status";
+    private static final String TYPE = "type";
+    private static final String TAGS = "tags";
+    private static final String LABELS = "labels";
+    private static final String CATEGORIES = "categories";
+    private static final String DESCRIPTION = "description";
+    private static final String URL_PATTERNS = "subcontext";
+    private static final String DOCUMENTS = "doc";
+    private static final String[] CONTENT_FIELDS = {NAME, PROVIDER, VERSION, CONTEXT, TAGS, DESCRIPTION, DOCUMENTS};
+    // Words of a value are kept apart from the whole value, which is all a quoted value is matched against
+    private static final String WORDS_SUFFIX = "#words";
+
+    private static final Map<String, String> SEARCH_FIELDS = new HashMap<>();
+    private static final Set<String> WHOLE_VALUE_FIELDS = new HashSet<>(Arrays.asList(TAGS, LABELS, CATEGORIES));
+    private static final Pattern WORD_SEPARATOR =
+            Pattern.compile("[^\\p{L}\\p{N}]+|(?<=\\p{Ll})(?=\\p{Lu})|(?<=\\p{Lu})(?=\\p{Lu}\\p{Ll})");
+    private static final Comparator<IndexedAPI> API_ORDER = Comparator
+            .comparing((IndexedAPI api) -> StringUtils.defaultString(api.getName()), String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(api -> StringUtils.defaultString(api.getVersion()))
+            .thenComparing(IndexedAPI::getId);
+
+    static {
+        SEARCH_FIELDS.put(NAME, NAME);
+        SEARCH_FIELDS.put(PROVIDER, PROVIDER);
+        SEARCH_FIELDS.put(VERSION, VERSION);
+        SEARCH_FIELDS.put(CONTEXT, CONTEXT);
+        SEARCH_FIELDS.put(STATUS, STATUS);
+        SEARCH_FIELDS.put("lcstate", STATUS);
+        SEARCH_FIELDS.put(TYPE, TYPE);
+        SEARCH_FIELDS.put(APIConstants.TAG_SEARCH_TYPE_PREFIX, TAGS);
+        SEARCH_FIELDS.put(APIConstants.TAGS_SEARCH_TYPE_PREFIX, TAGS);
+        SEARCH_FIELDS.put(APIConstants.LABEL_SEARCH_TYPE_PREFIX, LABELS);
+        SEARCH_FIELDS.put(APIConstants.CATEGORY_SEARCH_TYPE_PREFIX, CATEGORIES);
+        SEARCH_FIELDS.put(DESCRIPTION, DESCRIPTION);
+        SEARCH_FIELDS.put(APIConstants.SUBCONTEXT_SEARCH_TYPE_PREFIX, URL_PATTERNS);
+        SEARCH_FIELDS.put(APIConstants.DOCUMENTATION_SEARCH_TYPE_PREFIX, DOCUMENTS);
+    }
+
+    private final ConcurrentMap<String, OrganizationIndex> organizations = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean isLoaded(String organization) {
+
+        OrganizationIndex index = organizations.get(organization);
+        return index != null && index.loaded;
+    }
+
+    @Override
+    public void startLoading(String organization) {
+
+        organizations.computeIfAbsent(organization, key -> new OrganizationIndex()).startLoading();
+    }
+
+    @Override
+    public void load(String organization, Collection<IndexedAPI> apis) {
+
+        organizations.computeIfAbsent(organization, key -> new OrganizationIndex()).load(apis);
+    }
+
+    @Override
+    public void unload(String organization) {
+
+        organizations.remove(organization);
+    }
+
+    @Override
+    public IndexedAPI get(String organization, String id) {
+
+        OrganizationIndex index = organizations.get(organization);
+        return index != null ? index.get(id) : null;
+    }
+
+    @Override
+    public void put(String organization, IndexedAPI api) {
+
+        organizations.computeIfAbsent(organization, key -> new OrganizationIndex()).put(api);
+    }
+
+    @Override
+    public void remove(String organization, String id) {
+
+        organizations.computeIfAbsent(organization, key -> new OrganizationIndex()).remove(id);
+    }
+
+    @Override
+    public APISearchIndexResult search(String organization, String query, APISearchFilter filter, int start,
+                                       int limit) throws APIPersistenceException {
+
+        OrganizationIndex index = organizations.get(organization);
+        if (index == null || !index.loaded) {
+            return null;
+        }
+        List<Criterion> criteria = parse(query);
+        if (criteria == null) {
+            return null;
+        }
+        return index.search(criteria, filter, Math.max(start, 0), limit > 0 ? limit : Integer.MAX_VALUE);
+    }
+
+    /**
+     * Parses a query in the syntax of the registry search. A criterion without a key is searched in the names, while
+     * tag and content criteria take the rest of the query, as they may contain spaces.
+     *
+     * @return the criteria or null if a key cannot be searched in the index
+     */
+    private static List<Criterion> parse(String searchQuery) throws APIPersistenceException {
+
+        String query = searchQuery != null ? searchQuery.trim() : "";
+        List<Criterion> criteria = new ArrayList<>();
+        if (query.isEmpty()) {
+            return criteria;
+        }
+        String lowerCaseQuery = query.toLowerCase(Locale.ENGLISH);
+        List<String> parts;
+        if (query.contains(APIConstants.TAG_COLON_SEARCH_TYPE_PREFIX)
+                || lowerCaseQuery.startsWith(APIConstants.CONTENT_SEARCH_TYPE_PREFIX + ":")
+                || lowerCaseQuery.startsWith(APIConstants.DOCUMENTATION_SEARCH_TYPE_PREFIX + ":")
+                || lowerCaseQuery.startsWith(APIConstants.SUBCONTEXT_SEARCH_TYPE_PREFIX + ":")) {
+            parts = Collections.singletonList(query);
+        } else {
+            parts = Arrays.asList(query.split("\\s+"));
+        }
+        for (String part : parts) {
+            String key = NAME;
+            String value = part;
+            int separator = part.indexOf(':');
+            if (separator >= 0) {
+                key = part.substring(0, separator).trim().toLowerCase(Locale.ENGLISH);
+                value = part.substring(separator + 1).trim();
+                if (value.isEmpty()) {
+                    throw new APIPersistenceException("Search term is missing. Try again with valid search query.");
+                }
+            }
+            boolean exact = value.length() > 1 && value.startsWith("\"") && value.endsWith("\"");
+            value = exact ? value.substring(1, value.length() - 1) : StringUtils.strip(value, "*");
+            value = value.toLowerCase(Locale.ENGLISH);
+            if (APIConstants.CONTENT_SEARCH_TYPE_PREFIX.equals(key)) {
+                criteria.add(new Criterion(CONTENT_FIELDS, value, exact));
+                continue;
+            }
+            String field = SEARCH_FIELDS.get(key);
+            if (field == null) {
+                return null;
+            }
+            if (PROVIDER.equals(field)) {
+                value = PersistenceUtil.replaceEmailDomainBack(value);
+            }
+            criteria.add(new Criterion(new String[]{field}, value, exact || WHOLE_VALUE_FIELDS.contains(field)));
+        }
+        return criteria;
+    }
+
+    /**
+     * Returns the terms of an API, for each searchable field.
+     */
+    private static Map<String, Set<String>> getTerms(IndexedAPI api) {
+
+        Map<String, Set<String>> terms = new HashMap<>();
+        addTerms(terms, NAME, api.getName(), true);
+        addTerms(terms, PROVIDER, PersistenceUtil.replaceEmailDomainBack(api.getProvider()), true);
+        addTerms(terms, VERSION, api.getVersion(), false);
+        addTerms(terms, CONTEXT, api.getContext(), true);
+        addTerms(terms, STATUS, api.getStatus(), false);
+        addTerms(terms, TYPE, api.getType(), false);
+        addTerms(terms, DESCRIPTION, api.getDescription(), true);
+        for (String tag : api.getTags()) {
+            addTerms(terms, TAGS, tag, false);
+        }
+        for (String label : api.getLabels()) {
+            addTerms(terms, LABELS, label, false);
+        }
+        for (String category : api.getCategories()) {
+            addTerms(terms, CATEGORIES, category, false);
+        }
+        for (String urlPattern : api.getURLPatterns()) {
+            addTerms(terms, URL_PATTERNS, urlPattern, true);
+        }
+        for (String title : api.getDocumentTitles()) {
+            addTerms(terms, DOCUMENTS, title, true);
+        }
+        for (String content : api.getDocumentContents()) {
+            addTerms(terms, DOCUMENTS, content, true);
+        }
+        return terms;
+    }
+
+    private static void addTerms(Map<String, Set<String>> terms, String field, String value, boolean words) {
+
+        if (StringUtils.isBlank(value)) {
+            return;
+        }
+        terms.computeIfAbsent(field, key -> new HashSet<>()).add(value.trim().toLowerCase(Locale.ENGLISH));
+        if (words) {
+            terms.computeIfAbsent(field + WORDS_SUFFIX, key -> new HashSet<>()).addAll(getWords(value));
+        }
+    }
+
+    private static List<String> getWords(String value) {
+
+        List<String> words = new ArrayList<>();
+        for (String word : WORD_SEPARATOR.split(value)) {
+            if (!word.isEmpty()) {
+                words.add(word.toLowerCase(Locale.ENGLISH));
+            }
+        }
+        return words;
+    }
+
+    /**
+     * A criterion of a query, matching the APIs with a term in one of the fields equal to the value, or starting with
+     * the value or with each of its words.
+     */
+    private static final class Criterion {
+
+        private final String[] fields;
+        private final String value;
+        private final boolean exact;
+
+        Criterion(String[] fields, String value, boolean exact) {
+
+            this.fields = fields;
+            this.value = value;
+            this.exact = exact;
+        }
+    }
+
+    /**
+     * The indexed APIs of an organization.
+     */
+    private static final class OrganizationIndex {
+
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<String, IndexedAPI> apis = new HashMap<>();
+        private final Set<IndexedAPI> orderedAPIs = new TreeSet<>(API_ORDER);
+        private final Map<String, NavigableMap<String, Set<String>>> postings = new HashMap<>();
+        private final Set<String> changedWhileLoading = new HashSet<>();
+        private volatile boolean loaded;
+        private boolean loading;
+
+        void startLoading() {
+
+            lock.writeLock().lock();
+            try {
+                loading = true;
+                changedWhileLoading.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void load(Collection<IndexedAPI> loadedAPIs) {
+
+            lock.writeLock().lock();
+            try {
+                Set<String> loadedIds = new HashSet<>();
+                for (IndexedAPI api : loadedAPIs) {
+                    loadedIds.add(api.getId());
+                    if (!changedWhileLoading.contains(api.getId())) {
+                        doPut(api);
+                    } else if (apis.containsKey(api.getId())) {
+                        // The API changed after it was read, but its documents were read with it
+                        doPut(apis.get(api.getId()).withResourcesOf(api));
+                    }
+                }
+                if (loaded) {
+                    // Loaded again, so the APIs no longer listed have been deleted, possibly on another node
+                    for (String id : new ArrayList<>(apis.keySet())) {
+                        if (!loadedIds.contains(id) && !changedWhileLoading.contains(id)) {
+                            doRemove(id);
+                        }
+                    }
+                }
+                changedWhileLoading.clear();
+                loading = false;
+                loaded = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        IndexedAPI get(String id) {
+
+            lock.readLock().lock();
+            try {
+                return apis.get(id);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void put(IndexedAPI api) {
+
+            lock.writeLock().lock();
+            try {
+                if (!loaded || loading) {
+                    changedWhileLoading.add(api.getId());
+                }
+                doPut(api);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(String id) {
+
+            lock.writeLock().lock();
+            try {
+                if (!loaded || loading) {
+                    changedWhileLoading.add(id);
+                }
+                doRemove(id);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void doPut(IndexedAPI api) {
+
+            doRemove(api.getId());
+            apis.put(api.getId(), api);
+            orderedAPIs.add(api);
+            for (Map.Entry<String, Set<String>> fieldTerms : getTerms(api).entrySet()) {
+                NavigableMap<String, Set<String>> terms = postings.computeIfAbsent(fieldTerms.getKey(),
+                        key -> new TreeMap<>());
+                for (String term : fieldTerms.getValue()) {
+                    terms.computeIfAbsent(term, key -> new HashSet<>()).add(api.getId());
+                }
+            }
+        }
+
+        private void doRemove(String id) {
+
+            IndexedAPI previous = apis.remove(id);
+            if (previous == null) {
+                return;
+            }
+            orderedAPIs.remove(previous);
+            for (Map.Entry<String, Set<String>> fieldTerms : getTerms(previous).entrySet()) {
+                NavigableMap<String, Set<String>> terms = postings.get(fieldTerms.getKey());
+                for (String term : fieldTerms.getValue()) {
+                    Set<String> ids = terms.get(term);
+                    if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                        terms.remove(term);
+                    }
+                }
+            }
+        }
+
+        APISearchIndexResult search(List<Criterion> criteria, APISearchFilter filter, int start, int limit) {
+
+            lock.readLock().lock();
+            try {
+                Set<String> candidates = null;
+                for (Criterion criterion : criteria) {
+                    Set<String> matches = match(criterion);
+                    if (candidates == null) {
+                        candidates = matches;
+                    } else {
+                        candidates.retainAll(matches);
+                    }
+                    if (candidates.isEmpty()) {
+                        return new APISearchIndexResult(0, new ArrayList<>());
+                    }
+                }
+                Iterator<IndexedAPI> iterator;
+                if (candidates == null) {
+                    iterator = orderedAPIs.iterator();
+                } else if (candidates.size() * 8 < apis.size()) {
+                    // Sorting a few matches is cheaper than walking all the APIs in order
+                    List<IndexedAPI> matches = new ArrayList<>(candidates.size());
+                    for (String id : candidates) {
+                        matches.add(apis.get(id));
+                    }
+                    matches.sort(API_ORDER);
+                    iterator = matches.iterator();
+                    candidates = null;
+                } else {
+                    iterator = orderedAPIs.iterator();
+                }
+                int totalCount = 0;
+                List<IndexedAPI> page = new ArrayList<>();
+                while (iterator.hasNext()) {
+                    IndexedAPI api = iterator.next();
+                    if ((candidates == null || candidates.contains(api.getId())) && filter.accepts(api)) {
+                        if (totalCount >= start && page.size() < limit) {
+                            page.add(api);
+                        }
+                        totalCount++;
+                    }
+                }
+                return new APISearchIndexResult(totalCount, page);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private Set<String> match(Criterion criterion) {
+
+            Set<String> matches = new HashSet<>();
+            for (String field : criterion.fields) {
+                NavigableMap<String, Set<String>> values = postings.get(field);
+                if (criterion.exact) {
+                    Set<String> ids = values != null ? values.get(criterion.value) : null;
+                    if (ids != null) {
+                        matches.addAll(ids);
+                    }
+                    continue;
+                }
+                if (values != null) {
+                    matches.addAll(matchPrefix(values, criterion.value));
+                }
+                NavigableMap<String, Set<String>> words = postings.get(field + WORDS_SUFFIX);
+                if (words == null) {
+                    continue;
+                }
+                // Each word of the value has to start a word, such as "pizza shack" for "Pizza Shack API"
+                Set<String> wordMatches = null;
+                for (String word : getWords(criterion.value)) {
+                    Set<String> ids = matchPrefix(words, word);
+                    if (wordMatches == null) {
+                        wordMatches = ids;
+                    } else {
+                        wordMatches.retainAll(ids);
+                    }
+                }
+                if (wordMatches != null) {
+                    matches.addAll(wordMatches);
+                }
+            }
+            return matches;
+        }
+
+        private static Set<String> matchPrefix(NavigableMap<String, Set<String>> terms, String prefix) {
+
+            Set<String> ids = new HashSet<>();
+            for (Set<String> termIds : terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+                ids.addAll(termIds);
+            }
+            return ids;
+        }
+    }
+}
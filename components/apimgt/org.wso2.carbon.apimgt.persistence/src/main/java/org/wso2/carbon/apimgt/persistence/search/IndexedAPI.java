@@ -0,0 +1,416 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.persistence.search;
+
+import org.apache.commons.lang3.StringUtils;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.wso2.carbon.apimgt.persistence.APIConstants;
+import org.wso2.carbon.apimgt.persistence.dto.DevPortalAPIInfo;
+import org.wso2.carbon.apimgt.persistence.dto.PublisherAPI;
+import org.wso2.carbon.apimgt.persistence.dto.PublisherAPIInfo;
+import org.wso2.carbon.apimgt.persistence.dto.PublisherAPIProduct;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The searchable attributes of an API or API Product, kept by an {@link APISearchIndex}. Instances are not changed
+ * once created, the with* methods return a changed copy.
+ */
+public final class IndexedAPI {
+
+    private static final String OPENAPI_PATHS = "paths";
+    private static final String ASYNCAPI_CHANNELS = "channels";
+
+    private String id;
+    private boolean apiProduct;
+    private String name;
+    private String version;
+    private String provider;
+    private String context;
+    private String type;
+    private String status;
+    private String thumbnail;
+    private String businessOwner;
+    private String description;
+    private String visibility;
+    private boolean enableStore;
+    private Set<String> availableTierNames;
+    private Set<String> tags;
+    private Set<String> labels;
+    private Set<String> categories;
+    private Set<String> publisherRoles;
+    private Set<String> storeViewRoles;
+    private Set<String> urlPatterns;
+    private Map<String, String> documentTitles;
+    private Map<String, String> documentContents;
+
+    private IndexedAPI() {
+
+    }
+
+    private IndexedAPI copy() {
+
+        IndexedAPI api = new IndexedAPI();
+        api.id = id;
+        api.apiProduct = apiProduct;
+        api.name = name;
+        api.version = version;
+        api.provider = provider;
+        api.context = context;
+        api.type = type;
+        api.status = status;
+        api.thumbnail = thumbnail;
+        api.businessOwner = businessOwner;
+        api.description = description;
+        api.visibility = visibility;
+        api.enableStore = enableStore;
+        api.availableTierNames = availableTierNames;
+        api.tags = tags;
+        api.labels = labels;
+        api.categories = categories;
+        api.publisherRoles = publisherRoles;
+        api.storeViewRoles = storeViewRoles;
+        api.urlPatterns = urlPatterns;
+        api.documentTitles = documentTitles;
+        api.documentContents = documentContents;
+        return api;
+    }
+
+    public static IndexedAPI fromAPI(PublisherAPI publisherAPI) {
+
+        IndexedAPI api = new IndexedAPI();
+        api.id = publisherAPI.getId();
+        api.name = publisherAPI.getApiName();
+        api.version = publisherAPI.getVersion();
+        api.provider = publisherAPI.getProviderName();
+        api.context = publisherAPI.getContext();
+        api.type = publisherAPI.getType();
+        api.status = toUpperCase(publisherAPI.getStatus());
+        api.thumbnail = publisherAPI.getThumbnail();
+        api.businessOwner = publisherAPI.getBusinessOwner();
+        api.description = publisherAPI.getDescription();
+        api.visibility = publisherAPI.getVisibility();
+        api.enableStore = publisherAPI.isEnableStore();
+        api.availableTierNames = toSet(publisherAPI.getAvailableTierNames(), false);
+        api.tags = toSet(publisherAPI.getTags(), true);
+        api.labels = toSet(publisherAPI.getGatewayLabels(), true);
+        api.categories = toSet(publisherAPI.getApiCategories(), true);
+        api.setRoles(publisherAPI.getAccessControl(), publisherAPI.getAccessControlRoles(),
+                publisherAPI.getVisibleRoles());
+        api.urlPatterns = getURLPatterns(publisherAPI.getSwaggerDefinition());
+        api.documentTitles = Collections.emptyMap();
+        api.documentContents = Collections.emptyMap();
+        return api;
+    }
+
+    public static IndexedAPI fromAPIProduct(PublisherAPIProduct publisherAPIProduct) {
+
+        IndexedAPI api = new IndexedAPI();
+        api.id = publisherAPIProduct.getId();
+        api.apiProduct = true;
+        api.name = publisherAPIProduct.getApiProductName();
+        api.version = publisherAPIProduct.getVersion();
+        api.provider = publisherAPIProduct.getProviderName();
+        api.context = publisherAPIProduct.getContext();
+        api.type = publisherAPIProduct.getType();
+        api.status = toUpperCase(publisherAPIProduct.getState());
+        api.thumbnail = publisherAPIProduct.getThumbnail();
+        api.businessOwner = publisherAPIProduct.getBusinessOwner();
+        api.description = publisherAPIProduct.getDescription();
+        api.visibility = publisherAPIProduct.getVisibility();
+        api.enableStore = publisherAPIProduct.isEnableStore();
+        api.availableTierNames = toSet(publisherAPIProduct.getAvailableTierNames(), false);
+        api.tags = toSet(publisherAPIProduct.getTags(), true);
+        api.labels = Collections.emptySet();
+        api.categories = toSet(publisherAPIProduct.getApiCategories(), true);
+        api.setRoles(publisherAPIProduct.getAccessControl(), publisherAPIProduct.getAccessControlRoles(),
+                publisherAPIProduct.getVisibleRoles());
+        api.urlPatterns = Collections.emptySet();
+        api.documentTitles = Collections.emptyMap();
+        api.documentContents = Collections.emptyMap();
+        return api;
+    }
+
+    /**
+     * Keeps the roles the API is visible to in the Publisher and in the Dev Portal, in lower case, as the registry
+     * indexer does. The role list is "null" when the API is not restricted to roles.
+     */
+    private void setRoles(String accessControl, Set<String> accessControlRoles, String visibleRoles) {
+
+        Set<String> roles = new HashSet<>();
+        if (APIConstants.API_RESTRICTED_VISIBILITY.equalsIgnoreCase(accessControl) && accessControlRoles != null) {
+            roles.addAll(toSet(accessControlRoles, true));
+        }
+        publisherRoles = roles.isEmpty() ? Collections.singleton(APIConstants.NULL_USER_ROLE_LIST)
+                : Collections.unmodifiableSet(roles);
+        if (APIConstants.API_RESTRICTED_VISIBILITY.equalsIgnoreCase(visibility) && visibleRoles != null) {
+            Set<String> viewRoles = new HashSet<>(roles);
+            viewRoles.addAll(toSet(Arrays.asList(visibleRoles.split(",")), true));
+            storeViewRoles = Collections.unmodifiableSet(viewRoles);
+        } else {
+            storeViewRoles = Collections.singleton(APIConstants.NULL_USER_ROLE_LIST);
+        }
+    }
+
+    /**
+     * Returns the resource paths of an OpenAPI definition or the channels of an AsyncAPI definition.
+     */
+    static Set<String> getURLPatterns(String definition) {
+
+        if (StringUtils.isBlank(definition)) {
+            return Collections.emptySet();
+        }
+        try {
+            Object parsed = new JSONParser().parse(definition);
+            if (!(parsed instanceof JSONObject)) {
+                return Collections.emptySet();
+            }
+            Object paths = ((JSONObject) parsed).get(OPENAPI_PATHS);
+            if (paths == null) {
+                paths = ((JSONObject) parsed).get(ASYNCAPI_CHANNELS);
+            }
+            if (paths instanceof JSONObject) {
+                Set<String> urlPatterns = new LinkedHashSet<>();
+                for (Object path : ((JSONObject) paths).keySet()) {
+                    urlPatterns.add(String.valueOf(path));
+                }
+                return Collections.unmodifiableSet(urlPatterns);
+            }
+        } catch (ParseException e) {
+            // Definitions in YAML are not searched by URL pattern
+        }
+        return Collections.emptySet();
+    }
+
+    public IndexedAPI withStatus(String status) {
+
+        IndexedAPI api = copy();
+        api.status = toUpperCase(status);
+        return api;
+    }
+
+    public IndexedAPI withDefinition(String definition) {
+
+        IndexedAPI api = copy();
+        api.urlPatterns = getURLPatterns(definition);
+        return api;
+    }
+
+    /**
+     * Keeps the documents and URL patterns of this API in an updated copy of it, as they are not a part of the API
+     * artifact.
+     */
+    public IndexedAPI withResourcesOf(IndexedAPI previous) {
+
+        IndexedAPI api = copy();
+        if (api.urlPatterns.isEmpty()) {
+            api.urlPatterns = previous.urlPatterns;
+        }
+        api.documentTitles = previous.documentTitles;
+        api.documentContents = previous.documentContents;
+        return api;
+    }
+
+    public IndexedAPI withDocument(String documentId, String title) {
+
+        IndexedAPI api = copy();
+        api.documentTitles = with(documentTitles, documentId, title);
+        return api;
+    }
+
+    public IndexedAPI withDocumentContent(String documentId, String content) {
+
+        IndexedAPI api = copy();
+        api.documentContents = with(documentContents, documentId, content);
+        return api;
+    }
+
+    public IndexedAPI withoutDocument(String documentId) {
+
+        IndexedAPI api = copy();
+        api.documentTitles = with(documentTitles, documentId, null);
+        api.documentContents = with(documentContents, documentId, null);
+        return api;
+    }
+
+    public PublisherAPIInfo toPublisherAPIInfo() {
+
+        PublisherAPIInfo apiInfo = new PublisherAPIInfo();
+        apiInfo.setId(id);
+        apiInfo.setType(type);
+        apiInfo.setApiName(name);
+        apiInfo.setVersion(version);
+        apiInfo.setProviderName(provider);
+        apiInfo.setContext(context);
+        apiInfo.setStatus(status);
+        apiInfo.setThumbnail(thumbnail);
+        return apiInfo;
+    }
+
+    public DevPortalAPIInfo toDevPortalAPIInfo() {
+
+        DevPortalAPIInfo apiInfo = new DevPortalAPIInfo();
+        apiInfo.setId(id);
+        apiInfo.setType(type);
+        apiInfo.setApiName(name);
+        apiInfo.setVersion(version);
+        apiInfo.setProviderName(provider);
+        apiInfo.setContext(context);
+        apiInfo.setStatus(status);
+        apiInfo.setThumbnail(thumbnail);
+        apiInfo.setBusinessOwner(businessOwner);
+        apiInfo.setAvailableTierNames(new HashSet<>(availableTierNames));
+        return apiInfo;
+    }
+
+    private static Map<String, String> with(Map<String, String> map, String key, String value) {
+
+        Map<String, String> changed = new HashMap<>(map);
+        if (value != null) {
+            changed.put(key, value);
+        } else {
+            changed.remove(key);
+        }
+        return Collections.unmodifiableMap(changed);
+    }
+
+    private static Set<String> toSet(Collection<String> values, boolean lowerCase) {
+
+        if (values == null || values.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> set = new LinkedHashSet<>();
+        for (String value : values) {
+            if (StringUtils.isNotBlank(value)) {
+                set.add(lowerCase ? value.trim().toLowerCase(Locale.ENGLISH) : value.trim());
+            }
+        }
+        return Collections.unmodifiableSet(set);
+    }
+
+    private static String toUpperCase(String value) {
+
+        return value != null ? value.toUpperCase(Locale.ENGLISH) : null;
+    }
+
+    public String getId() {
+
+        return id;
+    }
+
+    public boolean isAPIProduct() {
+
+        return apiProduct;
+    }
+
+    public String getName() {
+
+        return name;
+    }
+
+    public String getVersion() {
+
+        return version;
+    }
+
+    public String getProvider() {
+
+        return provider;
+    }
+
+    public String getContext() {
+
+        return context;
+    }
+
+    public String getType() {
+
+        return type;
+    }
+
+    public String getStatus() {
+
+        return status;
+    }
+
+    public String getDescription() {
+
+        return description;
+    }
+
+    public String getVisibility() {
+
+        return visibility;
+    }
+
+    public boolean isEnableStore() {
+
+        return enableStore;
+    }
+
+    public Set<String> getTags() {
+
+        return tags;
+    }
+
+    public Set<String> getLabels() {
+
+        return labels;
+    }
+
+    public Set<String> getCategories() {
+
+        return categories;
+    }
+
+    public Set<String> getPublisherRoles() {
+
+        return publisherRoles;
+    }
+
+    public Set<String> getStoreViewRoles() {
+
+        return storeViewRoles;
+    }
+
+    public Set<String> getURLPatterns() {
+
+        return urlPatterns;
+    }
+
+    public Collection<String> getDocumentTitles() {
+
+        return documentTitles.values();
+    }
+
+    public Collection<String> getDocumentContents() {
+
+        return documentContents.values();
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.persistence.utils;
+
+/**
+ * SQL queries of the JDBC based API persistence, which keeps the API artifacts in the AM_API_ARTIFACT tables.
+ */
+public class JdbcPersistenceSQLConstants {
+
+    public static final String ARTIFACT_TYPE_API = "API";
+    public static final String ARTIFACT_TYPE_API_PRODUCT = "APIProduct";
+
+    public static final String RESOURCE_TYPE_OAS = "OAS";
+    public static final String RESOURCE_TYPE_WSDL = "WSDL";
+    public static final String RESOURCE_TYPE_GRAPHQL = "GRAPHQL";
+    public static final String RESOURCE_TYPE_ASYNC = "ASYNC";
+    public static final String RESOURCE_TYPE_THUMBNAIL = "THUMBNAIL";
+    public static final String RESOURCE_TYPE_MEDIATION_PREFIX = "MEDIATION_";
+
+    public static final String ATTRIBUTE_TAG = "tag";
+    public static final String ATTRIBUTE_LABEL = "label";
+    public static final String ATTRIBUTE_CATEGORY = "api-category";
+
+    /* ======= API artifacts ======= */
+
+    public static final String ADD_ARTIFACT_SQL =
+            "INSERT INTO AM_API_ARTIFACT (API_UUID, TENANT_DOMAIN, ARTIFACT_TYPE, API_NAME, API_VERSION, " +
+                    "API_PROVIDER, CONTEXT, API_TYPE, STATUS, VISIBILITY, ENABLE_STORE, CREATED_TIME, UPDATED_TIME, " +
+                    "ARTIFACT) VALUES (?,?,?,?,?,?,?,?,?,?,?,?,?,?)";
+
+    public static final String UPDATE_ARTIFACT_SQL =
+            "UPDATE AM_API_ARTIFACT SET API_NAME = ?, API_VERSION = ?, API_PROVIDER = ?, CONTEXT = ?, API_TYPE = ?, " +
+                    "STATUS = ?, VISIBILITY = ?, ENABLE_STORE = ?, UPDATED_TIME = ?, ARTIFACT = ? " +
+                    "WHERE API_UUID = ? AND TENANT_DOMAIN = ?";
+
+    public static final String UPDATE_ARTIFACT_CONTENT_SQL =
+            "UPDATE AM_API_ARTIFACT SET STATUS = ?, UPDATED_TIME = ?, ARTIFACT = ? WHERE API_UUID = ?";
+
+    public static final String GET_ARTIFACT_SQL =
+            "SELECT ARTIFACT_TYPE, REVISION_OF, ARTIFACT FROM AM_API_ARTIFACT WHERE API_UUID = ? AND TENANT_DOMAIN = ?";
+
+    public static final String GET_ARTIFACT_TYPE_SQL =
+            "SELECT ARTIFACT_TYPE FROM AM_API_ARTIFACT WHERE API_UUID = ? AND TENANT_DOMAIN = ?";
+
+    public static final String DELETE_ARTIFACT_SQL =
+            "DELETE FROM AM_API_ARTIFACT WHERE API_UUID = ? AND TENANT_DOMAIN = ?";
+
+    public static final String DELETE_ARTIFACT_REVISIONS_SQL =
+            "DELETE FROM AM_API_ARTIFACT WHERE REVISION_OF = ?";
+
+    /* ======= Revisions ======= */
+
+    public static final String ADD_REVISION_SQL =
+            "INSERT INTO AM_API_ARTIFACT (API_UUID, TENANT_DOMAIN, ARTIFACT_TYPE, API_NAME, API_VERSION, " +
+                    "API_PROVIDER, CONTEXT, API_TYPE, STATUS, VISIBILITY, ENABLE_STORE, REVISION_OF, REVISION_ID, " +
+                    "CREATED_TIME, UPDATED_TIME, ARTIFACT) SELECT ?, TENANT_DOMAIN, ARTIFACT_TYPE, API_NAME, " +
+                    "API_VERSION, API_PROVIDER, CONTEXT, API_TYPE, STATUS, VISIBILITY, ENABLE_STORE, API_UUID, ?, " +
+                    "CREATED_TIME, UPDATED_TIME, ARTIFACT FROM AM_API_ARTIFACT WHERE API_UUID = ? AND TENANT_DOMAIN = ?";
+
+    public static final String GET_REVISION_UUID_SQL =
+            "SELECT API_UUID FROM AM_API_ARTIFACT WHERE REVISION_OF = ? AND REVISION_ID = ?";
+
+    public static final String SET_REVISION_SQL =
+            "UPDATE AM_API_ARTIFACT SET REVISION_OF = ?, REVISION_ID = ? WHERE API_UUID = ?";
+
+    public static final String DELETE_REVISION_SQL =
+            "DELETE FROM AM_API_ARTIFACT WHERE REVISION_OF = ? AND REVISION_ID = ?";
+
+    /* ======= Search attributes ======= */
+
+    public static final String ADD_ATTRIBUTE_SQL =
+            "INSERT INTO AM_API_ARTIFACT_ATTRIBUTE (API_UUID, ATTRIBUTE_NAME, ATTRIBUTE_VALUE, ATTRIBUTE_VALUE_HASH) " +
+                    "VALUES (?,?,?,?)";
+
+    public static final String DELETE_ATTRIBUTES_SQL =
+            "DELETE FROM AM_API_ARTIFACT_ATTRIBUTE WHERE API_UUID = ?";
+
+    /* ======= Definitions, thumbnails and mediation policies ======= */
+
+    public static final String ADD_RESOURCE_SQL =
+            "INSERT INTO AM_API_ARTIFACT_RESOURCE (RESOURCE_UUID, API_UUID, RESOURCE_TYPE, RESOURCE_NAME, " +
+                    "MEDIA_TYPE, CONTENT) VALUES (?,?,?,?,?,?)";
+
+    public static final String UPDATE_RESOURCE_SQL =
+            "UPDATE AM_API_ARTIFACT_RESOURCE SET RESOURCE_TYPE = ?, RESOURCE_NAME = ?, MEDIA_TYPE = ?, CONTENT = ? " +
+                    "WHERE RESOURCE_UUID = ? AND API_UUID = ?";
+
+    public static final String GET_RESOURCE_BY_TYPE_SQL =
+            "SELECT RESOURCE_UUID, RESOURCE_TYPE, RESOURCE_NAME, MEDIA_TYPE, CONTENT FROM AM_API_ARTIFACT_RESOURCE " +
+                    "WHERE API_UUID = ? AND RESOURCE_TYPE = ?";
+
+    public static final String GET_RESOURCE_SQL =
+            "SELECT RESOURCE_UUID, RESOURCE_TYPE, RESOURCE_NAME, MEDIA_TYPE, CONTENT FROM AM_API_ARTIFACT_RESOURCE " +
+                    "WHERE RESOURCE_UUID = ? AND API_UUID = ?";
+
+    public static final String GET_MEDIATION_RESOURCES_SQL =
+            "SELECT RESOURCE_UUID, RESOURCE_TYPE, RESOURCE_NAME FROM AM_API_ARTIFACT_RESOURCE " +
+                    "WHERE API_UUID = ? AND RESOURCE_TYPE IN (?,?,?) ORDER BY RESOURCE_NAME";
+
+    public static final String GET_ALL_RESOURCES_SQL =
+            "SELECT RESOURCE_TYPE, RESOURCE_NAME, MEDIA_TYPE, CONTENT FROM AM_API_ARTIFACT_RESOURCE WHERE API_UUID = ?";
+
+    public static final String DELETE_RESOURCE_BY_TYPE_SQL =
+            "DELETE FROM AM_API_ARTIFACT_RESOURCE WHERE API_UUID = ? AND RESOURCE_TYPE = ?";
+
+    public static final String DELETE_RESOURCE_SQL =
+            "DELETE FROM AM_API_ARTIFACT_RESOURCE WHERE RESOURCE_UUID = ? AND API_UUID = ?";
+
+    public static final String DELETE_ALL_RESOURCES_SQL =
+            "DELETE FROM AM_API_ARTIFACT_RESOURCE WHERE API_UUID = ?";
+
+    /* ======= Documents ======= */
+
+    public static final String ADD_DOCUMENT_SQL =
+            "INSERT INTO AM_API_ARTIFACT_DOC (DOC_UUID, API_UUID, DOC_NAME, METADATA, CONTENT, CONTENT_NAME, " +
+                    "MEDIA_TYPE) VALUES (?,?,?,?,?,?,?)";
+
+    public static final String UPDATE_DOCUMENT_SQL =
+            "UPDATE AM_API_ARTIFACT_DOC SET DOC_NAME = ?, METADATA = ? WHERE DOC_UUID = ? AND API_UUID = ?";
+
+    public static final String UPDATE_DOCUMENT_CONTENT_SQL =
+            "UPDATE AM_API_ARTIFACT_DOC SET CONTENT = ?, CONTENT_NAME = ?, MEDIA_TYPE = ? " +
+                    "WHERE DOC_UUID = ? AND API_UUID = ?";
+
+    public static final String GET_DOCUMENT_SQL =
+            "SELECT METADATA FROM AM_API_ARTIFACT_DOC WHERE DOC_UUID = ? AND API_UUID = ?";
+
+    public static final String GET_DOCUMENT_CONTENT_SQL =
+            "SELECT METADATA, CONTENT, CONTENT_NAME, MEDIA_TYPE FROM AM_API_ARTIFACT_DOC " +
+                    "WHERE DOC_UUID = ? AND API_UUID = ?";
+
+    public static final String GET_DOCUMENTS_SQL =
+            "SELECT METADATA FROM AM_API_ARTIFACT_DOC WHERE API_UUID = ? ORDER BY DOC_NAME";
+
+    public static final String GET_DOCUMENTS_BY_NAME_SQL =
+            "SELECT METADATA FROM AM_API_ARTIFACT_DOC WHERE API_UUID = ? AND LOWER(DOC_NAME) = ?";
+
+    public static final String GET_ALL_DOCUMENTS_SQL =
+            "SELECT DOC_NAME, METADATA, CONTENT, CONTENT_NAME, MEDIA_TYPE FROM AM_API_ARTIFACT_DOC WHERE API_UUID = ?";
+
+    public static final String DELETE_DOCUMENT_SQL =
+            "DELETE FROM AM_API_ARTIFACT_DOC WHERE DOC_UUID = ? AND API_UUID = ?";
+
+    public static final String DELETE_ALL_DOCUMENTS_SQL =
+            "DELETE FROM AM_API_ARTIFACT_DOC WHERE API_UUID = ?";
+
+    /* ======= Search =======
+     The conditions of a search are appended to these queries, followed by the order and the pagination clause. */
+
+    public static final String SEARCH_ARTIFACTS_SQL =
+            "SELECT A.ARTIFACT_TYPE, A.ARTIFACT FROM AM_API_ARTIFACT A WHERE A.TENANT_DOMAIN = ? " +
+                    "AND A.REVISION_OF IS NULL";
+
+    public static final String COUNT_ARTIFACTS_SQL =
+            "SELECT COUNT(*) FROM AM_API_ARTIFACT A WHERE A.TENANT_DOMAIN = ? AND A.REVISION_OF IS NULL";
+
+    public static final String SEARCH_ARTIFACTS_ORDER_BY = " ORDER BY A.API_NAME, A.API_VERSION, A.API_UUID";
+
+    public static final String SEARCH_DOCUMENTS_SQL =
+            "SELECT A.ARTIFACT_TYPE, A.ARTIFACT, D.METADATA FROM AM_API_ARTIFACT_DOC D " +
+                    "INNER JOIN AM_API_ARTIFACT A ON D.API_UUID = A.API_UUID WHERE A.TENANT_DOMAIN = ? " +
+                    "AND A.REVISION_OF IS NULL AND LOWER(D.DOC_NAME) LIKE ? ESCAPE '!'";
+
+    public static final String COUNT_DOCUMENTS_SQL =
+            "SELECT COUNT(*) FROM AM_API_ARTIFACT_DOC D INNER JOIN AM_API_ARTIFACT A ON D.API_UUID = A.API_UUID " +
+                    "WHERE A.TENANT_DOMAIN = ? AND A.REVISION_OF IS NULL AND LOWER(D.DOC_NAME) LIKE ? ESCAPE '!'";
+
+    public static final String SEARCH_DOCUMENTS_ORDER_BY = " ORDER BY D.DOC_NAME, D.DOC_UUID";
+
+    public static final String ATTRIBUTE_CONDITION =
+            " AND EXISTS (SELECT 1 FROM AM_API_ARTIFACT_ATTRIBUTE T WHERE T.API_UUID = A.API_UUID " +
+                    "AND T.ATTRIBUTE_NAME = ? AND T.ATTRIBUTE_VALUE";
+
+    public static final String ATTRIBUTE_HASH_CONDITION =
+            " AND EXISTS (SELECT 1 FROM AM_API_ARTIFACT_ATTRIBUTE T WHERE T.API_UUID = A.API_UUID " +
+                    "AND T.ATTRIBUTE_NAME = ? AND T.ATTRIBUTE_VALUE_HASH";
+
+    public static final String DOCUMENT_NAME_CONDITION =
+            " AND EXISTS (SELECT 1 FROM AM_API_ARTIFACT_DOC N WHERE N.API_UUID = A.API_UUID " +
+                    "AND LOWER(N.DOC_NAME) LIKE ? ESCAPE '!')";
+
+    public static final String CONTENT_CONDITION =
+            " AND (LOWER(A.API_NAME) LIKE ? ESCAPE '!' OR LOWER(A.CONTEXT) LIKE ? ESCAPE '!' " +
+                    "OR LOWER(A.API_PROVIDER) LIKE ? ESCAPE '!' OR LOWER(A.API_VERSION) LIKE ? ESCAPE '!' " +
+                    "OR EXISTS (SELECT 1 FROM AM_API_ARTIFACT_ATTRIBUTE C WHERE C.API_UUID = A.API_UUID " +
+                    "AND C.ATTRIBUTE_NAME = ? AND C.ATTRIBUTE_VALUE LIKE ? ESCAPE '!'))";
+
+    public static final String PRIVATE_VISIBILITY_CONDITION = " AND (A.VISIBILITY IS NULL OR A.VISIBILITY <> ?)";
+
+    public static final String ENABLE_STORE_CONDITION = " AND A.ENABLE_STORE = 1";
+
+    public static final String LIMIT_OFFSET_PAGINATION = " LIMIT ? OFFSET ?";
+
+    public static final String OFFSET_FETCH_PAGINATION = " OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.persistence;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.wso2.carbon.apimgt.persistence.dto.Organization;
+import org.wso2.carbon.apimgt.persistence.dto.PublisherAPI;
+import org.wso2.carbon.apimgt.persistence.dto.PublisherAPIInfo;
+import org.wso2.carbon.apimgt.persistence.dto.UserContext;
+import org.wso2.carbon.apimgt.persistence.exceptions.APIPersistenceException;
+import org.wso2.carbon.apimgt.persistence.search.APISearchIndexSource;
+import org.wso2.carbon.apimgt.persistence.search.InMemoryAPISearchIndex;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+public class IndexedAPIPersistenceTestCase {
+
+    private final Organization org = new Organization("carbon.super");
+    private final UserContext admin = getUserContext();
+    private final Map<String, PublisherAPI> apis = new HashMap<>();
+    private final Map<String, String> states = new HashMap<>();
+    private final List<String> reads = new ArrayList<>();
+    private String version = "1";
+    private IndexedAPIPersistence persistence;
+
+    @Before
+    public void setUp() throws Exception {
+
+        putAPI("1", "PizzaShack", "PUBLISHED");
+        putAPI("2", "PizzaOrders", "CREATED");
+        putAPI("3", "Payroll", "PUBLISHED");
+        Properties properties = new Properties();
+        properties.put(APIConstants.PERSISTENCE_SEARCH_INDEX_SOURCE, new APISearchIndexSource() {
+            @Override
+            public List<String> getAPIIds(Organization org) {
+
+                return new ArrayList<>(states.keySet());
+            }
+
+            @Override
+            public List<String> getAPIProductIds(Organization org) {
+
+                return Collections.emptyList();
+            }
+
+            @Override
+            public String getVersion(Organization org) {
+
+                return version;
+            }
+
+            @Override
+            public Map<String, String> getAPIStates(Organization org, boolean apiProducts) {
+
+                return apiProducts ? Collections.emptyMap() : states;
+            }
+        });
+        persistence = new IndexedAPIPersistence(getStoredPersistence(), new InMemoryAPISearchIndex(), properties);
+        persistence.loadIndex(org);
+        Assert.assertEquals(3, reads.size());
+        reads.clear();
+    }
+
+    private static UserContext getUserContext() {
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(APIConstants.USER_CTX_PROPERTY_ISADMIN, true);
+        return new UserContext("admin", new Organization("carbon.super"), properties, new String[]{"admin"});
+    }
+
+    /**
+     * Stores an API as another node would, which changes the state of the API.
+     */
+    private void putAPI(String id, String name, String status) {
+
+        PublisherAPI api = new PublisherAPI();
+        api.setId(id);
+        api.setApiName(name);
+        api.setVersion("1.0.0");
+        api.setProviderName("admin");
+        api.setContext("/" + name.toLowerCase());
+        api.setType("HTTP");
+        api.setStatus(status);
+        api.setVisibility("public");
+        api.setEnableStore(true);
+        apis.put(id, api);
+        states.put(id, status + ":" + name);
+    }
+
+    /**
+     * Returns the persistence the index is loaded from, which only stores APIs and records the APIs read.
+     */
+    private APIPersistence getStoredPersistence() {
+
+        return (APIPersistence) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{APIPersistence.class}, (proxy, method, args) -> {
+                    if ("getPublisherAPI".equals(method.getName())) {
+                        String apiId = (String) args[1];
+                        reads.add(apiId);
+                        PublisherAPI api = apis.get(apiId);
+                        if (api == null) {
+                            throw new APIPersistenceException("Failed to get API " + apiId);
+                        }
+                        return api;
+                    }
+                    return null;
+                });
+    }
+
+    private List<String> searchNames() throws APIPersistenceException {
+
+        List<String> names = new ArrayList<>();
+        for (PublisherAPIInfo apiInfo : persistence.searchAPIsForPublisher(org, "", 0, 10, admin)
+                .getPublisherAPIInfoList()) {
+            names.add(apiInfo.getApiName());
+        }
+        return names;
+    }
+
+    @Test
+    public void testIndexIsNotReadAgainWhenTheVersionIsUnchanged() throws Exception {
+
+        persistence.updateIndex(org);
+        Assert.assertTrue(reads.isEmpty());
+        Assert.assertEquals(3, searchNames().size());
+    }
+
+    @Test
+    public void testOnlyChangedAPIsAreReadAgain() throws Exception {
+
+        putAPI("2", "PizzaDelivery", "PUBLISHED");
+        putAPI("4", "Weather", "PUBLISHED");
+        apis.remove("3");
+        states.remove("3");
+        version = "2";
+
+        persistence.updateIndex(org);
+        Assert.assertEquals(2, reads.size());
+        Assert.assertTrue(reads.contains("2"));
+        Assert.assertTrue(reads.contains("4"));
+        List<String> names = searchNames();
+        Assert.assertEquals(3, names.size());
+        Assert.assertTrue(names.contains("PizzaDelivery"));
+        Assert.assertTrue(names.contains("Weather"));
+        Assert.assertFalse(names.contains("Payroll"));
+
+        reads.clear();
+        persistence.updateIndex(org);
+        Assert.assertTrue(reads.isEmpty());
+    }
+
+    @Test
+    public void testAPIsWhichCannotBeReadAreReadOnTheNextUpdate() throws Exception {
+
+        putAPI("4", "Weather", "PUBLISHED");
+        PublisherAPI weather = apis.remove("4");
+        version = "2";
+
+        persistence.updateIndex(org);
+        Assert.assertEquals(Collections.singletonList("4"), reads);
+        Assert.assertFalse(searchNames().contains("Weather"));
+
+        // The version is unchanged, but the API is read again since it could not be indexed
+        reads.clear();
+        apis.put("4", weather);
+        persistence.updateIndex(org);
+        Assert.assertEquals(Collections.singletonList("4"), reads);
+        Assert.assertTrue(searchNames().contains("Weather"));
+    }
+}
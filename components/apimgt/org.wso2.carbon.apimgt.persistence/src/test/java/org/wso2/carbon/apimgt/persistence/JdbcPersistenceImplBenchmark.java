@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.persistence;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.wso2.carbon.apimgt.persistence.dto.Organization;
+import org.wso2.carbon.apimgt.persistence.dto.PublisherAPI;
+import org.wso2.carbon.apimgt.persistence.dto.UserContext;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.governance.api.util.GovernanceConstants;
+import org.wso2.carbon.governance.lcm.util.CommonUtil;
+import org.wso2.carbon.registry.core.RegistryConstants;
+import org.wso2.carbon.registry.core.Resource;
+import org.wso2.carbon.registry.core.jdbc.InMemoryEmbeddedRegistryService;
+import org.wso2.carbon.registry.core.session.UserRegistry;
+import org.wso2.carbon.registry.core.utils.RegistryUtils;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the main operations of {@link JdbcPersistenceImpl} on the H2 database used by
+ * {@link JdbcPersistenceImplTestCase}, or of {@link RegistryPersistenceImpl} on an embedded registry kept in an
+ * in-memory H2 database, so that both persistence implementations are compared on the same database. It is not a unit
+ * test, so it is not run by the build. Run it from the module directory, with the test classpath, as
+ * <pre>
+ * java -cp target/classes:target/test-classes:&lt;test dependencies&gt; \
+ *     org.wso2.carbon.apimgt.persistence.JdbcPersistenceImplBenchmark [number of APIs] [iterations]
+ * </pre>
+ * and, for the registry, as
+ * <pre>
+ * java -Dcarbon.home=&lt;API Manager distribution&gt; -Dsetup \
+ *     -cp target/classes:target/test-classes:&lt;test dependencies&gt; \
+ *     org.wso2.carbon.apimgt.persistence.JdbcPersistenceImplBenchmark registry [number of APIs] [iterations]
+ * </pre>
+ * where the registry and user store tables are created by the database scripts of the distribution. The registry
+ * searches need the indexer of a running server, so only the reads and writes of the APIs are measured on the registry.
+ */
+public class JdbcPersistenceImplBenchmark {
+
+    private static final int DEFAULT_API_COUNT = 1000;
+    private static final int DEFAULT_ITERATIONS = 1000;
+    private static final int WARM_UP_ITERATIONS = 200;
+    private static final int PAGE_SIZE = 25;
+    private static final String REGISTRY_MODE = "registry";
+    private static final String REGISTRY_CONFIG = "./src/test/resources/benchmark/registry.xml";
+    private static final String API_RXT =
+            "../../../features/apimgt/org.wso2.carbon.apimgt.core.feature/src/main/resources/rxts/api.rxt";
+    private static final String API_LIFECYCLE = "../../../features/apimgt/org.wso2.carbon.apimgt.publisher.feature/"
+            + "src/main/resources/lifecycles/APILifeCycle.xml";
+
+    private final Organization org = new Organization("carbon.super");
+    private final UserContext admin = getUserContext("admin", true, "admin");
+    private final UserContext subscriber = getUserContext("subscriber", false, "Internal/subscriber");
+    private final APIPersistence persistence;
+    private final boolean searchable;
+    private final List<String> apiIds = new ArrayList<>();
+
+    private JdbcPersistenceImplBenchmark(APIPersistence persistence, boolean searchable) {
+
+        this.persistence = persistence;
+        this.searchable = searchable;
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        boolean registry = args.length > 0 && REGISTRY_MODE.equals(args[0]);
+        int first = registry ? 1 : 0;
+        int apiCount = args.length > first ? Integer.parseInt(args[first]) : DEFAULT_API_COUNT;
+        int iterations = args.length > first + 1 ? Integer.parseInt(args[first + 1]) : DEFAULT_ITERATIONS;
+
+        if (registry) {
+            new JdbcPersistenceImplBenchmark(getRegistryPersistence(), false).run(apiCount, iterations);
+            return;
+        }
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:apipersistencebenchmark;DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+            statement.execute("RUNSCRIPT FROM './src/test/resources/dbscripts/h2.sql'");
+        }
+        Properties properties = new Properties();
+        properties.put(APIConstants.ALLOW_MULTIPLE_STATUS, false);
+        new JdbcPersistenceImplBenchmark(new JdbcPersistenceImpl(properties, dataSource), true)
+                .run(apiCount, iterations);
+    }
+
+    /**
+     * Returns the registry persistence of the super tenant on an embedded registry, with the API artifact type and
+     * the API lifecycle deployed as the server deploys them.
+     */
+    private static APIPersistence getRegistryPersistence() throws Exception {
+
+        InMemoryEmbeddedRegistryService registryService;
+        try (InputStream registryConfig = new FileInputStream(REGISTRY_CONFIG)) {
+            registryService = new InMemoryEmbeddedRegistryService(registryConfig);
+        }
+        PrivilegedCarbonContext.startTenantFlow();
+        PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+        carbonContext.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+        carbonContext.setTenantId(MultitenantConstants.SUPER_TENANT_ID);
+        carbonContext.setUsername("admin");
+
+        UserRegistry registry = registryService.getGovernanceSystemRegistry();
+        Resource rxt = registry.newResource();
+        rxt.setContent(Files.readAllBytes(Paths.get(API_RXT)));
+        rxt.setMediaType(APIConstants.RXT_MEDIA_TYPE);
+        registry.put(RegistryUtils.getRelativePathToOriginal(GovernanceConstants.RXT_CONFIGS_PATH
+                + RegistryConstants.PATH_SEPARATOR + "api.rxt", RegistryConstants.GOVERNANCE_REGISTRY_BASE_PATH), rxt);
+        CommonUtil.addLifecycle(new String(Files.readAllBytes(Paths.get(API_LIFECYCLE)), StandardCharsets.UTF_8),
+                registryService.getConfigSystemRegistry(), registryService.getSystemRegistry());
+        return new RegistryPersistenceImplWrapper(registry);
+    }
+
+    private static UserContext getUserContext(String username, boolean isAdmin, String... roles) {
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(APIConstants.USER_CTX_PROPERTY_ISADMIN, isAdmin);
+        return new UserContext(username, new Organization("carbon.super"), properties, roles);
+    }
+
+    private static PublisherAPI getAPI(int index) {
+
+        PublisherAPI api = new PublisherAPI();
+        api.setApiName("BenchmarkAPI" + index);
+        api.setVersion("1.0.0");
+        api.setProviderName("admin");
+        api.setContext("/benchmark" + index);
+        api.setType("HTTP");
+        // Every second API is published, so that the DevPortal search filters as well
+        api.setStatus(index % 2 == 0 ? "PUBLISHED" : "CREATED");
+        api.setVisibility("public");
+        api.setEnableStore(true);
+        api.setTags(Collections.singleton("tag" + index % 10));
+        api.setSwaggerDefinition("{\"openapi\":\"3.0.1\"}");
+        return api;
+    }
+
+    private void run(int apiCount, int iterations) throws Exception {
+
+        long start = System.nanoTime();
+        for (int i = 0; i < apiCount; i++) {
+            apiIds.add(persistence.addAPI(org, getAPI(i)).getId());
+        }
+        report("addAPI", apiCount, System.nanoTime() - start);
+
+        measure("getPublisherAPI", iterations,
+                i -> persistence.getPublisherAPI(org, apiIds.get(i % apiIds.size())));
+        measure("getDevPortalAPI", iterations,
+                i -> persistence.getDevPortalAPI(org, apiIds.get(i % apiIds.size())));
+        if (searchable) {
+            measureSearches(apiCount, iterations);
+        }
+        measure("updateAPI", iterations, i -> {
+            PublisherAPI api = persistence.getPublisherAPI(org, apiIds.get(i % apiIds.size()));
+            api.setDescription("Updated " + i);
+            persistence.updateAPI(org, api);
+        });
+    }
+
+    private void measureSearches(int apiCount, int iterations) throws Exception {
+
+        measure("searchAPIsForPublisher", iterations,
+                i -> persistence.searchAPIsForPublisher(org, "", (i * PAGE_SIZE) % apiCount, PAGE_SIZE, admin));
+        measure("searchAPIsForPublisher tag", iterations,
+                i -> persistence.searchAPIsForPublisher(org, "tag:tag" + i % 10, 0, PAGE_SIZE, admin));
+        measure("searchAPIsForDevPortal", iterations,
+                i -> persistence.searchAPIsForDevPortal(org, "", (i * PAGE_SIZE) % (apiCount / 2 + 1), PAGE_SIZE,
+                        subscriber));
+    }
+
+    private void measure(String operation, int iterations, Operation body) throws Exception {
+
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            body.run(i);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            body.run(i);
+        }
+        report(operation, iterations, System.nanoTime() - start);
+    }
+
+    private static void report(String operation, int count, long elapsedNanos) {
+
+        double elapsedMillis = elapsedNanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        System.out.println(String.format("%-28s %8d ops %10.1f ms %10.1f ops/s %8.3f ms/op", operation, count,
+                elapsedMillis, count * 1000 / elapsedMillis, elapsedMillis / count));
+    }
+
+    private interface Operation {
+
+        void run(int iteration) throws Exception;
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.persistence;
+
+import org.apache.commons.lang3.StringUtils;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.wso2.carbon.apimgt.persistence.dto.DevPortalAPI;
+import org.wso2.carbon.apimgt.persistence.dto.DevPortalAPISearchResult;
+import org.wso2.carbon.apimgt.persistence.dto.DocumentContent;
+import org.wso2.carbon.apimgt.persistence.dto.DocumentSearchResult;
+import org.wso2.carbon.apimgt.persistence.dto.Documentation;
+import org.wso2.carbon.apimgt.persistence.dto.DocumentationType;
+import org.wso2.carbon.apimgt.persistence.dto.Organization;
+import org.wso2.carbon.apimgt.persistence.dto.PublisherAPI;
+import org.wso2.carbon.apimgt.persistence.dto.PublisherAPISearchResult;
+import org.wso2.carbon.apimgt.persistence.dto.UserContext;
+import org.wso2.carbon.apimgt.persistence.exceptions.APIPersistenceException;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+
+public class JdbcPersistenceImplTestCase {
+
+    private final Organization org = new Organization("carbon.super");
+    private final UserContext admin = getUserContext("admin", true, "admin");
+    private final UserContext subscriber = getUserContext("subscriber", false, "Internal/subscriber");
+    private JdbcPersistenceImpl persistence;
+
+    @Before
+    public void setUp() throws Exception {
+
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:apipersistence;DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+            statement.execute("RUNSCRIPT FROM './src/test/resources/dbscripts/h2.sql'");
+        }
+        Properties properties = new Properties();
+        properties.put(APIConstants.ALLOW_MULTIPLE_STATUS, false);
+        persistence = new JdbcPersistenceImpl(properties, dataSource);
+    }
+
+    private static UserContext getUserContext(String username, boolean isAdmin, String... roles) {
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(APIConstants.USER_CTX_PROPERTY_ISADMIN, isAdmin);
+        return new UserContext(username, new Organization("carbon.super"), properties, roles);
+    }
+
+    private static PublisherAPI getAPI(String name, String status, String visibility, String visibleRoles,
+                                       String... tags) {
+
+        PublisherAPI api = new PublisherAPI();
+        api.setApiName(name);
+        api.setVersion("1.0.0");
+        api.setProviderName("admin");
+        api.setContext("/" + name.toLowerCase());
+        api.setType("HTTP");
+        api.setStatus(status);
+        api.setVisibility(visibility);
+        api.setVisibleRoles(visibleRoles);
+        api.setEnableStore(true);
+        api.setTags(new HashSet<>(Arrays.asList(tags)));
+        return api;
+    }
+
+    @Test
+    public void testAddAndGetAPI() throws Exception {
+
+        PublisherAPI api = getAPI("PizzaShack", "CREATED", "public", null, "food");
+        api.setSwaggerDefinition("{\"openapi\":\"3.0.1\"}");
+        String apiId = persistence.addAPI(org, api).getId();
+        Assert.assertNotNull(apiId);
+
+        PublisherAPI storedAPI = persistence.getPublisherAPI(org, apiId);
+        Assert.assertEquals("PizzaShack", storedAPI.getApiName());
+        Assert.assertEquals("{\"openapi\":\"3.0.1\"}", storedAPI.getSwaggerDefinition());
+        Assert.assertTrue(storedAPI.getTags().contains("food"));
+        Assert.assertEquals("{\"openapi\":\"3.0.1\"}", persistence.getOASDefinition(org, apiId));
+
+        // APIs of other tenants are not visible
+        Assert.assertNull(persistence.getDevPortalAPI(new Organization("wso2.com"), apiId));
+
+        persistence.deleteAPI(org, apiId);
+        Assert.assertNull(persistence.getDevPortalAPI(org, apiId));
+        try {
+            persistence.getPublisherAPI(org, apiId);
+            Assert.fail("Deleted API is returned");
+        } catch (APIPersistenceException e) {
+            Assert.assertTrue(e.getMessage().contains("Failed to get API"));
+        }
+    }
+
+    @Test
+    public void testSearchAPIs() throws Exception {
+
+        persistence.addAPI(org, getAPI("PizzaShack", "PUBLISHED", "public", null, "food", "pizza"));
+        persistence.addAPI(org, getAPI("PizzaOrders", "CREATED", "public", null, "food"));
+        persistence.addAPI(org, getAPI("Payroll", "PUBLISHED", "restricted", "Internal/hr", "finance"));
+
+        PublisherAPISearchResult publisherResult = persistence.searchAPIsForPublisher(org, "pizza", 0, 10, admin);
+        Assert.assertEquals(2, publisherResult.getTotalAPIsCount());
+        Assert.assertEquals("PizzaOrders", publisherResult.getPublisherAPIInfoList().get(0).getApiName());
+
+        publisherResult = persistence.searchAPIsForPublisher(org, "tag:food", 1, 1, admin);
+        Assert.assertEquals(2, publisherResult.getTotalAPIsCount());
+        Assert.assertEquals(1, publisherResult.getReturnedAPIsCount());
+        Assert.assertEquals("PizzaShack", publisherResult.getPublisherAPIInfoList().get(0).getApiName());
+
+        // Only the published APIs visible to the user are listed in the DevPortal
+        DevPortalAPISearchResult devPortalResult = persistence.searchAPIsForDevPortal(org, "", 0, 10, subscriber);
+        Assert.assertEquals(1, devPortalResult.getTotalAPIsCount());
+        Assert.assertEquals("PizzaShack", devPortalResult.getDevPortalAPIInfoList().get(0).getApiName());
+
+        UserContext hrUser = getUserContext("hr", false, "Internal/hr");
+        devPortalResult = persistence.searchAPIsForDevPortal(org, "", 0, 10, hrUser);
+        Assert.assertEquals(2, devPortalResult.getTotalAPIsCount());
+
+        devPortalResult = persistence.searchAPIsForDevPortal(org, "tag:finance", 0, 10, subscriber);
+        Assert.assertEquals(0, devPortalResult.getTotalAPIsCount());
+    }
+
+    @Test
+    public void testSearchAPIsByLongAttributeValues() throws Exception {
+
+        String tag = StringUtils.repeat("tag", 200);
+        String role = "Internal/" + StringUtils.repeat("role", 150);
+        persistence.addAPI(org, getAPI("PizzaShack", "PUBLISHED", "restricted", role, tag));
+        persistence.addAPI(org, getAPI("PizzaOrders", "PUBLISHED", "public", null, tag + "s"));
+
+        PublisherAPISearchResult publisherResult = persistence.searchAPIsForPublisher(org, "tag:" + tag, 0, 10,
+                admin);
+        Assert.assertEquals(1, publisherResult.getTotalAPIsCount());
+        Assert.assertEquals("PizzaShack", publisherResult.getPublisherAPIInfoList().get(0).getApiName());
+
+        DevPortalAPISearchResult devPortalResult = persistence.searchAPIsForDevPortal(org, "", 0, 10,
+                getUserContext("long", false, role));
+        Assert.assertEquals(2, devPortalResult.getTotalAPIsCount());
+        devPortalResult = persistence.searchAPIsForDevPortal(org, "", 0, 10,
+                getUserContext("short", false, role.substring(0, 255)));
+        Assert.assertEquals(1, devPortalResult.getTotalAPIsCount());
+    }
+
+    @Test
+    public void testRevisions() throws Exception {
+
+        String apiId = persistence.addAPI(org, getAPI("PizzaShack", "CREATED", "public", null)).getId();
+        String revisionId = persistence.addAPIRevision(org, apiId, 1);
+
+        PublisherAPI api = persistence.getPublisherAPI(org, apiId);
+        api.setDescription("Changed after the revision");
+        persistence.updateAPI(org, api);
+
+        // The revisions are not listed
+        Assert.assertEquals(1, persistence.searchAPIsForPublisher(org, "", 0, 10, admin).getTotalAPIsCount());
+        DevPortalAPI revision = persistence.getDevPortalAPI(org, revisionId);
+        Assert.assertNull(revision.getDescription());
+
+        persistence.restoreAPIRevision(org, apiId, 1);
+        Assert.assertNull(persistence.getPublisherAPI(org, apiId).getDescription());
+
+        persistence.deleteAPIRevision(org, apiId, 1);
+        Assert.assertNull(persistence.getDevPortalAPI(org, revisionId));
+    }
+
+    @Test
+    public void testDocuments() throws Exception {
+
+        String apiId = persistence.addAPI(org, getAPI("PizzaShack", "PUBLISHED", "public", null)).getId();
+        Documentation documentation = new Documentation(DocumentationType.HOWTO, "Getting Started");
+        documentation.setSourceType(Documentation.DocumentSourceType.INLINE);
+        String docId = persistence.addDocumentation(org, apiId, documentation).getId();
+
+        DocumentContent content = new DocumentContent();
+        content.setSourceType(DocumentContent.ContentSourceType.INLINE);
+        content.setTextContent("Order a pizza");
+        persistence.addDocumentationContent(org, apiId, docId, content);
+
+        Assert.assertEquals("Order a pizza", persistence.getDocumentationContent(org, apiId, docId).getTextContent());
+        DocumentSearchResult result = persistence.searchDocumentation(org, apiId, 0, 0, "name:getting started",
+                admin);
+        Assert.assertEquals(1, result.getDocumentationList().size());
+        Assert.assertEquals(1, persistence.searchContentForDevPortal(org, "content:getting", 0, 10, subscriber)
+                .getTotalCount());
+
+        persistence.deleteDocumentation(org, apiId, docId);
+        Assert.assertNull(persistence.getDocumentation(org, apiId, docId));
+    }
+}
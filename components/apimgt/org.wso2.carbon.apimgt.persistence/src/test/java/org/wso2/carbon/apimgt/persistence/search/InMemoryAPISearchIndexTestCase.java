@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.persistence.search;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.wso2.carbon.apimgt.persistence.APIConstants;
+import org.wso2.carbon.apimgt.persistence.dto.Organization;
+import org.wso2.carbon.apimgt.persistence.dto.PublisherAPI;
+import org.wso2.carbon.apimgt.persistence.dto.UserContext;
+import org.wso2.carbon.apimgt.persistence.exceptions.APIPersistenceException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+public class InMemoryAPISearchIndexTestCase {
+
+    private static final String ORGANIZATION = "carbon.super";
+
+    private final UserContext admin = getUserContext("admin", true, "admin");
+    private final UserContext subscriber = getUserContext("subscriber", false, "Internal/subscriber");
+    private InMemoryAPISearchIndex index;
+
+    @Before
+    public void setUp() {
+
+        index = new InMemoryAPISearchIndex();
+        index.load(ORGANIZATION, Arrays.asList(
+                getAPI("1", "PizzaShack", "/pizzashack", "PUBLISHED", "public", null, "food", "pizza"),
+                getAPI("2", "PizzaOrders", "/orders", "CREATED", "public", null, "food"),
+                getAPI("3", "Payroll", "/payroll", "PUBLISHED", "restricted", "Internal/hr", "finance")));
+    }
+
+    private static UserContext getUserContext(String username, boolean isAdmin, String... roles) {
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(APIConstants.USER_CTX_PROPERTY_ISADMIN, isAdmin);
+        return new UserContext(username, new Organization(ORGANIZATION), properties, roles);
+    }
+
+    private static IndexedAPI getAPI(String id, String name, String context, String status, String visibility,
+                                     String visibleRoles, String... tags) {
+
+        PublisherAPI api = new PublisherAPI();
+        api.setId(id);
+        api.setApiName(name);
+        api.setVersion("1.0.0");
+        api.setProviderName("admin");
+        api.setContext(context);
+        api.setType("HTTP");
+        api.setStatus(status);
+        api.setVisibility(visibility);
+        api.setVisibleRoles(visibleRoles);
+        api.setEnableStore(true);
+        api.setTags(new HashSet<>(Arrays.asList(tags)));
+        api.setSwaggerDefinition("{\"openapi\":\"3.0.1\",\"paths\":{\"" + context + "/items/{itemId}\":{}}}");
+        return IndexedAPI.fromAPI(api);
+    }
+
+    private List<String> search(String query, APISearchFilter filter) throws APIPersistenceException {
+
+        List<String> names = new ArrayList<>();
+        for (IndexedAPI api : index.search(ORGANIZATION, query, filter, 0, 10).getAPIs()) {
+            names.add(api.getName());
+        }
+        return names;
+    }
+
+    @Test
+    public void testSearchByField() throws Exception {
+
+        APISearchFilter filter = APISearchFilter.forPublisher(admin, false);
+        Assert.assertEquals(Arrays.asList("PizzaOrders", "PizzaShack"), search("pizza", filter));
+        // Words of camel case names and prefixes of whole names match
+        Assert.assertEquals(Collections.singletonList("PizzaShack"), search("shack", filter));
+        Assert.assertEquals(Collections.singletonList("PizzaShack"), search("name:pizzash", filter));
+        Assert.assertEquals(Collections.singletonList("PizzaShack"), search("name:\"pizzashack\"", filter));
+        Assert.assertTrue(search("name:\"pizza\"", filter).isEmpty());
+        // Tags match as a whole
+        Assert.assertEquals(Arrays.asList("PizzaOrders", "PizzaShack"), search("tag:food", filter));
+        Assert.assertTrue(search("tag:foo", filter).isEmpty());
+        Assert.assertEquals(Collections.singletonList("Payroll"), search("context:/payroll", filter));
+        Assert.assertEquals(Collections.singletonList("PizzaOrders"), search("subcontext:items orders", filter));
+        // All the criteria have to match
+        Assert.assertEquals(Collections.singletonList("PizzaShack"), search("pizza status:published", filter));
+        // Custom properties are left to the persistence
+        Assert.assertNull(index.search(ORGANIZATION, "owner:admin", filter, 0, 10));
+        Assert.assertNull(index.search("wso2.com", "pizza", filter, 0, 10));
+    }
+
+    @Test
+    public void testDevPortalVisibility() throws Exception {
+
+        Organization org = new Organization(ORGANIZATION);
+        Assert.assertEquals(Collections.singletonList("PizzaShack"),
+                search("", APISearchFilter.forDevPortal(org, subscriber, false, true)));
+        UserContext hrUser = getUserContext("hr", false, "Internal/HR");
+        Assert.assertEquals(Arrays.asList("Payroll", "PizzaShack"),
+                search("", APISearchFilter.forDevPortal(org, hrUser, false, true)));
+        Assert.assertTrue(search("tag:finance", APISearchFilter.forDevPortal(org, subscriber, false, false))
+                .isEmpty());
+    }
+
+    @Test
+    public void testPagination() throws Exception {
+
+        APISearchIndexResult result = index.search(ORGANIZATION, "", APISearchFilter.forPublisher(admin, true), 1,
+                1);
+        Assert.assertEquals(3, result.getTotalCount());
+        Assert.assertEquals(1, result.getAPIs().size());
+        Assert.assertEquals("PizzaOrders", result.getAPIs().get(0).getName());
+    }
+
+    @Test
+    public void testUpdates() throws Exception {
+
+        APISearchFilter filter = APISearchFilter.forPublisher(admin, false);
+        IndexedAPI pizzaShack = index.get(ORGANIZATION, "1");
+        index.put(ORGANIZATION, pizzaShack.withDocument("doc1", "Getting Started")
+                .withDocumentContent("doc1", "Order a margherita"));
+        Assert.assertEquals(Collections.singletonList("PizzaShack"), search("doc:margherita", filter));
+        Assert.assertEquals(Collections.singletonList("PizzaShack"), search("content:getting started", filter));
+
+        index.put(ORGANIZATION, index.get(ORGANIZATION, "1").withoutDocument("doc1").withStatus("DEPRECATED"));
+        Assert.assertTrue(search("doc:margherita", filter).isEmpty());
+        Assert.assertEquals(Collections.singletonList("PizzaShack"), search("status:deprecated", filter));
+
+        index.remove(ORGANIZATION, "1");
+        Assert.assertEquals(Collections.singletonList("PizzaOrders"), search("pizza", filter));
+    }
+
+    @Test
+    public void testChangesWhileLoading() throws Exception {
+
+        InMemoryAPISearchIndex loadingIndex = new InMemoryAPISearchIndex();
+        loadingIndex.put(ORGANIZATION, getAPI("1", "PizzaShack", "/pizzashack", "PUBLISHED", "public", null));
+        loadingIndex.remove(ORGANIZATION, "2");
+        Assert.assertFalse(loadingIndex.isLoaded(ORGANIZATION));
+
+        loadingIndex.load(ORGANIZATION, Arrays.asList(
+                getAPI("1", "PizzaShack", "/pizzashack", "CREATED", "public", null),
+                getAPI("2", "PizzaOrders", "/orders", "CREATED", "public", null)));
+        Assert.assertTrue(loadingIndex.isLoaded(ORGANIZATION));
+        Assert.assertEquals("PUBLISHED", loadingIndex.get(ORGANIZATION, "1").getStatus());
+        Assert.assertNull(loadingIndex.get(ORGANIZATION, "2"));
+    }
+
+    @Test
+    public void testReload() throws Exception {
+
+        index.startLoading(ORGANIZATION);
+        // Changed while loading again, so these are kept over the loaded APIs
+        index.put(ORGANIZATION, getAPI("4", "Weather", "/weather", "PUBLISHED", "public", null));
+        index.remove(ORGANIZATION, "2");
+        Assert.assertTrue(index.isLoaded(ORGANIZATION));
+
+        index.load(ORGANIZATION, Arrays.asList(
+                getAPI("1", "PizzaShack", "/pizzashack", "DEPRECATED", "public", null),
+                getAPI("2", "PizzaOrders", "/orders", "CREATED", "public", null),
+                getAPI("5", "Stocks", "/stocks", "PUBLISHED", "public", null)));
+        Assert.assertEquals("DEPRECATED", index.get(ORGANIZATION, "1").getStatus());
+        Assert.assertNull(index.get(ORGANIZATION, "2"));
+        // Payroll is no longer listed, so it has been deleted on another node
+        Assert.assertNull(index.get(ORGANIZATION, "3"));
+        Assert.assertNotNull(index.get(ORGANIZATION, "4"));
+        Assert.assertNotNull(index.get(ORGANIZATION, "5"));
+    }
+}
@@ -0,0 +1,58 @@
+CREATE TABLE IF NOT EXISTS AM_API_ARTIFACT (
+  API_UUID VARCHAR(255) NOT NULL,
+  TENANT_DOMAIN VARCHAR(255) NOT NULL,
+  ARTIFACT_TYPE VARCHAR(20) NOT NULL,
+  API_NAME VARCHAR(255) NOT NULL,
+  API_VERSION VARCHAR(30) NOT NULL,
+  API_PROVIDER VARCHAR(255) NOT NULL,
+  CONTEXT VARCHAR(256),
+  API_TYPE VARCHAR(30),
+  STATUS VARCHAR(30),
+  VISIBILITY VARCHAR(30),
+  ENABLE_STORE INTEGER DEFAULT 1,
+  REVISION_OF VARCHAR(255),
+  REVISION_ID INTEGER DEFAULT 0,
+  CREATED_TIME TIMESTAMP,
+  UPDATED_TIME TIMESTAMP,
+  ARTIFACT BLOB,
+  PRIMARY KEY (API_UUID)
+);
+
+CREATE TABLE IF NOT EXISTS AM_API_ARTIFACT_ATTRIBUTE (
+  API_UUID VARCHAR(255) NOT NULL,
+  ATTRIBUTE_NAME VARCHAR(255) NOT NULL,
+  ATTRIBUTE_VALUE VARCHAR(1024) NOT NULL,
+  ATTRIBUTE_VALUE_HASH VARCHAR(64) NOT NULL,
+  PRIMARY KEY (API_UUID, ATTRIBUTE_NAME, ATTRIBUTE_VALUE_HASH),
+  FOREIGN KEY (API_UUID) REFERENCES AM_API_ARTIFACT(API_UUID) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS AM_API_ARTIFACT_RESOURCE (
+  RESOURCE_UUID VARCHAR(255) NOT NULL,
+  API_UUID VARCHAR(255) NOT NULL,
+  RESOURCE_TYPE VARCHAR(30) NOT NULL,
+  RESOURCE_NAME VARCHAR(255),
+  MEDIA_TYPE VARCHAR(255),
+  CONTENT BLOB,
+  PRIMARY KEY (RESOURCE_UUID),
+  FOREIGN KEY (API_UUID) REFERENCES AM_API_ARTIFACT(API_UUID) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS AM_API_ARTIFACT_DOC (
+  DOC_UUID VARCHAR(255) NOT NULL,
+  API_UUID VARCHAR(255) NOT NULL,
+  DOC_NAME VARCHAR(255) NOT NULL,
+  METADATA BLOB,
+  CONTENT BLOB,
+  CONTENT_NAME VARCHAR(255),
+  MEDIA_TYPE VARCHAR(255),
+  PRIMARY KEY (DOC_UUID),
+  FOREIGN KEY (API_UUID) REFERENCES AM_API_ARTIFACT(API_UUID) ON DELETE CASCADE
+);
+
+CREATE INDEX IDX_AAF_TD_AT_NM ON AM_API_ARTIFACT(TENANT_DOMAIN, ARTIFACT_TYPE, API_NAME);
+CREATE INDEX IDX_AAF_TD_AT_ST ON AM_API_ARTIFACT(TENANT_DOMAIN, ARTIFACT_TYPE, STATUS);
+CREATE INDEX IDX_AAF_RO ON AM_API_ARTIFACT(REVISION_OF);
+CREATE INDEX IDX_AAFA_NM_VL ON AM_API_ARTIFACT_ATTRIBUTE(ATTRIBUTE_NAME, ATTRIBUTE_VALUE_HASH);
+CREATE INDEX IDX_AAFR_AU_RT ON AM_API_ARTIFACT_RESOURCE(API_UUID, RESOURCE_TYPE);
+CREATE INDEX IDX_AAFD_AU ON AM_API_ARTIFACT_DOC(API_UUID);
@@ -25,7 +25,7 @@ import javax.ws.rs.core.SecurityContext;
 
 
 public interface SubscriptionsApiService {
-      public Response subscriptionsGet(String apiId, String applicationId, String groupId, String xWSO2Tenant, Integer offset, Integer limit, String ifNoneMatch, MessageContext messageContext) throws APIManagementException;
+      public Response subscriptionsGet(String apiId, String applicationId, String groupId, String xWSO2Tenant, Integer offset, Integer limit, String after, String ifNoneMatch, MessageContext messageContext) throws APIManagementException;
       public Response subscriptionsMultiplePost(List<SubscriptionDTO> subscriptionDTO, String xWSO2Tenant, MessageContext messageContext) throws APIManagementException;
       public Response subscriptionsPost(SubscriptionDTO subscriptionDTO, String xWSO2Tenant, MessageContext messageContext) throws APIManagementException;
       public Response subscriptionsSubscriptionIdDelete(String subscriptionId, String ifMatch, MessageContext messageContext) throws APIManagementException;
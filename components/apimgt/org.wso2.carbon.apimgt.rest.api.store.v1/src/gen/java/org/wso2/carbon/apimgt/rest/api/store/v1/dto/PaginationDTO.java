@@ -25,6 +25,7 @@ public class PaginationDTO   {
     private Integer total = null;
     private String next = null;
     private String previous = null;
+    private String nextCursor = null;
 
   /**
    **/
@@ -113,6 +114,24 @@ public class PaginationDTO   {
     this.previous = previous;
   }
 
+  /**
+   * Cursor to pass as the \&quot;after\&quot; parameter to retrieve the next subset of resources qualified. Not set if no more resources are to be returned, or if the resources are not sorted in an order that can be continued from a cursor. 
+   **/
+  public PaginationDTO nextCursor(String nextCursor) {
+    this.nextCursor = nextCursor;
+    return this;
+  }
+
+  
+  @ApiModelProperty(value = "Cursor to pass as the \"after\" parameter to retrieve the next subset of resources qualified. Not set if no more resources are to be returned, or if the resources are not sorted in an order that can be continued from a cursor. ")
+  @JsonProperty("nextCursor")
+  public String getNextCursor() {
+    return nextCursor;
+  }
+  public void setNextCursor(String nextCursor) {
+    this.nextCursor = nextCursor;
+  }
+
 
   @Override
   public boolean equals(java.lang.Object o) {
@@ -127,12 +146,13 @@ public class PaginationDTO   {
         Objects.equals(limit, pagination.limit) &&
         Objects.equals(total, pagination.total) &&
         Objects.equals(next, pagination.next) &&
-        Objects.equals(previous, pagination.previous);
+        Objects.equals(previous, pagination.previous) &&
+        Objects.equals(nextCursor, pagination.nextCursor);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(offset, limit, total, next, previous);
+    return Objects.hash(offset, limit, total, next, previous, nextCursor);
   }
 
   @Override
@@ -145,6 +165,7 @@ public class PaginationDTO   {
     sb.append("    total: ").append(toIndentedString(total)).append("\n");
     sb.append("    next: ").append(toIndentedString(next)).append("\n");
     sb.append("    previous: ").append(toIndentedString(previous)).append("\n");
+    sb.append("    nextCursor: ").append(toIndentedString(nextCursor)).append("\n");
     sb.append("}");
     return sb.toString();
   }
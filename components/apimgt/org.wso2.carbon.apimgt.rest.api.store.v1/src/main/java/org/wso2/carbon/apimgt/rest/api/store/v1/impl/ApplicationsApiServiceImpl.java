@@ -79,6 +79,7 @@ import org.wso2.carbon.apimgt.rest.api.common.RestApiConstants;
 import org.wso2.carbon.apimgt.rest.api.store.v1.models.ExportedApplication;
 import org.wso2.carbon.apimgt.rest.api.store.v1.utils.ExportUtils;
 import org.wso2.carbon.apimgt.rest.api.store.v1.utils.ImportUtils;
+import org.wso2.carbon.apimgt.rest.api.store.v1.utils.PaginationCursorUtils;
 import org.wso2.carbon.apimgt.rest.api.util.utils.RestAPIStoreUtils;
 import org.wso2.carbon.apimgt.rest.api.util.utils.RestApiUtil;
 import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
@@ -116,12 +117,14 @@ public class ApplicationsApiServiceImpl implements ApplicationsApiService {
      * @param query       search condition
      * @param limit       max number of objects returns
      * @param offset      starting index
+     * @param after       cursor pointing to the last application of the previous page
      * @param ifNoneMatch If-None-Match header value
      * @return Response object containing resulted applications
      */
     @Override
     public Response applicationsGet(String groupId, String query, String sortBy, String sortOrder,
-                                    Integer limit, Integer offset, String ifNoneMatch, MessageContext messageContext) {
+                                    Integer limit, Integer offset, String after, String ifNoneMatch,
+                                    MessageContext messageContext) {
 
         limit = limit != null ? limit : RestApiConstants.PAGINATION_LIMIT_DEFAULT;
         offset = offset != null ? offset : RestApiConstants.PAGINATION_OFFSET_DEFAULT;
@@ -141,16 +144,37 @@ public class ApplicationsApiServiceImpl implements ApplicationsApiService {
         try {
             APIConsumer apiConsumer = RestApiCommonUtil.getConsumer(username);
             Subscriber subscriber = new Subscriber(username);
+            boolean sortedByName = APIConstants.APPLICATION_NAME.equals(sortBy);
             Application[] applications;
-            applications = apiConsumer
-                    .getApplicationsWithPagination(new Subscriber(username), groupId, offset, limit, query, sortBy,
-                            sortOrder);
+            if (StringUtils.isNotEmpty(after)) {
+                // A cursor holds the name of the last application, so only pages sorted by name can be continued
+                PaginationCursorUtils.ApplicationCursor cursor = PaginationCursorUtils.getApplicationCursor(after);
+                if (cursor == null || !sortedByName) {
+                    RestApiUtil.handleBadRequest("Invalid pagination cursor: " + after, log);
+                    return null;
+                }
+                applications = apiConsumer.getApplicationsAfter(subscriber, groupId, cursor.getName(),
+                        cursor.getApplicationId(), limit, query, sortOrder);
+            } else {
+                applications = apiConsumer
+                        .getApplicationsWithPagination(new Subscriber(username), groupId, offset, limit, query,
+                                sortBy, sortOrder);
+            }
             ApiMgtDAO apiMgtDAO = ApiMgtDAO.getInstance();
             int applicationCount = apiMgtDAO.getAllApplicationCount(subscriber, groupId, query);
 
             applicationListDTO = ApplicationMappingUtil.fromApplicationsToDTO(applications);
-            ApplicationMappingUtil.setPaginationParamsWithSortParams(applicationListDTO, groupId, limit, offset,
-                    applicationCount, sortOrder, sortBy.toLowerCase());
+            if (StringUtils.isNotEmpty(after)) {
+                applicationListDTO.setPagination(new PaginationDTO().limit(limit).total(applicationCount));
+            } else {
+                ApplicationMappingUtil.setPaginationParamsWithSortParams(applicationListDTO, groupId, limit, offset,
+                        applicationCount, sortOrder, sortBy.toLowerCase());
+            }
+            if (sortedByName && applications.length > 0 && applications.length == limit) {
+                Application lastApplication = applications[applications.length - 1];
+                applicationListDTO.getPagination().setNextCursor(
+                        PaginationCursorUtils.getApplicationCursor(lastApplication.getId(), lastApplication.getName()));
+            }
 
             return Response.ok().entity(applicationListDTO).build();
         } catch (APIManagementException e) {
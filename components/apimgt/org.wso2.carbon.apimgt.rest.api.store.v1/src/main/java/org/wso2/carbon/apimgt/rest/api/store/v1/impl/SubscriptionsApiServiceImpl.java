@@ -42,10 +42,12 @@ import org.wso2.carbon.apimgt.impl.workflow.HttpWorkflowResponse;
 import org.wso2.carbon.apimgt.rest.api.common.RestApiCommonUtil;
 import org.wso2.carbon.apimgt.rest.api.store.v1.SubscriptionsApiService;
 import org.wso2.carbon.apimgt.rest.api.store.v1.dto.APIMonetizationUsageDTO;
+import org.wso2.carbon.apimgt.rest.api.store.v1.dto.PaginationDTO;
 import org.wso2.carbon.apimgt.rest.api.store.v1.dto.SubscriptionDTO;
 import org.wso2.carbon.apimgt.rest.api.store.v1.dto.SubscriptionListDTO;
 import org.wso2.carbon.apimgt.rest.api.store.v1.mappings.APIMappingUtil;
 import org.wso2.carbon.apimgt.rest.api.store.v1.mappings.SubscriptionMappingUtil;
+import org.wso2.carbon.apimgt.rest.api.store.v1.utils.PaginationCursorUtils;
 import org.wso2.carbon.apimgt.rest.api.common.RestApiConstants;
 import org.wso2.carbon.apimgt.rest.api.util.utils.RestAPIStoreUtils;
 import org.wso2.carbon.apimgt.rest.api.util.utils.RestApiUtil;
@@ -77,13 +79,14 @@ public class SubscriptionsApiServiceImpl implements SubscriptionsApiService {
      * @param applicationId application identifier
      * @param offset        starting index of the subscription list
      * @param limit         max num of subscriptions returned
+     * @param after         cursor pointing to the last subscription of the previous page
      * @param ifNoneMatch   If-None-Match header value
      * @return matched subscriptions as a list of SubscriptionDTOs
      */
     @Override
     public Response subscriptionsGet(String apiId, String applicationId, String groupId,
-                                     String xWSO2Tenant, Integer offset, Integer limit, String ifNoneMatch,
-                                     MessageContext messageContext) {
+                                     String xWSO2Tenant, Integer offset, Integer limit, String after,
+                                     String ifNoneMatch, MessageContext messageContext) {
         String username = RestApiCommonUtil.getLoggedInUsername();
         String tenantDomain = RestApiUtil.getRequestedTenantDomain(xWSO2Tenant);
         Subscriber subscriber = new Subscriber(username);
@@ -137,12 +140,31 @@ public class SubscriptionsApiServiceImpl implements SubscriptionsApiService {
                     RestApiUtil.handleAuthorizationFailure(RestApiConstants.RESOURCE_APPLICATION, applicationId, log);
                 }
 
-                subscriptions = apiConsumer
-                        .getPaginatedSubscribedAPIs(subscriber, application.getName(), offset, limit, groupId);
+                if (StringUtils.isNotEmpty(after)) {
+                    Integer afterSubscriptionId = PaginationCursorUtils.getSubscriptionId(after);
+                    if (afterSubscriptionId == null) {
+                        RestApiUtil.handleBadRequest("Invalid pagination cursor: " + after, log);
+                        return null;
+                    }
+                    subscriptions = apiConsumer.getPaginatedSubscribedAPIsAfter(subscriber, application.getName(),
+                            afterSubscriptionId, limit, groupId);
+                } else {
+                    subscriptions = apiConsumer.getPaginatedSubscribedAPIs(subscriber, application.getName(),
+                            offset, offset + limit, groupId);
+                }
                 subscribedAPIList.addAll(subscriptions);
 
                 subscriptionListDTO = SubscriptionMappingUtil.fromSubscriptionListToDTO(subscribedAPIList, limit,
                         offset);
+                PaginationDTO paginationDTO = new PaginationDTO().limit(limit);
+                if (StringUtils.isEmpty(after)) {
+                    paginationDTO.setOffset(offset);
+                }
+                if (!subscribedAPIList.isEmpty() && subscribedAPIList.size() == limit) {
+                    paginationDTO.setNextCursor(PaginationCursorUtils.getSubscriptionCursor(
+                            subscribedAPIList.get(subscribedAPIList.size() - 1).getSubscriptionId()));
+                }
+                subscriptionListDTO.setPagination(paginationDTO);
                 return Response.ok().entity(subscriptionListDTO).build();
 
             } else {
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.rest.api.store.v1.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes and decodes the opaque cursors returned as the "nextCursor" of a page, which point to the last item of the
+ * page, so that the next page can be read by seeking past that item instead of skipping an offset.
+ */
+public class PaginationCursorUtils {
+
+    private static final String SUBSCRIPTION_CURSOR_PREFIX = "subscription:";
+    private static final String APPLICATION_CURSOR_PREFIX = "application:";
+
+    private PaginationCursorUtils() {
+
+    }
+
+    /**
+     * @param subscriptionId id of the last subscription of a page
+     * @return cursor pointing to the subscription
+     */
+    public static String getSubscriptionCursor(int subscriptionId) {
+
+        return encode(SUBSCRIPTION_CURSOR_PREFIX + subscriptionId);
+    }
+
+    /**
+     * @param cursor cursor returned by {@link #getSubscriptionCursor(int)}
+     * @return id of the subscription the cursor points to, or null if the cursor is not a subscription cursor
+     */
+    public static Integer getSubscriptionId(String cursor) {
+
+        String value = decode(cursor);
+        if (value == null || !value.startsWith(SUBSCRIPTION_CURSOR_PREFIX)) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(value.substring(SUBSCRIPTION_CURSOR_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param applicationId id of the last application of a page
+     * @param name          name of the last application of a page
+     * @return cursor pointing to the application
+     */
+    public static String getApplicationCursor(int applicationId, String name) {
+
+        return encode(APPLICATION_CURSOR_PREFIX + applicationId + ':' + name);
+    }
+
+    /**
+     * @param cursor cursor returned by {@link #getApplicationCursor(int, String)}
+     * @return the application the cursor points to, or null if the cursor is not an application cursor
+     */
+    public static ApplicationCursor getApplicationCursor(String cursor) {
+
+        String value = decode(cursor);
+        if (value == null || !value.startsWith(APPLICATION_CURSOR_PREFIX)) {
+            return null;
+        }
+        String[] parts = value.substring(APPLICATION_CURSOR_PREFIX.length()).split(":", 2);
+        if (parts.length != 2) {
+            return null;
+        }
+        try {
+            return new ApplicationCursor(Integer.parseInt(parts[0]), parts[1]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String encode(String value) {
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String cursor) {
+
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Last application of a page, which the next page of applications sorted by name starts after.
+     */
+    public static class ApplicationCursor {
+
+        private final int applicationId;
+        private final String name;
+
+        private ApplicationCursor(int applicationId, String name) {
+
+            this.applicationId = applicationId;
+            this.name = name;
+        }
+
+        public int getApplicationId() {
+
+            return applicationId;
+        }
+
+        public String getName() {
+
+            return name;
+        }
+    }
+}
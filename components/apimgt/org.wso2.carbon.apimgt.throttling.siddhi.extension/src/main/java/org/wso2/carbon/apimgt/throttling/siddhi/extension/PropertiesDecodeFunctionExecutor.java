@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.throttling.siddhi.extension;
+
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.wso2.siddhi.core.config.ExecutionPlanContext;
+import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.executor.function.FunctionExecutor;
+import org.wso2.siddhi.query.api.definition.Attribute;
+import org.wso2.siddhi.query.api.exception.ExecutionPlanValidationException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Decodes the properties attribute of a throttle request event published by gateways with compact event encoding
+ * enabled, producing the same map {@code map:createFromJSON} produces for JSON encoded properties.
+ * <p/>
+ * The encoded value starts with a 0x01 marker followed by entries of the form {@code name 0x1F type value 0x1E},
+ * where type is 's' for string values and 'l' for long values. Separator characters inside names and values are
+ * escaped with 0x1B. This must be kept in line with ThrottlePropertiesEncoder of the gateway. Properties of gateways
+ * publishing them as JSON are parsed as JSON, so gateways with and without compact encoding can share a traffic
+ * manager.
+ * <p/>
+ * Usage:
+ * throttler:decodeProperties(properties)
+ * <p/>
+ * Example on usage:
+ * from RequestStream
+ * select messageID, appKey, ..., throttler:decodeProperties(properties) as propertiesMap
+ * insert into EligibilityStream;
+ */
+public class PropertiesDecodeFunctionExecutor extends FunctionExecutor {
+
+    static final char MARKER = '\u0001';
+    static final char ESCAPE = '\u001B';
+    static final char ENTRY_SEPARATOR = '\u001E';
+    static final char VALUE_SEPARATOR = '\u001F';
+    static final char STRING_TYPE = 's';
+    static final char LONG_TYPE = 'l';
+
+    @Override
+    protected void init(ExpressionExecutor[] attributeExpressionExecutors, ExecutionPlanContext executionPlanContext) {
+        if (attributeExpressionExecutors.length != 1) {
+            throw new ExecutionPlanValidationException("Invalid no of arguments passed to the function, "
+                    + "required 1 parameter, but found " + attributeExpressionExecutors.length);
+        }
+        if (attributeExpressionExecutors[0].getReturnType() != Attribute.Type.STRING) {
+            throw new ExecutionPlanValidationException("Invalid parameter type found for the argument of "
+                    + "throttler:decodeProperties, required " + Attribute.Type.STRING + ", but found "
+                    + attributeExpressionExecutors[0].getReturnType());
+        }
+    }
+
+    @Override
+    protected Object execute(Object[] data) {
+        return null;    //Since the function takes a single argument, this is never called.
+    }
+
+    @Override
+    protected Object execute(Object data) {
+        return decode((String) data);
+    }
+
+    /**
+     * Decodes the compact encoding into a map of property names to String or Long values, or parses JSON encoded
+     * properties.
+     *
+     * @param encoded encoded properties
+     * @return decoded map, empty if the value is null or in neither encoding
+     */
+    static Map<String, Object> decode(String encoded) {
+        Map<String, Object> properties = new HashMap<>();
+        if (encoded == null || encoded.isEmpty()) {
+            return properties;
+        }
+        if (encoded.charAt(0) != MARKER) {
+            return parseJSON(encoded, properties);
+        }
+        StringBuilder token = new StringBuilder();
+        String name = null;
+        char type = STRING_TYPE;
+        boolean readingValue = false;
+        for (int i = 1; i < encoded.length(); i++) {
+            char c = encoded.charAt(i);
+            if (c == ESCAPE && i + 1 < encoded.length()) {
+                token.append(encoded.charAt(++i));
+            } else if (c == VALUE_SEPARATOR && !readingValue) {
+                name = token.toString();
+                token.setLength(0);
+                if (i + 1 < encoded.length()) {
+                    type = encoded.charAt(++i);
+                }
+                readingValue = true;
+            } else if (c == ENTRY_SEPARATOR && readingValue) {
+                properties.put(name, toValue(type, token.toString()));
+                token.setLength(0);
+                readingValue = false;
+            } else {
+                token.append(c);
+            }
+        }
+        return properties;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> parseJSON(String json, Map<String, Object> properties) {
+        try {
+            Object parsed = new JSONParser().parse(json);
+            if (parsed instanceof JSONObject) {
+                properties.putAll((JSONObject) parsed);
+            }
+        } catch (ParseException e) {
+            // Neither encoding, the event is processed without properties
+        }
+        return properties;
+    }
+
+    private static Object toValue(char type, String value) {
+        if (type == LONG_TYPE) {
+            try {
+                return Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                return value;
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public void start() {
+        //Nothing to start
+    }
+
+    @Override
+    public void stop() {
+        //Nothing to stop
+    }
+
+    @Override
+    public Attribute.Type getReturnType() {
+        return Attribute.Type.OBJECT;
+    }
+
+    @Override
+    public Object[] currentState() {
+        return null;    //No need to maintain a state.
+    }
+
+    @Override
+    public void restoreState(Object[] state) {
+        //Since there's no need to maintain a state, nothing needs to be done here.
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.apimgt.throttling.siddhi.extension;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+
+public class PropertiesDecodeFunctionTestCase {
+
+    @Test
+    public void testDecodeCompactProperties() {
+
+        String encoded = "\u0001ip\u001Fl3232235777\u001Ex-tier\u001FsGold\u001Ea\u001B\u001Eb\u001Fsc\u001B\u001Fd\u001E";
+        Map<String, Object> properties = PropertiesDecodeFunctionExecutor.decode(encoded);
+        Assert.assertEquals(3, properties.size());
+        Assert.assertEquals(3232235777L, properties.get("ip"));
+        Assert.assertEquals("Gold", properties.get("x-tier"));
+        Assert.assertEquals("c\u001Fd", properties.get("a\u001Eb"));
+    }
+
+    @Test
+    public void testDecodeNonCompactProperties() {
+
+        Assert.assertTrue(PropertiesDecodeFunctionExecutor.decode(null).isEmpty());
+        Assert.assertTrue(PropertiesDecodeFunctionExecutor.decode("not encoded").isEmpty());
+    }
+
+    @Test
+    public void testDecodeJSONProperties() {
+
+        Map<String, Object> properties =
+                PropertiesDecodeFunctionExecutor.decode("{\"ip\":3232235777,\"x-tier\":\"Gold\"}");
+        Assert.assertEquals(2, properties.size());
+        Assert.assertEquals(3232235777L, properties.get("ip"));
+        Assert.assertEquals("Gold", properties.get("x-tier"));
+    }
+}
@@ -2292,6 +2292,88 @@ CREATE TABLE IF NOT EXISTS AM_API_SERVICE_MAPPING (
     PRIMARY KEY (API_ID, SERVICE_KEY),
     FOREIGN KEY (API_ID) REFERENCES AM_API(API_ID) ON DELETE CASCADE
 )ENGINE=NDB;
+
+-- API Artifact Tables, used when the APIs are persisted in the database instead of the registry --
+
+CREATE TABLE IF NOT EXISTS AM_API_ARTIFACT (
+  API_UUID VARCHAR(255) NOT NULL,
+  TENANT_DOMAIN VARCHAR(255) NOT NULL,
+  ARTIFACT_TYPE VARCHAR(20) NOT NULL,
+  API_NAME VARCHAR(255) NOT NULL,
+  API_VERSION VARCHAR(30) NOT NULL,
+  API_PROVIDER VARCHAR(255) NOT NULL,
+  CONTEXT VARCHAR(256),
+  API_TYPE VARCHAR(30),
+  STATUS VARCHAR(30),
+  VISIBILITY VARCHAR(30),
+  ENABLE_STORE INTEGER DEFAULT 1,
+  REVISION_OF VARCHAR(255),
+  REVISION_ID INTEGER DEFAULT 0,
+  CREATED_TIME TIMESTAMP NULL,
+  UPDATED_TIME TIMESTAMP NULL,
+  ARTIFACT LONGBLOB,
+  PRIMARY KEY (API_UUID)
+) ENGINE=NDB;
+
+CREATE TABLE IF NOT EXISTS AM_API_ARTIFACT_ATTRIBUTE (
+  API_UUID VARCHAR(255) NOT NULL,
+  ATTRIBUTE_NAME VARCHAR(255) NOT NULL,
+  ATTRIBUTE_VALUE VARCHAR(1024) NOT NULL,
+  ATTRIBUTE_VALUE_HASH VARCHAR(64) NOT NULL,
+  PRIMARY KEY (API_UUID, ATTRIBUTE_NAME, ATTRIBUTE_VALUE_HASH),
+  FOREIGN KEY (API_UUID) REFERENCES AM_API_ARTIFACT(API_UUID) ON DELETE CASCADE
+) ENGINE=NDB;
+
+CREATE TABLE IF NOT EXISTS AM_API_ARTIFACT_RESOURCE (
+  RESOURCE_UUID VARCHAR(255) NOT NULL,
+  API_UUID VARCHAR(255) NOT NULL,
+  RESOURCE_TYPE VARCHAR(30) NOT NULL,
+  RESOURCE_NAME VARCHAR(255),
+  MEDIA_TYPE VARCHAR(255),
+  CONTENT LONGBLOB,
+  PRIMARY KEY (RESOURCE_UUID),
+  FOREIGN KEY (API_UUID) REFERENCES AM_API_ARTIFACT(API_UUID) ON DELETE CASCADE
+) ENGINE=NDB;
+
+CREATE TABLE IF NOT EXISTS AM_API_ARTIFACT_DOC (
+  DOC_UUID VARCHAR(255) NOT NULL,
+  API_UUID VARCHAR(255) NOT NULL,
+  DOC_NAME VARCHAR(255) NOT NULL,
+  METADATA LONGBLOB,
+  CONTENT LONGBLOB,
+  CONTENT_NAME VARCHAR(255),
+  MEDIA_TYPE VARCHAR(255),
+  PRIMARY KEY (DOC_UUID),
+  FOREIGN KEY (API_UUID) REFERENCES AM_API_ARTIFACT(API_UUID) ON DELETE CASCADE
+) ENGINE=NDB;
+
+CREATE INDEX IDX_AAF_TD_AT_NM ON AM_API_ARTIFACT(TENANT_DOMAIN, ARTIFACT_TYPE, API_NAME);
+CREATE INDEX IDX_AAF_TD_AT_ST ON AM_API_ARTIFACT(TENANT_DOMAIN, ARTIFACT_TYPE, STATUS);
+CREATE INDEX IDX_AAF_RO ON AM_API_ARTIFACT(REVISION_OF);
+CREATE INDEX IDX_AAFA_NM_VL ON AM_API_ARTIFACT_ATTRIBUTE(ATTRIBUTE_NAME, ATTRIBUTE_VALUE_HASH);
+CREATE INDEX IDX_AAFR_AU_RT ON AM_API_ARTIFACT_RESOURCE(API_UUID, RESOURCE_TYPE);
+CREATE INDEX IDX_AAFD_AU ON AM_API_ARTIFACT_DOC(API_UUID);
+
+CREATE TABLE IF NOT EXISTS AM_SUBSCRIPTION_DATA_CHANGE (
+  SEQUENCE_ID BIGINT NOT NULL AUTO_INCREMENT,
+  TENANT_ID INTEGER NOT NULL,
+  TENANT_DOMAIN VARCHAR(255) NOT NULL,
+  ENTITY_TYPE VARCHAR(30) NOT NULL,
+  EVENT_TYPE VARCHAR(50) NOT NULL,
+  API_ID INTEGER,
+  APPLICATION_ID INTEGER,
+  SUBSCRIPTION_ID INTEGER,
+  APPLICATION_UUID VARCHAR(256),
+  CONSUMER_KEY VARCHAR(512),
+  KEY_MANAGER VARCHAR(100),
+  KEY_TYPE VARCHAR(512),
+  CREATED_TIME BIGINT NOT NULL,
+  PRIMARY KEY (SEQUENCE_ID)
+) ENGINE=NDB;
+
+CREATE INDEX IDX_ASDC_TD_ET_SI ON AM_SUBSCRIPTION_DATA_CHANGE(TENANT_DOMAIN, ENTITY_TYPE, SEQUENCE_ID);
+CREATE INDEX IDX_ASDC_CT ON AM_SUBSCRIPTION_DATA_CHANGE(CREATED_TIME);
+
 -- End of API-MGT Tables --
 
 -- Performance indexes start--
@@ -2309,5 +2391,6 @@ create index IDX_APS_QT on AM_POLICY_SUBSCRIPTION (QUOTA_TYPE);
 create index IDX_AS_AITIAI on AM_SUBSCRIPTION (API_ID,TIER_ID,APPLICATION_ID);
 create index IDX_APA_QT on AM_POLICY_APPLICATION (QUOTA_TYPE);
 create index IDX_AA_AT_CB on AM_APPLICATION (APPLICATION_TIER,CREATED_BY);
+create index IDX_AA_SI_NM_AI on AM_APPLICATION (SUBSCRIBER_ID,NAME,APPLICATION_ID);
 
 -- Performance indexes end--